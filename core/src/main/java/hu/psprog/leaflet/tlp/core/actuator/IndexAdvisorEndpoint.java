@@ -0,0 +1,54 @@
+package hu.psprog.leaflet.tlp.core.actuator;
+
+import hu.psprog.leaflet.tlp.core.domain.IndexAdvisorReport;
+import hu.psprog.leaflet.tlp.core.domain.IndexBuildStatus;
+import hu.psprog.leaflet.tlp.core.service.index.IndexAdvisor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint exposing the {@link IndexAdvisor}.
+ * Reading the endpoint returns the advisor report, while writing it (with the name of a recommended index) starts building
+ * the given index in the background.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Endpoint(id = "indexadvisor")
+public class IndexAdvisorEndpoint {
+
+    private final IndexAdvisor indexAdvisor;
+
+    @Autowired
+    public IndexAdvisorEndpoint(IndexAdvisor indexAdvisor) {
+        this.indexAdvisor = indexAdvisor;
+    }
+
+    /**
+     * Returns the current {@link IndexAdvisorReport}.
+     *
+     * @return current {@link IndexAdvisorReport}
+     */
+    @ReadOperation
+    public IndexAdvisorReport report() {
+        return indexAdvisor.getReport();
+    }
+
+    /**
+     * Starts building the recommended index of the given name in the background.
+     *
+     * @param name name of a currently recommended index
+     * @return status of the index build, or HTTP 404 if there is no such recommendation
+     */
+    @WriteOperation
+    public WebEndpointResponse<IndexBuildStatus> buildIndex(String name) {
+
+        return indexAdvisor.buildIndex(name)
+                .map(WebEndpointResponse::new)
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+}
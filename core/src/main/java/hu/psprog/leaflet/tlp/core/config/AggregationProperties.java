@@ -0,0 +1,20 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of log event aggregation queries.
+ * Properties are read from the tlp.query.aggregation configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.query.aggregation")
+public class AggregationProperties {
+
+    /**
+     * Maximum number of buckets returned by an aggregation query. Further buckets are left out, and the result is marked as truncated.
+     */
+    private int maxBuckets = 1000;
+}
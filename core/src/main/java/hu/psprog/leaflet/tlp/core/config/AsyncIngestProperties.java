@@ -0,0 +1,42 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the asynchronous (write-behind) log event ingestion mode.
+ * Properties are read from the tlp.ingest.async configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.ingest.async")
+public class AsyncIngestProperties {
+
+    /**
+     * Enables asynchronous ingestion. When disabled (default), log events are written synchronously.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of log events waiting in the buffer. Further events are rejected while the buffer is full.
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * Maximum number of log events written in a single bulk write.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Maximum time a log event can wait in the buffer before the pending batch is written.
+     */
+    private Duration flushInterval = Duration.ofMillis(500);
+
+    /**
+     * Maximum time to wait for the flusher thread to finish its current batch on shutdown.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,32 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of large field compression.
+ * Properties are read from the tlp.storage.compression configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.storage.compression")
+public class CompressionProperties {
+
+    /**
+     * Enables compressing large log message contents and stack traces. When disabled (default), they are stored as they are.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Log message contents and stack traces longer than this (in characters) are compressed.
+     */
+    private int threshold = 16384;
+
+    /**
+     * Length of the uncompressed search-only shadow kept in the content field of log events with compressed content.
+     * Message searches (TLQL "message" conditions) only see this prefix of compressed contents, substrings starting beyond it
+     * are not matched. Must be positive and shorter than the threshold.
+     */
+    private int searchShadowLength = 8192;
+}
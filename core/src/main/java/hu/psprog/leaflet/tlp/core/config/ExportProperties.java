@@ -0,0 +1,21 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of log event exports.
+ * Properties are read from the tlp.query.export configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.query.export")
+public class ExportProperties {
+
+    /**
+     * Number of log events fetched from the database cursor at once. Events are also converted and written
+     * to the output in batches of this size, so it determines the memory used by an export.
+     */
+    private int batchSize = 500;
+}
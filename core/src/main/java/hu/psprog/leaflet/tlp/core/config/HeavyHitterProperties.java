@@ -0,0 +1,53 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the heavy hitter sketches (most frequent loggers, sources and message templates).
+ * Properties are read from the tlp.storage.heavy-hitters configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.storage.heavy-hitters")
+public class HeavyHitterProperties {
+
+    /**
+     * Enables maintaining the heavy hitter sketches at ingestion.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of counters of a single sketch. Counts of values tracked by a sketch are overestimated by at most
+     * the number of events counted by the sketch divided by its capacity.
+     */
+    private int capacity = 200;
+
+    /**
+     * Length of the time slots the sliding window consists of (each slot has its own sketch per dimension).
+     */
+    private Duration slotLength = Duration.ofMinutes(1);
+
+    /**
+     * Number of time slots tracked, so the sliding window covers slotLength * windowSlots time.
+     */
+    private int windowSlots = 60;
+
+    /**
+     * Interval of persisting the changed sketches.
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(1);
+
+    /**
+     * Maximum length of the message templates tracked (longer templates are truncated).
+     */
+    private int maxTemplateLength = 200;
+
+    /**
+     * Maximum number of values returned by a single heavy hitter query.
+     */
+    private int maxResults = 100;
+}
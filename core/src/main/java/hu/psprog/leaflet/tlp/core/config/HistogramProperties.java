@@ -0,0 +1,26 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of log event histogram queries.
+ * Properties are read from the tlp.query.histogram configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.query.histogram")
+public class HistogramProperties {
+
+    /**
+     * Maximum number of buckets of a histogram. The finest bucket interval is selected that keeps the time range of the query
+     * within this number of buckets.
+     */
+    private int maxBuckets = 200;
+
+    /**
+     * Enables serving histograms from the rollup counters, when the query filters only by source, level and time.
+     */
+    private boolean useRollups = true;
+}
@@ -0,0 +1,39 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of client event ID based ingestion deduplication.
+ * Properties are read from the tlp.ingest.idempotency configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.ingest.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Enables filtering out already stored events (by their client event ID) before writing them.
+     * When disabled, duplicates are still rejected by the unique event ID index.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Time window an event ID is remembered by the in-memory Bloom filter for (at least).
+     * Retries arriving later are still recognized, but only via a database lookup.
+     */
+    private Duration window = Duration.ofMinutes(10);
+
+    /**
+     * Number of event IDs a single generation of the Bloom filter is sized for (the filter holds at most two generations).
+     */
+    private int expectedInsertions = 100_000;
+
+    /**
+     * Target false positive probability of a single Bloom filter generation.
+     */
+    private double falsePositiveProbability = 0.01;
+}
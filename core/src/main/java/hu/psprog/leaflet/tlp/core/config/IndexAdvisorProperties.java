@@ -0,0 +1,37 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the index advisor, recording the shapes of executed log event queries.
+ * Properties are read from the tlp.query.index-advisor configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.query.index-advisor")
+public class IndexAdvisorProperties {
+
+    /**
+     * Enables recording query shapes. Recommendations are only available while enabled.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of distinct query shapes tracked. Executions of further shapes are not recorded.
+     */
+    private int maxShapes = 200;
+
+    /**
+     * Minimum number of executions of a query shape before an index is recommended for it.
+     */
+    private long minExecutions = 10;
+
+    /**
+     * Minimum average latency of a query shape before an index is recommended for it.
+     */
+    private Duration minAverageLatency = Duration.ofMillis(100);
+}
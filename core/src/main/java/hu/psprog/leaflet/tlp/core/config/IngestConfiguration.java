@@ -0,0 +1,24 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Log event ingestion and storage related configuration.
+ *
+ * @author Peter Smith
+ */
+@Configuration
+@EnableConfigurationProperties({
+        AsyncIngestProperties.class,
+        StackTraceDeduplicationProperties.class,
+        InternPoolProperties.class,
+        CompressionProperties.class,
+        HeavyHitterProperties.class,
+        IdempotencyProperties.class,
+        IssueTrackingProperties.class,
+        RateLimitProperties.class,
+        RollupProperties.class
+})
+public class IngestConfiguration {
+}
@@ -0,0 +1,30 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the string intern pool used for low-cardinality log event fields.
+ * Properties are read from the tlp.intern-pool configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.intern-pool")
+public class InternPoolProperties {
+
+    /**
+     * Enables string interning. When disabled, strings are passed through unchanged.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of strings held by a single generation of the pool (the pool holds at most two generations).
+     */
+    private int generationCapacity = 4096;
+
+    /**
+     * Strings longer than this are never interned.
+     */
+    private int maxLength = 256;
+}
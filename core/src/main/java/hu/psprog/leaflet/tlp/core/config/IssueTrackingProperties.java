@@ -0,0 +1,42 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of exception issue tracking.
+ * Properties are read from the tlp.storage.issues configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.storage.issues")
+public class IssueTrackingProperties {
+
+    /**
+     * Enables fingerprinting the exceptions of the stored log events, and maintaining the issues collection.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of the topmost stack trace frames included in the fingerprint of an exception.
+     */
+    private int topFrames = 5;
+
+    /**
+     * Interval of adding the in-memory issue occurrences to the stored issues.
+     */
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    /**
+     * Number of recently seen issue signatures remembered in memory between fingerprinting and counting the stored events.
+     */
+    private int signatureCacheSize = 10000;
+
+    /**
+     * Maximum number of issues returned by a single issue query.
+     */
+    private int maxResults = 500;
+}
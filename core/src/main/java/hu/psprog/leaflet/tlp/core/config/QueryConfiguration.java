@@ -0,0 +1,25 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Log event query related configuration.
+ *
+ * @author Peter Smith
+ */
+@Configuration
+@EnableConfigurationProperties({
+        AggregationProperties.class,
+        ExportProperties.class,
+        HistogramProperties.class,
+        IndexAdvisorProperties.class,
+        QueryCountProperties.class,
+        QueryGuardProperties.class,
+        QueryOptimizerProperties.class,
+        QueryPlanCacheProperties.class,
+        QueryResultCacheProperties.class,
+        TextSearchProperties.class
+})
+public class QueryConfiguration {
+}
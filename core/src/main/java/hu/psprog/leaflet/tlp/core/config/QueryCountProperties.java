@@ -0,0 +1,39 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of total count calculation for log queries.
+ * Properties are read from the tlp.query.count configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.query.count")
+public class QueryCountProperties {
+
+    /**
+     * Maximum number of matching events counted in estimated count mode, when the query has filter conditions.
+     * If more events are matching, the count is reported as a lower bound.
+     */
+    private long cap = 10_000;
+
+    /**
+     * Number of background threads calculating deferred counts.
+     */
+    private int deferredCountThreads = 2;
+
+    /**
+     * Maximum number of deferred counts kept (running or completed) at the same time.
+     * No count token is returned while the limit is reached.
+     */
+    private int maxDeferredCounts = 1_000;
+
+    /**
+     * Time a deferred count result is kept for after starting the count.
+     */
+    private Duration deferredCountTimeToLive = Duration.ofMinutes(10);
+}
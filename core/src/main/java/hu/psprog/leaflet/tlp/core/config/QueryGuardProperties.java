@@ -0,0 +1,39 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the log query cost guard.
+ * Properties are read from the tlp.query.guard configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.query.guard")
+public class QueryGuardProperties {
+
+    /**
+     * Maximum execution time of a single find or count operation of a log query (applied as maxTimeMS).
+     * Zero disables the limit. Exports are not limited, as their cursors are kept open for the whole export.
+     */
+    private Duration maxTime = Duration.ofSeconds(30);
+
+    /**
+     * Maximum number of log events returned on a single page. Larger limits of the queries are lowered to this value.
+     */
+    private int maxPageSize = 1000;
+
+    /**
+     * Enables explaining queries without a lower time bound before executing them, rejecting those the database
+     * would execute by scanning the whole collection.
+     */
+    private boolean rejectCollectionScans = false;
+
+    /**
+     * Collection scans are rejected only if the collection holds more (estimated) log events than this.
+     */
+    private long maxCollectionScanDocuments = 1_000_000;
+}
@@ -0,0 +1,21 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the filter expression optimizer applied to compiled TLQL queries.
+ * Properties are read from the tlp.query.optimizer configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.query.optimizer")
+public class QueryOptimizerProperties {
+
+    /**
+     * Enables normalizing and simplifying the filter expressions of compiled queries. When disabled, the expressions are
+     * sent to MongoDB exactly as they are built from the query conditions.
+     */
+    private boolean enabled = true;
+}
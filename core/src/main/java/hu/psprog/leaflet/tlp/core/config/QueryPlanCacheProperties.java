@@ -0,0 +1,25 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the compiled TLQL query plan cache.
+ * Properties are read from the tlp.query.plan-cache configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.query.plan-cache")
+public class QueryPlanCacheProperties {
+
+    /**
+     * Enables caching compiled query plans. When disabled, every query is parsed and compiled on execution.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of cached query plans. The least recently used plan is evicted when the cache is full.
+     */
+    private int capacity = 256;
+}
@@ -0,0 +1,40 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the log query result cache.
+ * Properties are read from the tlp.query.result-cache configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.query.result-cache")
+public class QueryResultCacheProperties {
+
+    /**
+     * Enables caching the results of TLQL log queries.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum (estimated) memory size of the cached results. The least recently used results are evicted when the limit is exceeded.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(32);
+
+    /**
+     * Time after which the events of a past time range are considered complete. Results of queries whose time range ended
+     * earlier than this are never invalidated by ingestion, allowing for the usual delay of log shipping.
+     */
+    private Duration settleTime = Duration.ofMinutes(1);
+
+    /**
+     * Maximum time the result of a query with an open-ended time range is kept for. Only events ingested by this instance
+     * invalidate cached results, so this limits the staleness of results if multiple instances are ingesting events.
+     */
+    private Duration openRangeTimeToLive = Duration.ofSeconds(10);
+}
@@ -0,0 +1,77 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties of per-source ingest rate limiting.
+ * Properties are read from the tlp.ingest.rate-limit configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.ingest.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Enables ingest rate limiting. When disabled (default), every event is accepted.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Sustained number of events per second accepted from a single source (unless overridden under sources).
+     */
+    private double eventsPerSecond = 500;
+
+    /**
+     * Maximum number of events accepted from a single source in a burst (unless overridden under sources).
+     */
+    private int burst = 1000;
+
+    /**
+     * Source specific limits, keyed by source name.
+     */
+    private Map<String, SourceLimit> sources = new HashMap<>();
+
+    /**
+     * Portion (0.0 - 1.0) of each source's bucket reserved for higher levels, keyed by log level.
+     * Once the bucket's fill ratio goes below the reserve of a level, events of that level are sampled with a probability
+     * proportional to the remaining fill ratio, so the lowest levels are shed first, and gradually. Levels not listed here
+     * (by default WARN and ERROR) can use up the whole bucket.
+     */
+    private Map<String, Double> levelReserves = new HashMap<>(Map.of(
+            "TRACE", 0.6,
+            "DEBUG", 0.5,
+            "INFO", 0.2));
+
+    /**
+     * Maximum number of sources tracked with their own bucket. Further sources share a single overflow bucket.
+     */
+    private int maxTrackedSources = 1000;
+
+    /**
+     * Interval of persisting the dropped event counters.
+     */
+    private Duration counterFlushInterval = Duration.ofMinutes(1);
+
+    /**
+     * Rate limit of a single source.
+     */
+    @Data
+    public static class SourceLimit {
+
+        /**
+         * Sustained number of events per second accepted from the source.
+         */
+        private double eventsPerSecond;
+
+        /**
+         * Maximum number of events accepted from the source in a burst.
+         */
+        private int burst;
+    }
+}
@@ -0,0 +1,80 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the log event rollup counters.
+ * Properties are read from the tlp.storage.rollup configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.storage.rollup")
+public class RollupProperties {
+
+    /**
+     * Enables maintaining the per-minute rollup counters at ingestion (and compacting them into hourly and daily counters).
+     */
+    private boolean enabled = true;
+
+    /**
+     * Interval of adding the in-memory minute counters to the stored ones.
+     */
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    /**
+     * Interval of compacting the minute counters into hourly, and the hourly counters into daily counters.
+     */
+    private Duration compactionInterval = Duration.ofMinutes(1);
+
+    /**
+     * How far back the compaction recalculates the coarser counters on every run. Should be longer than the compaction interval,
+     * so the counters of a closed period are recalculated at least once after the period has ended.
+     */
+    private Duration compactionLookback = Duration.ofHours(2);
+
+    /**
+     * Retention of the minute counters.
+     */
+    private Duration minuteRetention = Duration.ofDays(7);
+
+    /**
+     * Retention of the hourly counters.
+     */
+    private Duration hourRetention = Duration.ofDays(90);
+
+    /**
+     * Retention of the daily counters (zero to keep them forever).
+     */
+    private Duration dayRetention = Duration.ZERO;
+
+    /**
+     * Maximum number of periods a rollup query may span. When no resolution is requested, the finest resolution is selected
+     * that keeps the number of periods within this limit (and still has counters for the whole time range).
+     */
+    private int maxPeriods = 1500;
+
+    /**
+     * Maximum number of buckets returned by a rollup query. Further buckets are left out, and the result is flagged as truncated.
+     */
+    private int maxBuckets = 10000;
+
+    /**
+     * Returns the retention of the counters of the given resolution.
+     *
+     * @param resolution {@link RollupResolution} of the counters
+     * @return retention of the counters (zero if they are kept forever)
+     */
+    public Duration getRetention(RollupResolution resolution) {
+
+        return switch (resolution) {
+            case MINUTE -> minuteRetention;
+            case HOUR -> hourRetention;
+            case DAY -> dayRetention;
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of stack trace deduplication.
+ * Properties are read from the tlp.storage.stack-trace-deduplication configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.storage.stack-trace-deduplication")
+public class StackTraceDeduplicationProperties {
+
+    /**
+     * Enables storing exception trees in a separate, content-addressed collection.
+     * When disabled (default), exception trees are stored inline in every log event.
+     * Exception fields of deduplicated events cannot be searched, thus it cannot be enabled together with tlp.query.text-search.rewrite-like.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of recently seen fingerprints remembered in memory, so their existence does not have to be checked in the database.
+     */
+    private int knownFingerprintCacheSize = 10000;
+}
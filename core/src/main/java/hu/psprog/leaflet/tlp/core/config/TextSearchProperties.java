@@ -0,0 +1,25 @@
+package hu.psprog.leaflet.tlp.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the full-text search support of log event queries.
+ * Properties are read from the tlp.query.text-search configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.query.text-search")
+public class TextSearchProperties {
+
+    /**
+     * Rewrites a message LIKE condition to a phrase search served by the full-text index (over the message, exception message
+     * and stack trace fields), instead of the unanchored case-insensitive regular expression that needs a full collection scan.
+     * Only applied to queries joining all of their conditions by AND, and only to the first such condition of the query.
+     * Note that phrase search matches whole words (e.g. "time" does not match "timeout"), and does not see compressed content.
+     * Cannot be enabled together with stack trace deduplication (tlp.storage.stack-trace-deduplication.enabled), since the exception
+     * fields of deduplicated events are moved to a separate collection not covered by the index, thus startup fails on such configuration.
+     */
+    private boolean rewriteLike = false;
+}
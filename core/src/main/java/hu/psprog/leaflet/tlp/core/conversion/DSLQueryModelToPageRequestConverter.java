@@ -1,20 +1,25 @@
 package hu.psprog.leaflet.tlp.core.conversion;
 
 import com.querydsl.core.types.Path;
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.domain.OffsetPageRequest;
 import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
 import hu.psprog.leaflet.tlql.ir.DSLObject;
 import hu.psprog.leaflet.tlql.ir.DSLOrderDirection;
 import hu.psprog.leaflet.tlql.ir.DSLQueryModel;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.convert.converter.Converter;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Map;
 
 /**
  * Extracts pagination information from a {@link DSLQueryModel} object and converts to {@link Pageable} object.
+ * Limits larger than the maximum page size configured for the query cost guard are lowered to the maximum.
+ * The offset is kept as is (see {@link OffsetPageRequest}), so offsets not being multiple of the limit skip exactly the requested number of events.
  *
  * @author Peter Smith
  */
@@ -22,31 +27,32 @@ import java.util.Map;
 public class DSLQueryModelToPageRequestConverter implements Converter<DSLQueryModel, Pageable> {
 
     private static final int DEFAULT_LIMIT = 50;
-    private static final Sort DEFAULT_ORDERING = Sort.by(Sort.Direction.DESC, "timeStamp");
+    private static final String FIELD_TIMESTAMP = getFieldName(QLoggingEvent.loggingEvent.timeStamp);
+    private static final String FIELD_ID = getFieldName(QLoggingEvent.loggingEvent.id);
+    private static final Sort DEFAULT_ORDERING = Sort.by(Sort.Direction.DESC, FIELD_TIMESTAMP, FIELD_ID);
     private static final Map<DSLObject, String> DSL_OBJECT_TO_FIELD_NAME_MAP = Map.of(
             DSLObject.SOURCE, getFieldName(QLoggingEvent.loggingEvent.source),
             DSLObject.LEVEL, getFieldName(QLoggingEvent.loggingEvent.level),
             DSLObject.MESSAGE, getFieldName(QLoggingEvent.loggingEvent.content),
-            DSLObject.TIMESTAMP, getFieldName(QLoggingEvent.loggingEvent.timeStamp),
+            DSLObject.TIMESTAMP, FIELD_TIMESTAMP,
             DSLObject.LOGGER, getFieldName(QLoggingEvent.loggingEvent.loggerName)
     );
 
+    private final int maxPageSize;
+
+    @Autowired
+    public DSLQueryModelToPageRequestConverter(QueryGuardProperties queryGuardProperties) {
+        this.maxPageSize = queryGuardProperties.getMaxPageSize();
+    }
+
     @Override
     public Pageable convert(DSLQueryModel dslQueryModel) {
 
         int limit = dslQueryModel.getLimit() > 0
-                ? dslQueryModel.getLimit()
+                ? Math.min(dslQueryModel.getLimit(), maxPageSize)
                 : DEFAULT_LIMIT;
 
-        return PageRequest.of(getPageNumber(dslQueryModel, limit), limit, mapSorting(dslQueryModel));
-    }
-
-    private int getPageNumber(DSLQueryModel dslQueryModel, int limit) {
-
-        // TODO This calculation causes incorrect offset recognition, as it only works in case the offset is exact
-        //      multiple of the limit value. Once dropping support for TLP API v1, this should be reworked.
-
-        return dslQueryModel.getOffset() / limit;
+        return new OffsetPageRequest(Math.max(dslQueryModel.getOffset(), 0), limit, mapSorting(dslQueryModel));
     }
 
     private Sort mapSorting(DSLQueryModel dslQueryModel) {
@@ -54,9 +60,22 @@ public class DSLQueryModelToPageRequestConverter implements Converter<DSLQueryMo
         return dslQueryModel.getOrdering().entrySet().stream()
                 .map(this::mapSingleSort)
                 .reduce(Sort::and)
+                .map(this::addTieBreaker)
                 .orElse(DEFAULT_ORDERING);
     }
 
+    private Sort addTieBreaker(Sort sort) {
+
+        // ordering by timestamp only is extended by the ID in the same direction, so the order of events logged at the same
+        // millisecond is stable, and the (timestamp, ID) pair can be used as a keyset for cursor based paging
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() != 1 || !FIELD_TIMESTAMP.equals(orders.get(0).getProperty())) {
+            return sort;
+        }
+
+        return sort.and(Sort.by(orders.get(0).getDirection(), FIELD_ID));
+    }
+
     private Sort mapSingleSort(Map.Entry<DSLObject, DSLOrderDirection> orderEntry) {
 
         Sort.Direction direction = Sort.Direction.valueOf(orderEntry.getValue().name());
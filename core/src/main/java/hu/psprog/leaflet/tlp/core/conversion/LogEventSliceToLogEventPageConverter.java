@@ -0,0 +1,47 @@
+package hu.psprog.leaflet.tlp.core.conversion;
+
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.core.domain.LogEventSlice;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts {@link LogEventSlice} objects to {@link LogEventPage}.
+ * Entity and page counts are derived from the separately determined total count, which is only precise for exact counts,
+ * so the kind of the count should be reported to the client along with the page.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class LogEventSliceToLogEventPageConverter implements Converter<LogEventSlice, LogEventPage> {
+
+    private final LoggingEventEntityToDomainConverter loggingEventEntityToDomainConverter;
+
+    @Autowired
+    public LogEventSliceToLogEventPageConverter(LoggingEventEntityToDomainConverter loggingEventEntityToDomainConverter) {
+        this.loggingEventEntityToDomainConverter = loggingEventEntityToDomainConverter;
+    }
+
+    @Override
+    public LogEventPage convert(LogEventSlice source) {
+
+        Slice<?> slice = source.slice();
+        long knownMinimum = slice.getPageable().getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        long entityCount = source.totalCount().reportedValue(knownMinimum);
+
+        return LogEventPage.getBuilder()
+                .withPageCount((int) ((entityCount + slice.getSize() - 1) / slice.getSize()))
+                .withPageSize(slice.getSize())
+                .withPageNumber(slice.getNumber() + 1) // Slice would count page number from 0, so let's increase by 1
+                .withEntityCount(entityCount)
+                .withEntityCountOnPage(slice.getNumberOfElements())
+                .withFirst(slice.isFirst())
+                .withLast(slice.isLast())
+                .withHasNext(slice.hasNext())
+                .withHasPrevious(slice.hasPrevious())
+                .withEntitiesOnPage(loggingEventEntityToDomainConverter.convertAll(source.slice().getContent()))
+                .build();
+    }
+}
@@ -2,33 +2,82 @@ package hu.psprog.leaflet.tlp.core.conversion;
 
 import hu.psprog.leaflet.tlp.api.domain.LoggingEvent;
 import hu.psprog.leaflet.tlp.api.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.service.compression.LoggingEventCompressor;
+import hu.psprog.leaflet.tlp.core.service.intern.StringInternPool;
+import hu.psprog.leaflet.tlp.core.service.stacktrace.StackTraceStore;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * Converts Mongo entity {@link LoggingEvent} object to API domain {@link LoggingEvent}.
+ * Exception trees stored in the stack trace store (referenced by fingerprint) are rehydrated during conversion,
+ * compressed contents and stack traces are decompressed, and low-cardinality fields are interned via {@link StringInternPool}.
+ * Entities fetched with a field projection are converted as well, leaving the fields not fetched empty.
  *
  * @author Peter Smith
  */
 @Component
 public class LoggingEventEntityToDomainConverter implements Converter<hu.psprog.leaflet.tlp.core.domain.LoggingEvent, LoggingEvent> {
 
+    private final StackTraceStore stackTraceStore;
+    private final StringInternPool stringInternPool;
+    private final LoggingEventCompressor loggingEventCompressor;
+
+    @Autowired
+    public LoggingEventEntityToDomainConverter(StackTraceStore stackTraceStore, StringInternPool stringInternPool,
+                                               LoggingEventCompressor loggingEventCompressor) {
+        this.stackTraceStore = stackTraceStore;
+        this.stringInternPool = stringInternPool;
+        this.loggingEventCompressor = loggingEventCompressor;
+    }
+
     @Override
     public LoggingEvent convert(hu.psprog.leaflet.tlp.core.domain.LoggingEvent source) {
+        return convertAll(List.of(source)).get(0);
+    }
+
+    /**
+     * Converts a list of Mongo entity {@link LoggingEvent} objects, resolving all the deduplicated exception trees
+     * they refer to with a single lookup.
+     *
+     * @param sources list of Mongo entity {@link LoggingEvent} objects
+     * @return list of converted API domain {@link LoggingEvent} objects (in the same order)
+     */
+    public List<LoggingEvent> convertAll(List<hu.psprog.leaflet.tlp.core.domain.LoggingEvent> sources) {
+
+        List<String> fingerprints = sources.stream()
+                .filter(source -> Objects.isNull(source.getException()))
+                .map(hu.psprog.leaflet.tlp.core.domain.LoggingEvent::getExceptionFingerprint)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem> exceptions = stackTraceStore.resolve(fingerprints);
+
+        return sources.stream()
+                .map(source -> convert(source, exceptions))
+                .collect(Collectors.toList());
+    }
+
+    private LoggingEvent convert(hu.psprog.leaflet.tlp.core.domain.LoggingEvent source,
+                                 Map<String, hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem> exceptions) {
         return LoggingEvent.getBuilder()
-                .withSource(source.getSource())
+                .withSource(stringInternPool.intern(source.getSource()))
                 .withTimeStamp(source.getTimeStamp())
-                .withContent(source.getContent())
-                .withLevel(source.getLevel())
-                .withLoggerName(source.getLoggerName())
-                .withThreadName(source.getThreadName())
+                .withContent(loggingEventCompressor.getContent(source))
+                .withLevel(stringInternPool.intern(source.getLevel()))
+                .withLoggerName(stringInternPool.intern(source.getLoggerName()))
+                .withThreadName(stringInternPool.intern(source.getThreadName()))
                 .withException(Optional.ofNullable(source.getException())
+                        .or(() -> Optional.ofNullable(source.getExceptionFingerprint()).map(exceptions::get))
                         .map(this::convert)
                         .orElse(null))
                 .withContext(Optional.ofNullable(source.getContext())
@@ -40,7 +89,7 @@ public class LoggingEventEntityToDomainConverter implements Converter<hu.psprog.
         return ThrowableProxyLogItem.getBuilder()
                 .withClassName(source.getClassName())
                 .withMessage(source.getMessage())
-                .withStackTrace(source.getStackTrace())
+                .withStackTrace(loggingEventCompressor.getStackTrace(source))
                 .withCause(extractCause(source))
                 .withSuppressed(extractSuppressed(source))
                 .build();
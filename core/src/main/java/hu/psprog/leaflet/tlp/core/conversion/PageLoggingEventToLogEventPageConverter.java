@@ -7,8 +7,6 @@ import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
 
-import java.util.stream.Collectors;
-
 /**
  * Converts {@link Page} of {@link LoggingEvent} objects to {@link LogEventPage}.
  *
@@ -37,9 +35,7 @@ public class PageLoggingEventToLogEventPageConverter implements Converter<Page<L
                 .withLast(source.isLast())
                 .withHasNext(source.hasNext())
                 .withHasPrevious(source.hasPrevious())
-                .withEntitiesOnPage(source.getContent().stream()
-                        .map(loggingEventEntityToDomainConverter::convert)
-                        .collect(Collectors.toList()))
+                .withEntitiesOnPage(loggingEventEntityToDomainConverter.convertAll(source.getContent()))
                 .build();
     }
 }
@@ -0,0 +1,16 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.List;
+
+/**
+ * Number of log events sharing the same values of the requested aggregation dimensions.
+ *
+ * @param key values of the dimensions (in the order of the dimensions, null if an event does not have the field),
+ *            time buckets are represented by their start timestamp
+ * @param count number of log events in the bucket
+ * @author Peter Smith
+ */
+public record AggregationBucket(
+        List<Object> key,
+        long count
+) { }
@@ -0,0 +1,61 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Dimension the log events matching an aggregation query are grouped by.
+ * Supported dimensions are level, source, logger, time (the time bucket of the events, see {@link LogEventAggregation})
+ * and context.{key} (the value of the given key of the context map).
+ *
+ * @param name name of the dimension, as it is returned along with the aggregation buckets
+ * @param field stored document field the dimension is read from
+ * @param timeBucket whether the dimension groups the events by the time bucket of their timestamp
+ * @author Peter Smith
+ */
+public record AggregationDimension(
+        String name,
+        String field,
+        boolean timeBucket
+) {
+
+    public static final AggregationDimension LEVEL = new AggregationDimension("level", "level", false);
+    public static final AggregationDimension SOURCE = new AggregationDimension("source", "source", false);
+    public static final AggregationDimension LOGGER = new AggregationDimension("logger", "loggerName", false);
+    public static final AggregationDimension TIME = new AggregationDimension("time", "timeStamp", true);
+
+    private static final String CONTEXT_PREFIX = "context.";
+    private static final Pattern CONTEXT_KEY_PATTERN = Pattern.compile("[A-Za-z0-9_\\-]+");
+    private static final Map<String, AggregationDimension> DIMENSIONS_BY_NAME = Stream.of(LEVEL, SOURCE, LOGGER, TIME)
+            .collect(Collectors.toMap(AggregationDimension::name, dimension -> dimension));
+
+    /**
+     * Parses the given dimension name (case-insensitive, except for the key of a context dimension).
+     *
+     * @param dimension name of the dimension
+     * @return parsed {@link AggregationDimension}
+     * @throws IllegalArgumentException if the dimension is unknown, or the context key contains characters other than
+     * letters, digits, underscores and hyphens
+     */
+    public static AggregationDimension parse(String dimension) {
+
+        if (dimension.regionMatches(true, 0, CONTEXT_PREFIX, 0, CONTEXT_PREFIX.length())) {
+            String contextKey = dimension.substring(CONTEXT_PREFIX.length());
+            if (!CONTEXT_KEY_PATTERN.matcher(contextKey).matches()) {
+                throw new IllegalArgumentException(String.format("Invalid context key [%s] for aggregation", contextKey));
+            }
+            return new AggregationDimension(CONTEXT_PREFIX + contextKey, CONTEXT_PREFIX + contextKey, false);
+        }
+
+        AggregationDimension aggregationDimension = DIMENSIONS_BY_NAME.get(dimension.toLowerCase(Locale.ROOT));
+        if (Objects.isNull(aggregationDimension)) {
+            throw new IllegalArgumentException(String.format("Unknown aggregation dimension [%s]", dimension));
+        }
+
+        return aggregationDimension;
+    }
+}
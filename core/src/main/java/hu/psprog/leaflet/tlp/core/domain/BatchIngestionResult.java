@@ -0,0 +1,22 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Result of a batch log event ingestion request.
+ *
+ * @param received number of items found in the batch
+ * @param stored number of items successfully stored
+ * @param dropped number of items dropped by ingest rate limiting (neither stored, nor reported as failure)
+ * @param failures list of rejected items (either failed to be parsed or stored)
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record BatchIngestionResult(
+        int received,
+        int stored,
+        int dropped,
+        List<BatchItemFailure> failures
+) { }
@@ -0,0 +1,13 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+/**
+ * Describes a single rejected item of a batch log event ingestion request.
+ *
+ * @param index position of the rejected item in the batch (starting from 0)
+ * @param reason reason of the rejection
+ * @author Peter Smith
+ */
+public record BatchItemFailure(
+        int index,
+        String reason
+) { }
@@ -0,0 +1,19 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+/**
+ * Supported payload formats of batch log event ingestion requests.
+ *
+ * @author Peter Smith
+ */
+public enum BatchPayloadFormat {
+
+    /**
+     * A single JSON array containing the log events.
+     */
+    JSON_ARRAY,
+
+    /**
+     * Newline-delimited JSON stream, one log event per line.
+     */
+    NDJSON
+}
@@ -0,0 +1,48 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Requested way of calculating the total number of log events matching a query.
+ *
+ * @author Peter Smith
+ */
+public enum CountMode {
+
+    /**
+     * Counts every matching event (default). Precise, but on broad queries it may cost more than retrieving the page itself.
+     */
+    EXACT,
+
+    /**
+     * Skips counting, only checks whether there is a next page. The returned count is a lower bound.
+     */
+    NONE,
+
+    /**
+     * Uses the collection metadata based estimate when the query has no filter,
+     * otherwise counts matching events up to the configured cap.
+     */
+    ESTIMATED,
+
+    /**
+     * Skips counting like {@link #NONE}, but starts an exact count in the background,
+     * which can be retrieved later by the returned count token.
+     */
+    DEFERRED;
+
+    /**
+     * Parses the given count mode parameter (case-insensitive).
+     *
+     * @param countMode count mode as string (null for the default mode)
+     * @return parsed {@link CountMode}
+     * @throws IllegalArgumentException if the given value is not a valid count mode
+     */
+    public static CountMode parse(String countMode) {
+
+        return Objects.isNull(countMode)
+                ? EXACT
+                : valueOf(countMode.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,26 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+
+/**
+ * Status of an exact count running in the background.
+ *
+ * @param status status of the count as {@link Status}
+ * @param count number of matching events (or null if the count has not been completed)
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record DeferredCount(
+        Status status,
+        Long count
+) {
+
+    /**
+     * Possible statuses of a deferred count.
+     */
+    public enum Status {
+        PENDING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,30 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Storage model of the number of log events dropped by ingest rate limiting for a single source within an hour.
+ *
+ * @param id document ID
+ * @param source source the events were sent from
+ * @param periodStart start of the hour the counters belong to
+ * @param levels number of dropped events by log level
+ * @param total total number of dropped events
+ * @author Peter Smith
+ */
+@Document(collection = "droppedEventCounters")
+@CompoundIndex(name = "tlp-index.dropped-event-counter.source-period", def = "{'source': 1, 'periodStart': 1}", unique = true)
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record DroppedEventCounter(
+        @Id String id,
+        String source,
+        Date periodStart,
+        Map<String, Long> levels,
+        long total
+) { }
@@ -29,7 +29,13 @@ public enum ExpressionStrategyGroup {
     /**
      * Group for timestamp value processing.
      */
-    TIMESTAMP_CONDITION(DSLObject.TIMESTAMP);
+    TIMESTAMP_CONDITION(DSLObject.TIMESTAMP),
+
+    /**
+     * Group for message conditions rewritten to full-text search.
+     * Not linked to any field, conditions are assigned to this group by the expression builder.
+     */
+    FULL_TEXT_CONDITION();
 
     private static final Map<Object, Object> DSL_OBJECT_EXPRESSION_STRATEGY_MAP = Stream.of(values())
             .flatMap(expressionStrategyGroup -> expressionStrategyGroup.applicableDSLObjects.stream()
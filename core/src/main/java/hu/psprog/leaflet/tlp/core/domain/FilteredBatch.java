@@ -0,0 +1,33 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Subset of a list of log event ingestion items left after filtering (e.g. dropping duplicates or rate limited items).
+ * Original positions of the remaining items are tracked by the itemIndices list.
+ *
+ * @param items items to be stored
+ * @param itemIndices original position of each remaining item in the filtered list
+ * @param <T> type of the items
+ * @author Peter Smith
+ */
+public record FilteredBatch<T>(
+        List<T> items,
+        List<Integer> itemIndices
+) {
+
+    /**
+     * Maps the given store failures of the remaining items back to the original positions of the items.
+     *
+     * @param storeFailures list of {@link BatchItemFailure} objects describing the items failed to be stored
+     *                      (index refers to the position in the items list)
+     * @return list of {@link BatchItemFailure} objects with index referring to the position in the filtered list
+     */
+    public List<BatchItemFailure> mapFailures(List<BatchItemFailure> storeFailures) {
+
+        return storeFailures.stream()
+                .map(failure -> new BatchItemFailure(itemIndices.get(failure.index()), failure.reason()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,16 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+/**
+ * Estimated number of occurrences of a single value of a heavy hitter dimension.
+ * The estimation never underestimates: the real count of the value is between count - error and count.
+ *
+ * @param value tracked value
+ * @param count estimated number of occurrences (upper bound)
+ * @param error maximum overestimation of the count
+ * @author Peter Smith
+ */
+public record HeavyHitter(
+        String value,
+        long count,
+        long error
+) { }
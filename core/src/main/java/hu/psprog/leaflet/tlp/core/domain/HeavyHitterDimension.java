@@ -0,0 +1,43 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Log event attributes tracked by the heavy hitter sketches.
+ *
+ * @author Peter Smith
+ */
+public enum HeavyHitterDimension {
+
+    /**
+     * Logger name of the events.
+     */
+    LOGGER,
+
+    /**
+     * Source of the events.
+     */
+    SOURCE,
+
+    /**
+     * Template of the log message of the events (the message with its variable parts replaced by placeholders).
+     */
+    MESSAGE;
+
+    /**
+     * Parses the given dimension parameter (case-insensitive).
+     *
+     * @param dimension dimension as string
+     * @return parsed {@link HeavyHitterDimension}
+     * @throws IllegalArgumentException if the dimension is missing, or the given value is not a valid dimension
+     */
+    public static HeavyHitterDimension parse(String dimension) {
+
+        if (Objects.isNull(dimension) || dimension.isBlank()) {
+            throw new IllegalArgumentException("Heavy hitter dimension is required");
+        }
+
+        return valueOf(dimension.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,55 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * Query of the most frequent values of a heavy hitter dimension within the recent sliding time window.
+ *
+ * @param dimension dimension to be queried
+ * @param window length of the time window (ending now), or null for the whole tracked window
+ * @param limit maximum number of values to be returned, or null for the configured maximum
+ * @author Peter Smith
+ */
+public record HeavyHitterQuery(
+        HeavyHitterDimension dimension,
+        Duration window,
+        Integer limit
+) {
+
+    /**
+     * Parses the given heavy hitter query parameters.
+     *
+     * @param dimension dimension to be queried (logger, source or message, case-insensitive)
+     * @param window length of the time window as ISO-8601 duration (e.g. PT15M, null or blank for the whole tracked window)
+     * @param limit maximum number of values to be returned (null for the configured maximum)
+     * @return parsed {@link HeavyHitterQuery}
+     * @throws IllegalArgumentException if the dimension is missing or invalid, the window is malformed or not positive,
+     * or the limit is not positive
+     */
+    public static HeavyHitterQuery parse(String dimension, String window, Integer limit) {
+
+        Duration parsedWindow = Objects.isNull(window) || window.isBlank()
+                ? null
+                : parseWindow(window);
+        if (Objects.nonNull(parsedWindow) && (parsedWindow.isNegative() || parsedWindow.isZero())) {
+            throw new IllegalArgumentException(String.format("Heavy hitter time window [%s] must be positive", window));
+        }
+
+        if (Objects.nonNull(limit) && limit < 1) {
+            throw new IllegalArgumentException(String.format("Heavy hitter limit [%d] must be positive", limit));
+        }
+
+        return new HeavyHitterQuery(HeavyHitterDimension.parse(dimension), parsedWindow, limit);
+    }
+
+    private static Duration parseWindow(String window) {
+
+        try {
+            return Duration.parse(window.trim());
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException(String.format("Invalid heavy hitter time window [%s]", window), exception);
+        }
+    }
+}
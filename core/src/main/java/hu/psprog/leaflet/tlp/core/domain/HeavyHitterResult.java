@@ -0,0 +1,25 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Result of a heavy hitter query.
+ *
+ * @param dimension queried dimension
+ * @param from start of the time window actually covered (aligned to the sketch slots)
+ * @param to end of the time window (the time of the query)
+ * @param total number of log events counted within the time window
+ * @param heavyHitters most frequent values of the dimension, ordered by their estimated count (descending)
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record HeavyHitterResult(
+        HeavyHitterDimension dimension,
+        Date from,
+        Date to,
+        long total,
+        List<HeavyHitter> heavyHitters
+) { }
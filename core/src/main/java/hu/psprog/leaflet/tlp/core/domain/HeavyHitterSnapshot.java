@@ -0,0 +1,32 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Storage model of the heavy hitter sketch of a single dimension within a single time slot,
+ * persisted periodically so the sketches can be restored after a restart.
+ *
+ * @param id document ID (derived from the dimension and the start of the slot)
+ * @param dimension dimension of the sketch
+ * @param slotStart start of the time slot the sketch belongs to
+ * @param total number of log events counted by the sketch
+ * @param counters counters of the sketch
+ * @param expiresAt date after which the snapshot is removed (when the slot leaves the tracked window)
+ * @author Peter Smith
+ */
+@Document(collection = "heavyHitterSnapshots")
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record HeavyHitterSnapshot(
+        @Id String id,
+        HeavyHitterDimension dimension,
+        @Indexed(name = "tlp-index.heavy-hitter-snapshot.slot-start") Date slotStart,
+        long total,
+        List<SketchCounter> counters,
+        @Indexed(name = "tlp-index.heavy-hitter-snapshot.expires-at", expireAfterSeconds = 0) Date expiresAt
+) { }
@@ -0,0 +1,15 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.Date;
+
+/**
+ * Number of log events within a single bucket of a histogram.
+ *
+ * @param start start of the bucket
+ * @param count number of log events within the bucket
+ * @author Peter Smith
+ */
+public record HistogramBucket(
+        Date start,
+        long count
+) { }
@@ -0,0 +1,23 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report of the index advisor.
+ *
+ * @param shapes statistics of the recorded query shapes, slowest (by total latency) first
+ * @param recommendations compound indexes recommended for the slow query shapes not served by an existing index
+ * @param unusedIndexes existing indexes not used by any operation since the statistics collection started
+ * @param builds statuses of the index builds requested via the advisor, by index name
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record IndexAdvisorReport(
+        List<QueryShapeStatistics> shapes,
+        List<IndexRecommendation> recommendations,
+        List<IndexUsage> unusedIndexes,
+        Map<String, IndexBuildStatus> builds
+) { }
@@ -0,0 +1,13 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+/**
+ * Possible statuses of an index build requested via the index advisor.
+ *
+ * @author Peter Smith
+ */
+public enum IndexBuildStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,26 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compound index recommended for one or more recorded query shapes.
+ *
+ * @param name name of the index to be created
+ * @param key index key specification (field name to 1 for ascending, -1 for descending order), in key order
+ * @param shapes description of the query shapes served by the index
+ * @param executions total number of executions of the served query shapes
+ * @param totalLatency total latency of the executions of the served query shapes
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record IndexRecommendation(
+        String name,
+        Map<String, Integer> key,
+        List<String> shapes,
+        long executions,
+        Duration totalLatency
+) { }
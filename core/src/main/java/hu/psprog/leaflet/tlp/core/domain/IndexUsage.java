@@ -0,0 +1,26 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Usage statistics of an index of the log event collection.
+ * Statistics are collected by the database since the index was created or the database was last restarted.
+ *
+ * @param name name of the index
+ * @param key index key specification
+ * @param unique whether the index enforces uniqueness (thus needed regardless of its usage by queries)
+ * @param accesses number of operations that used the index
+ * @param since start of the statistics collection
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record IndexUsage(
+        String name,
+        Map<String, Object> key,
+        boolean unique,
+        long accesses,
+        Date since
+) { }
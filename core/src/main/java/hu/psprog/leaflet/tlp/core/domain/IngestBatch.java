@@ -0,0 +1,61 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Parsed batch of log event ingestion items.
+ * Items are kept in their original order, while their original positions in the batch payload are tracked
+ * by the itemIndices list (as the rejected items are left out of the items list).
+ *
+ * @param items successfully parsed items
+ * @param itemIndices original position of each successfully parsed item in the batch payload
+ * @param rejectedItems list of items failed to be parsed
+ * @param itemCount total number of items found in the batch payload
+ * @param <T> type of the parsed items
+ * @author Peter Smith
+ */
+public record IngestBatch<T>(
+        List<T> items,
+        List<Integer> itemIndices,
+        List<BatchItemFailure> rejectedItems,
+        int itemCount
+) {
+
+    /**
+     * Creates the {@link BatchIngestionResult} of this batch, merging the rejected items with the items failed to be stored.
+     *
+     * @param storeFailures list of {@link BatchItemFailure} objects describing the items failed to be stored
+     *                      (index refers to the position in the items list)
+     * @return {@link BatchIngestionResult} of this batch, with failures referring to their original position in the batch payload
+     */
+    public BatchIngestionResult toResult(List<BatchItemFailure> storeFailures) {
+        return toResult(storeFailures, 0);
+    }
+
+    /**
+     * Creates the {@link BatchIngestionResult} of this batch, merging the rejected items with the items failed to be stored,
+     * and accounting for the items dropped by ingest rate limiting.
+     *
+     * @param storeFailures list of {@link BatchItemFailure} objects describing the items failed to be stored
+     *                      (index refers to the position in the items list)
+     * @param dropped number of items dropped before storing
+     * @return {@link BatchIngestionResult} of this batch, with failures referring to their original position in the batch payload
+     */
+    public BatchIngestionResult toResult(List<BatchItemFailure> storeFailures, int dropped) {
+
+        List<BatchItemFailure> failures = new ArrayList<>(rejectedItems);
+        storeFailures.stream()
+                .map(failure -> new BatchItemFailure(itemIndices.get(failure.index()), failure.reason()))
+                .forEach(failures::add);
+        failures.sort(Comparator.comparingInt(BatchItemFailure::index));
+
+        return BatchIngestionResult.getBuilder()
+                .withReceived(itemCount)
+                .withStored(itemCount - failures.size() - dropped)
+                .withDropped(dropped)
+                .withFailures(failures)
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Storage model of an issue, grouping every occurrence of the same (normalized) exception.
+ *
+ * @param fingerprint fingerprint of the issue (also used as the document ID)
+ * @param className class name of the exception
+ * @param message normalized message of the exception
+ * @param frames normalized topmost stack trace frames of the exception
+ * @param count number of occurrences
+ * @param firstSeen timestamp of the earliest occurrence
+ * @param lastSeen timestamp of the latest occurrence
+ * @param sources sources the issue occurred in
+ * @author Peter Smith
+ */
+@Document(collection = "issues")
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record Issue(
+        @Id String fingerprint,
+        String className,
+        String message,
+        List<String> frames,
+        long count,
+        Date firstSeen,
+        @Indexed(name = "tlp-index.issue.last-seen") Date lastSeen,
+        Set<String> sources
+) { }
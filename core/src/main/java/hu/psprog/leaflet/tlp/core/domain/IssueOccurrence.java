@@ -0,0 +1,44 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Occurrences of a single issue, collected in memory before being added to the stored {@link Issue}.
+ *
+ * @param fingerprint fingerprint of the issue
+ * @param signature signature of the issue (null if it is not known anymore, in which case the stored issue is only updated)
+ * @param count number of occurrences
+ * @param firstSeen timestamp of the earliest occurrence
+ * @param lastSeen timestamp of the latest occurrence
+ * @param sources sources the issue occurred in
+ * @author Peter Smith
+ */
+public record IssueOccurrence(
+        String fingerprint,
+        IssueSignature signature,
+        long count,
+        Date firstSeen,
+        Date lastSeen,
+        Set<String> sources
+) {
+
+    /**
+     * Merges this and the given occurrences of the same issue.
+     *
+     * @param other other {@link IssueOccurrence} of the same issue
+     * @return merged {@link IssueOccurrence}
+     */
+    public IssueOccurrence merge(IssueOccurrence other) {
+
+        Set<String> mergedSources = new HashSet<>(sources);
+        mergedSources.addAll(other.sources);
+
+        return new IssueOccurrence(fingerprint, Objects.requireNonNullElse(signature, other.signature), count + other.count,
+                firstSeen.before(other.firstSeen) ? firstSeen : other.firstSeen,
+                lastSeen.after(other.lastSeen) ? lastSeen : other.lastSeen,
+                mergedSources);
+    }
+}
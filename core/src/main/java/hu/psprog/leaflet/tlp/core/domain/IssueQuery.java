@@ -0,0 +1,65 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Query of the issues seen within a time window.
+ * An issue is seen within the window if its first occurrence precedes the end, and its last occurrence follows the start of the window.
+ *
+ * @param from start of the time window (inclusive)
+ * @param to end of the time window (exclusive), or null for no upper bound
+ * @param source source the issues should have occurred in, or null for every source
+ * @param limit maximum number of issues to be returned, or null for the configured maximum
+ * @author Peter Smith
+ */
+public record IssueQuery(
+        Date from,
+        Date to,
+        String source,
+        Integer limit
+) {
+
+    /**
+     * Parses the given issue query parameters.
+     *
+     * @param from start of the time window as ISO-8601 instant (e.g. 2024-01-01T00:00:00Z)
+     * @param to end of the time window as ISO-8601 instant (null or blank for no upper bound)
+     * @param source source the issues should have occurred in (null or blank for every source)
+     * @param limit maximum number of issues to be returned (null for the configured maximum)
+     * @return parsed {@link IssueQuery}
+     * @throws IllegalArgumentException if the start of the window is missing, any of the boundaries is malformed,
+     * the window is empty, or the limit is not positive
+     */
+    public static IssueQuery parse(String from, String to, String source, Integer limit) {
+
+        if (Objects.isNull(from) || from.isBlank()) {
+            throw new IllegalArgumentException("Start of the issue time window is required");
+        }
+
+        Date parsedFrom = parseInstant(from);
+        Date parsedTo = Objects.isNull(to) || to.isBlank()
+                ? null
+                : parseInstant(to);
+        if (Objects.nonNull(parsedTo) && !parsedFrom.before(parsedTo)) {
+            throw new IllegalArgumentException(String.format("Issue time window [%s - %s] is empty", from, to));
+        }
+
+        if (Objects.nonNull(limit) && limit < 1) {
+            throw new IllegalArgumentException(String.format("Issue limit [%d] must be positive", limit));
+        }
+
+        return new IssueQuery(parsedFrom, parsedTo, Objects.isNull(source) || source.isBlank() ? null : source.trim(), limit);
+    }
+
+    private static Date parseInstant(String instant) {
+
+        try {
+            return Date.from(Instant.parse(instant.trim()));
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException(String.format("Invalid issue time window boundary [%s]", instant), exception);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.List;
+
+/**
+ * Normalized signature of an exception, identifying the issue the exception belongs to.
+ *
+ * @param fingerprint fingerprint calculated from the rest of the signature
+ * @param className class name of the exception
+ * @param message normalized message of the exception (variable parts replaced by placeholders)
+ * @param frames normalized topmost stack trace frames of the exception (line numbers and packaging data removed)
+ * @author Peter Smith
+ */
+public record IssueSignature(
+        String fingerprint,
+        String className,
+        String message,
+        List<String> frames
+) { }
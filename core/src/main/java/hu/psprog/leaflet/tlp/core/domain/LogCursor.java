@@ -0,0 +1,27 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+import org.springframework.data.domain.Sort;
+
+import java.util.Date;
+
+/**
+ * Position of a page boundary for cursor based (keyset) paging of log events.
+ * Log events are ordered by their (timestamp, ID) pair, so the pair of the last (or first) event of a page
+ * identifies where the next (or previous) page starts.
+ *
+ * @param sortDirection direction of the ordering the cursor has been created for
+ * @param backward {@code true} if the cursor points to the previous page, {@code false} if it points to the next one
+ * @param pageNumber number of the page the cursor points to (starts with 1)
+ * @param timeStamp timestamp of the boundary event
+ * @param id ID of the boundary event
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record LogCursor(
+        Sort.Direction sortDirection,
+        boolean backward,
+        int pageNumber,
+        Date timeStamp,
+        String id
+) { }
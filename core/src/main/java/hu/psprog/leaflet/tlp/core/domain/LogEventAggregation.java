@@ -0,0 +1,78 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Grouping of the log events matching an aggregation query.
+ * Events are counted per distinct combination of the values of the requested dimensions. The time dimension groups
+ * the events into buckets of the given interval, aligned to the epoch (so e.g. daily buckets start at midnight UTC).
+ *
+ * @param dimensions dimensions to group the events by, in the order of the keys of the returned buckets
+ * @param interval length of the time buckets (only used if the time dimension is requested)
+ * @author Peter Smith
+ */
+public record LogEventAggregation(
+        List<AggregationDimension> dimensions,
+        Duration interval
+) {
+
+    /**
+     * Default length of the time buckets.
+     */
+    public static final Duration DEFAULT_INTERVAL = Duration.ofHours(1);
+
+    private static final Duration MINIMUM_INTERVAL = Duration.ofSeconds(1);
+    private static final String DIMENSION_SEPARATOR = ",";
+
+    /**
+     * Parses the given comma-separated list of dimensions and time bucket interval.
+     *
+     * @param dimensions comma-separated list of dimension names (see {@link AggregationDimension})
+     * @param interval length of the time buckets either in simple (e.g. 15m, 1h, 1d) or in ISO-8601 format (null or blank for 1 hour)
+     * @return parsed {@link LogEventAggregation}
+     * @throws IllegalArgumentException if no dimension is given, any of them is unknown or given more than once,
+     * or the interval is malformed or shorter than a second
+     */
+    public static LogEventAggregation parse(String dimensions, String interval) {
+
+        if (Objects.isNull(dimensions) || dimensions.isBlank()) {
+            throw new IllegalArgumentException("At least one aggregation dimension is required");
+        }
+
+        List<AggregationDimension> parsedDimensions = Stream.of(dimensions.split(DIMENSION_SEPARATOR))
+                .map(String::trim)
+                .filter(dimension -> !dimension.isEmpty())
+                .map(AggregationDimension::parse)
+                .collect(Collectors.toList());
+        if (parsedDimensions.stream().distinct().count() < parsedDimensions.size()) {
+            throw new IllegalArgumentException(String.format("Aggregation dimensions [%s] contain duplicates", dimensions));
+        }
+
+        Duration parsedInterval = Objects.isNull(interval) || interval.isBlank()
+                ? DEFAULT_INTERVAL
+                : DurationStyle.detectAndParse(interval.trim());
+        if (parsedInterval.compareTo(MINIMUM_INTERVAL) < 0) {
+            throw new IllegalArgumentException(String.format("Aggregation interval [%s] must be at least 1 second", interval));
+        }
+
+        return new LogEventAggregation(parsedDimensions, parsedInterval);
+    }
+
+    /**
+     * Returns the names of the dimensions, in the order of the keys of the returned buckets.
+     *
+     * @return list of dimension names
+     */
+    public List<String> getDimensionNames() {
+
+        return dimensions.stream()
+                .map(AggregationDimension::name)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,20 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Result of a log event aggregation query.
+ *
+ * @param dimensions names of the dimensions the events have been grouped by, in the order of the keys of the buckets
+ * @param buckets non-empty buckets of the matching events, ordered by their time bucket (if grouped by time), then by their count (descending)
+ * @param truncated whether further buckets have been left out, because the number of buckets exceeded the configured maximum
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record LogEventAggregationResult(
+        List<String> dimensions,
+        List<AggregationBucket> buckets,
+        boolean truncated
+) { }
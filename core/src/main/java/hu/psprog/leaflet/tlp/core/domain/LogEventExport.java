@@ -0,0 +1,23 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Prepared export of log events, writing the matching events when requested.
+ *
+ * @author Peter Smith
+ */
+@FunctionalInterface
+public interface LogEventExport {
+
+    /**
+     * Writes the exported log events to the given {@link OutputStream} as newline-delimited JSON.
+     * The output stream is flushed after every written batch of events, but it is not closed.
+     *
+     * @param outputStream {@link OutputStream} to write the log events to
+     * @return number of written log events
+     * @throws IOException if the log events cannot be written (e.g. the client has disconnected)
+     */
+    long writeTo(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,28 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Number of log events matching a query over time.
+ *
+ * @param from start of the first bucket (aligned to the interval)
+ * @param to end of the time range of the histogram (exclusive)
+ * @param interval length of the buckets
+ * @param buckets every bucket of the time range (including the empty ones), ordered chronologically
+ * @param total total number of log events within the histogram
+ * @param precomputed whether the histogram has been served from the rollup counters instead of counting the log events themselves
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record LogEventHistogram(
+        Date from,
+        Date to,
+        Duration interval,
+        List<HistogramBucket> buckets,
+        long total,
+        boolean precomputed
+) { }
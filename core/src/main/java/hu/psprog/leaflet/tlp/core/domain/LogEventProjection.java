@@ -0,0 +1,110 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Set of log event fields requested to be returned by a query.
+ * Fields not requested are not fetched from the database, and are left empty in the returned log events.
+ * The timestamp is always fetched, as it is needed for creating the page cursors.
+ *
+ * @param fields requested fields as {@link Field} values
+ * @author Peter Smith
+ */
+public record LogEventProjection(
+        Set<Field> fields
+) {
+
+    /**
+     * Projection returning every field of the log events.
+     */
+    public static final LogEventProjection ALL = new LogEventProjection(EnumSet.allOf(Field.class));
+
+    private static final String FIELD_SEPARATOR = ",";
+
+    /**
+     * Parses the given comma-separated list of field names (case-insensitive).
+     *
+     * @param fields comma-separated list of field names (null or blank for every field)
+     * @return parsed {@link LogEventProjection}
+     * @throws IllegalArgumentException if any of the given fields is unknown
+     */
+    public static LogEventProjection parse(String fields) {
+
+        if (Objects.isNull(fields) || fields.isBlank()) {
+            return ALL;
+        }
+
+        return new LogEventProjection(Stream.of(fields.split(FIELD_SEPARATOR))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .map(Field::parse)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(Field.class))));
+    }
+
+    /**
+     * Returns whether this projection omits any of the log event fields.
+     *
+     * @return true if at least one field is omitted, false otherwise
+     */
+    public boolean isRestricted() {
+        return !fields.containsAll(ALL.fields());
+    }
+
+    /**
+     * Returns the names of the stored document fields to be fetched for this projection.
+     *
+     * @return array of stored field names
+     */
+    public String[] getStoredFields() {
+
+        return Stream.concat(Stream.of(Field.TIMESTAMP), fields.stream())
+                .flatMap(field -> field.storedFields.stream())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Returnable fields of log events.
+     */
+    public enum Field {
+
+        SOURCE("source", "source"),
+        TIMESTAMP("timeStamp", "timeStamp"),
+        LEVEL("level", "level"),
+        LOGGER_NAME("loggerName", "loggerName"),
+        THREAD_NAME("threadName", "threadName"),
+        CONTENT("content", "content", "compressedContent"),
+        EXCEPTION("exception", "exception", "exceptionFingerprint"),
+        CONTEXT("context", "context");
+
+        private static final Map<String, Field> FIELDS_BY_NAME = Stream.of(values())
+                .collect(Collectors.toMap(field -> field.fieldName.toLowerCase(Locale.ROOT), Function.identity()));
+
+        private final String fieldName;
+        private final List<String> storedFields;
+
+        Field(String fieldName, String... storedFields) {
+            this.fieldName = fieldName;
+            this.storedFields = Arrays.asList(storedFields);
+        }
+
+        private static Field parse(String fieldName) {
+
+            Field field = FIELDS_BY_NAME.get(fieldName.toLowerCase(Locale.ROOT));
+            if (Objects.isNull(field)) {
+                throw new IllegalArgumentException(String.format("Unknown log event field [%s]", fieldName));
+            }
+
+            return field;
+        }
+    }
+}
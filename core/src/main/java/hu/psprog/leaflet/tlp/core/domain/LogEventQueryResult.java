@@ -0,0 +1,21 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import lombok.Builder;
+
+/**
+ * Result of a log event query, along with the cursors of the neighbouring pages and the kind of the returned total count.
+ *
+ * @param page returned page of log events
+ * @param nextCursor opaque cursor of the next page (or null if there is no next page, or the ordering does not support cursor based paging)
+ * @param previousCursor opaque cursor of the previous page (or null if there is no previous page, or the ordering does not support cursor based paging)
+ * @param totalCount total count of matching events as {@link TotalCount} (its type and background count token)
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record LogEventQueryResult(
+        LogEventPage page,
+        String nextCursor,
+        String previousCursor,
+        TotalCount totalCount
+) { }
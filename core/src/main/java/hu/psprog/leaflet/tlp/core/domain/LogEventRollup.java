@@ -0,0 +1,38 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Storage model of the number of log events of a single source, level and logger within a rollup period.
+ * Field names of the counted event attributes are the same as the ones of {@link LoggingEvent}.
+ *
+ * @param id document ID
+ * @param resolution resolution of the counter
+ * @param periodStart start of the period the counter belongs to
+ * @param source source of the counted events
+ * @param level log level of the counted events
+ * @param loggerName logger name of the counted events
+ * @param count number of events
+ * @param expiresAt date after which the counter is removed (null if it is kept forever)
+ * @author Peter Smith
+ */
+@Document(collection = "logEventRollups")
+@CompoundIndex(name = "tlp-index.log-event-rollup.key", def = "{'resolution': 1, 'periodStart': 1, 'source': 1, 'level': 1, 'loggerName': 1}",
+        unique = true)
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record LogEventRollup(
+        @Id String id,
+        RollupResolution resolution,
+        Date periodStart,
+        String source,
+        String level,
+        String loggerName,
+        long count,
+        @Indexed(name = "tlp-index.log-event-rollup.expires-at", expireAfterSeconds = 0) Date expiresAt
+) { }
@@ -0,0 +1,111 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Count and rate query answered from the log event rollup counters.
+ * Counters within the given time range are summed up per period of the resolution, optionally grouped by the requested
+ * dimensions (level, source and logger only), and filtered by source and level.
+ *
+ * @param from start of the time range (inclusive)
+ * @param to end of the time range (exclusive), or null for the current time
+ * @param resolution requested resolution, or null to select it automatically
+ * @param dimensions dimensions to group the counters by (besides their period), in the order of the keys of the returned buckets
+ * @param sources sources to count the events of (empty set for every source)
+ * @param levels levels to count the events of (empty set for every level)
+ * @author Peter Smith
+ */
+public record LogEventRollupQuery(
+        Date from,
+        Date to,
+        RollupResolution resolution,
+        List<AggregationDimension> dimensions,
+        Set<String> sources,
+        Set<String> levels
+) {
+
+    private static final Set<AggregationDimension> SUPPORTED_DIMENSIONS =
+            Set.of(AggregationDimension.LEVEL, AggregationDimension.SOURCE, AggregationDimension.LOGGER);
+    private static final String VALUE_SEPARATOR = ",";
+
+    /**
+     * Parses the given rollup query parameters.
+     *
+     * @param from start of the time range as ISO-8601 instant (e.g. 2024-01-01T00:00:00Z)
+     * @param to end of the time range as ISO-8601 instant (null or blank for the current time)
+     * @param resolution resolution of the counters (null or blank to select it automatically)
+     * @param dimensions comma-separated list of dimension names (level, source or logger; null or blank to count every event together)
+     * @param sources comma-separated list of sources (null or blank for every source)
+     * @param levels comma-separated list of levels (null or blank for every level)
+     * @return parsed {@link LogEventRollupQuery}
+     * @throws IllegalArgumentException if any of the parameters is malformed, the time range is empty,
+     * or any of the dimensions is unsupported or given more than once
+     */
+    public static LogEventRollupQuery parse(String from, String to, String resolution, String dimensions, String sources, String levels) {
+
+        if (Objects.isNull(from) || from.isBlank()) {
+            throw new IllegalArgumentException("Start of the rollup time range is required");
+        }
+
+        Date parsedFrom = parseInstant(from);
+        Date parsedTo = Objects.isNull(to) || to.isBlank()
+                ? null
+                : parseInstant(to);
+        if (Objects.nonNull(parsedTo) && !parsedFrom.before(parsedTo)) {
+            throw new IllegalArgumentException(String.format("Rollup time range [%s - %s] is empty", from, to));
+        }
+
+        List<AggregationDimension> parsedDimensions = split(dimensions)
+                .map(AggregationDimension::parse)
+                .collect(Collectors.toList());
+        parsedDimensions.stream()
+                .filter(dimension -> !SUPPORTED_DIMENSIONS.contains(dimension))
+                .findFirst()
+                .ifPresent(dimension -> {
+                    throw new IllegalArgumentException(String.format("Rollup counters cannot be grouped by [%s]", dimension.name()));
+                });
+        if (parsedDimensions.stream().distinct().count() < parsedDimensions.size()) {
+            throw new IllegalArgumentException(String.format("Rollup dimensions [%s] contain duplicates", dimensions));
+        }
+
+        return new LogEventRollupQuery(parsedFrom, parsedTo, RollupResolution.parse(resolution), parsedDimensions,
+                split(sources).collect(Collectors.toSet()), split(levels).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Returns the names of the dimensions, in the order of the keys of the returned buckets.
+     *
+     * @return list of dimension names
+     */
+    public List<String> getDimensionNames() {
+
+        return dimensions.stream()
+                .map(AggregationDimension::name)
+                .collect(Collectors.toList());
+    }
+
+    private static Date parseInstant(String instant) {
+
+        try {
+            return Date.from(Instant.parse(instant.trim()));
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException(String.format("Invalid rollup time range boundary [%s]", instant), exception);
+        }
+    }
+
+    private static Stream<String> split(String values) {
+
+        return Objects.isNull(values)
+                ? Stream.empty()
+                : Stream.of(values.split(VALUE_SEPARATOR))
+                    .map(String::trim)
+                    .filter(value -> !value.isEmpty());
+    }
+}
@@ -0,0 +1,31 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Result of a log event rollup query.
+ *
+ * @param resolution resolution the counters have been read at
+ * @param from start of the queried time range (aligned to the resolution)
+ * @param to end of the queried time range (exclusive)
+ * @param dimensions names of the dimensions the counters have been grouped by, in the order of the keys of the buckets
+ * @param buckets non-empty buckets, ordered chronologically, then by their key
+ * @param count total number of log events within the time range
+ * @param rate average number of log events per second within the time range
+ * @param truncated whether further buckets have been left out, because the number of buckets exceeded the configured maximum
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record LogEventRollupResult(
+        RollupResolution resolution,
+        Date from,
+        Date to,
+        List<String> dimensions,
+        List<RollupBucket> buckets,
+        long count,
+        double rate,
+        boolean truncated
+) { }
@@ -0,0 +1,15 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import org.springframework.data.domain.Slice;
+
+/**
+ * Slice of log events retrieved without counting the matching events, along with the separately determined total count.
+ *
+ * @param slice retrieved slice of log events
+ * @param totalCount total count of matching events as {@link TotalCount}
+ * @author Peter Smith
+ */
+public record LogEventSlice(
+        Slice<LoggingEvent> slice,
+        TotalCount totalCount
+) { }
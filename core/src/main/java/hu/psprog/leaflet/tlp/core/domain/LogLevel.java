@@ -1,6 +1,7 @@
 package hu.psprog.leaflet.tlp.core.domain;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import hu.psprog.leaflet.tlp.core.service.intern.InternedStringDeserializer;
 import lombok.Data;
 
 /**
@@ -27,6 +28,7 @@ public class LogLevel {
         private LogLevelBuilder() {
         }
 
+        @JsonDeserialize(using = InternedStringDeserializer.class)
         public LogLevelBuilder withLevelStr(String levelStr) {
             this.levelStr = levelStr;
             return this;
@@ -0,0 +1,24 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+/**
+ * Possible outcomes of storing a single log event.
+ *
+ * @author Peter Smith
+ */
+public enum LogStoreStatus {
+
+    /**
+     * Log event has been written to the database.
+     */
+    STORED,
+
+    /**
+     * Log event has been accepted by the write-behind buffer and will be written asynchronously.
+     */
+    QUEUED,
+
+    /**
+     * Log event has been dropped by ingest rate limiting, and will not be stored.
+     */
+    DROPPED
+}
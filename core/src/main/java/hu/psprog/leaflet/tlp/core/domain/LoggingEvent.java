@@ -1,8 +1,11 @@
 package hu.psprog.leaflet.tlp.core.domain;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import hu.psprog.leaflet.tlp.core.service.intern.InternedStringDeserializer;
+import hu.psprog.leaflet.tlp.core.service.intern.InternedStringKeyDeserializer;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -16,19 +19,27 @@ import java.util.Map;
  */
 @Data
 @Document
+@CompoundIndex(name = "tlp-index.timestamp-id", def = "{'timeStamp': 1, '_id': 1}")
+@CompoundIndex(name = "tlp-index.full-text", def = "{'content': 'text', 'exception.message': 'text', 'exception.stackTrace': 'text'}")
 @JsonDeserialize(builder = LoggingEvent.LoggingEventBuilder.class)
 public class LoggingEvent {
 
     @Id
     private String id;
 
+    @Indexed(name = "tlp-index.event-id", unique = true, sparse = true)
+    private String eventId;
+
     private String threadName;
     private String loggerName;
 
     @Indexed(name = "tlp-index.level")
     private String level;
     private String content;
+    private byte[] compressedContent;
     private ThrowableProxyLogItem exception;
+    private String exceptionFingerprint;
+    private String issueFingerprint;
 
     @Indexed(name = "tlp-index.timestamp")
     private Date timeStamp;
@@ -47,6 +58,7 @@ public class LoggingEvent {
      * Builder for {@link LoggingEvent}.
      */
     public static final class LoggingEventBuilder {
+        private String eventId;
         private String threadName;
         private String loggerName;
         private String level;
@@ -59,11 +71,18 @@ public class LoggingEvent {
         private LoggingEventBuilder() {
         }
 
+        public LoggingEventBuilder withEventId(String eventId) {
+            this.eventId = eventId;
+            return this;
+        }
+
+        @JsonDeserialize(using = InternedStringDeserializer.class)
         public LoggingEventBuilder withThreadName(String threadName) {
             this.threadName = threadName;
             return this;
         }
 
+        @JsonDeserialize(using = InternedStringDeserializer.class)
         public LoggingEventBuilder withLoggerName(String loggerName) {
             this.loggerName = loggerName;
             return this;
@@ -99,11 +118,13 @@ public class LoggingEvent {
             return this;
         }
 
+        @JsonDeserialize(using = InternedStringDeserializer.class)
         public LoggingEventBuilder withSource(String source) {
             this.source = source;
             return this;
         }
 
+        @JsonDeserialize(keyUsing = InternedStringKeyDeserializer.class)
         public LoggingEventBuilder withContext(Map<String, String> context) {
             this.context = context;
             return this;
@@ -111,6 +132,7 @@ public class LoggingEvent {
 
         public LoggingEvent build() {
             LoggingEvent loggingEvent = new LoggingEvent();
+            loggingEvent.eventId = this.eventId;
             loggingEvent.content = this.content;
             loggingEvent.loggerName = this.loggerName;
             loggingEvent.exception = this.exception;
@@ -0,0 +1,76 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * {@link Pageable} implementation skipping exactly the given number of elements, even if the offset is not a multiple of the page size.
+ * Page number is informative only (the number of complete pages before the offset), paging relies on the offset.
+ *
+ * @param offset number of elements to skip
+ * @param pageSize number of elements on a page
+ * @param sort ordering of the elements
+ * @author Peter Smith
+ */
+public record OffsetPageRequest(
+        long offset,
+        int pageSize,
+        Sort sort
+) implements Pageable {
+
+    public OffsetPageRequest {
+
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+    }
+
+    @Override
+    public int getPageNumber() {
+        return Math.toIntExact(offset / pageSize);
+    }
+
+    @Override
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public Sort getSort() {
+        return sort;
+    }
+
+    @Override
+    public Pageable next() {
+        return new OffsetPageRequest(offset + pageSize, pageSize, sort);
+    }
+
+    @Override
+    public Pageable previousOrFirst() {
+        return new OffsetPageRequest(Math.max(0, offset - pageSize), pageSize, sort);
+    }
+
+    @Override
+    public Pageable first() {
+        return new OffsetPageRequest(0, pageSize, sort);
+    }
+
+    @Override
+    public Pageable withPage(int pageNumber) {
+        return new OffsetPageRequest((long) pageNumber * pageSize, pageSize, sort);
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+}
@@ -0,0 +1,42 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Optional;
+
+/**
+ * Compiled form of a log event query: the QueryDSL filter expression, the paging parameters (ordering, limit and offset)
+ * and the fields to be returned. All parts are immutable, so a plan can be shared between executions of the same query.
+ *
+ * @param expression filter expression of the query, or empty {@link Optional} if the query has no conditions
+ * @param pageable paging parameters of the query
+ * @param projection fields to be returned as {@link LogEventProjection}
+ * @author Peter Smith
+ */
+public record QueryPlan(
+        Optional<Predicate> expression,
+        Pageable pageable,
+        LogEventProjection projection
+) {
+
+    /**
+     * Creates a plan returning every field of the matching log events.
+     *
+     * @param expression filter expression of the query, or empty {@link Optional} if the query has no conditions
+     * @param pageable paging parameters of the query
+     */
+    public QueryPlan(Optional<Predicate> expression, Pageable pageable) {
+        this(expression, pageable, LogEventProjection.ALL);
+    }
+
+    /**
+     * Returns a copy of this plan with the given projection.
+     *
+     * @param projection fields to be returned as {@link LogEventProjection}
+     * @return copy of this plan with the given projection
+     */
+    public QueryPlan withProjection(LogEventProjection projection) {
+        return new QueryPlan(expression, pageable, projection);
+    }
+}
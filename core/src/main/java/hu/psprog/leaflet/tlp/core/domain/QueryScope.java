@@ -0,0 +1,19 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Scope of the log events a query can match, as far as it can be determined from its filter expression.
+ *
+ * @param sources (lower-cased) sources the matching events must belong to, or empty set if the query is not restricted to specific sources
+ * @param since lower bound of the timestamps of the matching events, or empty {@link Optional} if the query has no lower time bound
+ * @param until upper bound of the timestamps of the matching events, or empty {@link Optional} if the time range of the query is open-ended
+ * @author Peter Smith
+ */
+public record QueryScope(
+        Set<String> sources,
+        Optional<Date> since,
+        Optional<Date> until
+) { }
@@ -0,0 +1,29 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Shape of a log event query: the fields it filters on (regardless of the values) and the ordering of the results.
+ * Field names are the names of the fields in the stored documents.
+ *
+ * @param equalityFields fields matched by equality (or by a list of accepted values), in alphabetical order
+ * @param sort ordering of the results
+ * @param rangeFields fields matched by any other condition (range, pattern, negation or alternative), in alphabetical order
+ * @author Peter Smith
+ */
+public record QueryShape(
+        List<String> equalityFields,
+        Sort sort,
+        List<String> rangeFields
+) {
+
+    @Override
+    public String toString() {
+        return String.format("equality%s sort[%s] range%s", equalityFields, sort.stream()
+                .map(order -> String.format("%s %s", order.getProperty(), order.getDirection()))
+                .collect(Collectors.joining(", ")), rangeFields);
+    }
+}
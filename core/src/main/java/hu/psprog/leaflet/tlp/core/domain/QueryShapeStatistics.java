@@ -0,0 +1,27 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Execution statistics of a recorded query shape.
+ *
+ * @param shape description of the query shape
+ * @param executions number of recorded executions
+ * @param averageLatency average latency of the executions
+ * @param maxLatency highest latency of the executions
+ * @param indexKey index key specification best serving the shape (field name to 1 for ascending, -1 for descending order)
+ * @param coveringIndex name of an existing index serving the shape, or null if there is none
+ * @author Peter Smith
+ */
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record QueryShapeStatistics(
+        String shape,
+        long executions,
+        Duration averageLatency,
+        Duration maxLatency,
+        Map<String, Integer> indexKey,
+        String coveringIndex
+) { }
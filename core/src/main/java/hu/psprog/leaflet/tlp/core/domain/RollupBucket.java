@@ -0,0 +1,20 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Number of log events within a single rollup period, sharing the same values of the requested dimensions.
+ *
+ * @param periodStart start of the period
+ * @param key values of the dimensions (in the order of the dimensions, null if the events do not have the field)
+ * @param count number of log events
+ * @param rate average number of log events per second within the period
+ * @author Peter Smith
+ */
+public record RollupBucket(
+        Date periodStart,
+        List<Object> key,
+        long count,
+        double rate
+) { }
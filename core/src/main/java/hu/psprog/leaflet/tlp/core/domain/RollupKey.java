@@ -0,0 +1,21 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.Date;
+
+/**
+ * Identifies a single log event rollup counter.
+ *
+ * @param resolution resolution of the counter
+ * @param periodStart start of the period the counter belongs to
+ * @param source source of the counted events
+ * @param level log level of the counted events
+ * @param loggerName logger name of the counted events
+ * @author Peter Smith
+ */
+public record RollupKey(
+        RollupResolution resolution,
+        Date periodStart,
+        String source,
+        String level,
+        String loggerName
+) { }
@@ -0,0 +1,73 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Resolution of the log event rollup counters.
+ * Minute counters are maintained at ingestion, hourly and daily counters are compacted from the next finer resolution.
+ * Periods are aligned to the epoch, so e.g. daily counters start at midnight UTC.
+ *
+ * @author Peter Smith
+ */
+public enum RollupResolution {
+
+    /**
+     * Per-minute counters, incremented at ingestion.
+     */
+    MINUTE(Duration.ofMinutes(1)),
+
+    /**
+     * Hourly counters, compacted from the minute counters.
+     */
+    HOUR(Duration.ofHours(1)),
+
+    /**
+     * Daily counters, compacted from the hourly counters.
+     */
+    DAY(Duration.ofDays(1));
+
+    private final Duration period;
+
+    RollupResolution(Duration period) {
+        this.period = period;
+    }
+
+    /**
+     * Returns the length of a single period of this resolution.
+     *
+     * @return length of the period as {@link Duration}
+     */
+    public Duration getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns the start of the period of this resolution containing the given date.
+     *
+     * @param date date to be truncated
+     * @return start of the period as {@link Date}
+     */
+    public Date truncate(Date date) {
+
+        long periodInMillis = period.toMillis();
+
+        return new Date(Math.floorDiv(date.getTime(), periodInMillis) * periodInMillis);
+    }
+
+    /**
+     * Parses the given resolution parameter (case-insensitive).
+     *
+     * @param resolution resolution as string (null if the resolution should be selected automatically)
+     * @return parsed {@link RollupResolution}, or null if no resolution is given
+     * @throws IllegalArgumentException if the given value is not a valid resolution
+     */
+    public static RollupResolution parse(String resolution) {
+
+        return Objects.isNull(resolution) || resolution.isBlank()
+                ? null
+                : valueOf(resolution.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,20 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Storage model of a single counter of a persisted heavy hitter sketch (see {@link HeavyHitter}).
+ *
+ * @author Peter Smith
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SketchCounter {
+
+    private String value;
+    private long count;
+    private long error;
+}
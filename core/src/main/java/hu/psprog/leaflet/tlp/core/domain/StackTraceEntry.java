@@ -0,0 +1,23 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Content-addressed storage model of a deduplicated exception tree.
+ *
+ * @param fingerprint fingerprint of the exception tree (also used as the document ID)
+ * @param exception the exception tree itself, including its causes and suppressed exceptions
+ * @param createdAt date of first occurrence
+ * @author Peter Smith
+ */
+@Document(collection = "stackTraces")
+@Builder(builderMethodName = "getBuilder", setterPrefix = "with")
+public record StackTraceEntry(
+        @Id String fingerprint,
+        ThrowableProxyLogItem exception,
+        Date createdAt
+) { }
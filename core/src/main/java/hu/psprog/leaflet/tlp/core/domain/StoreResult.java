@@ -0,0 +1,58 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outcome of storing a list of log event ingestion items.
+ * Items rejected by the unique event ID index (duplicate key errors) are already stored, thus they are not failures,
+ * but they have not been stored by this operation either, so they are tracked separately from the failures.
+ *
+ * @param failures list of {@link BatchItemFailure} objects describing the failed items (index refers to the position in the stored list)
+ * @param duplicateIndices positions of the items rejected as duplicates in the stored list
+ * @author Peter Smith
+ */
+public record StoreResult(
+        List<BatchItemFailure> failures,
+        Set<Integer> duplicateIndices
+) {
+
+    private static final StoreResult ALL_STORED = new StoreResult(List.of(), Set.of());
+
+    /**
+     * Returns a {@link StoreResult} describing that every item has been stored.
+     *
+     * @return {@link StoreResult} without failures and duplicates
+     */
+    public static StoreResult allStored() {
+        return ALL_STORED;
+    }
+
+    /**
+     * Extracts the items actually stored by the operation, skipping both the failed and the duplicate items.
+     *
+     * @param items list of items passed to the store operation
+     * @param <T> type of the items
+     * @return list of the stored items, keeping their original order
+     */
+    public <T> List<T> extractStored(List<T> items) {
+
+        if (failures.isEmpty() && duplicateIndices.isEmpty()) {
+            return items;
+        }
+
+        Set<Integer> skippedIndices = new HashSet<>(duplicateIndices);
+        failures.forEach(failure -> skippedIndices.add(failure.index()));
+
+        List<T> storedItems = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            if (!skippedIndices.contains(index)) {
+                storedItems.add(items.get(index));
+            }
+        }
+
+        return storedItems;
+    }
+}
@@ -18,6 +18,7 @@ public class ThrowableProxyLogItem {
     private String className;
     private String message;
     private String stackTrace;
+    private byte[] compressedStackTrace;
     private ThrowableProxyLogItem cause;
     private List<ThrowableProxyLogItem> suppressed;
 
@@ -0,0 +1,61 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+/**
+ * Total number of log events matching a query, along with the kind of the count.
+ *
+ * @param value counted, estimated or lower bound number of matching events
+ * @param type kind of the count as {@link TotalCountType}
+ * @param countToken token of the exact count running in the background (or null if no such count has been started)
+ * @author Peter Smith
+ */
+public record TotalCount(
+        long value,
+        TotalCountType type,
+        String countToken
+) {
+
+    /**
+     * Creates an exact {@link TotalCount}.
+     *
+     * @param value number of matching events
+     * @return created {@link TotalCount} object
+     */
+    public static TotalCount exact(long value) {
+        return new TotalCount(value, TotalCountType.EXACT, null);
+    }
+
+    /**
+     * Creates an estimated {@link TotalCount}.
+     *
+     * @param value estimated number of events
+     * @return created {@link TotalCount} object
+     */
+    public static TotalCount estimated(long value) {
+        return new TotalCount(value, TotalCountType.ESTIMATED, null);
+    }
+
+    /**
+     * Creates a lower bound {@link TotalCount}.
+     *
+     * @param value known minimum number of matching events
+     * @param countToken token of the exact count running in the background (or null if no such count has been started)
+     * @return created {@link TotalCount} object
+     */
+    public static TotalCount atLeast(long value, String countToken) {
+        return new TotalCount(value, TotalCountType.AT_LEAST, countToken);
+    }
+
+    /**
+     * Returns the count to be reported, considering the number of events known to be matching (based on the retrieved page).
+     * Exact counts are returned as they are, while estimated and lower bound counts are raised to the known minimum if needed.
+     *
+     * @param knownMinimum number of events known to be matching
+     * @return count to be reported
+     */
+    public long reportedValue(long knownMinimum) {
+
+        return type == TotalCountType.EXACT
+                ? value
+                : Math.max(value, knownMinimum);
+    }
+}
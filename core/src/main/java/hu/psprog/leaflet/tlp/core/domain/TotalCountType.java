@@ -0,0 +1,24 @@
+package hu.psprog.leaflet.tlp.core.domain;
+
+/**
+ * Kind of the total count returned along with a page of log events.
+ *
+ * @author Peter Smith
+ */
+public enum TotalCountType {
+
+    /**
+     * Total count is the exact number of matching events.
+     */
+    EXACT,
+
+    /**
+     * Total count is an estimate of the number of events, based on the collection metadata.
+     */
+    ESTIMATED,
+
+    /**
+     * Total count is a lower bound, there may be more matching events.
+     */
+    AT_LEAST
+}
@@ -0,0 +1,16 @@
+package hu.psprog.leaflet.tlp.core.exception;
+
+/**
+ * Exception to throw when a log event cannot be accepted, because the write-behind ingest buffer is full
+ * (or it is not accepting events anymore due to application shutdown).
+ *
+ * @author Peter Smith
+ */
+public class IngestBufferFullException extends RuntimeException {
+
+    private static final String MESSAGE = "Log event buffer is full, try again later";
+
+    public IngestBufferFullException() {
+        super(MESSAGE);
+    }
+}
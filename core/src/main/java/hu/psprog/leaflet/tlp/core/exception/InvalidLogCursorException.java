@@ -0,0 +1,17 @@
+package hu.psprog.leaflet.tlp.core.exception;
+
+/**
+ * Exception to throw when a paging cursor is malformed, or cannot be used with the ordering of the query.
+ *
+ * @author Peter Smith
+ */
+public class InvalidLogCursorException extends RuntimeException {
+
+    public InvalidLogCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidLogCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
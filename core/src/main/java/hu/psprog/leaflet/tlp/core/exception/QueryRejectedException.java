@@ -0,0 +1,71 @@
+package hu.psprog.leaflet.tlp.core.exception;
+
+import com.mongodb.MongoExecutionTimeoutException;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Exception to throw when a log query is rejected by the cost guard, or exceeds its execution time limit.
+ * The message describes the limit the query has hit.
+ * Rejections should be created via the factory methods, so the servlet and the reactive runtimes report them the same way.
+ *
+ * @author Peter Smith
+ */
+public class QueryRejectedException extends RuntimeException {
+
+    private static final String COLLECTION_SCAN_MESSAGE = "Query would scan all the %d stored log events (limit is %d) "
+            + "- add a lower time bound or a condition on an indexed field";
+    private static final String TIMEOUT_MESSAGE = "Query exceeded the execution time limit of %d ms "
+            + "- narrow down its time range or conditions";
+
+    public QueryRejectedException(String message) {
+        super(message);
+    }
+
+    public QueryRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Creates the rejection of a query that would scan the whole collection.
+     *
+     * @param documents number of stored log events
+     * @param maxCollectionScanDocuments maximum number of log events a collection scan is allowed for
+     * @return {@link QueryRejectedException} describing the collection scan limit
+     */
+    public static QueryRejectedException collectionScan(long documents, long maxCollectionScanDocuments) {
+        return new QueryRejectedException(String.format(COLLECTION_SCAN_MESSAGE, documents, maxCollectionScanDocuments));
+    }
+
+    /**
+     * Creates the rejection of a query that has exceeded its execution time limit.
+     *
+     * @param maxTime execution time limit of the query
+     * @param cause exception the query has failed with
+     * @return {@link QueryRejectedException} describing the execution time limit
+     */
+    public static QueryRejectedException executionTimeout(Duration maxTime, Throwable cause) {
+        return new QueryRejectedException(String.format(TIMEOUT_MESSAGE, maxTime.toMillis()), cause);
+    }
+
+    /**
+     * Checks whether the given exception has been caused by the query exceeding its execution time limit.
+     *
+     * @param exception exception a query has failed with
+     * @return {@code true} if the exception or any of its causes is a {@link MongoExecutionTimeoutException}
+     */
+    public static boolean isExecutionTimeout(Throwable exception) {
+
+        // the driver exception is usually wrapped into a Spring data access exception
+        Throwable current = exception;
+        while (Objects.nonNull(current)) {
+            if (current instanceof MongoExecutionTimeoutException) {
+                return true;
+            }
+            current = current.getCause() == current ? null : current.getCause();
+        }
+
+        return false;
+    }
+}
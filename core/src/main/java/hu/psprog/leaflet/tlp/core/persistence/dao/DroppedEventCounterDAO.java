@@ -0,0 +1,23 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao;
+
+import hu.psprog.leaflet.tlp.core.domain.DroppedEventCounter;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * DAO interface for {@link DroppedEventCounter} documents.
+ *
+ * @author Peter Smith
+ */
+public interface DroppedEventCounterDAO {
+
+    /**
+     * Atomically increments the dropped event counters of the given source and period, creating the counter document if needed.
+     *
+     * @param source source the events were sent from
+     * @param periodStart start of the period the counters belong to
+     * @param droppedByLevel number of dropped events by log level
+     */
+    void increment(String source, Date periodStart, Map<String, Long> droppedByLevel);
+}
@@ -0,0 +1,29 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao;
+
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterSnapshot;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * DAO interface for {@link HeavyHitterSnapshot} documents.
+ *
+ * @author Peter Smith
+ */
+public interface HeavyHitterSnapshotDAO {
+
+    /**
+     * Saves the given snapshots in a single unordered bulk write, replacing the earlier snapshots of the same dimension and slot.
+     *
+     * @param snapshots {@link HeavyHitterSnapshot} objects to be saved
+     */
+    void saveAll(List<HeavyHitterSnapshot> snapshots);
+
+    /**
+     * Returns the snapshots of the slots starting at or after the given date.
+     *
+     * @param since start of the earliest slot to be returned
+     * @return list of matching {@link HeavyHitterSnapshot} objects
+     */
+    List<HeavyHitterSnapshot> findSince(Date since);
+}
@@ -0,0 +1,29 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao;
+
+import hu.psprog.leaflet.tlp.core.domain.IndexUsage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO interface for managing the indexes of the log event collection.
+ *
+ * @author Peter Smith
+ */
+public interface IndexManagementDAO {
+
+    /**
+     * Returns the existing indexes of the log event collection along with their usage statistics.
+     *
+     * @return list of {@link IndexUsage} objects, one for each index
+     */
+    List<IndexUsage> getIndexUsage();
+
+    /**
+     * Creates an index on the log event collection. Blocks until the index build is finished.
+     *
+     * @param name name of the index
+     * @param key index key specification (field name to 1 for ascending, -1 for descending order), in key order
+     */
+    void createIndex(String name, Map<String, Integer> key);
+}
@@ -0,0 +1,32 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao;
+
+import hu.psprog.leaflet.tlp.core.domain.Issue;
+import hu.psprog.leaflet.tlp.core.domain.IssueOccurrence;
+import hu.psprog.leaflet.tlp.core.domain.IssueQuery;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO interface for {@link Issue} documents.
+ *
+ * @author Peter Smith
+ */
+public interface IssueDAO {
+
+    /**
+     * Adds the given occurrences to the corresponding issues in a single unordered bulk write, creating the issues if needed.
+     *
+     * @param issueOccurrences {@link IssueOccurrence} objects to be added (one per issue)
+     */
+    void addOccurrences(Collection<IssueOccurrence> issueOccurrences);
+
+    /**
+     * Returns the issues seen within the time window of the given query, the most frequent ones first.
+     *
+     * @param issueQuery {@link IssueQuery} specifying the time window and the source
+     * @param limit maximum number of issues to be returned
+     * @return list of matching {@link Issue} objects
+     */
+    List<Issue> findAll(IssueQuery issueQuery, int limit);
+}
@@ -0,0 +1,81 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollup;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupQuery;
+import hu.psprog.leaflet.tlp.core.domain.RollupKey;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * DAO interface for {@link LogEventRollup} documents.
+ *
+ * @author Peter Smith
+ */
+public interface LogEventRollupDAO {
+
+    /**
+     * Atomically increments the given rollup counters in a single unordered bulk write, creating the counter documents if needed.
+     *
+     * @param increments values to be added to the counters, mapped by their {@link RollupKey}
+     * @param retention retention of the newly created counters, counted from the start of their period (zero to keep them forever)
+     */
+    void increment(Map<RollupKey, Long> increments, Duration retention);
+
+    /**
+     * Recalculates the counters of the target resolution from the counters of the source resolution, starting from the given date.
+     * The recalculated counters overwrite the stored ones, so the compaction can be repeated safely.
+     *
+     * @param sourceResolution resolution of the counters to be summed up
+     * @param targetResolution resolution of the counters to be recalculated
+     * @param from start of the first period to be recalculated (aligned to the target resolution)
+     * @param retention retention of the newly created counters, counted from the start of their period (zero to keep them forever)
+     */
+    void compact(RollupResolution sourceResolution, RollupResolution targetResolution, Date from, Duration retention);
+
+    /**
+     * Sums up the counters matching the given rollup query per period, grouped by the dimensions of the query.
+     * Buckets are ordered chronologically, then by their dimension values.
+     *
+     * @param rollupQuery {@link LogEventRollupQuery} with resolved time range and resolution
+     * @param limit maximum number of buckets to be returned
+     * @return list of {@link AggregationBucket} objects, keyed by the start of their period, followed by the values of the dimensions
+     */
+    List<AggregationBucket> aggregate(LogEventRollupQuery rollupQuery, int limit);
+
+    /**
+     * Sums up the counters of the given resolution within the given time range into epoch-aligned buckets of the given interval.
+     * Counters are filtered by the given expression, which must only refer to the source and level fields of the log events.
+     *
+     * @param predicate QueryDSL filter expression on the source and level fields of {@link hu.psprog.leaflet.tlp.core.domain.LoggingEvent}
+     * @param resolution resolution of the counters to be summed up
+     * @param from start of the time range (inclusive, aligned to the resolution)
+     * @param to end of the time range (exclusive)
+     * @param interval length of the buckets (multiple of the period of the resolution)
+     * @param limit maximum number of buckets to be returned
+     * @return list of non-empty {@link AggregationBucket} objects in chronological order, keyed by the start of their bucket
+     */
+    List<AggregationBucket> histogram(Predicate predicate, RollupResolution resolution, Date from, Date to, Duration interval, int limit);
+
+    /**
+     * Returns the start of the earliest stored period of the given resolution.
+     *
+     * @param resolution resolution of the counters
+     * @return start of the earliest period as {@link Optional}, or empty {@link Optional} if there are no counters of the given resolution
+     */
+    Optional<Date> findEarliestPeriodStart(RollupResolution resolution);
+
+    /**
+     * Sums up every counter matching the given rollup query.
+     *
+     * @param rollupQuery {@link LogEventRollupQuery} with resolved time range and resolution
+     * @return total number of log events within the time range of the query
+     */
+    long count(LogEventRollupQuery rollupQuery);
+}
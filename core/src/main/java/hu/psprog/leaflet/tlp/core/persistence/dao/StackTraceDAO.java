@@ -0,0 +1,40 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao;
+
+import hu.psprog.leaflet.tlp.core.domain.StackTraceEntry;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * DAO interface for deduplicated exception trees.
+ *
+ * @author Peter Smith
+ */
+public interface StackTraceDAO {
+
+    /**
+     * Returns the {@link StackTraceEntry} objects stored under the given fingerprints.
+     * Unknown fingerprints are ignored.
+     *
+     * @param fingerprints fingerprints to look up
+     * @return list of found {@link StackTraceEntry} objects
+     */
+    List<StackTraceEntry> findAllByFingerprints(Collection<String> fingerprints);
+
+    /**
+     * Returns the subset of the given fingerprints that are already stored. Only the IDs are retrieved.
+     *
+     * @param fingerprints fingerprints to check
+     * @return set of already existing fingerprints
+     */
+    Set<String> findExistingFingerprints(Collection<String> fingerprints);
+
+    /**
+     * Stores given list of {@link StackTraceEntry} objects using an unordered bulk write.
+     * Entries stored in the meantime by a concurrent writer (duplicate key errors) are silently skipped.
+     *
+     * @param stackTraceEntries list of {@link StackTraceEntry} objects to store
+     */
+    void saveAll(List<StackTraceEntry> stackTraceEntries);
+}
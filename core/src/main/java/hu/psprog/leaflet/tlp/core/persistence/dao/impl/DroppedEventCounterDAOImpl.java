@@ -0,0 +1,47 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.tlp.core.domain.DroppedEventCounter;
+import hu.psprog.leaflet.tlp.core.persistence.dao.DroppedEventCounterDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Implementation of {@link DroppedEventCounterDAO}.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class DroppedEventCounterDAOImpl implements DroppedEventCounterDAO {
+
+    private static final String FIELD_SOURCE = "source";
+    private static final String FIELD_PERIOD_START = "periodStart";
+    private static final String FIELD_LEVELS = "levels";
+    private static final String FIELD_TOTAL = "total";
+
+    private final MongoOperations mongoOperations;
+
+    @Autowired
+    public DroppedEventCounterDAOImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public void increment(String source, Date periodStart, Map<String, Long> droppedByLevel) {
+
+        Query query = Query.query(Criteria.where(FIELD_SOURCE).is(source).and(FIELD_PERIOD_START).is(periodStart));
+        Update update = new Update();
+        droppedByLevel.forEach((level, count) -> update.inc(FIELD_LEVELS + "." + level, count));
+        update.inc(FIELD_TOTAL, droppedByLevel.values().stream()
+                .mapToLong(Long::longValue)
+                .sum());
+
+        mongoOperations.upsert(query, update, DroppedEventCounter.class);
+    }
+}
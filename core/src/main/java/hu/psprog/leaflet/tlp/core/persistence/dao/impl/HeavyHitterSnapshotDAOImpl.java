@@ -0,0 +1,51 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterSnapshot;
+import hu.psprog.leaflet.tlp.core.persistence.dao.HeavyHitterSnapshotDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Implementation of {@link HeavyHitterSnapshotDAO}.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class HeavyHitterSnapshotDAOImpl implements HeavyHitterSnapshotDAO {
+
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_SLOT_START = "slotStart";
+
+    private final MongoOperations mongoOperations;
+
+    @Autowired
+    public HeavyHitterSnapshotDAOImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public void saveAll(List<HeavyHitterSnapshot> snapshots) {
+
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, HeavyHitterSnapshot.class);
+        snapshots.forEach(snapshot -> bulkOperations.replaceOne(Query.query(Criteria.where(FIELD_ID).is(snapshot.id())), snapshot,
+                FindAndReplaceOptions.options().upsert()));
+        bulkOperations.execute();
+    }
+
+    @Override
+    public List<HeavyHitterSnapshot> findSince(Date since) {
+        return mongoOperations.find(Query.query(Criteria.where(FIELD_SLOT_START).gte(since)), HeavyHitterSnapshot.class);
+    }
+}
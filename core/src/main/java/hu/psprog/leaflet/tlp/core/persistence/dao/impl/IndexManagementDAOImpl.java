@@ -0,0 +1,77 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.tlp.core.domain.IndexUsage;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.persistence.dao.IndexManagementDAO;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link IndexManagementDAO}.
+ * Usage statistics are retrieved via the $indexStats aggregation stage.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class IndexManagementDAOImpl implements IndexManagementDAO {
+
+    private static final Aggregation INDEX_STATS_AGGREGATION = Aggregation.newAggregation(context -> new Document("$indexStats", new Document()));
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_KEY = "key";
+    private static final String FIELD_SPEC = "spec";
+    private static final String FIELD_UNIQUE = "unique";
+    private static final String FIELD_ACCESSES = "accesses";
+    private static final String FIELD_OPS = "ops";
+    private static final String FIELD_SINCE = "since";
+
+    private final MongoOperations mongoOperations;
+
+    @Autowired
+    public IndexManagementDAOImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public List<IndexUsage> getIndexUsage() {
+
+        return mongoOperations.aggregate(INDEX_STATS_AGGREGATION, LoggingEvent.class, Document.class)
+                .getMappedResults()
+                .stream()
+                .map(this::mapIndexUsage)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void createIndex(String name, Map<String, Integer> key) {
+
+        Index index = new Index()
+                .named(name)
+                .background();
+        key.forEach((field, direction) -> index.on(field, direction < 0 ? Sort.Direction.DESC : Sort.Direction.ASC));
+
+        mongoOperations.indexOps(LoggingEvent.class).ensureIndex(index);
+    }
+
+    private IndexUsage mapIndexUsage(Document indexStats) {
+
+        Document accesses = indexStats.get(FIELD_ACCESSES, new Document());
+        Document spec = indexStats.get(FIELD_SPEC, new Document());
+
+        return IndexUsage.getBuilder()
+                .withName(indexStats.getString(FIELD_NAME))
+                .withKey(indexStats.get(FIELD_KEY, new Document()))
+                .withUnique(spec.getBoolean(FIELD_UNIQUE, false))
+                .withAccesses(((Number) accesses.getOrDefault(FIELD_OPS, 0L)).longValue())
+                .withSince(accesses.getDate(FIELD_SINCE))
+                .build();
+    }
+}
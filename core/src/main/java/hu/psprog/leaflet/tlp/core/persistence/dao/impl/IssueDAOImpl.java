@@ -0,0 +1,95 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.tlp.core.domain.Issue;
+import hu.psprog.leaflet.tlp.core.domain.IssueOccurrence;
+import hu.psprog.leaflet.tlp.core.domain.IssueQuery;
+import hu.psprog.leaflet.tlp.core.domain.IssueSignature;
+import hu.psprog.leaflet.tlp.core.persistence.dao.IssueDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Implementation of {@link IssueDAO}.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class IssueDAOImpl implements IssueDAO {
+
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_CLASS_NAME = "className";
+    private static final String FIELD_MESSAGE = "message";
+    private static final String FIELD_FRAMES = "frames";
+    private static final String FIELD_COUNT = "count";
+    private static final String FIELD_FIRST_SEEN = "firstSeen";
+    private static final String FIELD_LAST_SEEN = "lastSeen";
+    private static final String FIELD_SOURCES = "sources";
+
+    private final MongoOperations mongoOperations;
+
+    @Autowired
+    public IssueDAOImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public void addOccurrences(Collection<IssueOccurrence> issueOccurrences) {
+
+        if (issueOccurrences.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Issue.class);
+        issueOccurrences.forEach(issueOccurrence -> bulkOperations.upsert(Query.query(Criteria.where(FIELD_ID).is(issueOccurrence.fingerprint())),
+                createUpdate(issueOccurrence)));
+        bulkOperations.execute();
+    }
+
+    @Override
+    public List<Issue> findAll(IssueQuery issueQuery, int limit) {
+
+        Criteria criteria = Criteria.where(FIELD_LAST_SEEN).gte(issueQuery.from());
+        if (Objects.nonNull(issueQuery.to())) {
+            criteria.and(FIELD_FIRST_SEEN).lt(issueQuery.to());
+        }
+        if (Objects.nonNull(issueQuery.source())) {
+            criteria.and(FIELD_SOURCES).is(issueQuery.source());
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Order.desc(FIELD_COUNT), Sort.Order.desc(FIELD_LAST_SEEN)))
+                .limit(limit);
+
+        return mongoOperations.find(query, Issue.class);
+    }
+
+    private Update createUpdate(IssueOccurrence issueOccurrence) {
+
+        Update update = new Update()
+                .inc(FIELD_COUNT, issueOccurrence.count())
+                .min(FIELD_FIRST_SEEN, issueOccurrence.firstSeen())
+                .max(FIELD_LAST_SEEN, issueOccurrence.lastSeen());
+        if (!issueOccurrence.sources().isEmpty()) {
+            update.addToSet(FIELD_SOURCES).each(issueOccurrence.sources().stream().sorted().toArray());
+        }
+
+        IssueSignature signature = issueOccurrence.signature();
+        if (Objects.nonNull(signature)) {
+            update.setOnInsert(FIELD_CLASS_NAME, signature.className())
+                    .setOnInsert(FIELD_MESSAGE, signature.message())
+                    .setOnInsert(FIELD_FRAMES, signature.frames());
+        }
+
+        return update;
+    }
+}
@@ -1,41 +1,388 @@
 package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
 import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.AggregationDimension;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
 import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
 import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
 import hu.psprog.leaflet.tlp.core.persistence.repository.LogEventRepository;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.SpringDataMongodbQuery;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 /**
  * Implementation of {@link LogEventDAO}.
+ * Find and count operations are executed with the maximum execution time configured for the query cost guard,
+ * streams (used by exports) are not limited.
  *
  * @author Peter Smith
  */
 @Component
 public class LogEventDAOImpl implements LogEventDAO {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogEventDAOImpl.class);
+    private static final InsertManyOptions UNORDERED_INSERT = new InsertManyOptions().ordered(false);
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_EVENT_ID = "eventId";
+    private static final String FIELD_QUERY_PLANNER = "queryPlanner";
+    private static final String FIELD_WINNING_PLAN = "winningPlan";
+    private static final String FIELD_STAGE = "stage";
+    private static final String FIELD_COUNT = "count";
+    private static final String GROUP_KEY_PREFIX = "k";
+
     private final LogEventRepository logEventRepository;
+    private final MongoOperations mongoOperations;
+    private final Duration maxTime;
 
     @Autowired
-    public LogEventDAOImpl(LogEventRepository logEventRepository) {
+    public LogEventDAOImpl(LogEventRepository logEventRepository, MongoOperations mongoOperations, QueryGuardProperties queryGuardProperties) {
         this.logEventRepository = logEventRepository;
+        this.mongoOperations = mongoOperations;
+        this.maxTime = queryGuardProperties.getMaxTime();
+    }
+
+    @Override
+    public Page<LoggingEvent> findAll(Pageable pageable, LogEventProjection projection) {
+        return findPage(new Document(), pageable, projection);
+    }
+
+    @Override
+    public Page<LoggingEvent> findAll(Predicate predicate, Pageable pageable, LogEventProjection projection) {
+        return findPage(createFilter(predicate), pageable, projection);
+    }
+
+    @Override
+    public List<LoggingEvent> findAll(Predicate predicate, Sort sort, int limit, LogEventProjection projection) {
+
+        Query query = new BasicQuery(createFilter(predicate))
+                .with(sort)
+                .limit(limit);
+
+        return mongoOperations.find(limitTime(project(query, projection)), LoggingEvent.class);
+    }
+
+    @Override
+    public Slice<LoggingEvent> findSlice(Pageable pageable, LogEventProjection projection) {
+        return findSlice(new Document(), pageable, projection);
+    }
+
+    @Override
+    public Slice<LoggingEvent> findSlice(Predicate predicate, Pageable pageable, LogEventProjection projection) {
+        return findSlice(createFilter(predicate), pageable, projection);
+    }
+
+    @Override
+    public Stream<LoggingEvent> stream(Sort sort, LogEventProjection projection, int batchSize) {
+        return stream(new Query(), sort, projection, batchSize);
+    }
+
+    @Override
+    public Stream<LoggingEvent> stream(Predicate predicate, Sort sort, LogEventProjection projection, int batchSize) {
+        return stream(new BasicQuery(createFilter(predicate)), sort, projection, batchSize);
+    }
+
+    @Override
+    public long count() {
+        return mongoOperations.count(limitTime(new Query()), LoggingEvent.class);
     }
 
     @Override
-    public Page<LoggingEvent> findAll(Pageable pageable) {
-        return logEventRepository.findAll(pageable);
+    public long count(Predicate predicate) {
+        return mongoOperations.count(limitTime(new BasicQuery(createFilter(predicate))), LoggingEvent.class);
     }
 
     @Override
-    public Page<LoggingEvent> findAll(Predicate predicate, Pageable pageable) {
-        return logEventRepository.findAll(predicate, pageable);
+    public long countUpTo(Predicate predicate, long limit) {
+
+        Query query = new BasicQuery(createFilter(predicate))
+                .limit(Math.toIntExact(limit));
+
+        return mongoOperations.count(limitTime(query), LoggingEvent.class);
+    }
+
+    @Override
+    public long estimatedCount() {
+        return mongoOperations.estimatedCount(LoggingEvent.class);
+    }
+
+    @Override
+    public Set<String> explainStages(Sort sort) {
+        return explainStages(new Document(), sort);
+    }
+
+    @Override
+    public Set<String> explainStages(Predicate predicate, Sort sort) {
+        return explainStages(createFilter(predicate), sort);
+    }
+
+    @Override
+    public List<AggregationBucket> aggregate(LogEventAggregation aggregation, int limit) {
+        return aggregate(new Document(), aggregation, limit);
     }
 
     @Override
-    public void save(LoggingEvent loggingEvent) {
-        logEventRepository.save(loggingEvent);
+    public List<AggregationBucket> aggregate(Predicate predicate, LogEventAggregation aggregation, int limit) {
+        return aggregate(createFilter(predicate), aggregation, limit);
+    }
+
+    @Override
+    public Set<String> findExistingEventIds(Collection<String> eventIds) {
+
+        Query query = Query.query(Criteria.where(FIELD_EVENT_ID).in(eventIds));
+        query.fields().include(FIELD_EVENT_ID).exclude(FIELD_ID);
+
+        return mongoOperations.find(query, Document.class, mongoOperations.getCollectionName(LoggingEvent.class)).stream()
+                .map(document -> document.getString(FIELD_EVENT_ID))
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public boolean save(LoggingEvent loggingEvent) {
+
+        try {
+            logEventRepository.save(loggingEvent);
+            return true;
+        } catch (DuplicateKeyException exception) {
+            LOGGER.debug("Log event with event ID [{}] is already stored", loggingEvent.getEventId());
+            return false;
+        }
+    }
+
+    @Override
+    public StoreResult saveAll(List<LoggingEvent> loggingEvents) {
+
+        if (loggingEvents.isEmpty()) {
+            return StoreResult.allStored();
+        }
+
+        try {
+            mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, LoggingEvent.class)
+                    .insert(loggingEvents)
+                    .execute();
+            return StoreResult.allStored();
+        } catch (BulkOperationException exception) {
+            return mapBulkWriteErrors(exception.getErrors());
+        }
+    }
+
+    @Override
+    public StoreResult saveAllDocuments(List<RawBsonDocument> documents) {
+
+        if (documents.isEmpty()) {
+            return StoreResult.allStored();
+        }
+
+        try {
+            mongoOperations.getCollection(mongoOperations.getCollectionName(LoggingEvent.class))
+                    .withDocumentClass(RawBsonDocument.class)
+                    .insertMany(documents, UNORDERED_INSERT);
+            return StoreResult.allStored();
+        } catch (MongoBulkWriteException exception) {
+            return mapBulkWriteErrors(exception.getWriteErrors());
+        }
+    }
+
+    private Page<LoggingEvent> findPage(Document filter, Pageable pageable, LogEventProjection projection) {
+
+        Query query = new BasicQuery(filter).with(pageable);
+
+        return PageableExecutionUtils.getPage(mongoOperations.find(limitTime(project(query, projection)), LoggingEvent.class), pageable,
+                () -> mongoOperations.count(limitTime(new BasicQuery(filter)), LoggingEvent.class));
+    }
+
+    private Slice<LoggingEvent> findSlice(Document filter, Pageable pageable, LogEventProjection projection) {
+
+        // one extra event is retrieved to determine whether there is a next slice
+        Query query = new BasicQuery(filter)
+                .with(pageable)
+                .limit(pageable.getPageSize() + 1);
+        List<LoggingEvent> loggingEvents = mongoOperations.find(limitTime(project(query, projection)), LoggingEvent.class);
+        boolean hasNext = loggingEvents.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext
+                ? loggingEvents.subList(0, pageable.getPageSize())
+                : loggingEvents, pageable, hasNext);
+    }
+
+    private Stream<LoggingEvent> stream(Query query, Sort sort, LogEventProjection projection, int batchSize) {
+
+        query.with(sort)
+                .cursorBatchSize(batchSize);
+
+        return mongoOperations.stream(project(query, projection), LoggingEvent.class);
+    }
+
+    private Set<String> explainStages(Document filter, Sort sort) {
+
+        MongoConverter mongoConverter = mongoOperations.getConverter();
+        Document mappedSort = new QueryMapper(mongoConverter).getMappedSort(new Query().with(sort).getSortObject(),
+                mongoConverter.getMappingContext().getPersistentEntity(LoggingEvent.class));
+        Document explanation = mongoOperations.execute(LoggingEvent.class, collection -> collection.find(filter)
+                .sort(mappedSort)
+                .explain(ExplainVerbosity.QUERY_PLANNER));
+
+        // the winning plan is a tree of stages, its shape depends on the server version and topology
+        Set<String> stages = new HashSet<>();
+        Optional.ofNullable(explanation)
+                .map(document -> document.get(FIELD_QUERY_PLANNER, Document.class))
+                .map(queryPlanner -> queryPlanner.get(FIELD_WINNING_PLAN))
+                .ifPresent(winningPlan -> collectStages(winningPlan, stages));
+
+        return stages;
+    }
+
+    private List<AggregationBucket> aggregate(Document filter, LogEventAggregation aggregation, int limit) {
+
+        List<AggregationDimension> dimensions = aggregation.dimensions();
+        Document groupKey = new Document();
+        Document sort = new Document();
+        for (int index = 0; index < dimensions.size(); index++) {
+            AggregationDimension dimension = dimensions.get(index);
+            groupKey.append(GROUP_KEY_PREFIX + index, dimension.timeBucket()
+                    ? createTimeBucketExpression(dimension, aggregation.interval())
+                    : "$" + dimension.field());
+            if (dimension.timeBucket()) {
+                sort.append(FIELD_ID + "." + GROUP_KEY_PREFIX + index, 1);
+            }
+        }
+
+        // time buckets in chronological order first, then the largest buckets, ties broken by the dimension values
+        sort.append(FIELD_COUNT, -1);
+        for (int index = 0; index < dimensions.size(); index++) {
+            sort.putIfAbsent(FIELD_ID + "." + GROUP_KEY_PREFIX + index, 1);
+        }
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (!filter.isEmpty()) {
+            stages.add(context -> new Document("$match", context.getMappedObject(filter)));
+        }
+        stages.add(context -> new Document("$group", new Document(FIELD_ID, groupKey)
+                .append(FIELD_COUNT, new Document("$sum", 1))));
+        stages.add(context -> new Document("$sort", sort));
+        stages.add(Aggregation.limit(limit));
+
+        AggregationOptions.Builder options = AggregationOptions.builder()
+                .allowDiskUse(true);
+        if (!maxTime.isZero()) {
+            options.maxTime(maxTime);
+        }
+
+        return mongoOperations.aggregate(Aggregation.newAggregation(stages).withOptions(options.build()), LoggingEvent.class, Document.class)
+                .getMappedResults().stream()
+                .map(result -> mapBucket(result, dimensions.size()))
+                .collect(Collectors.toList());
+    }
+
+    private Document createTimeBucketExpression(AggregationDimension dimension, Duration interval) {
+
+        // epoch-aligned bucket start: timestamp - (timestamp in millis % interval in millis)
+        String field = "$" + dimension.field();
+        Document offset = new Document("$mod", List.of(new Document("$toLong", field), interval.toMillis()));
+
+        return new Document("$subtract", List.of(field, offset));
+    }
+
+    private AggregationBucket mapBucket(Document result, int dimensionCount) {
+
+        Document groupKey = result.get(FIELD_ID, Document.class);
+        List<Object> key = new ArrayList<>(dimensionCount);
+        for (int index = 0; index < dimensionCount; index++) {
+            key.add(groupKey.get(GROUP_KEY_PREFIX + index));
+        }
+
+        return new AggregationBucket(key, ((Number) result.get(FIELD_COUNT)).longValue());
+    }
+
+    private void collectStages(Object planNode, Set<String> stages) {
+
+        if (planNode instanceof Document document) {
+            Optional.ofNullable(document.getString(FIELD_STAGE))
+                    .ifPresent(stages::add);
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (planNode instanceof List<?> list) {
+            list.forEach(item -> collectStages(item, stages));
+        }
+    }
+
+    private Document createFilter(Predicate predicate) {
+
+        return new SpringDataMongodbQuery<LoggingEvent>(mongoOperations, LoggingEvent.class)
+                .where(predicate)
+                .asDocument();
+    }
+
+    private Query limitTime(Query query) {
+
+        if (!maxTime.isZero()) {
+            query.maxTime(maxTime);
+        }
+
+        return query;
+    }
+
+    private Query project(Query query, LogEventProjection projection) {
+
+        if (projection.isRestricted()) {
+            query.fields().include(projection.getStoredFields());
+        }
+
+        return query;
+    }
+
+    private StoreResult mapBulkWriteErrors(List<BulkWriteError> bulkWriteErrors) {
+
+        Map<Boolean, List<BulkWriteError>> errorsByDuplicateKey = bulkWriteErrors.stream()
+                .collect(Collectors.partitioningBy(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY));
+
+        return new StoreResult(
+                errorsByDuplicateKey.get(false).stream()
+                        .map(error -> new BatchItemFailure(error.getIndex(), error.getMessage()))
+                        .collect(Collectors.toList()),
+                errorsByDuplicateKey.get(true).stream()
+                        .map(BulkWriteError::getIndex)
+                        .collect(Collectors.toSet()));
     }
 }
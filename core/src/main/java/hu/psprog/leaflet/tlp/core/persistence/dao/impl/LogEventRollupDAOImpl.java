@@ -0,0 +1,225 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.AggregationDimension;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollup;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupQuery;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.RollupKey;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventRollupDAO;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.SpringDataMongodbQuery;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link LogEventRollupDAO}.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class LogEventRollupDAOImpl implements LogEventRollupDAO {
+
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_RESOLUTION = "resolution";
+    private static final String FIELD_PERIOD_START = "periodStart";
+    private static final String FIELD_SOURCE = "source";
+    private static final String FIELD_LEVEL = "level";
+    private static final String FIELD_LOGGER_NAME = "loggerName";
+    private static final String FIELD_COUNT = "count";
+    private static final String FIELD_EXPIRES_AT = "expiresAt";
+    private static final String GROUP_KEY_PREFIX = "k";
+
+    private final MongoOperations mongoOperations;
+
+    @Autowired
+    public LogEventRollupDAOImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public void increment(Map<RollupKey, Long> increments, Duration retention) {
+
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, LogEventRollup.class);
+        increments.forEach((rollupKey, increment) -> bulkOperations.upsert(createKeyQuery(rollupKey),
+                createUpdate(rollupKey.periodStart(), retention).inc(FIELD_COUNT, increment)));
+        bulkOperations.execute();
+    }
+
+    @Override
+    public void compact(RollupResolution sourceResolution, RollupResolution targetResolution, Date from, Duration retention) {
+
+        // epoch-aligned period start: period start - (period start in millis % target period in millis)
+        Document offset = new Document("$mod", List.of(new Document("$toLong", "$" + FIELD_PERIOD_START), targetResolution.getPeriod().toMillis()));
+        Document groupKey = new Document(FIELD_PERIOD_START, new Document("$subtract", List.of("$" + FIELD_PERIOD_START, offset)))
+                .append(FIELD_SOURCE, "$" + FIELD_SOURCE)
+                .append(FIELD_LEVEL, "$" + FIELD_LEVEL)
+                .append(FIELD_LOGGER_NAME, "$" + FIELD_LOGGER_NAME);
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(FIELD_RESOLUTION).is(sourceResolution.name()).and(FIELD_PERIOD_START).gte(from)),
+                context -> new Document("$group", new Document(FIELD_ID, groupKey)
+                        .append(FIELD_COUNT, new Document("$sum", "$" + FIELD_COUNT))));
+        List<Document> results = mongoOperations.aggregate(aggregation, LogEventRollup.class, Document.class).getMappedResults();
+        if (results.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, LogEventRollup.class);
+        results.forEach(result -> {
+            Document key = result.get(FIELD_ID, Document.class);
+            RollupKey rollupKey = new RollupKey(targetResolution, key.getDate(FIELD_PERIOD_START), key.getString(FIELD_SOURCE),
+                    key.getString(FIELD_LEVEL), key.getString(FIELD_LOGGER_NAME));
+            bulkOperations.upsert(createKeyQuery(rollupKey), createUpdate(rollupKey.periodStart(), retention)
+                    .set(FIELD_COUNT, ((Number) result.get(FIELD_COUNT)).longValue()));
+        });
+        bulkOperations.execute();
+    }
+
+    @Override
+    public List<AggregationBucket> aggregate(LogEventRollupQuery rollupQuery, int limit) {
+
+        List<AggregationDimension> dimensions = rollupQuery.dimensions();
+        Document groupKey = new Document(GROUP_KEY_PREFIX + 0, "$" + FIELD_PERIOD_START);
+        Document sort = new Document(FIELD_ID + "." + GROUP_KEY_PREFIX + 0, 1);
+        for (int index = 0; index < dimensions.size(); index++) {
+            groupKey.append(GROUP_KEY_PREFIX + (index + 1), "$" + dimensions.get(index).field());
+            sort.append(FIELD_ID + "." + GROUP_KEY_PREFIX + (index + 1), 1);
+        }
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(createCriteria(rollupQuery)));
+        stages.add(context -> new Document("$group", new Document(FIELD_ID, groupKey)
+                .append(FIELD_COUNT, new Document("$sum", "$" + FIELD_COUNT))));
+        stages.add(context -> new Document("$sort", sort));
+        stages.add(Aggregation.limit(limit));
+
+        return mongoOperations.aggregate(Aggregation.newAggregation(stages), LogEventRollup.class, Document.class)
+                .getMappedResults().stream()
+                .map(result -> mapBucket(result, dimensions.size() + 1))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<AggregationBucket> histogram(Predicate predicate, RollupResolution resolution, Date from, Date to, Duration interval, int limit) {
+
+        // counters are filtered by the same fields as the log events, thus the filter is rendered against the log event mapping
+        Document filter = new SpringDataMongodbQuery<LoggingEvent>(mongoOperations, LoggingEvent.class)
+                .where(predicate)
+                .asDocument();
+        Document periodFilter = Criteria.where(FIELD_RESOLUTION).is(resolution.name())
+                .and(FIELD_PERIOD_START).gte(from).lt(to)
+                .getCriteriaObject();
+        Document match = filter.isEmpty()
+                ? periodFilter
+                : new Document("$and", List.of(periodFilter, filter));
+
+        // epoch-aligned bucket start: period start - (period start in millis % interval in millis)
+        Document offset = new Document("$mod", List.of(new Document("$toLong", "$" + FIELD_PERIOD_START), interval.toMillis()));
+        Document groupKey = new Document(GROUP_KEY_PREFIX + 0, new Document("$subtract", List.of("$" + FIELD_PERIOD_START, offset)));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                context -> new Document("$match", context.getMappedObject(match)),
+                context -> new Document("$group", new Document(FIELD_ID, groupKey)
+                        .append(FIELD_COUNT, new Document("$sum", "$" + FIELD_COUNT))),
+                context -> new Document("$sort", new Document(FIELD_ID + "." + GROUP_KEY_PREFIX + 0, 1)),
+                Aggregation.limit(limit));
+
+        return mongoOperations.aggregate(aggregation, LogEventRollup.class, Document.class)
+                .getMappedResults().stream()
+                .map(result -> mapBucket(result, 1))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Date> findEarliestPeriodStart(RollupResolution resolution) {
+
+        Query query = Query.query(Criteria.where(FIELD_RESOLUTION).is(resolution.name()))
+                .with(Sort.by(Sort.Direction.ASC, FIELD_PERIOD_START))
+                .limit(1);
+
+        return Optional.ofNullable(mongoOperations.findOne(query, LogEventRollup.class))
+                .map(LogEventRollup::periodStart);
+    }
+
+    @Override
+    public long count(LogEventRollupQuery rollupQuery) {
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(createCriteria(rollupQuery)),
+                context -> new Document("$group", new Document(FIELD_ID, null)
+                        .append(FIELD_COUNT, new Document("$sum", "$" + FIELD_COUNT))));
+
+        return mongoOperations.aggregate(aggregation, LogEventRollup.class, Document.class)
+                .getMappedResults().stream()
+                .findFirst()
+                .map(result -> ((Number) result.get(FIELD_COUNT)).longValue())
+                .orElse(0L);
+    }
+
+    private Query createKeyQuery(RollupKey rollupKey) {
+
+        return Query.query(Criteria.where(FIELD_RESOLUTION).is(rollupKey.resolution().name())
+                .and(FIELD_PERIOD_START).is(rollupKey.periodStart())
+                .and(FIELD_SOURCE).is(rollupKey.source())
+                .and(FIELD_LEVEL).is(rollupKey.level())
+                .and(FIELD_LOGGER_NAME).is(rollupKey.loggerName()));
+    }
+
+    private Update createUpdate(Date periodStart, Duration retention) {
+
+        Update update = new Update();
+        if (!retention.isZero()) {
+            update.setOnInsert(FIELD_EXPIRES_AT, new Date(periodStart.getTime() + retention.toMillis()));
+        }
+
+        return update;
+    }
+
+    private Criteria createCriteria(LogEventRollupQuery rollupQuery) {
+
+        Criteria criteria = Criteria.where(FIELD_RESOLUTION).is(rollupQuery.resolution().name())
+                .and(FIELD_PERIOD_START).gte(rollupQuery.from()).lt(rollupQuery.to());
+        if (!rollupQuery.sources().isEmpty()) {
+            criteria.and(FIELD_SOURCE).in(rollupQuery.sources());
+        }
+        if (!rollupQuery.levels().isEmpty()) {
+            criteria.and(FIELD_LEVEL).in(rollupQuery.levels());
+        }
+
+        return criteria;
+    }
+
+    private AggregationBucket mapBucket(Document result, int keyCount) {
+
+        Document groupKey = result.get(FIELD_ID, Document.class);
+        List<Object> key = new ArrayList<>(keyCount);
+        for (int index = 0; index < keyCount; index++) {
+            key.add(groupKey.get(GROUP_KEY_PREFIX + index));
+        }
+
+        return new AggregationBucket(key, ((Number) result.get(FIELD_COUNT)).longValue());
+    }
+}
@@ -0,0 +1,75 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import com.mongodb.ErrorCategory;
+import hu.psprog.leaflet.tlp.core.domain.StackTraceEntry;
+import hu.psprog.leaflet.tlp.core.persistence.dao.StackTraceDAO;
+import hu.psprog.leaflet.tlp.core.persistence.repository.StackTraceRepository;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link StackTraceDAO}.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class StackTraceDAOImpl implements StackTraceDAO {
+
+    private static final String FIELD_ID = "_id";
+
+    private final StackTraceRepository stackTraceRepository;
+    private final MongoOperations mongoOperations;
+
+    @Autowired
+    public StackTraceDAOImpl(StackTraceRepository stackTraceRepository, MongoOperations mongoOperations) {
+        this.stackTraceRepository = stackTraceRepository;
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public List<StackTraceEntry> findAllByFingerprints(Collection<String> fingerprints) {
+        return stackTraceRepository.findAllById(fingerprints);
+    }
+
+    @Override
+    public Set<String> findExistingFingerprints(Collection<String> fingerprints) {
+
+        Query query = Query.query(Criteria.where(FIELD_ID).in(fingerprints));
+        query.fields().include(FIELD_ID);
+
+        return mongoOperations.find(query, Document.class, mongoOperations.getCollectionName(StackTraceEntry.class)).stream()
+                .map(document -> document.getString(FIELD_ID))
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public void saveAll(List<StackTraceEntry> stackTraceEntries) {
+
+        if (stackTraceEntries.isEmpty()) {
+            return;
+        }
+
+        try {
+            mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, StackTraceEntry.class)
+                    .insert(stackTraceEntries)
+                    .execute();
+        } catch (BulkOperationException exception) {
+            boolean onlyDuplicates = exception.getErrors().stream()
+                    .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw exception;
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package hu.psprog.leaflet.tlp.core.persistence.repository;
+
+import hu.psprog.leaflet.tlp.core.domain.StackTraceEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link StackTraceEntry} Mongo repository interface.
+ *
+ * @author Peter Smith
+ */
+@Repository
+public interface StackTraceRepository extends MongoRepository<StackTraceEntry, String> {
+}
@@ -2,8 +2,30 @@ package hu.psprog.leaflet.tlp.core.service;
 
 import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
 import hu.psprog.leaflet.tlp.api.domain.LogRequest;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterQuery;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterResult;
+import hu.psprog.leaflet.tlp.core.domain.Issue;
+import hu.psprog.leaflet.tlp.core.domain.IssueQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregationResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventExport;
+import hu.psprog.leaflet.tlp.core.domain.LogEventHistogram;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupResult;
+import hu.psprog.leaflet.tlp.core.domain.LogStoreStatus;
 import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Log processing operations service interface.
  *
@@ -21,16 +43,122 @@ public interface LogProcessingService {
 
     /**
      * Returns a page of logs based on given TLQL query string.
+     * If a cursor is given, the page it points to is returned (using the filters and ordering of the query, but ignoring its offset),
+     * otherwise the page is selected by the offset of the query.
+     * The total number of matching events is determined according to the given {@link CountMode}.
      *
      * @param logRequest TLQL query string to be translated and used as a query for returning logs
-     * @return LogEventPage object containing a list of logs with paging information
+     * @param cursor optional opaque cursor returned by a previous query (null to use offset based paging)
+     * @param countMode {@link CountMode} to determine the total number of matching events with
+     * @param projection {@link LogEventProjection} specifying the fields to be returned (fields not requested are left empty)
+     * @return {@link LogEventQueryResult} object containing a list of logs with paging information, the cursors of the neighbouring pages,
+     * and the kind of the returned total count
+     * @throws hu.psprog.leaflet.tlp.core.exception.InvalidLogCursorException if the cursor is malformed, or cannot be used with the ordering of the query
+     */
+    LogEventQueryResult getLogs(String logRequest, String cursor, CountMode countMode, LogEventProjection projection);
+
+    /**
+     * Prepares the export of every log event matching the given TLQL query string (ignoring the limit and offset of the query).
+     * The query is compiled right away, but the events are only read when the returned {@link LogEventExport} is written.
+     *
+     * @param logRequest TLQL query string to be translated and used as a query for exporting logs
+     * @param projection {@link LogEventProjection} specifying the fields to be exported
+     * @return {@link LogEventExport} writing the matching log events as newline-delimited JSON
+     */
+    LogEventExport exportLogs(String logRequest, LogEventProjection projection);
+
+    /**
+     * Counts the log events matching the given TLQL query string, grouped by the dimensions of the given {@link LogEventAggregation}.
+     * The paging parameters and the ordering of the query are ignored.
+     *
+     * @param logRequest TLQL query string to be translated and used as the filter of the aggregation
+     * @param aggregation {@link LogEventAggregation} specifying the dimensions to group the matching events by
+     * @return {@link LogEventAggregationResult} containing the non-empty buckets of the matching events
+     */
+    LogEventAggregationResult aggregateLogs(String logRequest, LogEventAggregation aggregation);
+
+    /**
+     * Counts the log events matching the given TLQL query string over time, in automatically sized time buckets.
+     * The paging parameters and the ordering of the query are ignored.
+     *
+     * @param logRequest TLQL query string to be translated and used as the filter of the histogram
+     * @return {@link LogEventHistogram} containing every bucket of the time range of the query
+     */
+    LogEventHistogram getHistogram(String logRequest);
+
+    /**
+     * Answers the given count and rate query from the log event rollup counters, without reading the log events themselves.
+     *
+     * @param rollupQuery {@link LogEventRollupQuery} specifying the time range, resolution, dimensions and filters
+     * @return {@link LogEventRollupResult} containing the per-period counts and rates, and the totals of the time range
+     */
+    LogEventRollupResult getRollups(LogEventRollupQuery rollupQuery);
+
+    /**
+     * Returns the issues (groups of log events with the same normalized exception) seen within the time window of the given query.
+     *
+     * @param issueQuery {@link IssueQuery} specifying the time window, the source and the maximum number of issues
+     * @return list of matching {@link Issue} objects, the most frequent ones first
+     */
+    List<Issue> getIssues(IssueQuery issueQuery);
+
+    /**
+     * Returns the most frequent values of a log event attribute (logger, source or message template) within the recent sliding time window.
+     *
+     * @param heavyHitterQuery {@link HeavyHitterQuery} specifying the dimension, the window and the maximum number of values
+     * @return {@link HeavyHitterResult} containing the estimated counts of the most frequent values
      */
-    LogEventPage getLogs(String logRequest);
+    HeavyHitterResult getHeavyHitters(HeavyHitterQuery heavyHitterQuery);
+
+    /**
+     * Returns the status of an exact count started in the background by a query executed in {@link CountMode#DEFERRED} mode.
+     *
+     * @param countToken count token returned by the query
+     * @return status of the count as {@link DeferredCount}, or empty {@link Optional} if the token is unknown or already expired
+     */
+    Optional<DeferredCount> getDeferredCount(String countToken);
 
     /**
      * Stores given {@link LoggingEvent}.
+     * In asynchronous ingestion mode, the event is only queued for a later bulk write.
+     * If ingest rate limiting is enabled, the event may be dropped without being stored.
      *
      * @param loggingEvent {@link LoggingEvent} to store
+     * @return {@link LogStoreStatus} indicating whether the event has been written, only queued, or dropped
+     * @throws hu.psprog.leaflet.tlp.core.exception.IngestBufferFullException if asynchronous ingestion is enabled and the buffer is full
+     */
+    LogStoreStatus storeLog(LoggingEvent loggingEvent);
+
+    /**
+     * Stores a batch of {@link LoggingEvent}s read from the given payload.
+     * Items failing to be parsed or stored are reported individually, without affecting the rest of the batch.
+     * Items dropped by ingest rate limiting are only counted.
+     *
+     * @param payload batch payload as {@link InputStream}
+     * @param format format of the payload as {@link BatchPayloadFormat}
+     * @return {@link BatchIngestionResult} object containing the number of stored and dropped items and the list of failed items
+     * @throws IOException if the payload cannot be read or processed at all
+     */
+    BatchIngestionResult storeLogs(InputStream payload, BatchPayloadFormat format) throws IOException;
+
+    /**
+     * Stores an already parsed batch of {@link LoggingEvent}s.
+     * Items failing to be stored are reported individually, without affecting the rest of the batch.
+     * Items dropped by ingest rate limiting are only counted.
+     *
+     * @param loggingEvents list of {@link LoggingEvent} objects to store
+     * @return {@link BatchIngestionResult} object containing the number of stored and dropped items and the list of failed items
+     */
+    BatchIngestionResult storeLogs(List<LoggingEvent> loggingEvents);
+
+    /**
+     * Stores a batch of log events read from the given payload, transcoding them directly into their stored document format.
+     * Works the same way as {@link #storeLogs(InputStream, BatchPayloadFormat)}, but skips building {@link LoggingEvent} objects.
+     *
+     * @param payload batch payload as {@link InputStream}
+     * @param format format of the payload as {@link BatchPayloadFormat}
+     * @return {@link BatchIngestionResult} object containing the number of stored and dropped items and the list of failed items
+     * @throws IOException if the payload cannot be read or processed at all
      */
-    void storeLog(LoggingEvent loggingEvent);
+    BatchIngestionResult storeLogsDirectly(InputStream payload, BatchPayloadFormat format) throws IOException;
 }
@@ -0,0 +1,64 @@
+package hu.psprog.leaflet.tlp.core.service.aggregation;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.AggregationProperties;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregationResult;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Counts the log events matching a query, grouped by the requested dimensions (see {@link LogEventAggregation}).
+ * The filter expression of the query becomes the $match stage of a single aggregation pipeline, so only the bucketed
+ * counts leave the database. Paging parameters and the ordering of the query are ignored.
+ *
+ * At most the configured number of buckets are returned (see {@link AggregationProperties}), the result is marked
+ * as truncated if there would be more.
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class LogEventAggregator {
+
+    private final LogEventDAO logEventDAO;
+    private final int maxBuckets;
+
+    @Autowired
+    public LogEventAggregator(LogEventDAO logEventDAO, AggregationProperties aggregationProperties) {
+        this.logEventDAO = logEventDAO;
+        this.maxBuckets = aggregationProperties.getMaxBuckets();
+    }
+
+    /**
+     * Aggregates the log events matching the given {@link QueryPlan}.
+     *
+     * @param queryPlan {@link QueryPlan} of the query selecting the events to be aggregated
+     * @param aggregation {@link LogEventAggregation} specifying the dimensions to group the events by
+     * @return {@link LogEventAggregationResult} containing the buckets of the matching events
+     */
+    public LogEventAggregationResult aggregate(QueryPlan queryPlan, LogEventAggregation aggregation) {
+
+        // one extra bucket is retrieved to determine whether the result is truncated
+        Optional<Predicate> expression = queryPlan.expression();
+        List<AggregationBucket> buckets = expression.isPresent()
+                ? logEventDAO.aggregate(expression.get(), aggregation, maxBuckets + 1)
+                : logEventDAO.aggregate(aggregation, maxBuckets + 1);
+        boolean truncated = buckets.size() > maxBuckets;
+
+        return LogEventAggregationResult.getBuilder()
+                .withDimensions(aggregation.getDimensionNames())
+                .withBuckets(truncated
+                        ? buckets.subList(0, maxBuckets)
+                        : buckets)
+                .withTruncated(truncated)
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package hu.psprog.leaflet.tlp.core.service.cache;
+
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventStorageHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Monotonic ingest sequence, advanced every time log events are written by this instance.
+ * Besides the global sequence, the last sequence value of each source is tracked as well, so the readers can tell whether
+ * any events of the sources they are interested in have been written since they last looked.
+ *
+ * The watermark is advanced only after the events have been written, so a reader capturing the watermark before executing
+ * a query can always detect the events it might have missed.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class IngestWatermark implements LoggingEventStorageHandler {
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> sourceSequences = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterStore(List<LoggingEvent> loggingEvents) {
+        advance(loggingEvents.stream()
+                .map(LoggingEvent::getSource)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Advances the watermark for the given sources. Does nothing if the source collection is empty.
+     *
+     * @param sources sources of the written log events (null values are counted towards the global sequence only)
+     */
+    public void advance(Collection<String> sources) {
+
+        if (sources.isEmpty()) {
+            return;
+        }
+
+        long value = sequence.incrementAndGet();
+        sources.stream()
+                .filter(Objects::nonNull)
+                .map(source -> source.toLowerCase(Locale.ROOT))
+                .distinct()
+                .forEach(source -> sourceSequences.merge(source, value, Math::max));
+    }
+
+    /**
+     * Returns the current watermark of the given sources.
+     *
+     * @param sources (lower-cased) sources to return the watermark of, or empty set to return the global watermark
+     * @return the highest sequence value of the given sources, or the global sequence value if no source is specified
+     */
+    public long current(Set<String> sources) {
+
+        if (sources.isEmpty()) {
+            return sequence.get();
+        }
+
+        return sources.stream()
+                .mapToLong(source -> sourceSequences.getOrDefault(source, 0L))
+                .max()
+                .orElse(0L);
+    }
+}
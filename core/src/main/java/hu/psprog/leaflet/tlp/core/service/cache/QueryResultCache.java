@@ -0,0 +1,270 @@
+package hu.psprog.leaflet.tlp.core.service.cache;
+
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.api.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.api.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.config.QueryResultCacheProperties;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryScope;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Memory-bounded LRU cache of log query results, keyed by the compiled query plan, the requested page cursor and count mode.
+ * Dashboards polling the same queries are served from memory as long as no new events could have changed their results.
+ *
+ * Results of queries whose time range ended earlier than the configured settle time are considered immutable, and are
+ * kept until evicted. Results of open-ended queries are validated against the {@link IngestWatermark} of the sources the
+ * query is restricted to (or against the global watermark if the query is not restricted to specific sources), so any write
+ * of a matching source invalidates them, regardless of the timestamps of the written events. As the watermark only tracks
+ * the events written by this instance, these results also expire after the configured time-to-live.
+ * Results carrying a background count token (deferred count mode) are never cached.
+ *
+ * The size of the cache is bounded by the estimated memory footprint of the cached results. Hit, miss, invalidation and
+ * eviction counters, as well as the size, weight and hit ratio of the cache are exposed as Micrometer metrics (tlp.query.result-cache.*).
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class QueryResultCache implements MeterBinder {
+
+    private static final String METER_PREFIX = "tlp.query.result-cache";
+    private static final String TAG_RESULT = "result";
+    private static final long ENTRY_OVERHEAD = 256;
+    private static final long EVENT_OVERHEAD = 128;
+    private static final long EXCEPTION_OVERHEAD = 64;
+    private static final long STRING_OVERHEAD = 40;
+
+    private final QueryScopeExtractor queryScopeExtractor;
+    private final IngestWatermark ingestWatermark;
+    private final Clock clock;
+    private final boolean enabled;
+    private final long maxWeight;
+    private final Duration settleTime;
+    private final Duration openRangeTimeToLive;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final Map<ResultKey, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    @Autowired
+    public QueryResultCache(QueryScopeExtractor queryScopeExtractor, IngestWatermark ingestWatermark,
+                            QueryResultCacheProperties queryResultCacheProperties) {
+        this(queryScopeExtractor, ingestWatermark, queryResultCacheProperties, Clock.systemUTC());
+    }
+
+    QueryResultCache(QueryScopeExtractor queryScopeExtractor, IngestWatermark ingestWatermark,
+                     QueryResultCacheProperties queryResultCacheProperties, Clock clock) {
+        this.queryScopeExtractor = queryScopeExtractor;
+        this.ingestWatermark = ingestWatermark;
+        this.clock = clock;
+        this.enabled = queryResultCacheProperties.isEnabled();
+        this.maxWeight = queryResultCacheProperties.getMaxSize().toBytes();
+        this.settleTime = queryResultCacheProperties.getSettleTime();
+        this.openRangeTimeToLive = queryResultCacheProperties.getOpenRangeTimeToLive();
+    }
+
+    /**
+     * Returns the cached result of the given query, or executes the query if there is no valid cached result.
+     *
+     * @param queryPlan compiled {@link QueryPlan} of the query
+     * @param cursor requested page cursor (or null for the first page)
+     * @param countMode requested {@link CountMode}
+     * @param query executes the query if its result is not cached
+     * @return result of the query as {@link LogEventQueryResult}
+     */
+    public LogEventQueryResult get(QueryPlan queryPlan, String cursor, CountMode countMode, Supplier<LogEventQueryResult> query) {
+
+        if (!enabled || countMode == CountMode.DEFERRED) {
+            return query.get();
+        }
+
+        ResultKey key = new ResultKey(queryPlan, cursor, countMode);
+        Instant now = clock.instant();
+        synchronized (results) {
+            CachedResult cachedResult = results.get(key);
+            if (Objects.nonNull(cachedResult)) {
+                if (isValid(cachedResult, now)) {
+                    hits.increment();
+                    return cachedResult.result();
+                }
+                remove(key);
+                invalidations.increment();
+            }
+        }
+
+        // the watermark is captured before executing the query, so events written meanwhile invalidate the result
+        misses.increment();
+        QueryScope queryScope = queryScopeExtractor.extract(queryPlan);
+        boolean immutable = queryScope.until()
+                .map(until -> until.toInstant().isBefore(now.minus(settleTime)))
+                .orElse(false);
+        long watermark = ingestWatermark.current(queryScope.sources());
+        LogEventQueryResult result = query.get();
+
+        long resultWeight = estimateWeight(result);
+        if (resultWeight <= maxWeight) {
+            put(key, new CachedResult(result, queryScope.sources(), immutable, watermark, now, resultWeight));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the current number of cached results.
+     *
+     * @return number of cached results
+     */
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    /**
+     * Returns the estimated memory footprint of the cached results in bytes.
+     *
+     * @return estimated weight of the cached results
+     */
+    public long weight() {
+        synchronized (results) {
+            return weight;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        FunctionCounter.builder(METER_PREFIX + ".requests", hits, LongAdder::sum)
+                .tag(TAG_RESULT, "hit")
+                .description("Number of queries served from the result cache")
+                .register(registry);
+        FunctionCounter.builder(METER_PREFIX + ".requests", misses, LongAdder::sum)
+                .tag(TAG_RESULT, "miss")
+                .description("Number of queries executed against the database")
+                .register(registry);
+        FunctionCounter.builder(METER_PREFIX + ".invalidations", invalidations, LongAdder::sum)
+                .description("Number of cached results dropped because of new events or expiry")
+                .register(registry);
+        FunctionCounter.builder(METER_PREFIX + ".evictions", evictions, LongAdder::sum)
+                .description("Number of results dropped from the cache as least recently used")
+                .register(registry);
+        Gauge.builder(METER_PREFIX + ".size", this, QueryResultCache::size)
+                .description("Number of results currently held by the cache")
+                .register(registry);
+        Gauge.builder(METER_PREFIX + ".weight", this, QueryResultCache::weight)
+                .description("Estimated memory footprint of the cached results")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(METER_PREFIX + ".hit-ratio", this, QueryResultCache::hitRatio)
+                .description("Ratio of queries served from the result cache")
+                .register(registry);
+    }
+
+    private boolean isValid(CachedResult cachedResult, Instant now) {
+
+        return cachedResult.immutable()
+                || (ingestWatermark.current(cachedResult.sources()) == cachedResult.watermark()
+                    && now.isBefore(cachedResult.cachedAt().plus(openRangeTimeToLive)));
+    }
+
+    private void put(ResultKey key, CachedResult cachedResult) {
+
+        synchronized (results) {
+            remove(key);
+            results.put(key, cachedResult);
+            weight += cachedResult.weight();
+
+            Iterator<CachedResult> iterator = results.values().iterator();
+            while (weight > maxWeight && iterator.hasNext()) {
+                weight -= iterator.next().weight();
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void remove(ResultKey key) {
+
+        CachedResult removed = results.remove(key);
+        if (Objects.nonNull(removed)) {
+            weight -= removed.weight();
+        }
+    }
+
+    private double hitRatio() {
+
+        long hitCount = hits.sum();
+        long requestCount = hitCount + misses.sum();
+
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    private long estimateWeight(LogEventQueryResult result) {
+
+        // source, level, logger and thread names are interned, so only the per-event contents are counted
+        long resultWeight = ENTRY_OVERHEAD + estimateWeight(result.nextCursor()) + estimateWeight(result.previousCursor());
+        List<LoggingEvent> loggingEvents = Optional.ofNullable(result.page())
+                .map(LogEventPage::entitiesOnPage)
+                .orElseGet(List::of);
+        for (LoggingEvent loggingEvent : loggingEvents) {
+            resultWeight += EVENT_OVERHEAD + estimateWeight(loggingEvent.content()) + estimateWeight(loggingEvent.exception());
+            if (Objects.nonNull(loggingEvent.context())) {
+                resultWeight += loggingEvent.context().entrySet().stream()
+                        .mapToLong(entry -> estimateWeight(entry.getKey()) + estimateWeight(entry.getValue()))
+                        .sum();
+            }
+        }
+
+        return resultWeight;
+    }
+
+    private long estimateWeight(ThrowableProxyLogItem exception) {
+
+        if (Objects.isNull(exception)) {
+            return 0;
+        }
+
+        long exceptionWeight = EXCEPTION_OVERHEAD + estimateWeight(exception.message()) + estimateWeight(exception.stackTrace())
+                + estimateWeight(exception.cause());
+        if (Objects.nonNull(exception.suppressed())) {
+            exceptionWeight += exception.suppressed().stream()
+                    .mapToLong(this::estimateWeight)
+                    .sum();
+        }
+
+        return exceptionWeight;
+    }
+
+    private long estimateWeight(String value) {
+        return Objects.isNull(value) ? 0 : STRING_OVERHEAD + value.length();
+    }
+
+    private record ResultKey(QueryPlan queryPlan, String cursor, CountMode countMode) { }
+
+    private record CachedResult(LogEventQueryResult result, Set<String> sources, boolean immutable, long watermark,
+                                Instant cachedAt, long weight) { }
+}
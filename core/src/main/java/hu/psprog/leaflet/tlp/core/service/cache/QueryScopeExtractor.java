@@ -0,0 +1,128 @@
+package hu.psprog.leaflet.tlp.core.service.cache;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryScope;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Extracts the {@link QueryScope} of a {@link QueryPlan}.
+ * Only the conditions joined by AND on the top level of the filter expression are considered, as those restrict every
+ * matching event. Conditions under an OR or a NOT operation are ignored, which can only widen the extracted scope.
+ * Source restrictions are taken from equality and EITHER conditions on the source field, the bounds of the time range
+ * are taken from the comparison and equality conditions on the timestamp field.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class QueryScopeExtractor {
+
+    private static final String SOURCE_FIELD = "source";
+    private static final String TIMESTAMP_FIELD = "timeStamp";
+    private static final Set<Operator> SOURCE_OPERATORS = Set.of(Ops.EQ, Ops.EQ_IGNORE_CASE, Ops.IN);
+    private static final Set<Operator> LOWER_BOUND_OPERATORS = Set.of(Ops.GT, Ops.GOE, Ops.EQ);
+    private static final Set<Operator> UPPER_BOUND_OPERATORS = Set.of(Ops.LT, Ops.LOE, Ops.EQ);
+
+    /**
+     * Extracts the {@link QueryScope} of the given {@link QueryPlan}.
+     *
+     * @param queryPlan {@link QueryPlan} to extract the scope of
+     * @return extracted {@link QueryScope}
+     */
+    public QueryScope extract(QueryPlan queryPlan) {
+
+        List<Operation<?>> conditions = queryPlan.expression()
+                .map(this::collectConditions)
+                .orElseGet(Collections::emptyList);
+
+        Set<String> sources = conditions.stream()
+                .filter(condition -> isCondition(condition, SOURCE_FIELD, SOURCE_OPERATORS))
+                .map(this::extractSources)
+                .filter(values -> !values.isEmpty())
+                .findFirst()
+                .orElseGet(Collections::emptySet);
+        Optional<Date> since = extractTimeBounds(conditions, LOWER_BOUND_OPERATORS).max(Date::compareTo);
+        Optional<Date> until = extractTimeBounds(conditions, UPPER_BOUND_OPERATORS).min(Date::compareTo);
+
+        return new QueryScope(sources, since, until);
+    }
+
+    private List<Operation<?>> collectConditions(Expression<?> expression) {
+
+        if (expression instanceof BooleanBuilder booleanBuilder) {
+            return Objects.nonNull(booleanBuilder.getValue())
+                    ? collectConditions(booleanBuilder.getValue())
+                    : Collections.emptyList();
+        }
+
+        if (expression instanceof Operation<?> operation) {
+            return operation.getOperator() == Ops.AND
+                    ? operation.getArgs().stream()
+                        .flatMap(argument -> collectConditions(argument).stream())
+                        .collect(Collectors.toList())
+                    : List.of(operation);
+        }
+
+        return Collections.emptyList();
+    }
+
+    private boolean isCondition(Operation<?> condition, String field, Set<Operator> operators) {
+
+        return operators.contains(condition.getOperator())
+                && condition.getArgs().size() == 2
+                && condition.getArg(0) instanceof Path<?> path
+                && !path.getMetadata().isRoot()
+                && path.getMetadata().getParent().getMetadata().isRoot()
+                && field.equals(path.getMetadata().getName());
+    }
+
+    private Object getConstant(Operation<?> condition) {
+
+        return condition.getArg(1) instanceof Constant<?> constant
+                ? constant.getConstant()
+                : null;
+    }
+
+    private Stream<Date> extractTimeBounds(List<Operation<?>> conditions, Set<Operator> operators) {
+
+        return conditions.stream()
+                .filter(condition -> isCondition(condition, TIMESTAMP_FIELD, operators))
+                .map(this::getConstant)
+                .filter(value -> value instanceof Date)
+                .map(Date.class::cast);
+    }
+
+    private Set<String> extractSources(Operation<?> condition) {
+
+        Object value = getConstant(condition);
+        Collection<?> values = value instanceof Collection<?> collection
+                ? collection
+                : Collections.singleton(value);
+
+        // a condition with a non-string value (e.g. a null check) does not restrict the sources
+        if (values.isEmpty() || !values.stream().allMatch(item -> item instanceof String)) {
+            return Collections.emptySet();
+        }
+
+        return values.stream()
+                .map(item -> ((String) item).toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
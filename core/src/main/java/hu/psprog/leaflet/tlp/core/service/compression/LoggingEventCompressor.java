@@ -0,0 +1,172 @@
+package hu.psprog.leaflet.tlp.core.service.compression;
+
+import hu.psprog.leaflet.tlp.core.config.CompressionProperties;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventStorageHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses large log message contents and stack traces with deflate before storing them, and decompresses them on read.
+ * Compressed values are stored in dedicated binary fields (compressedContent and compressedStackTrace).
+ * For log events with compressed content, the content field keeps an uncompressed, truncated search-only shadow
+ * of the message, so message searches keep working on the beginning of the message. Substrings starting beyond the shadow
+ * cannot be matched by message searches, as the compressed content cannot be searched by the database.
+ * Decompression is done on demand, so only the log events actually returned are decompressed.
+ *
+ * Runs after stack trace deduplication, so deduplicated exception trees are stored uncompressed in the stack trace store.
+ * When enabled, the search shadow must be non-empty and shorter than the compression threshold, otherwise startup fails.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Order(200)
+public class LoggingEventCompressor implements LoggingEventStorageHandler {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int searchShadowLength;
+
+    @Autowired
+    public LoggingEventCompressor(CompressionProperties compressionProperties) {
+        this.enabled = compressionProperties.isEnabled();
+        this.threshold = compressionProperties.getThreshold();
+        this.searchShadowLength = compressionProperties.getSearchShadowLength();
+        if (enabled) {
+            validateSearchShadowLength();
+        }
+    }
+
+    @Override
+    public void beforeStore(List<LoggingEvent> loggingEvents) {
+
+        if (enabled) {
+            loggingEvents.forEach(this::compress);
+        }
+    }
+
+    /**
+     * Returns the full log message content of the given {@link LoggingEvent}, decompressing it if needed.
+     *
+     * @param loggingEvent {@link LoggingEvent} to return content of
+     * @return full log message content
+     */
+    public String getContent(LoggingEvent loggingEvent) {
+
+        return Objects.nonNull(loggingEvent.getCompressedContent())
+                ? inflate(loggingEvent.getCompressedContent())
+                : loggingEvent.getContent();
+    }
+
+    /**
+     * Returns the full stack trace of the given {@link ThrowableProxyLogItem}, decompressing it if needed.
+     *
+     * @param throwableProxyLogItem {@link ThrowableProxyLogItem} to return stack trace of
+     * @return full stack trace
+     */
+    public String getStackTrace(ThrowableProxyLogItem throwableProxyLogItem) {
+
+        return Objects.nonNull(throwableProxyLogItem.getCompressedStackTrace())
+                ? inflate(throwableProxyLogItem.getCompressedStackTrace())
+                : throwableProxyLogItem.getStackTrace();
+    }
+
+    private void compress(LoggingEvent loggingEvent) {
+
+        String content = loggingEvent.getContent();
+        if (Objects.nonNull(content) && content.length() > threshold) {
+            loggingEvent.setCompressedContent(deflate(content));
+            loggingEvent.setContent(createSearchShadow(content));
+        }
+
+        compress(loggingEvent.getException());
+    }
+
+    private void compress(ThrowableProxyLogItem throwableProxyLogItem) {
+
+        if (Objects.isNull(throwableProxyLogItem)) {
+            return;
+        }
+
+        String stackTrace = throwableProxyLogItem.getStackTrace();
+        if (Objects.nonNull(stackTrace) && stackTrace.length() > threshold) {
+            throwableProxyLogItem.setCompressedStackTrace(deflate(stackTrace));
+            throwableProxyLogItem.setStackTrace(null);
+        }
+
+        compress(throwableProxyLogItem.getCause());
+        if (Objects.nonNull(throwableProxyLogItem.getSuppressed())) {
+            throwableProxyLogItem.getSuppressed().forEach(this::compress);
+        }
+    }
+
+    private void validateSearchShadowLength() {
+
+        if (searchShadowLength <= 0 || searchShadowLength >= threshold) {
+            throw new IllegalStateException(String.format("Search shadow length [%d] must be positive and shorter than the compression threshold [%d]",
+                    searchShadowLength, threshold));
+        }
+    }
+
+    private String createSearchShadow(String content) {
+
+        int shadowLength = Math.min(searchShadowLength, content.length());
+        if (shadowLength > 0 && Character.isHighSurrogate(content.charAt(shadowLength - 1))) {
+            shadowLength--;
+        }
+
+        return content.substring(0, shadowLength);
+    }
+
+    private byte[] deflate(String value) {
+
+        byte[] input = value.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(input.length / 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private String inflate(byte[] compressed) {
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int inflatedLength = inflater.inflate(buffer);
+                if (inflatedLength == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Compressed field is truncated or corrupted");
+                }
+                outputStream.write(buffer, 0, inflatedLength);
+            }
+            return outputStream.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException exception) {
+            throw new IllegalStateException("Compressed field cannot be decompressed", exception);
+        } finally {
+            inflater.end();
+        }
+    }
+}
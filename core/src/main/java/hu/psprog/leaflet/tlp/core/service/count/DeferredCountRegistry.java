@@ -0,0 +1,139 @@
+package hu.psprog.leaflet.tlp.core.service.count;
+
+import hu.psprog.leaflet.tlp.core.config.QueryCountProperties;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs exact log event counts in the background, and keeps their results available by a count token.
+ *
+ * Counts are calculated by a fixed number of own daemon threads. The number of registered counts is bounded,
+ * results are dropped after the configured time-to-live (expired entries are cleaned up on registering a new count).
+ *
+ * @author Peter Smith
+ */
+@Component
+public class DeferredCountRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeferredCountRegistry.class);
+    private static final String WORKER_THREAD_NAME_PREFIX = "tlp-deferred-count-";
+    private static final DeferredCount PENDING = DeferredCount.getBuilder()
+            .withStatus(DeferredCount.Status.PENDING)
+            .build();
+    private static final DeferredCount FAILED = DeferredCount.getBuilder()
+            .withStatus(DeferredCount.Status.FAILED)
+            .build();
+
+    private final QueryCountProperties queryCountProperties;
+    private final LongSupplier clock;
+    private final Map<String, Entry> counts = new ConcurrentHashMap<>();
+
+    private ExecutorService countExecutor;
+
+    @Autowired
+    public DeferredCountRegistry(QueryCountProperties queryCountProperties) {
+        this(queryCountProperties, System::currentTimeMillis);
+    }
+
+    DeferredCountRegistry(QueryCountProperties queryCountProperties, LongSupplier clock) {
+        this.queryCountProperties = queryCountProperties;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts the count worker threads.
+     */
+    @PostConstruct
+    public void start() {
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        countExecutor = Executors.newFixedThreadPool(queryCountProperties.getDeferredCountThreads(), runnable -> {
+            Thread thread = new Thread(runnable, WORKER_THREAD_NAME_PREFIX + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stops the count worker threads, abandoning the running counts.
+     */
+    @PreDestroy
+    public void shutdown() {
+        countExecutor.shutdownNow();
+    }
+
+    /**
+     * Starts the given count in the background.
+     *
+     * @param countTask task returning the exact number of matching events
+     * @return token of the count, or empty {@link Optional} if the registry is full
+     */
+    public Optional<String> submit(Supplier<Long> countTask) {
+
+        long now = clock.getAsLong();
+        counts.values().removeIf(entry -> entry.expiresAt() <= now);
+        if (counts.size() >= queryCountProperties.getMaxDeferredCounts()) {
+            LOGGER.warn("Deferred count limit reached, skipping background count");
+            return Optional.empty();
+        }
+
+        try {
+            String token = UUID.randomUUID().toString();
+            counts.put(token, new Entry(CompletableFuture.supplyAsync(countTask, countExecutor),
+                    now + queryCountProperties.getDeferredCountTimeToLive().toMillis()));
+            return Optional.of(token);
+        } catch (RejectedExecutionException exception) {
+            LOGGER.warn("Failed to start background count", exception);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the status of the count registered by the given token.
+     *
+     * @param token count token returned by {@link #submit(Supplier)}
+     * @return status of the count as {@link DeferredCount}, or empty {@link Optional} if the token is unknown or already expired
+     */
+    public Optional<DeferredCount> get(String token) {
+
+        return Optional.ofNullable(counts.get(token))
+                .filter(entry -> entry.expiresAt() > clock.getAsLong())
+                .map(Entry::countFuture)
+                .map(this::mapStatus);
+    }
+
+    private DeferredCount mapStatus(CompletableFuture<Long> countFuture) {
+
+        if (!countFuture.isDone()) {
+            return PENDING;
+        }
+
+        if (countFuture.isCompletedExceptionally()) {
+            return FAILED;
+        }
+
+        return DeferredCount.getBuilder()
+                .withStatus(DeferredCount.Status.COMPLETED)
+                .withCount(countFuture.join())
+                .build();
+    }
+
+    private record Entry(CompletableFuture<Long> countFuture, long expiresAt) { }
+}
@@ -0,0 +1,72 @@
+package hu.psprog.leaflet.tlp.core.service.count;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryCountProperties;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Determines the total number of log events matching a query, according to the requested {@link CountMode}.
+ * Lower bound counts are returned as zero, the actual lower bound is derived from the retrieved page by the caller.
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TotalCountResolver {
+
+    private final LogEventDAO logEventDAO;
+    private final DeferredCountRegistry deferredCountRegistry;
+    private final QueryCountProperties queryCountProperties;
+
+    @Autowired
+    public TotalCountResolver(LogEventDAO logEventDAO, DeferredCountRegistry deferredCountRegistry, QueryCountProperties queryCountProperties) {
+        this.logEventDAO = logEventDAO;
+        this.deferredCountRegistry = deferredCountRegistry;
+        this.queryCountProperties = queryCountProperties;
+    }
+
+    /**
+     * Determines the total number of log events matching the given filter expression.
+     *
+     * @param expression optional filter expression of the query
+     * @param countMode requested {@link CountMode}
+     * @return determined {@link TotalCount}
+     */
+    public TotalCount resolve(Optional<Predicate> expression, CountMode countMode) {
+
+        return switch (countMode) {
+            case EXACT -> TotalCount.exact(count(expression));
+            case NONE -> TotalCount.atLeast(0, null);
+            case ESTIMATED -> estimate(expression);
+            case DEFERRED -> TotalCount.atLeast(0, deferredCountRegistry.submit(() -> count(expression)).orElse(null));
+        };
+    }
+
+    private TotalCount estimate(Optional<Predicate> expression) {
+
+        if (expression.isEmpty()) {
+            return TotalCount.estimated(logEventDAO.estimatedCount());
+        }
+
+        long cap = queryCountProperties.getCap();
+        long cappedCount = logEventDAO.countUpTo(expression.get(), cap + 1);
+
+        return cappedCount > cap
+                ? TotalCount.atLeast(cap, null)
+                : TotalCount.exact(cappedCount);
+    }
+
+    private long count(Optional<Predicate> expression) {
+
+        return expression.isPresent()
+                ? logEventDAO.count(expression.get())
+                : logEventDAO.count();
+    }
+}
@@ -0,0 +1,118 @@
+package hu.psprog.leaflet.tlp.core.service.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.ExportProperties;
+import hu.psprog.leaflet.tlp.core.conversion.LoggingEventEntityToDomainConverter;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Writes every log event matching a query to an output stream as newline-delimited JSON.
+ * Events are read via a server-side database cursor, and are converted and written in batches of configured size
+ * (see {@link ExportProperties}), so the memory used by an export does not depend on the number of exported events.
+ * The output is flushed after every batch, hence a disconnected client is detected (and the cursor is released)
+ * by the time the next batch is written.
+ *
+ * Paging parameters (limit and offset) of the query are ignored, but its ordering is kept.
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class LogEventExporter {
+
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final LogEventDAO logEventDAO;
+    private final LoggingEventEntityToDomainConverter loggingEventEntityToDomainConverter;
+    private final ObjectMapper objectMapper;
+    private final ExportProperties exportProperties;
+
+    @Autowired
+    public LogEventExporter(LogEventDAO logEventDAO, LoggingEventEntityToDomainConverter loggingEventEntityToDomainConverter,
+                            ObjectMapper objectMapper, ExportProperties exportProperties) {
+        this.logEventDAO = logEventDAO;
+        this.loggingEventEntityToDomainConverter = loggingEventEntityToDomainConverter;
+        this.objectMapper = objectMapper;
+        this.exportProperties = exportProperties;
+    }
+
+    /**
+     * Writes the log events matching the given {@link QueryPlan} to the given {@link OutputStream}.
+     * The output stream is not closed.
+     *
+     * @param queryPlan {@link QueryPlan} of the query to be exported
+     * @param outputStream {@link OutputStream} to write the log events to
+     * @return number of written log events
+     * @throws IOException if the log events cannot be written
+     */
+    public long export(QueryPlan queryPlan, OutputStream outputStream) throws IOException {
+
+        int batchSize = exportProperties.getBatchSize();
+        ObjectWriter objectWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        List<LoggingEvent> batch = new ArrayList<>(batchSize);
+        long exported = 0;
+
+        try (Stream<LoggingEvent> loggingEvents = openStream(queryPlan, batchSize);
+             JsonGenerator generator = createGenerator(outputStream)) {
+
+            Iterator<LoggingEvent> iterator = loggingEvents.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize || !iterator.hasNext()) {
+                    writeBatch(objectWriter, generator, batch);
+                    exported += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+
+        return exported;
+    }
+
+    private Stream<LoggingEvent> openStream(QueryPlan queryPlan, int batchSize) {
+
+        Optional<Predicate> expression = queryPlan.expression();
+        Sort sort = queryPlan.pageable().getSort();
+
+        return expression.isPresent()
+                ? logEventDAO.stream(expression.get(), sort, queryPlan.projection(), batchSize)
+                : logEventDAO.stream(sort, queryPlan.projection(), batchSize);
+    }
+
+    private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        return generator;
+    }
+
+    private void writeBatch(ObjectWriter objectWriter, JsonGenerator generator, List<LoggingEvent> batch) throws IOException {
+
+        for (hu.psprog.leaflet.tlp.api.domain.LoggingEvent loggingEvent : loggingEventEntityToDomainConverter.convertAll(batch)) {
+            objectWriter.writeValue(generator, loggingEvent);
+            generator.writeRaw(LINE_SEPARATOR);
+        }
+        generator.flush();
+    }
+}
@@ -0,0 +1,97 @@
+package hu.psprog.leaflet.tlp.core.service.guard;
+
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.exception.QueryRejectedException;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import hu.psprog.leaflet.tlp.core.service.cache.QueryScopeExtractor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Protects the database from log queries that would take disproportionate resources.
+ *
+ * When enabled, queries without a lower time bound are explained before their execution, and rejected if the database
+ * would execute them by scanning the whole collection, while the collection holds more events than the configured limit.
+ * Queries with a lower time bound are always let through, as new events are appended to the end of the time range.
+ * Queries exceeding their execution time limit (maxTimeMS, applied by {@link LogEventDAO}) are rejected as well.
+ * Every rejection is reported as {@link QueryRejectedException} describing the limit the query has hit.
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class QueryCostGuard {
+
+    private static final String STAGE_COLLECTION_SCAN = "COLLSCAN";
+
+    private final LogEventDAO logEventDAO;
+    private final QueryScopeExtractor queryScopeExtractor;
+    private final boolean rejectCollectionScans;
+    private final long maxCollectionScanDocuments;
+    private final Duration maxTime;
+
+    @Autowired
+    public QueryCostGuard(LogEventDAO logEventDAO, QueryScopeExtractor queryScopeExtractor, QueryGuardProperties queryGuardProperties) {
+        this.logEventDAO = logEventDAO;
+        this.queryScopeExtractor = queryScopeExtractor;
+        this.rejectCollectionScans = queryGuardProperties.isRejectCollectionScans();
+        this.maxCollectionScanDocuments = queryGuardProperties.getMaxCollectionScanDocuments();
+        this.maxTime = queryGuardProperties.getMaxTime();
+    }
+
+    /**
+     * Checks the given query plan, rejecting it if it would scan the whole collection without a lower time bound
+     * (if collection scan rejection is enabled).
+     *
+     * @param queryPlan {@link QueryPlan} to be checked
+     * @throws QueryRejectedException if the query is rejected
+     */
+    public void check(QueryPlan queryPlan) {
+
+        if (!rejectCollectionScans || queryScopeExtractor.extract(queryPlan).since().isPresent()) {
+            return;
+        }
+
+        long documents = logEventDAO.estimatedCount();
+        if (documents <= maxCollectionScanDocuments) {
+            return;
+        }
+
+        Sort sort = queryPlan.pageable().getSort();
+        Set<String> stages = queryPlan.expression()
+                .map(expression -> logEventDAO.explainStages(expression, sort))
+                .orElseGet(() -> logEventDAO.explainStages(sort));
+        if (stages.contains(STAGE_COLLECTION_SCAN)) {
+            throw QueryRejectedException.collectionScan(documents, maxCollectionScanDocuments);
+        }
+    }
+
+    /**
+     * Checks the given query plan (see {@link #check(QueryPlan)}), then executes the query.
+     *
+     * @param queryPlan {@link QueryPlan} of the query
+     * @param query executes the query
+     * @param <T> type of the query result
+     * @return result of the query
+     * @throws QueryRejectedException if the query is rejected, or it exceeds its execution time limit
+     */
+    public <T> T execute(QueryPlan queryPlan, Supplier<T> query) {
+
+        check(queryPlan);
+        try {
+            return query.get();
+        } catch (RuntimeException exception) {
+            if (QueryRejectedException.isExecutionTimeout(exception)) {
+                throw QueryRejectedException.executionTimeout(maxTime, exception);
+            }
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package hu.psprog.leaflet.tlp.core.service.heavyhitter;
+
+import hu.psprog.leaflet.tlp.core.config.HeavyHitterProperties;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitter;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterDimension;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterQuery;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterResult;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterSnapshot;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.SketchCounter;
+import hu.psprog.leaflet.tlp.core.persistence.dao.HeavyHitterSnapshotDAO;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventStorageHandler;
+import hu.psprog.leaflet.tlp.core.service.template.MessageTemplateNormalizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Tracks the most frequent loggers, sources and message templates of the stored log events within a sliding time window,
+ * so "which loggers are the noisiest right now" can be answered from memory, without grouping the log events in the database.
+ *
+ * The window consists of a fixed number of time slots (based on the time of ingestion), and every slot has its own
+ * {@link SpaceSavingSketch} per dimension, so memory usage is constant, regardless of the number of events and distinct values.
+ * Slots are reused in a ring, a slot is reset when the window moves past it. Queries merge the sketches of the slots
+ * covering the requested part of the window.
+ *
+ * Changed sketches are periodically persisted by a background thread, and restored at startup, so restarts do not lose them.
+ * Sketches are maintained only if tlp.storage.heavy-hitters.enabled is set to true (default).
+ *
+ * @author Peter Smith
+ */
+@Component
+public class HeavyHitterTracker implements LoggingEventStorageHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HeavyHitterTracker.class);
+    private static final String SNAPSHOT_THREAD_NAME = "tlp-heavy-hitter-snapshot";
+    private static final String SNAPSHOT_ID_FORMAT = "%s-%d";
+
+    private final HeavyHitterSnapshotDAO heavyHitterSnapshotDAO;
+    private final MessageTemplateNormalizer messageTemplateNormalizer;
+    private final HeavyHitterProperties heavyHitterProperties;
+    private final LongSupplier clock;
+    private final long slotLengthInMillis;
+    private final AtomicReferenceArray<Slot> slots;
+
+    private ScheduledExecutorService snapshotWorker;
+
+    @Autowired
+    public HeavyHitterTracker(HeavyHitterSnapshotDAO heavyHitterSnapshotDAO, MessageTemplateNormalizer messageTemplateNormalizer,
+                              HeavyHitterProperties heavyHitterProperties) {
+        this(heavyHitterSnapshotDAO, messageTemplateNormalizer, heavyHitterProperties, System::currentTimeMillis);
+    }
+
+    HeavyHitterTracker(HeavyHitterSnapshotDAO heavyHitterSnapshotDAO, MessageTemplateNormalizer messageTemplateNormalizer,
+                       HeavyHitterProperties heavyHitterProperties, LongSupplier clock) {
+        this.heavyHitterSnapshotDAO = heavyHitterSnapshotDAO;
+        this.messageTemplateNormalizer = messageTemplateNormalizer;
+        this.heavyHitterProperties = heavyHitterProperties;
+        this.clock = clock;
+        this.slotLengthInMillis = heavyHitterProperties.getSlotLength().toMillis();
+        this.slots = new AtomicReferenceArray<>(heavyHitterProperties.getWindowSlots());
+    }
+
+    /**
+     * Restores the persisted sketches of the current window, and starts periodically persisting the changed ones
+     * (if heavy hitter tracking is enabled).
+     */
+    @PostConstruct
+    public void start() {
+
+        if (!heavyHitterProperties.isEnabled()) {
+            return;
+        }
+
+        restore();
+        long snapshotIntervalInMillis = heavyHitterProperties.getSnapshotInterval().toMillis();
+        snapshotWorker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, SNAPSHOT_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotWorker.scheduleWithFixedDelay(this::snapshot, snapshotIntervalInMillis, snapshotIntervalInMillis, TimeUnit.MILLISECONDS);
+        LOGGER.info("Heavy hitter tracking enabled");
+    }
+
+    /**
+     * Stops the background worker, and persists the changed sketches.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        if (snapshotWorker != null) {
+            snapshotWorker.shutdown();
+            snapshot();
+        }
+    }
+
+    @Override
+    public void afterStore(List<LoggingEvent> loggingEvents) {
+        loggingEvents.forEach(loggingEvent -> record(loggingEvent.getLoggerName(), loggingEvent.getSource(), loggingEvent.getContent()));
+    }
+
+    /**
+     * Counts a stored log event towards the sketches of the current time slot.
+     * Does nothing if heavy hitter tracking is disabled. Missing attributes are not counted.
+     *
+     * @param loggerName logger name of the event
+     * @param source source of the event
+     * @param content log message of the event (reduced to its template before being counted)
+     */
+    public void record(String loggerName, String source, String content) {
+
+        if (!heavyHitterProperties.isEnabled()) {
+            return;
+        }
+
+        Slot slot = getCurrentSlot();
+        offer(slot, HeavyHitterDimension.LOGGER, loggerName);
+        offer(slot, HeavyHitterDimension.SOURCE, source);
+        offer(slot, HeavyHitterDimension.MESSAGE, createTemplate(content));
+    }
+
+    /**
+     * Returns the most frequent values of the queried dimension within the requested part of the sliding window.
+     * The requested window is rounded up to whole slots, and capped by the tracked window.
+     *
+     * @param heavyHitterQuery {@link HeavyHitterQuery} specifying the dimension, the window and the maximum number of values
+     * @return {@link HeavyHitterResult} containing the most frequent values (at most the configured maximum)
+     * @throws IllegalStateException if heavy hitter tracking is disabled
+     */
+    public HeavyHitterResult getHeavyHitters(HeavyHitterQuery heavyHitterQuery) {
+
+        if (!heavyHitterProperties.isEnabled()) {
+            throw new IllegalStateException("Heavy hitter tracking is disabled");
+        }
+
+        long now = clock.getAsLong();
+        int windowSlots = heavyHitterProperties.getWindowSlots();
+        int querySlots = Objects.isNull(heavyHitterQuery.window())
+                ? windowSlots
+                : (int) Math.min(windowSlots, Math.max(1, (heavyHitterQuery.window().toMillis() + slotLengthInMillis - 1) / slotLengthInMillis));
+        long from = getSlotStart(now) - (querySlots - 1) * slotLengthInMillis;
+
+        List<SpaceSavingSketch> sketches = getSlotsSince(from).stream()
+                .map(slot -> slot.sketches.get(heavyHitterQuery.dimension()))
+                .collect(Collectors.toList());
+        int maxResults = heavyHitterProperties.getMaxResults();
+        int limit = Objects.isNull(heavyHitterQuery.limit())
+                ? maxResults
+                : Math.min(heavyHitterQuery.limit(), maxResults);
+
+        return HeavyHitterResult.getBuilder()
+                .withDimension(heavyHitterQuery.dimension())
+                .withFrom(new Date(from))
+                .withTo(new Date(now))
+                .withTotal(sketches.stream().mapToLong(SpaceSavingSketch::getTotal).sum())
+                .withHeavyHitters(SpaceSavingSketch.top(sketches, limit))
+                .build();
+    }
+
+    /**
+     * Persists the sketches of the slots changed since the last snapshot.
+     * Slots failed to be persisted are retried with the next snapshot.
+     */
+    public void snapshot() {
+
+        List<Slot> changedSlots = getSlotsSince(getWindowStart()).stream()
+                .filter(slot -> slot.changed)
+                .collect(Collectors.toList());
+
+        if (changedSlots.isEmpty()) {
+            return;
+        }
+
+        // flags are reset before reading the sketches, so events counted in the meantime are picked up by the next snapshot
+        changedSlots.forEach(slot -> slot.changed = false);
+        List<HeavyHitterSnapshot> snapshots = new ArrayList<>();
+        changedSlots.forEach(slot -> slot.sketches.forEach((dimension, sketch) -> {
+            if (sketch.getTotal() > 0) {
+                snapshots.add(createSnapshot(slot, dimension, sketch));
+            }
+        }));
+
+        try {
+            heavyHitterSnapshotDAO.saveAll(snapshots);
+        } catch (Exception exception) {
+            LOGGER.error(String.format("Failed to persist heavy hitter sketches of [%d] slots", changedSlots.size()), exception);
+            changedSlots.forEach(slot -> slot.changed = true);
+        }
+    }
+
+    private void restore() {
+
+        try {
+            heavyHitterSnapshotDAO.findSince(new Date(getWindowStart())).forEach(snapshot -> {
+                Slot slot = getSlot(snapshot.slotStart().getTime());
+                if (Objects.nonNull(slot)) {
+                    slot.sketches.put(snapshot.dimension(),
+                            SpaceSavingSketch.restore(heavyHitterProperties.getCapacity(), snapshot.total(), snapshot.counters().stream()
+                                    .map(counter -> new HeavyHitter(counter.getValue(), counter.getCount(), counter.getError()))
+                                    .collect(Collectors.toList())));
+                }
+            });
+        } catch (Exception exception) {
+            LOGGER.error("Failed to restore heavy hitter sketches", exception);
+        }
+    }
+
+    private void offer(Slot slot, HeavyHitterDimension dimension, String value) {
+
+        if (Objects.nonNull(value)) {
+            slot.sketches.get(dimension).offer(value);
+            slot.changed = true;
+        }
+    }
+
+    private String createTemplate(String content) {
+
+        String template = messageTemplateNormalizer.normalize(content);
+        int maxTemplateLength = heavyHitterProperties.getMaxTemplateLength();
+
+        return Objects.nonNull(template) && template.length() > maxTemplateLength
+                ? template.substring(0, maxTemplateLength)
+                : template;
+    }
+
+    private Slot getCurrentSlot() {
+        return getSlot(getSlotStart(clock.getAsLong()));
+    }
+
+    private Slot getSlot(long slotStart) {
+
+        int index = (int) Math.floorMod(slotStart / slotLengthInMillis, (long) slots.length());
+        while (true) {
+            Slot slot = slots.get(index);
+            if (Objects.nonNull(slot) && slot.start == slotStart) {
+                return slot;
+            }
+            if (Objects.nonNull(slot) && slot.start > slotStart) {
+                return null;
+            }
+            Slot newSlot = new Slot(slotStart, heavyHitterProperties.getCapacity());
+            if (slots.compareAndSet(index, slot, newSlot)) {
+                return newSlot;
+            }
+        }
+    }
+
+    private List<Slot> getSlotsSince(long from) {
+
+        long to = getSlotStart(clock.getAsLong());
+
+        return IntStream.range(0, slots.length())
+                .mapToObj(slots::get)
+                .filter(Objects::nonNull)
+                .filter(slot -> slot.start >= from && slot.start <= to)
+                .collect(Collectors.toList());
+    }
+
+    private long getWindowStart() {
+        return getSlotStart(clock.getAsLong()) - (slots.length() - 1) * slotLengthInMillis;
+    }
+
+    private long getSlotStart(long timestamp) {
+        return Math.floorDiv(timestamp, slotLengthInMillis) * slotLengthInMillis;
+    }
+
+    private HeavyHitterSnapshot createSnapshot(Slot slot, HeavyHitterDimension dimension, SpaceSavingSketch sketch) {
+
+        return HeavyHitterSnapshot.getBuilder()
+                .withId(String.format(SNAPSHOT_ID_FORMAT, dimension, slot.start))
+                .withDimension(dimension)
+                .withSlotStart(new Date(slot.start))
+                .withTotal(sketch.getTotal())
+                .withCounters(sketch.getCounters().stream()
+                        .map(heavyHitter -> new SketchCounter(heavyHitter.value(), heavyHitter.count(), heavyHitter.error()))
+                        .collect(Collectors.toList()))
+                .withExpiresAt(new Date(slot.start + slots.length() * slotLengthInMillis))
+                .build();
+    }
+
+    private static final class Slot {
+
+        private final long start;
+        private final Map<HeavyHitterDimension, SpaceSavingSketch> sketches = new EnumMap<>(HeavyHitterDimension.class);
+        private volatile boolean changed;
+
+        private Slot(long start, int capacity) {
+            this.start = start;
+            for (HeavyHitterDimension dimension : HeavyHitterDimension.values()) {
+                sketches.put(dimension, new SpaceSavingSketch(capacity));
+            }
+        }
+    }
+}
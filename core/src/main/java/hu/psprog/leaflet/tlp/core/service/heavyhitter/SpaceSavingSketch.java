@@ -0,0 +1,172 @@
+package hu.psprog.leaflet.tlp.core.service.heavyhitter;
+
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitter;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Space-Saving sketch estimating the most frequent values of a stream using a fixed number of counters.
+ *
+ * While there are free counters, every value gets its own exact counter. Once all the counters are taken, a new value
+ * replaces the value with the lowest count, inheriting (and recording as error) its count. Thus counts are never underestimated,
+ * and overestimated by at most total / capacity, so every value occurring more often than that is guaranteed to be tracked.
+ * Counters are kept grouped by their count, so both counting and replacing take logarithmic time.
+ *
+ * Instances are thread-safe.
+ *
+ * @author Peter Smith
+ */
+public class SpaceSavingSketch {
+
+    private static final Comparator<HeavyHitter> HEAVY_HITTER_ORDER = Comparator.comparingLong(HeavyHitter::count).reversed()
+            .thenComparing(HeavyHitter::value);
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final NavigableMap<Long, Set<String>> valuesByCount = new TreeMap<>();
+    private long total;
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Restores a sketch from its persisted counters.
+     *
+     * @param capacity number of counters of the sketch
+     * @param total number of occurrences counted by the sketch
+     * @param heavyHitters persisted counters of the sketch
+     * @return restored {@link SpaceSavingSketch}
+     */
+    public static SpaceSavingSketch restore(int capacity, long total, Collection<HeavyHitter> heavyHitters) {
+
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        heavyHitters.stream()
+                .sorted(HEAVY_HITTER_ORDER)
+                .limit(capacity)
+                .forEach(heavyHitter -> sketch.track(heavyHitter.value(), new Counter(heavyHitter.count(), heavyHitter.error())));
+        sketch.total = total;
+
+        return sketch;
+    }
+
+    /**
+     * Counts an occurrence of the given value.
+     *
+     * @param value value to be counted
+     */
+    public synchronized void offer(String value) {
+
+        Counter counter = counters.get(value);
+        if (counter != null) {
+            untrack(value, counter.count);
+        } else if (counters.size() < capacity) {
+            counter = new Counter(0, 0);
+        } else {
+            Map.Entry<Long, Set<String>> lowest = valuesByCount.firstEntry();
+            String evictedValue = lowest.getValue().iterator().next();
+            untrack(evictedValue, lowest.getKey());
+            counters.remove(evictedValue);
+            counter = new Counter(lowest.getKey(), lowest.getKey());
+        }
+
+        counter.count++;
+        track(value, counter);
+        total++;
+    }
+
+    /**
+     * Returns the number of occurrences counted by the sketch.
+     *
+     * @return number of occurrences
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns every counter of the sketch.
+     *
+     * @return list of {@link HeavyHitter} objects, ordered by their count (descending)
+     */
+    public synchronized List<HeavyHitter> getCounters() {
+        return counters.entrySet().stream()
+                .map(entry -> new HeavyHitter(entry.getKey(), entry.getValue().count, entry.getValue().error))
+                .sorted(HEAVY_HITTER_ORDER)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Merges the given sketches, and returns the most frequent values of the merged stream.
+     *
+     * A value not tracked by a full sketch may still have occurred as many times as the lowest count of that sketch,
+     * so this count is added to both the count and the error of the value, keeping the estimations upper bounds.
+     *
+     * @param sketches sketches to be merged
+     * @param limit maximum number of values to be returned
+     * @return list of {@link HeavyHitter} objects, ordered by their estimated count (descending)
+     */
+    public static List<HeavyHitter> top(Collection<SpaceSavingSketch> sketches, int limit) {
+
+        Map<String, long[]> merged = new HashMap<>();
+        long baseline = 0;
+        for (SpaceSavingSketch sketch : sketches) {
+            synchronized (sketch) {
+                long floor = sketch.getFloor();
+                baseline += floor;
+                sketch.counters.forEach((value, counter) -> {
+                    long[] estimation = merged.computeIfAbsent(value, key -> new long[2]);
+                    estimation[0] += counter.count - floor;
+                    estimation[1] += counter.error - floor;
+                });
+            }
+        }
+
+        long mergedBaseline = baseline;
+        return merged.entrySet().stream()
+                .map(entry -> new HeavyHitter(entry.getKey(), entry.getValue()[0] + mergedBaseline, entry.getValue()[1] + mergedBaseline))
+                .sorted(HEAVY_HITTER_ORDER)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private long getFloor() {
+        return counters.size() < capacity
+                ? 0
+                : valuesByCount.firstKey();
+    }
+
+    private void track(String value, Counter counter) {
+        counters.put(value, counter);
+        valuesByCount.computeIfAbsent(counter.count, count -> new LinkedHashSet<>()).add(value);
+    }
+
+    private void untrack(String value, long count) {
+
+        Set<String> values = valuesByCount.get(count);
+        values.remove(value);
+        if (values.isEmpty()) {
+            valuesByCount.remove(count);
+        }
+    }
+
+    private static final class Counter {
+
+        private long count;
+        private final long error;
+
+        private Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
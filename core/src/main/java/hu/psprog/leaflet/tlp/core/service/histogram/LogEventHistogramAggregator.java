@@ -0,0 +1,294 @@
+package hu.psprog.leaflet.tlp.core.service.histogram;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.HistogramProperties;
+import hu.psprog.leaflet.tlp.core.config.RollupProperties;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.AggregationDimension;
+import hu.psprog.leaflet.tlp.core.domain.HistogramBucket;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventHistogram;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryScope;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventRollupDAO;
+import hu.psprog.leaflet.tlp.core.service.cache.QueryScopeExtractor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the log events matching a query over time, in buckets of an automatically selected interval.
+ *
+ * The time range of the histogram is taken from the time bounds of the query (see {@link QueryScopeExtractor}). Without a lower
+ * bound, it starts at the earliest matching event, without an upper bound, it ends at the current time. The finest interval
+ * of a fixed ladder (1 second to 30 days) is selected that keeps the number of buckets within the configured limit
+ * (see {@link HistogramProperties}). Buckets are aligned to the epoch, and empty buckets are included in the result.
+ *
+ * If every condition on the top level of the query refers only to the source and level fields, or is a lower (inclusive)
+ * or upper (exclusive) time bound, the histogram is served from the rollup counters of the coarsest resolution the interval
+ * and the time bounds are aligned to, as long as its counters are still retained, and already cover the whole time range.
+ * Otherwise, the matching events themselves are counted in a single aggregation pipeline.
+ * Coverage of a resolution starts after its earliest stored period (which may have been counted only partially,
+ * if the rollups have been enabled during that period), and is looked up once, when the first counter of the resolution appears.
+ * Histograms served from rollups lag behind ingestion by the flush interval (minute counters) or the compaction interval
+ * (coarser counters) of the rollups. As the coverage is derived from the stored counters, late events with timestamps
+ * preceding the time the rollups have been enabled can move it back, if they are stored before the coverage is looked up.
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class LogEventHistogramAggregator {
+
+    private static final List<Duration> INTERVALS = List.of(
+            Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(10), Duration.ofSeconds(30),
+            Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(10), Duration.ofMinutes(30),
+            Duration.ofHours(1), Duration.ofHours(3), Duration.ofHours(6), Duration.ofHours(12),
+            Duration.ofDays(1), Duration.ofDays(7), Duration.ofDays(30));
+    private static final List<RollupResolution> COARSEST_RESOLUTION_FIRST = List.of(RollupResolution.DAY, RollupResolution.HOUR, RollupResolution.MINUTE);
+    private static final Set<String> ROLLUP_FIELDS = Set.of("source", "level");
+    private static final String TIMESTAMP_FIELD = "timeStamp";
+    private static final Pageable EARLIEST_EVENT = PageRequest.of(0, 1, Sort.by(Sort.Direction.ASC, TIMESTAMP_FIELD));
+    private static final LogEventProjection TIMESTAMP_ONLY = new LogEventProjection(EnumSet.noneOf(LogEventProjection.Field.class));
+
+    private final LogEventDAO logEventDAO;
+    private final LogEventRollupDAO logEventRollupDAO;
+    private final QueryScopeExtractor queryScopeExtractor;
+    private final HistogramProperties histogramProperties;
+    private final RollupProperties rollupProperties;
+    private final LongSupplier clock;
+    private final Map<RollupResolution, Date> coverageStarts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LogEventHistogramAggregator(LogEventDAO logEventDAO, LogEventRollupDAO logEventRollupDAO, QueryScopeExtractor queryScopeExtractor,
+                                       HistogramProperties histogramProperties, RollupProperties rollupProperties) {
+        this(logEventDAO, logEventRollupDAO, queryScopeExtractor, histogramProperties, rollupProperties, System::currentTimeMillis);
+    }
+
+    LogEventHistogramAggregator(LogEventDAO logEventDAO, LogEventRollupDAO logEventRollupDAO, QueryScopeExtractor queryScopeExtractor,
+                                HistogramProperties histogramProperties, RollupProperties rollupProperties, LongSupplier clock) {
+        this.logEventDAO = logEventDAO;
+        this.logEventRollupDAO = logEventRollupDAO;
+        this.queryScopeExtractor = queryScopeExtractor;
+        this.histogramProperties = histogramProperties;
+        this.rollupProperties = rollupProperties;
+        this.clock = clock;
+    }
+
+    /**
+     * Counts the log events matching the given {@link QueryPlan} over time.
+     *
+     * @param queryPlan {@link QueryPlan} of the query selecting the events to be counted
+     * @return {@link LogEventHistogram} containing every bucket of the time range
+     */
+    public LogEventHistogram histogram(QueryPlan queryPlan) {
+
+        long now = clock.getAsLong();
+        Optional<Predicate> expression = queryPlan.expression();
+        QueryScope queryScope = queryScopeExtractor.extract(queryPlan);
+        Date to = queryScope.until().orElseGet(() -> new Date(now));
+        Optional<Date> since = queryScope.since().or(() -> findEarliestTimeStamp(expression));
+        if (since.isEmpty()) {
+            return createHistogram(to, to, INTERVALS.get(0), Collections.emptyList(), false);
+        }
+
+        long end = Math.max(to.getTime(), since.get().getTime() + 1);
+        Duration interval = selectInterval(since.get().getTime(), end);
+        Date from = new Date(alignToInterval(since.get().getTime(), interval));
+        int bucketCount = countBuckets(from.getTime(), end, interval);
+
+        Optional<RollupSource> rollupSource = selectRollupSource(expression, since.get(), interval, now);
+        List<AggregationBucket> buckets = rollupSource.isPresent()
+                ? logEventRollupDAO.histogram(rollupSource.get().predicate(), rollupSource.get().resolution(), rollupSource.get().from(), to,
+                        interval, bucketCount)
+                : countEvents(expression, interval, bucketCount);
+
+        return createHistogram(from, new Date(end), interval, buckets, rollupSource.isPresent());
+    }
+
+    private Optional<Date> findEarliestTimeStamp(Optional<Predicate> expression) {
+
+        return (expression.isPresent()
+                ? logEventDAO.findSlice(expression.get(), EARLIEST_EVENT, TIMESTAMP_ONLY)
+                : logEventDAO.findSlice(EARLIEST_EVENT, TIMESTAMP_ONLY))
+                .stream()
+                .findFirst()
+                .map(LoggingEvent::getTimeStamp);
+    }
+
+    private Duration selectInterval(long from, long end) {
+
+        return INTERVALS.stream()
+                .filter(interval -> countBuckets(alignToInterval(from, interval), end, interval) <= histogramProperties.getMaxBuckets())
+                .findFirst()
+                .orElse(INTERVALS.get(INTERVALS.size() - 1));
+    }
+
+    private Optional<RollupSource> selectRollupSource(Optional<Predicate> expression, Date since, Duration interval, long now) {
+
+        if (!histogramProperties.isUseRollups() || !rollupProperties.isEnabled()) {
+            return Optional.empty();
+        }
+
+        List<Expression<?>> conditions = expression
+                .map(this::collectConditions)
+                .orElseGet(Collections::emptyList);
+        BooleanBuilder rollupPredicate = new BooleanBuilder();
+        List<Date> timeBounds = new ArrayList<>();
+        for (Expression<?> condition : conditions) {
+            if (condition instanceof Operation<?> operation && isTimeBound(operation)) {
+                timeBounds.add((Date) ((Constant<?>) operation.getArg(1)).getConstant());
+            } else if (referencesOnlyRollupFields(condition)) {
+                rollupPredicate.and((Predicate) condition);
+            } else {
+                return Optional.empty();
+            }
+        }
+
+        return COARSEST_RESOLUTION_FIRST.stream()
+                .filter(resolution -> interval.toMillis() % resolution.getPeriod().toMillis() == 0)
+                .filter(resolution -> timeBounds.stream().allMatch(bound -> resolution.truncate(bound).equals(bound)))
+                .filter(resolution -> isRetained(resolution, resolution.truncate(since), now))
+                .filter(resolution -> isCovered(resolution, resolution.truncate(since)))
+                .findFirst()
+                .map(resolution -> new RollupSource(resolution, rollupPredicate, resolution.truncate(since)));
+    }
+
+    private List<Expression<?>> collectConditions(Expression<?> expression) {
+
+        if (expression instanceof BooleanBuilder booleanBuilder) {
+            return Objects.nonNull(booleanBuilder.getValue())
+                    ? collectConditions(booleanBuilder.getValue())
+                    : Collections.emptyList();
+        }
+
+        return expression instanceof Operation<?> operation && operation.getOperator() == Ops.AND
+                ? operation.getArgs().stream()
+                    .flatMap(argument -> collectConditions(argument).stream())
+                    .collect(Collectors.toList())
+                : List.of(expression);
+    }
+
+    private boolean isTimeBound(Operation<?> condition) {
+
+        // only inclusive lower and exclusive upper bounds can be matched by whole rollup periods
+        return (condition.getOperator() == Ops.GOE || condition.getOperator() == Ops.LT)
+                && condition.getArgs().size() == 2
+                && isField(condition.getArg(0), TIMESTAMP_FIELD)
+                && condition.getArg(1) instanceof Constant<?> constant
+                && constant.getConstant() instanceof Date;
+    }
+
+    private boolean referencesOnlyRollupFields(Expression<?> expression) {
+
+        if (expression instanceof Path<?>) {
+            return ROLLUP_FIELDS.stream().anyMatch(field -> isField(expression, field));
+        }
+
+        if (expression instanceof Operation<?> operation) {
+            return operation.getArgs().stream().allMatch(this::referencesOnlyRollupFields);
+        }
+
+        return expression instanceof Constant<?>;
+    }
+
+    private boolean isField(Expression<?> expression, String field) {
+
+        return expression instanceof Path<?> path
+                && !path.getMetadata().isRoot()
+                && path.getMetadata().getParent().getMetadata().isRoot()
+                && field.equals(path.getMetadata().getName());
+    }
+
+    private boolean isRetained(RollupResolution resolution, Date from, long now) {
+
+        Duration retention = rollupProperties.getRetention(resolution);
+
+        return retention.isZero() || from.getTime() >= now - retention.toMillis();
+    }
+
+    private boolean isCovered(RollupResolution resolution, Date from) {
+
+        // later changes are caused by expired counters (checked by the retention) or late events, so the first found value is kept
+        Date coverageStart = coverageStarts.computeIfAbsent(resolution, key -> logEventRollupDAO.findEarliestPeriodStart(key)
+                .map(earliestPeriodStart -> new Date(earliestPeriodStart.getTime() + key.getPeriod().toMillis()))
+                .orElse(null));
+
+        return Objects.nonNull(coverageStart) && !from.before(coverageStart);
+    }
+
+    private List<AggregationBucket> countEvents(Optional<Predicate> expression, Duration interval, int bucketCount) {
+
+        LogEventAggregation aggregation = new LogEventAggregation(List.of(AggregationDimension.TIME), interval);
+
+        return expression.isPresent()
+                ? logEventDAO.aggregate(expression.get(), aggregation, bucketCount)
+                : logEventDAO.aggregate(aggregation, bucketCount);
+    }
+
+    private LogEventHistogram createHistogram(Date from, Date to, Duration interval, List<AggregationBucket> buckets, boolean precomputed) {
+
+        // every bucket of the time range is listed, buckets returned outside of it (e.g. for inclusive upper bounds) are kept as well
+        long intervalInMillis = interval.toMillis();
+        Map<Long, Long> counts = new TreeMap<>();
+        for (long bucketStart = from.getTime(); bucketStart < to.getTime(); bucketStart += intervalInMillis) {
+            counts.put(bucketStart, 0L);
+        }
+        buckets.forEach(bucket -> counts.merge(((Date) bucket.key().get(0)).getTime(), bucket.count(), Long::sum));
+
+        return LogEventHistogram.getBuilder()
+                .withFrom(from)
+                .withTo(to)
+                .withInterval(interval)
+                .withBuckets(counts.entrySet().stream()
+                        .map(entry -> new HistogramBucket(new Date(entry.getKey()), entry.getValue()))
+                        .collect(Collectors.toList()))
+                .withTotal(counts.values().stream().mapToLong(Long::longValue).sum())
+                .withPrecomputed(precomputed)
+                .build();
+    }
+
+    private static long alignToInterval(long timestamp, Duration interval) {
+
+        long intervalInMillis = interval.toMillis();
+
+        return Math.floorDiv(timestamp, intervalInMillis) * intervalInMillis;
+    }
+
+    private static int countBuckets(long alignedFrom, long end, Duration interval) {
+
+        long intervalInMillis = interval.toMillis();
+
+        return (int) Math.min(Integer.MAX_VALUE, (end - alignedFrom + intervalInMillis - 1) / intervalInMillis);
+    }
+
+    private record RollupSource(RollupResolution resolution, Predicate predicate, Date from) { }
+}
@@ -0,0 +1,133 @@
+package hu.psprog.leaflet.tlp.core.service.idempotency;
+
+import hu.psprog.leaflet.tlp.core.config.IdempotencyProperties;
+import hu.psprog.leaflet.tlp.core.domain.FilteredBatch;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Filters out retried (already stored) log events based on their optional, client supplied event ID.
+ *
+ * Every event ID is first checked against a time-windowed {@link EventIdBloomFilter}. IDs the filter has definitely not seen
+ * are accepted without touching the database, so the common case (first delivery) stays cheap. IDs the filter might have seen
+ * (actual retries and false positives) are looked up in a single query per batch, and only the ones found in the database are dropped.
+ * Repeated IDs within the same batch are dropped as well. Events without event ID are never filtered.
+ *
+ * The unique event ID index remains the authoritative check: duplicates slipping through the filter (e.g. concurrent retries,
+ * or retries arriving after the filter window) are rejected by the database, and are treated as already stored by {@link LogEventDAO}.
+ *
+ * Check counters are exposed as Micrometer metrics (tlp.idempotency.*).
+ *
+ * @author Peter Smith
+ */
+@Component
+public class DuplicateEventFilter implements MeterBinder {
+
+    private static final String METER_PREFIX = "tlp.idempotency";
+    private static final String TAG_RESULT = "result";
+
+    private final LogEventDAO logEventDAO;
+    private final boolean enabled;
+    private final EventIdBloomFilter eventIdBloomFilter;
+    private final LongAdder definitelyNew = new LongAdder();
+    private final LongAdder lookedUp = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    @Autowired
+    public DuplicateEventFilter(LogEventDAO logEventDAO, IdempotencyProperties idempotencyProperties) {
+        this(logEventDAO, idempotencyProperties, new EventIdBloomFilter(idempotencyProperties.getExpectedInsertions(),
+                idempotencyProperties.getFalsePositiveProbability(), idempotencyProperties.getWindow()));
+    }
+
+    DuplicateEventFilter(LogEventDAO logEventDAO, IdempotencyProperties idempotencyProperties, EventIdBloomFilter eventIdBloomFilter) {
+        this.logEventDAO = logEventDAO;
+        this.enabled = idempotencyProperties.isEnabled();
+        this.eventIdBloomFilter = eventIdBloomFilter;
+    }
+
+    /**
+     * Filters out the already stored items of the given list, and records the event IDs of the rest.
+     *
+     * @param items list of log event ingestion items to be filtered
+     * @param eventIdExtractor function returning the event ID of an item (or null if it has none)
+     * @param <T> type of the items
+     * @return {@link FilteredBatch} containing the items to be stored
+     */
+    public <T> FilteredBatch<T> filter(List<T> items, Function<T, String> eventIdExtractor) {
+
+        if (!enabled || items.isEmpty()) {
+            return new FilteredBatch<>(items, IntStream.range(0, items.size()).boxed().collect(Collectors.toList()));
+        }
+
+        List<String> eventIds = items.stream()
+                .map(eventIdExtractor)
+                .collect(Collectors.toList());
+        Set<String> droppedEventIds = findStoredEventIds(eventIds);
+
+        List<T> remainingItems = new ArrayList<>(items.size());
+        List<Integer> itemIndices = new ArrayList<>(items.size());
+        Set<String> batchEventIds = new HashSet<>();
+        for (int index = 0; index < items.size(); index++) {
+            String eventId = eventIds.get(index);
+            if (eventId != null && (droppedEventIds.contains(eventId) || !batchEventIds.add(eventId))) {
+                duplicates.increment();
+                continue;
+            }
+            remainingItems.add(items.get(index));
+            itemIndices.add(index);
+        }
+        batchEventIds.forEach(eventIdBloomFilter::put);
+
+        return new FilteredBatch<>(remainingItems, itemIndices);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        FunctionCounter.builder(METER_PREFIX + ".checks", definitelyNew, LongAdder::sum)
+                .tag(TAG_RESULT, "new")
+                .description("Number of event IDs accepted by the Bloom filter without database lookup")
+                .register(registry);
+        FunctionCounter.builder(METER_PREFIX + ".checks", lookedUp, LongAdder::sum)
+                .tag(TAG_RESULT, "lookup")
+                .description("Number of event IDs that required a database lookup")
+                .register(registry);
+        FunctionCounter.builder(METER_PREFIX + ".duplicates", duplicates, LongAdder::sum)
+                .description("Number of log events dropped as duplicates")
+                .register(registry);
+    }
+
+    private Set<String> findStoredEventIds(List<String> eventIds) {
+
+        List<String> suspectedEventIds = new ArrayList<>();
+        eventIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(eventId -> {
+                    if (eventIdBloomFilter.mightContain(eventId)) {
+                        suspectedEventIds.add(eventId);
+                    } else {
+                        definitelyNew.increment();
+                    }
+                });
+        lookedUp.add(suspectedEventIds.size());
+
+        return suspectedEventIds.isEmpty()
+                ? Set.of()
+                : logEventDAO.findExistingEventIds(suspectedEventIds);
+    }
+}
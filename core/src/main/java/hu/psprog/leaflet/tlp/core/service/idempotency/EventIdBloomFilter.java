@@ -0,0 +1,168 @@
+package hu.psprog.leaflet.tlp.core.service.idempotency;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-windowed, concurrent Bloom filter of client event IDs.
+ * A negative answer of {@link #mightContain(String)} means the event ID has definitely not been recorded within the window,
+ * while a positive answer means it might have been (with the configured false positive probability).
+ *
+ * The filter is split into two generations, similarly to the string intern pool. IDs are recorded in the current generation,
+ * and membership is checked in both. The current generation becomes the previous one (dropping the former previous generation),
+ * once it is older than the configured window, or has received the number of insertions it is sized for.
+ * This way an ID is remembered for at least one window (unless the insertion rate exceeds the configured capacity),
+ * and the false positive probability of the filter stays below twice the configured one.
+ *
+ * @author Peter Smith
+ */
+public class EventIdBloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long SECONDARY_SEED = 0x9e3779b97f4a7c15L;
+    private static final long SECONDARY_MULTIPLIER = 0xc2b2ae3d27d4eb4fL;
+    private static final double LN_2 = Math.log(2);
+
+    private final int bitCount;
+    private final int hashCount;
+    private final int generationCapacity;
+    private final long windowInNanos;
+    private final LongSupplier nanoClock;
+
+    private volatile Generation currentGeneration;
+    private volatile Generation previousGeneration;
+
+    public EventIdBloomFilter(int expectedInsertions, double falsePositiveProbability, Duration window) {
+        this(expectedInsertions, falsePositiveProbability, window, System::nanoTime);
+    }
+
+    EventIdBloomFilter(int expectedInsertions, double falsePositiveProbability, Duration window, LongSupplier nanoClock) {
+        this.generationCapacity = Math.max(1, expectedInsertions);
+        this.bitCount = calculateBitCount(generationCapacity, falsePositiveProbability);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / generationCapacity * LN_2));
+        this.windowInNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+        this.currentGeneration = new Generation(bitCount, nanoClock.getAsLong());
+        this.previousGeneration = new Generation(bitCount, nanoClock.getAsLong());
+    }
+
+    /**
+     * Checks whether the given event ID might have been recorded within the window.
+     *
+     * @param eventId event ID to check
+     * @return {@code false} if the event ID has definitely not been recorded, {@code true} otherwise
+     */
+    public boolean mightContain(String eventId) {
+
+        int[] bitIndices = hash(eventId);
+
+        return currentGeneration.mightContain(bitIndices) || previousGeneration.mightContain(bitIndices);
+    }
+
+    /**
+     * Records the given event ID in the current generation, rotating the generations first if needed.
+     *
+     * @param eventId event ID to record
+     */
+    public void put(String eventId) {
+
+        Generation current = currentGeneration;
+        if (current.insertions.get() >= generationCapacity || nanoClock.getAsLong() - current.createdAt >= windowInNanos) {
+            rotate(current);
+            current = currentGeneration;
+        }
+
+        current.put(hash(eventId));
+    }
+
+    private synchronized void rotate(Generation expired) {
+
+        // another thread may have already rotated the generation this thread found expired
+        if (currentGeneration != expired) {
+            return;
+        }
+
+        previousGeneration = expired;
+        currentGeneration = new Generation(bitCount, nanoClock.getAsLong());
+    }
+
+    private int[] hash(String eventId) {
+
+        long primary = FNV_OFFSET_BASIS;
+        long secondary = SECONDARY_SEED;
+        for (int index = 0; index < eventId.length(); index++) {
+            char character = eventId.charAt(index);
+            primary = (primary ^ character) * FNV_PRIME;
+            secondary = Long.rotateLeft(secondary ^ character, 31) * SECONDARY_MULTIPLIER;
+        }
+
+        long baseHash = mix(primary);
+        long stepHash = mix(secondary) | 1;
+        // double hashing: the k bit positions are derived from two independent hashes
+        int[] bitIndices = new int[hashCount];
+        for (int index = 0; index < hashCount; index++) {
+            bitIndices[index] = (int) Math.floorMod(baseHash + index * stepHash, (long) bitCount);
+        }
+
+        return bitIndices;
+    }
+
+    private static long mix(long hash) {
+
+        // MurmurHash3 64-bit finalizer
+        long mixed = hash;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+
+        return mixed;
+    }
+
+    private static int calculateBitCount(int expectedInsertions, double falsePositiveProbability) {
+
+        double bits = -expectedInsertions * Math.log(falsePositiveProbability) / (LN_2 * LN_2);
+
+        return (int) Math.min(Integer.MAX_VALUE - Long.SIZE, Math.max(Long.SIZE, Math.ceil(bits)));
+    }
+
+    private static final class Generation {
+
+        private final AtomicLongArray bits;
+        private final AtomicInteger insertions = new AtomicInteger();
+        private final long createdAt;
+
+        private Generation(int bitCount, long createdAt) {
+            this.bits = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+            this.createdAt = createdAt;
+        }
+
+        private boolean mightContain(int[] bitIndices) {
+
+            for (int bitIndex : bitIndices) {
+                if ((bits.get(bitIndex >>> 6) & (1L << bitIndex)) == 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void put(int[] bitIndices) {
+
+            for (int bitIndex : bitIndices) {
+                long mask = 1L << bitIndex;
+                int wordIndex = bitIndex >>> 6;
+                long word = bits.get(wordIndex);
+                while ((word & mask) == 0 && !bits.compareAndSet(wordIndex, word, word | mask)) {
+                    word = bits.get(wordIndex);
+                }
+            }
+            insertions.incrementAndGet();
+        }
+    }
+}
@@ -3,66 +3,321 @@ package hu.psprog.leaflet.tlp.core.service.impl;
 import com.querydsl.core.types.Predicate;
 import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
 import hu.psprog.leaflet.tlp.api.domain.LogRequest;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import hu.psprog.leaflet.tlp.core.domain.FilteredBatch;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterQuery;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterResult;
+import hu.psprog.leaflet.tlp.core.domain.IngestBatch;
+import hu.psprog.leaflet.tlp.core.domain.Issue;
+import hu.psprog.leaflet.tlp.core.domain.IssueQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogCursor;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregationResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventExport;
+import hu.psprog.leaflet.tlp.core.domain.LogEventHistogram;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventSlice;
+import hu.psprog.leaflet.tlp.core.domain.LogStoreStatus;
 import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.exception.IngestBufferFullException;
 import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
 import hu.psprog.leaflet.tlp.core.service.LogProcessingService;
-import hu.psprog.leaflet.tlp.core.service.qdsl.expression.builder.ExpressionBuilder;
+import hu.psprog.leaflet.tlp.core.service.aggregation.LogEventAggregator;
+import hu.psprog.leaflet.tlp.core.service.cache.QueryResultCache;
+import hu.psprog.leaflet.tlp.core.service.count.DeferredCountRegistry;
+import hu.psprog.leaflet.tlp.core.service.count.TotalCountResolver;
+import hu.psprog.leaflet.tlp.core.service.export.LogEventExporter;
+import hu.psprog.leaflet.tlp.core.service.guard.QueryCostGuard;
+import hu.psprog.leaflet.tlp.core.service.heavyhitter.HeavyHitterTracker;
+import hu.psprog.leaflet.tlp.core.service.histogram.LogEventHistogramAggregator;
+import hu.psprog.leaflet.tlp.core.service.idempotency.DuplicateEventFilter;
+import hu.psprog.leaflet.tlp.core.service.index.IndexAdvisor;
+import hu.psprog.leaflet.tlp.core.service.ingest.BatchPayloadReader;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventBsonTranscoder;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventWriter;
+import hu.psprog.leaflet.tlp.core.service.ingest.StoredDocumentRecorder;
+import hu.psprog.leaflet.tlp.core.service.ingest.WriteBehindIngestBuffer;
+import hu.psprog.leaflet.tlp.core.service.issue.IssueTracker;
+import hu.psprog.leaflet.tlp.core.service.pagination.KeysetPaginator;
+import hu.psprog.leaflet.tlp.core.service.plan.QueryPlanCache;
+import hu.psprog.leaflet.tlp.core.service.ratelimit.IngestRateLimiter;
+import hu.psprog.leaflet.tlp.core.service.rollup.LogEventRollupReader;
 import hu.psprog.leaflet.tlql.ir.DSLQueryModel;
-import hu.psprog.leaflet.tlql.processor.TLQLProcessorService;
+import org.bson.RawBsonDocument;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * Implementation of {@link LogProcessingService}.
+ * Only created in the servlet based runtime, along with the blocking query components used solely by this service
+ * (result cache, cost guard, exporter, aggregators, rollup reader and write-behind ingest buffer), so the reactive
+ * runtime does not start a second, unused service graph with its own background workers.
  *
  * @author Peter Smith
  */
 @Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class LogProcessingServiceImpl implements LogProcessingService {
 
     private final LogEventDAO logEventDAO;
     private final ConversionService conversionService;
-    private final ExpressionBuilder expressionBuilder;
-    private final TLQLProcessorService tlqlProcessorService;
+    private final QueryPlanCache queryPlanCache;
+    private final BatchPayloadReader batchPayloadReader;
+    private final LoggingEventBsonTranscoder loggingEventBsonTranscoder;
+    private final LoggingEventWriter loggingEventWriter;
+    private final DuplicateEventFilter duplicateEventFilter;
+    private final IngestRateLimiter ingestRateLimiter;
+    private final KeysetPaginator keysetPaginator;
+    private final TotalCountResolver totalCountResolver;
+    private final DeferredCountRegistry deferredCountRegistry;
+    private final IndexAdvisor indexAdvisor;
+    private final LogEventExporter logEventExporter;
+    private final QueryResultCache queryResultCache;
+    private final QueryCostGuard queryCostGuard;
+    private final LogEventAggregator logEventAggregator;
+    private final LogEventRollupReader logEventRollupReader;
+    private final IssueTracker issueTracker;
+    private final HeavyHitterTracker heavyHitterTracker;
+    private final StoredDocumentRecorder storedDocumentRecorder;
+    private final LogEventHistogramAggregator logEventHistogramAggregator;
+    private final Optional<WriteBehindIngestBuffer> optionalWriteBehindIngestBuffer;
 
     @Autowired
-    public LogProcessingServiceImpl(LogEventDAO logEventDAO, ConversionService conversionService,
-                                    ExpressionBuilder expressionBuilder, TLQLProcessorService tlqlProcessorService) {
+    public LogProcessingServiceImpl(LogEventDAO logEventDAO, ConversionService conversionService, QueryPlanCache queryPlanCache,
+                                    BatchPayloadReader batchPayloadReader, LoggingEventBsonTranscoder loggingEventBsonTranscoder,
+                                    LoggingEventWriter loggingEventWriter, DuplicateEventFilter duplicateEventFilter,
+                                    IngestRateLimiter ingestRateLimiter, KeysetPaginator keysetPaginator,
+                                    TotalCountResolver totalCountResolver, DeferredCountRegistry deferredCountRegistry,
+                                    IndexAdvisor indexAdvisor, LogEventExporter logEventExporter,
+                                    QueryResultCache queryResultCache, QueryCostGuard queryCostGuard,
+                                    LogEventAggregator logEventAggregator, LogEventRollupReader logEventRollupReader,
+                                    IssueTracker issueTracker, HeavyHitterTracker heavyHitterTracker,
+                                    StoredDocumentRecorder storedDocumentRecorder, LogEventHistogramAggregator logEventHistogramAggregator,
+                                    @Autowired(required = false) Optional<WriteBehindIngestBuffer> writeBehindIngestBuffer) {
         this.logEventDAO = logEventDAO;
         this.conversionService = conversionService;
-        this.expressionBuilder = expressionBuilder;
-        this.tlqlProcessorService = tlqlProcessorService;
+        this.queryPlanCache = queryPlanCache;
+        this.batchPayloadReader = batchPayloadReader;
+        this.loggingEventBsonTranscoder = loggingEventBsonTranscoder;
+        this.loggingEventWriter = loggingEventWriter;
+        this.duplicateEventFilter = duplicateEventFilter;
+        this.ingestRateLimiter = ingestRateLimiter;
+        this.keysetPaginator = keysetPaginator;
+        this.totalCountResolver = totalCountResolver;
+        this.deferredCountRegistry = deferredCountRegistry;
+        this.indexAdvisor = indexAdvisor;
+        this.logEventExporter = logEventExporter;
+        this.queryResultCache = queryResultCache;
+        this.queryCostGuard = queryCostGuard;
+        this.logEventAggregator = logEventAggregator;
+        this.logEventRollupReader = logEventRollupReader;
+        this.issueTracker = issueTracker;
+        this.heavyHitterTracker = heavyHitterTracker;
+        this.storedDocumentRecorder = storedDocumentRecorder;
+        this.logEventHistogramAggregator = logEventHistogramAggregator;
+        this.optionalWriteBehindIngestBuffer = writeBehindIngestBuffer;
     }
 
     @Override
     public LogEventPage getLogs(LogRequest logRequest) {
-        return retrieveLogs(conversionService.convert(logRequest, DSLQueryModel.class));
+        QueryPlan queryPlan = queryPlanCache.compile(conversionService.convert(logRequest, DSLQueryModel.class));
+        return conversionService.convert(queryCostGuard.execute(queryPlan, () -> retrievePage(queryPlan)), LogEventPage.class);
     }
 
     @Override
-    public LogEventPage getLogs(String logRequest) {
-        return retrieveLogs(tlqlProcessorService.parse(logRequest));
+    public LogEventQueryResult getLogs(String logRequest, String cursor, CountMode countMode, LogEventProjection projection) {
+
+        QueryPlan queryPlan = queryPlanCache.get(logRequest).withProjection(projection);
+
+        return queryResultCache.get(queryPlan, cursor, countMode,
+                () -> queryCostGuard.execute(queryPlan, () -> retrieveLogs(queryPlan, cursor, countMode)));
+    }
+
+    @Override
+    public LogEventExport exportLogs(String logRequest, LogEventProjection projection) {
+
+        QueryPlan queryPlan = queryPlanCache.get(logRequest).withProjection(projection);
+        queryCostGuard.check(queryPlan);
+
+        return outputStream -> logEventExporter.export(queryPlan, outputStream);
+    }
+
+    @Override
+    public LogEventAggregationResult aggregateLogs(String logRequest, LogEventAggregation aggregation) {
+
+        QueryPlan queryPlan = queryPlanCache.get(logRequest);
+
+        return queryCostGuard.execute(queryPlan, () -> logEventAggregator.aggregate(queryPlan, aggregation));
+    }
+
+    @Override
+    public LogEventHistogram getHistogram(String logRequest) {
+
+        QueryPlan queryPlan = queryPlanCache.get(logRequest);
+
+        return queryCostGuard.execute(queryPlan, () -> logEventHistogramAggregator.histogram(queryPlan));
+    }
+
+    @Override
+    public LogEventRollupResult getRollups(LogEventRollupQuery rollupQuery) {
+        return logEventRollupReader.query(rollupQuery);
+    }
+
+    @Override
+    public List<Issue> getIssues(IssueQuery issueQuery) {
+        return issueTracker.getIssues(issueQuery);
+    }
+
+    @Override
+    public HeavyHitterResult getHeavyHitters(HeavyHitterQuery heavyHitterQuery) {
+        return heavyHitterTracker.getHeavyHitters(heavyHitterQuery);
+    }
+
+    @Override
+    public Optional<DeferredCount> getDeferredCount(String countToken) {
+        return deferredCountRegistry.get(countToken);
+    }
+
+    @Override
+    public LogStoreStatus storeLog(LoggingEvent loggingEvent) {
+
+        if (!ingestRateLimiter.tryAcquire(loggingEvent.getSource(), loggingEvent.getLevel())) {
+            return LogStoreStatus.DROPPED;
+        }
+
+        if (optionalWriteBehindIngestBuffer.isPresent()) {
+            if (!optionalWriteBehindIngestBuffer.get().offer(loggingEvent)) {
+                throw new IngestBufferFullException();
+            }
+            return LogStoreStatus.QUEUED;
+        }
+
+        loggingEventWriter.write(loggingEvent);
+
+        return LogStoreStatus.STORED;
     }
 
     @Override
-    public void storeLog(LoggingEvent loggingEvent) {
-        logEventDAO.save(loggingEvent);
+    public BatchIngestionResult storeLogs(InputStream payload, BatchPayloadFormat format) throws IOException {
+
+        IngestBatch<LoggingEvent> ingestBatch = batchPayloadReader.readLoggingEvents(payload, format);
+        FilteredBatch<LoggingEvent> admittedBatch = ingestRateLimiter.admit(ingestBatch.items(), LoggingEvent::getSource, LoggingEvent::getLevel);
+
+        return ingestBatch.toResult(admittedBatch.mapFailures(loggingEventWriter.writeAll(admittedBatch.items())),
+                ingestBatch.items().size() - admittedBatch.items().size());
     }
 
-    private LogEventPage retrieveLogs(DSLQueryModel dslQueryModel) {
+    @Override
+    public BatchIngestionResult storeLogs(List<LoggingEvent> loggingEvents) {
+
+        FilteredBatch<LoggingEvent> admittedBatch = ingestRateLimiter.admit(loggingEvents, LoggingEvent::getSource, LoggingEvent::getLevel);
+        List<BatchItemFailure> failures = admittedBatch.mapFailures(loggingEventWriter.writeAll(admittedBatch.items()));
+        int dropped = loggingEvents.size() - admittedBatch.items().size();
+
+        return BatchIngestionResult.getBuilder()
+                .withReceived(loggingEvents.size())
+                .withStored(loggingEvents.size() - failures.size() - dropped)
+                .withDropped(dropped)
+                .withFailures(failures)
+                .build();
+    }
+
+    @Override
+    public BatchIngestionResult storeLogsDirectly(InputStream payload, BatchPayloadFormat format) throws IOException {
+
+        IngestBatch<RawBsonDocument> ingestBatch = batchPayloadReader.read(payload, format, loggingEventBsonTranscoder);
+        FilteredBatch<RawBsonDocument> admittedBatch = ingestRateLimiter.admit(ingestBatch.items(),
+                loggingEventBsonTranscoder::getSource, loggingEventBsonTranscoder::getLevel);
+        FilteredBatch<RawBsonDocument> filteredBatch = duplicateEventFilter.filter(admittedBatch.items(), loggingEventBsonTranscoder::getEventId);
+        StoreResult storeResult = logEventDAO.saveAllDocuments(filteredBatch.items());
+        List<BatchItemFailure> failures = admittedBatch.mapFailures(filteredBatch.mapFailures(storeResult.failures()));
+        storedDocumentRecorder.record(storeResult.extractStored(filteredBatch.items()));
+
+        return ingestBatch.toResult(failures, ingestBatch.items().size() - admittedBatch.items().size());
+    }
+
+    private LogEventQueryResult retrieveLogs(QueryPlan queryPlan, String cursor, CountMode countMode) {
+
+        if (Objects.nonNull(cursor)) {
+            return retrieveCursorPage(queryPlan, cursor, countMode);
+        }
+
+        if (countMode == CountMode.EXACT) {
+            Page<LoggingEvent> loggingEventPage = retrievePage(queryPlan);
+            return keysetPaginator.createResult(loggingEventPage, conversionService.convert(loggingEventPage, LogEventPage.class),
+                    TotalCount.exact(loggingEventPage.getTotalElements()));
+        }
+
+        return retrieveSlice(queryPlan, countMode);
+    }
+
+    private Page<LoggingEvent> retrievePage(QueryPlan queryPlan) {
+
+        Optional<Predicate> expression = queryPlan.expression();
+        Pageable pageable = queryPlan.pageable();
+
+        return recordExecution(queryPlan, () -> expression.isPresent()
+                ? logEventDAO.findAll(expression.get(), pageable, queryPlan.projection())
+                : logEventDAO.findAll(pageable, queryPlan.projection()));
+    }
+
+    private LogEventQueryResult retrieveSlice(QueryPlan queryPlan, CountMode countMode) {
+
+        Optional<Predicate> expression = queryPlan.expression();
+        Pageable pageable = queryPlan.pageable();
+
+        Slice<LoggingEvent> loggingEventSlice = recordExecution(queryPlan, () -> expression.isPresent()
+                ? logEventDAO.findSlice(expression.get(), pageable, queryPlan.projection())
+                : logEventDAO.findSlice(pageable, queryPlan.projection()));
+        TotalCount totalCount = totalCountResolver.resolve(expression, countMode);
+
+        return keysetPaginator.createResult(loggingEventSlice,
+                conversionService.convert(new LogEventSlice(loggingEventSlice, totalCount), LogEventPage.class), totalCount);
+    }
+
+    private LogEventQueryResult retrieveCursorPage(QueryPlan queryPlan, String cursor, CountMode countMode) {
+
+        Optional<Predicate> expression = queryPlan.expression();
+        Pageable pageable = queryPlan.pageable();
+        LogCursor logCursor = keysetPaginator.parseCursor(cursor, pageable.getSort());
+
+        // one extra event is retrieved to determine whether there are further pages in the paging direction
+        List<LoggingEvent> loggingEvents = recordExecution(queryPlan, () -> logEventDAO.findAll(keysetPaginator.createSeekPredicate(expression, logCursor),
+                keysetPaginator.createSeekSort(logCursor), pageable.getPageSize() + 1, queryPlan.projection()));
+        TotalCount totalCount = totalCountResolver.resolve(expression, countMode);
+
+        return keysetPaginator.createResult(logCursor, loggingEvents, pageable.getPageSize(), totalCount);
+    }
 
-        Optional<Predicate> expression = expressionBuilder.build(dslQueryModel);
-        Pageable pageable = conversionService.convert(dslQueryModel, Pageable.class);
+    private <T> T recordExecution(QueryPlan queryPlan, Supplier<T> query) {
 
-        Page<LoggingEvent> loggingEventPage = expression.isPresent()
-                ? logEventDAO.findAll(expression.get(), pageable)
-                : logEventDAO.findAll(pageable);
+        long start = System.nanoTime();
+        T result = query.get();
+        indexAdvisor.record(queryPlan, Duration.ofNanos(System.nanoTime() - start));
 
-        return conversionService.convert(loggingEventPage, LogEventPage.class);
+        return result;
     }
 }
@@ -0,0 +1,313 @@
+package hu.psprog.leaflet.tlp.core.service.index;
+
+import hu.psprog.leaflet.tlp.core.config.IndexAdvisorProperties;
+import hu.psprog.leaflet.tlp.core.domain.IndexAdvisorReport;
+import hu.psprog.leaflet.tlp.core.domain.IndexBuildStatus;
+import hu.psprog.leaflet.tlp.core.domain.IndexRecommendation;
+import hu.psprog.leaflet.tlp.core.domain.IndexUsage;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryShape;
+import hu.psprog.leaflet.tlp.core.domain.QueryShapeStatistics;
+import hu.psprog.leaflet.tlp.core.persistence.dao.IndexManagementDAO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Records the shapes ({@link QueryShape}) of the executed log event queries along with their latency,
+ * and recommends compound indexes for the slow ones.
+ *
+ * The recommended index key follows the equality-sort-range rule: the fields matched by equality come first, followed by the
+ * fields of the ordering and finally the fields matched by range conditions. A shape is considered to be served by an existing
+ * index, if the index starts with the equality fields (in any order) followed by the ordering fields (in the same or completely
+ * reversed directions). Recommended indexes can be built in the background, one at a time.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class IndexAdvisor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexAdvisor.class);
+    private static final String BUILD_THREAD_NAME = "tlp-index-build";
+    private static final String INDEX_NAME_PREFIX = "tlp-index.advised.";
+    private static final String INDEX_NAME_FIELD_SEPARATOR = "_";
+    private static final String INDEX_NAME_DESCENDING_SUFFIX = "-desc";
+    private static final String ID_INDEX_NAME = "_id_";
+    private static final String ID_PROPERTY = "id";
+    private static final String ID_FIELD = "_id";
+
+    private final QueryShapeExtractor queryShapeExtractor;
+    private final IndexManagementDAO indexManagementDAO;
+    private final IndexAdvisorProperties indexAdvisorProperties;
+    private final ExecutorService indexBuildExecutor;
+    private final Map<QueryShape, ShapeStatistics> shapeStatisticsMap = new ConcurrentHashMap<>();
+    private final Map<String, IndexBuildStatus> indexBuilds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IndexAdvisor(QueryShapeExtractor queryShapeExtractor, IndexManagementDAO indexManagementDAO,
+                        IndexAdvisorProperties indexAdvisorProperties) {
+        this(queryShapeExtractor, indexManagementDAO, indexAdvisorProperties, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, BUILD_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    IndexAdvisor(QueryShapeExtractor queryShapeExtractor, IndexManagementDAO indexManagementDAO,
+                 IndexAdvisorProperties indexAdvisorProperties, ExecutorService indexBuildExecutor) {
+        this.queryShapeExtractor = queryShapeExtractor;
+        this.indexManagementDAO = indexManagementDAO;
+        this.indexAdvisorProperties = indexAdvisorProperties;
+        this.indexBuildExecutor = indexBuildExecutor;
+    }
+
+    /**
+     * Stops the index build thread. Index builds already started by the database are not affected.
+     */
+    @PreDestroy
+    public void shutdown() {
+        indexBuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Records an execution of the given {@link QueryPlan}.
+     * Executions of new query shapes are not recorded if the maximum number of tracked shapes is reached.
+     *
+     * @param queryPlan executed {@link QueryPlan}
+     * @param latency latency of the execution
+     */
+    public void record(QueryPlan queryPlan, Duration latency) {
+
+        if (!indexAdvisorProperties.isEnabled()) {
+            return;
+        }
+
+        QueryShape queryShape = queryShapeExtractor.extract(queryPlan);
+        ShapeStatistics shapeStatistics = shapeStatisticsMap.get(queryShape);
+        if (Objects.isNull(shapeStatistics)) {
+            if (shapeStatisticsMap.size() >= indexAdvisorProperties.getMaxShapes()) {
+                return;
+            }
+            shapeStatistics = shapeStatisticsMap.computeIfAbsent(queryShape, key -> new ShapeStatistics());
+        }
+
+        shapeStatistics.record(latency.toNanos());
+    }
+
+    /**
+     * Creates a report of the recorded query shapes, the recommended indexes and the existing but unused indexes.
+     *
+     * @return generated {@link IndexAdvisorReport}
+     */
+    public IndexAdvisorReport getReport() {
+
+        List<IndexUsage> indexUsageList = indexManagementDAO.getIndexUsage();
+        List<QueryShapeStatistics> shapes = createShapeStatistics(indexUsageList);
+
+        return IndexAdvisorReport.getBuilder()
+                .withShapes(shapes)
+                .withRecommendations(createRecommendations(shapes))
+                .withUnusedIndexes(indexUsageList.stream()
+                        .filter(indexUsage -> indexUsage.accesses() == 0)
+                        .filter(indexUsage -> !indexUsage.unique() && !ID_INDEX_NAME.equals(indexUsage.name()))
+                        .collect(Collectors.toList()))
+                .withBuilds(Map.copyOf(indexBuilds))
+                .build();
+    }
+
+    /**
+     * Starts building the recommended index of the given name in the background.
+     * Does not start a new build, if the build of the given index is already pending or running.
+     *
+     * @param name name of a currently recommended index
+     * @return status of the index build, or empty {@link Optional} if there is no such recommendation
+     */
+    public Optional<IndexBuildStatus> buildIndex(String name) {
+
+        Optional<IndexRecommendation> recommendation = getReport().recommendations().stream()
+                .filter(indexRecommendation -> indexRecommendation.name().equals(name))
+                .findFirst();
+
+        return recommendation.map(indexRecommendation -> indexBuilds.compute(name, (key, currentStatus) -> {
+            if (currentStatus == IndexBuildStatus.PENDING || currentStatus == IndexBuildStatus.RUNNING) {
+                return currentStatus;
+            }
+            indexBuildExecutor.execute(() -> build(indexRecommendation));
+            return IndexBuildStatus.PENDING;
+        }));
+    }
+
+    private void build(IndexRecommendation indexRecommendation) {
+
+        indexBuilds.put(indexRecommendation.name(), IndexBuildStatus.RUNNING);
+        try {
+            LOGGER.info("Building index [{}] with key {}", indexRecommendation.name(), indexRecommendation.key());
+            indexManagementDAO.createIndex(indexRecommendation.name(), indexRecommendation.key());
+            indexBuilds.put(indexRecommendation.name(), IndexBuildStatus.COMPLETED);
+            LOGGER.info("Index [{}] has been built", indexRecommendation.name());
+        } catch (Exception exception) {
+            LOGGER.error("Failed to build index [{}]", indexRecommendation.name(), exception);
+            indexBuilds.put(indexRecommendation.name(), IndexBuildStatus.FAILED);
+        }
+    }
+
+    private List<QueryShapeStatistics> createShapeStatistics(List<IndexUsage> indexUsageList) {
+
+        return shapeStatisticsMap.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<QueryShape, ShapeStatistics> entry) -> entry.getValue().totalNanos.sum()).reversed())
+                .map(entry -> {
+                    IndexKey indexKey = createIndexKey(entry.getKey());
+                    long executions = entry.getValue().executions.sum();
+                    return QueryShapeStatistics.getBuilder()
+                            .withShape(entry.getKey().toString())
+                            .withExecutions(executions)
+                            .withAverageLatency(Duration.ofNanos(entry.getValue().totalNanos.sum() / Math.max(executions, 1)))
+                            .withMaxLatency(Duration.ofNanos(entry.getValue().maxNanos.get()))
+                            .withIndexKey(indexKey.key())
+                            .withCoveringIndex(findCoveringIndex(indexKey, indexUsageList))
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    private List<IndexRecommendation> createRecommendations(List<QueryShapeStatistics> shapes) {
+
+        Map<String, IndexRecommendation> recommendations = new LinkedHashMap<>();
+        shapes.stream()
+                .filter(shape -> Objects.isNull(shape.coveringIndex()) && !shape.indexKey().isEmpty())
+                .filter(shape -> shape.executions() >= indexAdvisorProperties.getMinExecutions())
+                .filter(shape -> shape.averageLatency().compareTo(indexAdvisorProperties.getMinAverageLatency()) >= 0)
+                .forEach(shape -> recommendations.merge(createIndexName(shape.indexKey()), createRecommendation(shape), this::mergeRecommendations));
+
+        return new ArrayList<>(recommendations.values());
+    }
+
+    private IndexRecommendation createRecommendation(QueryShapeStatistics shape) {
+
+        return IndexRecommendation.getBuilder()
+                .withName(createIndexName(shape.indexKey()))
+                .withKey(shape.indexKey())
+                .withShapes(List.of(shape.shape()))
+                .withExecutions(shape.executions())
+                .withTotalLatency(shape.averageLatency().multipliedBy(shape.executions()))
+                .build();
+    }
+
+    private IndexRecommendation mergeRecommendations(IndexRecommendation current, IndexRecommendation other) {
+
+        List<String> shapes = new ArrayList<>(current.shapes());
+        shapes.addAll(other.shapes());
+
+        return IndexRecommendation.getBuilder()
+                .withName(current.name())
+                .withKey(current.key())
+                .withShapes(shapes)
+                .withExecutions(current.executions() + other.executions())
+                .withTotalLatency(current.totalLatency().plus(other.totalLatency()))
+                .build();
+    }
+
+    private String createIndexName(Map<String, Integer> key) {
+
+        return INDEX_NAME_PREFIX + key.entrySet().stream()
+                .map(entry -> entry.getValue() < 0
+                        ? entry.getKey() + INDEX_NAME_DESCENDING_SUFFIX
+                        : entry.getKey())
+                .collect(Collectors.joining(INDEX_NAME_FIELD_SEPARATOR));
+    }
+
+    private IndexKey createIndexKey(QueryShape queryShape) {
+
+        Map<String, Integer> key = new LinkedHashMap<>();
+        queryShape.equalityFields().forEach(field -> key.put(field, 1));
+        queryShape.sort().forEach(order -> key.putIfAbsent(ID_PROPERTY.equals(order.getProperty()) ? ID_FIELD : order.getProperty(),
+                order.isAscending() ? 1 : -1));
+        int sortFieldCount = key.size() - queryShape.equalityFields().size();
+        queryShape.rangeFields().forEach(field -> key.putIfAbsent(field, 1));
+
+        return new IndexKey(key, queryShape.equalityFields().size(), sortFieldCount);
+    }
+
+    private String findCoveringIndex(IndexKey indexKey, List<IndexUsage> indexUsageList) {
+
+        return indexUsageList.stream()
+                .filter(indexUsage -> isCovering(indexKey, new ArrayList<>(indexUsage.key().entrySet())))
+                .map(IndexUsage::name)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private boolean isCovering(IndexKey indexKey, List<Map.Entry<String, Object>> existingKey) {
+
+        List<Map.Entry<String, Integer>> requiredKey = new ArrayList<>(indexKey.key().entrySet());
+        int prefixLength = indexKey.equalityFieldCount() + indexKey.sortFieldCount();
+
+        if (prefixLength == 0) {
+            // range-only shape, the index only has to start with one of the range fields
+            return !existingKey.isEmpty() && !requiredKey.isEmpty() && existingKey.get(0).getValue() instanceof Number
+                    && indexKey.key().containsKey(existingKey.get(0).getKey());
+        }
+
+        if (existingKey.size() < prefixLength) {
+            return false;
+        }
+
+        boolean equalityFieldsMatching = getFieldNames(existingKey.subList(0, indexKey.equalityFieldCount()))
+                .equals(getFieldNames(requiredKey.subList(0, indexKey.equalityFieldCount())));
+
+        Integer sortDirectionFactor = null;
+        for (int index = indexKey.equalityFieldCount(); index < prefixLength && equalityFieldsMatching; index++) {
+            Map.Entry<String, Object> existingField = existingKey.get(index);
+            Map.Entry<String, Integer> requiredField = requiredKey.get(index);
+            if (!existingField.getKey().equals(requiredField.getKey()) || !(existingField.getValue() instanceof Number direction)) {
+                return false;
+            }
+            int directionFactor = Integer.signum(direction.intValue()) * requiredField.getValue();
+            if (Objects.nonNull(sortDirectionFactor) && sortDirectionFactor != directionFactor) {
+                return false;
+            }
+            sortDirectionFactor = directionFactor;
+        }
+
+        return equalityFieldsMatching;
+    }
+
+    private Set<String> getFieldNames(List<? extends Map.Entry<String, ?>> key) {
+        return key.stream()
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    private record IndexKey(Map<String, Integer> key, int equalityFieldCount, int sortFieldCount) { }
+
+    private static final class ShapeStatistics {
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        private void record(long latencyNanos) {
+            executions.increment();
+            totalNanos.add(latencyNanos);
+            maxNanos.accumulate(latencyNanos);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package hu.psprog.leaflet.tlp.core.service.index;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryShape;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Extracts the {@link QueryShape} of a {@link QueryPlan}.
+ * Conditions joined by AND are classified by their operator. Every condition under an OR or a NOT operation is classified
+ * as a range condition, as those cannot be served as equality matches by a single index. Conditions not referring to a
+ * document field (like full-text search) are ignored.
+ *
+ * Note that case-insensitive equality is classified as equality, although it is matched by an anchored, case-insensitive
+ * regular expression, which can only be served by scanning the keys of the index.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class QueryShapeExtractor {
+
+    private static final Set<Operator> EQUALITY_OPERATORS = Set.of(Ops.EQ, Ops.EQ_IGNORE_CASE, Ops.IN);
+    private static final Set<Operator> NON_INDEXABLE_OPERATORS = Set.of(Ops.OR, Ops.NOT);
+    private static final String ID_PROPERTY = "id";
+    private static final String ID_FIELD = "_id";
+
+    /**
+     * Extracts the {@link QueryShape} of the given {@link QueryPlan}.
+     *
+     * @param queryPlan {@link QueryPlan} to extract the shape of
+     * @return extracted {@link QueryShape}
+     */
+    public QueryShape extract(QueryPlan queryPlan) {
+
+        Set<String> equalityFields = new TreeSet<>();
+        Set<String> rangeFields = new TreeSet<>();
+        queryPlan.expression()
+                .ifPresent(expression -> collectFields(expression, true, equalityFields, rangeFields));
+        rangeFields.removeAll(equalityFields);
+
+        return new QueryShape(List.copyOf(equalityFields), queryPlan.pageable().getSort(), List.copyOf(rangeFields));
+    }
+
+    private void collectFields(Expression<?> expression, boolean indexable, Set<String> equalityFields, Set<String> rangeFields) {
+
+        if (expression instanceof BooleanBuilder booleanBuilder) {
+            if (Objects.nonNull(booleanBuilder.getValue())) {
+                collectFields(booleanBuilder.getValue(), indexable, equalityFields, rangeFields);
+            }
+        } else if (expression instanceof Operation<?> operation) {
+            Operator operator = operation.getOperator();
+            if (operator == Ops.AND || NON_INDEXABLE_OPERATORS.contains(operator)) {
+                boolean indexableArguments = indexable && !NON_INDEXABLE_OPERATORS.contains(operator);
+                operation.getArgs().forEach(argument -> collectFields(argument, indexableArguments, equalityFields, rangeFields));
+            } else {
+                operation.getArgs().stream()
+                        .filter(argument -> argument instanceof Path<?>)
+                        .findFirst()
+                        .map(path -> toFieldName(((Path<?>) path).getMetadata()))
+                        .ifPresent(field -> (indexable && EQUALITY_OPERATORS.contains(operator) ? equalityFields : rangeFields).add(field));
+            }
+        }
+    }
+
+    private String toFieldName(PathMetadata pathMetadata) {
+
+        if (pathMetadata.isRoot()) {
+            return null;
+        }
+
+        String parentField = toFieldName(pathMetadata.getParent().getMetadata());
+        String element = switch (pathMetadata.getPathType()) {
+            case PROPERTY -> Objects.isNull(parentField) && ID_PROPERTY.equals(pathMetadata.getName())
+                    ? ID_FIELD
+                    : pathMetadata.getName();
+            case MAPVALUE_CONSTANT -> String.valueOf(pathMetadata.getElement());
+            default -> null;
+        };
+
+        if (Objects.isNull(parentField) || Objects.isNull(element)) {
+            return Objects.isNull(parentField) ? element : parentField;
+        }
+
+        return String.format("%s.%s", parentField, element);
+    }
+}
@@ -0,0 +1,166 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.IngestBatch;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads batch log event ingestion payloads item by item.
+ * Items that cannot be decoded are rejected individually, so a single malformed item does not reject the whole batch.
+ * In case of JSON array payloads, only semantically invalid items can be rejected this way - a syntax error
+ * breaks the whole array, hence it fails the complete batch. NDJSON payloads are processed line by line,
+ * so any kind of error is isolated to the affected line.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class BatchPayloadReader {
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public BatchPayloadReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads the given payload as a batch of {@link LoggingEvent} objects.
+     *
+     * @param payload batch payload as {@link InputStream}
+     * @param format format of the payload as {@link BatchPayloadFormat}
+     * @return parsed batch as {@link IngestBatch} of {@link LoggingEvent} objects
+     * @throws IOException if the payload cannot be read, or it is syntactically invalid JSON array
+     */
+    public IngestBatch<LoggingEvent> readLoggingEvents(InputStream payload, BatchPayloadFormat format) throws IOException {
+        return read(payload, format, parser -> objectMapper.readValue(parser, LoggingEvent.class));
+    }
+
+    /**
+     * Reads the given payload as a batch of items decoded by the given {@link ItemDecoder}.
+     *
+     * @param payload batch payload as {@link InputStream}
+     * @param format format of the payload as {@link BatchPayloadFormat}
+     * @param itemDecoder {@link ItemDecoder} implementation able to decode a single item
+     * @param <T> type of the decoded items
+     * @return parsed batch as {@link IngestBatch} of decoded items
+     * @throws IOException if the payload cannot be read, or it is syntactically invalid JSON array
+     */
+    public <T> IngestBatch<T> read(InputStream payload, BatchPayloadFormat format, ItemDecoder<T> itemDecoder) throws IOException {
+
+        BatchCollector<T> batchCollector = new BatchCollector<>();
+        if (format == BatchPayloadFormat.NDJSON) {
+            readLines(payload, itemDecoder, batchCollector);
+        } else {
+            readArray(payload, itemDecoder, batchCollector);
+        }
+
+        return batchCollector.toBatch();
+    }
+
+    private <T> void readArray(InputStream payload, ItemDecoder<T> itemDecoder, BatchCollector<T> batchCollector) throws IOException {
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(payload)) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Batch payload must be a JSON array");
+            }
+
+            JsonStreamContext arrayContext = parser.getParsingContext();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                try {
+                    batchCollector.accept(itemDecoder.decode(parser));
+                } catch (JsonMappingException exception) {
+                    batchCollector.reject(exception);
+                    skipRemainingItem(parser, arrayContext);
+                }
+            }
+        }
+    }
+
+    private <T> void readLines(InputStream payload, ItemDecoder<T> itemDecoder, BatchCollector<T> batchCollector) throws IOException {
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(payload, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try (JsonParser parser = objectMapper.getFactory().createParser(line)) {
+                parser.nextToken();
+                batchCollector.accept(itemDecoder.decode(parser));
+            } catch (JsonProcessingException exception) {
+                batchCollector.reject(exception);
+            }
+        }
+    }
+
+    private void skipRemainingItem(JsonParser parser, JsonStreamContext arrayContext) throws IOException {
+
+        // the parser may have stopped anywhere inside the failed item, so tokens are consumed
+        // until the parser gets back to the level of the enclosing array
+        while (parser.getParsingContext() != arrayContext && parser.nextToken() != null) {
+            // consuming tokens of the failed item
+        }
+    }
+
+    /**
+     * Decodes a single batch item, starting at the current token of the given {@link JsonParser}.
+     * Implementations must leave the parser at the last token of the decoded item.
+     *
+     * @param <T> type of the decoded item
+     */
+    @FunctionalInterface
+    public interface ItemDecoder<T> {
+
+        /**
+         * Decodes the item at the current position of the given {@link JsonParser}.
+         *
+         * @param parser {@link JsonParser} positioned at the first token of the item
+         * @return decoded item
+         * @throws IOException if the item cannot be decoded
+         */
+        T decode(JsonParser parser) throws IOException;
+    }
+
+    private static final class BatchCollector<T> {
+
+        private final List<T> items = new ArrayList<>();
+        private final List<Integer> itemIndices = new ArrayList<>();
+        private final List<BatchItemFailure> rejectedItems = new ArrayList<>();
+        private int itemCount = 0;
+
+        void accept(T item) {
+            items.add(item);
+            itemIndices.add(itemCount++);
+        }
+
+        void reject(JsonProcessingException exception) {
+            rejectedItems.add(new BatchItemFailure(itemCount++, exception.getOriginalMessage()));
+        }
+
+        IngestBatch<T> toBatch() {
+            return new IngestBatch<>(items, itemIndices, rejectedItems, itemCount);
+        }
+    }
+}
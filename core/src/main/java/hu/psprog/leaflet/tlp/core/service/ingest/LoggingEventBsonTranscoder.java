@@ -0,0 +1,382 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Transcodes Logback-original JSON log events directly into the BSON document format stored by the application.
+ * The transcoder reads the event token by token and writes the BSON document on the fly, without building the
+ * {@link LoggingEvent} object graph, and without involving the Spring Data mapping layer. The produced document is
+ * identical to the one written via the {@link LoggingEvent} model, so both ingestion paths can be read by the same queries:
+ *  - level.levelStr is flattened into the level field;
+ *  - formattedMessage and throwableProxy are stored as content and exception respectively;
+ *  - stackTraceElementProxyArray items are joined into the stackTrace field of the exception;
+ *  - timeStamp is stored as date;
+ *  - null values and unknown fields are omitted.
+ *
+ * Semantic errors (unexpected value types, duplicate fields) are reported via {@link JsonMappingException},
+ * so {@link BatchPayloadReader} can reject the affected item only.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class LoggingEventBsonTranscoder implements BatchPayloadReader.ItemDecoder<RawBsonDocument> {
+
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_CLASS = "_class";
+    private static final String FIELD_EVENT_ID = "eventId";
+    private static final String FIELD_THREAD_NAME = "threadName";
+    private static final String FIELD_LOGGER_NAME = "loggerName";
+    private static final String FIELD_LEVEL = "level";
+    private static final String FIELD_LEVEL_STR = "levelStr";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_FORMATTED_MESSAGE = "formattedMessage";
+    private static final String FIELD_EXCEPTION = "exception";
+    private static final String FIELD_THROWABLE_PROXY = "throwableProxy";
+    private static final String FIELD_TIMESTAMP = "timeStamp";
+    private static final String FIELD_SOURCE = "source";
+    private static final String FIELD_CONTEXT = "context";
+    private static final String FIELD_CLASS_NAME = "className";
+    private static final String FIELD_MESSAGE = "message";
+    private static final String FIELD_STACK_TRACE = "stackTrace";
+    private static final String FIELD_STACK_TRACE_ELEMENT_PROXY_ARRAY = "stackTraceElementProxyArray";
+    private static final String FIELD_STEAS_STRING = "steasString";
+    private static final String FIELD_CAUSE = "cause";
+    private static final String FIELD_SUPPRESSED = "suppressed";
+
+    private static final String LOGGING_EVENT_TYPE_ALIAS = LoggingEvent.class.getName();
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    @Override
+    public RawBsonDocument decode(JsonParser parser) throws IOException {
+
+        expectToken(parser, JsonToken.START_OBJECT);
+
+        BasicOutputBuffer outputBuffer = new BasicOutputBuffer(INITIAL_BUFFER_SIZE);
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(outputBuffer)) {
+            writer.writeStartDocument();
+            writer.writeObjectId(FIELD_ID, new ObjectId());
+            writeLoggingEventFields(parser, writer);
+            writer.writeString(FIELD_CLASS, LOGGING_EVENT_TYPE_ALIAS);
+            writer.writeEndDocument();
+        }
+
+        return new RawBsonDocument(outputBuffer.getInternalBuffer(), 0, outputBuffer.getPosition());
+    }
+
+    /**
+     * Returns the client event ID of the given transcoded log event document.
+     *
+     * @param document log event document produced by this transcoder
+     * @return client event ID of the document, or null if it has none
+     */
+    public String getEventId(RawBsonDocument document) {
+        return getStringField(document, FIELD_EVENT_ID);
+    }
+
+    /**
+     * Returns the source of the given transcoded log event document.
+     *
+     * @param document log event document produced by this transcoder
+     * @return source of the document, or null if it has none
+     */
+    public String getSource(RawBsonDocument document) {
+        return getStringField(document, FIELD_SOURCE);
+    }
+
+    /**
+     * Returns the log level of the given transcoded log event document.
+     *
+     * @param document log event document produced by this transcoder
+     * @return log level of the document, or null if it has none
+     */
+    public String getLevel(RawBsonDocument document) {
+        return getStringField(document, FIELD_LEVEL);
+    }
+
+    /**
+     * Returns the logger name of the given transcoded log event document.
+     *
+     * @param document log event document produced by this transcoder
+     * @return logger name of the document, or null if it has none
+     */
+    public String getLoggerName(RawBsonDocument document) {
+        return getStringField(document, FIELD_LOGGER_NAME);
+    }
+
+    /**
+     * Returns the log message content of the given transcoded log event document.
+     *
+     * @param document log event document produced by this transcoder
+     * @return content of the document, or null if it has none
+     */
+    public String getContent(RawBsonDocument document) {
+        return getStringField(document, FIELD_CONTENT);
+    }
+
+    /**
+     * Returns the timestamp of the given transcoded log event document.
+     *
+     * @param document log event document produced by this transcoder
+     * @return timestamp of the document, or null if it has none
+     */
+    public Date getTimeStamp(RawBsonDocument document) {
+
+        BsonValue value = document.get(FIELD_TIMESTAMP);
+
+        return value != null && value.isDateTime()
+                ? new Date(value.asDateTime().getValue())
+                : null;
+    }
+
+    /**
+     * Returns the (top-level) exception of the given transcoded log event document, without its causes and suppressed exceptions.
+     *
+     * @param document log event document produced by this transcoder
+     * @return exception of the document as {@link ThrowableProxyLogItem}, or null if it has none
+     */
+    public ThrowableProxyLogItem getException(RawBsonDocument document) {
+
+        BsonValue value = document.get(FIELD_EXCEPTION);
+        if (value == null || !value.isDocument()) {
+            return null;
+        }
+
+        BsonDocument exceptionDocument = value.asDocument();
+        ThrowableProxyLogItem exception = new ThrowableProxyLogItem();
+        exception.setClassName(getStringField(exceptionDocument, FIELD_CLASS_NAME));
+        exception.setMessage(getStringField(exceptionDocument, FIELD_MESSAGE));
+        exception.setStackTrace(getStringField(exceptionDocument, FIELD_STACK_TRACE));
+
+        return exception;
+    }
+
+    private String getStringField(BsonDocument document, String fieldName) {
+
+        BsonValue value = document.get(fieldName);
+
+        return value != null && value.isString()
+                ? value.asString().getValue()
+                : null;
+    }
+
+    private void writeLoggingEventFields(JsonParser parser, BsonBinaryWriter writer) throws IOException {
+
+        FieldTracker fieldTracker = new FieldTracker();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+            String fieldName = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if (valueToken == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (fieldName) {
+                case FIELD_EVENT_ID -> writeStringField(parser, writer, fieldTracker, FIELD_EVENT_ID);
+                case FIELD_THREAD_NAME -> writeStringField(parser, writer, fieldTracker, FIELD_THREAD_NAME);
+                case FIELD_LOGGER_NAME -> writeStringField(parser, writer, fieldTracker, FIELD_LOGGER_NAME);
+                case FIELD_SOURCE -> writeStringField(parser, writer, fieldTracker, FIELD_SOURCE);
+                case FIELD_CONTENT, FIELD_FORMATTED_MESSAGE -> writeStringField(parser, writer, fieldTracker, FIELD_CONTENT);
+                case FIELD_LEVEL -> writeLevel(parser, writer, fieldTracker);
+                case FIELD_TIMESTAMP -> writeTimestamp(parser, writer, fieldTracker);
+                case FIELD_CONTEXT -> writeContext(parser, writer, fieldTracker);
+                case FIELD_EXCEPTION, FIELD_THROWABLE_PROXY -> {
+                    fieldTracker.register(parser, FIELD_EXCEPTION);
+                    writer.writeName(FIELD_EXCEPTION);
+                    writeThrowableProxy(parser, writer);
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void writeLevel(JsonParser parser, BsonBinaryWriter writer, FieldTracker fieldTracker) throws IOException {
+
+        expectToken(parser, JsonToken.START_OBJECT);
+
+        String levelStr = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            if (FIELD_LEVEL_STR.equals(fieldName)) {
+                levelStr = readString(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (levelStr != null) {
+            fieldTracker.register(parser, FIELD_LEVEL);
+            writer.writeString(FIELD_LEVEL, levelStr);
+        }
+    }
+
+    private void writeTimestamp(JsonParser parser, BsonBinaryWriter writer, FieldTracker fieldTracker) throws IOException {
+
+        if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+            throw JsonMappingException.from(parser, "Field timeStamp must be an integer epoch milliseconds value");
+        }
+
+        fieldTracker.register(parser, FIELD_TIMESTAMP);
+        writer.writeDateTime(FIELD_TIMESTAMP, parser.getLongValue());
+    }
+
+    private void writeContext(JsonParser parser, BsonBinaryWriter writer, FieldTracker fieldTracker) throws IOException {
+
+        expectToken(parser, JsonToken.START_OBJECT);
+        fieldTracker.register(parser, FIELD_CONTEXT);
+
+        writer.writeStartDocument(FIELD_CONTEXT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.currentName();
+            parser.nextToken();
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                writer.writeNull(key);
+            } else {
+                writer.writeString(key, readString(parser));
+            }
+        }
+        writer.writeEndDocument();
+    }
+
+    private void writeThrowableProxy(JsonParser parser, BsonBinaryWriter writer) throws IOException {
+
+        expectToken(parser, JsonToken.START_OBJECT);
+
+        FieldTracker fieldTracker = new FieldTracker();
+        writer.writeStartDocument();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+            String fieldName = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if (valueToken == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (fieldName) {
+                case FIELD_CLASS_NAME -> writeStringField(parser, writer, fieldTracker, FIELD_CLASS_NAME);
+                case FIELD_MESSAGE -> writeStringField(parser, writer, fieldTracker, FIELD_MESSAGE);
+                case FIELD_STACK_TRACE -> writeStringField(parser, writer, fieldTracker, FIELD_STACK_TRACE);
+                case FIELD_STACK_TRACE_ELEMENT_PROXY_ARRAY -> writeStackTrace(parser, writer, fieldTracker);
+                case FIELD_CAUSE -> {
+                    fieldTracker.register(parser, FIELD_CAUSE);
+                    writer.writeName(FIELD_CAUSE);
+                    writeThrowableProxy(parser, writer);
+                }
+                case FIELD_SUPPRESSED -> writeSuppressed(parser, writer, fieldTracker);
+                default -> parser.skipChildren();
+            }
+        }
+        writer.writeEndDocument();
+    }
+
+    private void writeStackTrace(JsonParser parser, BsonBinaryWriter writer, FieldTracker fieldTracker) throws IOException {
+
+        expectToken(parser, JsonToken.START_ARRAY);
+        fieldTracker.register(parser, FIELD_STACK_TRACE);
+
+        StringBuilder stackTrace = new StringBuilder();
+        boolean first = true;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            String steasString = readStackTraceElement(parser);
+            if (!first) {
+                stackTrace.append(LINE_SEPARATOR);
+            }
+            stackTrace.append(steasString);
+            first = false;
+        }
+
+        writer.writeString(FIELD_STACK_TRACE, stackTrace.toString());
+    }
+
+    private String readStackTraceElement(JsonParser parser) throws IOException {
+
+        expectToken(parser, JsonToken.START_OBJECT);
+
+        String steasString = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            if (FIELD_STEAS_STRING.equals(fieldName) && parser.currentToken() != JsonToken.VALUE_NULL) {
+                steasString = readString(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return steasString;
+    }
+
+    private void writeSuppressed(JsonParser parser, BsonBinaryWriter writer, FieldTracker fieldTracker) throws IOException {
+
+        expectToken(parser, JsonToken.START_ARRAY);
+        fieldTracker.register(parser, FIELD_SUPPRESSED);
+
+        writer.writeStartArray(FIELD_SUPPRESSED);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                writer.writeNull();
+            } else {
+                writeThrowableProxy(parser, writer);
+            }
+        }
+        writer.writeEndArray();
+    }
+
+    private void writeStringField(JsonParser parser, BsonBinaryWriter writer, FieldTracker fieldTracker, String targetFieldName)
+            throws IOException {
+
+        fieldTracker.register(parser, targetFieldName);
+        writer.writeString(targetFieldName, readString(parser));
+    }
+
+    private String readString(JsonParser parser) throws IOException {
+
+        if (!parser.currentToken().isScalarValue()) {
+            throw JsonMappingException.from(parser, String.format("Field [%s] must be a scalar value", parser.currentName()));
+        }
+
+        return parser.getValueAsString();
+    }
+
+    private void expectToken(JsonParser parser, JsonToken expectedToken) throws IOException {
+
+        if (parser.currentToken() != expectedToken) {
+            throw JsonMappingException.from(parser, String.format("Expected [%s] but found [%s] at field [%s]",
+                    expectedToken, parser.currentToken(), parser.currentName()));
+        }
+    }
+
+    /**
+     * Tracks the fields already written into the current document level.
+     * The JSON format allows aliases (e.g. formattedMessage and content) and duplicated keys, but the same
+     * BSON field must not be written twice, so such items are rejected.
+     */
+    private static final class FieldTracker {
+
+        private final Set<String> writtenFields = new HashSet<>();
+
+        void register(JsonParser parser, String targetFieldName) throws JsonMappingException {
+
+            if (!writtenFields.add(targetFieldName)) {
+                throw JsonMappingException.from(parser, String.format("Field [%s] is specified more than once", targetFieldName));
+            }
+        }
+    }
+}
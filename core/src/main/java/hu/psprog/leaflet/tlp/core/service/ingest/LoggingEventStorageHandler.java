@@ -0,0 +1,30 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+
+import java.util.List;
+
+/**
+ * Extension point of {@link LoggingEventWriter}, called around writing log events to the database.
+ * Handlers are called in the order defined by their {@link org.springframework.core.annotation.Order} annotation.
+ *
+ * @author Peter Smith
+ */
+public interface LoggingEventStorageHandler {
+
+    /**
+     * Called before the given log events are written. Handlers may modify the events in place.
+     *
+     * @param loggingEvents {@link LoggingEvent} objects to be written
+     */
+    default void beforeStore(List<LoggingEvent> loggingEvents) {
+    }
+
+    /**
+     * Called after the given log events have been successfully written.
+     *
+     * @param loggingEvents {@link LoggingEvent} objects that have been written
+     */
+    default void afterStore(List<LoggingEvent> loggingEvents) {
+    }
+}
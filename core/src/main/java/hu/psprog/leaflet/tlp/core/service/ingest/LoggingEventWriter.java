@@ -0,0 +1,106 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.FilteredBatch;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import hu.psprog.leaflet.tlp.core.service.idempotency.DuplicateEventFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Writes {@link LoggingEvent} objects to the database, passing them through the registered {@link LoggingEventStorageHandler}s.
+ * Every ingestion path working with {@link LoggingEvent} objects (single event, batch, write-behind buffer) stores events via this writer.
+ * Events already stored under the same client event ID are skipped (see {@link DuplicateEventFilter}), and are not reported as failures.
+ * Events passing the filter but rejected by the database as duplicates (e.g. concurrently retried events) are not reported
+ * as failures either, but the handlers are not notified about them, as they have not been stored by this writer.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class LoggingEventWriter {
+
+    private final LogEventDAO logEventDAO;
+    private final DuplicateEventFilter duplicateEventFilter;
+    private final List<LoggingEventStorageHandler> loggingEventStorageHandlers;
+
+    @Autowired
+    public LoggingEventWriter(LogEventDAO logEventDAO, DuplicateEventFilter duplicateEventFilter,
+                              List<LoggingEventStorageHandler> loggingEventStorageHandlers) {
+        this.logEventDAO = logEventDAO;
+        this.duplicateEventFilter = duplicateEventFilter;
+        this.loggingEventStorageHandlers = loggingEventStorageHandlers;
+    }
+
+    /**
+     * Writes a single {@link LoggingEvent}.
+     *
+     * @param loggingEvent {@link LoggingEvent} to be written
+     */
+    public void write(LoggingEvent loggingEvent) {
+
+        List<LoggingEvent> loggingEvents = duplicateEventFilter.filter(List.of(loggingEvent), LoggingEvent::getEventId).items();
+        if (loggingEvents.isEmpty()) {
+            return;
+        }
+
+        beforeStore(loggingEvents);
+        if (logEventDAO.save(loggingEvent)) {
+            afterStore(loggingEvents, StoreResult.allStored());
+        }
+    }
+
+    /**
+     * Writes the given list of {@link LoggingEvent} objects using an unordered bulk write.
+     * Handlers are notified only about the successfully written events, skipping the failed and duplicate ones.
+     *
+     * @param loggingEvents list of {@link LoggingEvent} objects to be written
+     * @return list of {@link BatchItemFailure} objects describing the failed items (index refers to the position in the given list)
+     */
+    public List<BatchItemFailure> writeAll(List<LoggingEvent> loggingEvents) {
+
+        if (loggingEvents.isEmpty()) {
+            return List.of();
+        }
+
+        FilteredBatch<LoggingEvent> filteredBatch = duplicateEventFilter.filter(loggingEvents, LoggingEvent::getEventId);
+        List<LoggingEvent> newLoggingEvents = filteredBatch.items();
+        if (newLoggingEvents.isEmpty()) {
+            return List.of();
+        }
+
+        beforeStore(newLoggingEvents);
+        StoreResult storeResult = logEventDAO.saveAll(newLoggingEvents);
+        afterStore(newLoggingEvents, storeResult);
+
+        return filteredBatch.mapFailures(storeResult.failures());
+    }
+
+    /**
+     * Passes the given list of {@link LoggingEvent} objects through the registered handlers before they are stored.
+     * Only for storage implementations not writing via {@link LogEventDAO}, regular callers should use {@link #write(LoggingEvent)}
+     * or {@link #writeAll(List)} instead.
+     *
+     * @param loggingEvents list of {@link LoggingEvent} objects about to be stored
+     */
+    public void beforeStore(List<LoggingEvent> loggingEvents) {
+        loggingEventStorageHandlers.forEach(handler -> handler.beforeStore(loggingEvents));
+    }
+
+    /**
+     * Notifies the registered handlers about the successfully stored {@link LoggingEvent} objects of the given list.
+     * Only for storage implementations not writing via {@link LogEventDAO}, regular callers should use {@link #write(LoggingEvent)}
+     * or {@link #writeAll(List)} instead.
+     *
+     * @param loggingEvents list of {@link LoggingEvent} objects passed to the store operation
+     * @param storeResult {@link StoreResult} describing the items failed to be stored or rejected as duplicates
+     */
+    public void afterStore(List<LoggingEvent> loggingEvents, StoreResult storeResult) {
+
+        List<LoggingEvent> storedLoggingEvents = storeResult.extractStored(loggingEvents);
+        loggingEventStorageHandlers.forEach(handler -> handler.afterStore(storedLoggingEvents));
+    }
+}
@@ -0,0 +1,62 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import hu.psprog.leaflet.tlp.core.service.cache.IngestWatermark;
+import hu.psprog.leaflet.tlp.core.service.heavyhitter.HeavyHitterTracker;
+import hu.psprog.leaflet.tlp.core.service.issue.IssueTracker;
+import hu.psprog.leaflet.tlp.core.service.rollup.LogEventRollupStore;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Records log events stored directly as raw BSON documents, bypassing {@link LoggingEventWriter} and its storage handlers.
+ * Advances the {@link IngestWatermark} of the sources, and records the events in the rollups, issues and heavy hitters,
+ * the same way as the corresponding {@link LoggingEventStorageHandler}s do for {@link hu.psprog.leaflet.tlp.core.domain.LoggingEvent} objects.
+ * Shared by the servlet and the reactive ingestion paths.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class StoredDocumentRecorder {
+
+    private final LoggingEventBsonTranscoder loggingEventBsonTranscoder;
+    private final IngestWatermark ingestWatermark;
+    private final LogEventRollupStore logEventRollupStore;
+    private final IssueTracker issueTracker;
+    private final HeavyHitterTracker heavyHitterTracker;
+
+    @Autowired
+    public StoredDocumentRecorder(LoggingEventBsonTranscoder loggingEventBsonTranscoder, IngestWatermark ingestWatermark,
+                                  LogEventRollupStore logEventRollupStore, IssueTracker issueTracker, HeavyHitterTracker heavyHitterTracker) {
+        this.loggingEventBsonTranscoder = loggingEventBsonTranscoder;
+        this.ingestWatermark = ingestWatermark;
+        this.logEventRollupStore = logEventRollupStore;
+        this.issueTracker = issueTracker;
+        this.heavyHitterTracker = heavyHitterTracker;
+    }
+
+    /**
+     * Records the given documents. Should only be called with the documents actually stored by the operation
+     * (see {@link hu.psprog.leaflet.tlp.core.domain.StoreResult#extractStored(List)}).
+     *
+     * @param storedDocuments list of stored {@link RawBsonDocument} objects
+     */
+    public void record(List<RawBsonDocument> storedDocuments) {
+
+        ingestWatermark.advance(storedDocuments.stream()
+                .map(loggingEventBsonTranscoder::getSource)
+                .collect(Collectors.toList()));
+        storedDocuments.forEach(document -> {
+            Date timeStamp = loggingEventBsonTranscoder.getTimeStamp(document);
+            String source = loggingEventBsonTranscoder.getSource(document);
+            String loggerName = loggingEventBsonTranscoder.getLoggerName(document);
+            logEventRollupStore.record(timeStamp, source, loggingEventBsonTranscoder.getLevel(document), loggerName);
+            issueTracker.record(loggingEventBsonTranscoder.getException(document), timeStamp, source);
+            heavyHitterTracker.record(loggerName, source, loggingEventBsonTranscoder.getContent(document));
+        });
+    }
+}
@@ -0,0 +1,190 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import hu.psprog.leaflet.tlp.core.config.AsyncIngestProperties;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded in-memory buffer for asynchronous (write-behind) log event ingestion.
+ * Accepted log events are written by a single background flusher thread in bulk, whenever either
+ * the configured batch size is reached, or the oldest pending event has waited for the configured flush interval.
+ * Offering an event to a full buffer fails immediately, so callers can apply backpressure to their clients.
+ * On shutdown, the buffer stops accepting new events, and writes every pending event before the persistence layer goes down.
+ *
+ * Enabled only if tlp.ingest.async.enabled is set to true.
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "tlp.ingest.async", name = "enabled", havingValue = "true")
+public class WriteBehindIngestBuffer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindIngestBuffer.class);
+    private static final String FLUSHER_THREAD_NAME = "tlp-ingest-flusher";
+    private static final long SHUTDOWN_CHECK_INTERVAL_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LoggingEventWriter loggingEventWriter;
+    private final BlockingQueue<LoggingEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalInNanos;
+    private final long shutdownTimeoutInMillis;
+    private final Thread flusherThread;
+    private final ReadWriteLock acceptanceLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+
+    @Autowired
+    public WriteBehindIngestBuffer(LoggingEventWriter loggingEventWriter, AsyncIngestProperties asyncIngestProperties) {
+        this.loggingEventWriter = loggingEventWriter;
+        this.queue = new ArrayBlockingQueue<>(asyncIngestProperties.getQueueCapacity());
+        this.batchSize = asyncIngestProperties.getBatchSize();
+        this.flushIntervalInNanos = asyncIngestProperties.getFlushInterval().toNanos();
+        this.shutdownTimeoutInMillis = asyncIngestProperties.getShutdownTimeout().toMillis();
+        this.flusherThread = new Thread(this::runFlusher, FLUSHER_THREAD_NAME);
+        this.flusherThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the background flusher thread.
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusherThread.start();
+        LOGGER.info("Write-behind ingest buffer started");
+    }
+
+    /**
+     * Offers the given {@link LoggingEvent} to the buffer without blocking.
+     *
+     * @param loggingEvent {@link LoggingEvent} to be written asynchronously
+     * @return {@code true} if the event has been accepted, {@code false} if the buffer is full or shutting down
+     */
+    public boolean offer(LoggingEvent loggingEvent) {
+
+        // offers share the lock, so shutdown can only stop accepting events once every in-flight offer has completed
+        Lock lock = acceptanceLock.readLock();
+        lock.lock();
+        try {
+            return running && queue.offer(loggingEvent);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of log events currently waiting in the buffer.
+     *
+     * @return number of pending log events
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting new events (after the offers already in progress have completed), waits for the flusher thread
+     * to finish its current batch, then writes every remaining event on the calling thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        Lock lock = acceptanceLock.writeLock();
+        lock.lock();
+        try {
+            running = false;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            flusherThread.join(shutdownTimeoutInMillis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<LoggingEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+        LOGGER.info("Write-behind ingest buffer stopped");
+    }
+
+    private void runFlusher() {
+
+        List<LoggingEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            flush(batch);
+        }
+    }
+
+    private void collectBatch(List<LoggingEvent> batch) throws InterruptedException {
+
+        // waiting is done in short slices, so the flusher notices shutdown without being interrupted during a write
+        long deadline = 0;
+        while (running && batch.size() < batchSize) {
+
+            if (batch.isEmpty()) {
+                LoggingEvent first = queue.poll(SHUTDOWN_CHECK_INTERVAL_IN_NANOS, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    deadline = System.nanoTime() + flushIntervalInNanos;
+                }
+                continue;
+            }
+
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+
+            LoggingEvent next = queue.poll(Math.min(remaining, SHUTDOWN_CHECK_INTERVAL_IN_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void flush(List<LoggingEvent> batch) {
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<BatchItemFailure> failures = loggingEventWriter.writeAll(batch);
+            if (!failures.isEmpty()) {
+                LOGGER.error("Failed to write {} of {} buffered log events", failures.size(), batch.size());
+                failures.forEach(failure -> LOGGER.debug("Failed to write buffered log event: {}", failure.reason()));
+            }
+        } catch (Exception exception) {
+            LOGGER.error(String.format("Failed to write batch of %d buffered log events", batch.size()), exception);
+        } finally {
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package hu.psprog.leaflet.tlp.core.service.intern;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+
+/**
+ * Jackson string deserializer interning the deserialized values via {@link StringInternPool}.
+ * Spring-managed object mappers instantiate it with the pool injected. When instantiated by a plain object mapper
+ * (no-arg constructor), it behaves as the default string deserializer.
+ *
+ * @author Peter Smith
+ */
+public class InternedStringDeserializer extends StdScalarDeserializer<String> {
+
+    private final StringInternPool stringInternPool;
+
+    public InternedStringDeserializer() {
+        this(null);
+    }
+
+    @Autowired
+    public InternedStringDeserializer(StringInternPool stringInternPool) {
+        super(String.class);
+        this.stringInternPool = stringInternPool;
+    }
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+
+        String value = StringDeserializer.instance.deserialize(parser, context);
+
+        return stringInternPool != null
+                ? stringInternPool.intern(value)
+                : value;
+    }
+}
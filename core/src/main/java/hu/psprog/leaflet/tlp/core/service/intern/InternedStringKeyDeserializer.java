@@ -0,0 +1,34 @@
+package hu.psprog.leaflet.tlp.core.service.intern;
+
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Jackson map key deserializer interning the deserialized keys via {@link StringInternPool}.
+ * Spring-managed object mappers instantiate it with the pool injected. When instantiated by a plain object mapper
+ * (no-arg constructor), keys are returned as they are.
+ *
+ * @author Peter Smith
+ */
+public class InternedStringKeyDeserializer extends KeyDeserializer {
+
+    private final StringInternPool stringInternPool;
+
+    public InternedStringKeyDeserializer() {
+        this(null);
+    }
+
+    @Autowired
+    public InternedStringKeyDeserializer(StringInternPool stringInternPool) {
+        this.stringInternPool = stringInternPool;
+    }
+
+    @Override
+    public Object deserializeKey(String key, DeserializationContext context) {
+
+        return stringInternPool != null
+                ? stringInternPool.intern(key)
+                : key;
+    }
+}
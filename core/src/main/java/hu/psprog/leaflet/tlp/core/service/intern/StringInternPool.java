@@ -0,0 +1,146 @@
+package hu.psprog.leaflet.tlp.core.service.intern;
+
+import hu.psprog.leaflet.tlp.core.config.InternPoolProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent string intern pool for low-cardinality log event fields (logger name, thread name, source, level, context keys).
+ * Interning makes the in-flight log events share a single instance of each repeating value, instead of holding separate copies.
+ *
+ * The pool is split into two generations. New values are added to the current generation, and once it is full, it becomes
+ * the previous generation, while the former previous generation is dropped. Values found in the previous generation are promoted
+ * back to the current one, so frequently used values survive rotations, while rarely used ones (e.g. unique thread names)
+ * are evicted within two rotations. This way the pool never holds more than twice the configured generation capacity.
+ *
+ * Hit, miss and eviction counters, as well as the pool size are exposed as Micrometer metrics (tlp.intern-pool.*).
+ *
+ * @author Peter Smith
+ */
+@Component
+public class StringInternPool implements MeterBinder {
+
+    private static final String METER_PREFIX = "tlp.intern-pool";
+    private static final String TAG_RESULT = "result";
+
+    private final boolean enabled;
+    private final int generationCapacity;
+    private final int maxLength;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile Map<String, String> currentGeneration;
+    private volatile Map<String, String> previousGeneration;
+
+    @Autowired
+    public StringInternPool(InternPoolProperties internPoolProperties) {
+        this.enabled = internPoolProperties.isEnabled();
+        this.generationCapacity = internPoolProperties.getGenerationCapacity();
+        this.maxLength = internPoolProperties.getMaxLength();
+        this.currentGeneration = new ConcurrentHashMap<>();
+        this.previousGeneration = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the pooled instance of the given string. If the string is not pooled yet, it is added to the pool.
+     * Null values, and strings longer than the configured maximum length are returned as they are.
+     *
+     * @param value string to be interned
+     * @return pooled instance equal to the given string
+     */
+    public String intern(String value) {
+
+        if (!enabled || value == null || value.length() > maxLength) {
+            return value;
+        }
+
+        Map<String, String> current = currentGeneration;
+        String pooled = current.get(value);
+        if (pooled != null) {
+            hits.increment();
+            return pooled;
+        }
+
+        pooled = previousGeneration.get(value);
+        if (pooled != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            pooled = value;
+        }
+
+        String existing = current.putIfAbsent(pooled, pooled);
+        if (existing == null && current.size() >= generationCapacity) {
+            rotate(current);
+        }
+
+        return existing != null
+                ? existing
+                : pooled;
+    }
+
+    /**
+     * Returns the current number of pooled strings (in both generations, so a value may be counted twice).
+     *
+     * @return number of pooled strings
+     */
+    public int size() {
+        return currentGeneration.size() + previousGeneration.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        FunctionCounter.builder(METER_PREFIX + ".requests", hits, LongAdder::sum)
+                .tag(TAG_RESULT, "hit")
+                .description("Number of intern requests served from the pool")
+                .register(registry);
+        FunctionCounter.builder(METER_PREFIX + ".requests", misses, LongAdder::sum)
+                .tag(TAG_RESULT, "miss")
+                .description("Number of intern requests that added a new value to the pool")
+                .register(registry);
+        FunctionCounter.builder(METER_PREFIX + ".evictions", evictions, LongAdder::sum)
+                .description("Number of values dropped from the pool by generation rotation")
+                .register(registry);
+        Gauge.builder(METER_PREFIX + ".size", this, StringInternPool::size)
+                .description("Number of values currently held by the pool")
+                .register(registry);
+        Gauge.builder(METER_PREFIX + ".hit.ratio", this, StringInternPool::getHitRatio)
+                .description("Ratio of intern requests served from the pool")
+                .register(registry);
+    }
+
+    private synchronized void rotate(Map<String, String> full) {
+
+        // another thread may have already rotated the generation this thread found full
+        if (currentGeneration != full) {
+            return;
+        }
+
+        Map<String, String> evicted = previousGeneration;
+        evictions.add(evicted.keySet().stream()
+                .filter(value -> !full.containsKey(value))
+                .count());
+        previousGeneration = full;
+        currentGeneration = new ConcurrentHashMap<>();
+    }
+
+    private double getHitRatio() {
+
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+
+        return total == 0
+                ? 0.0
+                : (double) hitCount / total;
+    }
+}
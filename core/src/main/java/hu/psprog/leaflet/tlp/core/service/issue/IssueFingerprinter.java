@@ -0,0 +1,114 @@
+package hu.psprog.leaflet.tlp.core.service.issue;
+
+import hu.psprog.leaflet.tlp.core.config.IssueTrackingProperties;
+import hu.psprog.leaflet.tlp.core.domain.IssueSignature;
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.service.template.MessageTemplateNormalizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Calculates the issue signature of exceptions.
+ *
+ * Unlike the fingerprint of the stack trace store (which identifies the exact content of the whole exception tree),
+ * the issue fingerprint is meant to be stable across the occurrences of the same problem. Thus it is calculated only from
+ * the class name, the normalized message and the configured number of topmost stack trace frames of the exception:
+ *  - the message is reduced to its template (see {@link MessageTemplateNormalizer});
+ *  - line numbers and packaging data of the frames are removed, so the fingerprint survives unrelated code changes,
+ *    and the generated names of lambdas and proxies are replaced by placeholders.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class IssueFingerprinter {
+
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    private static final byte FIELD_SEPARATOR = 0x1F;
+    private static final Pattern LINE_SEPARATOR_PATTERN = Pattern.compile("\\R");
+    private static final Pattern FRAME_PREFIX_PATTERN = Pattern.compile("^\\s*at\\s+");
+    private static final Pattern FRAME_LINE_NUMBER_PATTERN = Pattern.compile(":\\d+\\)");
+    private static final Pattern FRAME_PACKAGING_DATA_PATTERN = Pattern.compile("\\s+~?\\[[^]]*]$");
+    private static final Pattern FRAME_LAMBDA_PATTERN = Pattern.compile("\\$\\$Lambda[^.(]*");
+    private static final Pattern FRAME_PROXY_PATTERN = Pattern.compile("\\$Proxy\\d+");
+    private static final String LAMBDA_PLACEHOLDER = Matcher.quoteReplacement("$$Lambda");
+    private static final String PROXY_PLACEHOLDER = Matcher.quoteReplacement("$Proxy");
+
+    private final MessageTemplateNormalizer messageTemplateNormalizer;
+    private final int topFrames;
+
+    @Autowired
+    public IssueFingerprinter(MessageTemplateNormalizer messageTemplateNormalizer, IssueTrackingProperties issueTrackingProperties) {
+        this.messageTemplateNormalizer = messageTemplateNormalizer;
+        this.topFrames = issueTrackingProperties.getTopFrames();
+    }
+
+    /**
+     * Calculates the issue signature of the given exception.
+     *
+     * @param exception exception to calculate the signature of (the stack trace must not be compressed)
+     * @return {@link IssueSignature} of the exception
+     */
+    public IssueSignature fingerprint(ThrowableProxyLogItem exception) {
+
+        String message = messageTemplateNormalizer.normalize(exception.getMessage());
+        List<String> frames = extractTopFrames(exception.getStackTrace());
+
+        MessageDigest messageDigest = createMessageDigest();
+        digest(messageDigest, exception.getClassName());
+        digest(messageDigest, message);
+        frames.forEach(frame -> digest(messageDigest, frame));
+
+        return new IssueSignature(HexFormat.of().formatHex(messageDigest.digest()), exception.getClassName(), message, frames);
+    }
+
+    private List<String> extractTopFrames(String stackTrace) {
+
+        if (Objects.isNull(stackTrace)) {
+            return List.of();
+        }
+
+        return Stream.of(LINE_SEPARATOR_PATTERN.split(stackTrace))
+                .filter(frame -> !frame.isBlank())
+                .limit(topFrames)
+                .map(this::normalizeFrame)
+                .collect(Collectors.toList());
+    }
+
+    private String normalizeFrame(String frame) {
+
+        String normalizedFrame = FRAME_PREFIX_PATTERN.matcher(frame).replaceFirst("");
+        normalizedFrame = FRAME_PACKAGING_DATA_PATTERN.matcher(normalizedFrame).replaceFirst("");
+        normalizedFrame = FRAME_LAMBDA_PATTERN.matcher(normalizedFrame).replaceAll(LAMBDA_PLACEHOLDER);
+        normalizedFrame = FRAME_PROXY_PATTERN.matcher(normalizedFrame).replaceAll(PROXY_PLACEHOLDER);
+
+        return FRAME_LINE_NUMBER_PATTERN.matcher(normalizedFrame).replaceFirst(")");
+    }
+
+    private void digest(MessageDigest messageDigest, String value) {
+
+        if (Objects.nonNull(value)) {
+            messageDigest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        messageDigest.update(FIELD_SEPARATOR);
+    }
+
+    private MessageDigest createMessageDigest() {
+
+        try {
+            return MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 algorithm is not available", exception);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package hu.psprog.leaflet.tlp.core.service.issue;
+
+import hu.psprog.leaflet.tlp.core.config.IssueTrackingProperties;
+import hu.psprog.leaflet.tlp.core.domain.Issue;
+import hu.psprog.leaflet.tlp.core.domain.IssueOccurrence;
+import hu.psprog.leaflet.tlp.core.domain.IssueQuery;
+import hu.psprog.leaflet.tlp.core.domain.IssueSignature;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.persistence.dao.IssueDAO;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventStorageHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the exceptions of the stored log events into issues.
+ *
+ * Before the events are stored, the issue fingerprint of their exception is calculated (see {@link IssueFingerprinter}) and
+ * stored along with the event, so the handler has to run before the exception is moved to the stack trace store, or its
+ * stack trace is compressed. Once the events are stored, their occurrences are collected in memory, and periodically added
+ * to the issues collection by a background thread, using a single bulk write of upserts maintaining the occurrence count,
+ * the first and last seen timestamps and the affected sources of each issue.
+ *
+ * Issues are tracked only if tlp.storage.issues.enabled is set to true (default).
+ *
+ * @author Peter Smith
+ */
+@Component
+@Order(50)
+public class IssueTracker implements LoggingEventStorageHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IssueTracker.class);
+    private static final String FLUSHER_THREAD_NAME = "tlp-issue-flusher";
+
+    private final IssueDAO issueDAO;
+    private final IssueFingerprinter issueFingerprinter;
+    private final IssueTrackingProperties issueTrackingProperties;
+    private final Map<String, IssueSignature> recentSignatures;
+    private final Map<String, IssueOccurrence> pendingOccurrences = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService occurrenceFlusher;
+
+    @Autowired
+    public IssueTracker(IssueDAO issueDAO, IssueFingerprinter issueFingerprinter, IssueTrackingProperties issueTrackingProperties) {
+        this.issueDAO = issueDAO;
+        this.issueFingerprinter = issueFingerprinter;
+        this.issueTrackingProperties = issueTrackingProperties;
+        this.recentSignatures = createRecentSignatureCache(issueTrackingProperties.getSignatureCacheSize());
+    }
+
+    /**
+     * Starts periodically persisting the collected issue occurrences (if issue tracking is enabled).
+     */
+    @PostConstruct
+    public void start() {
+
+        if (!issueTrackingProperties.isEnabled()) {
+            return;
+        }
+
+        long flushIntervalInMillis = issueTrackingProperties.getFlushInterval().toMillis();
+        occurrenceFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, FLUSHER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        occurrenceFlusher.scheduleWithFixedDelay(this::flush, flushIntervalInMillis, flushIntervalInMillis, TimeUnit.MILLISECONDS);
+        LOGGER.info("Issue tracking enabled");
+    }
+
+    /**
+     * Stops the background flusher, and persists the remaining issue occurrences.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        if (occurrenceFlusher != null) {
+            occurrenceFlusher.shutdown();
+            flush();
+        }
+    }
+
+    @Override
+    public void beforeStore(List<LoggingEvent> loggingEvents) {
+
+        if (!issueTrackingProperties.isEnabled()) {
+            return;
+        }
+
+        loggingEvents.stream()
+                .filter(loggingEvent -> Objects.nonNull(loggingEvent.getException()))
+                .forEach(loggingEvent -> {
+                    IssueSignature signature = issueFingerprinter.fingerprint(loggingEvent.getException());
+                    recentSignatures.putIfAbsent(signature.fingerprint(), signature);
+                    loggingEvent.setIssueFingerprint(signature.fingerprint());
+                });
+    }
+
+    @Override
+    public void afterStore(List<LoggingEvent> loggingEvents) {
+
+        if (!issueTrackingProperties.isEnabled()) {
+            return;
+        }
+
+        Map<String, IssueOccurrence> occurrences = new HashMap<>();
+        loggingEvents.stream()
+                .filter(loggingEvent -> Objects.nonNull(loggingEvent.getIssueFingerprint()))
+                .forEach(loggingEvent -> occurrences.merge(loggingEvent.getIssueFingerprint(),
+                        createOccurrence(loggingEvent.getIssueFingerprint(), recentSignatures.get(loggingEvent.getIssueFingerprint()),
+                                loggingEvent.getTimeStamp(), loggingEvent.getSource()), IssueOccurrence::merge));
+        occurrences.forEach(this::addPendingOccurrence);
+    }
+
+    /**
+     * Records an occurrence of the given exception of a log event stored without being passed through the storage handlers.
+     * Does nothing if issue tracking is disabled, or there is no exception.
+     *
+     * @param exception exception of the stored event
+     * @param timeStamp timestamp of the stored event
+     * @param source source of the stored event
+     */
+    public void record(ThrowableProxyLogItem exception, Date timeStamp, String source) {
+
+        if (!issueTrackingProperties.isEnabled() || Objects.isNull(exception)) {
+            return;
+        }
+
+        IssueSignature signature = issueFingerprinter.fingerprint(exception);
+        addPendingOccurrence(signature.fingerprint(), createOccurrence(signature.fingerprint(), signature, timeStamp, source));
+    }
+
+    /**
+     * Adds the collected issue occurrences to the stored issues, and resets them.
+     * Occurrences failed to be persisted are kept for the next attempt.
+     */
+    public void flush() {
+
+        // occurrences are removed atomically, events recorded in the meantime start a new occurrence
+        Map<String, IssueOccurrence> occurrences = new HashMap<>();
+        pendingOccurrences.keySet().forEach(fingerprint -> {
+            IssueOccurrence occurrence = pendingOccurrences.remove(fingerprint);
+            if (Objects.nonNull(occurrence)) {
+                occurrences.put(fingerprint, occurrence);
+            }
+        });
+
+        if (occurrences.isEmpty()) {
+            return;
+        }
+
+        try {
+            issueDAO.addOccurrences(occurrences.values());
+        } catch (Exception exception) {
+            LOGGER.error(String.format("Failed to persist occurrences of [%d] issues", occurrences.size()), exception);
+            occurrences.forEach(this::addPendingOccurrence);
+        }
+    }
+
+    /**
+     * Returns the issues seen within the time window of the given query, the most frequent ones first.
+     *
+     * @param issueQuery {@link IssueQuery} specifying the time window, the source and the maximum number of issues
+     * @return list of matching {@link Issue} objects (at most the configured maximum)
+     * @throws IllegalStateException if issue tracking is disabled
+     */
+    public List<Issue> getIssues(IssueQuery issueQuery) {
+
+        if (!issueTrackingProperties.isEnabled()) {
+            throw new IllegalStateException("Issue tracking is disabled");
+        }
+
+        int maxResults = issueTrackingProperties.getMaxResults();
+        int limit = Objects.isNull(issueQuery.limit())
+                ? maxResults
+                : Math.min(issueQuery.limit(), maxResults);
+
+        return issueDAO.findAll(issueQuery, limit);
+    }
+
+    private void addPendingOccurrence(String fingerprint, IssueOccurrence occurrence) {
+        pendingOccurrences.merge(fingerprint, occurrence, IssueOccurrence::merge);
+    }
+
+    private IssueOccurrence createOccurrence(String fingerprint, IssueSignature signature, Date timeStamp, String source) {
+
+        Date seenAt = Objects.requireNonNullElseGet(timeStamp, Date::new);
+
+        return new IssueOccurrence(fingerprint, signature, 1L, seenAt, seenAt, Objects.isNull(source) ? Set.of() : Set.of(source));
+    }
+
+    private static Map<String, IssueSignature> createRecentSignatureCache(int capacity) {
+
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IssueSignature> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+}
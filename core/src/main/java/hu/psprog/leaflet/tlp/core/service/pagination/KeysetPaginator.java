@@ -0,0 +1,247 @@
+package hu.psprog.leaflet.tlp.core.service.pagination;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.core.conversion.LoggingEventEntityToDomainConverter;
+import hu.psprog.leaflet.tlp.core.domain.LogCursor;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.exception.InvalidLogCursorException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cursor based (keyset) paging support for log event queries.
+ *
+ * Instead of skipping the events of the preceding pages (as offset based paging does), a page is selected by the
+ * (timestamp, ID) pair of the last event of the previous page (or the first event of the next page, when paging backwards),
+ * which is served by the compound timestamp-ID index, so the cost of retrieving a page does not depend on its position.
+ * Cursors are only supported for queries ordered by timestamp (which is the default ordering), and are passed to the clients
+ * as opaque strings, containing the ordering direction and the number of the page as well.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class KeysetPaginator {
+
+    private static final QLoggingEvent LOGGING_EVENT = QLoggingEvent.loggingEvent;
+    private static final String FIELD_TIMESTAMP = getFieldName(LOGGING_EVENT.timeStamp);
+    private static final String FIELD_ID = getFieldName(LOGGING_EVENT.id);
+    private static final String CURSOR_SEPARATOR = ".";
+    private static final String CURSOR_SEPARATOR_PATTERN = "\\.";
+    private static final int CURSOR_PART_COUNT = 5;
+    private static final String FORWARD = "N";
+    private static final String BACKWARD = "P";
+    private static final Base64.Encoder CURSOR_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder CURSOR_DECODER = Base64.getUrlDecoder();
+
+    private final LoggingEventEntityToDomainConverter loggingEventEntityToDomainConverter;
+
+    @Autowired
+    public KeysetPaginator(LoggingEventEntityToDomainConverter loggingEventEntityToDomainConverter) {
+        this.loggingEventEntityToDomainConverter = loggingEventEntityToDomainConverter;
+    }
+
+    /**
+     * Decodes the given cursor, and checks whether it can be used with the given ordering.
+     *
+     * @param cursor opaque cursor string
+     * @param sort ordering of the query
+     * @return decoded cursor as {@link LogCursor}
+     * @throws InvalidLogCursorException if the cursor is malformed, or the ordering does not match the cursor
+     */
+    public LogCursor parseCursor(String cursor, Sort sort) {
+
+        Sort.Direction keysetDirection = getKeysetDirection(sort)
+                .orElseThrow(() -> new InvalidLogCursorException("Cursor based paging is only supported when ordering by timestamp"));
+        LogCursor logCursor = decode(cursor);
+        if (logCursor.sortDirection() != keysetDirection) {
+            throw new InvalidLogCursorException("Cursor has been created for a different ordering");
+        }
+
+        return logCursor;
+    }
+
+    /**
+     * Creates the filter expression selecting the events after (or before, if the cursor points backwards) the given cursor.
+     *
+     * @param expression optional filter expression of the query
+     * @param logCursor cursor of the requested page
+     * @return filter expression of the query extended by the cursor condition
+     */
+    public Predicate createSeekPredicate(Optional<Predicate> expression, LogCursor logCursor) {
+
+        BooleanExpression seekExpression = isDescending(logCursor)
+                ? LOGGING_EVENT.timeStamp.lt(logCursor.timeStamp())
+                    .or(LOGGING_EVENT.timeStamp.eq(logCursor.timeStamp()).and(LOGGING_EVENT.id.lt(logCursor.id())))
+                : LOGGING_EVENT.timeStamp.gt(logCursor.timeStamp())
+                    .or(LOGGING_EVENT.timeStamp.eq(logCursor.timeStamp()).and(LOGGING_EVENT.id.gt(logCursor.id())));
+
+        return expression
+                .map(predicate -> ExpressionUtils.and(predicate, seekExpression))
+                .orElse(seekExpression);
+    }
+
+    /**
+     * Creates the ordering for retrieving the page of the given cursor.
+     * Pages before a backward cursor are retrieved in reverse order.
+     *
+     * @param logCursor cursor of the requested page
+     * @return ordering as {@link Sort}
+     */
+    public Sort createSeekSort(LogCursor logCursor) {
+
+        return Sort.by(isDescending(logCursor)
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC, FIELD_TIMESTAMP, FIELD_ID);
+    }
+
+    /**
+     * Creates the query result of an offset based page (or slice), adding the cursors of its neighbouring pages (if supported by the ordering).
+     *
+     * @param page retrieved page (or slice) of log events
+     * @param logEventPage the page converted to {@link LogEventPage}
+     * @param totalCount total count of matching events
+     * @return {@link LogEventQueryResult} object containing the page and its neighbouring cursors
+     */
+    public LogEventQueryResult createResult(Slice<LoggingEvent> page, LogEventPage logEventPage, TotalCount totalCount) {
+
+        Optional<Sort.Direction> keysetDirection = getKeysetDirection(page.getSort());
+        LogEventQueryResult.LogEventQueryResultBuilder builder = LogEventQueryResult.getBuilder()
+                .withPage(logEventPage)
+                .withTotalCount(totalCount);
+
+        if (keysetDirection.isPresent() && page.hasContent()) {
+            int pageNumber = page.getNumber() + 1;
+            List<LoggingEvent> content = page.getContent();
+            builder.withNextCursor(page.hasNext()
+                    ? encode(keysetDirection.get(), false, pageNumber + 1, content.get(content.size() - 1))
+                    : null);
+            builder.withPreviousCursor(page.hasPrevious()
+                    ? encode(keysetDirection.get(), true, pageNumber - 1, content.get(0))
+                    : null);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Creates the query result of a cursor based page.
+     * The events are expected to be retrieved using {@link #createSeekPredicate(Optional, LogCursor)}
+     * and {@link #createSeekSort(LogCursor)}, with one extra event, indicating whether further pages exist in the paging direction.
+     *
+     * @param logCursor cursor of the retrieved page
+     * @param loggingEvents retrieved log events (at most page size + 1)
+     * @param pageSize size of the page
+     * @param totalCount total count of events matching the query (regardless of the cursor)
+     * @return {@link LogEventQueryResult} object containing the page and its neighbouring cursors
+     */
+    public LogEventQueryResult createResult(LogCursor logCursor, List<LoggingEvent> loggingEvents, int pageSize, TotalCount totalCount) {
+
+        boolean hasMore = loggingEvents.size() > pageSize;
+        List<LoggingEvent> content = new ArrayList<>(loggingEvents.subList(0, Math.min(pageSize, loggingEvents.size())));
+        if (logCursor.backward()) {
+            Collections.reverse(content);
+        }
+
+        boolean hasNext = logCursor.backward() || hasMore;
+        boolean hasPrevious = !logCursor.backward() || hasMore;
+        // page numbers may drift due to events stored since creating the cursor, but the first page is always known
+        int pageNumber = hasPrevious
+                ? Math.max(2, logCursor.pageNumber())
+                : 1;
+        long entityCount = totalCount.reportedValue((long) (pageNumber - 1) * pageSize + content.size() + (hasNext ? 1 : 0));
+
+        LogEventPage logEventPage = LogEventPage.getBuilder()
+                .withPageCount((int) ((entityCount + pageSize - 1) / pageSize))
+                .withPageSize(pageSize)
+                .withPageNumber(pageNumber)
+                .withEntityCount(entityCount)
+                .withEntityCountOnPage(content.size())
+                .withFirst(!hasPrevious)
+                .withLast(!hasNext)
+                .withHasNext(hasNext)
+                .withHasPrevious(hasPrevious)
+                .withEntitiesOnPage(loggingEventEntityToDomainConverter.convertAll(content))
+                .build();
+
+        return LogEventQueryResult.getBuilder()
+                .withPage(logEventPage)
+                .withTotalCount(totalCount)
+                .withNextCursor(hasNext && !content.isEmpty()
+                        ? encode(logCursor.sortDirection(), false, pageNumber + 1, content.get(content.size() - 1))
+                        : null)
+                .withPreviousCursor(hasPrevious && !content.isEmpty()
+                        ? encode(logCursor.sortDirection(), true, pageNumber - 1, content.get(0))
+                        : null)
+                .build();
+    }
+
+    private Optional<Sort.Direction> getKeysetDirection(Sort sort) {
+
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() != 2
+                || !FIELD_TIMESTAMP.equals(orders.get(0).getProperty())
+                || !FIELD_ID.equals(orders.get(1).getProperty())
+                || orders.get(0).getDirection() != orders.get(1).getDirection()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(orders.get(0).getDirection());
+    }
+
+    private boolean isDescending(LogCursor logCursor) {
+        return (logCursor.sortDirection() == Sort.Direction.DESC) != logCursor.backward();
+    }
+
+    private String encode(Sort.Direction sortDirection, boolean backward, int pageNumber, LoggingEvent boundaryEvent) {
+
+        String cursor = String.join(CURSOR_SEPARATOR,
+                sortDirection.name(),
+                backward ? BACKWARD : FORWARD,
+                String.valueOf(pageNumber),
+                String.valueOf(boundaryEvent.getTimeStamp().getTime()),
+                boundaryEvent.getId());
+
+        return CURSOR_ENCODER.encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private LogCursor decode(String cursor) {
+
+        try {
+            String[] parts = new String(CURSOR_DECODER.decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR_PATTERN, CURSOR_PART_COUNT);
+            if (parts.length != CURSOR_PART_COUNT || !(FORWARD.equals(parts[1]) || BACKWARD.equals(parts[1])) || parts[4].isEmpty()) {
+                throw new InvalidLogCursorException("Malformed cursor");
+            }
+
+            return LogCursor.getBuilder()
+                    .withSortDirection(Sort.Direction.valueOf(parts[0]))
+                    .withBackward(BACKWARD.equals(parts[1]))
+                    .withPageNumber(Math.max(1, Integer.parseInt(parts[2])))
+                    .withTimeStamp(new Date(Long.parseLong(parts[3])))
+                    .withId(parts[4])
+                    .build();
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidLogCursorException("Malformed cursor", exception);
+        }
+    }
+
+    private static String getFieldName(Path<?> path) {
+        return path.getMetadata().getName();
+    }
+}
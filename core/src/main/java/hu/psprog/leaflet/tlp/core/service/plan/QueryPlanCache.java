@@ -0,0 +1,181 @@
+package hu.psprog.leaflet.tlp.core.service.plan;
+
+import hu.psprog.leaflet.tlp.core.config.QueryPlanCacheProperties;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.service.qdsl.expression.builder.ExpressionBuilder;
+import hu.psprog.leaflet.tlp.core.service.qdsl.expression.optimizer.PredicateOptimizer;
+import hu.psprog.leaflet.tlql.ir.DSLQueryModel;
+import hu.psprog.leaflet.tlql.processor.TLQLProcessorService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of compiled TLQL query plans, keyed by the normalized query string.
+ * Dashboards tend to send the same handful of queries repeatedly, and for those parsing the query, building
+ * the filter expression and extracting the paging parameters is skipped entirely.
+ * The built filter expression is passed through {@link PredicateOptimizer} before it becomes part of the plan.
+ *
+ * Queries are normalized by trimming them and collapsing whitespace outside quoted literals, so formatting differences
+ * do not produce separate entries. TLQL timestamp conditions are always resolved to absolute timestamp values, so a compiled
+ * plan does not depend on the time of its execution, and can be reused as it is. Queries failing to parse are never cached.
+ *
+ * Hit, miss and eviction counters, as well as the cache size are exposed as Micrometer metrics (tlp.query.plan-cache.*).
+ *
+ * @author Peter Smith
+ */
+@Component
+public class QueryPlanCache implements MeterBinder {
+
+    private static final String METER_PREFIX = "tlp.query.plan-cache";
+    private static final String TAG_RESULT = "result";
+
+    private final TLQLProcessorService tlqlProcessorService;
+    private final ExpressionBuilder expressionBuilder;
+    private final PredicateOptimizer predicateOptimizer;
+    private final ConversionService conversionService;
+    private final boolean enabled;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final Map<String, QueryPlan> plans;
+
+    @Autowired
+    public QueryPlanCache(TLQLProcessorService tlqlProcessorService, ExpressionBuilder expressionBuilder,
+                          PredicateOptimizer predicateOptimizer, ConversionService conversionService,
+                          QueryPlanCacheProperties queryPlanCacheProperties) {
+        this.tlqlProcessorService = tlqlProcessorService;
+        this.expressionBuilder = expressionBuilder;
+        this.predicateOptimizer = predicateOptimizer;
+        this.conversionService = conversionService;
+        this.enabled = queryPlanCacheProperties.isEnabled();
+        this.plans = createPlanMap(queryPlanCacheProperties.getCapacity());
+    }
+
+    /**
+     * Returns the compiled plan of the given TLQL query. The query is parsed and compiled only if its plan is not cached yet.
+     *
+     * @param query TLQL query string
+     * @return compiled {@link QueryPlan} of the query
+     */
+    public QueryPlan get(String query) {
+
+        if (!enabled) {
+            return compile(tlqlProcessorService.parse(query));
+        }
+
+        String key = normalize(query);
+        QueryPlan queryPlan;
+        synchronized (plans) {
+            queryPlan = plans.get(key);
+        }
+
+        if (queryPlan != null) {
+            hits.increment();
+            return queryPlan;
+        }
+
+        // concurrent misses of the same query may compile it more than once, the last compiled plan is kept
+        misses.increment();
+        queryPlan = compile(tlqlProcessorService.parse(query));
+        synchronized (plans) {
+            plans.put(key, queryPlan);
+        }
+
+        return queryPlan;
+    }
+
+    /**
+     * Compiles the given query model without caching it.
+     *
+     * @param dslQueryModel {@link DSLQueryModel} query intermediate representation object
+     * @return compiled {@link QueryPlan} of the query
+     */
+    public QueryPlan compile(DSLQueryModel dslQueryModel) {
+        return new QueryPlan(expressionBuilder.build(dslQueryModel).map(predicateOptimizer::optimize),
+                conversionService.convert(dslQueryModel, Pageable.class));
+    }
+
+    /**
+     * Returns the current number of cached query plans.
+     *
+     * @return number of cached plans
+     */
+    public int size() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        FunctionCounter.builder(METER_PREFIX + ".requests", hits, LongAdder::sum)
+                .tag(TAG_RESULT, "hit")
+                .description("Number of queries served by a cached plan")
+                .register(registry);
+        FunctionCounter.builder(METER_PREFIX + ".requests", misses, LongAdder::sum)
+                .tag(TAG_RESULT, "miss")
+                .description("Number of queries parsed and compiled on execution")
+                .register(registry);
+        FunctionCounter.builder(METER_PREFIX + ".evictions", evictions, LongAdder::sum)
+                .description("Number of plans dropped from the cache as least recently used")
+                .register(registry);
+        Gauge.builder(METER_PREFIX + ".size", this, QueryPlanCache::size)
+                .description("Number of plans currently held by the cache")
+                .register(registry);
+    }
+
+    private Map<String, QueryPlan> createPlanMap(int capacity) {
+
+        return new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, QueryPlan> eldest) {
+
+                boolean evict = size() > capacity;
+                if (evict) {
+                    evictions.increment();
+                }
+
+                return evict;
+            }
+        };
+    }
+
+    private static String normalize(String query) {
+
+        StringBuilder normalized = new StringBuilder(query.length());
+        char openQuote = 0;
+        boolean pendingWhitespace = false;
+        for (char character : query.strip().toCharArray()) {
+            if (openQuote == 0 && Character.isWhitespace(character)) {
+                pendingWhitespace = true;
+                continue;
+            }
+
+            if (pendingWhitespace) {
+                normalized.append(' ');
+                pendingWhitespace = false;
+            }
+
+            if (openQuote == 0 && (character == '\'' || character == '"')) {
+                openQuote = character;
+            } else if (character == openQuote) {
+                openQuote = 0;
+            }
+            normalized.append(character);
+        }
+
+        return normalized.toString();
+    }
+}
@@ -3,12 +3,16 @@ package hu.psprog.leaflet.tlp.core.service.qdsl.expression.builder;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import hu.psprog.leaflet.tlp.core.config.StackTraceDeduplicationProperties;
+import hu.psprog.leaflet.tlp.core.config.TextSearchProperties;
 import hu.psprog.leaflet.tlp.core.domain.ExpressionStrategyGroup;
 import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
 import hu.psprog.leaflet.tlp.core.service.qdsl.expression.strategy.ExpressionStrategy;
 import hu.psprog.leaflet.tlql.ir.DSLCondition;
 import hu.psprog.leaflet.tlql.ir.DSLConditionGroup;
 import hu.psprog.leaflet.tlql.ir.DSLLogicalOperator;
+import hu.psprog.leaflet.tlql.ir.DSLObject;
+import hu.psprog.leaflet.tlql.ir.DSLOperator;
 import hu.psprog.leaflet.tlql.ir.DSLQueryModel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -18,10 +22,15 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Utility that can build a QueryDSL filter expression chain.
  * It requires {@link ExpressionStrategy} implementations able to process different kinds of {@link DSLCondition} objects.
+ * If enabled, the first message "like" condition of a query joining all of its conditions by AND is rewritten to full-text search
+ * (MongoDB allows only a single, non-alternative full-text search condition per query).
+ * The rewrite cannot be combined with stack trace deduplication, as deduplicated events do not contain the exception fields
+ * covered by the full-text index, so startup fails if both are enabled.
  *
  * @author Peter Smith
  */
@@ -31,11 +40,19 @@ public class ExpressionBuilder {
     private static final String LOGGING_EVENT_EXPRESSION_VARIABLE = "event";
 
     private final Map<ExpressionStrategyGroup, ExpressionStrategy> expressionStrategyMap;
+    private final boolean rewriteLikeToFullTextSearch;
 
     @Autowired
-    public ExpressionBuilder(List<ExpressionStrategy> expressionStrategyList) {
+    public ExpressionBuilder(List<ExpressionStrategy> expressionStrategyList, TextSearchProperties textSearchProperties,
+                             StackTraceDeduplicationProperties stackTraceDeduplicationProperties) {
         this.expressionStrategyMap = expressionStrategyList.stream()
                 .collect(Collectors.toMap(ExpressionStrategy::forGroup, Function.identity()));
+        this.rewriteLikeToFullTextSearch = textSearchProperties.isRewriteLike();
+
+        if (rewriteLikeToFullTextSearch && stackTraceDeduplicationProperties.isEnabled()) {
+            throw new IllegalStateException("Full-text search rewrite cannot be enabled together with stack trace deduplication, "
+                    + "as deduplicated log events do not contain the indexed exception fields");
+        }
     }
 
     /**
@@ -50,6 +67,7 @@ public class ExpressionBuilder {
         QLoggingEvent event = new QLoggingEvent(LOGGING_EVENT_EXPRESSION_VARIABLE);
         BooleanBuilder expression = new BooleanBuilder();
         DSLLogicalOperator previousGroupOperator = DSLLogicalOperator.AND;
+        boolean fullTextSearchAvailable = rewriteLikeToFullTextSearch && isConjunctive(dslQueryModel);
 
         for (DSLConditionGroup dslConditionGroup : dslQueryModel.getConditionGroups()) {
 
@@ -58,6 +76,10 @@ public class ExpressionBuilder {
 
             for (DSLCondition dslCondition : dslConditionGroup.getConditions()) {
                 ExpressionStrategyGroup group = ExpressionStrategyGroup.getByApplicationDSLObject(dslCondition.getObjectContext().getObject());
+                if (fullTextSearchAvailable && isFullTextSearchCandidate(dslCondition)) {
+                    group = ExpressionStrategyGroup.FULL_TEXT_CONDITION;
+                    fullTextSearchAvailable = false;
+                }
                 BooleanExpression conditionExpression = expressionStrategyMap.get(group).applyStrategy(event, dslCondition);
 
                 chainExpression(groupExpression, previousOperator, conditionExpression);
@@ -71,6 +93,18 @@ public class ExpressionBuilder {
         return Optional.ofNullable(expression.getValue());
     }
 
+    private boolean isConjunctive(DSLQueryModel dslQueryModel) {
+
+        return dslQueryModel.getConditionGroups().stream()
+                .flatMap(dslConditionGroup -> Stream.concat(Stream.of(dslConditionGroup.getNextConditionGroupOperator()),
+                        dslConditionGroup.getConditions().stream().map(DSLCondition::getNextConditionOperator)))
+                .noneMatch(DSLLogicalOperator.OR::equals);
+    }
+
+    private boolean isFullTextSearchCandidate(DSLCondition dslCondition) {
+        return dslCondition.getObjectContext().getObject() == DSLObject.MESSAGE && dslCondition.getOperator() == DSLOperator.LIKE;
+    }
+
     private void chainExpression(BooleanBuilder expressionGroup, DSLLogicalOperator previousGroupOperator, Predicate currentExpression) {
 
         if (previousGroupOperator == DSLLogicalOperator.AND) {
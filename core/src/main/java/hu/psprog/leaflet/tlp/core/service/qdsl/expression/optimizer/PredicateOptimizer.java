@@ -0,0 +1,313 @@
+package hu.psprog.leaflet.tlp.core.service.qdsl.expression.optimizer;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryOptimizerProperties;
+import hu.psprog.leaflet.tlp.core.service.qdsl.expression.builder.ExpressionBuilder;
+import hu.psprog.leaflet.tlp.core.service.qdsl.expression.strategy.impl.FullTextSearchExpression;
+import org.bson.BsonRegularExpression;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Normalizes and simplifies the filter expressions built by {@link ExpressionBuilder}, before they are sent to MongoDB.
+ * The expression builder chains every condition group into its own nested expression, so the same query can reach MongoDB
+ * in many different forms. The optimizer rewrites the expressions the following way (all rewrites preserve the semantics):
+ *  - nested AND and OR operations (including the wrapped condition groups) are flattened, duplicated operands are dropped;
+ *  - alternatives of equality conditions on the same field are merged into a single $in condition (case-insensitive equality
+ *    is kept as an anchored, case-insensitive regular expression within the $in list), instead of an $or, which needs a separate
+ *    plan for each of its branches;
+ *  - negated equality conditions on the same field joined by AND (not equals conditions, rendered as negated regular expressions,
+ *    as well as none-of conditions) are merged into a single $nin condition the same way;
+ *  - lower and upper bounds on the same field joined by AND are intersected, keeping only the tightest bound of both sides;
+ *  - the operands of AND operations are ordered so the conditions an index can serve come first (full-text search, exact
+ *    equality, ranges), followed by regular expression matches and negations.
+ *
+ * MongoDB's query planner does not depend on the order of the conditions, but the ordering gives the same filter to queries
+ * listing the same conditions in a different order, and makes the filters and the explain outputs easier to read.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class PredicateOptimizer {
+
+    private static final Set<Operator> EXACT_EQUALITY_OPERATORS = Set.of(Ops.EQ, Ops.IN);
+    private static final Set<Operator> EXACT_INEQUALITY_OPERATORS = Set.of(Ops.NE, Ops.NOT_IN);
+    private static final Set<Operator> LOWER_BOUND_OPERATORS = Set.of(Ops.GT, Ops.GOE);
+    private static final Set<Operator> UPPER_BOUND_OPERATORS = Set.of(Ops.LT, Ops.LOE);
+    private static final Set<Operator> RANGE_OPERATORS = Set.of(Ops.GT, Ops.GOE, Ops.LT, Ops.LOE, Ops.BETWEEN);
+    private static final Set<Operator> REGEX_PREFIX_OPERATORS = Set.of(Ops.EQ_IGNORE_CASE, Ops.STARTS_WITH, Ops.STARTS_WITH_IC);
+    private static final Set<Operator> NEGATION_OPERATORS = Set.of(Ops.NOT, Ops.NE, Ops.NOT_IN);
+    private static final String CASE_INSENSITIVE_OPTION = "i";
+
+    private final boolean enabled;
+
+    @Autowired
+    public PredicateOptimizer(QueryOptimizerProperties queryOptimizerProperties) {
+        this.enabled = queryOptimizerProperties.isEnabled();
+    }
+
+    /**
+     * Optimizes the given filter expression.
+     *
+     * @param predicate filter expression to optimize
+     * @return optimized filter expression, or the given expression as it is if the optimizer is disabled
+     */
+    public Predicate optimize(Predicate predicate) {
+        return enabled
+                ? rewrite(predicate)
+                : predicate;
+    }
+
+    private Predicate rewrite(Predicate predicate) {
+
+        Predicate unwrapped = unwrap(predicate);
+        if (unwrapped instanceof Operation<?> operation) {
+            Operator operator = operation.getOperator();
+            if (operator == Ops.AND || operator == Ops.OR) {
+                List<Predicate> operands = flatten(unwrapped, operator).stream()
+                        .map(this::rewrite)
+                        .flatMap(operand -> flatten(operand, operator).stream())
+                        .distinct()
+                        .collect(Collectors.toList());
+                return operator == Ops.AND
+                        ? conjunction(operands)
+                        : disjunction(operands);
+            }
+
+            if (operator == Ops.NOT && operation.getArg(0) instanceof Predicate negated) {
+                return ExpressionUtils.predicate(Ops.NOT, rewrite(negated));
+            }
+        }
+
+        return unwrapped;
+    }
+
+    private Predicate conjunction(List<Predicate> operands) {
+
+        List<Predicate> conjuncts = mergeValues(intersectRanges(operands), this::asExcludedValues, Ops.NOT_IN);
+        conjuncts.sort(Comparator.comparingInt(this::rank));
+
+        return ExpressionUtils.allOf(conjuncts);
+    }
+
+    private Predicate disjunction(List<Predicate> operands) {
+        return ExpressionUtils.anyOf(mergeValues(operands, this::asAcceptedValues, Ops.IN));
+    }
+
+    private List<Predicate> mergeValues(List<Predicate> operands, Function<Predicate, Optional<FieldValues>> valueExtractor,
+                                        Operator mergedOperator) {
+
+        List<Predicate> merged = new ArrayList<>(operands.size());
+        Map<Path<?>, Integer> positions = new LinkedHashMap<>();
+        Map<Path<?>, Set<Object>> values = new LinkedHashMap<>();
+        Set<Path<?>> mergedFields = new LinkedHashSet<>();
+        for (Predicate operand : operands) {
+            Optional<FieldValues> fieldValues = valueExtractor.apply(operand);
+            if (fieldValues.isEmpty()) {
+                merged.add(operand);
+            } else if (positions.containsKey(fieldValues.get().path())) {
+                values.get(fieldValues.get().path()).addAll(fieldValues.get().values());
+                mergedFields.add(fieldValues.get().path());
+            } else {
+                positions.put(fieldValues.get().path(), merged.size());
+                values.put(fieldValues.get().path(), new LinkedHashSet<>(fieldValues.get().values()));
+                merged.add(operand);
+            }
+        }
+
+        mergedFields.forEach(path -> merged.set(positions.get(path),
+                ExpressionUtils.predicate(mergedOperator, path, ConstantImpl.create(new ArrayList<>(values.get(path))))));
+
+        return merged;
+    }
+
+    private List<Predicate> intersectRanges(List<Predicate> operands) {
+
+        List<Predicate> intersected = new ArrayList<>(operands.size());
+        Map<Path<?>, Integer> lowerBounds = new LinkedHashMap<>();
+        Map<Path<?>, Integer> upperBounds = new LinkedHashMap<>();
+        for (Predicate operand : operands) {
+            Optional<Operation<?>> bound = asBound(operand);
+            if (bound.isEmpty()) {
+                intersected.add(operand);
+                continue;
+            }
+
+            Operation<?> condition = bound.get();
+            Path<?> path = (Path<?>) condition.getArg(0);
+            boolean lowerBound = LOWER_BOUND_OPERATORS.contains(condition.getOperator());
+            Map<Path<?>, Integer> positions = lowerBound ? lowerBounds : upperBounds;
+            Integer position = positions.get(path);
+            if (Objects.isNull(position)) {
+                positions.put(path, intersected.size());
+                intersected.add(operand);
+            } else if (isTighter(condition, (Operation<?>) intersected.get(position), lowerBound)) {
+                intersected.set(position, operand);
+            }
+        }
+
+        return intersected;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private boolean isTighter(Operation<?> candidate, Operation<?> current, boolean lowerBound) {
+
+        int comparison = ((Comparable) getConstant(candidate)).compareTo(getConstant(current));
+        if (comparison == 0) {
+            return candidate.getOperator() == Ops.GT || candidate.getOperator() == Ops.LT;
+        }
+
+        return lowerBound == comparison > 0;
+    }
+
+    private Optional<Operation<?>> asBound(Predicate predicate) {
+
+        return asFieldCondition(predicate)
+                .filter(condition -> LOWER_BOUND_OPERATORS.contains(condition.getOperator())
+                        || UPPER_BOUND_OPERATORS.contains(condition.getOperator()))
+                .filter(condition -> getConstant(condition) instanceof Comparable<?>);
+    }
+
+    private Optional<FieldValues> asAcceptedValues(Predicate predicate) {
+
+        return asFieldCondition(predicate)
+                .flatMap(condition -> {
+                    if (EXACT_EQUALITY_OPERATORS.contains(condition.getOperator())) {
+                        return Optional.of(new FieldValues((Path<?>) condition.getArg(0), toValues(getConstant(condition))));
+                    }
+
+                    return condition.getOperator() == Ops.EQ_IGNORE_CASE && getConstant(condition) instanceof String value
+                            ? Optional.of(new FieldValues((Path<?>) condition.getArg(0), List.of(toCaseInsensitiveRegex(value))))
+                            : Optional.empty();
+                });
+    }
+
+    private Optional<FieldValues> asExcludedValues(Predicate predicate) {
+
+        if (predicate instanceof Operation<?> operation && operation.getOperator() == Ops.NOT
+                && operation.getArg(0) instanceof Predicate negated) {
+            return asAcceptedValues(negated);
+        }
+
+        return asFieldCondition(predicate)
+                .filter(condition -> EXACT_INEQUALITY_OPERATORS.contains(condition.getOperator()))
+                .map(condition -> new FieldValues((Path<?>) condition.getArg(0), toValues(getConstant(condition))));
+    }
+
+    private Optional<Operation<?>> asFieldCondition(Predicate predicate) {
+
+        if (predicate instanceof Operation<?> operation
+                && operation.getArgs().size() == 2
+                && operation.getArg(0) instanceof Path<?>
+                && operation.getArg(1) instanceof Constant<?> constant
+                && Objects.nonNull(constant.getConstant())) {
+            return Optional.of(operation);
+        }
+
+        return Optional.empty();
+    }
+
+    private int rank(Predicate predicate) {
+
+        if (predicate instanceof FullTextSearchExpression) {
+            return 0;
+        }
+
+        if (!(predicate instanceof Operation<?> operation)) {
+            return 4;
+        }
+
+        Operator operator = operation.getOperator();
+        int rank;
+        if (EXACT_EQUALITY_OPERATORS.contains(operator) && !isRegexMatch(operation)) {
+            rank = 1;
+        } else if (RANGE_OPERATORS.contains(operator)) {
+            rank = 2;
+        } else if (REGEX_PREFIX_OPERATORS.contains(operator) || operator == Ops.IN) {
+            rank = 3;
+        } else if (NEGATION_OPERATORS.contains(operator)) {
+            rank = 5;
+        } else {
+            rank = 4;
+        }
+
+        return rank;
+    }
+
+    private boolean isRegexMatch(Operation<?> operation) {
+
+        return toValues(getConstant(operation)).stream()
+                .anyMatch(BsonRegularExpression.class::isInstance);
+    }
+
+    private Object getConstant(Operation<?> operation) {
+
+        return operation.getArgs().size() == 2 && operation.getArg(1) instanceof Constant<?> constant
+                ? constant.getConstant()
+                : null;
+    }
+
+    private Collection<?> toValues(Object constant) {
+
+        if (Objects.isNull(constant)) {
+            return List.of();
+        }
+
+        return constant instanceof Collection<?> collection
+                ? collection
+                : List.of(constant);
+    }
+
+    private BsonRegularExpression toCaseInsensitiveRegex(String value) {
+        return new BsonRegularExpression(String.format("^%s$", Pattern.quote(value)), CASE_INSENSITIVE_OPTION);
+    }
+
+    private List<Predicate> flatten(Predicate predicate, Operator operator) {
+
+        List<Predicate> operands = new ArrayList<>();
+        collectOperands(predicate, operator, operands);
+
+        return operands;
+    }
+
+    private void collectOperands(Predicate predicate, Operator operator, List<Predicate> operands) {
+
+        Predicate unwrapped = unwrap(predicate);
+        if (unwrapped instanceof Operation<?> operation && operation.getOperator() == operator) {
+            operation.getArgs().forEach(argument -> collectOperands((Predicate) argument, operator, operands));
+        } else if (Objects.nonNull(unwrapped)) {
+            operands.add(unwrapped);
+        }
+    }
+
+    private Predicate unwrap(Predicate predicate) {
+
+        return predicate instanceof BooleanBuilder booleanBuilder
+                ? unwrap(booleanBuilder.getValue())
+                : predicate;
+    }
+
+    private record FieldValues(Path<?> path, Collection<?> values) { }
+}
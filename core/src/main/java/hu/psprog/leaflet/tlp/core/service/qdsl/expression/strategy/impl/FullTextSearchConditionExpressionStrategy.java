@@ -0,0 +1,29 @@
+package hu.psprog.leaflet.tlp.core.service.qdsl.expression.strategy.impl;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import hu.psprog.leaflet.tlp.core.domain.ExpressionStrategyGroup;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlp.core.service.qdsl.expression.strategy.ExpressionStrategy;
+import hu.psprog.leaflet.tlql.ir.DSLCondition;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link ExpressionStrategy} implementation for message "like" conditions rewritten to full-text search.
+ * The value of the condition is searched as a phrase in the message, exception message and stack trace fields,
+ * using the full-text index of the log event collection.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class FullTextSearchConditionExpressionStrategy implements ExpressionStrategy {
+
+    @Override
+    public BooleanExpression applyStrategy(QLoggingEvent event, DSLCondition dslCondition) {
+        return new FullTextSearchExpression(dslCondition.getValue());
+    }
+
+    @Override
+    public ExpressionStrategyGroup forGroup() {
+        return ExpressionStrategyGroup.FULL_TEXT_CONDITION;
+    }
+}
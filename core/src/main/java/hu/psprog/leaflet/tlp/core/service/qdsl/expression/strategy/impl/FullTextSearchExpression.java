@@ -0,0 +1,82 @@
+package hu.psprog.leaflet.tlp.core.service.qdsl.expression.strategy.impl;
+
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Template;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.BooleanTemplate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.mongodb.document.MongodbDocumentSerializer;
+import org.bson.Document;
+
+import java.util.List;
+
+/**
+ * {@link BooleanExpression} matching log events by a full-text phrase search ($text query operator).
+ *
+ * QueryDSL does not support the $text operator, but the MongoDB serializer renders constant expressions as they are.
+ * So this expression presents itself to the serializer as a constant holding the $text query document, which is merged into
+ * the query document when the expression is joined with other conditions by AND (a new document is created on every visit,
+ * as the serializer may merge other conditions into it). Any other visitor sees a "text(phrase)" template expression.
+ * Since MongoDB allows a single $text operator per query, which cannot be negated or placed into an OR branch of a query,
+ * the expression must only be used in conjunctive queries.
+ *
+ * @author Peter Smith
+ */
+public class FullTextSearchExpression extends BooleanExpression implements TemplateExpression<Boolean> {
+
+    private static final String TEMPLATE = "text({0})";
+    private static final String TEXT_OPERATOR = "$text";
+    private static final String SEARCH_FIELD = "$search";
+    private static final String PHRASE_DELIMITER = "\"";
+
+    private final String phrase;
+    private final BooleanTemplate template;
+
+    public FullTextSearchExpression(String phrase) {
+        this(phrase, Expressions.booleanTemplate(TEMPLATE, phrase));
+    }
+
+    private FullTextSearchExpression(String phrase, BooleanTemplate template) {
+        super(template);
+        this.phrase = phrase;
+        this.template = template;
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> visitor, C context) {
+
+        return visitor instanceof MongodbDocumentSerializer
+                ? visitor.visit(ConstantImpl.create(createTextQuery()), context)
+                : visitor.visit((TemplateExpression<?>) this, context);
+    }
+
+    @Override
+    public Template getTemplate() {
+        return template.getTemplate();
+    }
+
+    @Override
+    public List<?> getArgs() {
+        return template.getArgs();
+    }
+
+    @Override
+    public Object getArg(int index) {
+        return template.getArg(index);
+    }
+
+    @Override
+    public BooleanExpression not() {
+        throw new UnsupportedOperationException("Full-text search expressions cannot be negated");
+    }
+
+    private Document createTextQuery() {
+
+        // the phrase itself cannot contain the delimiter, as there is no way of escaping it in a $text search string
+        String searchString = PHRASE_DELIMITER + phrase.replace(PHRASE_DELIMITER, " ") + PHRASE_DELIMITER;
+
+        return new Document(TEXT_OPERATOR, new Document(SEARCH_FIELD, searchString));
+    }
+}
@@ -0,0 +1,248 @@
+package hu.psprog.leaflet.tlp.core.service.ratelimit;
+
+import hu.psprog.leaflet.tlp.core.config.RateLimitProperties;
+import hu.psprog.leaflet.tlp.core.domain.FilteredBatch;
+import hu.psprog.leaflet.tlp.core.persistence.dao.DroppedEventCounterDAO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Per-source ingest rate limiter with level based adaptive sampling.
+ *
+ * Every source gets its own {@link TokenBucket} (with the default, or the source specific limits), so a single source
+ * flooding the service only exhausts its own bucket, while the rest of the sources are served as before.
+ * Taking a token is an in-memory operation, thus dropping events costs no database round-trip.
+ * The number of tracked sources is bounded, sources over the limit share a single overflow bucket.
+ *
+ * Dropped events are counted per source and level in memory, and the counters are periodically added to the
+ * corresponding hourly {@link hu.psprog.leaflet.tlp.core.domain.DroppedEventCounter} document by a background thread.
+ * The total number of dropped events is also exposed as Micrometer metric (tlp.ingest.rate-limit.*).
+ *
+ * Rate limiting is enabled only if tlp.ingest.rate-limit.enabled is set to true, otherwise every event is accepted.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class IngestRateLimiter implements MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestRateLimiter.class);
+    private static final String FLUSHER_THREAD_NAME = "tlp-drop-counter-flusher";
+    private static final String METER_PREFIX = "tlp.ingest.rate-limit";
+    private static final String UNKNOWN_SOURCE = "_unknown";
+    private static final String OVERFLOW_SOURCE = "_other";
+    private static final String UNKNOWN_LEVEL = "UNKNOWN";
+    private static final Pattern VALID_LEVEL = Pattern.compile("[A-Z]+");
+
+    private final DroppedEventCounterDAO droppedEventCounterDAO;
+    private final RateLimitProperties rateLimitProperties;
+    private final Map<String, Double> levelReserves;
+    private final LongSupplier nanoClock;
+    private final DoubleSupplier random;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LongAdder>> droppedCounters = new ConcurrentHashMap<>();
+    private final LongAdder totalDropped = new LongAdder();
+
+    private ScheduledExecutorService counterFlusher;
+
+    @Autowired
+    public IngestRateLimiter(DroppedEventCounterDAO droppedEventCounterDAO, RateLimitProperties rateLimitProperties) {
+        this(droppedEventCounterDAO, rateLimitProperties, System::nanoTime, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    IngestRateLimiter(DroppedEventCounterDAO droppedEventCounterDAO, RateLimitProperties rateLimitProperties,
+                      LongSupplier nanoClock, DoubleSupplier random) {
+        this.droppedEventCounterDAO = droppedEventCounterDAO;
+        this.rateLimitProperties = rateLimitProperties;
+        this.levelReserves = rateLimitProperties.getLevelReserves().entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().toUpperCase(Locale.ROOT), Map.Entry::getValue));
+        this.nanoClock = nanoClock;
+        this.random = random;
+    }
+
+    /**
+     * Starts periodically persisting the dropped event counters (if rate limiting is enabled).
+     */
+    @PostConstruct
+    public void start() {
+
+        if (!rateLimitProperties.isEnabled()) {
+            return;
+        }
+
+        long flushIntervalInMillis = rateLimitProperties.getCounterFlushInterval().toMillis();
+        counterFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, FLUSHER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        counterFlusher.scheduleWithFixedDelay(this::flushDroppedCounters, flushIntervalInMillis, flushIntervalInMillis, TimeUnit.MILLISECONDS);
+        LOGGER.info("Ingest rate limiting enabled");
+    }
+
+    /**
+     * Stops the background flusher, and persists the remaining dropped event counters.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        if (counterFlusher != null) {
+            counterFlusher.shutdown();
+            flushDroppedCounters();
+        }
+    }
+
+    /**
+     * Decides whether an event of the given source and level can be accepted.
+     *
+     * @param source source of the event
+     * @param level log level of the event
+     * @return {@code true} if the event is accepted, {@code false} if it should be dropped
+     */
+    public boolean tryAcquire(String source, String level) {
+
+        if (!rateLimitProperties.isEnabled()) {
+            return true;
+        }
+
+        String bucketKey = resolveBucketKey(source);
+        String normalizedLevel = normalizeLevel(level);
+        TokenBucket bucket = buckets.computeIfAbsent(bucketKey, this::createBucket);
+        if (bucket.tryAcquire(levelReserves.getOrDefault(normalizedLevel, 0.0), nanoClock.getAsLong(), random)) {
+            return true;
+        }
+
+        droppedCounters.computeIfAbsent(bucketKey, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(normalizedLevel, key -> new LongAdder())
+                .increment();
+        totalDropped.increment();
+
+        return false;
+    }
+
+    /**
+     * Filters the given list of items, keeping only the ones accepted by the rate limiter.
+     *
+     * @param items list of log event ingestion items
+     * @param sourceExtractor function returning the source of an item
+     * @param levelExtractor function returning the log level of an item
+     * @param <T> type of the items
+     * @return {@link FilteredBatch} containing the accepted items
+     */
+    public <T> FilteredBatch<T> admit(List<T> items, Function<T, String> sourceExtractor, Function<T, String> levelExtractor) {
+
+        List<T> admittedItems = new ArrayList<>(items.size());
+        List<Integer> itemIndices = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            T item = items.get(index);
+            if (tryAcquire(sourceExtractor.apply(item), levelExtractor.apply(item))) {
+                admittedItems.add(item);
+                itemIndices.add(index);
+            }
+        }
+
+        return new FilteredBatch<>(admittedItems, itemIndices);
+    }
+
+    /**
+     * Adds the in-memory dropped event counters to the stored counters of the current hour, and resets them.
+     * Counters failed to be persisted are kept for the next attempt.
+     */
+    public void flushDroppedCounters() {
+
+        Date periodStart = Date.from(Instant.now().truncatedTo(ChronoUnit.HOURS));
+        droppedCounters.forEach((source, levelCounters) -> {
+
+            Map<String, Long> droppedByLevel = new HashMap<>();
+            levelCounters.forEach((level, counter) -> {
+                long count = counter.sumThenReset();
+                if (count > 0) {
+                    droppedByLevel.put(level, count);
+                }
+            });
+
+            if (droppedByLevel.isEmpty()) {
+                return;
+            }
+
+            try {
+                droppedEventCounterDAO.increment(source, periodStart, droppedByLevel);
+            } catch (Exception exception) {
+                LOGGER.error(String.format("Failed to persist dropped event counters of source [%s]", source), exception);
+                droppedByLevel.forEach((level, count) -> levelCounters.get(level).add(count));
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        FunctionCounter.builder(METER_PREFIX + ".dropped", totalDropped, LongAdder::sum)
+                .description("Number of log events dropped by ingest rate limiting")
+                .register(registry);
+        Gauge.builder(METER_PREFIX + ".sources", buckets, Map::size)
+                .description("Number of sources tracked by the ingest rate limiter")
+                .register(registry);
+    }
+
+    private String resolveBucketKey(String source) {
+
+        if (source == null) {
+            return UNKNOWN_SOURCE;
+        }
+
+        return buckets.containsKey(source) || buckets.size() < rateLimitProperties.getMaxTrackedSources()
+                ? source
+                : OVERFLOW_SOURCE;
+    }
+
+    private String normalizeLevel(String level) {
+
+        if (level == null) {
+            return UNKNOWN_LEVEL;
+        }
+
+        // levels are used as field names of the stored counters, hence the restriction
+        String normalizedLevel = level.toUpperCase(Locale.ROOT);
+
+        return VALID_LEVEL.matcher(normalizedLevel).matches()
+                ? normalizedLevel
+                : UNKNOWN_LEVEL;
+    }
+
+    private TokenBucket createBucket(String source) {
+
+        RateLimitProperties.SourceLimit sourceLimit = rateLimitProperties.getSources().get(source);
+
+        return sourceLimit != null
+                ? new TokenBucket(sourceLimit.getEventsPerSecond(), sourceLimit.getBurst(), nanoClock.getAsLong())
+                : new TokenBucket(rateLimitProperties.getEventsPerSecond(), rateLimitProperties.getBurst(), nanoClock.getAsLong());
+    }
+}
@@ -0,0 +1,57 @@
+package hu.psprog.leaflet.tlp.core.service.ratelimit;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Token bucket of a single ingest source, with level based reserves.
+ * The bucket is refilled continuously at the configured rate, up to its burst capacity, and every accepted event takes one token.
+ * Events of levels having a reserve are accepted unconditionally only while the bucket's fill ratio is above their reserve.
+ * Below that, they are sampled with probability fill ratio / reserve, so the acceptance rate of lower levels
+ * decreases gradually as the bucket drains, leaving the remaining tokens for higher levels.
+ *
+ * @author Peter Smith
+ */
+class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefillTime;
+
+    TokenBucket(double eventsPerSecond, int burst, long now) {
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = eventsPerSecond / NANOS_PER_SECOND;
+        this.tokens = capacity;
+        this.lastRefillTime = now;
+    }
+
+    /**
+     * Tries to take a token for an event.
+     *
+     * @param reserve portion of the bucket reserved for higher levels than the level of the event
+     * @param now current time in nanoseconds
+     * @param random source of random numbers between 0.0 (inclusive) and 1.0 (exclusive) for sampling
+     * @return {@code true} if the event is accepted, {@code false} if it should be dropped
+     */
+    synchronized boolean tryAcquire(double reserve, long now, DoubleSupplier random) {
+
+        tokens = Math.min(capacity, tokens + (now - lastRefillTime) * tokensPerNano);
+        lastRefillTime = now;
+
+        if (tokens < 1) {
+            return false;
+        }
+
+        double fillRatio = tokens / capacity;
+        if (fillRatio < reserve && random.getAsDouble() >= fillRatio / reserve) {
+            return false;
+        }
+
+        tokens -= 1;
+
+        return true;
+    }
+}
@@ -0,0 +1,156 @@
+package hu.psprog.leaflet.tlp.core.service.rollup;
+
+import hu.psprog.leaflet.tlp.core.config.RollupProperties;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupResult;
+import hu.psprog.leaflet.tlp.core.domain.RollupBucket;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventRollupDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Answers count and rate queries from the log event rollup counters alone, without touching the log events themselves.
+ *
+ * If the query does not specify a resolution, the finest one is selected that keeps the number of periods within the configured
+ * limit, and whose counters are still retained for the whole time range (falling back to daily counters for very long ranges).
+ * Explicitly requested resolutions exceeding the limit are rejected. Rates are calculated as events per second, over the part
+ * of the period falling within the time range (so the rate of the current, still open period is not underestimated).
+ * Minute counters lag behind ingestion by the configured flush interval, coarser counters by the compaction interval.
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class LogEventRollupReader {
+
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private final LogEventRollupDAO logEventRollupDAO;
+    private final RollupProperties rollupProperties;
+    private final LongSupplier clock;
+
+    @Autowired
+    public LogEventRollupReader(LogEventRollupDAO logEventRollupDAO, RollupProperties rollupProperties) {
+        this(logEventRollupDAO, rollupProperties, System::currentTimeMillis);
+    }
+
+    LogEventRollupReader(LogEventRollupDAO logEventRollupDAO, RollupProperties rollupProperties, LongSupplier clock) {
+        this.logEventRollupDAO = logEventRollupDAO;
+        this.rollupProperties = rollupProperties;
+        this.clock = clock;
+    }
+
+    /**
+     * Sums up the rollup counters matching the given query per period.
+     *
+     * @param rollupQuery {@link LogEventRollupQuery} to be answered
+     * @return {@link LogEventRollupResult} containing the non-empty buckets, and the total count and rate of the time range
+     * @throws IllegalArgumentException if the time range is empty, or the requested resolution would exceed the configured maximum number of periods
+     * @throws IllegalStateException if rollups are disabled
+     */
+    public LogEventRollupResult query(LogEventRollupQuery rollupQuery) {
+
+        if (!rollupProperties.isEnabled()) {
+            throw new IllegalStateException("Log event rollups are disabled");
+        }
+
+        long now = clock.getAsLong();
+        Date to = Objects.requireNonNullElseGet(rollupQuery.to(), () -> new Date(now));
+        if (!rollupQuery.from().before(to)) {
+            throw new IllegalArgumentException(String.format("Rollup time range starting at [%s] is empty", rollupQuery.from().toInstant()));
+        }
+        RollupResolution resolution = resolveResolution(rollupQuery, to, now);
+
+        LogEventRollupQuery resolvedQuery = new LogEventRollupQuery(resolution.truncate(rollupQuery.from()), to, resolution,
+                rollupQuery.dimensions(), rollupQuery.sources(), rollupQuery.levels());
+        int maxBuckets = rollupProperties.getMaxBuckets();
+        List<AggregationBucket> aggregationBuckets = logEventRollupDAO.aggregate(resolvedQuery, maxBuckets + 1);
+        boolean truncated = aggregationBuckets.size() > maxBuckets;
+        List<RollupBucket> buckets = aggregationBuckets.stream()
+                .limit(maxBuckets)
+                .map(aggregationBucket -> mapBucket(aggregationBucket, resolution, to))
+                .collect(Collectors.toList());
+        long count = truncated
+                ? logEventRollupDAO.count(resolvedQuery)
+                : buckets.stream().mapToLong(RollupBucket::count).sum();
+
+        return LogEventRollupResult.getBuilder()
+                .withResolution(resolution)
+                .withFrom(resolvedQuery.from())
+                .withTo(to)
+                .withDimensions(rollupQuery.getDimensionNames())
+                .withBuckets(buckets)
+                .withCount(count)
+                .withRate(calculateRate(count, resolvedQuery.from(), to))
+                .withTruncated(truncated)
+                .build();
+    }
+
+    private RollupResolution resolveResolution(LogEventRollupQuery rollupQuery, Date to, long now) {
+
+        RollupResolution resolution = rollupQuery.resolution();
+        if (Objects.isNull(resolution)) {
+            return selectResolution(rollupQuery.from(), to, now);
+        }
+
+        if (countPeriods(rollupQuery.from(), to, resolution) > rollupProperties.getMaxPeriods()) {
+            throw new IllegalArgumentException(String.format("Rollup time range spans more than [%d] periods at resolution [%s]",
+                    rollupProperties.getMaxPeriods(), resolution));
+        }
+
+        return resolution;
+    }
+
+    private RollupResolution selectResolution(Date from, Date to, long now) {
+
+        return Stream.of(RollupResolution.values())
+                .filter(resolution -> isRetained(resolution, from, now))
+                .filter(resolution -> countPeriods(from, to, resolution) <= rollupProperties.getMaxPeriods())
+                .findFirst()
+                .orElse(RollupResolution.DAY);
+    }
+
+    private boolean isRetained(RollupResolution resolution, Date from, long now) {
+
+        Duration retention = rollupProperties.getRetention(resolution);
+
+        return retention.isZero() || from.getTime() >= now - retention.toMillis();
+    }
+
+    private long countPeriods(Date from, Date to, RollupResolution resolution) {
+
+        long periodInMillis = resolution.getPeriod().toMillis();
+
+        return Math.floorDiv(to.getTime() - resolution.truncate(from).getTime() + periodInMillis - 1, periodInMillis);
+    }
+
+    private RollupBucket mapBucket(AggregationBucket aggregationBucket, RollupResolution resolution, Date to) {
+
+        List<Object> key = aggregationBucket.key();
+        Date periodStart = (Date) key.get(0);
+        Date periodEnd = new Date(Math.min(periodStart.getTime() + resolution.getPeriod().toMillis(), to.getTime()));
+
+        return new RollupBucket(periodStart, key.subList(1, key.size()), aggregationBucket.count(),
+                calculateRate(aggregationBucket.count(), periodStart, periodEnd));
+    }
+
+    private double calculateRate(long count, Date from, Date to) {
+
+        long lengthInMillis = to.getTime() - from.getTime();
+
+        return lengthInMillis > 0
+                ? count * MILLIS_PER_SECOND / lengthInMillis
+                : 0.0;
+    }
+}
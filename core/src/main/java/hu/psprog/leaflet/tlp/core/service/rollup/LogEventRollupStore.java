@@ -0,0 +1,169 @@
+package hu.psprog.leaflet.tlp.core.service.rollup;
+
+import hu.psprog.leaflet.tlp.core.config.RollupProperties;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.RollupKey;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventRollupDAO;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventStorageHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Maintains the per-minute log event rollup counters, keyed by source, level and logger.
+ *
+ * Stored events are counted in memory, and the counters are periodically added to the stored minute counters by a background
+ * thread, using a single bulk write of $inc upserts, so counting the events costs no additional database round-trip at ingestion.
+ * The same thread also compacts the minute counters into hourly, and the hourly counters into daily counters. Compaction
+ * recalculates the coarser counters of the configured lookback period on every run, so late and re-flushed minute counters
+ * are picked up as well. Counters expire after the retention configured for their resolution.
+ *
+ * Rollups are maintained only if tlp.storage.rollup.enabled is set to true (default).
+ *
+ * @author Peter Smith
+ */
+@Component
+public class LogEventRollupStore implements LoggingEventStorageHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogEventRollupStore.class);
+    private static final String WORKER_THREAD_NAME = "tlp-rollup-worker";
+
+    private final LogEventRollupDAO logEventRollupDAO;
+    private final RollupProperties rollupProperties;
+    private final LongSupplier clock;
+    private final Map<RollupKey, Long> minuteCounters = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService rollupWorker;
+
+    @Autowired
+    public LogEventRollupStore(LogEventRollupDAO logEventRollupDAO, RollupProperties rollupProperties) {
+        this(logEventRollupDAO, rollupProperties, System::currentTimeMillis);
+    }
+
+    LogEventRollupStore(LogEventRollupDAO logEventRollupDAO, RollupProperties rollupProperties, LongSupplier clock) {
+        this.logEventRollupDAO = logEventRollupDAO;
+        this.rollupProperties = rollupProperties;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts periodically persisting the minute counters and compacting them (if rollups are enabled).
+     */
+    @PostConstruct
+    public void start() {
+
+        if (!rollupProperties.isEnabled()) {
+            return;
+        }
+
+        long flushIntervalInMillis = rollupProperties.getFlushInterval().toMillis();
+        long compactionIntervalInMillis = rollupProperties.getCompactionInterval().toMillis();
+        rollupWorker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, WORKER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        rollupWorker.scheduleWithFixedDelay(this::flush, flushIntervalInMillis, flushIntervalInMillis, TimeUnit.MILLISECONDS);
+        rollupWorker.scheduleWithFixedDelay(this::compact, compactionIntervalInMillis, compactionIntervalInMillis, TimeUnit.MILLISECONDS);
+        LOGGER.info("Log event rollups enabled");
+    }
+
+    /**
+     * Stops the background worker, and persists the remaining minute counters.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        if (rollupWorker != null) {
+            rollupWorker.shutdown();
+            flush();
+        }
+    }
+
+    @Override
+    public void afterStore(List<LoggingEvent> loggingEvents) {
+        loggingEvents.forEach(loggingEvent -> record(loggingEvent.getTimeStamp(), loggingEvent.getSource(),
+                loggingEvent.getLevel(), loggingEvent.getLoggerName()));
+    }
+
+    /**
+     * Counts a stored log event towards the minute counter of its timestamp, source, level and logger.
+     * Does nothing if rollups are disabled, or the event has no timestamp.
+     *
+     * @param timeStamp timestamp of the event
+     * @param source source of the event
+     * @param level log level of the event
+     * @param loggerName logger name of the event
+     */
+    public void record(Date timeStamp, String source, String level, String loggerName) {
+
+        if (!rollupProperties.isEnabled() || Objects.isNull(timeStamp)) {
+            return;
+        }
+
+        RollupKey rollupKey = new RollupKey(RollupResolution.MINUTE, RollupResolution.MINUTE.truncate(timeStamp), source, level, loggerName);
+        minuteCounters.merge(rollupKey, 1L, Long::sum);
+    }
+
+    /**
+     * Adds the in-memory minute counters to the stored ones, and resets them.
+     * Counters failed to be persisted are kept for the next attempt.
+     */
+    public void flush() {
+
+        // counters are removed atomically, events recorded in the meantime start a new counter
+        Map<RollupKey, Long> increments = new HashMap<>();
+        minuteCounters.keySet().forEach(rollupKey -> {
+            Long count = minuteCounters.remove(rollupKey);
+            if (Objects.nonNull(count)) {
+                increments.put(rollupKey, count);
+            }
+        });
+
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        try {
+            logEventRollupDAO.increment(increments, rollupProperties.getMinuteRetention());
+        } catch (Exception exception) {
+            LOGGER.error(String.format("Failed to persist [%d] rollup counters", increments.size()), exception);
+            increments.forEach((rollupKey, count) -> minuteCounters.merge(rollupKey, count, Long::sum));
+        }
+    }
+
+    /**
+     * Recalculates the hourly counters from the minute counters, then the daily counters from the hourly counters,
+     * for the periods within the configured lookback.
+     */
+    public void compact() {
+
+        Date lookbackStart = new Date(clock.getAsLong() - rollupProperties.getCompactionLookback().toMillis());
+        try {
+            compact(RollupResolution.MINUTE, RollupResolution.HOUR, lookbackStart, rollupProperties.getHourRetention());
+            compact(RollupResolution.HOUR, RollupResolution.DAY, lookbackStart, rollupProperties.getDayRetention());
+        } catch (Exception exception) {
+            LOGGER.error("Failed to compact rollup counters", exception);
+        }
+    }
+
+    private void compact(RollupResolution sourceResolution, RollupResolution targetResolution, Date lookbackStart, Duration retention) {
+        logEventRollupDAO.compact(sourceResolution, targetResolution, targetResolution.truncate(lookbackStart), retention);
+    }
+}
@@ -0,0 +1,182 @@
+package hu.psprog.leaflet.tlp.core.service.stacktrace;
+
+import hu.psprog.leaflet.tlp.core.config.StackTraceDeduplicationProperties;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.StackTraceEntry;
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.persistence.dao.StackTraceDAO;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventStorageHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Content-addressed store of exception trees.
+ * When stack trace deduplication is enabled, every exception tree (including its causes and suppressed exceptions)
+ * is identified by the SHA-256 fingerprint of its content, and stored only once in a separate collection.
+ * The log events themselves keep only the fingerprint. Since the whole tree is hashed, exceptions differing only in their
+ * message are stored as separate entries.
+ *
+ * Recently stored fingerprints are remembered in a bounded in-memory cache, so repeating exceptions
+ * do not require any additional database roundtrip on ingestion.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Order(100)
+public class StackTraceStore implements LoggingEventStorageHandler {
+
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    private static final byte FIELD_SEPARATOR = 0x1F;
+    private static final byte NODE_START = 0x02;
+    private static final byte NODE_END = 0x03;
+    private static final byte NULL_MARKER = 0x00;
+
+    private final StackTraceDAO stackTraceDAO;
+    private final boolean enabled;
+    private final Set<String> knownFingerprints;
+
+    @Autowired
+    public StackTraceStore(StackTraceDAO stackTraceDAO, StackTraceDeduplicationProperties stackTraceDeduplicationProperties) {
+        this.stackTraceDAO = stackTraceDAO;
+        this.enabled = stackTraceDeduplicationProperties.isEnabled();
+        this.knownFingerprints = createKnownFingerprintCache(stackTraceDeduplicationProperties.getKnownFingerprintCacheSize());
+    }
+
+    @Override
+    public void beforeStore(List<LoggingEvent> loggingEvents) {
+        deduplicate(loggingEvents);
+    }
+
+    /**
+     * Moves the exception trees of the given {@link LoggingEvent} objects to the stack trace store, replacing them
+     * with their fingerprint. Exception trees not yet stored are written in a single bulk write.
+     * Does nothing if stack trace deduplication is disabled.
+     *
+     * @param loggingEvents {@link LoggingEvent} objects to be deduplicated (modified in place)
+     */
+    public void deduplicate(List<LoggingEvent> loggingEvents) {
+
+        if (!enabled) {
+            return;
+        }
+
+        Map<String, ThrowableProxyLogItem> unknownExceptions = new LinkedHashMap<>();
+        loggingEvents.stream()
+                .filter(loggingEvent -> Objects.nonNull(loggingEvent.getException()))
+                .forEach(loggingEvent -> {
+                    String fingerprint = fingerprint(loggingEvent.getException());
+                    if (!knownFingerprints.contains(fingerprint)) {
+                        unknownExceptions.putIfAbsent(fingerprint, loggingEvent.getException());
+                    }
+                    loggingEvent.setExceptionFingerprint(fingerprint);
+                    loggingEvent.setException(null);
+                });
+
+        if (!unknownExceptions.isEmpty()) {
+            storeUnknownExceptions(unknownExceptions);
+        }
+    }
+
+    /**
+     * Returns the exception trees stored under the given fingerprints with a single lookup.
+     *
+     * @param fingerprints fingerprints to be resolved
+     * @return exception trees as {@link ThrowableProxyLogItem} objects mapped by their fingerprint
+     */
+    public Map<String, ThrowableProxyLogItem> resolve(Collection<String> fingerprints) {
+
+        if (fingerprints.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return stackTraceDAO.findAllByFingerprints(fingerprints).stream()
+                .collect(Collectors.toMap(StackTraceEntry::fingerprint, StackTraceEntry::exception));
+    }
+
+    private void storeUnknownExceptions(Map<String, ThrowableProxyLogItem> unknownExceptions) {
+
+        Set<String> existingFingerprints = stackTraceDAO.findExistingFingerprints(unknownExceptions.keySet());
+        Date createdAt = new Date();
+        List<StackTraceEntry> newEntries = unknownExceptions.entrySet().stream()
+                .filter(entry -> !existingFingerprints.contains(entry.getKey()))
+                .map(entry -> StackTraceEntry.getBuilder()
+                        .withFingerprint(entry.getKey())
+                        .withException(entry.getValue())
+                        .withCreatedAt(createdAt)
+                        .build())
+                .collect(Collectors.toList());
+
+        stackTraceDAO.saveAll(newEntries);
+        knownFingerprints.addAll(unknownExceptions.keySet());
+    }
+
+    private String fingerprint(ThrowableProxyLogItem exception) {
+
+        MessageDigest messageDigest = createMessageDigest();
+        digest(messageDigest, exception);
+
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    private void digest(MessageDigest messageDigest, ThrowableProxyLogItem exception) {
+
+        if (Objects.isNull(exception)) {
+            messageDigest.update(NULL_MARKER);
+            return;
+        }
+
+        messageDigest.update(NODE_START);
+        digest(messageDigest, exception.getClassName());
+        digest(messageDigest, exception.getMessage());
+        digest(messageDigest, exception.getStackTrace());
+        digest(messageDigest, exception.getCause());
+        if (Objects.nonNull(exception.getSuppressed())) {
+            exception.getSuppressed().forEach(suppressed -> digest(messageDigest, suppressed));
+        }
+        messageDigest.update(NODE_END);
+    }
+
+    private void digest(MessageDigest messageDigest, String value) {
+
+        if (Objects.isNull(value)) {
+            messageDigest.update(NULL_MARKER);
+        } else {
+            messageDigest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        messageDigest.update(FIELD_SEPARATOR);
+    }
+
+    private MessageDigest createMessageDigest() {
+
+        try {
+            return MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 algorithm is not available", exception);
+        }
+    }
+
+    private static Set<String> createKnownFingerprintCache(int capacity) {
+
+        return Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        }));
+    }
+}
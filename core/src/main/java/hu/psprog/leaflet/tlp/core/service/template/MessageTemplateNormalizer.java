@@ -0,0 +1,42 @@
+package hu.psprog.leaflet.tlp.core.service.template;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Reduces log and exception messages to their template, so messages differing only in their variable parts
+ * (identifiers, addresses, counters, etc.) can be grouped together.
+ * UUIDs, hexadecimal values and numbers of the message are replaced by placeholders (in this order).
+ *
+ * @author Peter Smith
+ */
+@Component
+public class MessageTemplateNormalizer {
+
+    private static final Pattern UUID_PATTERN = Pattern.compile("\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern HEX_PATTERN = Pattern.compile("\\b0x[0-9a-fA-F]+\\b|\\b(?=[0-9a-fA-F]*[0-9])[0-9a-fA-F]{8,}\\b");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+");
+    private static final String UUID_PLACEHOLDER = "<uuid>";
+    private static final String HEX_PLACEHOLDER = "<hex>";
+    private static final String NUMBER_PLACEHOLDER = "<n>";
+
+    /**
+     * Returns the template of the given message.
+     *
+     * @param message message to be normalized
+     * @return template of the message, or null if the message is null
+     */
+    public String normalize(String message) {
+
+        if (Objects.isNull(message)) {
+            return null;
+        }
+
+        String template = UUID_PATTERN.matcher(message).replaceAll(UUID_PLACEHOLDER);
+        template = HEX_PATTERN.matcher(template).replaceAll(HEX_PLACEHOLDER);
+
+        return NUMBER_PATTERN.matcher(template).replaceAll(NUMBER_PLACEHOLDER);
+    }
+}
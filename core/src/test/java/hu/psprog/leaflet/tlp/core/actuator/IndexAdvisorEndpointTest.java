@@ -0,0 +1,82 @@
+package hu.psprog.leaflet.tlp.core.actuator;
+
+import hu.psprog.leaflet.tlp.core.domain.IndexAdvisorReport;
+import hu.psprog.leaflet.tlp.core.domain.IndexBuildStatus;
+import hu.psprog.leaflet.tlp.core.service.index.IndexAdvisor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit tests for {@link IndexAdvisorEndpoint}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class IndexAdvisorEndpointTest {
+
+    private static final String INDEX_NAME = "tlp-index.advised.source_timeStamp-desc";
+    private static final IndexAdvisorReport INDEX_ADVISOR_REPORT = IndexAdvisorReport.getBuilder()
+            .withShapes(List.of())
+            .withRecommendations(List.of())
+            .withUnusedIndexes(List.of())
+            .withBuilds(Map.of())
+            .build();
+
+    @Mock
+    private IndexAdvisor indexAdvisor;
+
+    @InjectMocks
+    private IndexAdvisorEndpoint indexAdvisorEndpoint;
+
+    @Test
+    public void shouldReturnReport() {
+
+        // given
+        given(indexAdvisor.getReport()).willReturn(INDEX_ADVISOR_REPORT);
+
+        // when
+        IndexAdvisorReport result = indexAdvisorEndpoint.report();
+
+        // then
+        assertThat(result, equalTo(INDEX_ADVISOR_REPORT));
+    }
+
+    @Test
+    public void shouldStartIndexBuild() {
+
+        // given
+        given(indexAdvisor.buildIndex(INDEX_NAME)).willReturn(Optional.of(IndexBuildStatus.PENDING));
+
+        // when
+        WebEndpointResponse<IndexBuildStatus> result = indexAdvisorEndpoint.buildIndex(INDEX_NAME);
+
+        // then
+        assertThat(result.getStatus(), equalTo(WebEndpointResponse.STATUS_OK));
+        assertThat(result.getBody(), equalTo(IndexBuildStatus.PENDING));
+    }
+
+    @Test
+    public void shouldRespondWithNotFoundForUnknownRecommendation() {
+
+        // given
+        given(indexAdvisor.buildIndex(INDEX_NAME)).willReturn(Optional.empty());
+
+        // when
+        WebEndpointResponse<IndexBuildStatus> result = indexAdvisorEndpoint.buildIndex(INDEX_NAME);
+
+        // then
+        assertThat(result.getStatus(), equalTo(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+}
@@ -1,11 +1,12 @@
 package hu.psprog.leaflet.tlp.core.conversion;
 
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
 import hu.psprog.leaflet.tlql.ir.DSLObject;
 import hu.psprog.leaflet.tlql.ir.DSLOrderDirection;
 import hu.psprog.leaflet.tlql.ir.DSLQueryModel;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -21,9 +22,15 @@ import static org.hamcrest.MatcherAssert.assertThat;
 @ExtendWith(MockitoExtension.class)
 class DSLQueryModelToPageRequestConverterTest {
 
-    @InjectMocks
     private DSLQueryModelToPageRequestConverter converter;
 
+    @BeforeEach
+    public void setup() {
+        QueryGuardProperties queryGuardProperties = new QueryGuardProperties();
+        queryGuardProperties.setMaxPageSize(100);
+        converter = new DSLQueryModelToPageRequestConverter(queryGuardProperties);
+    }
+
     @Test
     public void shouldConvertCreateDefaultPageableObjectForEmptyDSLQueryModel() {
 
@@ -37,7 +44,7 @@ class DSLQueryModelToPageRequestConverterTest {
         assertThat(result.getPageNumber(), equalTo(0));
         assertThat(result.getPageSize(), equalTo(50));
         assertThat(result.getOffset(), equalTo(0L));
-        assertThat(result.getSort(), equalTo(Sort.by(Sort.Direction.DESC, "timeStamp")));
+        assertThat(result.getSort(), equalTo(Sort.by(Sort.Direction.DESC, "timeStamp", "id")));
     }
 
     @Test
@@ -55,7 +62,44 @@ class DSLQueryModelToPageRequestConverterTest {
         assertThat(result.getPageNumber(), equalTo(7));
         assertThat(result.getPageSize(), equalTo(20));
         assertThat(result.getOffset(), equalTo(140L));
-        assertThat(result.getSort(), equalTo(Sort.by(Sort.Direction.DESC, "timeStamp")));
+        assertThat(result.getSort(), equalTo(Sort.by(Sort.Direction.DESC, "timeStamp", "id")));
+    }
+
+    @Test
+    public void shouldConvertKeepOffsetNotBeingMultipleOfLimit() {
+
+        // given
+        DSLQueryModel dslQueryModel = new DSLQueryModel();
+        dslQueryModel.setLimit(10);
+        dslQueryModel.setOffset(15);
+
+        // when
+        Pageable result = converter.convert(dslQueryModel);
+
+        // then
+        assertThat(result.getOffset(), equalTo(15L));
+        assertThat(result.getPageSize(), equalTo(10));
+        assertThat(result.getPageNumber(), equalTo(1));
+        assertThat(result.next().getOffset(), equalTo(25L));
+        assertThat(result.previousOrFirst().getOffset(), equalTo(5L));
+        assertThat(result.getSort(), equalTo(Sort.by(Sort.Direction.DESC, "timeStamp", "id")));
+    }
+
+    @Test
+    public void shouldConvertLowerLimitToMaximumPageSize() {
+
+        // given
+        DSLQueryModel dslQueryModel = new DSLQueryModel();
+        dslQueryModel.setLimit(5000);
+        dslQueryModel.setOffset(200);
+
+        // when
+        Pageable result = converter.convert(dslQueryModel);
+
+        // then
+        assertThat(result.getPageNumber(), equalTo(2));
+        assertThat(result.getPageSize(), equalTo(100));
+        assertThat(result.getOffset(), equalTo(200L));
     }
 
     @Test
@@ -97,4 +141,19 @@ class DSLQueryModelToPageRequestConverterTest {
         assertThat(result.getSort(), equalTo(Sort.by(Sort.Direction.DESC, "content")
                 .and(Sort.by(Sort.Direction.ASC, "timeStamp"))));
     }
+
+    @Test
+    public void shouldConvertCreatePageableObjectWithTimestampPaginationExtendedByID() {
+
+        // given
+        DSLQueryModel dslQueryModel = new DSLQueryModel();
+        dslQueryModel.setLimit(10);
+        dslQueryModel.getOrdering().put(DSLObject.TIMESTAMP, DSLOrderDirection.ASC);
+
+        // when
+        Pageable result = converter.convert(dslQueryModel);
+
+        // then
+        assertThat(result.getSort(), equalTo(Sort.by(Sort.Direction.ASC, "timeStamp", "id")));
+    }
 }
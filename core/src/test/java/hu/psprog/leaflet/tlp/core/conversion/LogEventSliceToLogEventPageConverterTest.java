@@ -0,0 +1,102 @@
+package hu.psprog.leaflet.tlp.core.conversion;
+
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.core.domain.LogEventSlice;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit tests for {@link LogEventSliceToLogEventPageConverter}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class LogEventSliceToLogEventPageConverterTest {
+
+    private static final LoggingEvent CORE_LOGGING_EVENT_1 = LoggingEvent.getBuilder().withContent("log1").build();
+    private static final LoggingEvent CORE_LOGGING_EVENT_2 = LoggingEvent.getBuilder().withContent("log2").build();
+    private static final hu.psprog.leaflet.tlp.api.domain.LoggingEvent API_LOGGING_EVENT_1 = hu.psprog.leaflet.tlp.api.domain.LoggingEvent.getBuilder().withContent("log1").build();
+    private static final hu.psprog.leaflet.tlp.api.domain.LoggingEvent API_LOGGING_EVENT_2 = hu.psprog.leaflet.tlp.api.domain.LoggingEvent.getBuilder().withContent("log2").build();
+    private static final List<LoggingEvent> LOGGING_EVENT_LIST = Arrays.asList(CORE_LOGGING_EVENT_1, CORE_LOGGING_EVENT_2);
+    private static final List<hu.psprog.leaflet.tlp.api.domain.LoggingEvent> EXPECTED_EVENT_LIST = Arrays.asList(API_LOGGING_EVENT_1, API_LOGGING_EVENT_2);
+
+    @Mock
+    private LoggingEventEntityToDomainConverter entityConverter;
+
+    @InjectMocks
+    private LogEventSliceToLogEventPageConverter converter;
+
+    @Test
+    public void shouldConvertWithLowerBoundCount() {
+
+        // given
+        LogEventSlice source = new LogEventSlice(new SliceImpl<>(LOGGING_EVENT_LIST, PageRequest.of(1, 2), true), TotalCount.atLeast(0, null));
+        given(entityConverter.convertAll(LOGGING_EVENT_LIST)).willReturn(EXPECTED_EVENT_LIST);
+
+        // when
+        LogEventPage result = converter.convert(source);
+
+        // then
+        assertThat(result.entitiesOnPage(), equalTo(EXPECTED_EVENT_LIST));
+        assertThat(result.pageCount(), equalTo(3));
+        assertThat(result.pageSize(), equalTo(2));
+        assertThat(result.pageNumber(), equalTo(2));
+        assertThat(result.entityCount(), equalTo(5L));
+        assertThat(result.entityCountOnPage(), equalTo(2));
+        assertThat(result.first(), is(false));
+        assertThat(result.last(), is(false));
+        assertThat(result.hasNext(), is(true));
+        assertThat(result.hasPrevious(), is(true));
+    }
+
+    @Test
+    public void shouldConvertWithEstimatedCount() {
+
+        // given
+        LogEventSlice source = new LogEventSlice(new SliceImpl<>(LOGGING_EVENT_LIST, PageRequest.of(0, 2), true), TotalCount.estimated(1_000));
+        given(entityConverter.convertAll(LOGGING_EVENT_LIST)).willReturn(EXPECTED_EVENT_LIST);
+
+        // when
+        LogEventPage result = converter.convert(source);
+
+        // then
+        assertThat(result.pageCount(), equalTo(500));
+        assertThat(result.pageNumber(), equalTo(1));
+        assertThat(result.entityCount(), equalTo(1_000L));
+        assertThat(result.first(), is(true));
+        assertThat(result.hasPrevious(), is(false));
+    }
+
+    @Test
+    public void shouldConvertLastSliceWithExactCount() {
+
+        // given
+        LogEventSlice source = new LogEventSlice(new SliceImpl<>(LOGGING_EVENT_LIST, PageRequest.of(2, 2), false), TotalCount.exact(6));
+        given(entityConverter.convertAll(LOGGING_EVENT_LIST)).willReturn(EXPECTED_EVENT_LIST);
+
+        // when
+        LogEventPage result = converter.convert(source);
+
+        // then
+        assertThat(result.pageCount(), equalTo(3));
+        assertThat(result.pageNumber(), equalTo(3));
+        assertThat(result.entityCount(), equalTo(6L));
+        assertThat(result.last(), is(true));
+        assertThat(result.hasNext(), is(false));
+    }
+}
@@ -1,15 +1,23 @@
 package hu.psprog.leaflet.tlp.core.conversion;
 
+import hu.psprog.leaflet.tlp.core.config.CompressionProperties;
+import hu.psprog.leaflet.tlp.core.config.InternPoolProperties;
 import hu.psprog.leaflet.tlp.core.domain.LogLevel;
 import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
 import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.service.compression.LoggingEventCompressor;
+import hu.psprog.leaflet.tlp.core.service.intern.StringInternPool;
+import hu.psprog.leaflet.tlp.core.service.stacktrace.StackTraceStore;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -17,6 +25,8 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 
 /**
  * Unit tests for {@link LoggingEventEntityToDomainConverter}.
@@ -33,6 +43,20 @@ public class LoggingEventEntityToDomainConverterTest {
     private static final String LOGGER_NAME = "logger-name";
     private static final String THREAD_NAME = "thread-1";
 
+    private static final String FINGERPRINT_1 = "fingerprint-1";
+    private static final String FINGERPRINT_2 = "fingerprint-2";
+    private static final String LARGE_CONTENT = "large content ".repeat(10);
+    private static final String LARGE_STACK_TRACE = "at large.stack.Trace.method(Trace.java:42)\n".repeat(10);
+
+    @Mock
+    private StackTraceStore stackTraceStore;
+
+    @Spy
+    private StringInternPool stringInternPool = new StringInternPool(new InternPoolProperties());
+
+    @Spy
+    private LoggingEventCompressor loggingEventCompressor = new LoggingEventCompressor(prepareCompressionProperties());
+
     @InjectMocks
     private LoggingEventEntityToDomainConverter converter;
 
@@ -62,6 +86,10 @@ public class LoggingEventEntityToDomainConverterTest {
         assertThat(result.threadName(), equalTo(THREAD_NAME));
         assertThat(result.context(), equalTo(Collections.emptyMap()));
         assertThat(result.exception(), nullValue());
+        verify(stringInternPool).intern(SOURCE);
+        verify(stringInternPool).intern(LOG_LEVEL.getLevelStr());
+        verify(stringInternPool).intern(LOGGER_NAME);
+        verify(stringInternPool).intern(THREAD_NAME);
     }
 
     @Test
@@ -99,6 +127,77 @@ public class LoggingEventEntityToDomainConverterTest {
         assertThat(result.context(), equalTo(context));
     }
 
+    @Test
+    public void shouldConvertAllRehydratingDeduplicatedExceptionsWithSingleLookup() {
+
+        // given
+        LoggingEvent inlineExceptionEvent = LoggingEvent.getBuilder()
+                .withException(prepareThrowableProxyLogItem(1, null, false))
+                .build();
+        LoggingEvent deduplicatedExceptionEvent1 = prepareDeduplicatedLoggingEvent(FINGERPRINT_1);
+        LoggingEvent deduplicatedExceptionEvent2 = prepareDeduplicatedLoggingEvent(FINGERPRINT_2);
+        LoggingEvent deduplicatedExceptionEvent3 = prepareDeduplicatedLoggingEvent(FINGERPRINT_1);
+        LoggingEvent noExceptionEvent = LoggingEvent.getBuilder().withContent(CONTENT).build();
+        given(stackTraceStore.resolve(List.of(FINGERPRINT_1, FINGERPRINT_2))).willReturn(Map.of(
+                FINGERPRINT_1, prepareThrowableProxyLogItem(2, null, false),
+                FINGERPRINT_2, prepareThrowableProxyLogItem(3, null, false)
+        ));
+
+        // when
+        List<hu.psprog.leaflet.tlp.api.domain.LoggingEvent> result = converter.convertAll(List.of(inlineExceptionEvent,
+                deduplicatedExceptionEvent1, deduplicatedExceptionEvent2, deduplicatedExceptionEvent3, noExceptionEvent));
+
+        // then
+        assertThat(result.size(), equalTo(5));
+        assertThat(result.get(0).exception().className(), equalTo("class-name 1"));
+        assertThat(result.get(1).exception().className(), equalTo("class-name 2"));
+        assertThat(result.get(2).exception().className(), equalTo("class-name 3"));
+        assertThat(result.get(3).exception().className(), equalTo("class-name 2"));
+        assertThat(result.get(4).exception(), nullValue());
+        verify(stackTraceStore).resolve(List.of(FINGERPRINT_1, FINGERPRINT_2));
+    }
+
+    @Test
+    public void shouldConvertDecompressingContentAndStackTrace() {
+
+        // given
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder()
+                .withContent(LARGE_CONTENT)
+                .withException(ThrowableProxyLogItem.getBuilder()
+                        .withClassName("class-name 1")
+                        .withStackTrace(LARGE_STACK_TRACE)
+                        .build())
+                .build();
+        loggingEventCompressor.beforeStore(List.of(loggingEvent));
+
+        // when
+        hu.psprog.leaflet.tlp.api.domain.LoggingEvent result = converter.convert(loggingEvent);
+
+        // then
+        assertThat(loggingEvent.getCompressedContent(), notNullValue());
+        assertThat(loggingEvent.getException().getCompressedStackTrace(), notNullValue());
+        assertThat(result.content(), equalTo(LARGE_CONTENT));
+        assertThat(result.exception().stackTrace(), equalTo(LARGE_STACK_TRACE));
+    }
+
+    private static CompressionProperties prepareCompressionProperties() {
+
+        CompressionProperties compressionProperties = new CompressionProperties();
+        compressionProperties.setEnabled(true);
+        compressionProperties.setThreshold(100);
+        compressionProperties.setSearchShadowLength(20);
+
+        return compressionProperties;
+    }
+
+    private LoggingEvent prepareDeduplicatedLoggingEvent(String fingerprint) {
+
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder().withContent(CONTENT).build();
+        loggingEvent.setExceptionFingerprint(fingerprint);
+
+        return loggingEvent;
+    }
+
     private ThrowableProxyLogItem prepareThrowableProxyLogItem(int exceptionID, ThrowableProxyLogItem cause, boolean withSuppressed) {
         return ThrowableProxyLogItem.getBuilder()
                 .withClassName("class-name " + exceptionID)
@@ -46,8 +46,7 @@ public class PageLoggingEventToLogEventPageConverterTest {
         List<LoggingEvent> loggingEventList = Arrays.asList(CORE_LOGGING_EVENT_1, CORE_LOGGING_EVENT_2);
         List<hu.psprog.leaflet.tlp.api.domain.LoggingEvent> expectedEventList = Arrays.asList(API_LOGGING_EVENT_1, API_LOGGING_EVENT_2);
         Page<LoggingEvent> source = new PageImpl<>(loggingEventList, PageRequest.of(1, 2), 5);
-        given(entityConverter.convert(CORE_LOGGING_EVENT_1)).willReturn(API_LOGGING_EVENT_1);
-        given(entityConverter.convert(CORE_LOGGING_EVENT_2)).willReturn(API_LOGGING_EVENT_2);
+        given(entityConverter.convertAll(loggingEventList)).willReturn(expectedEventList);
 
         // when
         LogEventPage result = converter.convert(source);
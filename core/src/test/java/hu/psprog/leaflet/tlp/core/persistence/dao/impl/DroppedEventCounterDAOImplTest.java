@@ -0,0 +1,59 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.tlp.core.domain.DroppedEventCounter;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link DroppedEventCounterDAOImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class DroppedEventCounterDAOImplTest {
+
+    private static final String SOURCE = "app-1";
+    private static final Date PERIOD_START = new Date(1_700_000_000_000L);
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @Captor
+    private ArgumentCaptor<Update> updateCaptor;
+
+    @InjectMocks
+    private DroppedEventCounterDAOImpl droppedEventCounterDAO;
+
+    @Test
+    public void shouldIncrementUpsertCounterOfSourceAndPeriod() {
+
+        // when
+        droppedEventCounterDAO.increment(SOURCE, PERIOD_START, Map.of("DEBUG", 3L, "INFO", 2L));
+
+        // then
+        verify(mongoOperations).upsert(queryCaptor.capture(), updateCaptor.capture(), eq(DroppedEventCounter.class));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(new Document("source", SOURCE).append("periodStart", PERIOD_START)));
+        assertThat(updateCaptor.getValue().getUpdateObject().get("$inc", Document.class),
+                equalTo(new Document("levels.DEBUG", 3L).append("levels.INFO", 2L).append("total", 5L)));
+    }
+}
@@ -0,0 +1,104 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterDimension;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterSnapshot;
+import hu.psprog.leaflet.tlp.core.domain.SketchCounter;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link HeavyHitterSnapshotDAOImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class HeavyHitterSnapshotDAOImplTest {
+
+    private static final Date SLOT_START = new Date(1_700_000_040_000L);
+    private static final HeavyHitterSnapshot SNAPSHOT = HeavyHitterSnapshot.getBuilder()
+            .withId("LOGGER-1700000040000")
+            .withDimension(HeavyHitterDimension.LOGGER)
+            .withSlotStart(SLOT_START)
+            .withTotal(3L)
+            .withCounters(List.of(new SketchCounter("hu.psprog.leaflet.Test", 3L, 0L)))
+            .withExpiresAt(new Date(1_700_003_640_000L))
+            .build();
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private List<HeavyHitterSnapshot> snapshots;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @Captor
+    private ArgumentCaptor<FindAndReplaceOptions> optionsCaptor;
+
+    @InjectMocks
+    private HeavyHitterSnapshotDAOImpl heavyHitterSnapshotDAO;
+
+    @Test
+    public void shouldSaveAllReplaceSnapshotsInBulk() {
+
+        // given
+        given(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, HeavyHitterSnapshot.class)).willReturn(bulkOperations);
+
+        // when
+        heavyHitterSnapshotDAO.saveAll(List.of(SNAPSHOT));
+
+        // then
+        verify(bulkOperations).replaceOne(queryCaptor.capture(), eq(SNAPSHOT), optionsCaptor.capture());
+        verify(bulkOperations).execute();
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(new Document("_id", "LOGGER-1700000040000")));
+        assertThat(optionsCaptor.getValue().isUpsert(), equalTo(true));
+    }
+
+    @Test
+    public void shouldSaveAllDoNothingWithoutSnapshots() {
+
+        // when
+        heavyHitterSnapshotDAO.saveAll(List.of());
+
+        // then
+        verifyNoInteractions(mongoOperations);
+    }
+
+    @Test
+    public void shouldFindSnapshotsSinceGivenSlot() {
+
+        // given
+        given(mongoOperations.find(queryCaptor.capture(), eq(HeavyHitterSnapshot.class))).willReturn(snapshots);
+
+        // when
+        List<HeavyHitterSnapshot> result = heavyHitterSnapshotDAO.findSince(SLOT_START);
+
+        // then
+        assertThat(result, equalTo(snapshots));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(new Document("slotStart", new Document("$gte", SLOT_START))));
+    }
+}
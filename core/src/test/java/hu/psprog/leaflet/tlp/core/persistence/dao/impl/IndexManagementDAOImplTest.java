@@ -0,0 +1,112 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.tlp.core.domain.IndexUsage;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link IndexManagementDAOImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class IndexManagementDAOImplTest {
+
+    private static final Date SINCE = new Date();
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    @Captor
+    private ArgumentCaptor<Aggregation> aggregationCaptor;
+
+    @Captor
+    private ArgumentCaptor<Index> indexCaptor;
+
+    @InjectMocks
+    private IndexManagementDAOImpl indexManagementDAO;
+
+    @Test
+    public void shouldGetIndexUsage() {
+
+        // given
+        Document levelIndexStats = new Document("name", "tlp-index.level")
+                .append("key", new Document("level", 1))
+                .append("accesses", new Document("ops", 12L).append("since", SINCE))
+                .append("spec", new Document("name", "tlp-index.level"));
+        Document eventIdIndexStats = new Document("name", "tlp-index.event-id")
+                .append("key", new Document("eventId", 1))
+                .append("accesses", new Document("ops", 0L).append("since", SINCE))
+                .append("spec", new Document("name", "tlp-index.event-id").append("unique", true));
+        given(mongoOperations.aggregate(aggregationCaptor.capture(), eq(LoggingEvent.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(levelIndexStats, eventIdIndexStats), new Document()));
+
+        // when
+        List<IndexUsage> result = indexManagementDAO.getIndexUsage();
+
+        // then
+        assertThat(result, equalTo(List.of(
+                IndexUsage.getBuilder()
+                        .withName("tlp-index.level")
+                        .withKey(new Document("level", 1))
+                        .withUnique(false)
+                        .withAccesses(12L)
+                        .withSince(SINCE)
+                        .build(),
+                IndexUsage.getBuilder()
+                        .withName("tlp-index.event-id")
+                        .withKey(new Document("eventId", 1))
+                        .withUnique(true)
+                        .withAccesses(0L)
+                        .withSince(SINCE)
+                        .build())));
+        assertThat(aggregationCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT),
+                equalTo(List.of(new Document("$indexStats", new Document()))));
+    }
+
+    @Test
+    public void shouldCreateIndex() {
+
+        // given
+        Map<String, Integer> key = new LinkedHashMap<>();
+        key.put("source", 1);
+        key.put("timeStamp", -1);
+        given(mongoOperations.indexOps(LoggingEvent.class)).willReturn(indexOperations);
+
+        // when
+        indexManagementDAO.createIndex("tlp-index.advised.source_timeStamp-desc", key);
+
+        // then
+        verify(indexOperations).ensureIndex(indexCaptor.capture());
+        assertThat(indexCaptor.getValue().getIndexKeys(), equalTo(new Document("source", 1).append("timeStamp", -1)));
+        assertThat(indexCaptor.getValue().getIndexOptions(), equalTo(new Document("name", "tlp-index.advised.source_timeStamp-desc")
+                .append("background", true)));
+    }
+}
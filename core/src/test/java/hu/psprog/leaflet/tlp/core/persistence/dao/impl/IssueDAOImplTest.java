@@ -0,0 +1,144 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.tlp.core.domain.Issue;
+import hu.psprog.leaflet.tlp.core.domain.IssueOccurrence;
+import hu.psprog.leaflet.tlp.core.domain.IssueQuery;
+import hu.psprog.leaflet.tlp.core.domain.IssueSignature;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link IssueDAOImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class IssueDAOImplTest {
+
+    private static final Date FIRST_SEEN = new Date(1_700_000_000_000L);
+    private static final Date LAST_SEEN = new Date(1_700_000_060_000L);
+    private static final IssueSignature SIGNATURE = new IssueSignature("fingerprint-1", "java.lang.IllegalStateException", "failed <n>",
+            List.of("hu.psprog.leaflet.Test.run(Test.java)"));
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private List<Issue> issues;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @Captor
+    private ArgumentCaptor<Update> updateCaptor;
+
+    @InjectMocks
+    private IssueDAOImpl issueDAO;
+
+    @Test
+    public void shouldAddOccurrencesUpsertIssuesInBulk() {
+
+        // given
+        given(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Issue.class)).willReturn(bulkOperations);
+
+        // when
+        issueDAO.addOccurrences(List.of(new IssueOccurrence("fingerprint-1", SIGNATURE, 3L, FIRST_SEEN, LAST_SEEN, Set.of("lsas", "lcfa"))));
+
+        // then
+        verify(bulkOperations).upsert(queryCaptor.capture(), updateCaptor.capture());
+        verify(bulkOperations).execute();
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(new Document("_id", "fingerprint-1")));
+        assertThat(updateCaptor.getValue(), equalTo(new Update()
+                .inc("count", 3L)
+                .min("firstSeen", FIRST_SEEN)
+                .max("lastSeen", LAST_SEEN)
+                .setOnInsert("className", "java.lang.IllegalStateException")
+                .setOnInsert("message", "failed <n>")
+                .setOnInsert("frames", List.of("hu.psprog.leaflet.Test.run(Test.java)"))
+                .addToSet("sources").each("lcfa", "lsas")));
+    }
+
+    @Test
+    public void shouldAddOccurrencesOnlyUpdateCountersOfIssuesWithUnknownSignature() {
+
+        // given
+        given(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Issue.class)).willReturn(bulkOperations);
+
+        // when
+        issueDAO.addOccurrences(List.of(new IssueOccurrence("fingerprint-1", null, 1L, FIRST_SEEN, FIRST_SEEN, Set.of())));
+
+        // then
+        verify(bulkOperations).upsert(queryCaptor.capture(), updateCaptor.capture());
+        assertThat(updateCaptor.getValue().getUpdateObject(), equalTo(new Document("$inc", new Document("count", 1L))
+                .append("$min", new Document("firstSeen", FIRST_SEEN))
+                .append("$max", new Document("lastSeen", FIRST_SEEN))));
+    }
+
+    @Test
+    public void shouldAddOccurrencesDoNothingWithoutOccurrences() {
+
+        // when
+        issueDAO.addOccurrences(List.of());
+
+        // then
+        verifyNoInteractions(mongoOperations);
+    }
+
+    @Test
+    public void shouldFindAllIssuesSeenWithinTimeWindow() {
+
+        // given
+        IssueQuery issueQuery = IssueQuery.parse("2023-11-14T00:00:00Z", "2023-11-15T00:00:00Z", "lcfa", null);
+        given(mongoOperations.find(queryCaptor.capture(), eq(Issue.class))).willReturn(issues);
+
+        // when
+        List<Issue> result = issueDAO.findAll(issueQuery, 20);
+
+        // then
+        assertThat(result, equalTo(issues));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(new Document("lastSeen", new Document("$gte", Date.from(Instant.parse("2023-11-14T00:00:00Z"))))
+                .append("firstSeen", new Document("$lt", Date.from(Instant.parse("2023-11-15T00:00:00Z"))))
+                .append("sources", "lcfa")));
+        assertThat(queryCaptor.getValue().getSortObject(), equalTo(new Document("count", -1).append("lastSeen", -1)));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(20));
+    }
+
+    @Test
+    public void shouldFindAllIssuesSeenSinceStartOfOpenTimeWindow() {
+
+        // given
+        IssueQuery issueQuery = IssueQuery.parse("2023-11-14T00:00:00Z", null, null, null);
+        given(mongoOperations.find(queryCaptor.capture(), eq(Issue.class))).willReturn(issues);
+
+        // when
+        issueDAO.findAll(issueQuery, 20);
+
+        // then
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(new Document("lastSeen", new Document("$gte", Date.from(Instant.parse("2023-11-14T00:00:00Z"))))));
+    }
+}
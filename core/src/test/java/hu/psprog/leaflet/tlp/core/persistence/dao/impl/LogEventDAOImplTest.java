@@ -1,16 +1,69 @@
 package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
 
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
 import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
 import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
 import hu.psprog.leaflet.tlp.core.persistence.repository.LogEventRepository;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.CollectionCallback;
+import org.springframework.data.mongodb.core.ExecutableFindOperation;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 /**
  * Unit tests for {@link LogEventDAOImpl}.
@@ -21,46 +74,574 @@ import static org.mockito.Mockito.verify;
 public class LogEventDAOImplTest {
 
     private static final LoggingEvent LOGGING_EVENT = LoggingEvent.getBuilder().build();
+    private static final List<LoggingEvent> LOGGING_EVENT_LIST = List.of(LOGGING_EVENT, LOGGING_EVENT, LOGGING_EVENT);
+    private static final List<RawBsonDocument> DOCUMENT_LIST = List.of(RawBsonDocument.parse("{\"content\": \"message\"}"));
+    private static final String COLLECTION_NAME = "loggingEvent";
+    private static final LogEventProjection PROJECTION = LogEventProjection.parse("level,content");
+    private static final Predicate PREDICATE = QLoggingEvent.loggingEvent.source.eq("app");
+    private static final Document FILTER = new Document("source", "app");
+    private static final long MAX_TIME_MS = 5_000L;
 
     @Mock
     private LogEventRepository logEventRepository;
 
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private BulkOperationException bulkOperationException;
+
+    @Mock
+    private MongoCollection<Document> mongoCollection;
+
+    @Mock
+    private MongoCollection<RawBsonDocument> rawMongoCollection;
+
+    @Mock
+    private MongoBulkWriteException mongoBulkWriteException;
+
     @Mock
     private Pageable pageable;
 
     @Mock
-    private Predicate predicate;
+    private FindIterable<Document> findIterable;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @Captor
+    private ArgumentCaptor<Aggregation> aggregationCaptor;
 
-    @InjectMocks
     private LogEventDAOImpl logEventDAO;
 
+    @BeforeEach
+    public void setup() {
+        QueryGuardProperties queryGuardProperties = new QueryGuardProperties();
+        queryGuardProperties.setMaxTime(Duration.ofMillis(MAX_TIME_MS));
+        logEventDAO = new LogEventDAOImpl(logEventRepository, mongoOperations, queryGuardProperties);
+    }
+
     @Test
     public void shouldFindAllWithPage() {
 
+        // given
+        Pageable pageRequest = PageRequest.of(0, 5);
+        given(mongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST);
+
         // when
-        logEventDAO.findAll(pageable);
+        Page<LoggingEvent> result = logEventDAO.findAll(pageRequest, LogEventProjection.ALL);
 
         // then
-        verify(logEventRepository).findAll(pageable);
+        assertThat(result.getContent(), equalTo(LOGGING_EVENT_LIST));
+        assertThat(result.getTotalElements(), equalTo(3L));
+        assertThat(queryCaptor.getValue().getFieldsObject().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldFindAllWithPageAndProjection() {
+
+        // given
+        Pageable pageRequest = PageRequest.of(0, 5);
+        given(mongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST);
+
+        // when
+        logEventDAO.findAll(pageRequest, PROJECTION);
+
+        // then
+        assertThat(queryCaptor.getValue().getFieldsObject(),
+                equalTo(new Document(Map.of("timeStamp", 1, "level", 1, "content", 1, "compressedContent", 1))));
     }
 
     @Test
     public void shouldFindAllWithPageAndPredicate() {
 
+        // given
+        Pageable pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "timeStamp"));
+        givenQueryMapping();
+        given(mongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST.subList(0, 1));
+
+        // when
+        Page<LoggingEvent> result = logEventDAO.findAll(PREDICATE, pageRequest, LogEventProjection.ALL);
+
+        // then
+        assertThat(result.getContent(), equalTo(LOGGING_EVENT_LIST.subList(0, 1)));
+        assertThat(result.getTotalElements(), equalTo(3L));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(queryCaptor.getValue().getSortObject(), equalTo(new Document("timeStamp", -1)));
+        assertThat(queryCaptor.getValue().getSkip(), equalTo(2L));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(2));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+        assertThat(queryCaptor.getValue().getFieldsObject().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldFindAllWithPageAndPredicateCountWithTimeLimit() {
+
+        // given
+        Pageable pageRequest = PageRequest.of(0, 2);
+        givenQueryMapping();
+        given(mongoOperations.find(any(Query.class), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST.subList(0, 2));
+        given(mongoOperations.count(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(12L);
+
+        // when
+        Page<LoggingEvent> result = logEventDAO.findAll(PREDICATE, pageRequest, LogEventProjection.ALL);
+
+        // then
+        assertThat(result.getTotalElements(), equalTo(12L));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(0));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldFindAllWithPageAndPredicateAndProjection() {
+
+        // given
+        givenQueryMapping();
+        given(mongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST);
+
+        // when
+        logEventDAO.findAll(PREDICATE, PageRequest.of(0, 5), PROJECTION);
+
+        // then
+        assertThat(queryCaptor.getValue().getFieldsObject(),
+                equalTo(new Document(Map.of("timeStamp", 1, "level", 1, "content", 1, "compressedContent", 1))));
+    }
+
+    @Test
+    public void shouldFindAllWithPredicateSortAndLimit() {
+
+        // given
+        Sort sort = Sort.by(Sort.Direction.DESC, "timeStamp", "id");
+        givenQueryMapping();
+        given(mongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST);
+
+        // when
+        List<LoggingEvent> result = logEventDAO.findAll(PREDICATE, sort, 10, LogEventProjection.ALL);
+
+        // then
+        assertThat(result, equalTo(LOGGING_EVENT_LIST));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(queryCaptor.getValue().getSortObject(), equalTo(new Document("timeStamp", -1).append("id", -1)));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(10));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldFindSliceRetrieveOneExtraEventToDetectNextSlice() {
+
+        // given
+        Pageable pageRequest = PageRequest.of(1, 2);
+        given(mongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST);
+
+        // when
+        Slice<LoggingEvent> result = logEventDAO.findSlice(pageRequest, LogEventProjection.ALL);
+
+        // then
+        assertThat(result.getContent(), equalTo(LOGGING_EVENT_LIST.subList(0, 2)));
+        assertThat(result.hasNext(), is(true));
+        assertThat(queryCaptor.getValue().getSkip(), equalTo(2L));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(3));
+    }
+
+    @Test
+    public void shouldFindSliceReturnLastSlice() {
+
+        // given
+        Pageable pageRequest = PageRequest.of(0, 5);
+        given(mongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST);
+
+        // when
+        Slice<LoggingEvent> result = logEventDAO.findSlice(pageRequest, LogEventProjection.ALL);
+
+        // then
+        assertThat(result.getContent(), equalTo(LOGGING_EVENT_LIST));
+        assertThat(result.hasNext(), is(false));
+    }
+
+    @Test
+    public void shouldFindSliceWithPredicate() {
+
+        // given
+        Pageable pageRequest = PageRequest.of(1, 2);
+        givenQueryMapping();
+        given(mongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST);
+
+        // when
+        Slice<LoggingEvent> result = logEventDAO.findSlice(PREDICATE, pageRequest, LogEventProjection.ALL);
+
+        // then
+        assertThat(result.getContent(), equalTo(LOGGING_EVENT_LIST.subList(0, 2)));
+        assertThat(result.getPageable(), equalTo(pageRequest));
+        assertThat(result.hasNext(), is(true));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(queryCaptor.getValue().getSkip(), equalTo(2L));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(3));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldStreamWithCursorBatchSize() {
+
+        // given
+        Sort sort = Sort.by(Sort.Direction.DESC, "timeStamp");
+        given(mongoOperations.stream(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST.stream());
+
+        // when
+        Stream<LoggingEvent> result = logEventDAO.stream(sort, LogEventProjection.ALL, 100);
+
+        // then
+        assertThat(result.collect(Collectors.toList()), equalTo(LOGGING_EVENT_LIST));
+        assertThat(queryCaptor.getValue().getQueryObject().isEmpty(), is(true));
+        assertThat(queryCaptor.getValue().getSortObject(), equalTo(new Document("timeStamp", -1)));
+        assertThat(queryCaptor.getValue().getMeta().getCursorBatchSize(), equalTo(100));
+        assertThat(queryCaptor.getValue().getFieldsObject().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldStreamWithPredicateAndProjection() {
+
+        // given
+        Sort sort = Sort.by(Sort.Direction.ASC, "timeStamp");
+        givenQueryMapping();
+        given(mongoOperations.stream(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(LOGGING_EVENT_LIST.stream());
+
+        // when
+        Stream<LoggingEvent> result = logEventDAO.stream(PREDICATE, sort, PROJECTION, 50);
+
+        // then
+        assertThat(result.collect(Collectors.toList()), equalTo(LOGGING_EVENT_LIST));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(queryCaptor.getValue().getSortObject(), equalTo(new Document("timeStamp", 1)));
+        assertThat(queryCaptor.getValue().getMeta().getCursorBatchSize(), equalTo(50));
+        assertThat(queryCaptor.getValue().getFieldsObject(),
+                equalTo(new Document(Map.of("timeStamp", 1, "level", 1, "content", 1, "compressedContent", 1))));
+    }
+
+    @Test
+    public void shouldCountUpTo() {
+
+        // given
+        givenQueryMapping();
+        given(mongoOperations.count(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(3L);
+
+        // when
+        long result = logEventDAO.countUpTo(PREDICATE, 10);
+
+        // then
+        assertThat(result, equalTo(3L));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(10));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldEstimatedCount() {
+
+        // given
+        given(mongoOperations.estimatedCount(LoggingEvent.class)).willReturn(1_000L);
+
+        // when
+        long result = logEventDAO.estimatedCount();
+
+        // then
+        assertThat(result, equalTo(1_000L));
+    }
+
+    @Test
+    public void shouldCount() {
+
+        // given
+        given(mongoOperations.count(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(12L);
+
+        // when
+        long result = logEventDAO.count();
+
+        // then
+        assertThat(result, equalTo(12L));
+        assertThat(queryCaptor.getValue().getQueryObject().isEmpty(), is(true));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldCountWithPredicate() {
+
+        // given
+        givenQueryMapping();
+        given(mongoOperations.count(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(3L);
+
+        // when
+        long result = logEventDAO.count(PREDICATE);
+
+        // then
+        assertThat(result, equalTo(3L));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldCountWithoutTimeLimitWhenDisabled() {
+
+        // given
+        QueryGuardProperties queryGuardProperties = new QueryGuardProperties();
+        queryGuardProperties.setMaxTime(Duration.ZERO);
+        logEventDAO = new LogEventDAOImpl(logEventRepository, mongoOperations, queryGuardProperties);
+        given(mongoOperations.count(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(12L);
+
+        // when
+        logEventDAO.count();
+
+        // then
+        assertThat(queryCaptor.getValue().getMeta().hasMaxTime(), is(false));
+    }
+
+    @Test
+    public void shouldExplainStagesOfWinningPlan() {
+
+        // given
+        givenQueryMapping();
+        given(mongoOperations.execute(eq(LoggingEvent.class), any())).willAnswer(invocation -> invocation
+                .<CollectionCallback<Document>>getArgument(1)
+                .doInCollection(mongoCollection));
+        given(mongoCollection.find(FILTER)).willReturn(findIterable);
+        given(findIterable.sort(new Document("timeStamp", -1).append("_id", -1))).willReturn(findIterable);
+        given(findIterable.explain(ExplainVerbosity.QUERY_PLANNER)).willReturn(Document.parse("""
+                {"queryPlanner": {
+                    "winningPlan": {"stage": "SORT", "inputStage": {"stage": "COLLSCAN"}},
+                    "rejectedPlans": [{"stage": "FETCH", "inputStage": {"stage": "IXSCAN"}}]
+                }}"""));
+
+        // when
+        Set<String> result = logEventDAO.explainStages(PREDICATE, Sort.by(Sort.Direction.DESC, "timeStamp", "id"));
+
+        // then
+        assertThat(result, equalTo(Set.of("SORT", "COLLSCAN")));
+    }
+
+    @Test
+    public void shouldAggregateWithPredicate() {
+
+        // given
+        givenQueryMapping();
+        Date bucketStart = new Date(1_700_000_100_000L);
+        given(mongoOperations.aggregate(aggregationCaptor.capture(), eq(LoggingEvent.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(new Document("_id", new Document("k0", bucketStart)
+                        .append("k1", "ERROR")
+                        .append("k2", null))
+                        .append("count", 4)), new Document()));
+
+        // when
+        List<AggregationBucket> result = logEventDAO.aggregate(PREDICATE, LogEventAggregation.parse("time,level,context.requestId", "15m"), 11);
+
+        // then
+        assertThat(result, equalTo(List.of(new AggregationBucket(Arrays.asList(bucketStart, "ERROR", null), 4L))));
+        assertThat(aggregationCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT), equalTo(List.of(
+                new Document("$match", FILTER),
+                Document.parse("""
+                        {"$group": {
+                            "_id": {
+                                "k0": {"$subtract": ["$timeStamp", {"$mod": [{"$toLong": "$timeStamp"}, {"$numberLong": "900000"}]}]},
+                                "k1": "$level",
+                                "k2": "$context.requestId"
+                            },
+                            "count": {"$sum": 1}
+                        }}"""),
+                Document.parse("{\"$sort\": {\"_id.k0\": 1, \"count\": -1, \"_id.k1\": 1, \"_id.k2\": 1}}"),
+                new Document("$limit", 11L))));
+        assertThat(aggregationCaptor.getValue().getOptions().isAllowDiskUse(), is(true));
+        assertThat(aggregationCaptor.getValue().getOptions().getMaxTime(), equalTo(Duration.ofMillis(MAX_TIME_MS)));
+    }
+
+    @Test
+    public void shouldAggregateWithoutMatchStage() {
+
+        // given
+        given(mongoOperations.aggregate(aggregationCaptor.capture(), eq(LoggingEvent.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(
+                        new Document("_id", new Document("k0", "ERROR")).append("count", 7),
+                        new Document("_id", new Document("k0", "WARN")).append("count", 3)), new Document()));
+
         // when
-        logEventDAO.findAll(predicate, pageable);
+        List<AggregationBucket> result = logEventDAO.aggregate(LogEventAggregation.parse("level", null), 5);
 
         // then
-        verify(logEventRepository).findAll(predicate, pageable);
+        assertThat(result, equalTo(List.of(new AggregationBucket(List.of("ERROR"), 7L), new AggregationBucket(List.of("WARN"), 3L))));
+        assertThat(aggregationCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT), equalTo(List.of(
+                Document.parse("{\"$group\": {\"_id\": {\"k0\": \"$level\"}, \"count\": {\"$sum\": 1}}}"),
+                Document.parse("{\"$sort\": {\"count\": -1, \"_id.k0\": 1}}"),
+                new Document("$limit", 5L))));
     }
 
     @Test
     public void shouldSave() {
 
         // when
-        logEventDAO.save(LOGGING_EVENT);
+        boolean result = logEventDAO.save(LOGGING_EVENT);
+
+        // then
+        assertThat(result, is(true));
+        verify(logEventRepository).save(LOGGING_EVENT);
+    }
+
+    @Test
+    public void shouldSaveReportDuplicateKeyErrorAsNotStored() {
+
+        // given
+        given(logEventRepository.save(LOGGING_EVENT)).willThrow(new DuplicateKeyException("duplicate key"));
+
+        // when
+        boolean result = logEventDAO.save(LOGGING_EVENT);
 
         // then
+        // no exception expected
+        assertThat(result, is(false));
         verify(logEventRepository).save(LOGGING_EVENT);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldFindExistingEventIds() {
+
+        // given
+        given(mongoOperations.getCollectionName(LoggingEvent.class)).willReturn(COLLECTION_NAME);
+        given(mongoOperations.find(any(Query.class), eq(Document.class), eq(COLLECTION_NAME)))
+                .willReturn(List.of(new Document("eventId", "event-1")));
+
+        // when
+        Set<String> result = logEventDAO.findExistingEventIds(List.of("event-1", "event-2"));
+
+        // then
+        assertThat(result, equalTo(Set.of("event-1")));
+        verify(mongoOperations).find(queryCaptor.capture(), eq(Document.class), eq(COLLECTION_NAME));
+        assertThat(queryCaptor.getValue().getQueryObject(),
+                equalTo(new Document("eventId", new Document("$in", List.of("event-1", "event-2")))));
+    }
+
+    @Test
+    public void shouldSaveAllWithUnorderedBulkInsert() {
+
+        // given
+        given(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, LoggingEvent.class)).willReturn(bulkOperations);
+        given(bulkOperations.insert(LOGGING_EVENT_LIST)).willReturn(bulkOperations);
+
+        // when
+        StoreResult result = logEventDAO.saveAll(LOGGING_EVENT_LIST);
+
+        // then
+        assertThat(result, equalTo(StoreResult.allStored()));
+        verify(bulkOperations).execute();
+    }
+
+    @Test
+    public void shouldSaveAllReportFailedItems() {
+
+        // given
+        given(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, LoggingEvent.class)).willReturn(bulkOperations);
+        given(bulkOperations.insert(LOGGING_EVENT_LIST)).willReturn(bulkOperations);
+        given(bulkOperations.execute()).willThrow(bulkOperationException);
+        given(bulkOperationException.getErrors()).willReturn(List.of(new BulkWriteError(121, "validation failed", new BsonDocument(), 1)));
+
+        // when
+        StoreResult result = logEventDAO.saveAll(LOGGING_EVENT_LIST);
+
+        // then
+        assertThat(result, equalTo(new StoreResult(List.of(new BatchItemFailure(1, "validation failed")), Set.of())));
+    }
+
+    @Test
+    public void shouldSaveAllReportDuplicateKeyErrorsSeparately() {
+
+        // given
+        given(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, LoggingEvent.class)).willReturn(bulkOperations);
+        given(bulkOperations.insert(LOGGING_EVENT_LIST)).willReturn(bulkOperations);
+        given(bulkOperations.execute()).willThrow(bulkOperationException);
+        given(bulkOperationException.getErrors()).willReturn(List.of(
+                new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0),
+                new BulkWriteError(121, "validation failed", new BsonDocument(), 2)));
+
+        // when
+        StoreResult result = logEventDAO.saveAll(LOGGING_EVENT_LIST);
+
+        // then
+        assertThat(result, equalTo(new StoreResult(List.of(new BatchItemFailure(2, "validation failed")), Set.of(0))));
+    }
+
+    @Test
+    public void shouldSaveAllSkipBulkWriteForEmptyList() {
+
+        // when
+        StoreResult result = logEventDAO.saveAll(Collections.emptyList());
+
+        // then
+        assertThat(result, equalTo(StoreResult.allStored()));
+        verifyNoInteractions(mongoOperations);
+    }
+
+    @Test
+    public void shouldSaveAllDocumentsWithUnorderedInsert() {
+
+        // given
+        prepareRawCollection();
+
+        // when
+        StoreResult result = logEventDAO.saveAllDocuments(DOCUMENT_LIST);
+
+        // then
+        assertThat(result, equalTo(StoreResult.allStored()));
+        verify(rawMongoCollection).insertMany(eq(DOCUMENT_LIST), any(InsertManyOptions.class));
+    }
+
+    @Test
+    public void shouldSaveAllDocumentsReportFailedItems() {
+
+        // given
+        prepareRawCollection();
+        given(rawMongoCollection.insertMany(eq(DOCUMENT_LIST), any(InsertManyOptions.class))).willThrow(mongoBulkWriteException);
+        given(mongoBulkWriteException.getWriteErrors()).willReturn(List.of(new BulkWriteError(121, "validation failed", new BsonDocument(), 0)));
+
+        // when
+        StoreResult result = logEventDAO.saveAllDocuments(DOCUMENT_LIST);
+
+        // then
+        assertThat(result, equalTo(new StoreResult(List.of(new BatchItemFailure(0, "validation failed")), Set.of())));
+    }
+
+    @Test
+    public void shouldSaveAllDocumentsReportDuplicateKeyErrorsSeparately() {
+
+        // given
+        prepareRawCollection();
+        given(rawMongoCollection.insertMany(eq(DOCUMENT_LIST), any(InsertManyOptions.class))).willThrow(mongoBulkWriteException);
+        given(mongoBulkWriteException.getWriteErrors()).willReturn(List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)));
+
+        // when
+        StoreResult result = logEventDAO.saveAllDocuments(DOCUMENT_LIST);
+
+        // then
+        assertThat(result, equalTo(new StoreResult(List.of(), Set.of(0))));
+    }
+
+    @Test
+    public void shouldSaveAllDocumentsSkipInsertForEmptyList() {
+
+        // when
+        StoreResult result = logEventDAO.saveAllDocuments(Collections.emptyList());
+
+        // then
+        assertThat(result, equalTo(StoreResult.allStored()));
+        verifyNoInteractions(mongoOperations);
+    }
+
+    private void givenQueryMapping() {
+        given(mongoOperations.getConverter()).willReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        given(mongoOperations.query(LoggingEvent.class)).willReturn(mock(ExecutableFindOperation.ExecutableFind.class, RETURNS_DEEP_STUBS));
+    }
+
+    private void prepareRawCollection() {
+        given(mongoOperations.getCollectionName(LoggingEvent.class)).willReturn(COLLECTION_NAME);
+        given(mongoOperations.getCollection(COLLECTION_NAME)).willReturn(mongoCollection);
+        given(mongoCollection.withDocumentClass(RawBsonDocument.class)).willReturn(rawMongoCollection);
+    }
+}
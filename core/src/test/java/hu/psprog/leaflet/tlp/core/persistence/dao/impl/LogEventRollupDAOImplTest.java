@@ -0,0 +1,331 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import com.querydsl.core.BooleanBuilder;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.AggregationDimension;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollup;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupQuery;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.RollupKey;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ExecutableFindOperation;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link LogEventRollupDAOImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class LogEventRollupDAOImplTest {
+
+    private static final Date PERIOD_START = new Date(1_700_000_040_000L);
+    private static final Date FROM = new Date(1_699_999_200_000L);
+    private static final Date TO = new Date(1_700_006_400_000L);
+    private static final Duration RETENTION = Duration.ofDays(7);
+    private static final RollupKey ROLLUP_KEY = new RollupKey(RollupResolution.MINUTE, PERIOD_START, "lcfa", "ERROR", "hu.psprog.leaflet.Test");
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @Captor
+    private ArgumentCaptor<Update> updateCaptor;
+
+    @Captor
+    private ArgumentCaptor<Aggregation> aggregationCaptor;
+
+    @InjectMocks
+    private LogEventRollupDAOImpl logEventRollupDAO;
+
+    @Test
+    public void shouldIncrementUpsertCountersInBulk() {
+
+        // given
+        given(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, LogEventRollup.class)).willReturn(bulkOperations);
+
+        // when
+        logEventRollupDAO.increment(Map.of(ROLLUP_KEY, 5L), RETENTION);
+
+        // then
+        verify(bulkOperations).upsert(queryCaptor.capture(), updateCaptor.capture());
+        verify(bulkOperations).execute();
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(createKeyDocument("MINUTE", PERIOD_START)));
+        assertThat(updateCaptor.getValue().getUpdateObject(), equalTo(new Document("$setOnInsert",
+                new Document("expiresAt", new Date(PERIOD_START.getTime() + RETENTION.toMillis())))
+                .append("$inc", new Document("count", 5L))));
+    }
+
+    @Test
+    public void shouldIncrementSkipExpiryOfCountersKeptForever() {
+
+        // given
+        given(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, LogEventRollup.class)).willReturn(bulkOperations);
+
+        // when
+        logEventRollupDAO.increment(Map.of(ROLLUP_KEY, 5L), Duration.ZERO);
+
+        // then
+        verify(bulkOperations).upsert(queryCaptor.capture(), updateCaptor.capture());
+        assertThat(updateCaptor.getValue().getUpdateObject(), equalTo(new Document("$inc", new Document("count", 5L))));
+    }
+
+    @Test
+    public void shouldIncrementDoNothingWithoutCounters() {
+
+        // when
+        logEventRollupDAO.increment(Map.of(), RETENTION);
+
+        // then
+        verifyNoInteractions(mongoOperations);
+    }
+
+    @Test
+    public void shouldCompactOverwriteCoarserCountersWithSummedUpCounters() {
+
+        // given
+        Date hourStart = new Date(1_699_999_200_000L);
+        given(mongoOperations.aggregate(aggregationCaptor.capture(), eq(LogEventRollup.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(new Document("_id", new Document("periodStart", hourStart)
+                        .append("source", "lcfa")
+                        .append("level", "ERROR")
+                        .append("loggerName", "hu.psprog.leaflet.Test"))
+                        .append("count", 42)), new Document()));
+        given(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, LogEventRollup.class)).willReturn(bulkOperations);
+
+        // when
+        logEventRollupDAO.compact(RollupResolution.MINUTE, RollupResolution.HOUR, FROM, RETENTION);
+
+        // then
+        assertThat(aggregationCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT), equalTo(List.of(
+                new Document("$match", new Document("resolution", "MINUTE").append("periodStart", new Document("$gte", FROM))),
+                Document.parse("""
+                        {"$group": {
+                            "_id": {
+                                "periodStart": {"$subtract": ["$periodStart", {"$mod": [{"$toLong": "$periodStart"}, {"$numberLong": "3600000"}]}]},
+                                "source": "$source",
+                                "level": "$level",
+                                "loggerName": "$loggerName"
+                            },
+                            "count": {"$sum": "$count"}
+                        }}
+                        """))));
+        verify(bulkOperations).upsert(queryCaptor.capture(), updateCaptor.capture());
+        verify(bulkOperations).execute();
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(createKeyDocument("HOUR", hourStart)));
+        assertThat(updateCaptor.getValue().getUpdateObject(), equalTo(new Document("$setOnInsert",
+                new Document("expiresAt", new Date(hourStart.getTime() + RETENTION.toMillis())))
+                .append("$set", new Document("count", 42L))));
+    }
+
+    @Test
+    public void shouldCompactSkipWriteWithoutSourceCounters() {
+
+        // given
+        given(mongoOperations.aggregate(aggregationCaptor.capture(), eq(LogEventRollup.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(), new Document()));
+
+        // when
+        logEventRollupDAO.compact(RollupResolution.HOUR, RollupResolution.DAY, FROM, Duration.ZERO);
+
+        // then
+        verify(mongoOperations, never()).bulkOps(BulkOperations.BulkMode.UNORDERED, LogEventRollup.class);
+    }
+
+    @Test
+    public void shouldAggregateSumUpCountersPerPeriodAndDimensions() {
+
+        // given
+        LogEventRollupQuery rollupQuery = new LogEventRollupQuery(FROM, TO, RollupResolution.HOUR,
+                List.of(AggregationDimension.LEVEL, AggregationDimension.LOGGER), Set.of("lcfa"), Set.of("ERROR"));
+        given(mongoOperations.aggregate(aggregationCaptor.capture(), eq(LogEventRollup.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(new Document("_id", new Document("k0", FROM)
+                        .append("k1", "ERROR")
+                        .append("k2", null))
+                        .append("count", 12L)), new Document()));
+
+        // when
+        List<AggregationBucket> result = logEventRollupDAO.aggregate(rollupQuery, 11);
+
+        // then
+        assertThat(result, equalTo(List.of(new AggregationBucket(Arrays.asList(FROM, "ERROR", null), 12L))));
+        assertThat(aggregationCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT), equalTo(List.of(
+                new Document("$match", new Document("resolution", "HOUR")
+                        .append("periodStart", new Document("$gte", FROM).append("$lt", TO))
+                        .append("source", new Document("$in", Set.of("lcfa")))
+                        .append("level", new Document("$in", Set.of("ERROR")))),
+                Document.parse("""
+                        {"$group": {
+                            "_id": {"k0": "$periodStart", "k1": "$level", "k2": "$loggerName"},
+                            "count": {"$sum": "$count"}
+                        }}
+                        """),
+                Document.parse("{\"$sort\": {\"_id.k0\": 1, \"_id.k1\": 1, \"_id.k2\": 1}}"),
+                new Document("$limit", 11L))));
+    }
+
+    @Test
+    public void shouldFindEarliestPeriodStartOfResolution() {
+
+        // given
+        given(mongoOperations.findOne(queryCaptor.capture(), eq(LogEventRollup.class)))
+                .willReturn(LogEventRollup.getBuilder().withResolution(RollupResolution.HOUR).withPeriodStart(FROM).build());
+
+        // when
+        Optional<Date> result = logEventRollupDAO.findEarliestPeriodStart(RollupResolution.HOUR);
+
+        // then
+        assertThat(result, equalTo(Optional.of(FROM)));
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(new Document("resolution", "HOUR")));
+        assertThat(queryCaptor.getValue().getSortObject(), equalTo(new Document("periodStart", 1)));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(1));
+    }
+
+    @Test
+    public void shouldFindEarliestPeriodStartReturnEmptyWithoutCounters() {
+
+        // given
+        given(mongoOperations.findOne(queryCaptor.capture(), eq(LogEventRollup.class))).willReturn(null);
+
+        // when
+        Optional<Date> result = logEventRollupDAO.findEarliestPeriodStart(RollupResolution.MINUTE);
+
+        // then
+        assertThat(result, equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldCountSumUpEveryMatchingCounter() {
+
+        // given
+        LogEventRollupQuery rollupQuery = new LogEventRollupQuery(FROM, TO, RollupResolution.DAY, List.of(), Set.of(), Set.of());
+        given(mongoOperations.aggregate(aggregationCaptor.capture(), eq(LogEventRollup.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(new Document("_id", null).append("count", 1234L)), new Document()));
+
+        // when
+        long result = logEventRollupDAO.count(rollupQuery);
+
+        // then
+        assertThat(result, equalTo(1234L));
+        List<Document> pipeline = aggregationCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(pipeline.get(0), equalTo(new Document("$match", new Document("resolution", "DAY")
+                .append("periodStart", new Document("$gte", FROM).append("$lt", TO)))));
+        assertThat(pipeline.get(1).get("$group", Document.class).get("_id"), nullValue());
+    }
+
+    @Test
+    public void shouldCountReturnZeroWithoutMatchingCounters() {
+
+        // given
+        LogEventRollupQuery rollupQuery = new LogEventRollupQuery(FROM, TO, RollupResolution.DAY, List.of(), Set.of(), Set.of());
+        given(mongoOperations.aggregate(aggregationCaptor.capture(), eq(LogEventRollup.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(), new Document()));
+
+        // when
+        long result = logEventRollupDAO.count(rollupQuery);
+
+        // then
+        assertThat(result, equalTo(0L));
+    }
+
+    @Test
+    public void shouldHistogramSumUpFilteredCountersIntoBuckets() {
+
+        // given
+        givenQueryMapping();
+        given(mongoOperations.aggregate(aggregationCaptor.capture(), eq(LogEventRollup.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(new Document("_id", new Document("k0", FROM)).append("count", 42)), new Document()));
+
+        // when
+        List<AggregationBucket> result = logEventRollupDAO.histogram(QLoggingEvent.loggingEvent.level.eq("ERROR"), RollupResolution.MINUTE,
+                FROM, TO, Duration.ofMinutes(30), 4);
+
+        // then
+        assertThat(result, equalTo(List.of(new AggregationBucket(List.of(FROM), 42L))));
+        assertThat(aggregationCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT), equalTo(List.of(
+                new Document("$match", new Document("$and", List.of(
+                        new Document("resolution", "MINUTE").append("periodStart", new Document("$gte", FROM).append("$lt", TO)),
+                        new Document("level", "ERROR")))),
+                Document.parse("""
+                        {"$group": {
+                            "_id": {"k0": {"$subtract": ["$periodStart", {"$mod": [{"$toLong": "$periodStart"}, {"$numberLong": "1800000"}]}]}},
+                            "count": {"$sum": "$count"}
+                        }}
+                        """),
+                Document.parse("{\"$sort\": {\"_id.k0\": 1}}"),
+                new Document("$limit", 4L))));
+    }
+
+    @Test
+    public void shouldHistogramMatchOnlyTimeRangeForEmptyFilter() {
+
+        // given
+        givenQueryMapping();
+        given(mongoOperations.aggregate(aggregationCaptor.capture(), eq(LogEventRollup.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(), new Document()));
+
+        // when
+        List<AggregationBucket> result = logEventRollupDAO.histogram(new BooleanBuilder(), RollupResolution.HOUR, FROM, TO, Duration.ofHours(1), 2);
+
+        // then
+        assertThat(result.isEmpty(), is(true));
+        assertThat(aggregationCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT).get(0), equalTo(new Document("$match",
+                new Document("resolution", "HOUR").append("periodStart", new Document("$gte", FROM).append("$lt", TO)))));
+    }
+
+    private Document createKeyDocument(String resolution, Date periodStart) {
+
+        return new Document("resolution", resolution)
+                .append("periodStart", periodStart)
+                .append("source", "lcfa")
+                .append("level", "ERROR")
+                .append("loggerName", "hu.psprog.leaflet.Test");
+    }
+
+    private void givenQueryMapping() {
+        given(mongoOperations.getConverter()).willReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        given(mongoOperations.query(LoggingEvent.class)).willReturn(mock(ExecutableFindOperation.ExecutableFind.class, RETURNS_DEEP_STUBS));
+    }
+}
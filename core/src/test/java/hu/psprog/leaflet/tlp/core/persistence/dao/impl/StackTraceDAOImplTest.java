@@ -0,0 +1,144 @@
+package hu.psprog.leaflet.tlp.core.persistence.dao.impl;
+
+import com.mongodb.bulk.BulkWriteError;
+import hu.psprog.leaflet.tlp.core.domain.StackTraceEntry;
+import hu.psprog.leaflet.tlp.core.persistence.repository.StackTraceRepository;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link StackTraceDAOImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class StackTraceDAOImplTest {
+
+    private static final List<String> FINGERPRINTS = List.of("fingerprint-1", "fingerprint-2");
+    private static final StackTraceEntry STACK_TRACE_ENTRY = StackTraceEntry.getBuilder().withFingerprint("fingerprint-1").build();
+    private static final List<StackTraceEntry> STACK_TRACE_ENTRY_LIST = List.of(STACK_TRACE_ENTRY);
+    private static final String COLLECTION_NAME = "stackTraces";
+
+    @Mock
+    private StackTraceRepository stackTraceRepository;
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private BulkOperationException bulkOperationException;
+
+    @InjectMocks
+    private StackTraceDAOImpl stackTraceDAO;
+
+    @Test
+    public void shouldFindAllByFingerprints() {
+
+        // given
+        given(stackTraceRepository.findAllById(FINGERPRINTS)).willReturn(STACK_TRACE_ENTRY_LIST);
+
+        // when
+        List<StackTraceEntry> result = stackTraceDAO.findAllByFingerprints(FINGERPRINTS);
+
+        // then
+        assertThat(result, equalTo(STACK_TRACE_ENTRY_LIST));
+    }
+
+    @Test
+    public void shouldFindExistingFingerprints() {
+
+        // given
+        given(mongoOperations.getCollectionName(StackTraceEntry.class)).willReturn(COLLECTION_NAME);
+        given(mongoOperations.find(any(Query.class), eq(Document.class), eq(COLLECTION_NAME)))
+                .willReturn(List.of(new Document("_id", "fingerprint-2")));
+
+        // when
+        Set<String> result = stackTraceDAO.findExistingFingerprints(FINGERPRINTS);
+
+        // then
+        assertThat(result, equalTo(Set.of("fingerprint-2")));
+    }
+
+    @Test
+    public void shouldSaveAllWithUnorderedBulkInsert() {
+
+        // given
+        prepareBulkOperations();
+
+        // when
+        stackTraceDAO.saveAll(STACK_TRACE_ENTRY_LIST);
+
+        // then
+        verify(bulkOperations).execute();
+    }
+
+    @Test
+    public void shouldSaveAllIgnoreDuplicateKeyErrors() {
+
+        // given
+        prepareBulkOperations();
+        given(bulkOperations.execute()).willThrow(bulkOperationException);
+        given(bulkOperationException.getErrors()).willReturn(List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)));
+
+        // when
+        stackTraceDAO.saveAll(STACK_TRACE_ENTRY_LIST);
+
+        // then
+        // no exception expected
+    }
+
+    @Test
+    public void shouldSaveAllRethrowOtherErrors() {
+
+        // given
+        prepareBulkOperations();
+        given(bulkOperations.execute()).willThrow(bulkOperationException);
+        given(bulkOperationException.getErrors()).willReturn(List.of(new BulkWriteError(121, "validation failed", new BsonDocument(), 0)));
+
+        // when
+        assertThrows(BulkOperationException.class, () -> stackTraceDAO.saveAll(STACK_TRACE_ENTRY_LIST));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldSaveAllSkipBulkWriteForEmptyList() {
+
+        // when
+        stackTraceDAO.saveAll(Collections.emptyList());
+
+        // then
+        verifyNoInteractions(mongoOperations);
+    }
+
+    private void prepareBulkOperations() {
+        given(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, StackTraceEntry.class)).willReturn(bulkOperations);
+        given(bulkOperations.insert(STACK_TRACE_ENTRY_LIST)).willReturn(bulkOperations);
+    }
+}
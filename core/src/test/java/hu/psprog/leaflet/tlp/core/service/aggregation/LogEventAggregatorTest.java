@@ -0,0 +1,99 @@
+package hu.psprog.leaflet.tlp.core.service.aggregation;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.AggregationProperties;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregationResult;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit tests for {@link LogEventAggregator}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class LogEventAggregatorTest {
+
+    private static final Pageable PAGEABLE = PageRequest.of(0, 10);
+    private static final LogEventAggregation AGGREGATION = LogEventAggregation.parse("source,level", null);
+    private static final AggregationBucket BUCKET_1 = new AggregationBucket(List.of("lcfa", "ERROR"), 12L);
+    private static final AggregationBucket BUCKET_2 = new AggregationBucket(List.of("lsas", "ERROR"), 5L);
+    private static final AggregationBucket BUCKET_3 = new AggregationBucket(List.of("lcfa", "WARN"), 2L);
+    private static final int MAX_BUCKETS = 2;
+
+    @Mock
+    private LogEventDAO logEventDAO;
+
+    @Mock
+    private Predicate predicate;
+
+    private LogEventAggregator logEventAggregator;
+
+    @BeforeEach
+    public void setup() {
+        AggregationProperties aggregationProperties = new AggregationProperties();
+        aggregationProperties.setMaxBuckets(MAX_BUCKETS);
+        logEventAggregator = new LogEventAggregator(logEventDAO, aggregationProperties);
+    }
+
+    @Test
+    public void shouldAggregateMatchingEvents() {
+
+        // given
+        given(logEventDAO.aggregate(predicate, AGGREGATION, MAX_BUCKETS + 1)).willReturn(List.of(BUCKET_1, BUCKET_2));
+
+        // when
+        LogEventAggregationResult result = logEventAggregator.aggregate(new QueryPlan(Optional.of(predicate), PAGEABLE), AGGREGATION);
+
+        // then
+        assertThat(result, equalTo(LogEventAggregationResult.getBuilder()
+                .withDimensions(List.of("source", "level"))
+                .withBuckets(List.of(BUCKET_1, BUCKET_2))
+                .withTruncated(false)
+                .build()));
+    }
+
+    @Test
+    public void shouldAggregateEveryEventForUnfilteredQuery() {
+
+        // given
+        given(logEventDAO.aggregate(AGGREGATION, MAX_BUCKETS + 1)).willReturn(List.of(BUCKET_1));
+
+        // when
+        LogEventAggregationResult result = logEventAggregator.aggregate(new QueryPlan(Optional.empty(), PAGEABLE), AGGREGATION);
+
+        // then
+        assertThat(result.buckets(), equalTo(List.of(BUCKET_1)));
+        assertThat(result.truncated(), equalTo(false));
+    }
+
+    @Test
+    public void shouldAggregateTruncateBucketsOverConfiguredMaximum() {
+
+        // given
+        given(logEventDAO.aggregate(predicate, AGGREGATION, MAX_BUCKETS + 1)).willReturn(List.of(BUCKET_1, BUCKET_2, BUCKET_3));
+
+        // when
+        LogEventAggregationResult result = logEventAggregator.aggregate(new QueryPlan(Optional.of(predicate), PAGEABLE), AGGREGATION);
+
+        // then
+        assertThat(result.buckets(), equalTo(List.of(BUCKET_1, BUCKET_2)));
+        assertThat(result.truncated(), equalTo(true));
+    }
+}
@@ -0,0 +1,66 @@
+package hu.psprog.leaflet.tlp.core.service.cache;
+
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link IngestWatermark}.
+ *
+ * @author Peter Smith
+ */
+public class IngestWatermarkTest {
+
+    private IngestWatermark ingestWatermark;
+
+    @BeforeEach
+    public void setup() {
+        ingestWatermark = new IngestWatermark();
+    }
+
+    @Test
+    public void shouldAdvanceGlobalAndSourceWatermarks() {
+
+        // when
+        ingestWatermark.advance(List.of("LCFA", "lsas"));
+        ingestWatermark.advance(List.of("lcfa"));
+
+        // then
+        assertThat(ingestWatermark.current(Set.of()), equalTo(2L));
+        assertThat(ingestWatermark.current(Set.of("lcfa")), equalTo(2L));
+        assertThat(ingestWatermark.current(Set.of("lsas")), equalTo(1L));
+        assertThat(ingestWatermark.current(Set.of("lsas", "lcfa")), equalTo(2L));
+        assertThat(ingestWatermark.current(Set.of("lms")), equalTo(0L));
+    }
+
+    @Test
+    public void shouldNotAdvanceForEmptySourceCollection() {
+
+        // when
+        ingestWatermark.advance(List.of());
+
+        // then
+        assertThat(ingestWatermark.current(Set.of()), equalTo(0L));
+    }
+
+    @Test
+    public void shouldAdvanceAfterStore() {
+
+        // given
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder()
+                .withSource("lcfa")
+                .build();
+
+        // when
+        ingestWatermark.afterStore(List.of(loggingEvent));
+
+        // then
+        assertThat(ingestWatermark.current(Set.of("lcfa")), equalTo(1L));
+    }
+}
@@ -0,0 +1,275 @@
+package hu.psprog.leaflet.tlp.core.service.cache;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.api.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.config.QueryResultCacheProperties;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryScope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit tests for {@link QueryResultCache}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class QueryResultCacheTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+    private static final Set<String> SOURCES = Set.of("lcfa");
+
+    @Mock
+    private QueryScopeExtractor queryScopeExtractor;
+
+    @Mock
+    private IngestWatermark ingestWatermark;
+
+    @Mock
+    private Clock clock;
+
+    @Mock
+    private Predicate predicate;
+
+    private QueryPlan queryPlan;
+    private AtomicInteger executions;
+    private QueryResultCache queryResultCache;
+
+    @BeforeEach
+    public void setup() {
+        queryPlan = new QueryPlan(Optional.of(predicate), PageRequest.of(0, 10));
+        executions = new AtomicInteger();
+        queryResultCache = createCache(true, DataSize.ofMegabytes(1));
+    }
+
+    @Test
+    public void shouldServeRepeatedQueryFromCache() {
+
+        // given
+        givenOpenRangeQuery(queryPlan);
+        given(clock.instant()).willReturn(NOW, NOW.plusSeconds(5));
+        given(ingestWatermark.current(SOURCES)).willReturn(3L);
+
+        // when
+        LogEventQueryResult firstResult = queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+        LogEventQueryResult secondResult = queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+
+        // then
+        assertThat(secondResult, sameInstance(firstResult));
+        assertThat(executions.get(), equalTo(1));
+        assertThat(queryResultCache.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldCacheDifferentPagesAndCountModesSeparately() {
+
+        // given
+        givenOpenRangeQuery(queryPlan);
+        given(clock.instant()).willReturn(NOW);
+        given(ingestWatermark.current(SOURCES)).willReturn(3L);
+
+        // when
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+        queryResultCache.get(queryPlan, "cursor", CountMode.NONE, query("content"));
+        queryResultCache.get(queryPlan, null, CountMode.EXACT, query("content"));
+
+        // then
+        assertThat(executions.get(), equalTo(3));
+        assertThat(queryResultCache.size(), equalTo(3));
+    }
+
+    @Test
+    public void shouldInvalidateOpenRangeResultWhenWatermarkAdvances() {
+
+        // given
+        givenOpenRangeQuery(queryPlan);
+        given(clock.instant()).willReturn(NOW);
+        given(ingestWatermark.current(SOURCES)).willReturn(3L, 4L, 4L);
+
+        // when
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+
+        // then
+        assertThat(executions.get(), equalTo(2));
+        assertThat(queryResultCache.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldExpireOpenRangeResultAfterTimeToLive() {
+
+        // given
+        givenOpenRangeQuery(queryPlan);
+        given(clock.instant()).willReturn(NOW, NOW.plusSeconds(10));
+        given(ingestWatermark.current(SOURCES)).willReturn(3L);
+
+        // when
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+
+        // then
+        assertThat(executions.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldKeepSettledRangeResultRegardlessOfIngestion() {
+
+        // given
+        Date until = Date.from(NOW.minus(Duration.ofMinutes(5)));
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(new QueryScope(SOURCES, Optional.empty(), Optional.of(until)));
+        given(clock.instant()).willReturn(NOW, NOW.plus(Duration.ofHours(1)));
+        given(ingestWatermark.current(SOURCES)).willReturn(3L);
+
+        // when
+        LogEventQueryResult firstResult = queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+        LogEventQueryResult secondResult = queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+
+        // then
+        assertThat(secondResult, sameInstance(firstResult));
+        assertThat(executions.get(), equalTo(1));
+    }
+
+    @Test
+    public void shouldNotCacheDeferredCountResult() {
+
+        // when
+        queryResultCache.get(queryPlan, null, CountMode.DEFERRED, query("content"));
+        queryResultCache.get(queryPlan, null, CountMode.DEFERRED, query("content"));
+
+        // then
+        assertThat(executions.get(), equalTo(2));
+        assertThat(queryResultCache.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+
+        // given
+        queryResultCache = createCache(false, DataSize.ofMegabytes(1));
+
+        // when
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+
+        // then
+        assertThat(executions.get(), equalTo(2));
+        assertThat(queryResultCache.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedResultsOverMaxSize() {
+
+        // given
+        queryResultCache = createCache(true, DataSize.ofBytes(1_000));
+        QueryPlan otherQueryPlan = new QueryPlan(Optional.empty(), PageRequest.of(0, 10));
+        givenOpenRangeQuery(queryPlan);
+        givenOpenRangeQuery(otherQueryPlan);
+        given(clock.instant()).willReturn(NOW);
+        given(ingestWatermark.current(SOURCES)).willReturn(3L);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        queryResultCache.bindTo(meterRegistry);
+
+        // when
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("a".repeat(500)));
+        queryResultCache.get(otherQueryPlan, null, CountMode.NONE, query("b".repeat(500)));
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("a".repeat(500)));
+
+        // then
+        assertThat(executions.get(), equalTo(3));
+        assertThat(queryResultCache.size(), equalTo(1));
+        assertThat(queryResultCache.weight(), equalTo(924L));
+        assertThat(meterRegistry.get("tlp.query.result-cache.evictions").functionCounter().count(), equalTo(2.0));
+        assertThat(meterRegistry.get("tlp.query.result-cache.hit-ratio").gauge().value(), equalTo(0.0));
+    }
+
+    @Test
+    public void shouldNotCacheResultLargerThanMaxSize() {
+
+        // given
+        queryResultCache = createCache(true, DataSize.ofBytes(1_000));
+        givenOpenRangeQuery(queryPlan);
+        given(clock.instant()).willReturn(NOW);
+        given(ingestWatermark.current(SOURCES)).willReturn(3L);
+
+        // when
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("a".repeat(1_000)));
+
+        // then
+        assertThat(queryResultCache.size(), equalTo(0));
+        assertThat(queryResultCache.weight(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldExposeMetrics() {
+
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        queryResultCache.bindTo(meterRegistry);
+        givenOpenRangeQuery(queryPlan);
+        given(clock.instant()).willReturn(NOW);
+        given(ingestWatermark.current(SOURCES)).willReturn(3L, 3L, 4L, 4L);
+
+        // when
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+        queryResultCache.get(queryPlan, null, CountMode.NONE, query("content"));
+
+        // then
+        assertThat(meterRegistry.get("tlp.query.result-cache.requests").tag("result", "hit").functionCounter().count(), equalTo(1.0));
+        assertThat(meterRegistry.get("tlp.query.result-cache.requests").tag("result", "miss").functionCounter().count(), equalTo(2.0));
+        assertThat(meterRegistry.get("tlp.query.result-cache.invalidations").functionCounter().count(), equalTo(1.0));
+        assertThat(meterRegistry.get("tlp.query.result-cache.size").gauge().value(), equalTo(1.0));
+        assertThat(meterRegistry.get("tlp.query.result-cache.hit-ratio").gauge().value(), equalTo(1.0 / 3));
+    }
+
+    private QueryResultCache createCache(boolean enabled, DataSize maxSize) {
+
+        QueryResultCacheProperties queryResultCacheProperties = new QueryResultCacheProperties();
+        queryResultCacheProperties.setEnabled(enabled);
+        queryResultCacheProperties.setMaxSize(maxSize);
+
+        return new QueryResultCache(queryScopeExtractor, ingestWatermark, queryResultCacheProperties, clock);
+    }
+
+    private void givenOpenRangeQuery(QueryPlan queryPlan) {
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(new QueryScope(SOURCES, Optional.empty(), Optional.empty()));
+    }
+
+    private Supplier<LogEventQueryResult> query(String content) {
+
+        return () -> {
+            executions.incrementAndGet();
+            return LogEventQueryResult.getBuilder()
+                    .withPage(LogEventPage.getBuilder()
+                            .withEntitiesOnPage(List.of(LoggingEvent.getBuilder()
+                                    .withContent(content)
+                                    .build()))
+                            .build())
+                    .build();
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package hu.psprog.leaflet.tlp.core.service.cache;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryScope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link QueryScopeExtractor}.
+ *
+ * @author Peter Smith
+ */
+public class QueryScopeExtractorTest {
+
+    private static final QLoggingEvent EVENT = new QLoggingEvent("event");
+    private static final Pageable PAGEABLE = PageRequest.of(0, 10);
+    private static final Timestamp EARLIER = new Timestamp(1_700_000_000_000L);
+    private static final Timestamp LATER = new Timestamp(1_700_000_100_000L);
+
+    private QueryScopeExtractor queryScopeExtractor;
+
+    @BeforeEach
+    public void setup() {
+        queryScopeExtractor = new QueryScopeExtractor();
+    }
+
+    @Test
+    public void shouldExtractUnrestrictedScopeForQueryWithoutExpression() {
+
+        // when
+        QueryScope result = queryScopeExtractor.extract(new QueryPlan(Optional.empty(), PAGEABLE));
+
+        // then
+        assertThat(result, equalTo(new QueryScope(Set.of(), Optional.empty(), Optional.empty())));
+    }
+
+    @Test
+    public void shouldExtractSourceAndTimeBounds() {
+
+        // given
+        Predicate expression = EVENT.source.equalsIgnoreCase("LCFA")
+                .and(EVENT.timeStamp.gt(EARLIER))
+                .and(EVENT.timeStamp.loe(LATER))
+                .and(EVENT.timeStamp.lt(EARLIER));
+
+        // when
+        QueryScope result = queryScopeExtractor.extract(new QueryPlan(Optional.of(expression), PAGEABLE));
+
+        // then
+        assertThat(result, equalTo(new QueryScope(Set.of("lcfa"), Optional.of(EARLIER), Optional.of(EARLIER))));
+    }
+
+    @Test
+    public void shouldExtractSourcesOfEitherCondition() {
+
+        // given
+        Predicate expression = new BooleanBuilder(EVENT.level.eq("ERROR"))
+                .and(EVENT.source.in("lcfa", "lsas"));
+
+        // when
+        QueryScope result = queryScopeExtractor.extract(new QueryPlan(Optional.of(expression), PAGEABLE));
+
+        // then
+        assertThat(result, equalTo(new QueryScope(Set.of("lcfa", "lsas"), Optional.empty(), Optional.empty())));
+    }
+
+    @Test
+    public void shouldIgnoreConditionsUnderOrAndNot() {
+
+        // given
+        Predicate expression = EVENT.source.eq("lcfa").or(EVENT.source.eq("lsas"))
+                .and(EVENT.timeStamp.lt((Date) EARLIER).not());
+
+        // when
+        QueryScope result = queryScopeExtractor.extract(new QueryPlan(Optional.of(expression), PAGEABLE));
+
+        // then
+        assertThat(result, equalTo(new QueryScope(Set.of(), Optional.empty(), Optional.empty())));
+    }
+}
@@ -0,0 +1,199 @@
+package hu.psprog.leaflet.tlp.core.service.compression;
+
+import hu.psprog.leaflet.tlp.core.config.CompressionProperties;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link LoggingEventCompressor}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class LoggingEventCompressorTest {
+
+    private static final int THRESHOLD = 100;
+    private static final int SEARCH_SHADOW_LENGTH = 20;
+    private static final String SHORT_CONTENT = "short content";
+    private static final String LARGE_CONTENT = "large content ".repeat(50);
+    private static final String SHORT_STACK_TRACE = "at short.Trace.method(Trace.java:1)";
+    private static final String LARGE_STACK_TRACE = "at large.stack.Trace.method(Trace.java:42)\n".repeat(50);
+
+    @Test
+    public void shouldBeforeStoreCompressLargeContentKeepingSearchShadow() {
+
+        // given
+        LoggingEventCompressor loggingEventCompressor = createCompressor(true);
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder().withContent(LARGE_CONTENT).build();
+
+        // when
+        loggingEventCompressor.beforeStore(List.of(loggingEvent));
+
+        // then
+        assertThat(loggingEvent.getContent(), equalTo(LARGE_CONTENT.substring(0, SEARCH_SHADOW_LENGTH)));
+        assertThat(loggingEvent.getCompressedContent(), notNullValue());
+        assertThat(loggingEvent.getCompressedContent().length, lessThan(LARGE_CONTENT.length()));
+        assertThat(loggingEventCompressor.getContent(loggingEvent), equalTo(LARGE_CONTENT));
+    }
+
+    @Test
+    public void shouldBeforeStoreNotSplitSurrogatePairInSearchShadow() {
+
+        // given
+        LoggingEventCompressor loggingEventCompressor = createCompressor(true);
+        String content = "x".repeat(SEARCH_SHADOW_LENGTH - 1) + "😀" + LARGE_CONTENT;
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder().withContent(content).build();
+
+        // when
+        loggingEventCompressor.beforeStore(List.of(loggingEvent));
+
+        // then
+        assertThat(loggingEvent.getContent(), equalTo("x".repeat(SEARCH_SHADOW_LENGTH - 1)));
+        assertThat(loggingEventCompressor.getContent(loggingEvent), equalTo(content));
+    }
+
+    @Test
+    public void shouldBeforeStoreCompressLargeStackTracesInWholeExceptionTree() {
+
+        // given
+        LoggingEventCompressor loggingEventCompressor = createCompressor(true);
+        ThrowableProxyLogItem suppressed = prepareException(LARGE_STACK_TRACE, null, null);
+        ThrowableProxyLogItem cause = prepareException(SHORT_STACK_TRACE, null, null);
+        ThrowableProxyLogItem exception = prepareException(LARGE_STACK_TRACE, cause, List.of(suppressed));
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder()
+                .withContent(SHORT_CONTENT)
+                .withException(exception)
+                .build();
+
+        // when
+        loggingEventCompressor.beforeStore(List.of(loggingEvent));
+
+        // then
+        assertThat(loggingEvent.getContent(), equalTo(SHORT_CONTENT));
+        assertThat(loggingEvent.getCompressedContent(), nullValue());
+        assertThat(exception.getStackTrace(), nullValue());
+        assertThat(loggingEventCompressor.getStackTrace(exception), equalTo(LARGE_STACK_TRACE));
+        assertThat(cause.getStackTrace(), equalTo(SHORT_STACK_TRACE));
+        assertThat(cause.getCompressedStackTrace(), nullValue());
+        assertThat(loggingEventCompressor.getStackTrace(cause), equalTo(SHORT_STACK_TRACE));
+        assertThat(suppressed.getStackTrace(), nullValue());
+        assertThat(loggingEventCompressor.getStackTrace(suppressed), equalTo(LARGE_STACK_TRACE));
+    }
+
+    @Test
+    public void shouldBeforeStoreDoNothingWhenDisabled() {
+
+        // given
+        LoggingEventCompressor loggingEventCompressor = createCompressor(false);
+        ThrowableProxyLogItem exception = prepareException(LARGE_STACK_TRACE, null, null);
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder()
+                .withContent(LARGE_CONTENT)
+                .withException(exception)
+                .build();
+
+        // when
+        loggingEventCompressor.beforeStore(List.of(loggingEvent));
+
+        // then
+        assertThat(loggingEvent.getContent(), equalTo(LARGE_CONTENT));
+        assertThat(loggingEvent.getCompressedContent(), nullValue());
+        assertThat(exception.getStackTrace(), equalTo(LARGE_STACK_TRACE));
+        assertThat(exception.getCompressedStackTrace(), nullValue());
+    }
+
+    @Test
+    public void shouldGetContentThrowIllegalStateExceptionForCorruptedValue() {
+
+        // given
+        LoggingEventCompressor loggingEventCompressor = createCompressor(true);
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder().build();
+        loggingEvent.setCompressedContent(new byte[] {1, 2, 3, 4});
+
+        // when
+        assertThrows(IllegalStateException.class, () -> loggingEventCompressor.getContent(loggingEvent));
+
+        // then
+        // exception expected
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1, THRESHOLD, THRESHOLD + 1})
+    public void shouldRejectInvalidSearchShadowLengthWhenEnabled(int searchShadowLength) {
+
+        // given
+        CompressionProperties compressionProperties = createCompressionProperties(true, searchShadowLength);
+
+        // when
+        assertThrows(IllegalStateException.class, () -> new LoggingEventCompressor(compressionProperties));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldAcceptInvalidSearchShadowLengthWhenDisabled() {
+
+        // given
+        CompressionProperties compressionProperties = createCompressionProperties(false, 0);
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder().withContent(LARGE_CONTENT).build();
+
+        // when
+        new LoggingEventCompressor(compressionProperties).beforeStore(List.of(loggingEvent));
+
+        // then
+        assertThat(loggingEvent.getContent(), equalTo(LARGE_CONTENT));
+    }
+
+    @Test
+    public void shouldBeforeStoreCompressContentJustOverThresholdKeepingSearchShadow() {
+
+        // given
+        LoggingEventCompressor loggingEventCompressor = new LoggingEventCompressor(createCompressionProperties(true, THRESHOLD - 1));
+        String content = "x".repeat(THRESHOLD + 1);
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder().withContent(content).build();
+
+        // when
+        loggingEventCompressor.beforeStore(List.of(loggingEvent));
+
+        // then
+        assertThat(loggingEvent.getContent(), equalTo("x".repeat(THRESHOLD - 1)));
+        assertThat(loggingEventCompressor.getContent(loggingEvent), equalTo(content));
+    }
+
+    private LoggingEventCompressor createCompressor(boolean enabled) {
+        return new LoggingEventCompressor(createCompressionProperties(enabled, SEARCH_SHADOW_LENGTH));
+    }
+
+    private CompressionProperties createCompressionProperties(boolean enabled, int searchShadowLength) {
+
+        CompressionProperties compressionProperties = new CompressionProperties();
+        compressionProperties.setEnabled(enabled);
+        compressionProperties.setThreshold(THRESHOLD);
+        compressionProperties.setSearchShadowLength(searchShadowLength);
+
+        return compressionProperties;
+    }
+
+    private ThrowableProxyLogItem prepareException(String stackTrace, ThrowableProxyLogItem cause, List<ThrowableProxyLogItem> suppressed) {
+        return ThrowableProxyLogItem.getBuilder()
+                .withClassName("class-name")
+                .withStackTrace(stackTrace)
+                .withCause(cause)
+                .withSuppressed(suppressed)
+                .build();
+    }
+}
@@ -0,0 +1,160 @@
+package hu.psprog.leaflet.tlp.core.service.count;
+
+import hu.psprog.leaflet.tlp.core.config.QueryCountProperties;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link DeferredCountRegistry}.
+ *
+ * @author Peter Smith
+ */
+public class DeferredCountRegistryTest {
+
+    private static final long WAIT_TIMEOUT_MILLIS = 5_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private DeferredCountRegistry deferredCountRegistry;
+
+    @BeforeEach
+    public void setup() {
+
+        QueryCountProperties queryCountProperties = new QueryCountProperties();
+        queryCountProperties.setDeferredCountThreads(1);
+        queryCountProperties.setMaxDeferredCounts(2);
+        queryCountProperties.setDeferredCountTimeToLive(Duration.ofSeconds(10));
+        deferredCountRegistry = new DeferredCountRegistry(queryCountProperties, clock::get);
+        deferredCountRegistry.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        deferredCountRegistry.shutdown();
+    }
+
+    @Test
+    public void shouldSubmitCountReportPendingThenCompletedStatus() throws InterruptedException {
+
+        // given
+        CountDownLatch latch = new CountDownLatch(1);
+        String token = deferredCountRegistry.submit(() -> {
+            awaitQuietly(latch);
+            return 42L;
+        }).orElseThrow();
+
+        // when
+        DeferredCount pendingResult = deferredCountRegistry.get(token).orElseThrow();
+        latch.countDown();
+        DeferredCount completedResult = awaitCompletion(token);
+
+        // then
+        assertThat(pendingResult.status(), equalTo(DeferredCount.Status.PENDING));
+        assertThat(completedResult, equalTo(DeferredCount.getBuilder()
+                .withStatus(DeferredCount.Status.COMPLETED)
+                .withCount(42L)
+                .build()));
+    }
+
+    @Test
+    public void shouldSubmitCountReportFailedCount() throws InterruptedException {
+
+        // given
+        String token = deferredCountRegistry.submit(() -> {
+            throw new IllegalStateException("count failed");
+        }).orElseThrow();
+
+        // when
+        DeferredCount result = awaitCompletion(token);
+
+        // then
+        assertThat(result.status(), equalTo(DeferredCount.Status.FAILED));
+    }
+
+    @Test
+    public void shouldSubmitRejectCountWhenLimitIsReached() {
+
+        // given
+        deferredCountRegistry.submit(() -> 1L);
+        deferredCountRegistry.submit(() -> 2L);
+
+        // when
+        Optional<String> result = deferredCountRegistry.submit(() -> 3L);
+
+        // then
+        assertThat(result.isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldSubmitCleanUpExpiredCounts() {
+
+        // given
+        String expiredToken = deferredCountRegistry.submit(() -> 1L).orElseThrow();
+        deferredCountRegistry.submit(() -> 2L);
+        clock.set(Duration.ofSeconds(10).toMillis());
+
+        // when
+        Optional<String> result = deferredCountRegistry.submit(() -> 3L);
+
+        // then
+        assertThat(result.isPresent(), is(true));
+        assertThat(deferredCountRegistry.get(expiredToken).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldGetReturnEmptyForExpiredCount() {
+
+        // given
+        String token = deferredCountRegistry.submit(() -> 1L).orElseThrow();
+        clock.set(Duration.ofSeconds(11).toMillis());
+
+        // when
+        Optional<DeferredCount> result = deferredCountRegistry.get(token);
+
+        // then
+        assertThat(result.isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldGetReturnEmptyForUnknownToken() {
+
+        // when
+        Optional<DeferredCount> result = deferredCountRegistry.get("unknown");
+
+        // then
+        assertThat(result.isPresent(), is(false));
+    }
+
+    private DeferredCount awaitCompletion(String token) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        DeferredCount deferredCount = deferredCountRegistry.get(token).orElseThrow();
+        while (deferredCount.status() == DeferredCount.Status.PENDING && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+            deferredCount = deferredCountRegistry.get(token).orElseThrow();
+        }
+
+        return deferredCount;
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+
+        try {
+            latch.await(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
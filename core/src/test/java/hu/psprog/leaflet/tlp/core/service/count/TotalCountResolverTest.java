@@ -0,0 +1,146 @@
+package hu.psprog.leaflet.tlp.core.service.count;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryCountProperties;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link TotalCountResolver}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class TotalCountResolverTest {
+
+    private static final String COUNT_TOKEN = "count-token";
+
+    @Mock
+    private LogEventDAO logEventDAO;
+
+    @Mock
+    private DeferredCountRegistry deferredCountRegistry;
+
+    @Mock
+    private Predicate predicate;
+
+    @Captor
+    private ArgumentCaptor<Supplier<Long>> countTaskCaptor;
+
+    private TotalCountResolver totalCountResolver;
+
+    @BeforeEach
+    public void setup() {
+        QueryCountProperties queryCountProperties = new QueryCountProperties();
+        queryCountProperties.setCap(100);
+        totalCountResolver = new TotalCountResolver(logEventDAO, deferredCountRegistry, queryCountProperties);
+    }
+
+    @Test
+    public void shouldResolveExactCount() {
+
+        // given
+        given(logEventDAO.count(predicate)).willReturn(1_234L);
+
+        // when
+        TotalCount result = totalCountResolver.resolve(Optional.of(predicate), CountMode.EXACT);
+
+        // then
+        assertThat(result, equalTo(TotalCount.exact(1_234L)));
+    }
+
+    @Test
+    public void shouldResolveLowerBoundWithoutCounting() {
+
+        // when
+        TotalCount result = totalCountResolver.resolve(Optional.of(predicate), CountMode.NONE);
+
+        // then
+        assertThat(result, equalTo(TotalCount.atLeast(0, null)));
+        verifyNoInteractions(logEventDAO, deferredCountRegistry);
+    }
+
+    @Test
+    public void shouldResolveEstimatedCountForUnfilteredQuery() {
+
+        // given
+        given(logEventDAO.estimatedCount()).willReturn(50_000L);
+
+        // when
+        TotalCount result = totalCountResolver.resolve(Optional.empty(), CountMode.ESTIMATED);
+
+        // then
+        assertThat(result, equalTo(TotalCount.estimated(50_000L)));
+    }
+
+    @Test
+    public void shouldResolveExactCountForFilteredQueryUnderCap() {
+
+        // given
+        given(logEventDAO.countUpTo(predicate, 101)).willReturn(42L);
+
+        // when
+        TotalCount result = totalCountResolver.resolve(Optional.of(predicate), CountMode.ESTIMATED);
+
+        // then
+        assertThat(result, equalTo(TotalCount.exact(42L)));
+    }
+
+    @Test
+    public void shouldResolveLowerBoundForFilteredQueryOverCap() {
+
+        // given
+        given(logEventDAO.countUpTo(predicate, 101)).willReturn(101L);
+
+        // when
+        TotalCount result = totalCountResolver.resolve(Optional.of(predicate), CountMode.ESTIMATED);
+
+        // then
+        assertThat(result, equalTo(TotalCount.atLeast(100L, null)));
+    }
+
+    @Test
+    public void shouldResolveDeferredCountStartBackgroundCount() {
+
+        // given
+        given(deferredCountRegistry.submit(countTaskCaptor.capture())).willReturn(Optional.of(COUNT_TOKEN));
+        given(logEventDAO.count()).willReturn(7L);
+
+        // when
+        TotalCount result = totalCountResolver.resolve(Optional.empty(), CountMode.DEFERRED);
+
+        // then
+        assertThat(result, equalTo(TotalCount.atLeast(0, COUNT_TOKEN)));
+        assertThat(countTaskCaptor.getValue().get(), equalTo(7L));
+    }
+
+    @Test
+    public void shouldResolveDeferredCountWithoutTokenWhenRegistryIsFull() {
+
+        // given
+        given(deferredCountRegistry.submit(any())).willReturn(Optional.empty());
+
+        // when
+        TotalCount result = totalCountResolver.resolve(Optional.empty(), CountMode.DEFERRED);
+
+        // then
+        assertThat(result, equalTo(TotalCount.atLeast(0, null)));
+    }
+}
@@ -0,0 +1,151 @@
+package hu.psprog.leaflet.tlp.core.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.ExportProperties;
+import hu.psprog.leaflet.tlp.core.conversion.LoggingEventEntityToDomainConverter;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link LogEventExporter}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class LogEventExporterTest {
+
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "timeStamp", "id");
+    private static final Pageable PAGEABLE = PageRequest.of(3, 10, SORT);
+    private static final LogEventProjection PROJECTION = LogEventProjection.parse("level,content");
+    private static final int BATCH_SIZE = 2;
+
+    private static final LoggingEvent LOGGING_EVENT_1 = LoggingEvent.getBuilder().withContent("event 1").build();
+    private static final LoggingEvent LOGGING_EVENT_2 = LoggingEvent.getBuilder().withContent("event 2").build();
+    private static final LoggingEvent LOGGING_EVENT_3 = LoggingEvent.getBuilder().withContent("event 3").build();
+    private static final hu.psprog.leaflet.tlp.api.domain.LoggingEvent CONVERTED_EVENT_1 = createConvertedEvent("event 1");
+    private static final hu.psprog.leaflet.tlp.api.domain.LoggingEvent CONVERTED_EVENT_2 = createConvertedEvent("event 2");
+    private static final hu.psprog.leaflet.tlp.api.domain.LoggingEvent CONVERTED_EVENT_3 = createConvertedEvent("event 3");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private LogEventDAO logEventDAO;
+
+    @Mock
+    private LoggingEventEntityToDomainConverter loggingEventEntityToDomainConverter;
+
+    @Mock
+    private Predicate predicate;
+
+    private LogEventExporter logEventExporter;
+
+    @BeforeEach
+    public void setup() {
+        ExportProperties exportProperties = new ExportProperties();
+        exportProperties.setBatchSize(BATCH_SIZE);
+        logEventExporter = new LogEventExporter(logEventDAO, loggingEventEntityToDomainConverter, objectMapper, exportProperties);
+    }
+
+    @Test
+    public void shouldExportMatchingEventsInBatches() throws IOException {
+
+        // given
+        AtomicBoolean streamClosed = new AtomicBoolean(false);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        given(logEventDAO.stream(predicate, SORT, PROJECTION, BATCH_SIZE))
+                .willReturn(Stream.of(LOGGING_EVENT_1, LOGGING_EVENT_2, LOGGING_EVENT_3).onClose(() -> streamClosed.set(true)));
+        given(loggingEventEntityToDomainConverter.convertAll(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2)))
+                .willReturn(List.of(CONVERTED_EVENT_1, CONVERTED_EVENT_2));
+        given(loggingEventEntityToDomainConverter.convertAll(List.of(LOGGING_EVENT_3)))
+                .willReturn(List.of(CONVERTED_EVENT_3));
+
+        // when
+        long result = logEventExporter.export(new QueryPlan(Optional.of(predicate), PAGEABLE, PROJECTION), outputStream);
+
+        // then
+        assertThat(result, equalTo(3L));
+        assertThat(outputStream.toString(), equalTo(toLine(CONVERTED_EVENT_1) + toLine(CONVERTED_EVENT_2) + toLine(CONVERTED_EVENT_3)));
+        assertThat(streamClosed.get(), is(true));
+    }
+
+    @Test
+    public void shouldExportWithoutFilterExpression() throws IOException {
+
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        given(logEventDAO.stream(SORT, LogEventProjection.ALL, BATCH_SIZE)).willReturn(Stream.empty());
+
+        // when
+        long result = logEventExporter.export(new QueryPlan(Optional.empty(), PAGEABLE), outputStream);
+
+        // then
+        assertThat(result, equalTo(0L));
+        assertThat(outputStream.size(), equalTo(0));
+        verify(loggingEventEntityToDomainConverter, never()).convertAll(any());
+    }
+
+    @Test
+    public void shouldStopExportAndReleaseCursorWhenOutputFails() {
+
+        // given
+        AtomicBoolean streamClosed = new AtomicBoolean(false);
+        given(logEventDAO.stream(predicate, SORT, PROJECTION, BATCH_SIZE))
+                .willReturn(Stream.of(LOGGING_EVENT_1, LOGGING_EVENT_2, LOGGING_EVENT_3).onClose(() -> streamClosed.set(true)));
+        given(loggingEventEntityToDomainConverter.convertAll(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2)))
+                .willReturn(List.of(CONVERTED_EVENT_1, CONVERTED_EVENT_2));
+
+        // when
+        assertThrows(IOException.class, () -> logEventExporter.export(new QueryPlan(Optional.of(predicate), PAGEABLE, PROJECTION),
+                new DisconnectedOutputStream()));
+
+        // then
+        assertThat(streamClosed.get(), is(true));
+        verify(loggingEventEntityToDomainConverter, never()).convertAll(List.of(LOGGING_EVENT_3));
+    }
+
+    private String toLine(hu.psprog.leaflet.tlp.api.domain.LoggingEvent loggingEvent) throws IOException {
+        return objectMapper.writeValueAsString(loggingEvent) + "\n";
+    }
+
+    private static hu.psprog.leaflet.tlp.api.domain.LoggingEvent createConvertedEvent(String content) {
+        return hu.psprog.leaflet.tlp.api.domain.LoggingEvent.getBuilder()
+                .withContent(content)
+                .build();
+    }
+
+    private static class DisconnectedOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            throw new IOException("Connection reset by peer");
+        }
+    }
+}
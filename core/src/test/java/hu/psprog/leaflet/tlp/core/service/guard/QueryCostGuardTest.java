@@ -0,0 +1,196 @@
+package hu.psprog.leaflet.tlp.core.service.guard;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryScope;
+import hu.psprog.leaflet.tlp.core.exception.QueryRejectedException;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import hu.psprog.leaflet.tlp.core.service.cache.QueryScopeExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link QueryCostGuard}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class QueryCostGuardTest {
+
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "timeStamp", "id");
+    private static final QueryScope UNBOUNDED_SCOPE = new QueryScope(Set.of(), Optional.empty(), Optional.empty());
+
+    @Mock
+    private LogEventDAO logEventDAO;
+
+    @Mock
+    private QueryScopeExtractor queryScopeExtractor;
+
+    @Mock
+    private Predicate predicate;
+
+    private QueryPlan queryPlan;
+    private QueryCostGuard queryCostGuard;
+
+    @BeforeEach
+    public void setup() {
+        queryPlan = new QueryPlan(Optional.of(predicate), PageRequest.of(0, 10, SORT));
+        queryCostGuard = createGuard(true);
+    }
+
+    @Test
+    public void shouldRejectCollectionScanOverLimit() {
+
+        // given
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(UNBOUNDED_SCOPE);
+        given(logEventDAO.estimatedCount()).willReturn(5_000L);
+        given(logEventDAO.explainStages(predicate, SORT)).willReturn(Set.of("SORT", "COLLSCAN"));
+
+        // when
+        QueryRejectedException result = assertThrows(QueryRejectedException.class, () -> queryCostGuard.check(queryPlan));
+
+        // then
+        assertThat(result.getMessage(), equalTo("Query would scan all the 5000 stored log events (limit is 1000) "
+                + "- add a lower time bound or a condition on an indexed field"));
+    }
+
+    @Test
+    public void shouldRejectUnfilteredCollectionScanOverLimit() {
+
+        // given
+        QueryPlan unfilteredQueryPlan = new QueryPlan(Optional.empty(), PageRequest.of(0, 10, SORT));
+        given(queryScopeExtractor.extract(unfilteredQueryPlan)).willReturn(UNBOUNDED_SCOPE);
+        given(logEventDAO.estimatedCount()).willReturn(5_000L);
+        given(logEventDAO.explainStages(SORT)).willReturn(Set.of("COLLSCAN"));
+
+        // when
+        assertThrows(QueryRejectedException.class, () -> queryCostGuard.check(unfilteredQueryPlan));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldAcceptIndexedQuery() {
+
+        // given
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(UNBOUNDED_SCOPE);
+        given(logEventDAO.estimatedCount()).willReturn(5_000L);
+        given(logEventDAO.explainStages(predicate, SORT)).willReturn(Set.of("FETCH", "IXSCAN"));
+
+        // when
+        queryCostGuard.check(queryPlan);
+
+        // then
+        // no exception expected
+    }
+
+    @Test
+    public void shouldAcceptCollectionScanUnderLimitWithoutExplain() {
+
+        // given
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(UNBOUNDED_SCOPE);
+        given(logEventDAO.estimatedCount()).willReturn(1_000L);
+
+        // when
+        queryCostGuard.check(queryPlan);
+
+        // then
+        verify(logEventDAO, never()).explainStages(any(Predicate.class), any(Sort.class));
+    }
+
+    @Test
+    public void shouldAcceptQueryWithLowerTimeBoundWithoutExplain() {
+
+        // given
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(new QueryScope(Set.of(), Optional.of(new Date()), Optional.empty()));
+
+        // when
+        queryCostGuard.check(queryPlan);
+
+        // then
+        verifyNoInteractions(logEventDAO);
+    }
+
+    @Test
+    public void shouldSkipCheckWhenCollectionScanRejectionIsDisabled() {
+
+        // given
+        queryCostGuard = createGuard(false);
+
+        // when
+        String result = queryCostGuard.execute(queryPlan, () -> "result");
+
+        // then
+        assertThat(result, equalTo("result"));
+        verifyNoInteractions(logEventDAO, queryScopeExtractor);
+    }
+
+    @Test
+    public void shouldExecuteRejectQueryExceedingTimeLimit() {
+
+        // given
+        queryCostGuard = createGuard(false);
+        UncategorizedMongoDbException timeout = new UncategorizedMongoDbException("operation exceeded time limit",
+                new MongoExecutionTimeoutException(50, "operation exceeded time limit"));
+
+        // when
+        QueryRejectedException result = assertThrows(QueryRejectedException.class, () -> queryCostGuard.execute(queryPlan, () -> {
+            throw timeout;
+        }));
+
+        // then
+        assertThat(result.getMessage(), equalTo("Query exceeded the execution time limit of 2000 ms "
+                + "- narrow down its time range or conditions"));
+    }
+
+    @Test
+    public void shouldExecutePassOtherExceptions() {
+
+        // given
+        queryCostGuard = createGuard(false);
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("connection lost");
+
+        // when
+        DataAccessResourceFailureException result = assertThrows(DataAccessResourceFailureException.class,
+                () -> queryCostGuard.execute(queryPlan, () -> {
+                    throw failure;
+                }));
+
+        // then
+        assertThat(result, equalTo(failure));
+    }
+
+    private QueryCostGuard createGuard(boolean rejectCollectionScans) {
+
+        QueryGuardProperties queryGuardProperties = new QueryGuardProperties();
+        queryGuardProperties.setRejectCollectionScans(rejectCollectionScans);
+        queryGuardProperties.setMaxCollectionScanDocuments(1_000);
+        queryGuardProperties.setMaxTime(Duration.ofSeconds(2));
+
+        return new QueryCostGuard(logEventDAO, queryScopeExtractor, queryGuardProperties);
+    }
+}
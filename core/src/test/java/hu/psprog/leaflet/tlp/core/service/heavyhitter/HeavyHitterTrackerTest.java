@@ -0,0 +1,255 @@
+package hu.psprog.leaflet.tlp.core.service.heavyhitter;
+
+import hu.psprog.leaflet.tlp.core.config.HeavyHitterProperties;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitter;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterDimension;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterQuery;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterResult;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterSnapshot;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.SketchCounter;
+import hu.psprog.leaflet.tlp.core.persistence.dao.HeavyHitterSnapshotDAO;
+import hu.psprog.leaflet.tlp.core.service.template.MessageTemplateNormalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Unit tests for {@link HeavyHitterTracker}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class HeavyHitterTrackerTest {
+
+    private static final long SLOT_LENGTH = 60_000L;
+    private static final long SLOT_START = 1_700_000_040_000L;
+    private static final long NOW = SLOT_START + 30_000L;
+    private static final int WINDOW_SLOTS = 3;
+    private static final int MAX_RESULTS = 5;
+
+    @Mock
+    private HeavyHitterSnapshotDAO heavyHitterSnapshotDAO;
+
+    @Captor
+    private ArgumentCaptor<List<HeavyHitterSnapshot>> snapshotsCaptor;
+
+    private HeavyHitterProperties heavyHitterProperties;
+    private HeavyHitterTracker heavyHitterTracker;
+    private long now;
+
+    @BeforeEach
+    public void setup() {
+        heavyHitterProperties = new HeavyHitterProperties();
+        heavyHitterProperties.setCapacity(10);
+        heavyHitterProperties.setSlotLength(Duration.ofMillis(SLOT_LENGTH));
+        heavyHitterProperties.setWindowSlots(WINDOW_SLOTS);
+        heavyHitterProperties.setMaxTemplateLength(20);
+        heavyHitterProperties.setMaxResults(MAX_RESULTS);
+        now = NOW - SLOT_LENGTH;
+        heavyHitterTracker = new HeavyHitterTracker(heavyHitterSnapshotDAO, new MessageTemplateNormalizer(), heavyHitterProperties, () -> now);
+    }
+
+    @Test
+    public void shouldGetHeavyHittersMergeSketchesOfWholeWindow() {
+
+        // given
+        heavyHitterTracker.record("hu.psprog.leaflet.A", "lcfa", "message");
+        heavyHitterTracker.record("hu.psprog.leaflet.B", "lcfa", "message");
+        now = NOW;
+        heavyHitterTracker.record("hu.psprog.leaflet.B", "lsas", "message");
+        heavyHitterTracker.record("hu.psprog.leaflet.B", "lsas", "message");
+
+        // when
+        HeavyHitterResult result = heavyHitterTracker.getHeavyHitters(HeavyHitterQuery.parse("logger", null, null));
+
+        // then
+        assertThat(result, equalTo(HeavyHitterResult.getBuilder()
+                .withDimension(HeavyHitterDimension.LOGGER)
+                .withFrom(new Date(SLOT_START - 2 * SLOT_LENGTH))
+                .withTo(new Date(NOW))
+                .withTotal(4L)
+                .withHeavyHitters(List.of(
+                        new HeavyHitter("hu.psprog.leaflet.B", 3L, 0L),
+                        new HeavyHitter("hu.psprog.leaflet.A", 1L, 0L)))
+                .build()));
+    }
+
+    @Test
+    public void shouldGetHeavyHittersOfRequestedPartOfWindowOnly() {
+
+        // given
+        heavyHitterTracker.record("hu.psprog.leaflet.A", "lcfa", "message");
+        now = NOW;
+        heavyHitterTracker.record("hu.psprog.leaflet.B", "lsas", "message");
+
+        // when
+        HeavyHitterResult result = heavyHitterTracker.getHeavyHitters(HeavyHitterQuery.parse("source", "PT30S", 1));
+
+        // then
+        assertThat(result.from(), equalTo(new Date(SLOT_START)));
+        assertThat(result.total(), equalTo(1L));
+        assertThat(result.heavyHitters(), equalTo(List.of(new HeavyHitter("lsas", 1L, 0L))));
+    }
+
+    @Test
+    public void shouldGetHeavyHittersIgnoreSlotsLeftTheWindow() {
+
+        // given
+        heavyHitterTracker.record("hu.psprog.leaflet.A", "lcfa", "message");
+        now = NOW + WINDOW_SLOTS * SLOT_LENGTH;
+
+        // when
+        HeavyHitterResult result = heavyHitterTracker.getHeavyHitters(HeavyHitterQuery.parse("logger", "PT24H", null));
+
+        // then
+        assertThat(result.total(), equalTo(0L));
+        assertThat(result.heavyHitters(), equalTo(List.of()));
+    }
+
+    @Test
+    public void shouldAfterStoreCountTruncatedMessageTemplates() {
+
+        // given
+        List<LoggingEvent> loggingEvents = List.of(
+                createLoggingEvent("Order 1 shipped"),
+                createLoggingEvent("Order 22 shipped"),
+                createLoggingEvent("Invoice 42 of order 3 sent to customer"),
+                createLoggingEvent(null));
+
+        // when
+        heavyHitterTracker.afterStore(loggingEvents);
+
+        // then
+        HeavyHitterResult result = heavyHitterTracker.getHeavyHitters(HeavyHitterQuery.parse("message", null, null));
+        assertThat(result.total(), equalTo(3L));
+        assertThat(result.heavyHitters(), equalTo(List.of(
+                new HeavyHitter("Order <n> shipped", 2L, 0L),
+                new HeavyHitter("Invoice <n> of order", 1L, 0L))));
+    }
+
+    @Test
+    public void shouldSnapshotPersistChangedSketchesOnly() {
+
+        // given
+        heavyHitterTracker.record("hu.psprog.leaflet.A", "lcfa", null);
+        heavyHitterTracker.snapshot();
+        now = NOW;
+        heavyHitterTracker.record("hu.psprog.leaflet.B", null, null);
+
+        // when
+        heavyHitterTracker.snapshot();
+
+        // then
+        verify(heavyHitterSnapshotDAO, times(2)).saveAll(snapshotsCaptor.capture());
+        assertThat(snapshotsCaptor.getAllValues().get(0), containsInAnyOrder(
+                createSnapshot(HeavyHitterDimension.LOGGER, SLOT_START - SLOT_LENGTH, "hu.psprog.leaflet.A"),
+                createSnapshot(HeavyHitterDimension.SOURCE, SLOT_START - SLOT_LENGTH, "lcfa")));
+        assertThat(snapshotsCaptor.getAllValues().get(1), equalTo(List.of(
+                createSnapshot(HeavyHitterDimension.LOGGER, SLOT_START, "hu.psprog.leaflet.B"))));
+    }
+
+    @Test
+    public void shouldSnapshotRetrySketchesFailedToBePersisted() {
+
+        // given
+        willThrow(new IllegalStateException("write failed")).given(heavyHitterSnapshotDAO).saveAll(any());
+        heavyHitterTracker.record("hu.psprog.leaflet.A", null, null);
+        heavyHitterTracker.snapshot();
+
+        // when
+        heavyHitterTracker.snapshot();
+
+        // then
+        verify(heavyHitterSnapshotDAO, times(2)).saveAll(snapshotsCaptor.capture());
+        assertThat(snapshotsCaptor.getValue(), equalTo(List.of(
+                createSnapshot(HeavyHitterDimension.LOGGER, SLOT_START - SLOT_LENGTH, "hu.psprog.leaflet.A"))));
+    }
+
+    @Test
+    public void shouldStartRestorePersistedSketches() {
+
+        // given
+        now = NOW;
+        given(heavyHitterSnapshotDAO.findSince(new Date(SLOT_START - 2 * SLOT_LENGTH))).willReturn(List.of(
+                createSnapshot(HeavyHitterDimension.LOGGER, SLOT_START - SLOT_LENGTH, "hu.psprog.leaflet.A")));
+
+        // when
+        heavyHitterTracker.start();
+        heavyHitterTracker.shutdown();
+
+        // then
+        HeavyHitterResult result = heavyHitterTracker.getHeavyHitters(HeavyHitterQuery.parse("logger", null, null));
+        assertThat(result.total(), equalTo(1L));
+        assertThat(result.heavyHitters(), equalTo(List.of(new HeavyHitter("hu.psprog.leaflet.A", 1L, 0L))));
+        verify(heavyHitterSnapshotDAO).findSince(any());
+        verifyNoMoreInteractions(heavyHitterSnapshotDAO);
+    }
+
+    @Test
+    public void shouldIgnoreEventsWhenHeavyHitterTrackingIsDisabled() {
+
+        // given
+        heavyHitterProperties.setEnabled(false);
+
+        // when
+        heavyHitterTracker.record("hu.psprog.leaflet.A", "lcfa", "message");
+        heavyHitterTracker.snapshot();
+
+        // then
+        verifyNoInteractions(heavyHitterSnapshotDAO);
+    }
+
+    @Test
+    public void shouldGetHeavyHittersThrowIllegalStateExceptionWhenHeavyHitterTrackingIsDisabled() {
+
+        // given
+        heavyHitterProperties.setEnabled(false);
+
+        // when
+        assertThrows(IllegalStateException.class, () -> heavyHitterTracker.getHeavyHitters(HeavyHitterQuery.parse("logger", null, null)));
+
+        // then
+        // exception expected
+    }
+
+    private LoggingEvent createLoggingEvent(String content) {
+
+        LoggingEvent loggingEvent = new LoggingEvent();
+        loggingEvent.setContent(content);
+
+        return loggingEvent;
+    }
+
+    private HeavyHitterSnapshot createSnapshot(HeavyHitterDimension dimension, long slotStart, String value) {
+
+        return HeavyHitterSnapshot.getBuilder()
+                .withId(dimension + "-" + slotStart)
+                .withDimension(dimension)
+                .withSlotStart(new Date(slotStart))
+                .withTotal(1L)
+                .withCounters(List.of(new SketchCounter(value, 1L, 0L)))
+                .withExpiresAt(new Date(slotStart + WINDOW_SLOTS * SLOT_LENGTH))
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package hu.psprog.leaflet.tlp.core.service.heavyhitter;
+
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link SpaceSavingSketch}.
+ *
+ * @author Peter Smith
+ */
+public class SpaceSavingSketchTest {
+
+    @Test
+    public void shouldOfferCountValuesExactlyWhileThereAreFreeCounters() {
+
+        // given
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+
+        // when
+        offer(sketch, "a", 3);
+        offer(sketch, "b", 1);
+        offer(sketch, "c", 2);
+
+        // then
+        assertThat(sketch.getTotal(), equalTo(6L));
+        assertThat(sketch.getCounters(), equalTo(List.of(
+                new HeavyHitter("a", 3, 0),
+                new HeavyHitter("c", 2, 0),
+                new HeavyHitter("b", 1, 0))));
+    }
+
+    @Test
+    public void shouldOfferReplaceLowestCounterWhenSketchIsFull() {
+
+        // given
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        offer(sketch, "a", 3);
+        offer(sketch, "b", 1);
+
+        // when
+        offer(sketch, "c", 2);
+
+        // then
+        assertThat(sketch.getTotal(), equalTo(6L));
+        assertThat(sketch.getCounters(), equalTo(List.of(
+                new HeavyHitter("a", 3, 0),
+                new HeavyHitter("c", 3, 1))));
+    }
+
+    @Test
+    public void shouldOfferKeepFrequentValueTrackedUnderChurn() {
+
+        // given
+        SpaceSavingSketch sketch = new SpaceSavingSketch(4);
+
+        // when
+        for (int index = 0; index < 1000; index++) {
+            sketch.offer("frequent");
+            sketch.offer("rare-" + index);
+        }
+
+        // then
+        HeavyHitter top = sketch.getCounters().get(0);
+        assertThat(top.value(), equalTo("frequent"));
+        assertThat(top.count() - top.error() <= 1000 && top.count() >= 1000, equalTo(true));
+        assertThat(top.error() <= sketch.getTotal() / 4, equalTo(true));
+    }
+
+    @Test
+    public void shouldRestoreSketchFromPersistedCounters() {
+
+        // given
+        List<HeavyHitter> counters = List.of(new HeavyHitter("a", 3, 0), new HeavyHitter("c", 3, 1));
+
+        // when
+        SpaceSavingSketch result = SpaceSavingSketch.restore(2, 6, counters);
+        result.offer("d");
+
+        // then
+        assertThat(result.getTotal(), equalTo(7L));
+        assertThat(result.getCounters(), equalTo(List.of(
+                new HeavyHitter("d", 4, 3),
+                new HeavyHitter("c", 3, 1))));
+    }
+
+    @Test
+    public void shouldTopMergeSketchesKeepingUpperBounds() {
+
+        // given
+        SpaceSavingSketch notFullSketch = new SpaceSavingSketch(3);
+        offer(notFullSketch, "a", 5);
+        offer(notFullSketch, "b", 1);
+        SpaceSavingSketch fullSketch = new SpaceSavingSketch(2);
+        offer(fullSketch, "a", 2);
+        offer(fullSketch, "c", 4);
+
+        // when
+        List<HeavyHitter> result = SpaceSavingSketch.top(List.of(notFullSketch, fullSketch), 2);
+
+        // then
+        assertThat(result, equalTo(List.of(
+                new HeavyHitter("a", 7, 0),
+                new HeavyHitter("c", 4, 0))));
+    }
+
+    @Test
+    public void shouldTopAddLowestCountOfFullSketchToValuesNotTrackedByIt() {
+
+        // given
+        SpaceSavingSketch notFullSketch = new SpaceSavingSketch(3);
+        offer(notFullSketch, "b", 4);
+        SpaceSavingSketch fullSketch = new SpaceSavingSketch(2);
+        offer(fullSketch, "a", 2);
+        offer(fullSketch, "c", 5);
+
+        // when
+        List<HeavyHitter> result = SpaceSavingSketch.top(List.of(notFullSketch, fullSketch), 3);
+
+        // then
+        assertThat(result, equalTo(List.of(
+                new HeavyHitter("b", 6, 2),
+                new HeavyHitter("c", 5, 0),
+                new HeavyHitter("a", 2, 0))));
+    }
+
+    private void offer(SpaceSavingSketch sketch, String value, int times) {
+        for (int index = 0; index < times; index++) {
+            sketch.offer(value);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package hu.psprog.leaflet.tlp.core.service.histogram;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import hu.psprog.leaflet.tlp.core.config.HistogramProperties;
+import hu.psprog.leaflet.tlp.core.config.RollupProperties;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.AggregationDimension;
+import hu.psprog.leaflet.tlp.core.domain.HistogramBucket;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventHistogram;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventRollupDAO;
+import hu.psprog.leaflet.tlp.core.service.cache.QueryScopeExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link LogEventHistogramAggregator}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class LogEventHistogramAggregatorTest {
+
+    private static final QLoggingEvent LOGGING_EVENT = QLoggingEvent.loggingEvent;
+    private static final Pageable PAGEABLE = PageRequest.of(0, 10);
+    private static final Pageable EARLIEST_EVENT = PageRequest.of(0, 1, Sort.by(Sort.Direction.ASC, "timeStamp"));
+    private static final LogEventProjection TIMESTAMP_ONLY = new LogEventProjection(EnumSet.noneOf(LogEventProjection.Field.class));
+    private static final long NOW = 1_700_002_800_000L;
+    private static final Date TO = new Date(NOW);
+    private static final Date FROM = new Date(NOW - Duration.ofHours(2).toMillis());
+    private static final Duration INTERVAL = Duration.ofMinutes(5);
+    private static final LogEventAggregation TIME_AGGREGATION = new LogEventAggregation(List.of(AggregationDimension.TIME), INTERVAL);
+    private static final int MAX_BUCKETS = 24;
+    private static final Date EARLIEST_PERIOD_START = new Date(NOW - Duration.ofDays(30).toMillis());
+
+    @Mock
+    private LogEventDAO logEventDAO;
+
+    @Mock
+    private LogEventRollupDAO logEventRollupDAO;
+
+    private HistogramProperties histogramProperties;
+    private RollupProperties rollupProperties;
+    private LogEventHistogramAggregator logEventHistogramAggregator;
+
+    @BeforeEach
+    public void setup() {
+        histogramProperties = new HistogramProperties();
+        histogramProperties.setMaxBuckets(MAX_BUCKETS);
+        rollupProperties = new RollupProperties();
+        logEventHistogramAggregator = new LogEventHistogramAggregator(logEventDAO, logEventRollupDAO, new QueryScopeExtractor(),
+                histogramProperties, rollupProperties, () -> NOW);
+    }
+
+    @Test
+    public void shouldCountMatchingEventsForQueryFilteringByOtherFields() {
+
+        // given
+        Predicate predicate = LOGGING_EVENT.timeStamp.goe(FROM).and(LOGGING_EVENT.loggerName.equalsIgnoreCase("hu.psprog.leaflet.Test"));
+        given(logEventDAO.aggregate(predicate, TIME_AGGREGATION, MAX_BUCKETS)).willReturn(List.of(
+                new AggregationBucket(List.of(FROM), 3L),
+                new AggregationBucket(List.of(minutesAfterFrom(10)), 4L)));
+
+        // when
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+
+        // then
+        assertThat(result.from(), equalTo(FROM));
+        assertThat(result.to(), equalTo(TO));
+        assertThat(result.interval(), equalTo(INTERVAL));
+        assertThat(result.buckets().size(), equalTo(MAX_BUCKETS));
+        assertThat(result.buckets().get(0), equalTo(new HistogramBucket(FROM, 3L)));
+        assertThat(result.buckets().get(1), equalTo(new HistogramBucket(minutesAfterFrom(5), 0L)));
+        assertThat(result.buckets().get(2), equalTo(new HistogramBucket(minutesAfterFrom(10), 4L)));
+        assertThat(result.buckets().get(MAX_BUCKETS - 1), equalTo(new HistogramBucket(minutesAfterFrom(115), 0L)));
+        assertThat(result.total(), equalTo(7L));
+        assertThat(result.precomputed(), is(false));
+        verifyNoInteractions(logEventRollupDAO);
+    }
+
+    @Test
+    public void shouldServeQueryFilteringBySourceLevelAndTimeFromRollups() {
+
+        // given
+        BooleanExpression sourceCondition = LOGGING_EVENT.source.equalsIgnoreCase("lcfa");
+        BooleanExpression levelCondition = LOGGING_EVENT.level.in("ERROR", "WARN");
+        Predicate predicate = sourceCondition.and(levelCondition).and(LOGGING_EVENT.timeStamp.goe(FROM)).and(LOGGING_EVENT.timeStamp.lt(TO));
+        given(logEventRollupDAO.findEarliestPeriodStart(RollupResolution.MINUTE)).willReturn(Optional.of(EARLIEST_PERIOD_START));
+        given(logEventRollupDAO.histogram(new BooleanBuilder(sourceCondition).and(levelCondition), RollupResolution.MINUTE, FROM, TO, INTERVAL, MAX_BUCKETS))
+                .willReturn(List.of(new AggregationBucket(List.of(minutesAfterFrom(30)), 12L)));
+
+        // when
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+
+        // then
+        assertThat(result.buckets().size(), equalTo(MAX_BUCKETS));
+        assertThat(result.buckets().get(6), equalTo(new HistogramBucket(minutesAfterFrom(30), 12L)));
+        assertThat(result.total(), equalTo(12L));
+        assertThat(result.precomputed(), is(true));
+        verifyNoInteractions(logEventDAO);
+    }
+
+    @Test
+    public void shouldServeFromCoarsestResolutionTheIntervalIsAlignedTo() {
+
+        // given
+        Date from = new Date(NOW - Duration.ofDays(10).toMillis() - Duration.ofHours(3).toMillis());
+        given(logEventRollupDAO.findEarliestPeriodStart(RollupResolution.HOUR)).willReturn(Optional.of(EARLIEST_PERIOD_START));
+        given(logEventRollupDAO.histogram(any(Predicate.class), any(RollupResolution.class), any(Date.class), any(Date.class), any(Duration.class), anyInt()))
+                .willReturn(List.of());
+
+        // when
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(LOGGING_EVENT.timeStamp.goe(from)));
+
+        // then
+        assertThat(result.from(), equalTo(new Date(1_699_099_200_000L)));
+        assertThat(result.interval(), equalTo(Duration.ofHours(12)));
+        assertThat(result.buckets().size(), equalTo(21));
+        assertThat(result.precomputed(), is(true));
+        verify(logEventRollupDAO).histogram(new BooleanBuilder(), RollupResolution.HOUR, from, TO, Duration.ofHours(12), 21);
+    }
+
+    @Test
+    public void shouldCountMatchingEventsForTimeBoundNotAlignedToRollups() {
+
+        // given
+        Predicate predicate = LOGGING_EVENT.source.eq("lcfa").and(LOGGING_EVENT.timeStamp.goe(new Date(FROM.getTime() + 1_000L)));
+        given(logEventDAO.aggregate(predicate, TIME_AGGREGATION, MAX_BUCKETS)).willReturn(List.of());
+
+        // when
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+
+        // then
+        assertThat(result.from(), equalTo(FROM));
+        assertThat(result.precomputed(), is(false));
+        verifyNoInteractions(logEventRollupDAO);
+    }
+
+    @Test
+    public void shouldCountMatchingEventsForExclusiveLowerTimeBound() {
+
+        // given
+        Predicate predicate = LOGGING_EVENT.timeStamp.gt(FROM);
+        given(logEventDAO.aggregate(predicate, TIME_AGGREGATION, MAX_BUCKETS)).willReturn(List.of());
+
+        // when
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+
+        // then
+        assertThat(result.precomputed(), is(false));
+        verifyNoInteractions(logEventRollupDAO);
+    }
+
+    @Test
+    public void shouldCountMatchingEventsWhenRollupsAreNoLongerRetained() {
+
+        // given
+        rollupProperties.setMinuteRetention(Duration.ofHours(1));
+        Predicate predicate = LOGGING_EVENT.timeStamp.goe(FROM);
+        given(logEventDAO.aggregate(predicate, TIME_AGGREGATION, MAX_BUCKETS)).willReturn(List.of());
+
+        // when
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+
+        // then
+        assertThat(result.precomputed(), is(false));
+        verifyNoInteractions(logEventRollupDAO);
+    }
+
+    @Test
+    public void shouldCountMatchingEventsWhenRollupsDoNotCoverTimeRangeYet() {
+
+        // given
+        Predicate predicate = LOGGING_EVENT.timeStamp.goe(FROM);
+        given(logEventRollupDAO.findEarliestPeriodStart(RollupResolution.MINUTE)).willReturn(Optional.of(FROM));
+        given(logEventDAO.aggregate(predicate, TIME_AGGREGATION, MAX_BUCKETS)).willReturn(List.of(new AggregationBucket(List.of(FROM), 5L)));
+
+        // when
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+
+        // then
+        assertThat(result.total(), equalTo(5L));
+        assertThat(result.precomputed(), is(false));
+        verify(logEventRollupDAO, never()).histogram(any(Predicate.class), any(RollupResolution.class), any(Date.class), any(Date.class),
+                any(Duration.class), anyInt());
+    }
+
+    @Test
+    public void shouldCountMatchingEventsWithoutStoredRollups() {
+
+        // given
+        Predicate predicate = LOGGING_EVENT.timeStamp.goe(FROM);
+        given(logEventRollupDAO.findEarliestPeriodStart(RollupResolution.MINUTE)).willReturn(Optional.empty());
+        given(logEventDAO.aggregate(predicate, TIME_AGGREGATION, MAX_BUCKETS)).willReturn(List.of());
+
+        // when
+        logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+
+        // then
+        assertThat(result.precomputed(), is(false));
+        verify(logEventRollupDAO, times(2)).findEarliestPeriodStart(RollupResolution.MINUTE);
+    }
+
+    @Test
+    public void shouldLookUpRollupCoverageOnlyOnce() {
+
+        // given
+        Predicate predicate = LOGGING_EVENT.timeStamp.goe(FROM);
+        given(logEventRollupDAO.findEarliestPeriodStart(RollupResolution.MINUTE)).willReturn(Optional.of(EARLIEST_PERIOD_START));
+        given(logEventRollupDAO.histogram(new BooleanBuilder(), RollupResolution.MINUTE, FROM, TO, INTERVAL, MAX_BUCKETS)).willReturn(List.of());
+
+        // when
+        logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+
+        // then
+        assertThat(result.precomputed(), is(true));
+        verify(logEventRollupDAO).findEarliestPeriodStart(RollupResolution.MINUTE);
+        verifyNoInteractions(logEventDAO);
+    }
+
+    @Test
+    public void shouldCountMatchingEventsWhenRollupsAreNotUsed() {
+
+        // given
+        histogramProperties.setUseRollups(false);
+        Predicate predicate = LOGGING_EVENT.timeStamp.goe(FROM);
+        given(logEventDAO.aggregate(predicate, TIME_AGGREGATION, MAX_BUCKETS)).willReturn(List.of());
+
+        // when
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+
+        // then
+        assertThat(result.precomputed(), is(false));
+        verifyNoInteractions(logEventRollupDAO);
+    }
+
+    @Test
+    public void shouldStartAtEarliestEventForQueryWithoutLowerTimeBound() {
+
+        // given
+        given(logEventDAO.findSlice(EARLIEST_EVENT, TIMESTAMP_ONLY))
+                .willReturn(new SliceImpl<>(List.of(LoggingEvent.getBuilder().withTimeStamp(minutesAfterFrom(2).getTime()).build())));
+        given(logEventRollupDAO.findEarliestPeriodStart(RollupResolution.MINUTE)).willReturn(Optional.of(EARLIEST_PERIOD_START));
+        given(logEventRollupDAO.histogram(new BooleanBuilder(), RollupResolution.MINUTE, minutesAfterFrom(2), TO, INTERVAL, MAX_BUCKETS))
+                .willReturn(List.of(new AggregationBucket(List.of(FROM), 1L)));
+
+        // when
+        LogEventHistogram result = logEventHistogramAggregator.histogram(new QueryPlan(Optional.empty(), PAGEABLE));
+
+        // then
+        assertThat(result.from(), equalTo(FROM));
+        assertThat(result.buckets().get(0), equalTo(new HistogramBucket(FROM, 1L)));
+        assertThat(result.total(), equalTo(1L));
+        assertThat(result.precomputed(), is(true));
+    }
+
+    @Test
+    public void shouldReturnEmptyHistogramWithoutMatchingEvents() {
+
+        // given
+        Predicate predicate = LOGGING_EVENT.threadName.eq("main");
+        given(logEventDAO.findSlice(predicate, EARLIEST_EVENT, TIMESTAMP_ONLY)).willReturn(new SliceImpl<>(List.of()));
+
+        // when
+        LogEventHistogram result = logEventHistogramAggregator.histogram(createQueryPlan(predicate));
+
+        // then
+        assertThat(result.from(), equalTo(TO));
+        assertThat(result.to(), equalTo(TO));
+        assertThat(result.buckets().isEmpty(), is(true));
+        assertThat(result.total(), equalTo(0L));
+        verifyNoInteractions(logEventRollupDAO);
+    }
+
+    private static QueryPlan createQueryPlan(Predicate predicate) {
+        return new QueryPlan(Optional.of(predicate), PAGEABLE);
+    }
+
+    private static Date minutesAfterFrom(int minutes) {
+        return new Date(FROM.getTime() + Duration.ofMinutes(minutes).toMillis());
+    }
+}
@@ -0,0 +1,140 @@
+package hu.psprog.leaflet.tlp.core.service.idempotency;
+
+import hu.psprog.leaflet.tlp.core.config.IdempotencyProperties;
+import hu.psprog.leaflet.tlp.core.domain.FilteredBatch;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link DuplicateEventFilter}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class DuplicateEventFilterTest {
+
+    private static final LoggingEvent EVENT_1 = LoggingEvent.getBuilder().withEventId("event-1").withContent("event 1").build();
+    private static final LoggingEvent EVENT_2 = LoggingEvent.getBuilder().withEventId("event-2").withContent("event 2").build();
+    private static final LoggingEvent EVENT_WITHOUT_ID = LoggingEvent.getBuilder().withContent("no id").build();
+
+    @Mock
+    private LogEventDAO logEventDAO;
+
+    private IdempotencyProperties idempotencyProperties;
+    private DuplicateEventFilter duplicateEventFilter;
+
+    @BeforeEach
+    public void setup() {
+        idempotencyProperties = new IdempotencyProperties();
+        duplicateEventFilter = createFilter();
+    }
+
+    @Test
+    public void shouldFilterAcceptFirstDeliveryWithoutDatabaseLookup() {
+
+        // when
+        FilteredBatch<LoggingEvent> result = duplicateEventFilter.filter(List.of(EVENT_1, EVENT_WITHOUT_ID, EVENT_2), LoggingEvent::getEventId);
+
+        // then
+        assertThat(result.items(), equalTo(List.of(EVENT_1, EVENT_WITHOUT_ID, EVENT_2)));
+        assertThat(result.itemIndices(), equalTo(List.of(0, 1, 2)));
+        verifyNoInteractions(logEventDAO);
+    }
+
+    @Test
+    public void shouldFilterDropRetriedEventFoundInDatabase() {
+
+        // given
+        duplicateEventFilter.filter(List.of(EVENT_1), LoggingEvent::getEventId);
+        given(logEventDAO.findExistingEventIds(List.of("event-1"))).willReturn(Set.of("event-1"));
+
+        // when
+        FilteredBatch<LoggingEvent> result = duplicateEventFilter.filter(List.of(EVENT_WITHOUT_ID, EVENT_1, EVENT_2), LoggingEvent::getEventId);
+
+        // then
+        assertThat(result.items(), equalTo(List.of(EVENT_WITHOUT_ID, EVENT_2)));
+        assertThat(result.itemIndices(), equalTo(List.of(0, 2)));
+    }
+
+    @Test
+    public void shouldFilterKeepSuspectedEventNotFoundInDatabase() {
+
+        // given
+        duplicateEventFilter.filter(List.of(EVENT_1), LoggingEvent::getEventId);
+        given(logEventDAO.findExistingEventIds(List.of("event-1"))).willReturn(Set.of());
+
+        // when
+        FilteredBatch<LoggingEvent> result = duplicateEventFilter.filter(List.of(EVENT_1), LoggingEvent::getEventId);
+
+        // then
+        assertThat(result.items(), equalTo(List.of(EVENT_1)));
+        verify(logEventDAO).findExistingEventIds(List.of("event-1"));
+    }
+
+    @Test
+    public void shouldFilterDropRepeatedEventIdWithinBatch() {
+
+        // when
+        FilteredBatch<LoggingEvent> result = duplicateEventFilter.filter(List.of(EVENT_1, EVENT_2, EVENT_1), LoggingEvent::getEventId);
+
+        // then
+        assertThat(result.items(), equalTo(List.of(EVENT_1, EVENT_2)));
+        assertThat(result.itemIndices(), equalTo(List.of(0, 1)));
+        verifyNoInteractions(logEventDAO);
+    }
+
+    @Test
+    public void shouldFilterPassEverythingWhenDisabled() {
+
+        // given
+        idempotencyProperties.setEnabled(false);
+        duplicateEventFilter = createFilter();
+
+        // when
+        FilteredBatch<LoggingEvent> result = duplicateEventFilter.filter(List.of(EVENT_1, EVENT_1), LoggingEvent::getEventId);
+
+        // then
+        assertThat(result.items(), equalTo(List.of(EVENT_1, EVENT_1)));
+        assertThat(result.itemIndices(), equalTo(List.of(0, 1)));
+        verifyNoInteractions(logEventDAO);
+    }
+
+    @Test
+    public void shouldBindCheckCounters() {
+
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        duplicateEventFilter.bindTo(meterRegistry);
+        duplicateEventFilter.filter(List.of(EVENT_1), LoggingEvent::getEventId);
+        given(logEventDAO.findExistingEventIds(List.of("event-1"))).willReturn(Set.of("event-1"));
+
+        // when
+        duplicateEventFilter.filter(List.of(EVENT_1, EVENT_2), LoggingEvent::getEventId);
+
+        // then
+        assertThat(meterRegistry.get("tlp.idempotency.checks").tag("result", "new").functionCounter().count(), equalTo(2.0));
+        assertThat(meterRegistry.get("tlp.idempotency.checks").tag("result", "lookup").functionCounter().count(), equalTo(1.0));
+        assertThat(meterRegistry.get("tlp.idempotency.duplicates").functionCounter().count(), equalTo(1.0));
+    }
+
+    private DuplicateEventFilter createFilter() {
+        return new DuplicateEventFilter(logEventDAO, idempotencyProperties,
+                new EventIdBloomFilter(1000, 0.01, Duration.ofMinutes(10)));
+    }
+}
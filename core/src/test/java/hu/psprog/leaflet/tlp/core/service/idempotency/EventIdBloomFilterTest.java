@@ -0,0 +1,120 @@
+package hu.psprog.leaflet.tlp.core.service.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Unit tests for {@link EventIdBloomFilter}.
+ *
+ * @author Peter Smith
+ */
+public class EventIdBloomFilterTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(10);
+
+    private final AtomicLong nanoClock = new AtomicLong();
+
+    @Test
+    public void shouldMightContainReturnTrueForRecordedEventId() {
+
+        // given
+        EventIdBloomFilter eventIdBloomFilter = createFilter(1000);
+        eventIdBloomFilter.put("event-1");
+
+        // when
+        boolean result = eventIdBloomFilter.mightContain("event-1");
+
+        // then
+        assertThat(result, is(true));
+    }
+
+    @Test
+    public void shouldMightContainReturnFalseForUnknownEventId() {
+
+        // given
+        EventIdBloomFilter eventIdBloomFilter = createFilter(1000);
+        eventIdBloomFilter.put("event-1");
+
+        // when
+        boolean result = eventIdBloomFilter.mightContain("event-2");
+
+        // then
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void shouldKeepFalsePositiveRateCloseToConfiguredProbability() {
+
+        // given
+        EventIdBloomFilter eventIdBloomFilter = createFilter(10_000);
+        IntStream.range(0, 10_000).forEach(index -> eventIdBloomFilter.put("stored-" + index));
+
+        // when
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(index -> eventIdBloomFilter.mightContain("unknown-" + index))
+                .count();
+
+        // then
+        assertThat(falsePositives, lessThan(300L));
+    }
+
+    @Test
+    public void shouldRememberEventIdForAtLeastOneWindow() {
+
+        // given
+        EventIdBloomFilter eventIdBloomFilter = createFilter(1000);
+        eventIdBloomFilter.put("event-1");
+        nanoClock.addAndGet(WINDOW.toNanos());
+        eventIdBloomFilter.put("event-2");
+
+        // when
+        boolean result = eventIdBloomFilter.mightContain("event-1");
+
+        // then
+        assertThat(result, is(true));
+    }
+
+    @Test
+    public void shouldForgetEventIdAfterTwoRotations() {
+
+        // given
+        EventIdBloomFilter eventIdBloomFilter = createFilter(1000);
+        eventIdBloomFilter.put("event-1");
+        nanoClock.addAndGet(WINDOW.toNanos());
+        eventIdBloomFilter.put("event-2");
+        nanoClock.addAndGet(WINDOW.toNanos());
+        eventIdBloomFilter.put("event-3");
+
+        // when
+        boolean result = eventIdBloomFilter.mightContain("event-1");
+
+        // then
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void shouldRotateWhenGenerationCapacityIsReached() {
+
+        // given
+        EventIdBloomFilter eventIdBloomFilter = createFilter(10);
+        eventIdBloomFilter.put("event-first");
+
+        // when
+        IntStream.range(0, 20).forEach(index -> eventIdBloomFilter.put("event-" + index));
+
+        // then
+        assertThat(eventIdBloomFilter.mightContain("event-first"), is(false));
+        assertThat(eventIdBloomFilter.mightContain("event-19"), is(true));
+    }
+
+    private EventIdBloomFilter createFilter(int expectedInsertions) {
+        return new EventIdBloomFilter(expectedInsertions, 0.01, WINDOW, nanoClock::get);
+    }
+}
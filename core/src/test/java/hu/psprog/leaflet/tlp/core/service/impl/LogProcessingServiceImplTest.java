@@ -3,26 +3,97 @@ package hu.psprog.leaflet.tlp.core.service.impl;
 import com.querydsl.core.types.Predicate;
 import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
 import hu.psprog.leaflet.tlp.api.domain.LogRequest;
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.config.QueryResultCacheProperties;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import hu.psprog.leaflet.tlp.core.domain.FilteredBatch;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterDimension;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterQuery;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterResult;
+import hu.psprog.leaflet.tlp.core.domain.IngestBatch;
+import hu.psprog.leaflet.tlp.core.domain.Issue;
+import hu.psprog.leaflet.tlp.core.domain.IssueQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogCursor;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregationResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventExport;
+import hu.psprog.leaflet.tlp.core.domain.LogEventHistogram;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventSlice;
+import hu.psprog.leaflet.tlp.core.domain.LogStoreStatus;
 import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryScope;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.exception.IngestBufferFullException;
+import hu.psprog.leaflet.tlp.core.exception.InvalidLogCursorException;
 import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
-import hu.psprog.leaflet.tlp.core.service.qdsl.expression.builder.ExpressionBuilder;
+import hu.psprog.leaflet.tlp.core.service.aggregation.LogEventAggregator;
+import hu.psprog.leaflet.tlp.core.service.cache.IngestWatermark;
+import hu.psprog.leaflet.tlp.core.service.cache.QueryResultCache;
+import hu.psprog.leaflet.tlp.core.service.cache.QueryScopeExtractor;
+import hu.psprog.leaflet.tlp.core.service.count.DeferredCountRegistry;
+import hu.psprog.leaflet.tlp.core.service.count.TotalCountResolver;
+import hu.psprog.leaflet.tlp.core.service.export.LogEventExporter;
+import hu.psprog.leaflet.tlp.core.service.guard.QueryCostGuard;
+import hu.psprog.leaflet.tlp.core.service.heavyhitter.HeavyHitterTracker;
+import hu.psprog.leaflet.tlp.core.service.histogram.LogEventHistogramAggregator;
+import hu.psprog.leaflet.tlp.core.service.idempotency.DuplicateEventFilter;
+import hu.psprog.leaflet.tlp.core.service.index.IndexAdvisor;
+import hu.psprog.leaflet.tlp.core.service.ingest.BatchPayloadReader;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventBsonTranscoder;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventWriter;
+import hu.psprog.leaflet.tlp.core.service.ingest.StoredDocumentRecorder;
+import hu.psprog.leaflet.tlp.core.service.ingest.WriteBehindIngestBuffer;
+import hu.psprog.leaflet.tlp.core.service.issue.IssueTracker;
+import hu.psprog.leaflet.tlp.core.service.pagination.KeysetPaginator;
+import hu.psprog.leaflet.tlp.core.service.plan.QueryPlanCache;
+import hu.psprog.leaflet.tlp.core.service.ratelimit.IngestRateLimiter;
+import hu.psprog.leaflet.tlp.core.service.rollup.LogEventRollupReader;
 import hu.psprog.leaflet.tlql.ir.DSLQueryModel;
-import hu.psprog.leaflet.tlql.processor.TLQLProcessorService;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 /**
  * Unit tests for {@link LogProcessingServiceImpl}.
@@ -36,7 +107,16 @@ public class LogProcessingServiceImplTest {
     private static final DSLQueryModel DSL_QUERY_MODEL = new DSLQueryModel();
     private static final LogRequest LOG_REQUEST = new LogRequest();
     private static final LogEventPage LOG_EVENT_PAGE = LogEventPage.getBuilder().build();
+    private static final LogEventQueryResult LOG_EVENT_QUERY_RESULT = LogEventQueryResult.getBuilder().withPage(LOG_EVENT_PAGE).build();
     private static final String TLQL_STRING = "search with conditions source = 'lcfa'";
+    private static final String CURSOR = "cursor";
+    private static final LogCursor LOG_CURSOR = LogCursor.getBuilder().withPageNumber(2).build();
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "timeStamp", "id");
+    private static final Sort SEEK_SORT = Sort.by(Sort.Direction.ASC, "timeStamp", "id");
+    private static final TotalCount TOTAL_COUNT = TotalCount.exact(100L);
+    private static final TotalCount LOWER_BOUND_COUNT = TotalCount.atLeast(0, null);
+    private static final String COUNT_TOKEN = "count-token";
+    private static final InputStream BATCH_PAYLOAD = new ByteArrayInputStream(new byte[0]);
 
     @Mock
     private LogEventDAO logEventDAO;
@@ -45,10 +125,64 @@ public class LogProcessingServiceImplTest {
     private ConversionService conversionService;
 
     @Mock
-    private ExpressionBuilder expressionBuilder;
+    private QueryPlanCache queryPlanCache;
+
+    @Mock
+    private BatchPayloadReader batchPayloadReader;
+
+    @Mock
+    private LoggingEventBsonTranscoder loggingEventBsonTranscoder;
+
+    @Mock
+    private LoggingEventWriter loggingEventWriter;
+
+    @Mock
+    private DuplicateEventFilter duplicateEventFilter;
+
+    @Mock
+    private IngestRateLimiter ingestRateLimiter;
+
+    @Mock
+    private KeysetPaginator keysetPaginator;
+
+    @Mock
+    private TotalCountResolver totalCountResolver;
+
+    @Mock
+    private DeferredCountRegistry deferredCountRegistry;
+
+    @Mock
+    private WriteBehindIngestBuffer writeBehindIngestBuffer;
+
+    @Mock
+    private IndexAdvisor indexAdvisor;
+
+    @Mock
+    private LogEventExporter logEventExporter;
+
+    @Mock
+    private LogEventAggregator logEventAggregator;
+
+    @Mock
+    private LogEventRollupReader logEventRollupReader;
+
+    @Mock
+    private IssueTracker issueTracker;
+
+    @Mock
+    private HeavyHitterTracker heavyHitterTracker;
+
+    @Mock
+    private StoredDocumentRecorder storedDocumentRecorder;
 
     @Mock
-    private TLQLProcessorService tlqlProcessorService;
+    private LogEventHistogramAggregator logEventHistogramAggregator;
+
+    @Mock
+    private QueryScopeExtractor queryScopeExtractor;
+
+    @Mock
+    private IngestWatermark ingestWatermark;
 
     @Mock
     private Pageable pageable;
@@ -56,20 +190,29 @@ public class LogProcessingServiceImplTest {
     @Mock
     private Predicate predicate;
 
+    @Mock
+    private Predicate seekPredicate;
+
     @Mock
     private Page<LoggingEvent> loggingEventPage;
 
-    @InjectMocks
+    @Mock
+    private Slice<LoggingEvent> loggingEventSlice;
+
     private LogProcessingServiceImpl logProcessingService;
 
+    @BeforeEach
+    public void setup() {
+        logProcessingService = createService(Optional.empty());
+    }
+
     @Test
     public void shouldGetPagedAndFilteredLogsForLogRequest() {
 
         // given
         given(conversionService.convert(LOG_REQUEST, DSLQueryModel.class)).willReturn(DSL_QUERY_MODEL);
-        given(expressionBuilder.build(DSL_QUERY_MODEL)).willReturn(Optional.of(predicate));
-        given(conversionService.convert(DSL_QUERY_MODEL, Pageable.class)).willReturn(pageable);
-        given(logEventDAO.findAll(predicate, pageable)).willReturn(loggingEventPage);
+        given(queryPlanCache.compile(DSL_QUERY_MODEL)).willReturn(new QueryPlan(Optional.of(predicate), pageable));
+        given(logEventDAO.findAll(predicate, pageable, LogEventProjection.ALL)).willReturn(loggingEventPage);
         given(conversionService.convert(loggingEventPage, LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
 
         // when
@@ -84,9 +227,8 @@ public class LogProcessingServiceImplTest {
 
         // given
         given(conversionService.convert(LOG_REQUEST, DSLQueryModel.class)).willReturn(DSL_QUERY_MODEL);
-        given(expressionBuilder.build(DSL_QUERY_MODEL)).willReturn(Optional.empty());
-        given(conversionService.convert(DSL_QUERY_MODEL, Pageable.class)).willReturn(pageable);
-        given(logEventDAO.findAll(pageable)).willReturn(loggingEventPage);
+        given(queryPlanCache.compile(DSL_QUERY_MODEL)).willReturn(new QueryPlan(Optional.empty(), pageable));
+        given(logEventDAO.findAll(pageable, LogEventProjection.ALL)).willReturn(loggingEventPage);
         given(conversionService.convert(loggingEventPage, LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
 
         // when
@@ -100,43 +242,534 @@ public class LogProcessingServiceImplTest {
     public void shouldGetPagedAndFilteredLogsForTLQLString() {
 
         // given
-        given(tlqlProcessorService.parse(TLQL_STRING)).willReturn(DSL_QUERY_MODEL);
-        given(expressionBuilder.build(DSL_QUERY_MODEL)).willReturn(Optional.of(predicate));
-        given(conversionService.convert(DSL_QUERY_MODEL, Pageable.class)).willReturn(pageable);
-        given(logEventDAO.findAll(predicate, pageable)).willReturn(loggingEventPage);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.of(predicate), pageable));
+        given(logEventDAO.findAll(predicate, pageable, LogEventProjection.ALL)).willReturn(loggingEventPage);
         given(conversionService.convert(loggingEventPage, LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
+        given(loggingEventPage.getTotalElements()).willReturn(100L);
+        given(keysetPaginator.createResult(loggingEventPage, LOG_EVENT_PAGE, TOTAL_COUNT)).willReturn(LOG_EVENT_QUERY_RESULT);
 
         // when
-        LogEventPage result = logProcessingService.getLogs(TLQL_STRING);
+        LogEventQueryResult result = logProcessingService.getLogs(TLQL_STRING, null, CountMode.EXACT, LogEventProjection.ALL);
 
         // then
-        assertThat(result, equalTo(LOG_EVENT_PAGE));
+        assertThat(result, equalTo(LOG_EVENT_QUERY_RESULT));
     }
 
     @Test
     public void shouldGetPagedLogsForTLQLString() {
 
         // given
-        given(tlqlProcessorService.parse(TLQL_STRING)).willReturn(DSL_QUERY_MODEL);
-        given(expressionBuilder.build(DSL_QUERY_MODEL)).willReturn(Optional.empty());
-        given(conversionService.convert(DSL_QUERY_MODEL, Pageable.class)).willReturn(pageable);
-        given(logEventDAO.findAll(pageable)).willReturn(loggingEventPage);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.empty(), pageable));
+        given(logEventDAO.findAll(pageable, LogEventProjection.ALL)).willReturn(loggingEventPage);
         given(conversionService.convert(loggingEventPage, LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
+        given(loggingEventPage.getTotalElements()).willReturn(100L);
+        given(keysetPaginator.createResult(loggingEventPage, LOG_EVENT_PAGE, TOTAL_COUNT)).willReturn(LOG_EVENT_QUERY_RESULT);
 
         // when
-        LogEventPage result = logProcessingService.getLogs(TLQL_STRING);
+        LogEventQueryResult result = logProcessingService.getLogs(TLQL_STRING, null, CountMode.EXACT, LogEventProjection.ALL);
 
         // then
-        assertThat(result, equalTo(LOG_EVENT_PAGE));
+        assertThat(result, equalTo(LOG_EVENT_QUERY_RESULT));
+    }
+
+    @Test
+    public void shouldGetFilteredLogsForTLQLStringWithCursor() {
+
+        // given
+        List<LoggingEvent> loggingEvents = List.of(LOGGING_EVENT);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.of(predicate), pageable));
+        given(pageable.getSort()).willReturn(SORT);
+        given(pageable.getPageSize()).willReturn(10);
+        given(keysetPaginator.parseCursor(CURSOR, SORT)).willReturn(LOG_CURSOR);
+        given(keysetPaginator.createSeekPredicate(Optional.of(predicate), LOG_CURSOR)).willReturn(seekPredicate);
+        given(keysetPaginator.createSeekSort(LOG_CURSOR)).willReturn(SEEK_SORT);
+        given(logEventDAO.findAll(seekPredicate, SEEK_SORT, 11, LogEventProjection.ALL)).willReturn(loggingEvents);
+        given(totalCountResolver.resolve(Optional.of(predicate), CountMode.EXACT)).willReturn(TOTAL_COUNT);
+        given(keysetPaginator.createResult(LOG_CURSOR, loggingEvents, 10, TOTAL_COUNT)).willReturn(LOG_EVENT_QUERY_RESULT);
+
+        // when
+        LogEventQueryResult result = logProcessingService.getLogs(TLQL_STRING, CURSOR, CountMode.EXACT, LogEventProjection.ALL);
+
+        // then
+        assertThat(result, equalTo(LOG_EVENT_QUERY_RESULT));
+    }
+
+    @Test
+    public void shouldGetLogsForTLQLStringWithCursor() {
+
+        // given
+        List<LoggingEvent> loggingEvents = List.of(LOGGING_EVENT);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.empty(), pageable));
+        given(pageable.getSort()).willReturn(SORT);
+        given(pageable.getPageSize()).willReturn(10);
+        given(keysetPaginator.parseCursor(CURSOR, SORT)).willReturn(LOG_CURSOR);
+        given(keysetPaginator.createSeekPredicate(Optional.empty(), LOG_CURSOR)).willReturn(seekPredicate);
+        given(keysetPaginator.createSeekSort(LOG_CURSOR)).willReturn(SEEK_SORT);
+        given(logEventDAO.findAll(seekPredicate, SEEK_SORT, 11, LogEventProjection.ALL)).willReturn(loggingEvents);
+        given(totalCountResolver.resolve(Optional.empty(), CountMode.NONE)).willReturn(LOWER_BOUND_COUNT);
+        given(keysetPaginator.createResult(LOG_CURSOR, loggingEvents, 10, LOWER_BOUND_COUNT)).willReturn(LOG_EVENT_QUERY_RESULT);
+
+        // when
+        LogEventQueryResult result = logProcessingService.getLogs(TLQL_STRING, CURSOR, CountMode.NONE, LogEventProjection.ALL);
+
+        // then
+        assertThat(result, equalTo(LOG_EVENT_QUERY_RESULT));
+        verify(indexAdvisor).record(eq(new QueryPlan(Optional.empty(), pageable)), any(Duration.class));
+    }
+
+    @Test
+    public void shouldGetLogsForTLQLStringPassInvalidCursorException() {
+
+        // given
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.empty(), pageable));
+        given(pageable.getSort()).willReturn(SORT);
+        given(keysetPaginator.parseCursor(CURSOR, SORT)).willThrow(new InvalidLogCursorException("Malformed cursor"));
+
+        // when
+        assertThrows(InvalidLogCursorException.class, () -> logProcessingService.getLogs(TLQL_STRING, CURSOR, CountMode.EXACT, LogEventProjection.ALL));
+
+        // then
+        // exception expected
+        verifyNoInteractions(logEventDAO);
+    }
+
+    @Test
+    public void shouldGetFilteredLogsForTLQLStringWithoutExactCount() {
+
+        // given
+        TotalCount totalCount = TotalCount.atLeast(10_000L, null);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.of(predicate), pageable));
+        given(logEventDAO.findSlice(predicate, pageable, LogEventProjection.ALL)).willReturn(loggingEventSlice);
+        given(totalCountResolver.resolve(Optional.of(predicate), CountMode.ESTIMATED)).willReturn(totalCount);
+        given(conversionService.convert(new LogEventSlice(loggingEventSlice, totalCount), LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
+        given(keysetPaginator.createResult(loggingEventSlice, LOG_EVENT_PAGE, totalCount)).willReturn(LOG_EVENT_QUERY_RESULT);
+
+        // when
+        LogEventQueryResult result = logProcessingService.getLogs(TLQL_STRING, null, CountMode.ESTIMATED, LogEventProjection.ALL);
+
+        // then
+        assertThat(result, equalTo(LOG_EVENT_QUERY_RESULT));
+        verify(logEventDAO, never()).findAll(predicate, pageable, LogEventProjection.ALL);
+        verify(indexAdvisor).record(eq(new QueryPlan(Optional.of(predicate), pageable)), any(Duration.class));
+    }
+
+    @Test
+    public void shouldGetLogsForTLQLStringWithFieldProjection() {
+
+        // given
+        LogEventProjection projection = LogEventProjection.parse("level,content");
+        TotalCount totalCount = TotalCount.atLeast(10_000L, null);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.of(predicate), pageable));
+        given(logEventDAO.findSlice(predicate, pageable, projection)).willReturn(loggingEventSlice);
+        given(totalCountResolver.resolve(Optional.of(predicate), CountMode.NONE)).willReturn(totalCount);
+        given(conversionService.convert(new LogEventSlice(loggingEventSlice, totalCount), LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
+        given(keysetPaginator.createResult(loggingEventSlice, LOG_EVENT_PAGE, totalCount)).willReturn(LOG_EVENT_QUERY_RESULT);
+
+        // when
+        LogEventQueryResult result = logProcessingService.getLogs(TLQL_STRING, null, CountMode.NONE, projection);
+
+        // then
+        assertThat(result, equalTo(LOG_EVENT_QUERY_RESULT));
+        verify(indexAdvisor).record(eq(new QueryPlan(Optional.of(predicate), pageable, projection)), any(Duration.class));
+    }
+
+    @Test
+    public void shouldGetLogsForTLQLStringFromResultCache() {
+
+        // given
+        logProcessingService = createService(true, Optional.empty());
+        QueryPlan queryPlan = new QueryPlan(Optional.of(predicate), pageable);
+        TotalCount totalCount = TotalCount.atLeast(10_000L, null);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(queryPlan);
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(new QueryScope(Set.of(), Optional.empty(), Optional.empty()));
+        given(ingestWatermark.current(Set.of())).willReturn(3L);
+        given(logEventDAO.findSlice(predicate, pageable, LogEventProjection.ALL)).willReturn(loggingEventSlice);
+        given(totalCountResolver.resolve(Optional.of(predicate), CountMode.NONE)).willReturn(totalCount);
+        given(conversionService.convert(new LogEventSlice(loggingEventSlice, totalCount), LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
+        given(keysetPaginator.createResult(loggingEventSlice, LOG_EVENT_PAGE, totalCount)).willReturn(LOG_EVENT_QUERY_RESULT);
+
+        // when
+        LogEventQueryResult firstResult = logProcessingService.getLogs(TLQL_STRING, null, CountMode.NONE, LogEventProjection.ALL);
+        LogEventQueryResult secondResult = logProcessingService.getLogs(TLQL_STRING, null, CountMode.NONE, LogEventProjection.ALL);
+
+        // then
+        assertThat(firstResult, equalTo(LOG_EVENT_QUERY_RESULT));
+        assertThat(secondResult, equalTo(LOG_EVENT_QUERY_RESULT));
+        verify(logEventDAO, times(1)).findSlice(predicate, pageable, LogEventProjection.ALL);
+    }
+
+    @Test
+    public void shouldExportLogsForTLQLString() throws IOException {
+
+        // given
+        LogEventProjection projection = LogEventProjection.parse("content");
+        QueryPlan queryPlan = new QueryPlan(Optional.of(predicate), pageable, projection);
+        OutputStream outputStream = new ByteArrayOutputStream();
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.of(predicate), pageable));
+        given(logEventExporter.export(queryPlan, outputStream)).willReturn(3L);
+
+        // when
+        LogEventExport result = logProcessingService.exportLogs(TLQL_STRING, projection);
+
+        // then
+        verifyNoInteractions(logEventExporter);
+        assertThat(result.writeTo(outputStream), equalTo(3L));
+    }
+
+    @Test
+    public void shouldAggregateLogsForTLQLString() {
+
+        // given
+        LogEventAggregation aggregation = LogEventAggregation.parse("time,level", "1d");
+        QueryPlan queryPlan = new QueryPlan(Optional.of(predicate), pageable);
+        LogEventAggregationResult aggregationResult = LogEventAggregationResult.getBuilder()
+                .withDimensions(List.of("time", "level"))
+                .withBuckets(List.of())
+                .build();
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(queryPlan);
+        given(logEventAggregator.aggregate(queryPlan, aggregation)).willReturn(aggregationResult);
+
+        // when
+        LogEventAggregationResult result = logProcessingService.aggregateLogs(TLQL_STRING, aggregation);
+
+        // then
+        assertThat(result, equalTo(aggregationResult));
+    }
+
+    @Test
+    public void shouldGetHistogramForTLQLString() {
+
+        // given
+        QueryPlan queryPlan = new QueryPlan(Optional.of(predicate), pageable);
+        LogEventHistogram histogram = LogEventHistogram.getBuilder()
+                .withInterval(Duration.ofHours(1))
+                .withBuckets(List.of())
+                .build();
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(queryPlan);
+        given(logEventHistogramAggregator.histogram(queryPlan)).willReturn(histogram);
+
+        // when
+        LogEventHistogram result = logProcessingService.getHistogram(TLQL_STRING);
+
+        // then
+        assertThat(result, equalTo(histogram));
+    }
+
+    @Test
+    public void shouldGetRollups() {
+
+        // given
+        LogEventRollupQuery rollupQuery = LogEventRollupQuery.parse("2024-01-01T00:00:00Z", null, null, "level", null, null);
+        LogEventRollupResult rollupResult = LogEventRollupResult.getBuilder()
+                .withResolution(RollupResolution.MINUTE)
+                .withBuckets(List.of())
+                .build();
+        given(logEventRollupReader.query(rollupQuery)).willReturn(rollupResult);
+
+        // when
+        LogEventRollupResult result = logProcessingService.getRollups(rollupQuery);
+
+        // then
+        assertThat(result, equalTo(rollupResult));
+    }
+
+    @Test
+    public void shouldGetIssues() {
+
+        // given
+        IssueQuery issueQuery = IssueQuery.parse("2024-01-01T00:00:00Z", null, null, null);
+        List<Issue> issues = List.of(Issue.getBuilder()
+                .withFingerprint("fingerprint-1")
+                .withCount(3L)
+                .build());
+        given(issueTracker.getIssues(issueQuery)).willReturn(issues);
+
+        // when
+        List<Issue> result = logProcessingService.getIssues(issueQuery);
+
+        // then
+        assertThat(result, equalTo(issues));
+    }
+
+    @Test
+    public void shouldGetHeavyHitters() {
+
+        // given
+        HeavyHitterQuery heavyHitterQuery = HeavyHitterQuery.parse("logger", "PT15M", 10);
+        HeavyHitterResult heavyHitterResult = HeavyHitterResult.getBuilder()
+                .withDimension(HeavyHitterDimension.LOGGER)
+                .withHeavyHitters(List.of())
+                .build();
+        given(heavyHitterTracker.getHeavyHitters(heavyHitterQuery)).willReturn(heavyHitterResult);
+
+        // when
+        HeavyHitterResult result = logProcessingService.getHeavyHitters(heavyHitterQuery);
+
+        // then
+        assertThat(result, equalTo(heavyHitterResult));
+    }
+
+    @Test
+    public void shouldGetLogsForTLQLStringWithDeferredCount() {
+
+        // given
+        TotalCount totalCount = TotalCount.atLeast(0, COUNT_TOKEN);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.empty(), pageable));
+        given(logEventDAO.findSlice(pageable, LogEventProjection.ALL)).willReturn(loggingEventSlice);
+        given(totalCountResolver.resolve(Optional.empty(), CountMode.DEFERRED)).willReturn(totalCount);
+        given(conversionService.convert(new LogEventSlice(loggingEventSlice, totalCount), LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
+        given(keysetPaginator.createResult(loggingEventSlice, LOG_EVENT_PAGE, totalCount)).willReturn(LOG_EVENT_QUERY_RESULT);
+
+        // when
+        LogEventQueryResult result = logProcessingService.getLogs(TLQL_STRING, null, CountMode.DEFERRED, LogEventProjection.ALL);
+
+        // then
+        assertThat(result, equalTo(LOG_EVENT_QUERY_RESULT));
+    }
+
+    @Test
+    public void shouldGetDeferredCount() {
+
+        // given
+        DeferredCount deferredCount = DeferredCount.getBuilder()
+                .withStatus(DeferredCount.Status.COMPLETED)
+                .withCount(100L)
+                .build();
+        given(deferredCountRegistry.get(COUNT_TOKEN)).willReturn(Optional.of(deferredCount));
+
+        // when
+        Optional<DeferredCount> result = logProcessingService.getDeferredCount(COUNT_TOKEN);
+
+        // then
+        assertThat(result, equalTo(Optional.of(deferredCount)));
     }
 
     @Test
     public void shouldStoreLog() {
 
+        // given
+        given(ingestRateLimiter.tryAcquire(LOGGING_EVENT.getSource(), LOGGING_EVENT.getLevel())).willReturn(true);
+
         // when
-        logProcessingService.storeLog(LOGGING_EVENT);
+        LogStoreStatus result = logProcessingService.storeLog(LOGGING_EVENT);
 
         // then
-        verify(logEventDAO).save(LOGGING_EVENT);
+        assertThat(result, equalTo(LogStoreStatus.STORED));
+        verify(loggingEventWriter).write(LOGGING_EVENT);
+    }
+
+    @Test
+    public void shouldStoreLogQueueEventInAsyncMode() {
+
+        // given
+        logProcessingService = createService(Optional.of(writeBehindIngestBuffer));
+        given(ingestRateLimiter.tryAcquire(LOGGING_EVENT.getSource(), LOGGING_EVENT.getLevel())).willReturn(true);
+        given(writeBehindIngestBuffer.offer(LOGGING_EVENT)).willReturn(true);
+
+        // when
+        LogStoreStatus result = logProcessingService.storeLog(LOGGING_EVENT);
+
+        // then
+        assertThat(result, equalTo(LogStoreStatus.QUEUED));
+        verifyNoInteractions(loggingEventWriter);
+    }
+
+    @Test
+    public void shouldStoreLogThrowIngestBufferFullExceptionInAsyncModeWhenBufferIsFull() {
+
+        // given
+        logProcessingService = createService(Optional.of(writeBehindIngestBuffer));
+        given(ingestRateLimiter.tryAcquire(LOGGING_EVENT.getSource(), LOGGING_EVENT.getLevel())).willReturn(true);
+        given(writeBehindIngestBuffer.offer(LOGGING_EVENT)).willReturn(false);
+
+        // when
+        assertThrows(IngestBufferFullException.class, () -> logProcessingService.storeLog(LOGGING_EVENT));
+
+        // then
+        // exception expected
+        verifyNoInteractions(loggingEventWriter);
+    }
+
+    @Test
+    public void shouldStoreLogsMappingFailuresToOriginalPositions() throws Exception {
+
+        // given
+        LoggingEvent event1 = LoggingEvent.getBuilder().withContent("event 1").build();
+        LoggingEvent event2 = LoggingEvent.getBuilder().withContent("event 2").build();
+        LoggingEvent event3 = LoggingEvent.getBuilder().withContent("event 3").build();
+        IngestBatch<LoggingEvent> ingestBatch = new IngestBatch<>(List.of(event1, event2, event3), List.of(0, 2, 3),
+                List.of(new BatchItemFailure(1, "invalid item")), 4);
+        given(batchPayloadReader.readLoggingEvents(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON)).willReturn(ingestBatch);
+        givenAllAdmitted(List.of(event1, event2, event3));
+        given(loggingEventWriter.writeAll(List.of(event1, event2, event3))).willReturn(List.of(new BatchItemFailure(1, "write failed")));
+
+        // when
+        BatchIngestionResult result = logProcessingService.storeLogs(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON);
+
+        // then
+        assertThat(result, equalTo(BatchIngestionResult.getBuilder()
+                .withReceived(4)
+                .withStored(2)
+                .withFailures(List.of(new BatchItemFailure(1, "invalid item"), new BatchItemFailure(2, "write failed")))
+                .build()));
+    }
+
+    @Test
+    public void shouldStoreLogsForParsedEvents() {
+
+        // given
+        LoggingEvent event1 = LoggingEvent.getBuilder().withContent("event 1").build();
+        LoggingEvent event2 = LoggingEvent.getBuilder().withContent("event 2").build();
+        givenAllAdmitted(List.of(event1, event2));
+        given(loggingEventWriter.writeAll(List.of(event1, event2))).willReturn(List.of(new BatchItemFailure(0, "write failed")));
+
+        // when
+        BatchIngestionResult result = logProcessingService.storeLogs(List.of(event1, event2));
+
+        // then
+        assertThat(result, equalTo(BatchIngestionResult.getBuilder()
+                .withReceived(2)
+                .withStored(1)
+                .withFailures(List.of(new BatchItemFailure(0, "write failed")))
+                .build()));
+    }
+
+    @Test
+    public void shouldStoreLogsDirectlyMappingFailuresToOriginalPositions() throws Exception {
+
+        // given
+        RawBsonDocument document1 = RawBsonDocument.parse("{\"content\": \"event 1\"}");
+        RawBsonDocument document2 = RawBsonDocument.parse("{\"content\": \"event 2\"}");
+        IngestBatch<RawBsonDocument> ingestBatch = new IngestBatch<>(List.of(document1, document2), List.of(1, 2),
+                List.of(new BatchItemFailure(0, "invalid item")), 3);
+        given(batchPayloadReader.read(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY, loggingEventBsonTranscoder)).willReturn(ingestBatch);
+        givenAllAdmitted(ingestBatch.items());
+        given(duplicateEventFilter.filter(eq(List.of(document1, document2)), any()))
+                .willReturn(new FilteredBatch<>(List.of(document1, document2), List.of(0, 1)));
+        given(logEventDAO.saveAllDocuments(List.of(document1, document2)))
+                .willReturn(new StoreResult(List.of(new BatchItemFailure(0, "write failed")), Set.of()));
+
+        // when
+        BatchIngestionResult result = logProcessingService.storeLogsDirectly(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY);
+
+        // then
+        assertThat(result, equalTo(BatchIngestionResult.getBuilder()
+                .withReceived(3)
+                .withStored(1)
+                .withFailures(List.of(new BatchItemFailure(0, "invalid item"), new BatchItemFailure(1, "write failed")))
+                .build()));
+    }
+
+    @Test
+    public void shouldStoreLogsDirectlySkipDuplicateDocuments() throws Exception {
+
+        // given
+        RawBsonDocument document1 = RawBsonDocument.parse("{\"eventId\": \"event-1\"}");
+        RawBsonDocument document2 = RawBsonDocument.parse("{\"eventId\": \"event-2\"}");
+        RawBsonDocument document3 = RawBsonDocument.parse("{\"eventId\": \"event-3\"}");
+        IngestBatch<RawBsonDocument> ingestBatch = new IngestBatch<>(List.of(document1, document2, document3), List.of(0, 1, 2), List.of(), 3);
+        given(batchPayloadReader.read(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY, loggingEventBsonTranscoder)).willReturn(ingestBatch);
+        givenAllAdmitted(ingestBatch.items());
+        given(duplicateEventFilter.filter(eq(List.of(document1, document2, document3)), any()))
+                .willReturn(new FilteredBatch<>(List.of(document1, document3), List.of(0, 2)));
+        given(logEventDAO.saveAllDocuments(List.of(document1, document3)))
+                .willReturn(new StoreResult(List.of(new BatchItemFailure(1, "write failed")), Set.of()));
+
+        // when
+        BatchIngestionResult result = logProcessingService.storeLogsDirectly(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY);
+
+        // then
+        assertThat(result, equalTo(BatchIngestionResult.getBuilder()
+                .withReceived(3)
+                .withStored(2)
+                .withFailures(List.of(new BatchItemFailure(2, "write failed")))
+                .build()));
+        verify(storedDocumentRecorder).record(List.of(document1));
+    }
+
+    @Test
+    public void shouldStoreLogsDirectlyNotRecordDocumentsRejectedAsDuplicateKey() throws Exception {
+
+        // given
+        RawBsonDocument document1 = RawBsonDocument.parse("{\"eventId\": \"event-1\"}");
+        RawBsonDocument document2 = RawBsonDocument.parse("{\"eventId\": \"event-2\"}");
+        IngestBatch<RawBsonDocument> ingestBatch = new IngestBatch<>(List.of(document1, document2), List.of(0, 1), List.of(), 2);
+        given(batchPayloadReader.read(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY, loggingEventBsonTranscoder)).willReturn(ingestBatch);
+        givenAllAdmitted(ingestBatch.items());
+        given(duplicateEventFilter.filter(eq(List.of(document1, document2)), any()))
+                .willReturn(new FilteredBatch<>(List.of(document1, document2), List.of(0, 1)));
+        given(logEventDAO.saveAllDocuments(List.of(document1, document2))).willReturn(new StoreResult(List.of(), Set.of(0, 1)));
+
+        // when
+        BatchIngestionResult result = logProcessingService.storeLogsDirectly(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY);
+
+        // then
+        assertThat(result, equalTo(BatchIngestionResult.getBuilder()
+                .withReceived(2)
+                .withStored(2)
+                .withFailures(List.of())
+                .build()));
+        verify(storedDocumentRecorder).record(List.of());
+    }
+
+    @Test
+    public void shouldStoreLogDropEventRejectedByRateLimiter() {
+
+        // given
+        given(ingestRateLimiter.tryAcquire(LOGGING_EVENT.getSource(), LOGGING_EVENT.getLevel())).willReturn(false);
+
+        // when
+        LogStoreStatus result = logProcessingService.storeLog(LOGGING_EVENT);
+
+        // then
+        assertThat(result, equalTo(LogStoreStatus.DROPPED));
+        verifyNoInteractions(loggingEventWriter);
+    }
+
+    @Test
+    public void shouldStoreLogsCountEventsDroppedByRateLimiter() throws Exception {
+
+        // given
+        LoggingEvent event1 = LoggingEvent.getBuilder().withContent("event 1").build();
+        LoggingEvent event2 = LoggingEvent.getBuilder().withContent("event 2").build();
+        LoggingEvent event3 = LoggingEvent.getBuilder().withContent("event 3").build();
+        IngestBatch<LoggingEvent> ingestBatch = new IngestBatch<>(List.of(event1, event2, event3), List.of(0, 1, 2), List.of(), 3);
+        given(batchPayloadReader.readLoggingEvents(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON)).willReturn(ingestBatch);
+        given(ingestRateLimiter.admit(eq(List.of(event1, event2, event3)), any(), any()))
+                .willReturn(new FilteredBatch<>(List.of(event2, event3), List.of(1, 2)));
+        given(loggingEventWriter.writeAll(List.of(event2, event3))).willReturn(List.of(new BatchItemFailure(1, "write failed")));
+
+        // when
+        BatchIngestionResult result = logProcessingService.storeLogs(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON);
+
+        // then
+        assertThat(result, equalTo(BatchIngestionResult.getBuilder()
+                .withReceived(3)
+                .withStored(1)
+                .withDropped(1)
+                .withFailures(List.of(new BatchItemFailure(2, "write failed")))
+                .build()));
+    }
+
+    private <T> void givenAllAdmitted(List<T> items) {
+        given(ingestRateLimiter.admit(eq(items), any(), any()))
+                .willReturn(new FilteredBatch<>(items, IntStream.range(0, items.size()).boxed().collect(Collectors.toList())));
+    }
+
+    private LogProcessingServiceImpl createService(Optional<WriteBehindIngestBuffer> optionalWriteBehindIngestBuffer) {
+        return createService(false, optionalWriteBehindIngestBuffer);
+    }
+
+    private LogProcessingServiceImpl createService(boolean resultCacheEnabled, Optional<WriteBehindIngestBuffer> optionalWriteBehindIngestBuffer) {
+
+        QueryResultCacheProperties queryResultCacheProperties = new QueryResultCacheProperties();
+        queryResultCacheProperties.setEnabled(resultCacheEnabled);
+        QueryResultCache queryResultCache = new QueryResultCache(queryScopeExtractor, ingestWatermark, queryResultCacheProperties);
+        QueryCostGuard queryCostGuard = new QueryCostGuard(logEventDAO, queryScopeExtractor, new QueryGuardProperties());
+
+        return new LogProcessingServiceImpl(logEventDAO, conversionService, queryPlanCache, batchPayloadReader, loggingEventBsonTranscoder, loggingEventWriter, duplicateEventFilter, ingestRateLimiter, keysetPaginator,
+                totalCountResolver, deferredCountRegistry, indexAdvisor, logEventExporter, queryResultCache, queryCostGuard,
+                logEventAggregator, logEventRollupReader, issueTracker, heavyHitterTracker, storedDocumentRecorder, logEventHistogramAggregator,
+                optionalWriteBehindIngestBuffer);
     }
-}
\ No newline at end of file
+}
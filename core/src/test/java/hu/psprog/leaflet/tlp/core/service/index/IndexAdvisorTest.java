@@ -0,0 +1,274 @@
+package hu.psprog.leaflet.tlp.core.service.index;
+
+import hu.psprog.leaflet.tlp.core.config.IndexAdvisorProperties;
+import hu.psprog.leaflet.tlp.core.domain.IndexAdvisorReport;
+import hu.psprog.leaflet.tlp.core.domain.IndexBuildStatus;
+import hu.psprog.leaflet.tlp.core.domain.IndexRecommendation;
+import hu.psprog.leaflet.tlp.core.domain.IndexUsage;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryShape;
+import hu.psprog.leaflet.tlp.core.domain.QueryShapeStatistics;
+import hu.psprog.leaflet.tlp.core.persistence.dao.IndexManagementDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link IndexAdvisor}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class IndexAdvisorTest {
+
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "timeStamp");
+    private static final QueryPlan QUERY_PLAN = new QueryPlan(Optional.empty(), Pageable.unpaged());
+    private static final QueryPlan OTHER_QUERY_PLAN = new QueryPlan(Optional.empty(), Pageable.ofSize(10));
+    private static final QueryShape QUERY_SHAPE = new QueryShape(List.of("level", "source"), SORT, List.of());
+    private static final QueryShape OTHER_QUERY_SHAPE = new QueryShape(List.of(), SORT, List.of("content"));
+    private static final String INDEX_NAME = "tlp-index.advised.level_source_timeStamp-desc";
+    private static final Map<String, Integer> INDEX_KEY = createKey("level", 1, "source", 1, "timeStamp", -1);
+    private static final IndexUsage ID_INDEX = prepareIndexUsage("_id_", createKey("_id", 1), false, 0);
+    private static final IndexUsage EVENT_ID_INDEX = prepareIndexUsage("tlp-index.event-id", createKey("eventId", 1), true, 0);
+    private static final IndexUsage TIMESTAMP_INDEX = prepareIndexUsage("tlp-index.timestamp-id", createKey("timeStamp", 1, "_id", 1), false, 5);
+    private static final IndexUsage LEVEL_INDEX = prepareIndexUsage("tlp-index.level", createKey("level", 1), false, 0);
+    private static final List<IndexUsage> INDEXES = List.of(ID_INDEX, EVENT_ID_INDEX, TIMESTAMP_INDEX, LEVEL_INDEX);
+
+    @Mock
+    private QueryShapeExtractor queryShapeExtractor;
+
+    @Mock
+    private IndexManagementDAO indexManagementDAO;
+
+    @Mock
+    private ExecutorService indexBuildExecutor;
+
+    @Captor
+    private ArgumentCaptor<Runnable> buildTaskCaptor;
+
+    private IndexAdvisorProperties indexAdvisorProperties;
+    private IndexAdvisor indexAdvisor;
+
+    @BeforeEach
+    public void setup() {
+        indexAdvisorProperties = new IndexAdvisorProperties();
+        indexAdvisorProperties.setMinExecutions(2);
+        indexAdvisorProperties.setMinAverageLatency(Duration.ofMillis(100));
+        indexAdvisor = new IndexAdvisor(queryShapeExtractor, indexManagementDAO, indexAdvisorProperties, indexBuildExecutor);
+    }
+
+    @Test
+    public void shouldRecommendIndexForSlowUncoveredShape() {
+
+        // given
+        given(queryShapeExtractor.extract(QUERY_PLAN)).willReturn(QUERY_SHAPE);
+        given(indexManagementDAO.getIndexUsage()).willReturn(INDEXES);
+        indexAdvisor.record(QUERY_PLAN, Duration.ofMillis(200));
+        indexAdvisor.record(QUERY_PLAN, Duration.ofMillis(400));
+
+        // when
+        IndexAdvisorReport result = indexAdvisor.getReport();
+
+        // then
+        assertThat(result.shapes(), equalTo(List.of(QueryShapeStatistics.getBuilder()
+                .withShape(QUERY_SHAPE.toString())
+                .withExecutions(2)
+                .withAverageLatency(Duration.ofMillis(300))
+                .withMaxLatency(Duration.ofMillis(400))
+                .withIndexKey(INDEX_KEY)
+                .build())));
+        assertThat(result.recommendations(), equalTo(List.of(IndexRecommendation.getBuilder()
+                .withName(INDEX_NAME)
+                .withKey(INDEX_KEY)
+                .withShapes(List.of(QUERY_SHAPE.toString()))
+                .withExecutions(2)
+                .withTotalLatency(Duration.ofMillis(600))
+                .build())));
+        assertThat(result.unusedIndexes(), equalTo(List.of(LEVEL_INDEX)));
+        assertThat(result.builds(), equalTo(Map.of()));
+    }
+
+    @Test
+    public void shouldNotRecommendIndexForShapeServedByExistingIndex() {
+
+        // given
+        IndexUsage compoundIndex = prepareIndexUsage("compound", createKey("source", 1, "level", -1, "timeStamp", 1, "content", 1), false, 10);
+        given(queryShapeExtractor.extract(QUERY_PLAN)).willReturn(QUERY_SHAPE);
+        given(indexManagementDAO.getIndexUsage()).willReturn(List.of(TIMESTAMP_INDEX, compoundIndex));
+        indexAdvisor.record(QUERY_PLAN, Duration.ofMillis(200));
+        indexAdvisor.record(QUERY_PLAN, Duration.ofMillis(400));
+
+        // when
+        IndexAdvisorReport result = indexAdvisor.getReport();
+
+        // then
+        assertThat(result.shapes().get(0).coveringIndex(), equalTo("compound"));
+        assertThat(result.recommendations().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldNotRecommendIndexForFastOrRareShapes() {
+
+        // given
+        given(queryShapeExtractor.extract(QUERY_PLAN)).willReturn(QUERY_SHAPE);
+        given(queryShapeExtractor.extract(OTHER_QUERY_PLAN)).willReturn(OTHER_QUERY_SHAPE);
+        given(indexManagementDAO.getIndexUsage()).willReturn(INDEXES);
+        indexAdvisor.record(QUERY_PLAN, Duration.ofSeconds(2));
+        indexAdvisor.record(OTHER_QUERY_PLAN, Duration.ofMillis(10));
+        indexAdvisor.record(OTHER_QUERY_PLAN, Duration.ofMillis(10));
+
+        // when
+        IndexAdvisorReport result = indexAdvisor.getReport();
+
+        // then
+        assertThat(result.shapes().size(), equalTo(2));
+        assertThat(result.shapes().get(0).shape(), equalTo(QUERY_SHAPE.toString()));
+        assertThat(result.shapes().get(1).indexKey(), equalTo(createKey("timeStamp", -1, "content", 1)));
+        assertThat(result.shapes().get(1).coveringIndex(), equalTo("tlp-index.timestamp-id"));
+        assertThat(result.recommendations().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldNotRecordNewShapesOverLimit() {
+
+        // given
+        indexAdvisorProperties.setMaxShapes(1);
+        given(queryShapeExtractor.extract(QUERY_PLAN)).willReturn(QUERY_SHAPE);
+        given(queryShapeExtractor.extract(OTHER_QUERY_PLAN)).willReturn(OTHER_QUERY_SHAPE);
+        given(indexManagementDAO.getIndexUsage()).willReturn(INDEXES);
+
+        // when
+        indexAdvisor.record(QUERY_PLAN, Duration.ofMillis(200));
+        indexAdvisor.record(OTHER_QUERY_PLAN, Duration.ofMillis(200));
+        indexAdvisor.record(QUERY_PLAN, Duration.ofMillis(200));
+
+        // then
+        IndexAdvisorReport report = indexAdvisor.getReport();
+        assertThat(report.shapes().size(), equalTo(1));
+        assertThat(report.shapes().get(0).executions(), equalTo(2L));
+    }
+
+    @Test
+    public void shouldNotRecordIfDisabled() {
+
+        // given
+        indexAdvisorProperties.setEnabled(false);
+
+        // when
+        indexAdvisor.record(QUERY_PLAN, Duration.ofMillis(200));
+
+        // then
+        verifyNoInteractions(queryShapeExtractor);
+    }
+
+    @Test
+    public void shouldBuildRecommendedIndexInBackground() {
+
+        // given
+        prepareRecommendation();
+
+        // when
+        Optional<IndexBuildStatus> result = indexAdvisor.buildIndex(INDEX_NAME);
+
+        // then
+        assertThat(result, equalTo(Optional.of(IndexBuildStatus.PENDING)));
+        verify(indexBuildExecutor).execute(buildTaskCaptor.capture());
+        buildTaskCaptor.getValue().run();
+        verify(indexManagementDAO).createIndex(INDEX_NAME, INDEX_KEY);
+        assertThat(indexAdvisor.getReport().builds(), equalTo(Map.of(INDEX_NAME, IndexBuildStatus.COMPLETED)));
+    }
+
+    @Test
+    public void shouldNotStartBuildAgainWhilePending() {
+
+        // given
+        prepareRecommendation();
+        indexAdvisor.buildIndex(INDEX_NAME);
+
+        // when
+        Optional<IndexBuildStatus> result = indexAdvisor.buildIndex(INDEX_NAME);
+
+        // then
+        assertThat(result, equalTo(Optional.of(IndexBuildStatus.PENDING)));
+        verify(indexBuildExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldReportFailedBuild() {
+
+        // given
+        prepareRecommendation();
+        willThrow(new IllegalStateException("Index build failed")).given(indexManagementDAO).createIndex(INDEX_NAME, INDEX_KEY);
+        indexAdvisor.buildIndex(INDEX_NAME);
+        verify(indexBuildExecutor).execute(buildTaskCaptor.capture());
+
+        // when
+        buildTaskCaptor.getValue().run();
+
+        // then
+        assertThat(indexAdvisor.getReport().builds(), equalTo(Map.of(INDEX_NAME, IndexBuildStatus.FAILED)));
+    }
+
+    @Test
+    public void shouldNotBuildUnknownIndex() {
+
+        // given
+        given(indexManagementDAO.getIndexUsage()).willReturn(INDEXES);
+
+        // when
+        Optional<IndexBuildStatus> result = indexAdvisor.buildIndex(INDEX_NAME);
+
+        // then
+        assertThat(result, equalTo(Optional.empty()));
+        verifyNoInteractions(indexBuildExecutor);
+    }
+
+    private void prepareRecommendation() {
+        given(queryShapeExtractor.extract(QUERY_PLAN)).willReturn(QUERY_SHAPE);
+        given(indexManagementDAO.getIndexUsage()).willReturn(INDEXES);
+        indexAdvisor.record(QUERY_PLAN, Duration.ofMillis(200));
+        indexAdvisor.record(QUERY_PLAN, Duration.ofMillis(200));
+    }
+
+    private static IndexUsage prepareIndexUsage(String name, Map<String, ?> key, boolean unique, long accesses) {
+
+        return IndexUsage.getBuilder()
+                .withName(name)
+                .withKey(new LinkedHashMap<>(key))
+                .withUnique(unique)
+                .withAccesses(accesses)
+                .build();
+    }
+
+    private static Map<String, Integer> createKey(Object... fieldsAndDirections) {
+
+        Map<String, Integer> key = new LinkedHashMap<>();
+        for (int index = 0; index < fieldsAndDirections.length; index += 2) {
+            key.put((String) fieldsAndDirections[index], (Integer) fieldsAndDirections[index + 1]);
+        }
+
+        return key;
+    }
+}
@@ -0,0 +1,112 @@
+package hu.psprog.leaflet.tlp.core.service.index;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryShape;
+import hu.psprog.leaflet.tlp.core.service.qdsl.expression.strategy.impl.FullTextSearchExpression;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link QueryShapeExtractor}.
+ *
+ * @author Peter Smith
+ */
+public class QueryShapeExtractorTest {
+
+    private static final QLoggingEvent EVENT = new QLoggingEvent("event");
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "timeStamp");
+    private static final Pageable PAGEABLE = PageRequest.of(0, 10, SORT);
+
+    private QueryShapeExtractor queryShapeExtractor;
+
+    @BeforeEach
+    public void setup() {
+        queryShapeExtractor = new QueryShapeExtractor();
+    }
+
+    @Test
+    public void shouldExtractEqualityFields() {
+
+        // given
+        Predicate expression = EVENT.source.equalsIgnoreCase("app")
+                .and(EVENT.level.in("WARN", "ERROR"));
+
+        // when
+        QueryShape result = queryShapeExtractor.extract(new QueryPlan(Optional.of(expression), PAGEABLE));
+
+        // then
+        assertThat(result, equalTo(new QueryShape(List.of("level", "source"), SORT, List.of())));
+    }
+
+    @Test
+    public void shouldExtractRangeFields() {
+
+        // given
+        Predicate expression = EVENT.content.containsIgnoreCase("timeout")
+                .and(EVENT.timeStamp.gt(new Date()))
+                .and(EVENT.loggerName.notEqualsIgnoreCase("root"));
+
+        // when
+        QueryShape result = queryShapeExtractor.extract(new QueryPlan(Optional.of(expression), PAGEABLE));
+
+        // then
+        assertThat(result, equalTo(new QueryShape(List.of(), SORT, List.of("content", "loggerName", "timeStamp"))));
+    }
+
+    @Test
+    public void shouldExtractFieldsOfAlternativesAndNegationsAsRangeFields() {
+
+        // given
+        Predicate expression = EVENT.source.eq("app")
+                .and(EVENT.level.eq("WARN").or(EVENT.threadName.eq("main")))
+                .and(EVENT.context.contains("requestId", "1234").not());
+
+        // when
+        QueryShape result = queryShapeExtractor.extract(new QueryPlan(Optional.of(expression), PAGEABLE));
+
+        // then
+        assertThat(result, equalTo(new QueryShape(List.of("source"), SORT, List.of("context.requestId", "level", "threadName"))));
+    }
+
+    @Test
+    public void shouldExtractMapEntryFieldAndUnwrapBooleanBuilders() {
+
+        // given
+        Predicate expression = new BooleanBuilder()
+                .and(new BooleanBuilder()
+                        .and(EVENT.context.contains("requestId", "1234"))
+                        .and(new FullTextSearchExpression("connection refused")))
+                .and(EVENT.id.gt("event-1"))
+                .getValue();
+
+        // when
+        QueryShape result = queryShapeExtractor.extract(new QueryPlan(Optional.of(expression), PAGEABLE));
+
+        // then
+        assertThat(result, equalTo(new QueryShape(List.of("context.requestId"), SORT, List.of("_id"))));
+    }
+
+    @Test
+    public void shouldExtractShapeOfUnfilteredQuery() {
+
+        // when
+        QueryShape result = queryShapeExtractor.extract(new QueryPlan(Optional.empty(), PAGEABLE));
+
+        // then
+        assertThat(result, equalTo(new QueryShape(List.of(), SORT, List.of())));
+        assertThat(result.toString(), equalTo("equality[] sort[timeStamp DESC] range[]"));
+    }
+}
@@ -0,0 +1,96 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.IngestBatch;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link BatchPayloadReader}.
+ *
+ * @author Peter Smith
+ */
+public class BatchPayloadReaderTest {
+
+    private static final String JSON_ARRAY_PAYLOAD = """
+            [
+                {"source": "app1", "formattedMessage": "message 1", "timeStamp": 1000},
+                {"source": "app1", "formattedMessage": "message 2", "timeStamp": {"invalid": [1, 2]}},
+                {"source": "app2", "formattedMessage": "message 3", "timeStamp": 3000}
+            ]
+            """;
+    private static final String NDJSON_PAYLOAD = """
+            {"source": "app1", "formattedMessage": "message 1", "timeStamp": 1000}
+            {"source": "app1", "formattedMessage": "message 2", "timeStamp":
+
+            {"source": "app2", "formattedMessage": "message 3", "timeStamp": 3000}
+            """;
+    private static final String NON_ARRAY_PAYLOAD = """
+            {"source": "app1", "formattedMessage": "message 1", "timeStamp": 1000}
+            """;
+
+    private BatchPayloadReader batchPayloadReader;
+
+    @BeforeEach
+    public void setup() {
+        batchPayloadReader = new BatchPayloadReader(new ObjectMapper());
+    }
+
+    @Test
+    public void shouldReadLoggingEventsFromJSONArrayRejectingInvalidItem() throws Exception {
+
+        // when
+        IngestBatch<LoggingEvent> result = batchPayloadReader.readLoggingEvents(toStream(JSON_ARRAY_PAYLOAD), BatchPayloadFormat.JSON_ARRAY);
+
+        // then
+        assertBatch(result);
+    }
+
+    @Test
+    public void shouldReadLoggingEventsFromNDJSONRejectingInvalidLine() throws Exception {
+
+        // when
+        IngestBatch<LoggingEvent> result = batchPayloadReader.readLoggingEvents(toStream(NDJSON_PAYLOAD), BatchPayloadFormat.NDJSON);
+
+        // then
+        assertBatch(result);
+    }
+
+    @Test
+    public void shouldReadLoggingEventsThrowExceptionForNonArrayPayload() {
+
+        // when
+        assertThrows(JsonParseException.class, () -> batchPayloadReader.readLoggingEvents(toStream(NON_ARRAY_PAYLOAD), BatchPayloadFormat.JSON_ARRAY));
+
+        // then
+        // exception expected
+    }
+
+    private void assertBatch(IngestBatch<LoggingEvent> result) {
+        assertThat(result.itemCount(), equalTo(3));
+        assertThat(result.items().size(), equalTo(2));
+        assertThat(result.items().get(0).getContent(), equalTo("message 1"));
+        assertThat(result.items().get(1).getContent(), equalTo("message 3"));
+        assertThat(result.itemIndices(), equalTo(List.of(0, 2)));
+        assertThat(result.rejectedItems().size(), equalTo(1));
+        assertThat(result.rejectedItems().get(0).index(), equalTo(1));
+        assertThat(result.rejectedItems().get(0).reason() != null, is(true));
+    }
+
+    private InputStream toStream(String payload) {
+        return new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
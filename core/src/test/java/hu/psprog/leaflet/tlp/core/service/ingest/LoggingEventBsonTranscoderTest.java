@@ -0,0 +1,280 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.IngestBatch;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link LoggingEventBsonTranscoder}.
+ *
+ * @author Peter Smith
+ */
+public class LoggingEventBsonTranscoderTest {
+
+    private static final String FULL_LOGGING_EVENT = """
+            {
+                "eventId": "3f6c2a9e-client-event-1",
+                "threadName": "http-nio-8080-exec-1",
+                "loggerName": "hu.psprog.leaflet.Test",
+                "level": {"levelStr": "ERROR", "levelInt": 40000},
+                "formattedMessage": "Something went wrong",
+                "loggerContextVO": {"name": "default", "propertyMap": {}, "birthTime": 1000},
+                "throwableProxy": {
+                    "className": "java.lang.IllegalStateException",
+                    "message": "outer",
+                    "stackTraceElementProxyArray": [
+                        {"steasString": "at hu.psprog.A.a(A.java:10)", "stackTraceElement": {}},
+                        {"steasString": "at hu.psprog.B.b(B.java:20)"}
+                    ],
+                    "commonFrames": 0,
+                    "cause": {
+                        "className": "java.io.IOException",
+                        "message": "inner",
+                        "stackTraceElementProxyArray": [
+                            {"steasString": "at hu.psprog.C.c(C.java:30)"}
+                        ],
+                        "suppressed": []
+                    },
+                    "suppressed": [
+                        {"className": "java.lang.RuntimeException", "message": null, "stackTraceElementProxyArray": []}
+                    ]
+                },
+                "timeStamp": 1690000000000,
+                "source": "leaflet",
+                "context": {"requestId": "abc-123", "userId": 42}
+            }
+            """;
+    private static final String MINIMAL_LOGGING_EVENT = """
+            {"level": {"levelStr": "INFO"}, "content": "message", "timeStamp": 1000, "source": "app", "exception": null}
+            """;
+    private static final String INVALID_TIMESTAMP_LOGGING_EVENT = """
+            {"level": {"levelStr": "INFO"}, "content": "message", "timeStamp": "yesterday"}
+            """;
+    private static final String DUPLICATE_CONTENT_LOGGING_EVENT = """
+            {"level": {"levelStr": "INFO"}, "content": "message", "formattedMessage": "message", "timeStamp": 1000}
+            """;
+    private static final String BATCH_WITH_INVALID_ITEM = """
+            [
+                {"level": {"levelStr": "INFO"}, "content": "message 1", "timeStamp": 1000},
+                {"level": "INFO", "content": "message 2", "timeStamp": 2000},
+                {"level": {"levelStr": "WARN"}, "content": "message 3", "timeStamp": 3000}
+            ]
+            """;
+    private static final String FIELD_ID = "_id";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private MappingMongoConverter mappingMongoConverter;
+    private LoggingEventBsonTranscoder loggingEventBsonTranscoder;
+
+    @BeforeEach
+    public void setup() {
+        loggingEventBsonTranscoder = new LoggingEventBsonTranscoder();
+        mappingMongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        mappingMongoConverter.afterPropertiesSet();
+    }
+
+    @Test
+    public void shouldDecodeProduceSameDocumentAsMappingLayerForFullLoggingEvent() throws Exception {
+
+        // when
+        RawBsonDocument result = decode(FULL_LOGGING_EVENT);
+
+        // then
+        assertThat(result.getObjectId(FIELD_ID), notNullValue());
+        assertThat(toDocumentWithoutId(result), equalTo(writeViaMappingLayer(FULL_LOGGING_EVENT)));
+    }
+
+    @Test
+    public void shouldDecodeProduceSameDocumentAsMappingLayerForMinimalLoggingEvent() throws Exception {
+
+        // when
+        RawBsonDocument result = decode(MINIMAL_LOGGING_EVENT);
+
+        // then
+        assertThat(toDocumentWithoutId(result), equalTo(writeViaMappingLayer(MINIMAL_LOGGING_EVENT)));
+    }
+
+    @Test
+    public void shouldGetEventIdReturnEventIdOfDecodedDocument() throws Exception {
+
+        // given
+        RawBsonDocument document = decode(FULL_LOGGING_EVENT);
+
+        // when
+        String result = loggingEventBsonTranscoder.getEventId(document);
+
+        // then
+        assertThat(result, equalTo("3f6c2a9e-client-event-1"));
+    }
+
+    @Test
+    public void shouldGetEventIdReturnNullForDocumentWithoutEventId() throws Exception {
+
+        // given
+        RawBsonDocument document = decode(MINIMAL_LOGGING_EVENT);
+
+        // when
+        String result = loggingEventBsonTranscoder.getEventId(document);
+
+        // then
+        assertThat(result, nullValue());
+    }
+
+    @Test
+    public void shouldGetLoggerNameAndTimeStampReturnFieldsOfDecodedDocument() throws Exception {
+
+        // given
+        RawBsonDocument document = decode(FULL_LOGGING_EVENT);
+
+        // when
+        String loggerName = loggingEventBsonTranscoder.getLoggerName(document);
+        Date timeStamp = loggingEventBsonTranscoder.getTimeStamp(document);
+
+        // then
+        assertThat(loggerName, equalTo("hu.psprog.leaflet.Test"));
+        assertThat(timeStamp, equalTo(new Date(1690000000000L)));
+    }
+
+    @Test
+    public void shouldGetLoggerNameReturnNullForDocumentWithoutLoggerName() throws Exception {
+
+        // given
+        RawBsonDocument document = decode(MINIMAL_LOGGING_EVENT);
+
+        // when
+        String result = loggingEventBsonTranscoder.getLoggerName(document);
+
+        // then
+        assertThat(result, nullValue());
+    }
+
+    @Test
+    public void shouldGetContentReturnContentOfDocument() throws Exception {
+
+        // given
+        RawBsonDocument document = decode(FULL_LOGGING_EVENT);
+
+        // when
+        String result = loggingEventBsonTranscoder.getContent(document);
+
+        // then
+        assertThat(result, equalTo("Something went wrong"));
+    }
+
+    @Test
+    public void shouldGetExceptionReturnTopLevelExceptionOfDocument() throws Exception {
+
+        // given
+        RawBsonDocument document = decode(FULL_LOGGING_EVENT);
+
+        // when
+        ThrowableProxyLogItem result = loggingEventBsonTranscoder.getException(document);
+
+        // then
+        assertThat(result.getClassName(), equalTo("java.lang.IllegalStateException"));
+        assertThat(result.getMessage(), equalTo("outer"));
+        assertThat(result.getStackTrace(), equalTo(String.join(System.lineSeparator(),
+                "at hu.psprog.A.a(A.java:10)", "at hu.psprog.B.b(B.java:20)")));
+    }
+
+    @Test
+    public void shouldGetExceptionReturnNullForDocumentWithoutException() throws Exception {
+
+        // given
+        RawBsonDocument document = decode(MINIMAL_LOGGING_EVENT);
+
+        // when
+        ThrowableProxyLogItem result = loggingEventBsonTranscoder.getException(document);
+
+        // then
+        assertThat(result, nullValue());
+    }
+
+    @Test
+    public void shouldDecodeThrowJsonMappingExceptionForInvalidTimestamp() {
+
+        // when
+        assertThrows(JsonMappingException.class, () -> decode(INVALID_TIMESTAMP_LOGGING_EVENT));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldDecodeThrowJsonMappingExceptionForDuplicateTargetField() {
+
+        // when
+        assertThrows(JsonMappingException.class, () -> decode(DUPLICATE_CONTENT_LOGGING_EVENT));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldDecoderRejectOnlyInvalidItemOfBatch() throws Exception {
+
+        // given
+        BatchPayloadReader batchPayloadReader = new BatchPayloadReader(objectMapper);
+
+        // when
+        IngestBatch<RawBsonDocument> result = batchPayloadReader.read(
+                new ByteArrayInputStream(BATCH_WITH_INVALID_ITEM.getBytes(StandardCharsets.UTF_8)),
+                BatchPayloadFormat.JSON_ARRAY, loggingEventBsonTranscoder);
+
+        // then
+        assertThat(result.itemCount(), equalTo(3));
+        assertThat(result.itemIndices(), equalTo(List.of(0, 2)));
+        assertThat(result.items().get(0).getString("content").getValue(), equalTo("message 1"));
+        assertThat(result.items().get(1).getString("level").getValue(), equalTo("WARN"));
+        assertThat(result.rejectedItems().get(0).index(), equalTo(1));
+    }
+
+    private RawBsonDocument decode(String loggingEvent) throws Exception {
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(loggingEvent)) {
+            parser.nextToken();
+            return loggingEventBsonTranscoder.decode(parser);
+        }
+    }
+
+    private Document toDocumentWithoutId(RawBsonDocument rawBsonDocument) {
+
+        Document document = rawBsonDocument.decode(new DocumentCodec());
+        document.remove(FIELD_ID);
+
+        return document;
+    }
+
+    private Document writeViaMappingLayer(String loggingEvent) throws Exception {
+
+        Document document = new Document();
+        mappingMongoConverter.write(objectMapper.readValue(loggingEvent, LoggingEvent.class), document);
+
+        return document;
+    }
+}
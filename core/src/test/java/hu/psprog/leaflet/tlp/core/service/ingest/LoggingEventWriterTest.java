@@ -0,0 +1,182 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.FilteredBatch;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventDAO;
+import hu.psprog.leaflet.tlp.core.service.idempotency.DuplicateEventFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link LoggingEventWriter}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class LoggingEventWriterTest {
+
+    private static final LoggingEvent LOGGING_EVENT_1 = LoggingEvent.getBuilder().withContent("event 1").build();
+    private static final LoggingEvent LOGGING_EVENT_2 = LoggingEvent.getBuilder().withContent("event 2").build();
+    private static final LoggingEvent LOGGING_EVENT_3 = LoggingEvent.getBuilder().withContent("event 3").build();
+
+    @Mock
+    private LogEventDAO logEventDAO;
+
+    @Mock
+    private DuplicateEventFilter duplicateEventFilter;
+
+    @Mock
+    private LoggingEventStorageHandler handler1;
+
+    @Mock
+    private LoggingEventStorageHandler handler2;
+
+    private LoggingEventWriter loggingEventWriter;
+
+    @BeforeEach
+    public void setup() {
+        loggingEventWriter = new LoggingEventWriter(logEventDAO, duplicateEventFilter, List.of(handler1, handler2));
+    }
+
+    @Test
+    public void shouldWriteCallHandlersAroundSave() {
+
+        // given
+        givenNoDuplicates(List.of(LOGGING_EVENT_1));
+        given(logEventDAO.save(LOGGING_EVENT_1)).willReturn(true);
+
+        // when
+        loggingEventWriter.write(LOGGING_EVENT_1);
+
+        // then
+        InOrder inOrder = inOrder(handler1, handler2, logEventDAO);
+        inOrder.verify(handler1).beforeStore(List.of(LOGGING_EVENT_1));
+        inOrder.verify(handler2).beforeStore(List.of(LOGGING_EVENT_1));
+        inOrder.verify(logEventDAO).save(LOGGING_EVENT_1);
+        inOrder.verify(handler1).afterStore(List.of(LOGGING_EVENT_1));
+        inOrder.verify(handler2).afterStore(List.of(LOGGING_EVENT_1));
+    }
+
+    @Test
+    public void shouldWriteAllNotifyHandlersOnlyAboutStoredEvents() {
+
+        // given
+        List<LoggingEvent> loggingEvents = List.of(LOGGING_EVENT_1, LOGGING_EVENT_2, LOGGING_EVENT_3);
+        List<BatchItemFailure> failures = List.of(new BatchItemFailure(1, "write failed"));
+        givenNoDuplicates(loggingEvents);
+        given(logEventDAO.saveAll(loggingEvents)).willReturn(new StoreResult(failures, Set.of()));
+
+        // when
+        List<BatchItemFailure> result = loggingEventWriter.writeAll(loggingEvents);
+
+        // then
+        assertThat(result, equalTo(failures));
+        InOrder inOrder = inOrder(handler1, handler2, logEventDAO);
+        inOrder.verify(handler1).beforeStore(loggingEvents);
+        inOrder.verify(handler2).beforeStore(loggingEvents);
+        inOrder.verify(logEventDAO).saveAll(loggingEvents);
+        inOrder.verify(handler1).afterStore(List.of(LOGGING_EVENT_1, LOGGING_EVENT_3));
+        inOrder.verify(handler2).afterStore(List.of(LOGGING_EVENT_1, LOGGING_EVENT_3));
+    }
+
+    @Test
+    public void shouldWriteNotNotifyHandlersAboutEventRejectedAsDuplicateKey() {
+
+        // given
+        givenNoDuplicates(List.of(LOGGING_EVENT_1));
+        given(logEventDAO.save(LOGGING_EVENT_1)).willReturn(false);
+
+        // when
+        loggingEventWriter.write(LOGGING_EVENT_1);
+
+        // then
+        verify(handler1).beforeStore(List.of(LOGGING_EVENT_1));
+        verify(handler1, never()).afterStore(any());
+        verify(handler2, never()).afterStore(any());
+    }
+
+    @Test
+    public void shouldWriteAllNotNotifyHandlersAboutEventsRejectedAsDuplicateKey() {
+
+        // given
+        List<LoggingEvent> loggingEvents = List.of(LOGGING_EVENT_1, LOGGING_EVENT_2, LOGGING_EVENT_3);
+        givenNoDuplicates(loggingEvents);
+        given(logEventDAO.saveAll(loggingEvents)).willReturn(new StoreResult(List.of(new BatchItemFailure(2, "write failed")), Set.of(0)));
+
+        // when
+        List<BatchItemFailure> result = loggingEventWriter.writeAll(loggingEvents);
+
+        // then
+        assertThat(result, equalTo(List.of(new BatchItemFailure(2, "write failed"))));
+        verify(handler1).afterStore(List.of(LOGGING_EVENT_2));
+        verify(handler2).afterStore(List.of(LOGGING_EVENT_2));
+    }
+
+    @Test
+    public void shouldWriteAllSkipEmptyList() {
+
+        // when
+        List<BatchItemFailure> result = loggingEventWriter.writeAll(List.of());
+
+        // then
+        assertThat(result.isEmpty(), equalTo(true));
+        verifyNoInteractions(logEventDAO, handler1, handler2);
+    }
+
+    @Test
+    public void shouldWriteSkipDuplicateEvent() {
+
+        // given
+        given(duplicateEventFilter.filter(eq(List.of(LOGGING_EVENT_1)), any())).willReturn(new FilteredBatch<>(List.of(), List.of()));
+
+        // when
+        loggingEventWriter.write(LOGGING_EVENT_1);
+
+        // then
+        verifyNoInteractions(logEventDAO, handler1, handler2);
+    }
+
+    @Test
+    public void shouldWriteAllSkipDuplicateEventsMappingFailuresToOriginalPositions() {
+
+        // given
+        List<LoggingEvent> loggingEvents = List.of(LOGGING_EVENT_1, LOGGING_EVENT_2, LOGGING_EVENT_3);
+        List<LoggingEvent> newLoggingEvents = List.of(LOGGING_EVENT_1, LOGGING_EVENT_3);
+        given(duplicateEventFilter.filter(eq(loggingEvents), any())).willReturn(new FilteredBatch<>(newLoggingEvents, List.of(0, 2)));
+        given(logEventDAO.saveAll(newLoggingEvents)).willReturn(new StoreResult(List.of(new BatchItemFailure(1, "write failed")), Set.of()));
+
+        // when
+        List<BatchItemFailure> result = loggingEventWriter.writeAll(loggingEvents);
+
+        // then
+        assertThat(result, equalTo(List.of(new BatchItemFailure(2, "write failed"))));
+        verify(handler1).beforeStore(newLoggingEvents);
+        verify(handler1).afterStore(List.of(LOGGING_EVENT_1));
+    }
+
+    private void givenNoDuplicates(List<LoggingEvent> loggingEvents) {
+        given(duplicateEventFilter.filter(eq(loggingEvents), any()))
+                .willReturn(new FilteredBatch<>(loggingEvents, IntStream.range(0, loggingEvents.size()).boxed().collect(Collectors.toList())));
+    }
+}
@@ -0,0 +1,92 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.service.cache.IngestWatermark;
+import hu.psprog.leaflet.tlp.core.service.heavyhitter.HeavyHitterTracker;
+import hu.psprog.leaflet.tlp.core.service.issue.IssueTracker;
+import hu.psprog.leaflet.tlp.core.service.rollup.LogEventRollupStore;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link StoredDocumentRecorder}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class StoredDocumentRecorderTest {
+
+    private static final Date EVENT_TIMESTAMP = new Date(1_700_000_000_000L);
+    private static final RawBsonDocument DOCUMENT_1 = RawBsonDocument.parse("{\"eventId\": \"event-1\"}");
+    private static final RawBsonDocument DOCUMENT_2 = RawBsonDocument.parse("{\"eventId\": \"event-2\"}");
+
+    @Mock
+    private LoggingEventBsonTranscoder loggingEventBsonTranscoder;
+
+    @Mock
+    private IngestWatermark ingestWatermark;
+
+    @Mock
+    private LogEventRollupStore logEventRollupStore;
+
+    @Mock
+    private IssueTracker issueTracker;
+
+    @Mock
+    private HeavyHitterTracker heavyHitterTracker;
+
+    @InjectMocks
+    private StoredDocumentRecorder storedDocumentRecorder;
+
+    @Test
+    public void shouldRecordStoredDocuments() {
+
+        // given
+        ThrowableProxyLogItem throwableProxyLogItem = new ThrowableProxyLogItem();
+        givenDocument(DOCUMENT_1, "lcfa", "ERROR", throwableProxyLogItem, "message 1");
+        givenDocument(DOCUMENT_2, "lms", "INFO", null, "message 2");
+
+        // when
+        storedDocumentRecorder.record(List.of(DOCUMENT_1, DOCUMENT_2));
+
+        // then
+        verify(ingestWatermark).advance(List.of("lcfa", "lms"));
+        verify(logEventRollupStore).record(EVENT_TIMESTAMP, "lcfa", "ERROR", "hu.psprog.leaflet.Test");
+        verify(logEventRollupStore).record(EVENT_TIMESTAMP, "lms", "INFO", "hu.psprog.leaflet.Test");
+        verify(issueTracker).record(throwableProxyLogItem, EVENT_TIMESTAMP, "lcfa");
+        verify(issueTracker).record(null, EVENT_TIMESTAMP, "lms");
+        verify(heavyHitterTracker).record("hu.psprog.leaflet.Test", "lcfa", "message 1");
+        verify(heavyHitterTracker).record("hu.psprog.leaflet.Test", "lms", "message 2");
+    }
+
+    @Test
+    public void shouldRecordAdvanceWatermarkOnlyForEmptyList() {
+
+        // when
+        storedDocumentRecorder.record(List.of());
+
+        // then
+        verify(ingestWatermark).advance(List.of());
+        verifyNoInteractions(loggingEventBsonTranscoder, logEventRollupStore, issueTracker, heavyHitterTracker);
+    }
+
+    private void givenDocument(RawBsonDocument document, String source, String level, ThrowableProxyLogItem exception, String content) {
+        given(loggingEventBsonTranscoder.getSource(document)).willReturn(source);
+        given(loggingEventBsonTranscoder.getTimeStamp(document)).willReturn(EVENT_TIMESTAMP);
+        given(loggingEventBsonTranscoder.getLevel(document)).willReturn(level);
+        given(loggingEventBsonTranscoder.getLoggerName(document)).willReturn("hu.psprog.leaflet.Test");
+        given(loggingEventBsonTranscoder.getException(document)).willReturn(exception);
+        given(loggingEventBsonTranscoder.getContent(document)).willReturn(content);
+    }
+}
@@ -0,0 +1,211 @@
+package hu.psprog.leaflet.tlp.core.service.ingest;
+
+import hu.psprog.leaflet.tlp.core.config.AsyncIngestProperties;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link WriteBehindIngestBuffer}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class WriteBehindIngestBufferTest {
+
+    private static final LoggingEvent LOGGING_EVENT_1 = LoggingEvent.getBuilder().withContent("event 1").build();
+    private static final LoggingEvent LOGGING_EVENT_2 = LoggingEvent.getBuilder().withContent("event 2").build();
+    private static final LoggingEvent LOGGING_EVENT_3 = LoggingEvent.getBuilder().withContent("event 3").build();
+
+    @Mock
+    private LoggingEventWriter loggingEventWriter;
+
+    private WriteBehindIngestBuffer writeBehindIngestBuffer;
+
+    @AfterEach
+    public void tearDown() {
+        if (writeBehindIngestBuffer != null) {
+            writeBehindIngestBuffer.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldFlushWhenBatchSizeIsReached() {
+
+        // given
+        List<List<LoggingEvent>> writtenBatches = captureWrittenBatches();
+        writeBehindIngestBuffer = createBuffer(10, 2, Duration.ofMinutes(1));
+        writeBehindIngestBuffer.start();
+
+        // when
+        writeBehindIngestBuffer.offer(LOGGING_EVENT_1);
+        writeBehindIngestBuffer.offer(LOGGING_EVENT_2);
+
+        // then
+        verify(loggingEventWriter, timeout(5000)).writeAll(anyList());
+        assertThat(writtenBatches.get(0), equalTo(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2)));
+    }
+
+    @Test
+    public void shouldFlushWhenFlushIntervalIsElapsed() {
+
+        // given
+        List<List<LoggingEvent>> writtenBatches = captureWrittenBatches();
+        writeBehindIngestBuffer = createBuffer(10, 100, Duration.ofMillis(50));
+        writeBehindIngestBuffer.start();
+
+        // when
+        writeBehindIngestBuffer.offer(LOGGING_EVENT_1);
+
+        // then
+        verify(loggingEventWriter, timeout(5000)).writeAll(anyList());
+        assertThat(writtenBatches.get(0), equalTo(List.of(LOGGING_EVENT_1)));
+    }
+
+    @Test
+    public void shouldRejectEventWhenBufferIsFull() throws InterruptedException {
+
+        // given
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch writeReleased = new CountDownLatch(1);
+        given(loggingEventWriter.writeAll(anyList())).willAnswer(invocation -> {
+            writeStarted.countDown();
+            writeReleased.await();
+            return List.of();
+        });
+        writeBehindIngestBuffer = createBuffer(2, 1, Duration.ofMinutes(1));
+        boolean resultBeforeStart = writeBehindIngestBuffer.offer(LOGGING_EVENT_1);
+        writeBehindIngestBuffer.start();
+        writeBehindIngestBuffer.offer(LOGGING_EVENT_1);
+        writeStarted.await(5, TimeUnit.SECONDS);
+
+        // when
+        boolean result1 = writeBehindIngestBuffer.offer(LOGGING_EVENT_2);
+        boolean result2 = writeBehindIngestBuffer.offer(LOGGING_EVENT_3);
+        boolean result3 = writeBehindIngestBuffer.offer(LOGGING_EVENT_3);
+
+        // then
+        assertThat(resultBeforeStart, is(false));
+        assertThat(result1, is(true));
+        assertThat(result2, is(true));
+        assertThat(result3, is(false));
+        writeReleased.countDown();
+    }
+
+    @Test
+    public void shouldDrainPendingEventsOnShutdown() {
+
+        // given
+        List<List<LoggingEvent>> writtenBatches = captureWrittenBatches();
+        writeBehindIngestBuffer = createBuffer(10, 2, Duration.ofMinutes(1));
+        writeBehindIngestBuffer.start();
+        writeBehindIngestBuffer.offer(LOGGING_EVENT_1);
+        writeBehindIngestBuffer.offer(LOGGING_EVENT_2);
+        writeBehindIngestBuffer.offer(LOGGING_EVENT_3);
+
+        // when
+        writeBehindIngestBuffer.shutdown();
+
+        // then
+        List<LoggingEvent> writtenEvents = writtenBatches.stream()
+                .flatMap(List::stream)
+                .toList();
+        assertThat(writtenEvents, equalTo(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2, LOGGING_EVENT_3)));
+        assertThat(writeBehindIngestBuffer.getPendingCount(), equalTo(0));
+        assertThat(writeBehindIngestBuffer.offer(LOGGING_EVENT_1), is(false));
+        writeBehindIngestBuffer = null;
+    }
+
+    @Test
+    public void shouldWriteEveryAcceptedEventWhenShutdownRacesWithOffers() throws InterruptedException {
+
+        // given
+        List<List<LoggingEvent>> writtenBatches = captureWrittenBatches();
+        writeBehindIngestBuffer = createBuffer(100_000, 50, Duration.ofMillis(10));
+        writeBehindIngestBuffer.start();
+        AtomicInteger acceptedCount = new AtomicInteger();
+        List<Thread> producers = new ArrayList<>();
+        for (int index = 0; index < 4; index++) {
+            Thread producer = new Thread(() -> {
+                while (writeBehindIngestBuffer.offer(LOGGING_EVENT_1)) {
+                    acceptedCount.incrementAndGet();
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        // when
+        writeBehindIngestBuffer.shutdown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // then
+        long writtenCount = writtenBatches.stream()
+                .mapToLong(List::size)
+                .sum();
+        assertThat(writtenCount, equalTo((long) acceptedCount.get()));
+        assertThat(writeBehindIngestBuffer.getPendingCount(), equalTo(0));
+        writeBehindIngestBuffer = null;
+    }
+
+    @Test
+    public void shouldNotWriteAnythingWhenBufferIsEmpty() {
+
+        // given
+        writeBehindIngestBuffer = createBuffer(10, 2, Duration.ofMillis(10));
+        writeBehindIngestBuffer.start();
+
+        // when
+        writeBehindIngestBuffer.shutdown();
+
+        // then
+        verifyNoInteractions(loggingEventWriter);
+        writeBehindIngestBuffer = null;
+    }
+
+    private List<List<LoggingEvent>> captureWrittenBatches() {
+
+        List<List<LoggingEvent>> writtenBatches = new ArrayList<>();
+        given(loggingEventWriter.writeAll(anyList())).willAnswer(invocation -> {
+            synchronized (writtenBatches) {
+                writtenBatches.add(new ArrayList<>(invocation.getArgument(0)));
+            }
+            return List.of();
+        });
+
+        return writtenBatches;
+    }
+
+    private WriteBehindIngestBuffer createBuffer(int queueCapacity, int batchSize, Duration flushInterval) {
+
+        AsyncIngestProperties asyncIngestProperties = new AsyncIngestProperties();
+        asyncIngestProperties.setEnabled(true);
+        asyncIngestProperties.setQueueCapacity(queueCapacity);
+        asyncIngestProperties.setBatchSize(batchSize);
+        asyncIngestProperties.setFlushInterval(flushInterval);
+
+        return new WriteBehindIngestBuffer(loggingEventWriter, asyncIngestProperties);
+    }
+}
@@ -0,0 +1,139 @@
+package hu.psprog.leaflet.tlp.core.service.intern;
+
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.cfg.HandlerInstantiator;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import hu.psprog.leaflet.tlp.core.config.InternPoolProperties;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link InternedStringDeserializer} and {@link InternedStringKeyDeserializer}.
+ *
+ * @author Peter Smith
+ */
+public class InternedStringDeserializerTest {
+
+    private static final String LOGGING_EVENT_1 = """
+            {"threadName": "main", "loggerName": "hu.psprog.Logger", "source": "app", "level": {"levelStr": "INFO"},
+             "formattedMessage": "message 1", "timeStamp": 1000, "context": {"requestId": "request-1"}}
+            """;
+    private static final String LOGGING_EVENT_2 = """
+            {"threadName": "main", "loggerName": "hu.psprog.Logger", "source": "app", "level": {"levelStr": "INFO"},
+             "formattedMessage": "message 1", "timeStamp": 2000, "context": {"requestId": "request-2"}}
+            """;
+
+    private StringInternPool stringInternPool;
+
+    @BeforeEach
+    public void setup() {
+        stringInternPool = new StringInternPool(new InternPoolProperties());
+    }
+
+    @Test
+    public void shouldDeserializeInternedFields() throws Exception {
+
+        // given
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setHandlerInstantiator(new AutowiringHandlerInstantiator(createBeanFactory()));
+
+        // when
+        LoggingEvent result1 = objectMapper.readValue(LOGGING_EVENT_1, LoggingEvent.class);
+        LoggingEvent result2 = objectMapper.readValue(LOGGING_EVENT_2, LoggingEvent.class);
+
+        // then
+        assertThat(result2.getThreadName(), sameInstance(result1.getThreadName()));
+        assertThat(result2.getLoggerName(), sameInstance(result1.getLoggerName()));
+        assertThat(result2.getSource(), sameInstance(result1.getSource()));
+        assertThat(result2.getLevel(), sameInstance(result1.getLevel()));
+        assertThat(keyOf(result2.getContext()), sameInstance(keyOf(result1.getContext())));
+        assertThat(result2.getContent(), not(sameInstance(result1.getContent())));
+    }
+
+    @Test
+    public void shouldDeserializeWithoutInterningWhenPoolIsNotInjected() throws Exception {
+
+        // given
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // when
+        LoggingEvent result1 = objectMapper.readValue(LOGGING_EVENT_1, LoggingEvent.class);
+        LoggingEvent result2 = objectMapper.readValue(LOGGING_EVENT_2, LoggingEvent.class);
+
+        // then
+        assertThat(result2.getLoggerName(), equalTo(result1.getLoggerName()));
+        assertThat(result2.getLoggerName(), not(sameInstance(result1.getLoggerName())));
+        assertThat(stringInternPool.size(), equalTo(0));
+    }
+
+    private AutowireCapableBeanFactory createBeanFactory() {
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        AutowiredAnnotationBeanPostProcessor autowiredAnnotationBeanPostProcessor = new AutowiredAnnotationBeanPostProcessor();
+        autowiredAnnotationBeanPostProcessor.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(autowiredAnnotationBeanPostProcessor);
+        beanFactory.registerSingleton("stringInternPool", stringInternPool);
+
+        return beanFactory;
+    }
+
+    private String keyOf(Map<String, String> map) {
+        return map.keySet().iterator().next();
+    }
+
+    /**
+     * Minimal equivalent of Spring's SpringHandlerInstantiator (which lives in spring-web).
+     */
+    private static final class AutowiringHandlerInstantiator extends HandlerInstantiator {
+
+        private final AutowireCapableBeanFactory beanFactory;
+
+        private AutowiringHandlerInstantiator(AutowireCapableBeanFactory beanFactory) {
+            this.beanFactory = beanFactory;
+        }
+
+        @Override
+        public JsonDeserializer<?> deserializerInstance(DeserializationConfig config, Annotated annotated, Class<?> deserClass) {
+            return (JsonDeserializer<?>) beanFactory.createBean(deserClass);
+        }
+
+        @Override
+        public KeyDeserializer keyDeserializerInstance(DeserializationConfig config, Annotated annotated, Class<?> keyDeserClass) {
+            return (KeyDeserializer) beanFactory.createBean(keyDeserClass);
+        }
+
+        @Override
+        public JsonSerializer<?> serializerInstance(SerializationConfig config, Annotated annotated, Class<?> serClass) {
+            return (JsonSerializer<?>) beanFactory.createBean(serClass);
+        }
+
+        @Override
+        public TypeResolverBuilder<?> typeResolverBuilderInstance(MapperConfig<?> config, Annotated annotated, Class<?> builderClass) {
+            return (TypeResolverBuilder<?>) beanFactory.createBean(builderClass);
+        }
+
+        @Override
+        public TypeIdResolver typeIdResolverInstance(MapperConfig<?> config, Annotated annotated, Class<?> resolverClass) {
+            return (TypeIdResolver) beanFactory.createBean(resolverClass);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package hu.psprog.leaflet.tlp.core.service.intern;
+
+import hu.psprog.leaflet.tlp.core.config.InternPoolProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Unit tests for {@link StringInternPool}.
+ *
+ * @author Peter Smith
+ */
+public class StringInternPoolTest {
+
+    @Test
+    public void shouldInternReturnSameInstanceForEqualStrings() {
+
+        // given
+        StringInternPool stringInternPool = createPool(true, 16, 256);
+        String value1 = new String("hu.psprog.leaflet.Logger");
+        String value2 = new String("hu.psprog.leaflet.Logger");
+
+        // when
+        String result1 = stringInternPool.intern(value1);
+        String result2 = stringInternPool.intern(value2);
+
+        // then
+        assertThat(result1, sameInstance(value1));
+        assertThat(result2, sameInstance(value1));
+    }
+
+    @Test
+    public void shouldInternKeepPoolBounded() {
+
+        // given
+        StringInternPool stringInternPool = createPool(true, 8, 256);
+
+        // when
+        for (int index = 0; index < 1000; index++) {
+            stringInternPool.intern("thread-" + index);
+        }
+
+        // then
+        assertThat(stringInternPool.size(), lessThanOrEqualTo(16));
+    }
+
+    @Test
+    public void shouldInternKeepFrequentlyUsedValuesOverRotations() {
+
+        // given
+        StringInternPool stringInternPool = createPool(true, 8, 256);
+        String frequentValue = new String("INFO");
+        stringInternPool.intern(frequentValue);
+
+        // when
+        for (int index = 0; index < 100; index++) {
+            stringInternPool.intern("thread-" + index);
+            stringInternPool.intern(new String("INFO"));
+        }
+        String result = stringInternPool.intern(new String("INFO"));
+
+        // then
+        assertThat(result, sameInstance(frequentValue));
+    }
+
+    @Test
+    public void shouldInternSkipLongAndNullValues() {
+
+        // given
+        StringInternPool stringInternPool = createPool(true, 8, 4);
+        String longValue = new String("long-value");
+
+        // when
+        stringInternPool.intern(longValue);
+        String result = stringInternPool.intern(new String("long-value"));
+
+        // then
+        assertThat(result, not(sameInstance(longValue)));
+        assertThat(stringInternPool.intern(null), nullValue());
+        assertThat(stringInternPool.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldInternPassThroughWhenDisabled() {
+
+        // given
+        StringInternPool stringInternPool = createPool(false, 8, 256);
+        String value = new String("value");
+
+        // when
+        stringInternPool.intern(value);
+        String result = stringInternPool.intern(new String("value"));
+
+        // then
+        assertThat(result, not(sameInstance(value)));
+        assertThat(stringInternPool.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldBindMetrics() {
+
+        // given
+        StringInternPool stringInternPool = createPool(true, 2, 256);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        stringInternPool.bindTo(meterRegistry);
+
+        // when
+        stringInternPool.intern("value-1");
+        stringInternPool.intern("value-1");
+        stringInternPool.intern("value-1");
+        stringInternPool.intern("value-2");
+        stringInternPool.intern("value-3");
+        stringInternPool.intern("value-4");
+
+        // then
+        assertThat(meterRegistry.get("tlp.intern-pool.requests").tag("result", "hit").functionCounter().count(), equalTo(2.0));
+        assertThat(meterRegistry.get("tlp.intern-pool.requests").tag("result", "miss").functionCounter().count(), equalTo(4.0));
+        assertThat(meterRegistry.get("tlp.intern-pool.evictions").functionCounter().count(), equalTo(2.0));
+        assertThat(meterRegistry.get("tlp.intern-pool.hit.ratio").gauge().value(), equalTo(2.0 / 6.0));
+        assertThat(meterRegistry.get("tlp.intern-pool.size").gauge().value(), equalTo(2.0));
+    }
+
+    private StringInternPool createPool(boolean enabled, int generationCapacity, int maxLength) {
+
+        InternPoolProperties internPoolProperties = new InternPoolProperties();
+        internPoolProperties.setEnabled(enabled);
+        internPoolProperties.setGenerationCapacity(generationCapacity);
+        internPoolProperties.setMaxLength(maxLength);
+
+        return new StringInternPool(internPoolProperties);
+    }
+}
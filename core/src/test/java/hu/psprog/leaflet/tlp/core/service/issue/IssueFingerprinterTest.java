@@ -0,0 +1,122 @@
+package hu.psprog.leaflet.tlp.core.service.issue;
+
+import hu.psprog.leaflet.tlp.core.config.IssueTrackingProperties;
+import hu.psprog.leaflet.tlp.core.domain.IssueSignature;
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.service.template.MessageTemplateNormalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link IssueFingerprinter}.
+ *
+ * @author Peter Smith
+ */
+public class IssueFingerprinterTest {
+
+    private static final String CLASS_NAME = "java.lang.IllegalStateException";
+    private static final String STACK_TRACE = String.join(System.lineSeparator(),
+            "at hu.psprog.leaflet.A.a(A.java:10) ~[leaflet-1.0.jar:1.0]",
+            "at hu.psprog.leaflet.B$$Lambda$123/0x0000000800c0b000.apply(Unknown Source)",
+            "at jdk.proxy2.$Proxy87.call(Unknown Source)",
+            "at hu.psprog.leaflet.C.c(C.java:30)");
+
+    private IssueFingerprinter issueFingerprinter;
+
+    @BeforeEach
+    public void setup() {
+        IssueTrackingProperties issueTrackingProperties = new IssueTrackingProperties();
+        issueTrackingProperties.setTopFrames(3);
+        issueFingerprinter = new IssueFingerprinter(new MessageTemplateNormalizer(), issueTrackingProperties);
+    }
+
+    @Test
+    public void shouldFingerprintNormalizeMessageAndTopFrames() {
+
+        // given
+        ThrowableProxyLogItem exception = createException(CLASS_NAME,
+                "Entry 42 of user 3f6c2a9e-1b2c-4d5e-8f90-0123456789ab not found at 0x7ffe12ab (hash 9f86d081884c7d65)", STACK_TRACE);
+
+        // when
+        IssueSignature result = issueFingerprinter.fingerprint(exception);
+
+        // then
+        assertThat(result.className(), equalTo(CLASS_NAME));
+        assertThat(result.message(), equalTo("Entry <n> of user <uuid> not found at <hex> (hash <hex>)"));
+        assertThat(result.frames(), equalTo(List.of(
+                "hu.psprog.leaflet.A.a(A.java)",
+                "hu.psprog.leaflet.B$$Lambda.apply(Unknown Source)",
+                "jdk.proxy2.$Proxy.call(Unknown Source)")));
+        assertThat(result.fingerprint().length(), equalTo(64));
+    }
+
+    @Test
+    public void shouldFingerprintBeStableAcrossOccurrencesOfSameProblem() {
+
+        // given
+        ThrowableProxyLogItem exception1 = createException(CLASS_NAME, "Entry 42 not found", STACK_TRACE);
+        ThrowableProxyLogItem exception2 = createException(CLASS_NAME, "Entry 1337 not found", STACK_TRACE
+                .replace("A.java:10", "A.java:12")
+                .replace("0x0000000800c0b000", "0x0000000800d1c000")
+                .replace("C.java:30", "D.java:40"));
+
+        // when
+        IssueSignature result1 = issueFingerprinter.fingerprint(exception1);
+        IssueSignature result2 = issueFingerprinter.fingerprint(exception2);
+
+        // then
+        assertThat(result1, equalTo(result2));
+    }
+
+    @Test
+    public void shouldFingerprintDistinguishDifferentExceptions() {
+
+        // given
+        ThrowableProxyLogItem exception1 = createException(CLASS_NAME, "Entry 42 not found", STACK_TRACE);
+        ThrowableProxyLogItem exception2 = createException("java.lang.IllegalArgumentException", "Entry 42 not found", STACK_TRACE);
+        ThrowableProxyLogItem exception3 = createException(CLASS_NAME, "Entry 42 is locked", STACK_TRACE);
+        ThrowableProxyLogItem exception4 = createException(CLASS_NAME, "Entry 42 not found", STACK_TRACE.replace("A.a(", "A.b("));
+
+        // when
+        String result1 = issueFingerprinter.fingerprint(exception1).fingerprint();
+        String result2 = issueFingerprinter.fingerprint(exception2).fingerprint();
+        String result3 = issueFingerprinter.fingerprint(exception3).fingerprint();
+        String result4 = issueFingerprinter.fingerprint(exception4).fingerprint();
+
+        // then
+        assertThat(result1, not(equalTo(result2)));
+        assertThat(result1, not(equalTo(result3)));
+        assertThat(result1, not(equalTo(result4)));
+    }
+
+    @Test
+    public void shouldFingerprintHandleExceptionWithoutMessageAndStackTrace() {
+
+        // given
+        ThrowableProxyLogItem exception = createException(CLASS_NAME, null, null);
+
+        // when
+        IssueSignature result = issueFingerprinter.fingerprint(exception);
+
+        // then
+        assertThat(result.message(), nullValue());
+        assertThat(result.frames(), equalTo(List.of()));
+    }
+
+    private ThrowableProxyLogItem createException(String className, String message, String stackTrace) {
+
+        ThrowableProxyLogItem exception = new ThrowableProxyLogItem();
+        exception.setClassName(className);
+        exception.setMessage(message);
+        exception.setStackTrace(stackTrace);
+
+        return exception;
+    }
+}
@@ -0,0 +1,222 @@
+package hu.psprog.leaflet.tlp.core.service.issue;
+
+import hu.psprog.leaflet.tlp.core.config.IssueTrackingProperties;
+import hu.psprog.leaflet.tlp.core.domain.Issue;
+import hu.psprog.leaflet.tlp.core.domain.IssueOccurrence;
+import hu.psprog.leaflet.tlp.core.domain.IssueQuery;
+import hu.psprog.leaflet.tlp.core.domain.IssueSignature;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.persistence.dao.IssueDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link IssueTracker}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class IssueTrackerTest {
+
+    private static final ThrowableProxyLogItem EXCEPTION_1 = createException("java.lang.IllegalStateException");
+    private static final ThrowableProxyLogItem EXCEPTION_2 = createException("java.io.IOException");
+    private static final IssueSignature SIGNATURE_1 = new IssueSignature("fingerprint-1", "java.lang.IllegalStateException", "failed", List.of());
+    private static final IssueSignature SIGNATURE_2 = new IssueSignature("fingerprint-2", "java.io.IOException", "failed", List.of());
+    private static final Date TIMESTAMP_1 = new Date(1_700_000_000_000L);
+    private static final Date TIMESTAMP_2 = new Date(1_700_000_060_000L);
+    private static final Date TIMESTAMP_3 = new Date(1_700_000_120_000L);
+    private static final IssueQuery ISSUE_QUERY = IssueQuery.parse("2024-01-01T00:00:00Z", null, null, null);
+    private static final int MAX_RESULTS = 50;
+
+    @Mock
+    private IssueDAO issueDAO;
+
+    @Mock
+    private IssueFingerprinter issueFingerprinter;
+
+    @Mock
+    private List<Issue> issues;
+
+    @Captor
+    private ArgumentCaptor<Collection<IssueOccurrence>> occurrencesCaptor;
+
+    private IssueTrackingProperties issueTrackingProperties;
+    private IssueTracker issueTracker;
+
+    @BeforeEach
+    public void setup() {
+        issueTrackingProperties = new IssueTrackingProperties();
+        issueTrackingProperties.setMaxResults(MAX_RESULTS);
+        issueTracker = new IssueTracker(issueDAO, issueFingerprinter, issueTrackingProperties);
+    }
+
+    @Test
+    public void shouldBeforeStoreSetIssueFingerprintOfEventsWithException() {
+
+        // given
+        LoggingEvent loggingEvent1 = createLoggingEvent(EXCEPTION_1, TIMESTAMP_1, "lcfa");
+        LoggingEvent loggingEvent2 = createLoggingEvent(null, TIMESTAMP_1, "lcfa");
+        given(issueFingerprinter.fingerprint(EXCEPTION_1)).willReturn(SIGNATURE_1);
+
+        // when
+        issueTracker.beforeStore(List.of(loggingEvent1, loggingEvent2));
+
+        // then
+        assertThat(loggingEvent1.getIssueFingerprint(), equalTo("fingerprint-1"));
+        assertThat(loggingEvent2.getIssueFingerprint(), nullValue());
+    }
+
+    @Test
+    public void shouldFlushAddOccurrencesOfStoredEventsGroupedByIssue() {
+
+        // given
+        List<LoggingEvent> loggingEvents = List.of(
+                createLoggingEvent(EXCEPTION_1, TIMESTAMP_2, "lcfa"),
+                createLoggingEvent(EXCEPTION_2, TIMESTAMP_2, "lcfa"),
+                createLoggingEvent(EXCEPTION_1, TIMESTAMP_1, "lsas"),
+                createLoggingEvent(null, TIMESTAMP_1, "lsas"));
+        given(issueFingerprinter.fingerprint(EXCEPTION_1)).willReturn(SIGNATURE_1);
+        given(issueFingerprinter.fingerprint(EXCEPTION_2)).willReturn(SIGNATURE_2);
+        issueTracker.beforeStore(loggingEvents);
+        issueTracker.afterStore(loggingEvents);
+        issueTracker.afterStore(List.of(loggingEvents.get(0)));
+
+        // when
+        issueTracker.flush();
+
+        // then
+        verify(issueDAO).addOccurrences(occurrencesCaptor.capture());
+        assertThat(occurrencesCaptor.getValue(), containsInAnyOrder(
+                new IssueOccurrence("fingerprint-1", SIGNATURE_1, 3L, TIMESTAMP_1, TIMESTAMP_2, Set.of("lcfa", "lsas")),
+                new IssueOccurrence("fingerprint-2", SIGNATURE_2, 1L, TIMESTAMP_2, TIMESTAMP_2, Set.of("lcfa"))));
+    }
+
+    @Test
+    public void shouldFlushKeepOccurrencesFailedToBePersisted() {
+
+        // given
+        given(issueFingerprinter.fingerprint(EXCEPTION_1)).willReturn(SIGNATURE_1);
+        willThrow(new IllegalStateException("write failed")).given(issueDAO).addOccurrences(any());
+        issueTracker.record(EXCEPTION_1, TIMESTAMP_1, "lcfa");
+        issueTracker.flush();
+        issueTracker.record(EXCEPTION_1, TIMESTAMP_3, "lsas");
+
+        // when
+        issueTracker.flush();
+
+        // then
+        verify(issueDAO, times(2)).addOccurrences(occurrencesCaptor.capture());
+        assertThat(List.copyOf(occurrencesCaptor.getValue()), equalTo(List.of(
+                new IssueOccurrence("fingerprint-1", SIGNATURE_1, 2L, TIMESTAMP_1, TIMESTAMP_3, Set.of("lcfa", "lsas")))));
+    }
+
+    @Test
+    public void shouldFlushDoNothingWithoutOccurrences() {
+
+        // when
+        issueTracker.flush();
+
+        // then
+        verifyNoInteractions(issueDAO);
+    }
+
+    @Test
+    public void shouldIgnoreEventsWhenIssueTrackingIsDisabled() {
+
+        // given
+        issueTrackingProperties.setEnabled(false);
+        LoggingEvent loggingEvent = createLoggingEvent(EXCEPTION_1, TIMESTAMP_1, "lcfa");
+        issueTracker.beforeStore(List.of(loggingEvent));
+        issueTracker.afterStore(List.of(loggingEvent));
+        issueTracker.record(EXCEPTION_1, TIMESTAMP_1, "lcfa");
+
+        // when
+        issueTracker.flush();
+
+        // then
+        assertThat(loggingEvent.getIssueFingerprint(), nullValue());
+        verifyNoInteractions(issueFingerprinter, issueDAO);
+    }
+
+    @Test
+    public void shouldGetIssuesUseConfiguredMaximumByDefault() {
+
+        // given
+        given(issueDAO.findAll(ISSUE_QUERY, MAX_RESULTS)).willReturn(issues);
+
+        // when
+        List<Issue> result = issueTracker.getIssues(ISSUE_QUERY);
+
+        // then
+        assertThat(result, equalTo(issues));
+    }
+
+    @Test
+    public void shouldGetIssuesCapRequestedLimit() {
+
+        // given
+        IssueQuery issueQuery = IssueQuery.parse("2024-01-01T00:00:00Z", null, "lcfa", 1000);
+        given(issueDAO.findAll(issueQuery, MAX_RESULTS)).willReturn(issues);
+
+        // when
+        List<Issue> result = issueTracker.getIssues(issueQuery);
+
+        // then
+        assertThat(result, equalTo(issues));
+    }
+
+    @Test
+    public void shouldGetIssuesThrowIllegalStateExceptionWhenIssueTrackingIsDisabled() {
+
+        // given
+        issueTrackingProperties.setEnabled(false);
+
+        // when
+        assertThrows(IllegalStateException.class, () -> issueTracker.getIssues(ISSUE_QUERY));
+
+        // then
+        verifyNoInteractions(issueDAO);
+    }
+
+    private static ThrowableProxyLogItem createException(String className) {
+
+        ThrowableProxyLogItem exception = new ThrowableProxyLogItem();
+        exception.setClassName(className);
+        exception.setMessage("failed");
+
+        return exception;
+    }
+
+    private LoggingEvent createLoggingEvent(ThrowableProxyLogItem exception, Date timeStamp, String source) {
+
+        LoggingEvent loggingEvent = new LoggingEvent();
+        loggingEvent.setException(exception);
+        loggingEvent.setTimeStamp(timeStamp);
+        loggingEvent.setSource(source);
+
+        return loggingEvent;
+    }
+}
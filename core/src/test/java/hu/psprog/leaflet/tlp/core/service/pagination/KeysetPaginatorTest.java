@@ -0,0 +1,301 @@
+package hu.psprog.leaflet.tlp.core.service.pagination;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.core.conversion.LoggingEventEntityToDomainConverter;
+import hu.psprog.leaflet.tlp.core.domain.LogCursor;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.exception.InvalidLogCursorException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit tests for {@link KeysetPaginator}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class KeysetPaginatorTest {
+
+    private static final QLoggingEvent LOGGING_EVENT = QLoggingEvent.loggingEvent;
+    private static final Sort SORT_DESC = Sort.by(Sort.Direction.DESC, "timeStamp", "id");
+    private static final Sort SORT_ASC = Sort.by(Sort.Direction.ASC, "timeStamp", "id");
+    private static final TotalCount TOTAL_COUNT = TotalCount.exact(10);
+    private static final Date TIMESTAMP_1 = new Date(3000L);
+    private static final Date TIMESTAMP_2 = new Date(2000L);
+    private static final Date TIMESTAMP_3 = new Date(1000L);
+    private static final LoggingEvent LOGGING_EVENT_1 = createLoggingEvent("64c7e2f0a1b2c3d4e5f60001", TIMESTAMP_1);
+    private static final LoggingEvent LOGGING_EVENT_2 = createLoggingEvent("64c7e2f0a1b2c3d4e5f60002", TIMESTAMP_2);
+    private static final LoggingEvent LOGGING_EVENT_3 = createLoggingEvent("64c7e2f0a1b2c3d4e5f60003", TIMESTAMP_3);
+    private static final LogCursor FORWARD_CURSOR = LogCursor.getBuilder()
+            .withSortDirection(Sort.Direction.DESC)
+            .withBackward(false)
+            .withPageNumber(3)
+            .withTimeStamp(TIMESTAMP_1)
+            .withId("64c7e2f0a1b2c3d4e5f60000")
+            .build();
+    private static final LogCursor BACKWARD_CURSOR = LogCursor.getBuilder()
+            .withSortDirection(Sort.Direction.DESC)
+            .withBackward(true)
+            .withPageNumber(2)
+            .withTimeStamp(TIMESTAMP_3)
+            .withId("64c7e2f0a1b2c3d4e5f60004")
+            .build();
+
+    @Mock
+    private LoggingEventEntityToDomainConverter loggingEventEntityToDomainConverter;
+
+    @InjectMocks
+    private KeysetPaginator keysetPaginator;
+
+    @Test
+    public void shouldCreateResultForOffsetPageAddCursorsOfNeighbouringPages() {
+
+        // given
+        PageImpl<LoggingEvent> page = new PageImpl<>(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2), PageRequest.of(1, 2, SORT_DESC), 10);
+        LogEventPage logEventPage = LogEventPage.getBuilder().build();
+
+        // when
+        LogEventQueryResult result = keysetPaginator.createResult(page, logEventPage, TOTAL_COUNT);
+
+        // then
+        assertThat(result.page(), equalTo(logEventPage));
+        assertThat(result.totalCount(), equalTo(TOTAL_COUNT));
+        assertThat(keysetPaginator.parseCursor(result.nextCursor(), SORT_DESC), equalTo(LogCursor.getBuilder()
+                .withSortDirection(Sort.Direction.DESC)
+                .withBackward(false)
+                .withPageNumber(3)
+                .withTimeStamp(TIMESTAMP_2)
+                .withId(LOGGING_EVENT_2.getId())
+                .build()));
+        assertThat(keysetPaginator.parseCursor(result.previousCursor(), SORT_DESC), equalTo(LogCursor.getBuilder()
+                .withSortDirection(Sort.Direction.DESC)
+                .withBackward(true)
+                .withPageNumber(1)
+                .withTimeStamp(TIMESTAMP_1)
+                .withId(LOGGING_EVENT_1.getId())
+                .build()));
+    }
+
+    @Test
+    public void shouldCreateResultForOffsetPageOmitCursorsOfMissingPages() {
+
+        // given
+        PageImpl<LoggingEvent> page = new PageImpl<>(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2), PageRequest.of(0, 2, SORT_DESC), 2);
+
+        // when
+        LogEventQueryResult result = keysetPaginator.createResult(page, LogEventPage.getBuilder().build(), TOTAL_COUNT);
+
+        // then
+        assertThat(result.nextCursor(), nullValue());
+        assertThat(result.previousCursor(), nullValue());
+    }
+
+    @Test
+    public void shouldCreateResultForOffsetPageOmitCursorsForNonTimestampOrdering() {
+
+        // given
+        PageImpl<LoggingEvent> page = new PageImpl<>(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2),
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.ASC, "level")), 10);
+
+        // when
+        LogEventQueryResult result = keysetPaginator.createResult(page, LogEventPage.getBuilder().build(), TOTAL_COUNT);
+
+        // then
+        assertThat(result.nextCursor(), nullValue());
+        assertThat(result.previousCursor(), nullValue());
+    }
+
+    @Test
+    public void shouldParseCursorRejectNonTimestampOrdering() {
+
+        // given
+        String cursor = createNextCursor();
+
+        // when
+        assertThrows(InvalidLogCursorException.class, () -> keysetPaginator.parseCursor(cursor, Sort.by(Sort.Direction.DESC, "content")));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldParseCursorRejectCursorOfDifferentOrdering() {
+
+        // given
+        String cursor = createNextCursor();
+
+        // when
+        assertThrows(InvalidLogCursorException.class, () -> keysetPaginator.parseCursor(cursor, SORT_ASC));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldParseCursorRejectMalformedCursor() {
+
+        // when
+        assertThrows(InvalidLogCursorException.class, () -> keysetPaginator.parseCursor("not-a-cursor!", SORT_DESC));
+        assertThrows(InvalidLogCursorException.class, () -> keysetPaginator.parseCursor("REVTQy5YLjEuMTAwMC5pZA", SORT_DESC));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldCreateSeekPredicateSelectEventsAfterForwardCursorInDescendingOrder() {
+
+        // given
+        Predicate expression = LOGGING_EVENT.source.eq("app");
+
+        // when
+        Predicate result = keysetPaginator.createSeekPredicate(Optional.of(expression), FORWARD_CURSOR);
+
+        // then
+        assertThat(result, equalTo(ExpressionUtils.and(expression, LOGGING_EVENT.timeStamp.lt(TIMESTAMP_1)
+                .or(LOGGING_EVENT.timeStamp.eq(TIMESTAMP_1).and(LOGGING_EVENT.id.lt(FORWARD_CURSOR.id()))))));
+    }
+
+    @Test
+    public void shouldCreateSeekPredicateSelectEventsBeforeBackwardCursorInDescendingOrder() {
+
+        // when
+        Predicate result = keysetPaginator.createSeekPredicate(Optional.empty(), BACKWARD_CURSOR);
+
+        // then
+        assertThat(result, equalTo(LOGGING_EVENT.timeStamp.gt(TIMESTAMP_3)
+                .or(LOGGING_EVENT.timeStamp.eq(TIMESTAMP_3).and(LOGGING_EVENT.id.gt(BACKWARD_CURSOR.id())))));
+    }
+
+    @Test
+    public void shouldCreateSeekSortKeepOrderingForForwardCursor() {
+
+        // when
+        Sort result = keysetPaginator.createSeekSort(FORWARD_CURSOR);
+
+        // then
+        assertThat(result, equalTo(SORT_DESC));
+    }
+
+    @Test
+    public void shouldCreateSeekSortReverseOrderingForBackwardCursor() {
+
+        // when
+        Sort result = keysetPaginator.createSeekSort(BACKWARD_CURSOR);
+
+        // then
+        assertThat(result, equalTo(SORT_ASC));
+    }
+
+    @Test
+    public void shouldCreateResultForForwardCursorPage() {
+
+        // given
+        List<hu.psprog.leaflet.tlp.api.domain.LoggingEvent> convertedEvents = List.of(hu.psprog.leaflet.tlp.api.domain.LoggingEvent.getBuilder().withContent("log1").build());
+        given(loggingEventEntityToDomainConverter.convertAll(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2))).willReturn(convertedEvents);
+
+        // when
+        LogEventQueryResult result = keysetPaginator.createResult(FORWARD_CURSOR, List.of(LOGGING_EVENT_1, LOGGING_EVENT_2, LOGGING_EVENT_3), 2, TotalCount.exact(9));
+
+        // then
+        assertThat(result.page(), equalTo(LogEventPage.getBuilder()
+                .withPageCount(5)
+                .withPageSize(2)
+                .withPageNumber(3)
+                .withEntityCount(9)
+                .withEntityCountOnPage(2)
+                .withFirst(false)
+                .withLast(false)
+                .withHasNext(true)
+                .withHasPrevious(true)
+                .withEntitiesOnPage(convertedEvents)
+                .build()));
+        assertThat(keysetPaginator.parseCursor(result.nextCursor(), SORT_DESC).id(), equalTo(LOGGING_EVENT_2.getId()));
+        assertThat(keysetPaginator.parseCursor(result.nextCursor(), SORT_DESC).pageNumber(), equalTo(4));
+        assertThat(keysetPaginator.parseCursor(result.previousCursor(), SORT_DESC).id(), equalTo(LOGGING_EVENT_1.getId()));
+        assertThat(keysetPaginator.parseCursor(result.previousCursor(), SORT_DESC).backward(), is(true));
+    }
+
+    @Test
+    public void shouldCreateResultForLastForwardCursorPage() {
+
+        // when
+        LogEventQueryResult result = keysetPaginator.createResult(FORWARD_CURSOR, List.of(LOGGING_EVENT_1), 2, TotalCount.exact(5));
+
+        // then
+        assertThat(result.page().last(), is(true));
+        assertThat(result.page().hasNext(), is(false));
+        assertThat(result.nextCursor(), nullValue());
+        assertThat(result.previousCursor(), notNullValue());
+    }
+
+    @Test
+    public void shouldCreateResultForCursorPageRaiseLowerBoundCountToKnownMinimum() {
+
+        // given
+        TotalCount totalCount = TotalCount.atLeast(0, "token");
+
+        // when
+        LogEventQueryResult result = keysetPaginator.createResult(FORWARD_CURSOR, List.of(LOGGING_EVENT_1, LOGGING_EVENT_2, LOGGING_EVENT_3), 2, totalCount);
+
+        // then
+        assertThat(result.page().entityCount(), equalTo(7L));
+        assertThat(result.page().pageCount(), equalTo(4));
+        assertThat(result.totalCount(), equalTo(totalCount));
+    }
+
+    @Test
+    public void shouldCreateResultForBackwardCursorPageRestoreOrderAndRecognizeFirstPage() {
+
+        // when
+        // events are retrieved in reverse order when paging backwards
+        LogEventQueryResult result = keysetPaginator.createResult(BACKWARD_CURSOR, List.of(LOGGING_EVENT_2, LOGGING_EVENT_1), 2, TotalCount.exact(5));
+
+        // then
+        assertThat(result.page().pageNumber(), equalTo(1));
+        assertThat(result.page().first(), is(true));
+        assertThat(result.page().hasPrevious(), is(false));
+        assertThat(result.page().hasNext(), is(true));
+        assertThat(result.previousCursor(), nullValue());
+        assertThat(keysetPaginator.parseCursor(result.nextCursor(), SORT_DESC).id(), equalTo(LOGGING_EVENT_2.getId()));
+        assertThat(keysetPaginator.parseCursor(result.nextCursor(), SORT_DESC).pageNumber(), equalTo(2));
+    }
+
+    private String createNextCursor() {
+        return keysetPaginator.createResult(new PageImpl<>(List.of(LOGGING_EVENT_1), PageRequest.of(0, 1, SORT_DESC), 10),
+                LogEventPage.getBuilder().build(), TOTAL_COUNT).nextCursor();
+    }
+
+    private static LoggingEvent createLoggingEvent(String id, Date timeStamp) {
+
+        LoggingEvent loggingEvent = LoggingEvent.getBuilder()
+                .withTimeStamp(timeStamp.getTime())
+                .build();
+        loggingEvent.setId(id);
+
+        return loggingEvent;
+    }
+}
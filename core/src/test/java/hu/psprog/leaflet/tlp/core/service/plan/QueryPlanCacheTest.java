@@ -0,0 +1,214 @@
+package hu.psprog.leaflet.tlp.core.service.plan;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryPlanCacheProperties;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.service.qdsl.expression.builder.ExpressionBuilder;
+import hu.psprog.leaflet.tlp.core.service.qdsl.expression.optimizer.PredicateOptimizer;
+import hu.psprog.leaflet.tlql.ir.DSLQueryModel;
+import hu.psprog.leaflet.tlql.processor.TLQLProcessorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link QueryPlanCache}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class QueryPlanCacheTest {
+
+    private static final String QUERY = "search with conditions source = 'lcfa'";
+    private static final DSLQueryModel DSL_QUERY_MODEL = new DSLQueryModel();
+    private static final Pageable PAGEABLE = PageRequest.of(0, 10);
+
+    @Mock
+    private TLQLProcessorService tlqlProcessorService;
+
+    @Mock
+    private ExpressionBuilder expressionBuilder;
+
+    @Mock
+    private PredicateOptimizer predicateOptimizer;
+
+    @Mock
+    private ConversionService conversionService;
+
+    @Mock
+    private Predicate predicate;
+
+    @Mock
+    private Predicate optimizedPredicate;
+
+    @Test
+    public void shouldGetCompileQueryOnlyOnce() {
+
+        // given
+        QueryPlanCache queryPlanCache = createCache(true, 16);
+        givenCompilableQueries();
+
+        // when
+        QueryPlan result1 = queryPlanCache.get(QUERY);
+        QueryPlan result2 = queryPlanCache.get(QUERY);
+
+        // then
+        assertThat(result1, equalTo(new QueryPlan(Optional.of(optimizedPredicate), PAGEABLE)));
+        assertThat(result2, sameInstance(result1));
+        verify(tlqlProcessorService).parse(QUERY);
+        verify(expressionBuilder).build(DSL_QUERY_MODEL);
+    }
+
+    @Test
+    public void shouldGetShareCachedPlanForDifferentlyFormattedQueries() {
+
+        // given
+        QueryPlanCache queryPlanCache = createCache(true, 16);
+        givenCompilableQueries();
+
+        // when
+        QueryPlan result1 = queryPlanCache.get(QUERY);
+        QueryPlan result2 = queryPlanCache.get("  search   with\n\tconditions source =  'lcfa' ");
+
+        // then
+        assertThat(result2, sameInstance(result1));
+        verify(tlqlProcessorService, times(1)).parse(anyString());
+    }
+
+    @Test
+    public void shouldGetKeepWhitespaceInsideQuotedLiterals() {
+
+        // given
+        QueryPlanCache queryPlanCache = createCache(true, 16);
+        givenCompilableQueries();
+
+        // when
+        queryPlanCache.get("search with conditions message = 'a  b'");
+        queryPlanCache.get("search with conditions message = 'a b'");
+
+        // then
+        verify(tlqlProcessorService, times(2)).parse(anyString());
+        assertThat(queryPlanCache.size(), equalTo(2));
+    }
+
+    @Test
+    public void shouldGetEvictLeastRecentlyUsedPlan() {
+
+        // given
+        QueryPlanCache queryPlanCache = createCache(true, 2);
+        givenCompilableQueries();
+        queryPlanCache.get("query 1");
+        queryPlanCache.get("query 2");
+        queryPlanCache.get("query 1");
+
+        // when
+        queryPlanCache.get("query 3");
+        queryPlanCache.get("query 1");
+        queryPlanCache.get("query 2");
+
+        // then
+        assertThat(queryPlanCache.size(), equalTo(2));
+        verify(tlqlProcessorService, times(1)).parse("query 1");
+        verify(tlqlProcessorService, times(2)).parse("query 2");
+    }
+
+    @Test
+    public void shouldGetCompileEveryTimeWhenDisabled() {
+
+        // given
+        QueryPlanCache queryPlanCache = createCache(false, 16);
+        givenCompilableQueries();
+
+        // when
+        queryPlanCache.get(QUERY);
+        queryPlanCache.get(QUERY);
+
+        // then
+        verify(tlqlProcessorService, times(2)).parse(QUERY);
+        assertThat(queryPlanCache.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldGetNotCacheUnparsableQuery() {
+
+        // given
+        QueryPlanCache queryPlanCache = createCache(true, 16);
+        given(tlqlProcessorService.parse(QUERY)).willThrow(IllegalArgumentException.class);
+
+        // when
+        Assertions.assertThrows(IllegalArgumentException.class, () -> queryPlanCache.get(QUERY));
+
+        // then
+        assertThat(queryPlanCache.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldCompileQueryModel() {
+
+        // given
+        QueryPlanCache queryPlanCache = createCache(true, 16);
+        given(expressionBuilder.build(DSL_QUERY_MODEL)).willReturn(Optional.empty());
+        given(conversionService.convert(DSL_QUERY_MODEL, Pageable.class)).willReturn(PAGEABLE);
+
+        // when
+        QueryPlan result = queryPlanCache.compile(DSL_QUERY_MODEL);
+
+        // then
+        assertThat(result, equalTo(new QueryPlan(Optional.empty(), PAGEABLE)));
+        assertThat(queryPlanCache.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldBindMetrics() {
+
+        // given
+        QueryPlanCache queryPlanCache = createCache(true, 1);
+        givenCompilableQueries();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        queryPlanCache.bindTo(meterRegistry);
+
+        // when
+        queryPlanCache.get("query 1");
+        queryPlanCache.get("query 1");
+        queryPlanCache.get("query 2");
+
+        // then
+        assertThat(meterRegistry.get("tlp.query.plan-cache.requests").tag("result", "hit").functionCounter().count(), equalTo(1.0));
+        assertThat(meterRegistry.get("tlp.query.plan-cache.requests").tag("result", "miss").functionCounter().count(), equalTo(2.0));
+        assertThat(meterRegistry.get("tlp.query.plan-cache.evictions").functionCounter().count(), equalTo(1.0));
+        assertThat(meterRegistry.get("tlp.query.plan-cache.size").gauge().value(), equalTo(1.0));
+    }
+
+    private void givenCompilableQueries() {
+        given(tlqlProcessorService.parse(anyString())).willReturn(DSL_QUERY_MODEL);
+        given(expressionBuilder.build(DSL_QUERY_MODEL)).willReturn(Optional.of(predicate));
+        given(predicateOptimizer.optimize(predicate)).willReturn(optimizedPredicate);
+        given(conversionService.convert(any(DSLQueryModel.class), any(Class.class))).willReturn(PAGEABLE);
+    }
+
+    private QueryPlanCache createCache(boolean enabled, int capacity) {
+
+        QueryPlanCacheProperties queryPlanCacheProperties = new QueryPlanCacheProperties();
+        queryPlanCacheProperties.setEnabled(enabled);
+        queryPlanCacheProperties.setCapacity(capacity);
+
+        return new QueryPlanCache(tlqlProcessorService, expressionBuilder, predicateOptimizer, conversionService, queryPlanCacheProperties);
+    }
+}
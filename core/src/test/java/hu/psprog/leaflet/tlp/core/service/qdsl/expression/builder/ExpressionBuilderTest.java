@@ -3,6 +3,8 @@ package hu.psprog.leaflet.tlp.core.service.qdsl.expression.builder;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import hu.psprog.leaflet.tlp.core.config.StackTraceDeduplicationProperties;
+import hu.psprog.leaflet.tlp.core.config.TextSearchProperties;
 import hu.psprog.leaflet.tlp.core.domain.ExpressionStrategyGroup;
 import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
 import hu.psprog.leaflet.tlp.core.service.qdsl.expression.strategy.ExpressionStrategy;
@@ -11,6 +13,7 @@ import hu.psprog.leaflet.tlql.ir.DSLConditionGroup;
 import hu.psprog.leaflet.tlql.ir.DSLLogicalOperator;
 import hu.psprog.leaflet.tlql.ir.DSLObject;
 import hu.psprog.leaflet.tlql.ir.DSLObjectContext;
+import hu.psprog.leaflet.tlql.ir.DSLOperator;
 import hu.psprog.leaflet.tlql.ir.DSLQueryModel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,13 +23,17 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 /**
  * Unit tests for {@link ExpressionBuilder}.
@@ -40,6 +47,7 @@ public class ExpressionBuilderTest {
     private static final BooleanExpression CONTENT_EXPRESSION = Q_LOGGING_EVENT.content.eq("test-content");
     private static final BooleanExpression SOURCE_EXPRESSION = Q_LOGGING_EVENT.source.eq("test-source");
     private static final BooleanExpression TIMESTAMP_EXPRESSION = Q_LOGGING_EVENT.timeStamp.eq(new Date());
+    private static final BooleanExpression FULL_TEXT_EXPRESSION = Q_LOGGING_EVENT.content.eq("test-full-text");
 
     @Mock(strictness = Mock.Strictness.LENIENT)
     private ExpressionStrategy textConditionExpressionStrategy;
@@ -47,7 +55,11 @@ public class ExpressionBuilderTest {
     @Mock(strictness = Mock.Strictness.LENIENT)
     private ExpressionStrategy timestampConditionExpressionStrategy;
 
+    @Mock(strictness = Mock.Strictness.LENIENT)
+    private ExpressionStrategy fullTextSearchConditionExpressionStrategy;
+
     private ExpressionBuilder expressionBuilder;
+    private ExpressionBuilder rewritingExpressionBuilder;
 
     @BeforeEach
     public void setup() {
@@ -58,8 +70,36 @@ public class ExpressionBuilderTest {
         given(timestampConditionExpressionStrategy.applyStrategy(any(), any()))
                 .willReturn(TIMESTAMP_EXPRESSION);
         given(timestampConditionExpressionStrategy.forGroup()).willReturn(ExpressionStrategyGroup.TIMESTAMP_CONDITION);
+        given(fullTextSearchConditionExpressionStrategy.applyStrategy(any(), any()))
+                .willReturn(FULL_TEXT_EXPRESSION);
+        given(fullTextSearchConditionExpressionStrategy.forGroup()).willReturn(ExpressionStrategyGroup.FULL_TEXT_CONDITION);
+
+        List<ExpressionStrategy> expressionStrategyList = Arrays.asList(textConditionExpressionStrategy,
+                timestampConditionExpressionStrategy, fullTextSearchConditionExpressionStrategy);
+        TextSearchProperties rewritingTextSearchProperties = new TextSearchProperties();
+        rewritingTextSearchProperties.setRewriteLike(true);
+
+        expressionBuilder = new ExpressionBuilder(expressionStrategyList, new TextSearchProperties(), new StackTraceDeduplicationProperties());
+        rewritingExpressionBuilder = new ExpressionBuilder(expressionStrategyList, rewritingTextSearchProperties,
+                new StackTraceDeduplicationProperties());
+    }
+
+    @Test
+    public void shouldRejectFullTextSearchRewriteWithStackTraceDeduplication() {
+
+        // given
+        TextSearchProperties textSearchProperties = new TextSearchProperties();
+        textSearchProperties.setRewriteLike(true);
+        StackTraceDeduplicationProperties stackTraceDeduplicationProperties = new StackTraceDeduplicationProperties();
+        stackTraceDeduplicationProperties.setEnabled(true);
+        List<ExpressionStrategy> expressionStrategyList = List.of(textConditionExpressionStrategy);
+
+        // when
+        assertThrows(IllegalStateException.class,
+                () -> new ExpressionBuilder(expressionStrategyList, textSearchProperties, stackTraceDeduplicationProperties));
 
-        expressionBuilder = new ExpressionBuilder(Arrays.asList(textConditionExpressionStrategy, timestampConditionExpressionStrategy));
+        // then
+        // exception expected
     }
 
     @Test
@@ -159,6 +199,86 @@ public class ExpressionBuilderTest {
         assertThat(result.isPresent(), is(false));
     }
 
+    @Test
+    public void shouldRewriteMessageLikeConditionToFullTextSearch() {
+
+        // given
+        DSLQueryModel dslQueryModel = prepareDSLQueryModel(2, DSLLogicalOperator.AND);
+        addCondition(dslQueryModel, 0, DSLObject.SOURCE, DSLOperator.EQUALS, DSLLogicalOperator.AND);
+        addCondition(dslQueryModel, 0, DSLObject.MESSAGE, DSLOperator.LIKE, null);
+        addCondition(dslQueryModel, 1, DSLObject.TIMESTAMP);
+        Predicate expectedPredicate = new BooleanBuilder()
+                .and(new BooleanBuilder()
+                        .and(CONTENT_EXPRESSION)
+                        .and(FULL_TEXT_EXPRESSION))
+                .and(TIMESTAMP_EXPRESSION)
+                .getValue();
+
+        // when
+        Optional<Predicate> result = rewritingExpressionBuilder.build(dslQueryModel);
+
+        // then
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get().toString(), equalTo(expectedPredicate.toString()));
+    }
+
+    @Test
+    public void shouldRewriteOnlyFirstMessageLikeCondition() {
+
+        // given
+        DSLQueryModel dslQueryModel = prepareDSLQueryModel(1);
+        addCondition(dslQueryModel, 0, DSLObject.MESSAGE, DSLOperator.LIKE, DSLLogicalOperator.AND);
+        addCondition(dslQueryModel, 0, DSLObject.MESSAGE, DSLOperator.LIKE, null);
+        Predicate expectedPredicate = new BooleanBuilder()
+                .and(FULL_TEXT_EXPRESSION)
+                .and(CONTENT_EXPRESSION)
+                .getValue();
+
+        // when
+        Optional<Predicate> result = rewritingExpressionBuilder.build(dslQueryModel);
+
+        // then
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get().toString(), equalTo(expectedPredicate.toString()));
+    }
+
+    @Test
+    public void shouldNotRewriteMessageLikeConditionInDisjunctiveQuery() {
+
+        // given
+        DSLQueryModel dslQueryModel = prepareDSLQueryModel(1);
+        addCondition(dslQueryModel, 0, DSLObject.MESSAGE, DSLOperator.LIKE, DSLLogicalOperator.OR);
+        addCondition(dslQueryModel, 0, DSLObject.SOURCE, DSLOperator.EQUALS, null);
+        Predicate expectedPredicate = new BooleanBuilder()
+                .and(CONTENT_EXPRESSION)
+                .or(SOURCE_EXPRESSION)
+                .getValue();
+
+        // when
+        Optional<Predicate> result = rewritingExpressionBuilder.build(dslQueryModel);
+
+        // then
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get().toString(), equalTo(expectedPredicate.toString()));
+        verify(fullTextSearchConditionExpressionStrategy, never()).applyStrategy(any(), any());
+    }
+
+    @Test
+    public void shouldNotRewriteMessageLikeConditionIfDisabled() {
+
+        // given
+        DSLQueryModel dslQueryModel = prepareDSLQueryModel(1);
+        addCondition(dslQueryModel, 0, DSLObject.MESSAGE, DSLOperator.LIKE, null);
+
+        // when
+        Optional<Predicate> result = expressionBuilder.build(dslQueryModel);
+
+        // then
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get().toString(), equalTo(CONTENT_EXPRESSION.toString()));
+        verify(fullTextSearchConditionExpressionStrategy, never()).applyStrategy(any(), any());
+    }
+
     private DSLQueryModel prepareDSLQueryModel(int numberOfGroups) {
         return prepareDSLQueryModel(numberOfGroups, null);
     }
@@ -182,9 +302,15 @@ public class ExpressionBuilderTest {
     }
 
     private void addCondition(DSLQueryModel dslQueryModel, int groupIndex, DSLObject object, DSLLogicalOperator nextOperator) {
+        addCondition(dslQueryModel, groupIndex, object, null, nextOperator);
+    }
+
+    private void addCondition(DSLQueryModel dslQueryModel, int groupIndex, DSLObject object, DSLOperator operator,
+                              DSLLogicalOperator nextOperator) {
 
         DSLCondition dslCondition = new DSLCondition();
         dslCondition.setObjectContext(new DSLObjectContext(object, null));
+        dslCondition.setOperator(operator);
         dslCondition.setNextConditionOperator(nextOperator);
 
         dslQueryModel.getConditionGroups().get(groupIndex).getConditions().add(dslCondition);
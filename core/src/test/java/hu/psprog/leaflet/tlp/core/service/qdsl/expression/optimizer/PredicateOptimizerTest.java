@@ -0,0 +1,216 @@
+package hu.psprog.leaflet.tlp.core.service.qdsl.expression.optimizer;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import hu.psprog.leaflet.tlp.core.config.QueryOptimizerProperties;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlp.core.service.qdsl.expression.strategy.impl.FullTextSearchExpression;
+import org.bson.BsonRegularExpression;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ExecutableFindOperation;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.repository.support.SpringDataMongodbQuery;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link PredicateOptimizer}.
+ * The corpus of TLQL queries lists the expressions built by {@link hu.psprog.leaflet.tlp.core.service.qdsl.expression.builder.ExpressionBuilder}
+ * for each query, along with the expected optimized expression, and compares the MongoDB filters rendered before and after optimization.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class PredicateOptimizerTest {
+
+    private static final QLoggingEvent EVENT = new QLoggingEvent("event");
+    private static final Timestamp JANUARY = Timestamp.valueOf("2024-01-01 00:00:00");
+    private static final Timestamp FEBRUARY = Timestamp.valueOf("2024-02-01 00:00:00");
+    private static final Timestamp MARCH = Timestamp.valueOf("2024-03-01 00:00:00");
+    private static final Timestamp APRIL = Timestamp.valueOf("2024-04-01 00:00:00");
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    private PredicateOptimizer predicateOptimizer;
+
+    @BeforeEach
+    public void setup() {
+        predicateOptimizer = new PredicateOptimizer(new QueryOptimizerProperties());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queryCorpusProvider")
+    public void shouldOptimizeQueryCorpus(String query, Predicate builtExpression, Predicate expectedExpression) {
+
+        // given
+        givenQueryMapping();
+        String originalFilter = renderFilter(builtExpression);
+
+        // when
+        Predicate result = predicateOptimizer.optimize(builtExpression);
+
+        // then
+        assertThat(result.toString(), equalTo(expectedExpression.toString()));
+        assertThat(renderFilter(result), equalTo(renderFilter(expectedExpression)));
+        assertThat(renderFilter(result), not(equalTo(originalFilter)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("unchangedQueryCorpusProvider")
+    public void shouldOptimizeKeepAlreadyOptimalExpressions(String query, Predicate builtExpression) {
+
+        // when
+        Predicate result = predicateOptimizer.optimize(builtExpression);
+
+        // then
+        assertThat(result.toString(), equalTo(builtExpression.toString()));
+    }
+
+    @Test
+    public void shouldOptimizeReturnGivenExpressionWhenDisabled() {
+
+        // given
+        QueryOptimizerProperties queryOptimizerProperties = new QueryOptimizerProperties();
+        queryOptimizerProperties.setEnabled(false);
+        PredicateOptimizer disabledPredicateOptimizer = new PredicateOptimizer(queryOptimizerProperties);
+        Predicate builtExpression = group(EVENT.source.equalsIgnoreCase("lcfa").or(EVENT.source.equalsIgnoreCase("lsas")));
+
+        // when
+        Predicate result = disabledPredicateOptimizer.optimize(builtExpression);
+
+        // then
+        assertThat(result, sameInstance(builtExpression));
+    }
+
+    private static Stream<Arguments> queryCorpusProvider() {
+
+        return Stream.of(
+                Arguments.of("source = 'lcfa' or source = 'lsas'",
+                        group(group(EVENT.source.equalsIgnoreCase("lcfa")).or(EVENT.source.equalsIgnoreCase("lsas"))),
+                        in(EVENT.source, caseInsensitive("lcfa"), caseInsensitive("lsas"))),
+                Arguments.of("source in ('lcfa', 'lsas') or source in ('lsas', 'lags')",
+                        group(EVENT.source.in("lcfa", "lsas").or(EVENT.source.in("lsas", "lags"))),
+                        in(EVENT.source, "lcfa", "lsas", "lags")),
+                Arguments.of("level in ('ERROR') or level = 'warn' or message like 'timeout'",
+                        group(EVENT.level.in("ERROR").or(EVENT.level.equalsIgnoreCase("warn")).or(EVENT.content.containsIgnoreCase("timeout"))),
+                        in(EVENT.level, "ERROR", caseInsensitive("warn")).or(EVENT.content.containsIgnoreCase("timeout"))),
+                Arguments.of("context.requestId = 'r1' or context.requestId = 'r2'",
+                        group(EVENT.context.contains("requestId", "r1").or(EVENT.context.contains("requestId", "r2"))),
+                        in(EVENT.context.get("requestId"), "r1", "r2")),
+                Arguments.of("timestamp > '2024-01-01' and timestamp >= '2024-02-01' and timestamp < '2024-04-01' and timestamp <= '2024-03-01'",
+                        group(EVENT.timeStamp.gt(JANUARY).and(EVENT.timeStamp.goe(FEBRUARY)).and(EVENT.timeStamp.lt(APRIL))
+                                .and(EVENT.timeStamp.loe(MARCH))),
+                        EVENT.timeStamp.goe(FEBRUARY).and(EVENT.timeStamp.loe(MARCH))),
+                Arguments.of("(timestamp between ['2024-01-01', '2024-03-01']) and (timestamp > '2024-02-01' and timestamp < '2024-04-01')",
+                        new BooleanBuilder()
+                                .and(group(EVENT.timeStamp.goe(JANUARY).and(EVENT.timeStamp.loe(MARCH))))
+                                .and(group(EVENT.timeStamp.gt(FEBRUARY).and(EVENT.timeStamp.lt(APRIL)))),
+                        EVENT.timeStamp.gt(FEBRUARY).and(EVENT.timeStamp.loe(MARCH))),
+                Arguments.of("timestamp >= '2024-02-01' and timestamp > '2024-02-01'",
+                        group(EVENT.timeStamp.goe(FEBRUARY).and(EVENT.timeStamp.gt(FEBRUARY))),
+                        EVENT.timeStamp.gt(FEBRUARY)),
+                Arguments.of("level != 'debug' and level != 'trace'",
+                        group(EVENT.level.notEqualsIgnoreCase("debug").and(EVENT.level.notEqualsIgnoreCase("trace"))),
+                        notIn(EVENT.level, caseInsensitive("debug"), caseInsensitive("trace"))),
+                Arguments.of("source none ('lags') and source != 'lsas'",
+                        group(EVENT.source.notIn("lags").and(EVENT.source.notEqualsIgnoreCase("lsas"))),
+                        notIn(EVENT.source, "lags", caseInsensitive("lsas"))),
+                Arguments.of("message like 'failed' and level != 'debug' and timestamp > '2024-01-01' and source = 'lcfa' and level in ('ERROR')",
+                        group(EVENT.content.containsIgnoreCase("failed").and(EVENT.level.notEqualsIgnoreCase("debug"))
+                                .and(EVENT.timeStamp.gt(JANUARY)).and(EVENT.source.equalsIgnoreCase("lcfa")).and(EVENT.level.in("ERROR"))),
+                        EVENT.level.in("ERROR").and(EVENT.timeStamp.gt(JANUARY)).and(EVENT.source.equalsIgnoreCase("lcfa"))
+                                .and(EVENT.content.containsIgnoreCase("failed")).and(EVENT.level.notEqualsIgnoreCase("debug"))),
+                Arguments.of("level != 'debug' and message like 'failed' (with full-text search rewrite)",
+                        group(EVENT.level.notEqualsIgnoreCase("debug").and(new FullTextSearchExpression("failed"))),
+                        ExpressionUtils.and(new FullTextSearchExpression("failed"), EVENT.level.notEqualsIgnoreCase("debug"))),
+                Arguments.of("(source = 'lcfa' and level = 'error') or (source = 'lcfa' and level = 'error') or (source = 'lsas')",
+                        new BooleanBuilder()
+                                .and(group(EVENT.source.equalsIgnoreCase("lcfa").and(EVENT.level.equalsIgnoreCase("error"))))
+                                .or(group(EVENT.source.equalsIgnoreCase("lcfa").and(EVENT.level.equalsIgnoreCase("error"))))
+                                .or(group(EVENT.source.equalsIgnoreCase("lsas"))),
+                        EVENT.source.equalsIgnoreCase("lcfa").and(EVENT.level.equalsIgnoreCase("error")).or(EVENT.source.equalsIgnoreCase("lsas"))),
+                Arguments.of("(source = 'lcfa' or source = 'lsas') and (level = 'error' or level = 'warn') and timestamp >= '2024-01-01' and timestamp >= '2024-02-01'",
+                        new BooleanBuilder()
+                                .and(group(EVENT.source.equalsIgnoreCase("lcfa").or(EVENT.source.equalsIgnoreCase("lsas"))))
+                                .and(group(EVENT.level.equalsIgnoreCase("error").or(EVENT.level.equalsIgnoreCase("warn"))))
+                                .and(group(EVENT.timeStamp.goe(JANUARY).and(EVENT.timeStamp.goe(FEBRUARY)))),
+                        EVENT.timeStamp.goe(FEBRUARY)
+                                .and(in(EVENT.source, caseInsensitive("lcfa"), caseInsensitive("lsas")))
+                                .and(in(EVENT.level, caseInsensitive("error"), caseInsensitive("warn")))),
+                Arguments.of("context none of requestId ('r1', 'r2') and context.requestId != 'r3'",
+                        group(EVENT.context.contains("requestId", "r1").or(EVENT.context.contains("requestId", "r2")).not()
+                                .and(EVENT.context.contains("requestId", "r3").not())),
+                        notIn(EVENT.context.get("requestId"), "r1", "r2", "r3"))
+        );
+    }
+
+    private static Stream<Arguments> unchangedQueryCorpusProvider() {
+
+        return Stream.of(
+                Arguments.of("source = 'lcfa'", EVENT.source.equalsIgnoreCase("lcfa")),
+                Arguments.of("source = 'lcfa' or level = 'error'", EVENT.source.equalsIgnoreCase("lcfa").or(EVENT.level.equalsIgnoreCase("error"))),
+                Arguments.of("source in ('lcfa') and timestamp > '2024-01-01' and timestamp < '2024-02-01'",
+                        EVENT.source.in("lcfa").and(EVENT.timeStamp.gt(JANUARY)).and(EVENT.timeStamp.lt(FEBRUARY))),
+                Arguments.of("level != 'debug' or level != 'trace'", EVENT.level.notEqualsIgnoreCase("debug").or(EVENT.level.notEqualsIgnoreCase("trace"))),
+                Arguments.of("message like 'failed' or message like 'timeout'",
+                        EVENT.content.containsIgnoreCase("failed").or(EVENT.content.containsIgnoreCase("timeout")))
+        );
+    }
+
+    private static BooleanBuilder group(Predicate predicate) {
+        return new BooleanBuilder().and(predicate);
+    }
+
+    private static BooleanExpression in(Path<?> path, Object... values) {
+        return Expressions.booleanOperation(Ops.IN, path, ConstantImpl.create(List.of(values)));
+    }
+
+    private static BooleanExpression notIn(Path<?> path, Object... values) {
+        return Expressions.booleanOperation(Ops.NOT_IN, path, ConstantImpl.create(List.of(values)));
+    }
+
+    private static BsonRegularExpression caseInsensitive(String value) {
+        return new BsonRegularExpression("^\\Q" + value + "\\E$", "i");
+    }
+
+    private void givenQueryMapping() {
+        given(mongoOperations.getConverter()).willReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        given(mongoOperations.query(LoggingEvent.class)).willReturn(mock(ExecutableFindOperation.ExecutableFind.class, RETURNS_DEEP_STUBS));
+    }
+
+    private String renderFilter(Predicate predicate) {
+
+        return new SpringDataMongodbQuery<LoggingEvent>(mongoOperations, LoggingEvent.class)
+                .where(predicate)
+                .asDocument()
+                .toString();
+    }
+}
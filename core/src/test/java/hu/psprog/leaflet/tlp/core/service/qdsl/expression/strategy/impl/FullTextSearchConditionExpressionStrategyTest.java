@@ -0,0 +1,130 @@
+package hu.psprog.leaflet.tlp.core.service.qdsl.expression.strategy.impl;
+
+import com.mongodb.DBRef;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.mongodb.document.MongodbDocumentSerializer;
+import hu.psprog.leaflet.tlp.core.domain.ExpressionStrategyGroup;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlql.ir.DSLCondition;
+import hu.psprog.leaflet.tlql.ir.DSLObject;
+import hu.psprog.leaflet.tlql.ir.DSLObjectContext;
+import hu.psprog.leaflet.tlql.ir.DSLOperator;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link FullTextSearchConditionExpressionStrategy} and {@link FullTextSearchExpression}.
+ *
+ * @author Peter Smith
+ */
+class FullTextSearchConditionExpressionStrategyTest {
+
+    private static final QLoggingEvent EVENT = new QLoggingEvent("event");
+
+    private final MongodbDocumentSerializer serializer = new MongodbDocumentSerializer() {
+
+        @Override
+        protected DBRef asReference(Object constant) {
+            return null;
+        }
+
+        @Override
+        protected boolean isReference(Path<?> arg) {
+            return false;
+        }
+    };
+
+    private FullTextSearchConditionExpressionStrategy fullTextSearchConditionExpressionStrategy;
+
+    @BeforeEach
+    public void setup() {
+        fullTextSearchConditionExpressionStrategy = new FullTextSearchConditionExpressionStrategy();
+    }
+
+    @Test
+    public void shouldApplyStrategyCreatePhraseSearchExpression() {
+
+        // given
+        DSLCondition dslCondition = prepareDSLCondition("connection refused");
+
+        // when
+        BooleanExpression result = fullTextSearchConditionExpressionStrategy.applyStrategy(EVENT, dslCondition);
+
+        // then
+        assertThat(serializer.handle(result), equalTo(textQuery("\"connection refused\"")));
+        assertThat(result, equalTo(new FullTextSearchExpression("connection refused")));
+    }
+
+    @Test
+    public void shouldApplyStrategyRemovePhraseDelimiterFromSearchString() {
+
+        // given
+        DSLCondition dslCondition = prepareDSLCondition("user \"admin\"");
+
+        // when
+        BooleanExpression result = fullTextSearchConditionExpressionStrategy.applyStrategy(EVENT, dslCondition);
+
+        // then
+        assertThat(serializer.handle(result), equalTo(textQuery("\"user  admin \"")));
+    }
+
+    @Test
+    public void shouldExpressionMergeIntoConjunctiveQuery() {
+
+        // given
+        BooleanBuilder expression = new BooleanBuilder()
+                .and(EVENT.source.eq("app"))
+                .and(fullTextSearchConditionExpressionStrategy.applyStrategy(EVENT, prepareDSLCondition("timeout")));
+
+        // when
+        Object result = serializer.handle(expression);
+
+        // then
+        assertThat(result, equalTo(new Document("source", "app")
+                .append("$text", new Document("$search", "\"timeout\""))));
+    }
+
+    @Test
+    public void shouldExpressionRejectNegation() {
+
+        // given
+        BooleanExpression expression = fullTextSearchConditionExpressionStrategy.applyStrategy(EVENT, prepareDSLCondition("timeout"));
+
+        // when
+        assertThrows(UnsupportedOperationException.class, expression::not);
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldReturnFullTextConditionGroup() {
+
+        // when
+        ExpressionStrategyGroup result = fullTextSearchConditionExpressionStrategy.forGroup();
+
+        // then
+        assertThat(result, equalTo(ExpressionStrategyGroup.FULL_TEXT_CONDITION));
+    }
+
+    private DSLCondition prepareDSLCondition(String value) {
+
+        DSLCondition dslCondition = new DSLCondition();
+        dslCondition.setObjectContext(new DSLObjectContext(DSLObject.MESSAGE, null));
+        dslCondition.setOperator(DSLOperator.LIKE);
+        dslCondition.setValue(value);
+
+        return dslCondition;
+    }
+
+    private Document textQuery(String searchString) {
+        return new Document("$text", new Document("$search", searchString));
+    }
+}
@@ -0,0 +1,211 @@
+package hu.psprog.leaflet.tlp.core.service.ratelimit;
+
+import hu.psprog.leaflet.tlp.core.config.RateLimitProperties;
+import hu.psprog.leaflet.tlp.core.domain.FilteredBatch;
+import hu.psprog.leaflet.tlp.core.persistence.dao.DroppedEventCounterDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link IngestRateLimiter}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class IngestRateLimiterTest {
+
+    private static final String SOURCE_1 = "app-1";
+    private static final String SOURCE_2 = "app-2";
+    private static final String LEVEL_ERROR = "ERROR";
+    private static final String LEVEL_DEBUG = "DEBUG";
+
+    @Mock
+    private DroppedEventCounterDAO droppedEventCounterDAO;
+
+    private final AtomicLong nanoClock = new AtomicLong();
+
+    private RateLimitProperties rateLimitProperties;
+
+    @BeforeEach
+    public void setup() {
+        rateLimitProperties = new RateLimitProperties();
+        rateLimitProperties.setEnabled(true);
+        rateLimitProperties.setEventsPerSecond(1);
+        rateLimitProperties.setBurst(3);
+    }
+
+    @Test
+    public void shouldTryAcquireAcceptEverythingWhenDisabled() {
+
+        // given
+        rateLimitProperties.setEnabled(false);
+        IngestRateLimiter ingestRateLimiter = createRateLimiter();
+
+        // when
+        long accepted = IntStream.range(0, 100)
+                .filter(index -> ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR))
+                .count();
+
+        // then
+        assertThat(accepted, equalTo(100L));
+    }
+
+    @Test
+    public void shouldTryAcquireLimitSourcesIndependently() {
+
+        // given
+        IngestRateLimiter ingestRateLimiter = createRateLimiter();
+        IntStream.range(0, 10).forEach(index -> ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR));
+
+        // when
+        boolean resultSource1 = ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR);
+        boolean resultSource2 = ingestRateLimiter.tryAcquire(SOURCE_2, LEVEL_ERROR);
+
+        // then
+        assertThat(resultSource1, is(false));
+        assertThat(resultSource2, is(true));
+    }
+
+    @Test
+    public void shouldTryAcquireUseSourceSpecificLimit() {
+
+        // given
+        RateLimitProperties.SourceLimit sourceLimit = new RateLimitProperties.SourceLimit();
+        sourceLimit.setEventsPerSecond(1);
+        sourceLimit.setBurst(10);
+        rateLimitProperties.setSources(Map.of(SOURCE_2, sourceLimit));
+        IngestRateLimiter ingestRateLimiter = createRateLimiter();
+
+        // when
+        long acceptedSource1 = IntStream.range(0, 20)
+                .filter(index -> ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR))
+                .count();
+        long acceptedSource2 = IntStream.range(0, 20)
+                .filter(index -> ingestRateLimiter.tryAcquire(SOURCE_2, LEVEL_ERROR))
+                .count();
+
+        // then
+        assertThat(acceptedSource1, equalTo(3L));
+        assertThat(acceptedSource2, equalTo(10L));
+    }
+
+    @Test
+    public void shouldTryAcquireShedReservedLevelsFirst() {
+
+        // given
+        rateLimitProperties.setBurst(10);
+        IngestRateLimiter ingestRateLimiter = new IngestRateLimiter(droppedEventCounterDAO, rateLimitProperties, nanoClock::get, () -> 0.99);
+        IntStream.range(0, 6).forEach(index -> ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR));
+
+        // when
+        boolean resultDebug = ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_DEBUG);
+        boolean resultError = ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR);
+
+        // then
+        assertThat(resultDebug, is(false));
+        assertThat(resultError, is(true));
+    }
+
+    @Test
+    public void shouldTryAcquireShareOverflowBucketOverMaxTrackedSources() {
+
+        // given
+        rateLimitProperties.setMaxTrackedSources(1);
+        IngestRateLimiter ingestRateLimiter = createRateLimiter();
+        ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR);
+        IntStream.range(0, 3).forEach(index -> ingestRateLimiter.tryAcquire("app-" + (index + 10), LEVEL_ERROR));
+
+        // when
+        boolean resultOverflow = ingestRateLimiter.tryAcquire(SOURCE_2, LEVEL_ERROR);
+        boolean resultTracked = ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR);
+
+        // then
+        assertThat(resultOverflow, is(false));
+        assertThat(resultTracked, is(true));
+    }
+
+    @Test
+    public void shouldAdmitKeepAcceptedItemsWithOriginalIndices() {
+
+        // given
+        IngestRateLimiter ingestRateLimiter = createRateLimiter();
+        List<String> items = List.of("1", "2", "3", "4", "5");
+
+        // when
+        FilteredBatch<String> result = ingestRateLimiter.admit(items, item -> SOURCE_1, item -> LEVEL_ERROR);
+
+        // then
+        assertThat(result.items(), equalTo(List.of("1", "2", "3")));
+        assertThat(result.itemIndices(), equalTo(List.of(0, 1, 2)));
+    }
+
+    @Test
+    public void shouldFlushDroppedCountersPersistAndResetCounters() {
+
+        // given
+        IngestRateLimiter ingestRateLimiter = createRateLimiter();
+        IntStream.range(0, 5).forEach(index -> ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR));
+        ingestRateLimiter.tryAcquire(SOURCE_1, "debug");
+
+        // when
+        ingestRateLimiter.flushDroppedCounters();
+        ingestRateLimiter.flushDroppedCounters();
+
+        // then
+        verify(droppedEventCounterDAO).increment(eq(SOURCE_1), any(), eq(Map.of(LEVEL_ERROR, 2L, LEVEL_DEBUG, 1L)));
+    }
+
+    @Test
+    public void shouldFlushDroppedCountersKeepCountersOnFailure() {
+
+        // given
+        IngestRateLimiter ingestRateLimiter = createRateLimiter();
+        IntStream.range(0, 5).forEach(index -> ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR));
+        willThrow(RuntimeException.class).given(droppedEventCounterDAO).increment(anyString(), any(), anyMap());
+
+        // when
+        ingestRateLimiter.flushDroppedCounters();
+        ingestRateLimiter.flushDroppedCounters();
+
+        // then
+        verify(droppedEventCounterDAO, times(2)).increment(eq(SOURCE_1), any(), eq(Map.of(LEVEL_ERROR, 2L)));
+    }
+
+    @Test
+    public void shouldFlushDroppedCountersSkipPersistingWithoutDroppedEvents() {
+
+        // given
+        IngestRateLimiter ingestRateLimiter = createRateLimiter();
+        ingestRateLimiter.tryAcquire(SOURCE_1, LEVEL_ERROR);
+
+        // when
+        ingestRateLimiter.flushDroppedCounters();
+
+        // then
+        verifyNoInteractions(droppedEventCounterDAO);
+    }
+
+    private IngestRateLimiter createRateLimiter() {
+        return new IngestRateLimiter(droppedEventCounterDAO, rateLimitProperties, nanoClock::get, () -> 0.0);
+    }
+}
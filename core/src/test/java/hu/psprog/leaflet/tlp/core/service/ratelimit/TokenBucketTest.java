@@ -0,0 +1,112 @@
+package hu.psprog.leaflet.tlp.core.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link TokenBucket}.
+ *
+ * @author Peter Smith
+ */
+public class TokenBucketTest {
+
+    private static final double NO_RESERVE = 0.0;
+
+    @Test
+    public void shouldTryAcquireAcceptEventsUpToBurst() {
+
+        // given
+        TokenBucket tokenBucket = new TokenBucket(10, 5, 0L);
+
+        // when
+        long accepted = IntStream.range(0, 10)
+                .filter(index -> tokenBucket.tryAcquire(NO_RESERVE, 0L, () -> 0.0))
+                .count();
+
+        // then
+        assertThat(accepted, equalTo(5L));
+    }
+
+    @Test
+    public void shouldTryAcquireRefillTokensOverTime() {
+
+        // given
+        TokenBucket tokenBucket = new TokenBucket(10, 5, 0L);
+        IntStream.range(0, 5).forEach(index -> tokenBucket.tryAcquire(NO_RESERVE, 0L, () -> 0.0));
+        long now = TimeUnit.MILLISECONDS.toNanos(200);
+
+        // when
+        long accepted = IntStream.range(0, 5)
+                .filter(index -> tokenBucket.tryAcquire(NO_RESERVE, now, () -> 0.0))
+                .count();
+
+        // then
+        assertThat(accepted, equalTo(2L));
+    }
+
+    @Test
+    public void shouldTryAcquireNotRefillOverCapacity() {
+
+        // given
+        TokenBucket tokenBucket = new TokenBucket(10, 5, 0L);
+        long now = TimeUnit.SECONDS.toNanos(60);
+
+        // when
+        long accepted = IntStream.range(0, 10)
+                .filter(index -> tokenBucket.tryAcquire(NO_RESERVE, now, () -> 0.0))
+                .count();
+
+        // then
+        assertThat(accepted, equalTo(5L));
+    }
+
+    @Test
+    public void shouldTryAcquireAcceptReservedLevelAboveReserve() {
+
+        // given
+        TokenBucket tokenBucket = new TokenBucket(10, 10, 0L);
+
+        // when
+        boolean result = tokenBucket.tryAcquire(0.5, 0L, () -> 0.99);
+
+        // then
+        assertThat(result, is(true));
+    }
+
+    @Test
+    public void shouldTryAcquireSampleReservedLevelBelowReserve() {
+
+        // given
+        TokenBucket tokenBucket = new TokenBucket(10, 10, 0L);
+        IntStream.range(0, 8).forEach(index -> tokenBucket.tryAcquire(NO_RESERVE, 0L, () -> 0.0));
+
+        // when
+        // fill ratio is 0.2, thus the acceptance probability is 0.2 / 0.5 = 0.4
+        boolean resultAboveProbability = tokenBucket.tryAcquire(0.5, 0L, () -> 0.4);
+        boolean resultBelowProbability = tokenBucket.tryAcquire(0.5, 0L, () -> 0.39);
+
+        // then
+        assertThat(resultAboveProbability, is(false));
+        assertThat(resultBelowProbability, is(true));
+    }
+
+    @Test
+    public void shouldTryAcquireRejectEventWhenBucketIsEmpty() {
+
+        // given
+        TokenBucket tokenBucket = new TokenBucket(10, 1, 0L);
+        tokenBucket.tryAcquire(NO_RESERVE, 0L, () -> 0.0);
+
+        // when
+        boolean result = tokenBucket.tryAcquire(NO_RESERVE, 0L, () -> 0.0);
+
+        // then
+        assertThat(result, is(false));
+    }
+}
@@ -0,0 +1,195 @@
+package hu.psprog.leaflet.tlp.core.service.rollup;
+
+import hu.psprog.leaflet.tlp.core.config.RollupProperties;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.AggregationDimension;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupResult;
+import hu.psprog.leaflet.tlp.core.domain.RollupBucket;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventRollupDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link LogEventRollupReader}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class LogEventRollupReaderTest {
+
+    private static final Instant NOW = Instant.parse("2024-03-31T12:30:00Z");
+    private static final Date HOUR_1 = date("2024-03-31T10:00:00Z");
+    private static final Date HOUR_2 = date("2024-03-31T11:00:00Z");
+    private static final Date HOUR_3 = date("2024-03-31T12:00:00Z");
+    private static final int MAX_BUCKETS = 3;
+
+    @Mock
+    private LogEventRollupDAO logEventRollupDAO;
+
+    @Captor
+    private ArgumentCaptor<LogEventRollupQuery> rollupQueryCaptor;
+
+    private RollupProperties rollupProperties;
+    private LogEventRollupReader logEventRollupReader;
+
+    @BeforeEach
+    public void setup() {
+        rollupProperties = new RollupProperties();
+        rollupProperties.setMaxBuckets(MAX_BUCKETS);
+        logEventRollupReader = new LogEventRollupReader(logEventRollupDAO, rollupProperties, NOW::toEpochMilli);
+    }
+
+    @Test
+    public void shouldQueryReturnCountsAndRatesPerPeriod() {
+
+        // given
+        LogEventRollupQuery rollupQuery = LogEventRollupQuery.parse("2024-03-31T10:15:00Z", null, "hour", "level", "lcfa", null);
+        given(logEventRollupDAO.aggregate(rollupQueryCaptor.capture(), eq(MAX_BUCKETS + 1))).willReturn(List.of(
+                new AggregationBucket(List.of(HOUR_1, "ERROR"), 36L),
+                new AggregationBucket(List.of(HOUR_2, "ERROR"), 72L),
+                new AggregationBucket(List.of(HOUR_3, "ERROR"), 18L)));
+
+        // when
+        LogEventRollupResult result = logEventRollupReader.query(rollupQuery);
+
+        // then
+        assertThat(result, equalTo(LogEventRollupResult.getBuilder()
+                .withResolution(RollupResolution.HOUR)
+                .withFrom(HOUR_1)
+                .withTo(Date.from(NOW))
+                .withDimensions(List.of("level"))
+                .withBuckets(List.of(
+                        new RollupBucket(HOUR_1, List.of("ERROR"), 36L, 0.01),
+                        new RollupBucket(HOUR_2, List.of("ERROR"), 72L, 0.02),
+                        new RollupBucket(HOUR_3, List.of("ERROR"), 18L, 0.01)))
+                .withCount(126L)
+                .withRate(0.014)
+                .withTruncated(false)
+                .build()));
+        assertThat(rollupQueryCaptor.getValue(), equalTo(new LogEventRollupQuery(HOUR_1, Date.from(NOW), RollupResolution.HOUR,
+                List.of(AggregationDimension.LEVEL), Set.of("lcfa"), Set.of())));
+    }
+
+    @Test
+    public void shouldQueryCountEveryMatchingEventForTruncatedResult() {
+
+        // given
+        LogEventRollupQuery rollupQuery = LogEventRollupQuery.parse("2024-03-31T10:00:00Z", "2024-03-31T12:00:00Z", "hour", "source", null, null);
+        given(logEventRollupDAO.aggregate(rollupQueryCaptor.capture(), eq(MAX_BUCKETS + 1))).willReturn(List.of(
+                new AggregationBucket(List.of(HOUR_1, "lcfa"), 10L),
+                new AggregationBucket(List.of(HOUR_1, "lsas"), 10L),
+                new AggregationBucket(List.of(HOUR_2, "lcfa"), 10L),
+                new AggregationBucket(List.of(HOUR_2, "lsas"), 10L)));
+        given(logEventRollupDAO.count(rollupQueryCaptor.capture())).willReturn(7200L);
+
+        // when
+        LogEventRollupResult result = logEventRollupReader.query(rollupQuery);
+
+        // then
+        assertThat(result.buckets().size(), equalTo(MAX_BUCKETS));
+        assertThat(result.truncated(), equalTo(true));
+        assertThat(result.count(), equalTo(7200L));
+        assertThat(result.rate(), equalTo(1.0));
+    }
+
+    @ParameterizedTest
+    @MethodSource("resolutionSelectionDataProvider")
+    public void shouldQuerySelectFinestRetainedResolutionWithinPeriodLimit(String from, RollupResolution expectedResolution) {
+
+        // given
+        LogEventRollupQuery rollupQuery = LogEventRollupQuery.parse(from, null, null, null, null, null);
+        given(logEventRollupDAO.aggregate(rollupQueryCaptor.capture(), anyInt())).willReturn(List.of());
+
+        // when
+        LogEventRollupResult result = logEventRollupReader.query(rollupQuery);
+
+        // then
+        assertThat(result.resolution(), equalTo(expectedResolution));
+        assertThat(rollupQueryCaptor.getValue().resolution(), equalTo(expectedResolution));
+    }
+
+    @Test
+    public void shouldQueryRejectRequestedResolutionOverPeriodLimit() {
+
+        // given
+        LogEventRollupQuery rollupQuery = LogEventRollupQuery.parse("2024-03-01T00:00:00Z", null, "minute", null, null, null);
+
+        // when
+        assertThrows(IllegalArgumentException.class, () -> logEventRollupReader.query(rollupQuery));
+
+        // then
+        verifyNoInteractions(logEventRollupDAO);
+    }
+
+    @Test
+    public void shouldQueryRejectTimeRangeStartingInFuture() {
+
+        // given
+        LogEventRollupQuery rollupQuery = LogEventRollupQuery.parse("2024-04-01T00:00:00Z", null, null, null, null, null);
+
+        // when
+        assertThrows(IllegalArgumentException.class, () -> logEventRollupReader.query(rollupQuery));
+
+        // then
+        verifyNoInteractions(logEventRollupDAO);
+    }
+
+    @Test
+    public void shouldQueryThrowIllegalStateExceptionWhenRollupsAreDisabled() {
+
+        // given
+        rollupProperties.setEnabled(false);
+        LogEventRollupQuery rollupQuery = LogEventRollupQuery.parse("2024-03-31T00:00:00Z", null, null, null, null, null);
+
+        // when
+        assertThrows(IllegalStateException.class, () -> logEventRollupReader.query(rollupQuery));
+
+        // then
+        verifyNoInteractions(logEventRollupDAO);
+    }
+
+    private static Stream<Arguments> resolutionSelectionDataProvider() {
+
+        return Stream.of(
+                // 12.5 hours: 750 minutes
+                Arguments.of("2024-03-31T00:00:00Z", RollupResolution.MINUTE),
+                // 2 days: 2910 minutes, 49 hours
+                Arguments.of("2024-03-29T12:00:00Z", RollupResolution.HOUR),
+                // 30 days: 721 hours
+                Arguments.of("2024-03-01T12:00:00Z", RollupResolution.HOUR),
+                // 91 days: hourly counters are not retained
+                Arguments.of("2023-12-31T00:00:00Z", RollupResolution.DAY),
+                // 5 years: 1828 days, the coarsest resolution is used regardless of the period limit
+                Arguments.of("2019-03-31T00:00:00Z", RollupResolution.DAY)
+        );
+    }
+
+    private static Date date(String instant) {
+        return Date.from(Instant.parse(instant));
+    }
+}
@@ -0,0 +1,155 @@
+package hu.psprog.leaflet.tlp.core.service.rollup;
+
+import hu.psprog.leaflet.tlp.core.config.RollupProperties;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.RollupKey;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import hu.psprog.leaflet.tlp.core.persistence.dao.LogEventRollupDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Unit tests for {@link LogEventRollupStore}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class LogEventRollupStoreTest {
+
+    private static final long NOW = 1_700_006_700_000L;
+    private static final Date MINUTE_1 = new Date(1_700_000_040_000L);
+    private static final Date MINUTE_2 = new Date(1_700_000_100_000L);
+    private static final String SOURCE = "lcfa";
+    private static final String LEVEL = "ERROR";
+    private static final String LOGGER_NAME = "hu.psprog.leaflet.Test";
+    private static final RollupKey ROLLUP_KEY_1 = new RollupKey(RollupResolution.MINUTE, MINUTE_1, SOURCE, LEVEL, LOGGER_NAME);
+    private static final RollupKey ROLLUP_KEY_2 = new RollupKey(RollupResolution.MINUTE, MINUTE_2, SOURCE, LEVEL, LOGGER_NAME);
+
+    @Mock
+    private LogEventRollupDAO logEventRollupDAO;
+
+    private RollupProperties rollupProperties;
+    private LogEventRollupStore logEventRollupStore;
+
+    @BeforeEach
+    public void setup() {
+        rollupProperties = new RollupProperties();
+        logEventRollupStore = new LogEventRollupStore(logEventRollupDAO, rollupProperties, () -> NOW);
+    }
+
+    @Test
+    public void shouldFlushCountStoredEventsPerMinute() {
+
+        // given
+        logEventRollupStore.afterStore(List.of(
+                createLoggingEvent(MINUTE_1.getTime() + 1_000L),
+                createLoggingEvent(MINUTE_1.getTime() + 59_999L),
+                createLoggingEvent(MINUTE_2.getTime()),
+                createLoggingEvent(null)));
+
+        // when
+        logEventRollupStore.flush();
+
+        // then
+        verify(logEventRollupDAO).increment(Map.of(ROLLUP_KEY_1, 2L, ROLLUP_KEY_2, 1L), rollupProperties.getMinuteRetention());
+    }
+
+    @Test
+    public void shouldFlushResetCounters() {
+
+        // given
+        logEventRollupStore.record(MINUTE_1, SOURCE, LEVEL, LOGGER_NAME);
+        logEventRollupStore.flush();
+
+        // when
+        logEventRollupStore.flush();
+
+        // then
+        verify(logEventRollupDAO).increment(Map.of(ROLLUP_KEY_1, 1L), rollupProperties.getMinuteRetention());
+        verifyNoMoreInteractions(logEventRollupDAO);
+    }
+
+    @Test
+    public void shouldFlushKeepCountersFailedToBePersisted() {
+
+        // given
+        logEventRollupStore.record(MINUTE_1, SOURCE, LEVEL, LOGGER_NAME);
+        willThrow(new IllegalStateException("write failed"))
+                .given(logEventRollupDAO).increment(Map.of(ROLLUP_KEY_1, 1L), rollupProperties.getMinuteRetention());
+        logEventRollupStore.flush();
+        logEventRollupStore.record(MINUTE_1, SOURCE, LEVEL, LOGGER_NAME);
+
+        // when
+        logEventRollupStore.flush();
+
+        // then
+        verify(logEventRollupDAO).increment(Map.of(ROLLUP_KEY_1, 2L), rollupProperties.getMinuteRetention());
+    }
+
+    @Test
+    public void shouldRecordDoNothingWhenRollupsAreDisabled() {
+
+        // given
+        rollupProperties.setEnabled(false);
+        logEventRollupStore.record(MINUTE_1, SOURCE, LEVEL, LOGGER_NAME);
+
+        // when
+        logEventRollupStore.flush();
+
+        // then
+        verifyNoInteractions(logEventRollupDAO);
+    }
+
+    @Test
+    public void shouldCompactRecalculateCoarserCountersWithinLookback() {
+
+        // when
+        logEventRollupStore.compact();
+
+        // then
+        // lookback starts at 1_699_999_500_000, hours are truncated to 1_699_999_200_000, days to 1_699_920_000_000
+        verify(logEventRollupDAO).compact(RollupResolution.MINUTE, RollupResolution.HOUR, new Date(1_699_999_200_000L), Duration.ofDays(90));
+        verify(logEventRollupDAO).compact(RollupResolution.HOUR, RollupResolution.DAY, new Date(1_699_920_000_000L), Duration.ZERO);
+    }
+
+    @Test
+    public void shouldCompactSuppressFailure() {
+
+        // given
+        willThrow(new IllegalStateException("aggregation failed"))
+                .given(logEventRollupDAO).compact(any(), any(), any(), any());
+
+        // when
+        logEventRollupStore.compact();
+
+        // then
+        // exception suppressed
+    }
+
+    private LoggingEvent createLoggingEvent(Long timeStamp) {
+
+        LoggingEvent loggingEvent = new LoggingEvent();
+        loggingEvent.setSource(SOURCE);
+        loggingEvent.setLevel(LEVEL);
+        loggingEvent.setLoggerName(LOGGER_NAME);
+        if (timeStamp != null) {
+            loggingEvent.setTimeStamp(new Date(timeStamp));
+        }
+
+        return loggingEvent;
+    }
+}
@@ -0,0 +1,173 @@
+package hu.psprog.leaflet.tlp.core.service.stacktrace;
+
+import hu.psprog.leaflet.tlp.core.config.StackTraceDeduplicationProperties;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.StackTraceEntry;
+import hu.psprog.leaflet.tlp.core.domain.ThrowableProxyLogItem;
+import hu.psprog.leaflet.tlp.core.persistence.dao.StackTraceDAO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link StackTraceStore}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class StackTraceStoreTest {
+
+    private static final Date CREATED_AT = new Date();
+
+    @Mock
+    private StackTraceDAO stackTraceDAO;
+
+    @Captor
+    private ArgumentCaptor<List<StackTraceEntry>> stackTraceEntryListCaptor;
+
+    @Captor
+    private ArgumentCaptor<Collection<String>> fingerprintCollectionCaptor;
+
+    @Test
+    public void shouldDeduplicateStoreEachUnknownExceptionTreeOnce() {
+
+        // given
+        StackTraceStore stackTraceStore = createStore(true);
+        LoggingEvent loggingEvent1 = prepareLoggingEvent(prepareException("message 1", prepareException("cause", null)));
+        LoggingEvent loggingEvent2 = prepareLoggingEvent(prepareException("message 1", prepareException("cause", null)));
+        LoggingEvent loggingEvent3 = prepareLoggingEvent(prepareException("message 2", null));
+        LoggingEvent loggingEvent4 = prepareLoggingEvent(null);
+        given(stackTraceDAO.findExistingFingerprints(anyCollection())).willReturn(Collections.emptySet());
+
+        // when
+        stackTraceStore.deduplicate(List.of(loggingEvent1, loggingEvent2, loggingEvent3, loggingEvent4));
+
+        // then
+        assertThat(loggingEvent1.getException(), nullValue());
+        assertThat(loggingEvent1.getExceptionFingerprint(), notNullValue());
+        assertThat(loggingEvent2.getExceptionFingerprint(), equalTo(loggingEvent1.getExceptionFingerprint()));
+        assertThat(loggingEvent3.getExceptionFingerprint(), not(equalTo(loggingEvent1.getExceptionFingerprint())));
+        assertThat(loggingEvent4.getExceptionFingerprint(), nullValue());
+        verify(stackTraceDAO).saveAll(stackTraceEntryListCaptor.capture());
+        List<StackTraceEntry> storedEntries = stackTraceEntryListCaptor.getValue();
+        assertThat(storedEntries.size(), equalTo(2));
+        assertThat(storedEntries.get(0).fingerprint(), equalTo(loggingEvent1.getExceptionFingerprint()));
+        assertThat(storedEntries.get(0).exception().getMessage(), equalTo("message 1"));
+        assertThat(storedEntries.get(1).fingerprint(), equalTo(loggingEvent3.getExceptionFingerprint()));
+    }
+
+    @Test
+    public void shouldDeduplicateSkipAlreadyStoredExceptionTrees() {
+
+        // given
+        StackTraceStore stackTraceStore = createStore(true);
+        LoggingEvent loggingEvent1 = prepareLoggingEvent(prepareException("message 1", null));
+        LoggingEvent loggingEvent2 = prepareLoggingEvent(prepareException("message 1", null));
+        given(stackTraceDAO.findExistingFingerprints(fingerprintCollectionCaptor.capture()))
+                .willAnswer(invocation -> Set.copyOf(invocation.<Collection<String>>getArgument(0)));
+
+        // when
+        stackTraceStore.deduplicate(List.of(loggingEvent1));
+        stackTraceStore.deduplicate(List.of(loggingEvent2));
+
+        // then
+        verify(stackTraceDAO).saveAll(Collections.emptyList());
+        verify(stackTraceDAO, times(1)).findExistingFingerprints(anyCollection());
+        assertThat(loggingEvent2.getExceptionFingerprint(), equalTo(loggingEvent1.getExceptionFingerprint()));
+    }
+
+    @Test
+    public void shouldDeduplicateDoNothingWhenDisabled() {
+
+        // given
+        StackTraceStore stackTraceStore = createStore(false);
+        ThrowableProxyLogItem exception = prepareException("message 1", null);
+        LoggingEvent loggingEvent = prepareLoggingEvent(exception);
+
+        // when
+        stackTraceStore.deduplicate(List.of(loggingEvent));
+
+        // then
+        assertThat(loggingEvent.getException(), equalTo(exception));
+        assertThat(loggingEvent.getExceptionFingerprint(), nullValue());
+        verifyNoInteractions(stackTraceDAO);
+    }
+
+    @Test
+    public void shouldResolveFingerprints() {
+
+        // given
+        StackTraceStore stackTraceStore = createStore(true);
+        ThrowableProxyLogItem exception = prepareException("message 1", null);
+        given(stackTraceDAO.findAllByFingerprints(List.of("fingerprint-1", "fingerprint-2"))).willReturn(List.of(StackTraceEntry.getBuilder()
+                .withFingerprint("fingerprint-1")
+                .withException(exception)
+                .withCreatedAt(CREATED_AT)
+                .build()));
+
+        // when
+        Map<String, ThrowableProxyLogItem> result = stackTraceStore.resolve(List.of("fingerprint-1", "fingerprint-2"));
+
+        // then
+        assertThat(result, equalTo(Map.of("fingerprint-1", exception)));
+    }
+
+    @Test
+    public void shouldResolveSkipLookupForEmptyFingerprintList() {
+
+        // given
+        StackTraceStore stackTraceStore = createStore(true);
+
+        // when
+        Map<String, ThrowableProxyLogItem> result = stackTraceStore.resolve(Collections.emptyList());
+
+        // then
+        assertThat(result.isEmpty(), equalTo(true));
+        verifyNoInteractions(stackTraceDAO);
+    }
+
+    private StackTraceStore createStore(boolean enabled) {
+
+        StackTraceDeduplicationProperties stackTraceDeduplicationProperties = new StackTraceDeduplicationProperties();
+        stackTraceDeduplicationProperties.setEnabled(enabled);
+
+        return new StackTraceStore(stackTraceDAO, stackTraceDeduplicationProperties);
+    }
+
+    private LoggingEvent prepareLoggingEvent(ThrowableProxyLogItem exception) {
+        return LoggingEvent.getBuilder()
+                .withContent("content")
+                .withException(exception)
+                .build();
+    }
+
+    private ThrowableProxyLogItem prepareException(String message, ThrowableProxyLogItem cause) {
+        return ThrowableProxyLogItem.getBuilder()
+                .withClassName("java.lang.IllegalStateException")
+                .withMessage(message)
+                .withStackTrace("at hu.psprog.A.a(A.java:10)")
+                .withCause(cause)
+                .build();
+    }
+}
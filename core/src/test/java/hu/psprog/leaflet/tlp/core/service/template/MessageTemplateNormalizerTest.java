@@ -0,0 +1,43 @@
+package hu.psprog.leaflet.tlp.core.service.template;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link MessageTemplateNormalizer}.
+ *
+ * @author Peter Smith
+ */
+public class MessageTemplateNormalizerTest {
+
+    private final MessageTemplateNormalizer messageTemplateNormalizer = new MessageTemplateNormalizer();
+
+    @ParameterizedTest
+    @MethodSource("messageDataProvider")
+    public void shouldNormalizeReplaceVariablePartsWithPlaceholders(String message, String expectedTemplate) {
+
+        // when
+        String result = messageTemplateNormalizer.normalize(message);
+
+        // then
+        assertThat(result, equalTo(expectedTemplate));
+    }
+
+    private static Stream<Arguments> messageDataProvider() {
+
+        return Stream.of(
+                Arguments.of("Request processed", "Request processed"),
+                Arguments.of("Entry 42 not found", "Entry <n> not found"),
+                Arguments.of("User 3f6c2a9e-1b2c-4d5e-8f90-0123456789ab logged in", "User <uuid> logged in"),
+                Arguments.of("Object at 0x7ffe12ab has hash 9f86d081884c7d65", "Object at <hex> has hash <hex>"),
+                Arguments.of("Cache deadbeef hit", "Cache deadbeef hit"),
+                Arguments.of(null, null)
+        );
+    }
+}
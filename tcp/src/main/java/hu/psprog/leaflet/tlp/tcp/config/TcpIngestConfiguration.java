@@ -0,0 +1,14 @@
+package hu.psprog.leaflet.tlp.tcp.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * TCP log event receiver configuration.
+ *
+ * @author Peter Smith
+ */
+@Configuration
+@EnableConfigurationProperties(TcpIngestProperties.class)
+public class TcpIngestConfiguration {
+}
@@ -0,0 +1,54 @@
+package hu.psprog.leaflet.tlp.tcp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the TCP log event receiver.
+ * Properties are read from the tlp.ingest.tcp configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.ingest.tcp")
+public class TcpIngestProperties {
+
+    /**
+     * Enables the TCP log event receiver. Disabled by default.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Address the receiver binds to.
+     */
+    private String host = "0.0.0.0";
+
+    /**
+     * Port the receiver listens on (same as the default port of Logback's socket appenders).
+     */
+    private int port = 4560;
+
+    /**
+     * Maximum number of concurrently open client connections. Further connections are closed right after accepting them.
+     */
+    private int maxConnections = 256;
+
+    /**
+     * Maximum length of a single frame. Connections sending larger frames are closed.
+     * The read buffer of a connection starts small, and grows up to this size only while receiving a frame that large.
+     */
+    private DataSize maxFrameLength = DataSize.ofKilobytes(256);
+
+    /**
+     * Number of received log events written in a single bulk write.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Maximum time a received log event may wait for the batch to fill up before it is written.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+}
@@ -0,0 +1,18 @@
+package hu.psprog.leaflet.tlp.tcp.exception;
+
+import java.io.IOException;
+
+/**
+ * Exception to throw when a client sends a frame with an invalid length prefix.
+ * Framing cannot be recovered after such an error, so the affected connection must be closed.
+ *
+ * @author Peter Smith
+ */
+public class InvalidFrameException extends IOException {
+
+    private static final String MESSAGE_PATTERN = "Invalid frame length [%d], must be between 0 and %d bytes";
+
+    public InvalidFrameException(int frameLength, int maxFrameLength) {
+        super(String.format(MESSAGE_PATTERN, frameLength, maxFrameLength));
+    }
+}
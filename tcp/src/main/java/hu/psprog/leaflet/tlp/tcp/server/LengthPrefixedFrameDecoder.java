@@ -0,0 +1,107 @@
+package hu.psprog.leaflet.tlp.tcp.server;
+
+import hu.psprog.leaflet.tlp.tcp.exception.InvalidFrameException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.Consumer;
+
+/**
+ * Per-connection decoder of length-prefixed frames.
+ * Each frame starts with a 4-byte big-endian length header, followed by exactly that many bytes of payload.
+ * Bytes are read into a small buffer, which is grown only when a frame header announces a frame not fitting into it,
+ * up to the size of one frame of the maximum allowed length, so a connection can never make the receiver allocate more memory than that.
+ * Once a large frame is decoded and the buffer is empty again, it is shrunk back to its initial size,
+ * so idle connections hold only small buffers.
+ * Partial frames are kept in the buffer until the rest of them arrives.
+ *
+ * @author Peter Smith
+ */
+public class LengthPrefixedFrameDecoder {
+
+    private static final int HEADER_LENGTH = Integer.BYTES;
+    private static final int DEFAULT_INITIAL_BUFFER_LENGTH = 4096;
+
+    private final int maxFrameLength;
+    private final int initialBufferLength;
+    private ByteBuffer buffer;
+
+    public LengthPrefixedFrameDecoder(int maxFrameLength) {
+        this(maxFrameLength, DEFAULT_INITIAL_BUFFER_LENGTH);
+    }
+
+    LengthPrefixedFrameDecoder(int maxFrameLength, int initialBufferLength) {
+        this.maxFrameLength = maxFrameLength;
+        this.initialBufferLength = Math.min(Math.max(initialBufferLength, HEADER_LENGTH), HEADER_LENGTH + maxFrameLength);
+        this.buffer = ByteBuffer.allocate(this.initialBufferLength);
+    }
+
+    /**
+     * Reads the available bytes of the given channel into the buffer of this decoder.
+     *
+     * @param channel {@link ReadableByteChannel} to read from
+     * @return number of bytes read, or -1 if the channel has reached end-of-stream
+     * @throws IOException if reading the channel fails
+     */
+    public int readFrom(ReadableByteChannel channel) throws IOException {
+        return channel.read(buffer);
+    }
+
+    /**
+     * Passes every complete frame currently in the buffer to the given consumer, and keeps the remaining partial frame (if any).
+     * The buffer is grown if the partial frame does not fit into it, or shrunk back to its initial size if it became empty.
+     *
+     * @param frameConsumer {@link Consumer} of the payload of decoded frames
+     * @throws InvalidFrameException if a frame header contains a negative length or one exceeding the maximum frame length
+     */
+    public void decodeFrames(Consumer<byte[]> frameConsumer) throws InvalidFrameException {
+
+        int requiredLength = 0;
+        buffer.flip();
+        try {
+            while (buffer.remaining() >= HEADER_LENGTH) {
+
+                int frameLength = buffer.getInt(buffer.position());
+                if (frameLength < 0 || frameLength > maxFrameLength) {
+                    throw new InvalidFrameException(frameLength, maxFrameLength);
+                }
+
+                if (buffer.remaining() < HEADER_LENGTH + frameLength) {
+                    requiredLength = HEADER_LENGTH + frameLength;
+                    break;
+                }
+
+                byte[] frame = new byte[frameLength];
+                buffer.position(buffer.position() + HEADER_LENGTH);
+                buffer.get(frame);
+                frameConsumer.accept(frame);
+            }
+        } finally {
+            buffer.compact();
+        }
+
+        resizeBuffer(requiredLength);
+    }
+
+    int getBufferCapacity() {
+        return buffer.capacity();
+    }
+
+    private void resizeBuffer(int requiredLength) {
+
+        if (requiredLength > buffer.capacity()) {
+            reallocateBuffer(Math.min(Math.max(buffer.capacity() * 2, requiredLength), HEADER_LENGTH + maxFrameLength));
+        } else if (buffer.position() == 0 && buffer.capacity() > initialBufferLength) {
+            reallocateBuffer(initialBufferLength);
+        }
+    }
+
+    private void reallocateBuffer(int capacity) {
+
+        ByteBuffer reallocatedBuffer = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        reallocatedBuffer.put(buffer);
+        buffer = reallocatedBuffer;
+    }
+}
@@ -0,0 +1,264 @@
+package hu.psprog.leaflet.tlp.tcp.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.service.LogProcessingService;
+import hu.psprog.leaflet.tlp.tcp.config.TcpIngestProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking TCP receiver for log events, meant for clients keeping a persistent connection open (e.g. socket appenders).
+ * Clients send a stream of length-prefixed frames (see {@link LengthPrefixedFrameDecoder}), each containing a single
+ * log event in the same JSON format as accepted by the REST API. Nothing is sent back to the clients.
+ *
+ * All connections are served by a single selector thread, which collects the decoded events into batches,
+ * and passes them to {@link LogProcessingService} when either the configured batch size is reached,
+ * or the oldest pending event has waited for the configured flush interval.
+ * As reading pauses while a batch is written, slow writes push back on the clients via TCP flow control.
+ * Frames containing events that cannot be parsed are skipped, while frames with invalid length prefix close the connection.
+ *
+ * Enabled only if tlp.ingest.tcp.enabled is set to true.
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnProperty(prefix = "tlp.ingest.tcp", name = "enabled", havingValue = "true")
+public class TcpIngestServer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TcpIngestServer.class);
+    private static final String RECEIVER_THREAD_NAME = "tlp-tcp-receiver";
+    private static final long SHUTDOWN_TIMEOUT_IN_MILLIS = 10_000;
+
+    private final LogProcessingService logProcessingService;
+    private final ObjectMapper objectMapper;
+    private final TcpIngestProperties tcpIngestProperties;
+    private final int maxFrameLength;
+    private final long flushIntervalInNanos;
+    private final List<LoggingEvent> pendingEvents;
+
+    private Selector selector;
+    private ServerSocketChannel serverSocketChannel;
+    private Thread receiverThread;
+    private int connectionCount;
+    private long flushDeadline;
+
+    private volatile boolean running;
+
+    @Autowired
+    public TcpIngestServer(LogProcessingService logProcessingService, ObjectMapper objectMapper, TcpIngestProperties tcpIngestProperties) {
+        this.logProcessingService = logProcessingService;
+        this.objectMapper = objectMapper;
+        this.tcpIngestProperties = tcpIngestProperties;
+        this.maxFrameLength = Math.toIntExact(tcpIngestProperties.getMaxFrameLength().toBytes());
+        this.flushIntervalInNanos = tcpIngestProperties.getFlushInterval().toNanos();
+        this.pendingEvents = new ArrayList<>(tcpIngestProperties.getBatchSize());
+    }
+
+    /**
+     * Binds the server socket and starts the receiver thread.
+     *
+     * @throws IOException if the server socket cannot be opened
+     */
+    @PostConstruct
+    public void start() throws IOException {
+
+        selector = Selector.open();
+        serverSocketChannel = ServerSocketChannel.open();
+        serverSocketChannel.configureBlocking(false);
+        serverSocketChannel.bind(new InetSocketAddress(tcpIngestProperties.getHost(), tcpIngestProperties.getPort()));
+        serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        receiverThread = new Thread(this::runReceiver, RECEIVER_THREAD_NAME);
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+        LOGGER.info("TCP log event receiver listening on port {}", getLocalPort());
+    }
+
+    /**
+     * Returns the port the server socket is bound to.
+     *
+     * @return local port of the receiver
+     */
+    public int getLocalPort() {
+        return serverSocketChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops the receiver thread, writes the pending events and closes every connection.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        running = false;
+        selector.wakeup();
+        try {
+            receiverThread.join(SHUTDOWN_TIMEOUT_IN_MILLIS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("TCP log event receiver stopped");
+    }
+
+    private void runReceiver() {
+
+        try {
+            while (running) {
+                selector.select(calculateSelectTimeout());
+                processSelectedKeys();
+                if (pendingEvents.size() >= tcpIngestProperties.getBatchSize() || isFlushDeadlineReached()) {
+                    flush();
+                }
+            }
+        } catch (IOException exception) {
+            LOGGER.error("TCP log event receiver failed", exception);
+        } finally {
+            flush();
+            closeAll();
+        }
+    }
+
+    private long calculateSelectTimeout() {
+
+        // 0 means blocking until a connection becomes ready, hence the minimum of 1 ms when events are pending
+        return pendingEvents.isEmpty()
+                ? 0
+                : Math.max(1, TimeUnit.NANOSECONDS.toMillis(flushDeadline - System.nanoTime()));
+    }
+
+    private boolean isFlushDeadlineReached() {
+        return !pendingEvents.isEmpty() && flushDeadline - System.nanoTime() <= 0;
+    }
+
+    private void processSelectedKeys() throws IOException {
+
+        Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+        while (selectedKeys.hasNext()) {
+
+            SelectionKey key = selectedKeys.next();
+            selectedKeys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+
+            if (key.isAcceptable()) {
+                accept();
+            } else if (key.isReadable()) {
+                read(key);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+
+        SocketChannel socketChannel = serverSocketChannel.accept();
+        if (socketChannel == null) {
+            return;
+        }
+
+        if (connectionCount >= tcpIngestProperties.getMaxConnections()) {
+            LOGGER.warn("Rejecting connection from {}, maximum number of connections ({}) reached",
+                    socketChannel.getRemoteAddress(), tcpIngestProperties.getMaxConnections());
+            socketChannel.close();
+            return;
+        }
+
+        socketChannel.configureBlocking(false);
+        socketChannel.register(selector, SelectionKey.OP_READ, new LengthPrefixedFrameDecoder(maxFrameLength));
+        connectionCount++;
+    }
+
+    private void read(SelectionKey key) {
+
+        SocketChannel socketChannel = (SocketChannel) key.channel();
+        LengthPrefixedFrameDecoder frameDecoder = (LengthPrefixedFrameDecoder) key.attachment();
+        try {
+            int bytesRead = frameDecoder.readFrom(socketChannel);
+            frameDecoder.decodeFrames(this::decodeLoggingEvent);
+            if (bytesRead < 0) {
+                close(key);
+            }
+        } catch (IOException exception) {
+            LOGGER.warn("Closing TCP connection: {}", exception.getMessage());
+            close(key);
+        }
+    }
+
+    private void decodeLoggingEvent(byte[] frame) {
+
+        // empty frames can be used by clients as keep-alive messages
+        if (frame.length == 0) {
+            return;
+        }
+
+        try {
+            if (pendingEvents.isEmpty()) {
+                flushDeadline = System.nanoTime() + flushIntervalInNanos;
+            }
+            pendingEvents.add(objectMapper.readValue(frame, LoggingEvent.class));
+        } catch (IOException exception) {
+            LOGGER.warn("Skipping unparsable log event frame: {}", exception.getMessage());
+        }
+    }
+
+    private void flush() {
+
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+
+        try {
+            BatchIngestionResult result = logProcessingService.storeLogs(new ArrayList<>(pendingEvents));
+            if (!result.failures().isEmpty()) {
+                LOGGER.error("Failed to write {} of {} log events received via TCP", result.failures().size(), result.received());
+            }
+        } catch (Exception exception) {
+            LOGGER.error(String.format("Failed to write batch of %d log events received via TCP", pendingEvents.size()), exception);
+        } finally {
+            pendingEvents.clear();
+        }
+    }
+
+    private void close(SelectionKey key) {
+
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException exception) {
+            LOGGER.debug("Failed to close TCP connection", exception);
+        }
+        connectionCount--;
+    }
+
+    private void closeAll() {
+
+        selector.keys().stream()
+                .filter(key -> key.channel() instanceof SocketChannel)
+                .toList()
+                .forEach(this::close);
+        try {
+            serverSocketChannel.close();
+            selector.close();
+        } catch (IOException exception) {
+            LOGGER.debug("Failed to close TCP log event receiver", exception);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package hu.psprog.leaflet.tlp.tcp.server;
+
+import hu.psprog.leaflet.tlp.tcp.exception.InvalidFrameException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link LengthPrefixedFrameDecoder}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class LengthPrefixedFrameDecoderTest {
+
+    private static final int MAX_FRAME_LENGTH = 16;
+    private static final int INITIAL_BUFFER_LENGTH = 6;
+
+    @Test
+    public void shouldDecodeFramesReadInOneChunk() throws IOException {
+
+        // given
+        LengthPrefixedFrameDecoder frameDecoder = new LengthPrefixedFrameDecoder(MAX_FRAME_LENGTH);
+        List<String> frames = new ArrayList<>();
+        frameDecoder.readFrom(channelOf(concat(frame("one"), frame(""), frame("two"))));
+
+        // when
+        frameDecoder.decodeFrames(frame -> frames.add(new String(frame, StandardCharsets.UTF_8)));
+
+        // then
+        assertThat(frames, equalTo(List.of("one", "", "two")));
+    }
+
+    @Test
+    public void shouldKeepPartialFrameUntilRestOfItArrives() throws IOException {
+
+        // given
+        LengthPrefixedFrameDecoder frameDecoder = new LengthPrefixedFrameDecoder(MAX_FRAME_LENGTH);
+        List<String> frames = new ArrayList<>();
+        byte[] payload = concat(frame("first"), frame("second"));
+        frameDecoder.readFrom(channelOf(Arrays.copyOfRange(payload, 0, 12)));
+        frameDecoder.decodeFrames(frame -> frames.add(new String(frame, StandardCharsets.UTF_8)));
+        frameDecoder.readFrom(channelOf(Arrays.copyOfRange(payload, 12, payload.length)));
+
+        // when
+        frameDecoder.decodeFrames(frame -> frames.add(new String(frame, StandardCharsets.UTF_8)));
+
+        // then
+        assertThat(frames, equalTo(List.of("first", "second")));
+    }
+
+    @Test
+    public void shouldDecodeFrameOfMaximumLength() throws IOException {
+
+        // given
+        LengthPrefixedFrameDecoder frameDecoder = new LengthPrefixedFrameDecoder(MAX_FRAME_LENGTH);
+        List<String> frames = new ArrayList<>();
+        String payload = "x".repeat(MAX_FRAME_LENGTH);
+        frameDecoder.readFrom(channelOf(frame(payload)));
+
+        // when
+        frameDecoder.decodeFrames(frame -> frames.add(new String(frame, StandardCharsets.UTF_8)));
+
+        // then
+        assertThat(frames, equalTo(List.of(payload)));
+    }
+
+    @Test
+    public void shouldGrowBufferForFrameLargerThanInitialBufferAndShrinkItAfterwards() throws IOException {
+
+        // given
+        LengthPrefixedFrameDecoder frameDecoder = new LengthPrefixedFrameDecoder(MAX_FRAME_LENGTH, INITIAL_BUFFER_LENGTH);
+        List<String> frames = new ArrayList<>();
+        String payload = "x".repeat(MAX_FRAME_LENGTH);
+        byte[] largeFrame = frame(payload);
+        frameDecoder.readFrom(channelOf(Arrays.copyOfRange(largeFrame, 0, INITIAL_BUFFER_LENGTH)));
+        frameDecoder.decodeFrames(frame -> frames.add(new String(frame, StandardCharsets.UTF_8)));
+        int bufferCapacityForLargeFrame = frameDecoder.getBufferCapacity();
+        frameDecoder.readFrom(channelOf(Arrays.copyOfRange(largeFrame, INITIAL_BUFFER_LENGTH, largeFrame.length)));
+
+        // when
+        frameDecoder.decodeFrames(frame -> frames.add(new String(frame, StandardCharsets.UTF_8)));
+
+        // then
+        assertThat(frames, equalTo(List.of(payload)));
+        assertThat(bufferCapacityForLargeFrame, equalTo(Integer.BYTES + MAX_FRAME_LENGTH));
+        assertThat(frameDecoder.getBufferCapacity(), equalTo(INITIAL_BUFFER_LENGTH));
+    }
+
+    @Test
+    public void shouldStartWithInitialBufferOnly() {
+
+        // when
+        LengthPrefixedFrameDecoder frameDecoder = new LengthPrefixedFrameDecoder(MAX_FRAME_LENGTH, INITIAL_BUFFER_LENGTH);
+
+        // then
+        assertThat(frameDecoder.getBufferCapacity(), equalTo(INITIAL_BUFFER_LENGTH));
+    }
+
+    @Test
+    public void shouldThrowInvalidFrameExceptionForTooLargeFrame() throws IOException {
+
+        // given
+        LengthPrefixedFrameDecoder frameDecoder = new LengthPrefixedFrameDecoder(MAX_FRAME_LENGTH);
+        frameDecoder.readFrom(channelOf(frame("x".repeat(MAX_FRAME_LENGTH + 1))));
+
+        // when
+        assertThrows(InvalidFrameException.class, () -> frameDecoder.decodeFrames(frame -> {}));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldThrowInvalidFrameExceptionForNegativeFrameLength() throws IOException {
+
+        // given
+        LengthPrefixedFrameDecoder frameDecoder = new LengthPrefixedFrameDecoder(MAX_FRAME_LENGTH);
+        frameDecoder.readFrom(channelOf(ByteBuffer.allocate(Integer.BYTES).putInt(-1).array()));
+
+        // when
+        assertThrows(InvalidFrameException.class, () -> frameDecoder.decodeFrames(frame -> {}));
+
+        // then
+        // exception expected
+    }
+
+    private ReadableByteChannel channelOf(byte[] content) {
+        return Channels.newChannel(new ByteArrayInputStream(content));
+    }
+
+    private byte[] frame(String payload) {
+
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+
+        return ByteBuffer.allocate(Integer.BYTES + payloadBytes.length)
+                .putInt(payloadBytes.length)
+                .put(payloadBytes)
+                .array();
+    }
+
+    private byte[] concat(byte[]... frames) {
+
+        ByteBuffer buffer = ByteBuffer.allocate(Arrays.stream(frames).mapToInt(frame -> frame.length).sum());
+        Arrays.stream(frames).forEach(buffer::put);
+
+        return buffer.array();
+    }
+}
@@ -0,0 +1,192 @@
+package hu.psprog.leaflet.tlp.tcp.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.service.LogProcessingService;
+import hu.psprog.leaflet.tlp.tcp.config.TcpIngestProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link TcpIngestServer}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class TcpIngestServerTest {
+
+    private static final String EVENT_1 = "{\"source\":\"app\",\"formattedMessage\":\"event 1\",\"level\":{\"levelStr\":\"INFO\"}}";
+    private static final String EVENT_2 = "{\"source\":\"app\",\"formattedMessage\":\"event 2\",\"level\":{\"levelStr\":\"WARN\"}}";
+    private static final String EVENT_3 = "{\"source\":\"app\",\"formattedMessage\":\"event 3\",\"level\":{\"levelStr\":\"ERROR\"}}";
+
+    @Mock
+    private LogProcessingService logProcessingService;
+
+    @Captor
+    private ArgumentCaptor<List<LoggingEvent>> loggingEventListCaptor;
+
+    private TcpIngestServer tcpIngestServer;
+
+    @AfterEach
+    public void tearDown() {
+        if (tcpIngestServer != null) {
+            tcpIngestServer.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldStoreEventsWhenBatchSizeIsReached() throws IOException {
+
+        // given
+        given(logProcessingService.storeLogs(anyList())).willReturn(prepareResult(2));
+        tcpIngestServer = createServer(2, Duration.ofMinutes(1), 1024);
+        tcpIngestServer.start();
+
+        // when
+        try (Socket socket = new Socket("localhost", tcpIngestServer.getLocalPort())) {
+            DataOutputStream outputStream = new DataOutputStream(socket.getOutputStream());
+            writeFrame(outputStream, EVENT_1);
+            writeFrame(outputStream, "");
+            writeFrame(outputStream, EVENT_2);
+            outputStream.flush();
+
+            // then
+            verify(logProcessingService, timeout(5000)).storeLogs(loggingEventListCaptor.capture());
+        }
+
+        assertThat(loggingEventListCaptor.getValue().stream().map(LoggingEvent::getContent).toList(), equalTo(List.of("event 1", "event 2")));
+        assertThat(loggingEventListCaptor.getValue().get(1).getLevel(), equalTo("WARN"));
+    }
+
+    @Test
+    public void shouldStoreEventsWhenFlushIntervalIsElapsedSkippingUnparsableFrames() throws IOException {
+
+        // given
+        given(logProcessingService.storeLogs(anyList())).willReturn(prepareResult(1));
+        tcpIngestServer = createServer(100, Duration.ofMillis(50), 1024);
+        tcpIngestServer.start();
+
+        // when
+        try (Socket socket = new Socket("localhost", tcpIngestServer.getLocalPort())) {
+            DataOutputStream outputStream = new DataOutputStream(socket.getOutputStream());
+            writeFrame(outputStream, "{not-json");
+            writeFrame(outputStream, EVENT_3);
+            outputStream.flush();
+
+            // then
+            verify(logProcessingService, timeout(5000)).storeLogs(loggingEventListCaptor.capture());
+        }
+
+        assertThat(loggingEventListCaptor.getValue().size(), equalTo(1));
+        assertThat(loggingEventListCaptor.getValue().get(0).getContent(), equalTo("event 3"));
+    }
+
+    @Test
+    public void shouldCloseConnectionSendingTooLargeFrame() throws IOException {
+
+        // given
+        tcpIngestServer = createServer(1, Duration.ofMillis(50), 16);
+        tcpIngestServer.start();
+
+        // when
+        try (Socket socket = new Socket("localhost", tcpIngestServer.getLocalPort())) {
+            DataOutputStream outputStream = new DataOutputStream(socket.getOutputStream());
+            outputStream.writeInt(17);
+            outputStream.flush();
+
+            // then
+            assertThat(socket.getInputStream().read(), equalTo(-1));
+        }
+
+        verify(logProcessingService, after(200).never()).storeLogs(anyList());
+    }
+
+    @Test
+    public void shouldStorePendingEventsOnShutdown() throws IOException {
+
+        // given
+        given(logProcessingService.storeLogs(anyList())).willReturn(prepareResult(1));
+        tcpIngestServer = createServer(100, Duration.ofMinutes(1), 1024);
+        tcpIngestServer.start();
+        try (Socket socket = new Socket("localhost", tcpIngestServer.getLocalPort())) {
+            DataOutputStream outputStream = new DataOutputStream(socket.getOutputStream());
+            writeFrame(outputStream, EVENT_1);
+            outputStream.flush();
+        }
+        verify(logProcessingService, after(200).never()).storeLogs(anyList());
+
+        // when
+        tcpIngestServer.shutdown();
+
+        // then
+        verify(logProcessingService).storeLogs(loggingEventListCaptor.capture());
+        assertThat(loggingEventListCaptor.getValue().get(0).getContent(), equalTo("event 1"));
+        tcpIngestServer = null;
+    }
+
+    @Test
+    public void shouldNotStoreAnythingWithoutEvents() throws IOException {
+
+        // given
+        tcpIngestServer = createServer(1, Duration.ofMillis(10), 1024);
+        tcpIngestServer.start();
+
+        // when
+        tcpIngestServer.shutdown();
+
+        // then
+        verifyNoInteractions(logProcessingService);
+        tcpIngestServer = null;
+    }
+
+    private void writeFrame(DataOutputStream outputStream, String payload) throws IOException {
+
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(payloadBytes.length);
+        outputStream.write(payloadBytes);
+    }
+
+    private BatchIngestionResult prepareResult(int stored) {
+        return BatchIngestionResult.getBuilder()
+                .withReceived(stored)
+                .withStored(stored)
+                .withFailures(List.of())
+                .build();
+    }
+
+    private TcpIngestServer createServer(int batchSize, Duration flushInterval, int maxFrameLength) {
+
+        TcpIngestProperties tcpIngestProperties = new TcpIngestProperties();
+        tcpIngestProperties.setEnabled(true);
+        tcpIngestProperties.setHost("localhost");
+        tcpIngestProperties.setPort(0);
+        tcpIngestProperties.setBatchSize(batchSize);
+        tcpIngestProperties.setFlushInterval(flushInterval);
+        tcpIngestProperties.setMaxFrameLength(DataSize.ofBytes(maxFrameLength));
+
+        return new TcpIngestServer(logProcessingService, new ObjectMapper(), tcpIngestProperties);
+    }
+}
@@ -0,0 +1,20 @@
+package hu.psprog.leaflet.tlp;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Spring Boot entry point of the reactive (WebFlux and reactive Mongo driver based) runtime.
+ * The blocking log processing service and its query components are servlet runtime only, thus not created here.
+ * The blocking Mongo template is still used by the shared ingestion components (duplicate lookup, stack trace store,
+ * rollup, issue and heavy hitter counters), which the reactive service offloads to a worker scheduler.
+ *
+ * @author Peter Smith
+ */
+@SpringBootApplication
+public class ReactiveTinyLogProcessorApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveTinyLogProcessorApplication.class, args);
+    }
+}
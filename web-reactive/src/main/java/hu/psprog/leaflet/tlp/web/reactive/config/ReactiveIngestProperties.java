@@ -0,0 +1,21 @@
+package hu.psprog.leaflet.tlp.web.reactive.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration properties of log event ingestion in the reactive runtime.
+ * Properties are read from the tlp.ingest.reactive configuration node.
+ *
+ * @author Peter Smith
+ */
+@Data
+@ConfigurationProperties(prefix = "tlp.ingest.reactive")
+public class ReactiveIngestProperties {
+
+    /**
+     * Maximum size of a batch ingestion payload. Batch payloads are collected in memory before processing.
+     */
+    private DataSize maxBatchPayloadSize = DataSize.ofMegabytes(16);
+}
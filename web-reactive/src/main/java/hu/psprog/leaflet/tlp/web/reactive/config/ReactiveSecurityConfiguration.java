@@ -0,0 +1,62 @@
+package hu.psprog.leaflet.tlp.web.reactive.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+/**
+ * Spring WebFlux Security configuration.
+ *
+ * @author Peter Smith
+ */
+@Configuration
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfiguration {
+
+    private static final String ENDPOINT_LOGS = "/logs";
+    private static final String ENDPOINT_V2_LOGS = "/v2/logs";
+    private static final String ENDPOINT_V2_LOGS_BATCH = "/v2/logs/batch";
+    private static final String ENDPOINT_V2_LOGS_STREAM = "/v2/logs/stream";
+    private static final String ENDPOINT_V2_LOGS_COUNT = "/v2/logs/count/*";
+    private static final String ENDPOINT_ACTUATOR = "/actuator/**";
+    private static final String ENDPOINT_ACTUATOR_INDEX_ADVISOR = "/actuator/indexadvisor";
+
+    private static final String SCOPE_READ_LOGS = "SCOPE_read:logs";
+    private static final String SCOPE_MANAGE_LOGS = "SCOPE_manage:logs";
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+
+        return http
+                .authorizeExchange(registry -> registry
+                        .pathMatchers(HttpMethod.POST, ENDPOINT_LOGS)
+                            .permitAll()
+                        .pathMatchers(HttpMethod.POST, ENDPOINT_V2_LOGS_BATCH)
+                            .permitAll()
+                        .pathMatchers(HttpMethod.POST, ENDPOINT_V2_LOGS_STREAM)
+                            .permitAll()
+                        .pathMatchers(ENDPOINT_ACTUATOR_INDEX_ADVISOR)
+                            .hasAuthority(SCOPE_MANAGE_LOGS)
+                        .pathMatchers(HttpMethod.GET, ENDPOINT_ACTUATOR)
+                            .permitAll()
+                        .pathMatchers(HttpMethod.GET, ENDPOINT_LOGS)
+                            .hasAuthority(SCOPE_READ_LOGS)
+                        .pathMatchers(HttpMethod.POST, ENDPOINT_V2_LOGS)
+                            .hasAuthority(SCOPE_READ_LOGS)
+                        .pathMatchers(HttpMethod.GET, ENDPOINT_V2_LOGS_COUNT)
+                            .hasAuthority(SCOPE_READ_LOGS))
+
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+
+                .oauth2ResourceServer(resourceServer -> resourceServer
+                        .jwt(jwtSpec -> {}))
+
+                .build();
+    }
+}
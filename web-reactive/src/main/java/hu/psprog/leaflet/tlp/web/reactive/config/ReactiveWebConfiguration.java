@@ -0,0 +1,14 @@
+package hu.psprog.leaflet.tlp.web.reactive.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reactive runtime configuration.
+ *
+ * @author Peter Smith
+ */
+@Configuration
+@EnableConfigurationProperties(ReactiveIngestProperties.class)
+public class ReactiveWebConfiguration {
+}
@@ -0,0 +1,154 @@
+package hu.psprog.leaflet.tlp.web.reactive.persistence.dao;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
+import org.bson.RawBsonDocument;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reactive {@link LoggingEvent} DAO operations.
+ *
+ * @author Peter Smith
+ */
+public interface ReactiveLogEventDAO {
+
+    /**
+     * Returns paged list of {@link LoggingEvent} entries that conforms given paging parameters.
+     *
+     * @param pageable paging parameters
+     * @param projection fields to be fetched
+     * @return paged list of {@link LoggingEvent} entries
+     */
+    Mono<Page<LoggingEvent>> findAll(Pageable pageable, LogEventProjection projection);
+
+    /**
+     * Returns paged list of {@link LoggingEvent} entries that conforms given paging parameters and filters expressions.
+     *
+     * @param predicate QueryDSL filter expression
+     * @param pageable paging parameters
+     * @param projection fields to be fetched
+     * @return paged list of {@link LoggingEvent} entries
+     */
+    Mono<Page<LoggingEvent>> findAll(Predicate predicate, Pageable pageable, LogEventProjection projection);
+
+    /**
+     * Returns the first given number of {@link LoggingEvent} entries that conforms given filter expressions, in the given order.
+     * Unlike the paged queries, it does not count the matching entries.
+     *
+     * @param predicate QueryDSL filter expression
+     * @param sort ordering of the entries
+     * @param limit maximum number of entries to return
+     * @param projection fields to be fetched
+     * @return list of {@link LoggingEvent} entries
+     */
+    Mono<List<LoggingEvent>> findAll(Predicate predicate, Sort sort, int limit, LogEventProjection projection);
+
+    /**
+     * Returns a slice of {@link LoggingEvent} entries that conforms given paging parameters.
+     * Unlike {@link #findAll(Pageable, LogEventProjection)}, it does not count the entries, only checks whether there is a next slice.
+     *
+     * @param pageable paging parameters
+     * @param projection fields to be fetched
+     * @return sliced list of {@link LoggingEvent} entries
+     */
+    Mono<Slice<LoggingEvent>> findSlice(Pageable pageable, LogEventProjection projection);
+
+    /**
+     * Returns a slice of {@link LoggingEvent} entries that conforms given paging parameters and filter expressions.
+     * Unlike {@link #findAll(Predicate, Pageable, LogEventProjection)}, it does not count the matching entries, only checks whether there is a next slice.
+     *
+     * @param predicate QueryDSL filter expression
+     * @param pageable paging parameters
+     * @param projection fields to be fetched
+     * @return sliced list of {@link LoggingEvent} entries
+     */
+    Mono<Slice<LoggingEvent>> findSlice(Predicate predicate, Pageable pageable, LogEventProjection projection);
+
+    /**
+     * Returns the number of stored {@link LoggingEvent} entries.
+     *
+     * @return number of entries
+     */
+    Mono<Long> count();
+
+    /**
+     * Returns the number of {@link LoggingEvent} entries that conforms given filter expressions.
+     *
+     * @param predicate QueryDSL filter expression
+     * @return number of matching entries
+     */
+    Mono<Long> count(Predicate predicate);
+
+    /**
+     * Returns the number of {@link LoggingEvent} entries that conforms given filter expressions, but stops counting at the given limit.
+     *
+     * @param predicate QueryDSL filter expression
+     * @param limit maximum number of entries to count
+     * @return number of matching entries, at most the given limit
+     */
+    Mono<Long> countUpTo(Predicate predicate, long limit);
+
+    /**
+     * Returns the estimated number of stored {@link LoggingEvent} entries, based on the collection metadata.
+     *
+     * @return estimated number of entries
+     */
+    Mono<Long> estimatedCount();
+
+    /**
+     * Returns the stages of the query plan the database would choose for retrieving the {@link LoggingEvent} entries
+     * in the given order. The query is only planned, not executed.
+     *
+     * @param sort ordering parameters
+     * @return stage names (like IXSCAN or COLLSCAN) of the winning query plan
+     */
+    Mono<Set<String>> explainStages(Sort sort);
+
+    /**
+     * Returns the stages of the query plan the database would choose for retrieving the {@link LoggingEvent} entries
+     * that conforms given filter expressions in the given order. The query is only planned, not executed.
+     *
+     * @param predicate QueryDSL filter expression
+     * @param sort ordering parameters
+     * @return stage names (like IXSCAN or COLLSCAN) of the winning query plan
+     */
+    Mono<Set<String>> explainStages(Predicate predicate, Sort sort);
+
+    /**
+     * Stores given {@link LoggingEvent} object.
+     * An event rejected by the unique event ID index (duplicate key error) is considered already stored, and is not written again.
+     *
+     * @param loggingEvent {@link LoggingEvent} object to store
+     * @return {@code true} if the event has been stored by this call, {@code false} if it has been rejected as a duplicate
+     */
+    Mono<Boolean> save(LoggingEvent loggingEvent);
+
+    /**
+     * Stores given list of {@link LoggingEvent} objects using an unordered bulk write.
+     * Failing items do not prevent storing the rest of the list. Items rejected by the unique event ID index
+     * (duplicate key errors) are considered already stored, thus not reported as failures, but as duplicates.
+     *
+     * @param loggingEvents list of {@link LoggingEvent} objects to store
+     * @return {@link StoreResult} describing the failed and duplicate items (indices refer to the position in the given list)
+     */
+    Mono<StoreResult> saveAll(List<LoggingEvent> loggingEvents);
+
+    /**
+     * Stores given list of already encoded log event documents using an unordered bulk write, bypassing the mapping layer.
+     * Documents must conform the stored format of {@link LoggingEvent}. Failing items do not prevent storing the rest of the list.
+     * Duplicate key errors are handled the same way as by {@link #saveAll(List)}.
+     *
+     * @param documents list of encoded log event documents as {@link RawBsonDocument} objects
+     * @return {@link StoreResult} describing the failed and duplicate items (indices refer to the position in the given list)
+     */
+    Mono<StoreResult> saveAllDocuments(List<RawBsonDocument> documents);
+}
@@ -0,0 +1,277 @@
+package hu.psprog.leaflet.tlp.web.reactive.persistence.dao.impl;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
+import hu.psprog.leaflet.tlp.web.reactive.persistence.dao.ReactiveLogEventDAO;
+import hu.psprog.leaflet.tlp.web.reactive.persistence.repository.ReactiveLogEventRepository;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.SpringDataMongodbQuery;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link ReactiveLogEventDAO}.
+ * Find and count operations are executed with the maximum execution time configured for the query cost guard.
+ * QueryDSL predicates are rendered to filter documents the same way as by the blocking DAO, since the reactive QueryDSL support
+ * of Spring Data does not allow limiting the execution time of the queries.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class ReactiveLogEventDAOImpl implements ReactiveLogEventDAO {
+
+    private static final InsertManyOptions UNORDERED_INSERT = new InsertManyOptions().ordered(false);
+    private static final String FIELD_QUERY_PLANNER = "queryPlanner";
+    private static final String FIELD_WINNING_PLAN = "winningPlan";
+    private static final String FIELD_STAGE = "stage";
+
+    private final ReactiveLogEventRepository reactiveLogEventRepository;
+    private final ReactiveMongoOperations reactiveMongoOperations;
+    private final MongoOperations mongoOperations;
+    private final Duration maxTime;
+
+    @Autowired
+    public ReactiveLogEventDAOImpl(ReactiveLogEventRepository reactiveLogEventRepository, ReactiveMongoOperations reactiveMongoOperations,
+                                   MongoOperations mongoOperations, QueryGuardProperties queryGuardProperties) {
+        this.reactiveLogEventRepository = reactiveLogEventRepository;
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.mongoOperations = mongoOperations;
+        this.maxTime = queryGuardProperties.getMaxTime();
+    }
+
+    @Override
+    public Mono<Page<LoggingEvent>> findAll(Pageable pageable, LogEventProjection projection) {
+        return findPage(new Document(), pageable, projection);
+    }
+
+    @Override
+    public Mono<Page<LoggingEvent>> findAll(Predicate predicate, Pageable pageable, LogEventProjection projection) {
+        return findPage(createFilter(predicate), pageable, projection);
+    }
+
+    @Override
+    public Mono<List<LoggingEvent>> findAll(Predicate predicate, Sort sort, int limit, LogEventProjection projection) {
+
+        Query query = new BasicQuery(createFilter(predicate))
+                .with(sort)
+                .limit(limit);
+
+        return reactiveMongoOperations.find(limitTime(project(query, projection)), LoggingEvent.class)
+                .collectList();
+    }
+
+    @Override
+    public Mono<Slice<LoggingEvent>> findSlice(Pageable pageable, LogEventProjection projection) {
+        return findSlice(new Document(), pageable, projection);
+    }
+
+    @Override
+    public Mono<Slice<LoggingEvent>> findSlice(Predicate predicate, Pageable pageable, LogEventProjection projection) {
+        return findSlice(createFilter(predicate), pageable, projection);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return reactiveMongoOperations.count(limitTime(new Query()), LoggingEvent.class);
+    }
+
+    @Override
+    public Mono<Long> count(Predicate predicate) {
+        return reactiveMongoOperations.count(limitTime(new BasicQuery(createFilter(predicate))), LoggingEvent.class);
+    }
+
+    @Override
+    public Mono<Long> countUpTo(Predicate predicate, long limit) {
+
+        Query query = new BasicQuery(createFilter(predicate))
+                .limit(Math.toIntExact(limit));
+
+        return reactiveMongoOperations.count(limitTime(query), LoggingEvent.class);
+    }
+
+    @Override
+    public Mono<Long> estimatedCount() {
+        return reactiveMongoOperations.estimatedCount(LoggingEvent.class);
+    }
+
+    @Override
+    public Mono<Set<String>> explainStages(Sort sort) {
+        return explainStages(new Document(), sort);
+    }
+
+    @Override
+    public Mono<Set<String>> explainStages(Predicate predicate, Sort sort) {
+        return explainStages(createFilter(predicate), sort);
+    }
+
+    @Override
+    public Mono<Boolean> save(LoggingEvent loggingEvent) {
+        return reactiveLogEventRepository.save(loggingEvent)
+                .thenReturn(true)
+                .onErrorResume(DuplicateKeyException.class, exception -> Mono.just(false));
+    }
+
+    @Override
+    public Mono<StoreResult> saveAll(List<LoggingEvent> loggingEvents) {
+
+        List<Document> documents = loggingEvents.stream()
+                .map(this::toDocument)
+                .collect(Collectors.toList());
+
+        return insertUnordered(documents, Document.class);
+    }
+
+    @Override
+    public Mono<StoreResult> saveAllDocuments(List<RawBsonDocument> documents) {
+        return insertUnordered(documents, RawBsonDocument.class);
+    }
+
+    private Mono<Page<LoggingEvent>> findPage(Document filter, Pageable pageable, LogEventProjection projection) {
+
+        Query query = new BasicQuery(filter).with(pageable);
+
+        return reactiveMongoOperations.find(limitTime(project(query, projection)), LoggingEvent.class)
+                .collectList()
+                .zipWith(reactiveMongoOperations.count(limitTime(new BasicQuery(filter)), LoggingEvent.class))
+                .map(pageContent -> new PageImpl<>(pageContent.getT1(), pageable, pageContent.getT2()));
+    }
+
+    private Mono<Slice<LoggingEvent>> findSlice(Document filter, Pageable pageable, LogEventProjection projection) {
+
+        // one extra event is retrieved to determine whether there is a next slice
+        Query query = new BasicQuery(filter)
+                .with(pageable)
+                .limit(pageable.getPageSize() + 1);
+
+        return reactiveMongoOperations.find(limitTime(project(query, projection)), LoggingEvent.class)
+                .collectList()
+                .map(loggingEvents -> {
+                    boolean hasNext = loggingEvents.size() > pageable.getPageSize();
+                    return new SliceImpl<>(hasNext
+                            ? loggingEvents.subList(0, pageable.getPageSize())
+                            : loggingEvents, pageable, hasNext);
+                });
+    }
+
+    private Mono<Set<String>> explainStages(Document filter, Sort sort) {
+
+        MongoConverter mongoConverter = reactiveMongoOperations.getConverter();
+        Document mappedSort = new QueryMapper(mongoConverter).getMappedSort(new Query().with(sort).getSortObject(),
+                mongoConverter.getMappingContext().getPersistentEntity(LoggingEvent.class));
+
+        // the winning plan is a tree of stages, its shape depends on the server version and topology
+        return reactiveMongoOperations.execute(LoggingEvent.class, collection -> collection.find(filter)
+                        .sort(mappedSort)
+                        .explain(ExplainVerbosity.QUERY_PLANNER))
+                .next()
+                .map(explanation -> {
+                    Set<String> stages = new HashSet<>();
+                    Optional.ofNullable(explanation.get(FIELD_QUERY_PLANNER, Document.class))
+                            .map(queryPlanner -> queryPlanner.get(FIELD_WINNING_PLAN))
+                            .ifPresent(winningPlan -> collectStages(winningPlan, stages));
+                    return stages;
+                });
+    }
+
+    private void collectStages(Object planNode, Set<String> stages) {
+
+        if (planNode instanceof Document document) {
+            Optional.ofNullable(document.getString(FIELD_STAGE))
+                    .ifPresent(stages::add);
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (planNode instanceof List<?> list) {
+            list.forEach(item -> collectStages(item, stages));
+        }
+    }
+
+    private Document createFilter(Predicate predicate) {
+
+        return new SpringDataMongodbQuery<LoggingEvent>(mongoOperations, LoggingEvent.class)
+                .where(predicate)
+                .asDocument();
+    }
+
+    private Query limitTime(Query query) {
+
+        if (!maxTime.isZero()) {
+            query.maxTime(maxTime);
+        }
+
+        return query;
+    }
+
+    private Query project(Query query, LogEventProjection projection) {
+
+        if (projection.isRestricted()) {
+            query.fields().include(projection.getStoredFields());
+        }
+
+        return query;
+    }
+
+    private Document toDocument(LoggingEvent loggingEvent) {
+
+        Document document = new Document();
+        reactiveMongoOperations.getConverter().write(loggingEvent, document);
+
+        return document;
+    }
+
+    private <T> Mono<StoreResult> insertUnordered(List<T> documents, Class<T> documentClass) {
+
+        if (documents.isEmpty()) {
+            return Mono.just(StoreResult.allStored());
+        }
+
+        return reactiveMongoOperations.getCollection(reactiveMongoOperations.getCollectionName(LoggingEvent.class))
+                .flatMap(collection -> Mono.from(collection.withDocumentClass(documentClass).insertMany(documents, UNORDERED_INSERT)))
+                .map(insertManyResult -> StoreResult.allStored())
+                .onErrorResume(MongoBulkWriteException.class, exception -> Mono.just(mapBulkWriteErrors(exception.getWriteErrors())));
+    }
+
+    private StoreResult mapBulkWriteErrors(List<BulkWriteError> bulkWriteErrors) {
+
+        Map<Boolean, List<BulkWriteError>> errorsByDuplicateKey = bulkWriteErrors.stream()
+                .collect(Collectors.partitioningBy(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY));
+
+        return new StoreResult(
+                errorsByDuplicateKey.get(false).stream()
+                        .map(error -> new BatchItemFailure(error.getIndex(), error.getMessage()))
+                        .collect(Collectors.toList()),
+                errorsByDuplicateKey.get(true).stream()
+                        .map(BulkWriteError::getIndex)
+                        .collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,15 @@
+package hu.psprog.leaflet.tlp.web.reactive.persistence.repository;
+
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.querydsl.ReactiveQuerydslPredicateExecutor;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link LoggingEvent} reactive Mongo repository interface.
+ *
+ * @author Peter Smith
+ */
+@Repository
+public interface ReactiveLogEventRepository extends ReactiveMongoRepository<LoggingEvent, String>, ReactiveQuerydslPredicateExecutor<LoggingEvent> {
+}
@@ -0,0 +1,309 @@
+package hu.psprog.leaflet.tlp.web.reactive.rest.controller;
+
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.api.domain.LogRequest;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LogStoreStatus;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.exception.QueryRejectedException;
+import hu.psprog.leaflet.tlp.web.reactive.config.ReactiveIngestProperties;
+import hu.psprog.leaflet.tlp.web.reactive.exception.LogRetrievalFailureException;
+import hu.psprog.leaflet.tlp.web.reactive.exception.LoggingEventProcessingFailureException;
+import hu.psprog.leaflet.tlp.web.reactive.exception.model.ErrorMessageResponse;
+import hu.psprog.leaflet.tlp.web.reactive.service.ReactiveLogProcessingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Reactive log processor controller.
+ * Provides the same endpoints as the servlet based LogsController of the tlp-web module.
+ *
+ * @author Peter Smith
+ */
+@RestController
+public class ReactiveLogsController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveLogsController.class);
+    private static final String UNEXPECTED_EXCEPTION_OCCURRED = "Unexpected exception occurred";
+
+    static final String HEADER_NEXT_CURSOR = "X-TLP-Next-Cursor";
+    static final String HEADER_PREVIOUS_CURSOR = "X-TLP-Previous-Cursor";
+    static final String HEADER_TOTAL_COUNT_TYPE = "X-TLP-Total-Count-Type";
+    static final String HEADER_COUNT_TOKEN = "X-TLP-Count-Token";
+
+    static final String PATH_LOGS = "/logs";
+    static final String PATH_V2_LOGS = "/v2/logs";
+    static final String PATH_V2_LOGS_BATCH = "/v2/logs/batch";
+    static final String PATH_V2_LOGS_STREAM = "/v2/logs/stream";
+    static final String PATH_V2_LOGS_COUNT = "/v2/logs/count/{countToken}";
+
+    private final ReactiveLogProcessingService reactiveLogProcessingService;
+    private final int maxBatchPayloadSize;
+
+    @Autowired
+    public ReactiveLogsController(ReactiveLogProcessingService reactiveLogProcessingService, ReactiveIngestProperties reactiveIngestProperties) {
+        this.reactiveLogProcessingService = reactiveLogProcessingService;
+        this.maxBatchPayloadSize = Math.toIntExact(reactiveIngestProperties.getMaxBatchPayloadSize().toBytes());
+    }
+
+    /**
+     * GET /logs
+     * Returns stored log messages. {@link LogRequest} parameters can be provided as GET parameters,
+     * the same way as for the servlet based API.
+     *
+     * @param logRequest paging and filtering parameters parsed as {@link LogRequest} object
+     * @return paged list of log events returned for given {@link LogRequest} with HTTP status 200
+     * @deprecated this endpoint is part of the old TLP API and will be removed in the next major version
+     */
+    @GetMapping(path = PATH_LOGS)
+    @Deprecated(forRemoval = true)
+    public Mono<ResponseEntity<LogEventPage>> getLogs(LogRequest logRequest) {
+
+        return reactiveLogProcessingService.getLogs(logRequest)
+                .map(ResponseEntity::ok)
+                .onErrorMap(exc -> !(exc instanceof QueryRejectedException), exc -> new LogRetrievalFailureException(logRequest, exc));
+    }
+
+    /**
+     * POST /v2/logs
+     * Returns stored messages. Expects a valid TLQL query string.
+     * Supports cursor based paging the same way as the servlet based API (cursor parameter,
+     * X-TLP-Next-Cursor and X-TLP-Previous-Cursor response headers), as well as the count modes
+     * (count parameter, X-TLP-Total-Count-Type and X-TLP-Count-Token response headers) and field projection (fields parameter).
+     * When large field compression is enabled, message conditions only match within the uncompressed search shadow
+     * of compressed messages (their first tlp.storage.compression.search-shadow-length characters).
+     *
+     * @param logRequest TLQL query string
+     * @param cursor optional cursor of the requested page
+     * @param count optional count mode (exact, none, estimated or deferred)
+     * @param fields optional comma-separated list of fields to be returned
+     * @return paged list of log events returned for given TLQL query with HTTP status 200
+     */
+    @PostMapping(path = PATH_V2_LOGS)
+    public Mono<ResponseEntity<LogEventPage>> getLogs(@RequestBody String logRequest, @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) String count,
+                                                      @RequestParam(required = false) String fields) {
+
+        return Mono.fromCallable(() -> CountMode.parse(count))
+                .zipWith(Mono.fromCallable(() -> LogEventProjection.parse(fields)))
+                .flatMap(options -> reactiveLogProcessingService.getLogs(logRequest, cursor, options.getT1(), options.getT2()))
+                .map(logEventQueryResult -> ResponseEntity
+                        .ok()
+                        .headers(createQueryResultHeaders(logEventQueryResult))
+                        .body(logEventQueryResult.page()))
+                .onErrorMap(exc -> !(exc instanceof QueryRejectedException), exc -> new LogRetrievalFailureException(logRequest, exc));
+    }
+
+    /**
+     * GET /v2/logs/count/{countToken}
+     * Returns the status of an exact count started in the background by a query executed in deferred count mode.
+     *
+     * @param countToken count token returned in the X-TLP-Count-Token header of the query
+     * @return status of the count as {@link DeferredCount} with HTTP status 200, or HTTP status 404 if the token is unknown or already expired
+     */
+    @GetMapping(path = PATH_V2_LOGS_COUNT)
+    public Mono<ResponseEntity<DeferredCount>> getDeferredCount(@PathVariable String countToken) {
+
+        return reactiveLogProcessingService.getDeferredCount(countToken)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * POST /logs
+     * Stores given {@link LoggingEvent}.
+     *
+     * @param loggingEvent {@link LoggingEvent} object to store
+     * @return empty response with HTTP status 201, or HTTP status 202 if the event has been dropped by ingest rate limiting
+     */
+    @PostMapping(path = PATH_LOGS)
+    public Mono<ResponseEntity<Void>> storeLog(@RequestBody LoggingEvent loggingEvent) {
+
+        return reactiveLogProcessingService.storeLog(loggingEvent)
+                .map(logStoreStatus -> ResponseEntity.status(logStoreStatus == LogStoreStatus.STORED
+                                ? HttpStatus.CREATED
+                                : HttpStatus.ACCEPTED)
+                        .<Void>build())
+                .onErrorMap(LoggingEventProcessingFailureException::new);
+    }
+
+    /**
+     * POST /v2/logs/batch
+     * Stores a batch of {@link LoggingEvent}s. Payload can either be a JSON array (application/json)
+     * or a newline-delimited JSON stream (application/x-ndjson) of log events.
+     * The payload is collected in memory (up to tlp.ingest.reactive.max-batch-payload-size) before processing.
+     *
+     * @param contentType content type of the payload
+     * @param payload batch payload
+     * @return {@link BatchIngestionResult} with HTTP status 201 if all items have been stored, or HTTP status 207 if any of them failed
+     */
+    @PostMapping(path = PATH_V2_LOGS_BATCH, consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<BatchIngestionResult>> storeLogs(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                                @RequestBody Flux<DataBuffer> payload) {
+        return processBatch(contentType, payload, reactiveLogProcessingService::storeLogs);
+    }
+
+    /**
+     * POST /v2/logs/stream
+     * Stores a batch of log events, transcoding them directly into their stored document format.
+     * Accepts the same payload formats as POST /v2/logs/batch.
+     *
+     * @param contentType content type of the payload
+     * @param payload batch payload
+     * @return {@link BatchIngestionResult} with HTTP status 201 if all items have been stored, or HTTP status 207 if any of them failed
+     */
+    @PostMapping(path = PATH_V2_LOGS_STREAM, consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<BatchIngestionResult>> streamLogs(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                                 @RequestBody Flux<DataBuffer> payload) {
+        return processBatch(contentType, payload, reactiveLogProcessingService::storeLogsDirectly);
+    }
+
+    /**
+     * Exception handler for {@link LogRetrievalFailureException}.
+     *
+     * @param exception exception object
+     * @return exception message with HTTP status 400
+     */
+    @ExceptionHandler(LogRetrievalFailureException.class)
+    ResponseEntity<ErrorMessageResponse> retrievalFailureHandler(LogRetrievalFailureException exception) {
+
+        LOGGER.error("Failed to retrieve logs", exception);
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(buildExceptionMessageForResponse(exception));
+    }
+
+    /**
+     * Exception handler for {@link LoggingEventProcessingFailureException}.
+     *
+     * @param exception exception object
+     * @return exception message with HTTP status 409
+     */
+    @ExceptionHandler(LoggingEventProcessingFailureException.class)
+    ResponseEntity<ErrorMessageResponse> eventProcessingFailureHandler(LoggingEventProcessingFailureException exception) {
+
+        LOGGER.error("Failed to process log event", exception);
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(buildExceptionMessageForResponse(exception));
+    }
+
+    /**
+     * Exception handler for {@link QueryRejectedException}.
+     *
+     * @param exception exception object
+     * @return exception message (describing the limit the query has hit) with HTTP status 422
+     */
+    @ExceptionHandler(QueryRejectedException.class)
+    ResponseEntity<ErrorMessageResponse> queryRejectedHandler(QueryRejectedException exception) {
+
+        LOGGER.warn("Log query rejected: {}", exception.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(buildExceptionMessageForResponse(exception));
+    }
+
+    /**
+     * Default exception handler.
+     *
+     * @param exception exception that has been thrown
+     * @return exception message with HTTP status 500
+     */
+    @ExceptionHandler
+    ResponseEntity<ErrorMessageResponse> defaultExceptionHandler(Exception exception) {
+
+        LOGGER.error(UNEXPECTED_EXCEPTION_OCCURRED, exception);
+
+        return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(buildExceptionMessageForResponse());
+    }
+
+    private Mono<ResponseEntity<BatchIngestionResult>> processBatch(MediaType contentType, Flux<DataBuffer> payload,
+                                                                    BiFunction<InputStream, BatchPayloadFormat, Mono<BatchIngestionResult>> batchProcessor) {
+
+        return DataBufferUtils.join(payload, maxBatchPayloadSize)
+                .defaultIfEmpty(DefaultDataBufferFactory.sharedInstance.allocateBuffer(0))
+                .map(dataBuffer -> dataBuffer.asInputStream(true))
+                .flatMap(inputStream -> batchProcessor.apply(inputStream, mapPayloadFormat(contentType)))
+                .map(this::createBatchIngestionResponse)
+                .onErrorMap(LoggingEventProcessingFailureException::new);
+    }
+
+    private ResponseEntity<BatchIngestionResult> createBatchIngestionResponse(BatchIngestionResult batchIngestionResult) {
+
+        return ResponseEntity
+                .status(batchIngestionResult.failures().isEmpty()
+                        ? HttpStatus.CREATED
+                        : HttpStatus.MULTI_STATUS)
+                .body(batchIngestionResult);
+    }
+
+    private HttpHeaders createQueryResultHeaders(LogEventQueryResult logEventQueryResult) {
+
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.set(HEADER_TOTAL_COUNT_TYPE, logEventQueryResult.totalCount().type().name());
+        if (Objects.nonNull(logEventQueryResult.totalCount().countToken())) {
+            httpHeaders.set(HEADER_COUNT_TOKEN, logEventQueryResult.totalCount().countToken());
+        }
+        if (Objects.nonNull(logEventQueryResult.nextCursor())) {
+            httpHeaders.set(HEADER_NEXT_CURSOR, logEventQueryResult.nextCursor());
+        }
+        if (Objects.nonNull(logEventQueryResult.previousCursor())) {
+            httpHeaders.set(HEADER_PREVIOUS_CURSOR, logEventQueryResult.previousCursor());
+        }
+
+        return httpHeaders;
+    }
+
+    private BatchPayloadFormat mapPayloadFormat(MediaType contentType) {
+
+        return MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? BatchPayloadFormat.NDJSON
+                : BatchPayloadFormat.JSON_ARRAY;
+    }
+
+    private ErrorMessageResponse buildExceptionMessageForResponse() {
+
+        return ErrorMessageResponse.getBuilder()
+                .withMessage(UNEXPECTED_EXCEPTION_OCCURRED)
+                .build();
+    }
+
+    private ErrorMessageResponse buildExceptionMessageForResponse(Exception exception) {
+
+        return ErrorMessageResponse.getBuilder()
+                .withMessage(exception.getMessage())
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package hu.psprog.leaflet.tlp.web.reactive.service;
+
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.api.domain.LogRequest;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LogStoreStatus;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import reactor.core.publisher.Mono;
+
+import java.io.InputStream;
+
+/**
+ * Reactive log processing operations service interface.
+ * Mirrors {@link hu.psprog.leaflet.tlp.core.service.LogProcessingService}, with every database operation being non-blocking.
+ *
+ * @author Peter Smith
+ */
+public interface ReactiveLogProcessingService {
+
+    /**
+     * Returns a page of logs based on given {@link LogRequest}.
+     *
+     * @param logRequest {@link LogRequest} to return logs for
+     * @return LogEventPage object containing a list of logs with paging information
+     */
+    Mono<LogEventPage> getLogs(LogRequest logRequest);
+
+    /**
+     * Returns a page of logs based on given TLQL query string.
+     * If a cursor is given, the page it points to is returned (ignoring the offset of the query), otherwise the page is selected by the offset.
+     * The total number of matching events is determined according to the given {@link CountMode}.
+     *
+     * @param logRequest TLQL query string to be translated and used as a query for returning logs
+     * @param cursor optional opaque cursor returned by a previous query (null to use offset based paging)
+     * @param countMode {@link CountMode} to determine the total number of matching events with
+     * @param projection {@link LogEventProjection} specifying the fields to be returned (fields not requested are left empty)
+     * @return {@link LogEventQueryResult} object containing a list of logs with paging information, the cursors of the neighbouring pages,
+     * and the kind of the returned total count
+     */
+    Mono<LogEventQueryResult> getLogs(String logRequest, String cursor, CountMode countMode, LogEventProjection projection);
+
+    /**
+     * Returns the status of an exact count started in the background by a query executed in {@link CountMode#DEFERRED} mode.
+     *
+     * @param countToken count token returned by the query
+     * @return status of the count as {@link DeferredCount}, or empty {@link Mono} if the token is unknown or already expired
+     */
+    Mono<DeferredCount> getDeferredCount(String countToken);
+
+    /**
+     * Stores given {@link LoggingEvent}.
+     * If ingest rate limiting is enabled, the event may be dropped without being stored.
+     *
+     * @param loggingEvent {@link LoggingEvent} to store
+     * @return {@link LogStoreStatus} indicating whether the event has been stored or dropped
+     */
+    Mono<LogStoreStatus> storeLog(LoggingEvent loggingEvent);
+
+    /**
+     * Stores a batch of {@link LoggingEvent}s read from the given (fully received) payload.
+     * Items failing to be parsed or stored are reported individually, without affecting the rest of the batch.
+     * Items dropped by ingest rate limiting are only counted.
+     *
+     * @param payload batch payload as {@link InputStream}
+     * @param format format of the payload as {@link BatchPayloadFormat}
+     * @return {@link BatchIngestionResult} object containing the number of stored and dropped items and the list of failed items
+     */
+    Mono<BatchIngestionResult> storeLogs(InputStream payload, BatchPayloadFormat format);
+
+    /**
+     * Stores a batch of log events read from the given (fully received) payload, transcoding them directly into their stored document format.
+     * Works the same way as {@link #storeLogs(InputStream, BatchPayloadFormat)}, but skips building {@link LoggingEvent} objects.
+     *
+     * @param payload batch payload as {@link InputStream}
+     * @param format format of the payload as {@link BatchPayloadFormat}
+     * @return {@link BatchIngestionResult} object containing the number of stored and dropped items and the list of failed items
+     */
+    Mono<BatchIngestionResult> storeLogsDirectly(InputStream payload, BatchPayloadFormat format);
+}
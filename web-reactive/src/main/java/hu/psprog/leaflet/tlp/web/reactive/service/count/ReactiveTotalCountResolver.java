@@ -0,0 +1,75 @@
+package hu.psprog.leaflet.tlp.web.reactive.service.count;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryCountProperties;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.service.count.DeferredCountRegistry;
+import hu.psprog.leaflet.tlp.web.reactive.persistence.dao.ReactiveLogEventDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Reactive counterpart of {@link hu.psprog.leaflet.tlp.core.service.count.TotalCountResolver}.
+ * Deferred counts are still calculated by the worker threads of {@link DeferredCountRegistry}, which wait for the reactive count to complete.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class ReactiveTotalCountResolver {
+
+    private final ReactiveLogEventDAO reactiveLogEventDAO;
+    private final DeferredCountRegistry deferredCountRegistry;
+    private final QueryCountProperties queryCountProperties;
+
+    @Autowired
+    public ReactiveTotalCountResolver(ReactiveLogEventDAO reactiveLogEventDAO, DeferredCountRegistry deferredCountRegistry,
+                                      QueryCountProperties queryCountProperties) {
+        this.reactiveLogEventDAO = reactiveLogEventDAO;
+        this.deferredCountRegistry = deferredCountRegistry;
+        this.queryCountProperties = queryCountProperties;
+    }
+
+    /**
+     * Determines the total number of log events matching the given filter expression.
+     *
+     * @param expression optional filter expression of the query
+     * @param countMode requested {@link CountMode}
+     * @return determined {@link TotalCount}
+     */
+    public Mono<TotalCount> resolve(Optional<Predicate> expression, CountMode countMode) {
+
+        return switch (countMode) {
+            case EXACT -> count(expression).map(TotalCount::exact);
+            case NONE -> Mono.just(TotalCount.atLeast(0, null));
+            case ESTIMATED -> estimate(expression);
+            case DEFERRED -> Mono.fromCallable(() -> TotalCount.atLeast(0,
+                    deferredCountRegistry.submit(() -> count(expression).block()).orElse(null)));
+        };
+    }
+
+    private Mono<TotalCount> estimate(Optional<Predicate> expression) {
+
+        if (expression.isEmpty()) {
+            return reactiveLogEventDAO.estimatedCount()
+                    .map(TotalCount::estimated);
+        }
+
+        long cap = queryCountProperties.getCap();
+
+        return reactiveLogEventDAO.countUpTo(expression.get(), cap + 1)
+                .map(cappedCount -> cappedCount > cap
+                        ? TotalCount.atLeast(cap, null)
+                        : TotalCount.exact(cappedCount));
+    }
+
+    private Mono<Long> count(Optional<Predicate> expression) {
+
+        return expression.isPresent()
+                ? reactiveLogEventDAO.count(expression.get())
+                : reactiveLogEventDAO.count();
+    }
+}
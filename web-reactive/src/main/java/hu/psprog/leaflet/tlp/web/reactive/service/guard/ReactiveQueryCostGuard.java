@@ -0,0 +1,85 @@
+package hu.psprog.leaflet.tlp.web.reactive.service.guard;
+
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.exception.QueryRejectedException;
+import hu.psprog.leaflet.tlp.core.service.cache.QueryScopeExtractor;
+import hu.psprog.leaflet.tlp.web.reactive.persistence.dao.ReactiveLogEventDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Reactive counterpart of {@link hu.psprog.leaflet.tlp.core.service.guard.QueryCostGuard}.
+ * The check is completed before the guarded query is subscribed, thus rejected queries never reach the database.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class ReactiveQueryCostGuard {
+
+    private static final String STAGE_COLLECTION_SCAN = "COLLSCAN";
+
+    private final ReactiveLogEventDAO reactiveLogEventDAO;
+    private final QueryScopeExtractor queryScopeExtractor;
+    private final boolean rejectCollectionScans;
+    private final long maxCollectionScanDocuments;
+    private final Duration maxTime;
+
+    @Autowired
+    public ReactiveQueryCostGuard(ReactiveLogEventDAO reactiveLogEventDAO, QueryScopeExtractor queryScopeExtractor,
+                                  QueryGuardProperties queryGuardProperties) {
+        this.reactiveLogEventDAO = reactiveLogEventDAO;
+        this.queryScopeExtractor = queryScopeExtractor;
+        this.rejectCollectionScans = queryGuardProperties.isRejectCollectionScans();
+        this.maxCollectionScanDocuments = queryGuardProperties.getMaxCollectionScanDocuments();
+        this.maxTime = queryGuardProperties.getMaxTime();
+    }
+
+    /**
+     * Checks the given query plan, rejecting it if it would scan the whole collection without a lower time bound
+     * (if collection scan rejection is enabled).
+     *
+     * @param queryPlan {@link QueryPlan} to be checked
+     * @return empty {@link Mono} completing when the query is accepted, or failing with {@link QueryRejectedException} if it is rejected
+     */
+    public Mono<Void> check(QueryPlan queryPlan) {
+
+        return Mono.fromCallable(() -> rejectCollectionScans && queryScopeExtractor.extract(queryPlan).since().isEmpty())
+                .filter(Boolean::booleanValue)
+                .flatMap(unbounded -> reactiveLogEventDAO.estimatedCount())
+                .filter(documents -> documents > maxCollectionScanDocuments)
+                .flatMap(documents -> explainStages(queryPlan)
+                        .filter(stages -> stages.contains(STAGE_COLLECTION_SCAN))
+                        .flatMap(stages -> Mono.<Void>error(QueryRejectedException.collectionScan(documents, maxCollectionScanDocuments))))
+                .then();
+    }
+
+    /**
+     * Checks the given query plan (see {@link #check(QueryPlan)}), then subscribes to the query.
+     *
+     * @param queryPlan {@link QueryPlan} of the query
+     * @param query the query to be executed
+     * @param <T> type of the query result
+     * @return result of the query, or failing with {@link QueryRejectedException} if the query is rejected, or it exceeds its execution time limit
+     */
+    public <T> Mono<T> execute(QueryPlan queryPlan, Mono<T> query) {
+
+        return check(queryPlan)
+                .then(query.onErrorMap(QueryRejectedException::isExecutionTimeout,
+                        exception -> QueryRejectedException.executionTimeout(maxTime, exception)));
+    }
+
+    private Mono<Set<String>> explainStages(QueryPlan queryPlan) {
+
+        Sort sort = queryPlan.pageable().getSort();
+
+        return queryPlan.expression()
+                .map(expression -> reactiveLogEventDAO.explainStages(expression, sort))
+                .orElseGet(() -> reactiveLogEventDAO.explainStages(sort));
+    }
+}
@@ -0,0 +1,287 @@
+package hu.psprog.leaflet.tlp.web.reactive.service.impl;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.api.domain.LogRequest;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import hu.psprog.leaflet.tlp.core.domain.FilteredBatch;
+import hu.psprog.leaflet.tlp.core.domain.LogCursor;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventSlice;
+import hu.psprog.leaflet.tlp.core.domain.LogStoreStatus;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.service.count.DeferredCountRegistry;
+import hu.psprog.leaflet.tlp.core.service.idempotency.DuplicateEventFilter;
+import hu.psprog.leaflet.tlp.core.service.index.IndexAdvisor;
+import hu.psprog.leaflet.tlp.core.service.ingest.BatchPayloadReader;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventBsonTranscoder;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventWriter;
+import hu.psprog.leaflet.tlp.core.service.ingest.StoredDocumentRecorder;
+import hu.psprog.leaflet.tlp.core.service.pagination.KeysetPaginator;
+import hu.psprog.leaflet.tlp.core.service.plan.QueryPlanCache;
+import hu.psprog.leaflet.tlp.core.service.ratelimit.IngestRateLimiter;
+import hu.psprog.leaflet.tlp.web.reactive.persistence.dao.ReactiveLogEventDAO;
+import hu.psprog.leaflet.tlp.web.reactive.service.ReactiveLogProcessingService;
+import hu.psprog.leaflet.tlp.web.reactive.service.count.ReactiveTotalCountResolver;
+import hu.psprog.leaflet.tlp.web.reactive.service.guard.ReactiveQueryCostGuard;
+import hu.psprog.leaflet.tlql.ir.DSLQueryModel;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Implementation of {@link ReactiveLogProcessingService}.
+ * Parsing the requests is done on the calling (event loop) thread, while every database operation is executed by the reactive driver.
+ * Steps which may access the database via blocking components of the core module (duplicate event filtering, storage handlers,
+ * like stack trace deduplication, recording directly stored documents, and the result conversion resolving deduplicated stack traces)
+ * are offloaded to a worker scheduler.
+ * Queries are checked by {@link ReactiveQueryCostGuard} before being subscribed.
+ *
+ * @author Peter Smith
+ */
+@Service
+public class ReactiveLogProcessingServiceImpl implements ReactiveLogProcessingService {
+
+    private final ReactiveLogEventDAO reactiveLogEventDAO;
+    private final ConversionService conversionService;
+    private final QueryPlanCache queryPlanCache;
+    private final BatchPayloadReader batchPayloadReader;
+    private final LoggingEventBsonTranscoder loggingEventBsonTranscoder;
+    private final LoggingEventWriter loggingEventWriter;
+    private final StoredDocumentRecorder storedDocumentRecorder;
+    private final DuplicateEventFilter duplicateEventFilter;
+    private final IngestRateLimiter ingestRateLimiter;
+    private final KeysetPaginator keysetPaginator;
+    private final ReactiveTotalCountResolver reactiveTotalCountResolver;
+    private final ReactiveQueryCostGuard reactiveQueryCostGuard;
+    private final DeferredCountRegistry deferredCountRegistry;
+    private final IndexAdvisor indexAdvisor;
+    private final Scheduler blockingTaskScheduler;
+
+    @Autowired
+    public ReactiveLogProcessingServiceImpl(ReactiveLogEventDAO reactiveLogEventDAO, ConversionService conversionService,
+                                            QueryPlanCache queryPlanCache, BatchPayloadReader batchPayloadReader,
+                                            LoggingEventBsonTranscoder loggingEventBsonTranscoder,
+                                            LoggingEventWriter loggingEventWriter, StoredDocumentRecorder storedDocumentRecorder,
+                                            DuplicateEventFilter duplicateEventFilter,
+                                            IngestRateLimiter ingestRateLimiter, KeysetPaginator keysetPaginator,
+                                            ReactiveTotalCountResolver reactiveTotalCountResolver, ReactiveQueryCostGuard reactiveQueryCostGuard,
+                                            DeferredCountRegistry deferredCountRegistry, IndexAdvisor indexAdvisor) {
+        this(reactiveLogEventDAO, conversionService, queryPlanCache, batchPayloadReader,
+                loggingEventBsonTranscoder, loggingEventWriter, storedDocumentRecorder, duplicateEventFilter, ingestRateLimiter, keysetPaginator,
+                reactiveTotalCountResolver, reactiveQueryCostGuard, deferredCountRegistry, indexAdvisor, Schedulers.boundedElastic());
+    }
+
+    ReactiveLogProcessingServiceImpl(ReactiveLogEventDAO reactiveLogEventDAO, ConversionService conversionService,
+                                     QueryPlanCache queryPlanCache, BatchPayloadReader batchPayloadReader,
+                                     LoggingEventBsonTranscoder loggingEventBsonTranscoder,
+                                     LoggingEventWriter loggingEventWriter, StoredDocumentRecorder storedDocumentRecorder,
+                                     DuplicateEventFilter duplicateEventFilter,
+                                     IngestRateLimiter ingestRateLimiter, KeysetPaginator keysetPaginator,
+                                     ReactiveTotalCountResolver reactiveTotalCountResolver, ReactiveQueryCostGuard reactiveQueryCostGuard,
+                                     DeferredCountRegistry deferredCountRegistry, IndexAdvisor indexAdvisor, Scheduler blockingTaskScheduler) {
+        this.reactiveLogEventDAO = reactiveLogEventDAO;
+        this.conversionService = conversionService;
+        this.queryPlanCache = queryPlanCache;
+        this.batchPayloadReader = batchPayloadReader;
+        this.loggingEventBsonTranscoder = loggingEventBsonTranscoder;
+        this.loggingEventWriter = loggingEventWriter;
+        this.storedDocumentRecorder = storedDocumentRecorder;
+        this.duplicateEventFilter = duplicateEventFilter;
+        this.ingestRateLimiter = ingestRateLimiter;
+        this.keysetPaginator = keysetPaginator;
+        this.reactiveTotalCountResolver = reactiveTotalCountResolver;
+        this.reactiveQueryCostGuard = reactiveQueryCostGuard;
+        this.deferredCountRegistry = deferredCountRegistry;
+        this.indexAdvisor = indexAdvisor;
+        this.blockingTaskScheduler = blockingTaskScheduler;
+    }
+
+    @Override
+    public Mono<LogEventPage> getLogs(LogRequest logRequest) {
+        return Mono.fromCallable(() -> queryPlanCache.compile(conversionService.convert(logRequest, DSLQueryModel.class)))
+                .flatMap(this::retrievePage)
+                .publishOn(blockingTaskScheduler)
+                .map(page -> conversionService.convert(page, LogEventPage.class));
+    }
+
+    @Override
+    public Mono<LogEventQueryResult> getLogs(String logRequest, String cursor, CountMode countMode, LogEventProjection projection) {
+
+        Mono<QueryPlan> queryPlan = Mono.fromCallable(() -> queryPlanCache.get(logRequest).withProjection(projection));
+        if (Objects.nonNull(cursor)) {
+            return queryPlan
+                    .flatMap(plan -> retrieveCursorPage(plan, cursor, countMode));
+        }
+
+        if (countMode == CountMode.EXACT) {
+            return queryPlan
+                    .flatMap(this::retrievePage)
+                    .publishOn(blockingTaskScheduler)
+                    .map(page -> keysetPaginator.createResult(page, conversionService.convert(page, LogEventPage.class),
+                            TotalCount.exact(page.getTotalElements())));
+        }
+
+        return queryPlan
+                .flatMap(plan -> retrieveSlice(plan, countMode));
+    }
+
+    @Override
+    public Mono<DeferredCount> getDeferredCount(String countToken) {
+        return Mono.fromCallable(() -> deferredCountRegistry.get(countToken))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    @Override
+    public Mono<LogStoreStatus> storeLog(LoggingEvent loggingEvent) {
+
+        return Mono.fromCallable(() -> ingestRateLimiter.tryAcquire(loggingEvent.getSource(), loggingEvent.getLevel()))
+                .flatMap(admitted -> admitted
+                        ? writeSingle(loggingEvent).thenReturn(LogStoreStatus.STORED)
+                        : Mono.just(LogStoreStatus.DROPPED));
+    }
+
+    @Override
+    public Mono<BatchIngestionResult> storeLogs(InputStream payload, BatchPayloadFormat format) {
+
+        return Mono.fromCallable(() -> batchPayloadReader.readLoggingEvents(payload, format))
+                .flatMap(ingestBatch -> {
+                    FilteredBatch<LoggingEvent> admittedBatch = ingestRateLimiter.admit(ingestBatch.items(),
+                            LoggingEvent::getSource, LoggingEvent::getLevel);
+                    return writeAll(admittedBatch.items())
+                            .map(failures -> ingestBatch.toResult(admittedBatch.mapFailures(failures),
+                                    ingestBatch.items().size() - admittedBatch.items().size()));
+                });
+    }
+
+    @Override
+    public Mono<BatchIngestionResult> storeLogsDirectly(InputStream payload, BatchPayloadFormat format) {
+
+        return Mono.fromCallable(() -> batchPayloadReader.read(payload, format, loggingEventBsonTranscoder))
+                .flatMap(ingestBatch -> {
+                    FilteredBatch<RawBsonDocument> admittedBatch = ingestRateLimiter.admit(ingestBatch.items(),
+                            loggingEventBsonTranscoder::getSource, loggingEventBsonTranscoder::getLevel);
+                    return filterDuplicates(admittedBatch.items(), loggingEventBsonTranscoder::getEventId)
+                            .flatMap(filteredBatch -> reactiveLogEventDAO.saveAllDocuments(filteredBatch.items())
+                                    .flatMap(storeResult -> runBlocking(() -> storedDocumentRecorder.record(storeResult.extractStored(filteredBatch.items())))
+                                            .thenReturn(filteredBatch.mapFailures(storeResult.failures()))))
+                            .map(failures -> ingestBatch.toResult(admittedBatch.mapFailures(failures),
+                                    ingestBatch.items().size() - admittedBatch.items().size()));
+                });
+    }
+
+    private Mono<Void> writeSingle(LoggingEvent loggingEvent) {
+
+        return filterDuplicates(List.of(loggingEvent), LoggingEvent::getEventId)
+                .map(FilteredBatch::items)
+                .filter(loggingEvents -> !loggingEvents.isEmpty())
+                .flatMap(loggingEvents -> runBlocking(() -> loggingEventWriter.beforeStore(loggingEvents))
+                        .then(Mono.defer(() -> reactiveLogEventDAO.save(loggingEvent)))
+                        .filter(Boolean::booleanValue)
+                        .flatMap(stored -> runBlocking(() -> loggingEventWriter.afterStore(loggingEvents, StoreResult.allStored()))));
+    }
+
+    private Mono<List<BatchItemFailure>> writeAll(List<LoggingEvent> loggingEvents) {
+
+        if (loggingEvents.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return filterDuplicates(loggingEvents, LoggingEvent::getEventId)
+                .flatMap(filteredBatch -> writeNew(filteredBatch.items())
+                        .map(filteredBatch::mapFailures));
+    }
+
+    private Mono<List<BatchItemFailure>> writeNew(List<LoggingEvent> loggingEvents) {
+
+        if (loggingEvents.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return runBlocking(() -> loggingEventWriter.beforeStore(loggingEvents))
+                .then(Mono.defer(() -> reactiveLogEventDAO.saveAll(loggingEvents)))
+                .flatMap(storeResult -> runBlocking(() -> loggingEventWriter.afterStore(loggingEvents, storeResult))
+                        .thenReturn(storeResult.failures()));
+    }
+
+    private Mono<Page<LoggingEvent>> retrievePage(QueryPlan queryPlan) {
+
+        Optional<Predicate> expression = queryPlan.expression();
+        Pageable pageable = queryPlan.pageable();
+
+        return reactiveQueryCostGuard.execute(queryPlan, recordExecution(queryPlan, expression.isPresent()
+                ? reactiveLogEventDAO.findAll(expression.get(), pageable, queryPlan.projection())
+                : reactiveLogEventDAO.findAll(pageable, queryPlan.projection())));
+    }
+
+    private Mono<LogEventQueryResult> retrieveSlice(QueryPlan queryPlan, CountMode countMode) {
+
+        Optional<Predicate> expression = queryPlan.expression();
+        Pageable pageable = queryPlan.pageable();
+
+        Mono<Slice<LoggingEvent>> loggingEventSlice = expression.isPresent()
+                ? reactiveLogEventDAO.findSlice(expression.get(), pageable, queryPlan.projection())
+                : reactiveLogEventDAO.findSlice(pageable, queryPlan.projection());
+
+        return reactiveQueryCostGuard.execute(queryPlan, recordExecution(queryPlan, loggingEventSlice)
+                        .zipWith(reactiveTotalCountResolver.resolve(expression, countMode)))
+                .publishOn(blockingTaskScheduler)
+                .map(result -> keysetPaginator.createResult(result.getT1(),
+                        conversionService.convert(new LogEventSlice(result.getT1(), result.getT2()), LogEventPage.class), result.getT2()));
+    }
+
+    private Mono<LogEventQueryResult> retrieveCursorPage(QueryPlan queryPlan, String cursor, CountMode countMode) {
+
+        Optional<Predicate> expression = queryPlan.expression();
+        Pageable pageable = queryPlan.pageable();
+        LogCursor logCursor = keysetPaginator.parseCursor(cursor, pageable.getSort());
+
+        // one extra event is retrieved to determine whether there are further pages in the paging direction
+        Mono<List<LoggingEvent>> loggingEvents = reactiveLogEventDAO.findAll(keysetPaginator.createSeekPredicate(expression, logCursor),
+                keysetPaginator.createSeekSort(logCursor), pageable.getPageSize() + 1, queryPlan.projection());
+        return reactiveQueryCostGuard.execute(queryPlan, recordExecution(queryPlan, loggingEvents)
+                        .zipWith(reactiveTotalCountResolver.resolve(expression, countMode)))
+                .publishOn(blockingTaskScheduler)
+                .map(result -> keysetPaginator.createResult(logCursor, result.getT1(), pageable.getPageSize(), result.getT2()));
+    }
+
+    private <T> Mono<T> recordExecution(QueryPlan queryPlan, Mono<T> query) {
+        return query.elapsed()
+                .doOnNext(result -> indexAdvisor.record(queryPlan, Duration.ofMillis(result.getT1())))
+                .map(Tuple2::getT2);
+    }
+
+    private <T> Mono<FilteredBatch<T>> filterDuplicates(List<T> items, Function<T, String> eventIdExtractor) {
+        return Mono.fromCallable(() -> duplicateEventFilter.filter(items, eventIdExtractor))
+                .subscribeOn(blockingTaskScheduler);
+    }
+
+    private Mono<Void> runBlocking(Runnable task) {
+        return Mono.fromRunnable(task)
+                .subscribeOn(blockingTaskScheduler)
+                .then();
+    }
+}
@@ -0,0 +1,511 @@
+package hu.psprog.leaflet.tlp.web.reactive.persistence.dao.impl;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.result.InsertManyResult;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QLoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
+import hu.psprog.leaflet.tlp.web.reactive.persistence.repository.ReactiveLogEventRepository;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ExecutableFindOperation;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveCollectionCallback;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link ReactiveLogEventDAOImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReactiveLogEventDAOImplTest {
+
+    private static final LoggingEvent LOGGING_EVENT_1 = LoggingEvent.getBuilder().withContent("event 1").build();
+    private static final LoggingEvent LOGGING_EVENT_2 = LoggingEvent.getBuilder().withContent("event 2").build();
+    private static final List<RawBsonDocument> DOCUMENT_LIST = List.of(RawBsonDocument.parse("{\"content\": \"message\"}"));
+    private static final String COLLECTION_NAME = "loggingEvent";
+    private static final Pageable PAGEABLE = PageRequest.of(1, 2);
+    private static final Predicate PREDICATE = QLoggingEvent.loggingEvent.source.eq("app");
+    private static final Document FILTER = new Document("source", "app");
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "timeStamp", "id");
+    private static final long MAX_TIME_MS = 5_000L;
+
+    @Mock
+    private ReactiveLogEventRepository reactiveLogEventRepository;
+
+    @Mock
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private MongoConverter mongoConverter;
+
+    @Mock
+    private MongoCollection<Document> mongoCollection;
+
+    @Mock
+    private MongoCollection<RawBsonDocument> rawMongoCollection;
+
+    @Mock
+    private FindPublisher<Document> findPublisher;
+
+    @Mock
+    private MongoBulkWriteException mongoBulkWriteException;
+
+    @Captor
+    private ArgumentCaptor<List<Document>> documentListCaptor;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @Captor
+    private ArgumentCaptor<Query> countQueryCaptor;
+
+    private ReactiveLogEventDAOImpl reactiveLogEventDAO;
+
+    @BeforeEach
+    public void setup() {
+        QueryGuardProperties queryGuardProperties = new QueryGuardProperties();
+        queryGuardProperties.setMaxTime(Duration.ofMillis(MAX_TIME_MS));
+        reactiveLogEventDAO = new ReactiveLogEventDAOImpl(reactiveLogEventRepository, reactiveMongoOperations, mongoOperations, queryGuardProperties);
+    }
+
+    @Test
+    public void shouldFindAllWithPage() {
+
+        // given
+        given(reactiveMongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(Flux.just(LOGGING_EVENT_1, LOGGING_EVENT_2));
+        given(reactiveMongoOperations.count(countQueryCaptor.capture(), eq(LoggingEvent.class))).willReturn(Mono.just(10L));
+
+        // when
+        Mono<Page<LoggingEvent>> result = reactiveLogEventDAO.findAll(PAGEABLE, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(page -> {
+                    assertThat(page.getContent(), equalTo(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2)));
+                    assertThat(page.getTotalElements(), equalTo(10L));
+                    assertThat(page.getPageable(), equalTo(PAGEABLE));
+                })
+                .verifyComplete();
+        assertThat(queryCaptor.getValue().getSkip(), equalTo(2L));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(2));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+        assertThat(countQueryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+        verifyNoInteractions(reactiveLogEventRepository);
+    }
+
+    @Test
+    public void shouldFindAllWithPageAndPredicate() {
+
+        // given
+        Pageable pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "timeStamp"));
+        givenQueryMapping();
+        given(reactiveMongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(Flux.just(LOGGING_EVENT_1));
+        given(reactiveMongoOperations.count(countQueryCaptor.capture(), eq(LoggingEvent.class))).willReturn(Mono.just(3L));
+
+        // when
+        Mono<Page<LoggingEvent>> result = reactiveLogEventDAO.findAll(PREDICATE, pageRequest, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(page -> {
+                    assertThat(page.getContent(), equalTo(List.of(LOGGING_EVENT_1)));
+                    assertThat(page.getTotalElements(), equalTo(3L));
+                })
+                .verifyComplete();
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(queryCaptor.getValue().getSortObject(), equalTo(new Document("timeStamp", -1)));
+        assertThat(queryCaptor.getValue().getSkip(), equalTo(2L));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(2));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+        assertThat(queryCaptor.getValue().getFieldsObject().isEmpty(), is(true));
+        assertThat(countQueryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(countQueryCaptor.getValue().getLimit(), equalTo(0));
+        assertThat(countQueryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldFindAllWithPredicateSortAndLimit() {
+
+        // given
+        givenQueryMapping();
+        given(reactiveMongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(Flux.just(LOGGING_EVENT_1));
+
+        // when
+        Mono<List<LoggingEvent>> result = reactiveLogEventDAO.findAll(PREDICATE, SORT, 10, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(List.of(LOGGING_EVENT_1))
+                .verifyComplete();
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(queryCaptor.getValue().getSortObject(), equalTo(new Document("timeStamp", -1).append("id", -1)));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(10));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldFindSliceRetrieveOneExtraEventToDetectNextSlice() {
+
+        // given
+        LoggingEvent loggingEvent3 = LoggingEvent.getBuilder().withContent("event 3").build();
+        given(reactiveMongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class)))
+                .willReturn(Flux.just(LOGGING_EVENT_1, LOGGING_EVENT_2, loggingEvent3));
+
+        // when
+        Mono<Slice<LoggingEvent>> result = reactiveLogEventDAO.findSlice(PAGEABLE, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(slice -> {
+                    assertThat(slice.getContent(), equalTo(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2)));
+                    assertThat(slice.hasNext(), equalTo(true));
+                    assertThat(slice.getPageable(), equalTo(PAGEABLE));
+                })
+                .verifyComplete();
+        assertThat(queryCaptor.getValue().getSkip(), equalTo(2L));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(3));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+        verifyNoInteractions(reactiveLogEventRepository);
+    }
+
+    @Test
+    public void shouldFindSliceReturnLastSlice() {
+
+        // given
+        given(reactiveMongoOperations.find(any(Query.class), eq(LoggingEvent.class))).willReturn(Flux.just(LOGGING_EVENT_1));
+
+        // when
+        Mono<Slice<LoggingEvent>> result = reactiveLogEventDAO.findSlice(PAGEABLE, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(slice -> {
+                    assertThat(slice.getContent(), equalTo(List.of(LOGGING_EVENT_1)));
+                    assertThat(slice.hasNext(), equalTo(false));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFindSliceFetchProjectedFieldsOnly() {
+
+        // given
+        given(reactiveMongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(Flux.just(LOGGING_EVENT_1));
+
+        // when
+        Mono<Slice<LoggingEvent>> result = reactiveLogEventDAO.findSlice(PAGEABLE, LogEventProjection.parse("exception, level"));
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(slice -> assertThat(slice.getContent(), equalTo(List.of(LOGGING_EVENT_1))))
+                .verifyComplete();
+        assertThat(queryCaptor.getValue().getFieldsObject(),
+                equalTo(new Document("timeStamp", 1).append("level", 1).append("exception", 1).append("exceptionFingerprint", 1)));
+    }
+
+    @Test
+    public void shouldFindSliceWithPredicate() {
+
+        // given
+        givenQueryMapping();
+        given(reactiveMongoOperations.find(queryCaptor.capture(), eq(LoggingEvent.class))).willReturn(Flux.just(LOGGING_EVENT_1, LOGGING_EVENT_2));
+
+        // when
+        Mono<Slice<LoggingEvent>> result = reactiveLogEventDAO.findSlice(PREDICATE, PAGEABLE, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(slice -> {
+                    assertThat(slice.getContent(), equalTo(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2)));
+                    assertThat(slice.hasNext(), equalTo(false));
+                    assertThat(slice.getPageable(), equalTo(PAGEABLE));
+                })
+                .verifyComplete();
+        assertThat(queryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(queryCaptor.getValue().getLimit(), equalTo(3));
+        assertThat(queryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldCountUpTo() {
+
+        // given
+        givenQueryMapping();
+        given(reactiveMongoOperations.count(countQueryCaptor.capture(), eq(LoggingEvent.class))).willReturn(Mono.just(5L));
+
+        // when
+        Mono<Long> result = reactiveLogEventDAO.countUpTo(PREDICATE, 10);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(5L)
+                .verifyComplete();
+        assertThat(countQueryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(countQueryCaptor.getValue().getLimit(), equalTo(10));
+        assertThat(countQueryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldEstimatedCount() {
+
+        // given
+        given(reactiveMongoOperations.estimatedCount(LoggingEvent.class)).willReturn(Mono.just(1_000L));
+
+        // when
+        Mono<Long> result = reactiveLogEventDAO.estimatedCount();
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(1_000L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldCount() {
+
+        // given
+        given(reactiveMongoOperations.count(countQueryCaptor.capture(), eq(LoggingEvent.class))).willReturn(Mono.just(12L));
+
+        // when
+        Mono<Long> result = reactiveLogEventDAO.count();
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(12L)
+                .verifyComplete();
+        assertThat(countQueryCaptor.getValue().getQueryObject().isEmpty(), is(true));
+        assertThat(countQueryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldCountWithPredicate() {
+
+        // given
+        givenQueryMapping();
+        given(reactiveMongoOperations.count(countQueryCaptor.capture(), eq(LoggingEvent.class))).willReturn(Mono.just(3L));
+
+        // when
+        Mono<Long> result = reactiveLogEventDAO.count(PREDICATE);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(3L)
+                .verifyComplete();
+        assertThat(countQueryCaptor.getValue().getQueryObject(), equalTo(FILTER));
+        assertThat(countQueryCaptor.getValue().getMeta().getMaxTimeMsec(), equalTo(MAX_TIME_MS));
+    }
+
+    @Test
+    public void shouldExplainStagesOfWinningPlan() {
+
+        // given
+        givenQueryMapping();
+        given(reactiveMongoOperations.getConverter()).willReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        given(reactiveMongoOperations.execute(eq(LoggingEvent.class), any())).willAnswer(invocation -> Flux.from(invocation
+                .<ReactiveCollectionCallback<Document>>getArgument(1)
+                .doInCollection(mongoCollection)));
+        given(mongoCollection.find(FILTER)).willReturn(findPublisher);
+        given(findPublisher.sort(new Document("timeStamp", -1).append("_id", -1))).willReturn(findPublisher);
+        given(findPublisher.explain(ExplainVerbosity.QUERY_PLANNER)).willReturn(Mono.just(Document.parse("""
+                {"queryPlanner": {
+                    "winningPlan": {"stage": "SORT", "inputStage": {"stage": "COLLSCAN"}},
+                    "rejectedPlans": [{"stage": "FETCH", "inputStage": {"stage": "IXSCAN"}}]
+                }}""")));
+
+        // when
+        Mono<Set<String>> result = reactiveLogEventDAO.explainStages(PREDICATE, SORT);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(Set.of("SORT", "COLLSCAN"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldSave() {
+
+        // given
+        given(reactiveLogEventRepository.save(LOGGING_EVENT_1)).willReturn(Mono.just(LOGGING_EVENT_1));
+
+        // when
+        Mono<Boolean> result = reactiveLogEventDAO.save(LOGGING_EVENT_1);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldSaveReportDuplicateKeyErrorAsNotStored() {
+
+        // given
+        given(reactiveLogEventRepository.save(LOGGING_EVENT_1)).willReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+
+        // when
+        Mono<Boolean> result = reactiveLogEventDAO.save(LOGGING_EVENT_1);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldSaveAllWithUnorderedInsertOfConvertedDocuments() {
+
+        // given
+        given(reactiveMongoOperations.getConverter()).willReturn(mongoConverter);
+        doAnswer(invocation -> {
+            LoggingEvent loggingEvent = invocation.getArgument(0);
+            Document document = invocation.getArgument(1);
+            document.put("content", loggingEvent.getContent());
+            return null;
+        }).when(mongoConverter).write(any(LoggingEvent.class), any(Document.class));
+        prepareCollection();
+        given(mongoCollection.withDocumentClass(Document.class)).willReturn(mongoCollection);
+        given(mongoCollection.insertMany(anyList(), any(InsertManyOptions.class))).willReturn(Mono.just(InsertManyResult.acknowledged(Map.of())));
+
+        // when
+        Mono<StoreResult> result = reactiveLogEventDAO.saveAll(List.of(LOGGING_EVENT_1, LOGGING_EVENT_2));
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(StoreResult.allStored())
+                .verifyComplete();
+        verify(mongoCollection).insertMany(documentListCaptor.capture(), any(InsertManyOptions.class));
+        assertThat(documentListCaptor.getValue(), equalTo(List.of(new Document("content", "event 1"), new Document("content", "event 2"))));
+    }
+
+    @Test
+    public void shouldSaveAllSkipInsertForEmptyList() {
+
+        // when
+        Mono<StoreResult> result = reactiveLogEventDAO.saveAll(Collections.emptyList());
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(StoreResult.allStored())
+                .verifyComplete();
+        verifyNoInteractions(reactiveMongoOperations);
+    }
+
+    @Test
+    public void shouldSaveAllDocumentsWithUnorderedInsert() {
+
+        // given
+        prepareCollection();
+        given(mongoCollection.withDocumentClass(RawBsonDocument.class)).willReturn(rawMongoCollection);
+        given(rawMongoCollection.insertMany(eq(DOCUMENT_LIST), any(InsertManyOptions.class)))
+                .willReturn(Mono.just(InsertManyResult.acknowledged(Map.of())));
+
+        // when
+        Mono<StoreResult> result = reactiveLogEventDAO.saveAllDocuments(DOCUMENT_LIST);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(StoreResult.allStored())
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldSaveAllDocumentsReportFailedItems() {
+
+        // given
+        prepareCollection();
+        given(mongoCollection.withDocumentClass(RawBsonDocument.class)).willReturn(rawMongoCollection);
+        given(rawMongoCollection.insertMany(eq(DOCUMENT_LIST), any(InsertManyOptions.class))).willReturn(Mono.error(mongoBulkWriteException));
+        given(mongoBulkWriteException.getWriteErrors()).willReturn(List.of(new BulkWriteError(121, "validation failed", new BsonDocument(), 0)));
+
+        // when
+        Mono<StoreResult> result = reactiveLogEventDAO.saveAllDocuments(DOCUMENT_LIST);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(new StoreResult(List.of(new BatchItemFailure(0, "validation failed")), Set.of()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldSaveAllDocumentsReportDuplicateKeyErrorsSeparately() {
+
+        // given
+        prepareCollection();
+        given(mongoCollection.withDocumentClass(RawBsonDocument.class)).willReturn(rawMongoCollection);
+        given(rawMongoCollection.insertMany(eq(DOCUMENT_LIST), any(InsertManyOptions.class))).willReturn(Mono.error(mongoBulkWriteException));
+        given(mongoBulkWriteException.getWriteErrors()).willReturn(List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)));
+
+        // when
+        Mono<StoreResult> result = reactiveLogEventDAO.saveAllDocuments(DOCUMENT_LIST);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(new StoreResult(List.of(), Set.of(0)))
+                .verifyComplete();
+    }
+
+    private void givenQueryMapping() {
+        given(mongoOperations.getConverter()).willReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        given(mongoOperations.query(LoggingEvent.class)).willReturn(mock(ExecutableFindOperation.ExecutableFind.class, RETURNS_DEEP_STUBS));
+    }
+
+    private void prepareCollection() {
+        given(reactiveMongoOperations.getCollectionName(LoggingEvent.class)).willReturn(COLLECTION_NAME);
+        given(reactiveMongoOperations.getCollection(COLLECTION_NAME)).willReturn(Mono.just(mongoCollection));
+    }
+}
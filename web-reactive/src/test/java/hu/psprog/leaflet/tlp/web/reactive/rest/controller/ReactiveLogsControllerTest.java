@@ -0,0 +1,508 @@
+package hu.psprog.leaflet.tlp.web.reactive.rest.controller;
+
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.api.domain.LogRequest;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LogStoreStatus;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.exception.QueryRejectedException;
+import hu.psprog.leaflet.tlp.web.reactive.config.ReactiveIngestProperties;
+import hu.psprog.leaflet.tlp.web.reactive.exception.LogRetrievalFailureException;
+import hu.psprog.leaflet.tlp.web.reactive.exception.LoggingEventProcessingFailureException;
+import hu.psprog.leaflet.tlp.web.reactive.exception.model.ErrorMessageResponse;
+import hu.psprog.leaflet.tlp.web.reactive.service.ReactiveLogProcessingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link ReactiveLogsController}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReactiveLogsControllerTest {
+
+    private static final LogRequest LOG_REQUEST = new LogRequest();
+    private static final String TLQL_LOG_REQUEST = "search with conditions";
+    private static final String CURSOR = "cursor";
+    private static final String NEXT_CURSOR = "next-cursor";
+    private static final String PREVIOUS_CURSOR = "previous-cursor";
+    private static final String COUNT_TOKEN = "count-token";
+    private static final DeferredCount DEFERRED_COUNT = DeferredCount.getBuilder()
+            .withStatus(DeferredCount.Status.COMPLETED)
+            .withCount(100L)
+            .build();
+    private static final LogEventPage LOG_EVENT_PAGE = LogEventPage.getBuilder().build();
+    private static final LoggingEvent LOGGING_EVENT = LoggingEvent.getBuilder().build();
+    private static final String LOG_RETRIEVAL_FAILURE_MESSAGE = String.format("Failed to process log request [%s]", LOG_REQUEST);
+    private static final String LOGGING_EVENT_PROCESSING_FAILURE_MESSAGE = "Log event cannot be processed";
+    private static final String UNEXPECTED_EXCEPTION_MESSAGE = "Unexpected exception occurred";
+    private static final String BATCH_PAYLOAD_PART_1 = "{\"formattedMessage\": \"event 1\"}\n";
+    private static final String BATCH_PAYLOAD_PART_2 = "{\"formattedMessage\": \"event 2\"}\n";
+    private static final BatchIngestionResult BATCH_INGESTION_RESULT_SUCCESS = BatchIngestionResult.getBuilder()
+            .withReceived(2)
+            .withStored(2)
+            .withFailures(Collections.emptyList())
+            .build();
+    private static final BatchIngestionResult BATCH_INGESTION_RESULT_PARTIAL = BatchIngestionResult.getBuilder()
+            .withReceived(2)
+            .withStored(1)
+            .withFailures(List.of(new BatchItemFailure(1, "invalid item")))
+            .build();
+
+    @Mock
+    private ReactiveLogProcessingService reactiveLogProcessingService;
+
+    @Captor
+    private ArgumentCaptor<InputStream> inputStreamCaptor;
+
+    private ReactiveLogsController reactiveLogsController;
+
+    @BeforeEach
+    public void setup() {
+
+        ReactiveIngestProperties reactiveIngestProperties = new ReactiveIngestProperties();
+        reactiveIngestProperties.setMaxBatchPayloadSize(DataSize.ofBytes(100));
+        reactiveLogsController = new ReactiveLogsController(reactiveLogProcessingService, reactiveIngestProperties);
+    }
+
+    @Test
+    public void shouldGetLogs() {
+
+        // given
+        given(reactiveLogProcessingService.getLogs(LOG_REQUEST)).willReturn(Mono.just(LOG_EVENT_PAGE));
+
+        // when
+        Mono<ResponseEntity<LogEventPage>> result = reactiveLogsController.getLogs(LOG_REQUEST);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+                    assertThat(response.getBody(), equalTo(LOG_EVENT_PAGE));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetLogsViaTLQLProcessor() {
+
+        // given
+        given(reactiveLogProcessingService.getLogs(TLQL_LOG_REQUEST, null, CountMode.EXACT, LogEventProjection.ALL)).willReturn(Mono.just(LogEventQueryResult.getBuilder()
+                .withPage(LOG_EVENT_PAGE)
+                .withTotalCount(TotalCount.exact(100))
+                .build()));
+
+        // when
+        Mono<ResponseEntity<LogEventPage>> result = reactiveLogsController.getLogs(TLQL_LOG_REQUEST, null, null, null);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+                    assertThat(response.getBody(), equalTo(LOG_EVENT_PAGE));
+                    assertThat(response.getHeaders().containsKey(ReactiveLogsController.HEADER_NEXT_CURSOR), is(false));
+                    assertThat(response.getHeaders().containsKey(ReactiveLogsController.HEADER_PREVIOUS_CURSOR), is(false));
+                    assertThat(response.getHeaders().getFirst(ReactiveLogsController.HEADER_TOTAL_COUNT_TYPE), equalTo("EXACT"));
+                    assertThat(response.getHeaders().containsKey(ReactiveLogsController.HEADER_COUNT_TOKEN), is(false));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetLogsViaTLQLProcessorWithDeferredCount() {
+
+        // given
+        given(reactiveLogProcessingService.getLogs(TLQL_LOG_REQUEST, null, CountMode.DEFERRED, LogEventProjection.ALL)).willReturn(Mono.just(LogEventQueryResult.getBuilder()
+                .withPage(LOG_EVENT_PAGE)
+                .withTotalCount(TotalCount.atLeast(0, COUNT_TOKEN))
+                .build()));
+
+        // when
+        Mono<ResponseEntity<LogEventPage>> result = reactiveLogsController.getLogs(TLQL_LOG_REQUEST, null, "deferred", null);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+                    assertThat(response.getHeaders().getFirst(ReactiveLogsController.HEADER_TOTAL_COUNT_TYPE), equalTo("AT_LEAST"));
+                    assertThat(response.getHeaders().getFirst(ReactiveLogsController.HEADER_COUNT_TOKEN), equalTo(COUNT_TOKEN));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetLogsViaTLQLProcessorWithFieldProjection() {
+
+        // given
+        given(reactiveLogProcessingService.getLogs(TLQL_LOG_REQUEST, null, CountMode.EXACT, LogEventProjection.parse("timeStamp,exception")))
+                .willReturn(Mono.just(LogEventQueryResult.getBuilder()
+                        .withPage(LOG_EVENT_PAGE)
+                        .withTotalCount(TotalCount.exact(100))
+                        .build()));
+
+        // when
+        Mono<ResponseEntity<LogEventPage>> result = reactiveLogsController.getLogs(TLQL_LOG_REQUEST, null, null, "exception,timestamp");
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> assertThat(response.getBody(), equalTo(LOG_EVENT_PAGE)))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetLogsSignalLogRetrievalExceptionForUnknownField() {
+
+        // when
+        Mono<ResponseEntity<LogEventPage>> result = reactiveLogsController.getLogs(TLQL_LOG_REQUEST, null, null, "payload");
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(LogRetrievalFailureException.class);
+        verifyNoInteractions(reactiveLogProcessingService);
+    }
+
+    @Test
+    public void shouldGetLogsSignalLogRetrievalExceptionForInvalidCountMode() {
+
+        // when
+        Mono<ResponseEntity<LogEventPage>> result = reactiveLogsController.getLogs(TLQL_LOG_REQUEST, null, "unknown", null);
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(LogRetrievalFailureException.class);
+        verifyNoInteractions(reactiveLogProcessingService);
+    }
+
+    @Test
+    public void shouldGetLogsViaTLQLProcessorWithCursor() {
+
+        // given
+        given(reactiveLogProcessingService.getLogs(TLQL_LOG_REQUEST, CURSOR, CountMode.EXACT, LogEventProjection.ALL)).willReturn(Mono.just(LogEventQueryResult.getBuilder()
+                .withPage(LOG_EVENT_PAGE)
+                .withNextCursor(NEXT_CURSOR)
+                .withPreviousCursor(PREVIOUS_CURSOR)
+                .withTotalCount(TotalCount.exact(100))
+                .build()));
+
+        // when
+        Mono<ResponseEntity<LogEventPage>> result = reactiveLogsController.getLogs(TLQL_LOG_REQUEST, CURSOR, null, null);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+                    assertThat(response.getBody(), equalTo(LOG_EVENT_PAGE));
+                    assertThat(response.getHeaders().getFirst(ReactiveLogsController.HEADER_NEXT_CURSOR), equalTo(NEXT_CURSOR));
+                    assertThat(response.getHeaders().getFirst(ReactiveLogsController.HEADER_PREVIOUS_CURSOR), equalTo(PREVIOUS_CURSOR));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetLogsSignalLogRetrievalException() {
+
+        // given
+        given(reactiveLogProcessingService.getLogs(TLQL_LOG_REQUEST, CURSOR, CountMode.EXACT, LogEventProjection.ALL)).willReturn(Mono.error(new RuntimeException()));
+
+        // when
+        Mono<ResponseEntity<LogEventPage>> result = reactiveLogsController.getLogs(TLQL_LOG_REQUEST, CURSOR, null, null);
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(LogRetrievalFailureException.class);
+    }
+
+    @Test
+    public void shouldGetLogsPassQueryRejectedException() {
+
+        // given
+        given(reactiveLogProcessingService.getLogs(TLQL_LOG_REQUEST, null, CountMode.EXACT, LogEventProjection.ALL))
+                .willReturn(Mono.error(new QueryRejectedException("rejected")));
+
+        // when
+        Mono<ResponseEntity<LogEventPage>> result = reactiveLogsController.getLogs(TLQL_LOG_REQUEST, null, null, null);
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(QueryRejectedException.class);
+    }
+
+    @Test
+    public void shouldGetDeferredCount() {
+
+        // given
+        given(reactiveLogProcessingService.getDeferredCount(COUNT_TOKEN)).willReturn(Mono.just(DEFERRED_COUNT));
+
+        // when
+        Mono<ResponseEntity<DeferredCount>> result = reactiveLogsController.getDeferredCount(COUNT_TOKEN);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+                    assertThat(response.getBody(), equalTo(DEFERRED_COUNT));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetDeferredCountReturnNotFoundForUnknownToken() {
+
+        // given
+        given(reactiveLogProcessingService.getDeferredCount(COUNT_TOKEN)).willReturn(Mono.empty());
+
+        // when
+        Mono<ResponseEntity<DeferredCount>> result = reactiveLogsController.getDeferredCount(COUNT_TOKEN);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND)))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldStoreLog() {
+
+        // given
+        given(reactiveLogProcessingService.storeLog(LOGGING_EVENT)).willReturn(Mono.just(LogStoreStatus.STORED));
+
+        // when
+        Mono<ResponseEntity<Void>> result = reactiveLogsController.storeLog(LOGGING_EVENT);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), equalTo(HttpStatus.CREATED));
+                    assertThat(response.getBody(), nullValue());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldStoreLogAcceptDroppedEvent() {
+
+        // given
+        given(reactiveLogProcessingService.storeLog(LOGGING_EVENT)).willReturn(Mono.just(LogStoreStatus.DROPPED));
+
+        // when
+        Mono<ResponseEntity<Void>> result = reactiveLogsController.storeLog(LOGGING_EVENT);
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), equalTo(HttpStatus.ACCEPTED));
+                    assertThat(response.getBody(), nullValue());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldStoreLogSignalLoggingEventProcessingException() {
+
+        // given
+        given(reactiveLogProcessingService.storeLog(LOGGING_EVENT)).willReturn(Mono.error(new RuntimeException()));
+
+        // when
+        Mono<ResponseEntity<Void>> result = reactiveLogsController.storeLog(LOGGING_EVENT);
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(LoggingEventProcessingFailureException.class);
+    }
+
+    @Test
+    public void shouldStoreLogsFromNDJSONJoiningPayloadChunks() throws IOException {
+
+        // given
+        given(reactiveLogProcessingService.storeLogs(any(InputStream.class), eq(BatchPayloadFormat.NDJSON)))
+                .willReturn(Mono.just(BATCH_INGESTION_RESULT_SUCCESS));
+
+        // when
+        Mono<ResponseEntity<BatchIngestionResult>> result = reactiveLogsController.storeLogs(MediaType.APPLICATION_NDJSON,
+                preparePayload(BATCH_PAYLOAD_PART_1, BATCH_PAYLOAD_PART_2));
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), equalTo(HttpStatus.CREATED));
+                    assertThat(response.getBody(), equalTo(BATCH_INGESTION_RESULT_SUCCESS));
+                })
+                .verifyComplete();
+        verify(reactiveLogProcessingService).storeLogs(inputStreamCaptor.capture(), eq(BatchPayloadFormat.NDJSON));
+        assertThat(new String(inputStreamCaptor.getValue().readAllBytes(), StandardCharsets.UTF_8),
+                equalTo(BATCH_PAYLOAD_PART_1 + BATCH_PAYLOAD_PART_2));
+    }
+
+    @Test
+    public void shouldStoreLogsFromJSONArrayWithPartialFailure() {
+
+        // given
+        given(reactiveLogProcessingService.storeLogs(any(InputStream.class), eq(BatchPayloadFormat.JSON_ARRAY)))
+                .willReturn(Mono.just(BATCH_INGESTION_RESULT_PARTIAL));
+
+        // when
+        Mono<ResponseEntity<BatchIngestionResult>> result = reactiveLogsController.storeLogs(MediaType.APPLICATION_JSON,
+                preparePayload("[", BATCH_PAYLOAD_PART_1, "]"));
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), equalTo(HttpStatus.MULTI_STATUS));
+                    assertThat(response.getBody(), equalTo(BATCH_INGESTION_RESULT_PARTIAL));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldStoreLogsRejectTooLargePayload() {
+
+        // when
+        Mono<ResponseEntity<BatchIngestionResult>> result = reactiveLogsController.storeLogs(MediaType.APPLICATION_NDJSON,
+                preparePayload(BATCH_PAYLOAD_PART_1, BATCH_PAYLOAD_PART_2, BATCH_PAYLOAD_PART_1, BATCH_PAYLOAD_PART_2));
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(LoggingEventProcessingFailureException.class);
+        verifyNoInteractions(reactiveLogProcessingService);
+    }
+
+    @Test
+    public void shouldStreamLogs() {
+
+        // given
+        given(reactiveLogProcessingService.storeLogsDirectly(any(InputStream.class), eq(BatchPayloadFormat.NDJSON)))
+                .willReturn(Mono.just(BATCH_INGESTION_RESULT_SUCCESS));
+
+        // when
+        Mono<ResponseEntity<BatchIngestionResult>> result = reactiveLogsController.streamLogs(MediaType.APPLICATION_NDJSON,
+                preparePayload(BATCH_PAYLOAD_PART_1));
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode(), equalTo(HttpStatus.CREATED));
+                    assertThat(response.getBody(), equalTo(BATCH_INGESTION_RESULT_SUCCESS));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldStreamLogsSignalLoggingEventProcessingException() {
+
+        // given
+        given(reactiveLogProcessingService.storeLogsDirectly(any(InputStream.class), eq(BatchPayloadFormat.JSON_ARRAY)))
+                .willReturn(Mono.error(new IOException()));
+
+        // when
+        Mono<ResponseEntity<BatchIngestionResult>> result = reactiveLogsController.streamLogs(MediaType.APPLICATION_JSON, Flux.empty());
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(LoggingEventProcessingFailureException.class);
+    }
+
+    @Test
+    public void shouldHandleRetrievalException() {
+
+        // given
+        LogRetrievalFailureException exception = new LogRetrievalFailureException(LOG_REQUEST, new RuntimeException());
+
+        // when
+        ResponseEntity<ErrorMessageResponse> result = reactiveLogsController.retrievalFailureHandler(exception);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+        assertThat(result.getBody().message(), equalTo(LOG_RETRIEVAL_FAILURE_MESSAGE));
+    }
+
+    @Test
+    public void shouldHandleProcessingException() {
+
+        // given
+        LoggingEventProcessingFailureException exception = new LoggingEventProcessingFailureException(new RuntimeException());
+
+        // when
+        ResponseEntity<ErrorMessageResponse> result = reactiveLogsController.eventProcessingFailureHandler(exception);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.CONFLICT));
+        assertThat(result.getBody().message(), equalTo(LOGGING_EVENT_PROCESSING_FAILURE_MESSAGE));
+    }
+
+    @Test
+    public void shouldHandleQueryRejectedException() {
+
+        // given
+        QueryRejectedException exception = new QueryRejectedException("Query exceeded the execution time limit");
+
+        // when
+        ResponseEntity<ErrorMessageResponse> result = reactiveLogsController.queryRejectedHandler(exception);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        assertThat(result.getBody().message(), equalTo("Query exceeded the execution time limit"));
+    }
+
+    @Test
+    public void shouldHandleAnyOtherExceptions() {
+
+        // given
+        RuntimeException exception = new RuntimeException("exception occurred");
+
+        // when
+        ResponseEntity<ErrorMessageResponse> result = reactiveLogsController.defaultExceptionHandler(exception);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.INTERNAL_SERVER_ERROR));
+        assertThat(result.getBody().message(), equalTo(UNEXPECTED_EXCEPTION_MESSAGE));
+    }
+
+    private Flux<DataBuffer> preparePayload(String... chunks) {
+
+        return Flux.fromArray(chunks)
+                .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+}
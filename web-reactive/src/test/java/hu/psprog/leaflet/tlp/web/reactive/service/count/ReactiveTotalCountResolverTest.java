@@ -0,0 +1,132 @@
+package hu.psprog.leaflet.tlp.web.reactive.service.count;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryCountProperties;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.service.count.DeferredCountRegistry;
+import hu.psprog.leaflet.tlp.web.reactive.persistence.dao.ReactiveLogEventDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link ReactiveTotalCountResolver}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReactiveTotalCountResolverTest {
+
+    private static final String COUNT_TOKEN = "count-token";
+
+    @Mock
+    private ReactiveLogEventDAO reactiveLogEventDAO;
+
+    @Mock
+    private DeferredCountRegistry deferredCountRegistry;
+
+    @Mock
+    private Predicate predicate;
+
+    @Captor
+    private ArgumentCaptor<Supplier<Long>> countTaskCaptor;
+
+    private ReactiveTotalCountResolver reactiveTotalCountResolver;
+
+    @BeforeEach
+    public void setup() {
+        QueryCountProperties queryCountProperties = new QueryCountProperties();
+        queryCountProperties.setCap(100);
+        reactiveTotalCountResolver = new ReactiveTotalCountResolver(reactiveLogEventDAO, deferredCountRegistry, queryCountProperties);
+    }
+
+    @Test
+    public void shouldResolveExactCount() {
+
+        // given
+        given(reactiveLogEventDAO.count(predicate)).willReturn(Mono.just(1_234L));
+
+        // when
+        Mono<TotalCount> result = reactiveTotalCountResolver.resolve(Optional.of(predicate), CountMode.EXACT);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(TotalCount.exact(1_234L))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldResolveLowerBoundWithoutCounting() {
+
+        // when
+        Mono<TotalCount> result = reactiveTotalCountResolver.resolve(Optional.of(predicate), CountMode.NONE);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(TotalCount.atLeast(0, null))
+                .verifyComplete();
+        verifyNoInteractions(reactiveLogEventDAO, deferredCountRegistry);
+    }
+
+    @Test
+    public void shouldResolveEstimatedCountForUnfilteredQuery() {
+
+        // given
+        given(reactiveLogEventDAO.estimatedCount()).willReturn(Mono.just(50_000L));
+
+        // when
+        Mono<TotalCount> result = reactiveTotalCountResolver.resolve(Optional.empty(), CountMode.ESTIMATED);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(TotalCount.estimated(50_000L))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldResolveLowerBoundForFilteredQueryOverCap() {
+
+        // given
+        given(reactiveLogEventDAO.countUpTo(predicate, 101)).willReturn(Mono.just(101L));
+
+        // when
+        Mono<TotalCount> result = reactiveTotalCountResolver.resolve(Optional.of(predicate), CountMode.ESTIMATED);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(TotalCount.atLeast(100L, null))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldResolveDeferredCountStartBackgroundCount() {
+
+        // given
+        given(deferredCountRegistry.submit(countTaskCaptor.capture())).willReturn(Optional.of(COUNT_TOKEN));
+        given(reactiveLogEventDAO.count()).willReturn(Mono.just(7L));
+
+        // when
+        Mono<TotalCount> result = reactiveTotalCountResolver.resolve(Optional.empty(), CountMode.DEFERRED);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(TotalCount.atLeast(0, COUNT_TOKEN))
+                .verifyComplete();
+        assertThat(countTaskCaptor.getValue().get(), equalTo(7L));
+    }
+}
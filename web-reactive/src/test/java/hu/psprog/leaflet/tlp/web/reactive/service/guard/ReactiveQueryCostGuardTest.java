@@ -0,0 +1,213 @@
+package hu.psprog.leaflet.tlp.web.reactive.service.guard;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryScope;
+import hu.psprog.leaflet.tlp.core.exception.QueryRejectedException;
+import hu.psprog.leaflet.tlp.core.service.cache.QueryScopeExtractor;
+import hu.psprog.leaflet.tlp.web.reactive.persistence.dao.ReactiveLogEventDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link ReactiveQueryCostGuard}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReactiveQueryCostGuardTest {
+
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "timeStamp", "id");
+    private static final QueryScope UNBOUNDED_SCOPE = new QueryScope(Set.of(), Optional.empty(), Optional.empty());
+
+    @Mock
+    private ReactiveLogEventDAO reactiveLogEventDAO;
+
+    @Mock
+    private QueryScopeExtractor queryScopeExtractor;
+
+    @Mock
+    private Predicate predicate;
+
+    private QueryPlan queryPlan;
+    private ReactiveQueryCostGuard reactiveQueryCostGuard;
+
+    @BeforeEach
+    public void setup() {
+        queryPlan = new QueryPlan(Optional.of(predicate), PageRequest.of(0, 10, SORT));
+        reactiveQueryCostGuard = createGuard(true);
+    }
+
+    @Test
+    public void shouldRejectCollectionScanOverLimitWithoutSubscribingToQuery() {
+
+        // given
+        PublisherProbe<String> query = PublisherProbe.of(Mono.just("result"));
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(UNBOUNDED_SCOPE);
+        given(reactiveLogEventDAO.estimatedCount()).willReturn(Mono.just(5_000L));
+        given(reactiveLogEventDAO.explainStages(predicate, SORT)).willReturn(Mono.just(Set.of("SORT", "COLLSCAN")));
+
+        // when
+        Mono<String> result = reactiveQueryCostGuard.execute(queryPlan, query.mono());
+
+        // then
+        StepVerifier.create(result)
+                .verifyErrorSatisfies(exception -> {
+                    assertThat(exception instanceof QueryRejectedException, is(true));
+                    assertThat(exception.getMessage(), is("Query would scan all the 5000 stored log events (limit is 1000) "
+                            + "- add a lower time bound or a condition on an indexed field"));
+                });
+        assertThat(query.wasSubscribed(), is(false));
+    }
+
+    @Test
+    public void shouldRejectUnfilteredCollectionScanOverLimit() {
+
+        // given
+        QueryPlan unfilteredQueryPlan = new QueryPlan(Optional.empty(), PageRequest.of(0, 10, SORT));
+        given(queryScopeExtractor.extract(unfilteredQueryPlan)).willReturn(UNBOUNDED_SCOPE);
+        given(reactiveLogEventDAO.estimatedCount()).willReturn(Mono.just(5_000L));
+        given(reactiveLogEventDAO.explainStages(SORT)).willReturn(Mono.just(Set.of("COLLSCAN")));
+
+        // when
+        Mono<Void> result = reactiveQueryCostGuard.check(unfilteredQueryPlan);
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(QueryRejectedException.class);
+    }
+
+    @Test
+    public void shouldAcceptIndexedQuery() {
+
+        // given
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(UNBOUNDED_SCOPE);
+        given(reactiveLogEventDAO.estimatedCount()).willReturn(Mono.just(5_000L));
+        given(reactiveLogEventDAO.explainStages(predicate, SORT)).willReturn(Mono.just(Set.of("FETCH", "IXSCAN")));
+
+        // when
+        Mono<String> result = reactiveQueryCostGuard.execute(queryPlan, Mono.just("result"));
+
+        // then
+        StepVerifier.create(result)
+                .expectNext("result")
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldAcceptCollectionScanUnderLimitWithoutExplain() {
+
+        // given
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(UNBOUNDED_SCOPE);
+        given(reactiveLogEventDAO.estimatedCount()).willReturn(Mono.just(1_000L));
+
+        // when
+        Mono<Void> result = reactiveQueryCostGuard.check(queryPlan);
+
+        // then
+        StepVerifier.create(result)
+                .verifyComplete();
+        verify(reactiveLogEventDAO, never()).explainStages(any(Predicate.class), any(Sort.class));
+    }
+
+    @Test
+    public void shouldAcceptQueryWithLowerTimeBoundWithoutExplain() {
+
+        // given
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(new QueryScope(Set.of(), Optional.of(new Date()), Optional.empty()));
+
+        // when
+        Mono<Void> result = reactiveQueryCostGuard.check(queryPlan);
+
+        // then
+        StepVerifier.create(result)
+                .verifyComplete();
+        verifyNoInteractions(reactiveLogEventDAO);
+    }
+
+    @Test
+    public void shouldSkipCheckWhenCollectionScanRejectionIsDisabled() {
+
+        // given
+        reactiveQueryCostGuard = createGuard(false);
+
+        // when
+        Mono<String> result = reactiveQueryCostGuard.execute(queryPlan, Mono.just("result"));
+
+        // then
+        StepVerifier.create(result)
+                .expectNext("result")
+                .verifyComplete();
+        verifyNoInteractions(reactiveLogEventDAO, queryScopeExtractor);
+    }
+
+    @Test
+    public void shouldExecuteRejectQueryExceedingTimeLimit() {
+
+        // given
+        reactiveQueryCostGuard = createGuard(false);
+        UncategorizedMongoDbException timeout = new UncategorizedMongoDbException("operation exceeded time limit",
+                new MongoExecutionTimeoutException(50, "operation exceeded time limit"));
+
+        // when
+        Mono<String> result = reactiveQueryCostGuard.execute(queryPlan, Mono.error(timeout));
+
+        // then
+        StepVerifier.create(result)
+                .verifyErrorSatisfies(exception -> {
+                    assertThat(exception instanceof QueryRejectedException, is(true));
+                    assertThat(exception.getMessage(), is("Query exceeded the execution time limit of 2000 ms "
+                            + "- narrow down its time range or conditions"));
+                });
+    }
+
+    @Test
+    public void shouldExecutePassOtherExceptions() {
+
+        // given
+        reactiveQueryCostGuard = createGuard(false);
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("connection lost");
+
+        // when
+        Mono<String> result = reactiveQueryCostGuard.execute(queryPlan, Mono.error(failure));
+
+        // then
+        StepVerifier.create(result)
+                .verifyErrorSatisfies(exception -> assertThat(exception, is(failure)));
+    }
+
+    private ReactiveQueryCostGuard createGuard(boolean rejectCollectionScans) {
+
+        QueryGuardProperties queryGuardProperties = new QueryGuardProperties();
+        queryGuardProperties.setRejectCollectionScans(rejectCollectionScans);
+        queryGuardProperties.setMaxCollectionScanDocuments(1_000);
+        queryGuardProperties.setMaxTime(Duration.ofSeconds(2));
+
+        return new ReactiveQueryCostGuard(reactiveLogEventDAO, queryScopeExtractor, queryGuardProperties);
+    }
+}
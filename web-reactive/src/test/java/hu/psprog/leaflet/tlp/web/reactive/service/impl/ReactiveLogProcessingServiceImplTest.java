@@ -0,0 +1,616 @@
+package hu.psprog.leaflet.tlp.web.reactive.service.impl;
+
+import com.querydsl.core.types.Predicate;
+import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
+import hu.psprog.leaflet.tlp.api.domain.LogRequest;
+import hu.psprog.leaflet.tlp.core.config.QueryGuardProperties;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import hu.psprog.leaflet.tlp.core.domain.FilteredBatch;
+import hu.psprog.leaflet.tlp.core.domain.IngestBatch;
+import hu.psprog.leaflet.tlp.core.domain.LogCursor;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventSlice;
+import hu.psprog.leaflet.tlp.core.domain.LogStoreStatus;
+import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.QueryPlan;
+import hu.psprog.leaflet.tlp.core.domain.QueryScope;
+import hu.psprog.leaflet.tlp.core.domain.StoreResult;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.exception.InvalidLogCursorException;
+import hu.psprog.leaflet.tlp.core.exception.QueryRejectedException;
+import hu.psprog.leaflet.tlp.core.service.cache.QueryScopeExtractor;
+import hu.psprog.leaflet.tlp.core.service.count.DeferredCountRegistry;
+import hu.psprog.leaflet.tlp.core.service.idempotency.DuplicateEventFilter;
+import hu.psprog.leaflet.tlp.core.service.index.IndexAdvisor;
+import hu.psprog.leaflet.tlp.core.service.ingest.BatchPayloadReader;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventBsonTranscoder;
+import hu.psprog.leaflet.tlp.core.service.ingest.LoggingEventWriter;
+import hu.psprog.leaflet.tlp.core.service.ingest.StoredDocumentRecorder;
+import hu.psprog.leaflet.tlp.core.service.pagination.KeysetPaginator;
+import hu.psprog.leaflet.tlp.core.service.plan.QueryPlanCache;
+import hu.psprog.leaflet.tlp.core.service.ratelimit.IngestRateLimiter;
+import hu.psprog.leaflet.tlp.web.reactive.persistence.dao.ReactiveLogEventDAO;
+import hu.psprog.leaflet.tlp.web.reactive.service.count.ReactiveTotalCountResolver;
+import hu.psprog.leaflet.tlp.web.reactive.service.guard.ReactiveQueryCostGuard;
+import hu.psprog.leaflet.tlql.ir.DSLQueryModel;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link ReactiveLogProcessingServiceImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReactiveLogProcessingServiceImplTest {
+
+    private static final LoggingEvent LOGGING_EVENT = LoggingEvent.getBuilder().build();
+    private static final DSLQueryModel DSL_QUERY_MODEL = new DSLQueryModel();
+    private static final LogRequest LOG_REQUEST = new LogRequest();
+    private static final LogEventPage LOG_EVENT_PAGE = LogEventPage.getBuilder().build();
+    private static final LogEventQueryResult LOG_EVENT_QUERY_RESULT = LogEventQueryResult.getBuilder().withPage(LOG_EVENT_PAGE).build();
+    private static final String TLQL_STRING = "search with conditions source = 'lcfa'";
+    private static final String CURSOR = "cursor";
+    private static final LogCursor LOG_CURSOR = LogCursor.getBuilder().withPageNumber(2).build();
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "timeStamp", "id");
+    private static final Sort SEEK_SORT = Sort.by(Sort.Direction.ASC, "timeStamp", "id");
+    private static final InputStream BATCH_PAYLOAD = new ByteArrayInputStream(new byte[0]);
+    private static final TotalCount TOTAL_COUNT = TotalCount.exact(100);
+    private static final TotalCount LOWER_BOUND_COUNT = TotalCount.atLeast(0, null);
+    private static final String COUNT_TOKEN = "count-token";
+
+    @Mock
+    private ReactiveLogEventDAO reactiveLogEventDAO;
+
+    @Mock
+    private ConversionService conversionService;
+
+    @Mock
+    private QueryPlanCache queryPlanCache;
+
+    @Mock
+    private BatchPayloadReader batchPayloadReader;
+
+    @Mock
+    private LoggingEventBsonTranscoder loggingEventBsonTranscoder;
+
+    @Mock
+    private LoggingEventWriter loggingEventWriter;
+
+    @Mock
+    private StoredDocumentRecorder storedDocumentRecorder;
+
+    @Mock
+    private DuplicateEventFilter duplicateEventFilter;
+
+    @Mock
+    private IngestRateLimiter ingestRateLimiter;
+
+    @Mock
+    private KeysetPaginator keysetPaginator;
+
+    @Mock
+    private ReactiveTotalCountResolver reactiveTotalCountResolver;
+
+    @Mock
+    private DeferredCountRegistry deferredCountRegistry;
+
+    @Mock
+    private IndexAdvisor indexAdvisor;
+
+    @Mock
+    private QueryScopeExtractor queryScopeExtractor;
+
+    @Mock
+    private Pageable pageable;
+
+    @Mock
+    private Predicate predicate;
+
+    @Mock
+    private Predicate seekPredicate;
+
+    @Mock
+    private Page<LoggingEvent> loggingEventPage;
+
+    @Mock
+    private Slice<LoggingEvent> loggingEventSlice;
+
+    private ReactiveLogProcessingServiceImpl reactiveLogProcessingService;
+
+    @BeforeEach
+    public void setup() {
+        reactiveLogProcessingService = createService(new QueryGuardProperties());
+    }
+
+    @Test
+    public void shouldGetPagedAndFilteredLogsForLogRequest() {
+
+        // given
+        given(conversionService.convert(LOG_REQUEST, DSLQueryModel.class)).willReturn(DSL_QUERY_MODEL);
+        given(queryPlanCache.compile(DSL_QUERY_MODEL)).willReturn(new QueryPlan(Optional.of(predicate), pageable));
+        given(reactiveLogEventDAO.findAll(predicate, pageable, LogEventProjection.ALL)).willReturn(Mono.just(loggingEventPage));
+        given(conversionService.convert(loggingEventPage, LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
+
+        // when
+        Mono<LogEventPage> result = reactiveLogProcessingService.getLogs(LOG_REQUEST);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(LOG_EVENT_PAGE)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetPagedLogsForTLQLString() {
+
+        // given
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.empty(), pageable));
+        given(reactiveLogEventDAO.findAll(pageable, LogEventProjection.ALL)).willReturn(Mono.just(loggingEventPage));
+        given(loggingEventPage.getTotalElements()).willReturn(100L);
+        given(conversionService.convert(loggingEventPage, LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
+        given(keysetPaginator.createResult(loggingEventPage, LOG_EVENT_PAGE, TOTAL_COUNT)).willReturn(LOG_EVENT_QUERY_RESULT);
+
+        // when
+        Mono<LogEventQueryResult> result = reactiveLogProcessingService.getLogs(TLQL_STRING, null, CountMode.EXACT, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(LOG_EVENT_QUERY_RESULT)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetFilteredLogsForTLQLStringWithoutExactCount() {
+
+        // given
+        TotalCount estimatedCount = TotalCount.atLeast(10_000, null);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.of(predicate), pageable));
+        given(reactiveLogEventDAO.findSlice(predicate, pageable, LogEventProjection.ALL)).willReturn(Mono.just(loggingEventSlice));
+        given(reactiveTotalCountResolver.resolve(Optional.of(predicate), CountMode.ESTIMATED)).willReturn(Mono.just(estimatedCount));
+        given(conversionService.convert(new LogEventSlice(loggingEventSlice, estimatedCount), LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
+        given(keysetPaginator.createResult(loggingEventSlice, LOG_EVENT_PAGE, estimatedCount)).willReturn(LOG_EVENT_QUERY_RESULT);
+
+        // when
+        Mono<LogEventQueryResult> result = reactiveLogProcessingService.getLogs(TLQL_STRING, null, CountMode.ESTIMATED, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(LOG_EVENT_QUERY_RESULT)
+                .verifyComplete();
+        verify(indexAdvisor).record(eq(new QueryPlan(Optional.of(predicate), pageable)), any(Duration.class));
+    }
+
+    @Test
+    public void shouldGetLogsForTLQLStringWithDeferredCount() {
+
+        // given
+        TotalCount deferredCount = TotalCount.atLeast(0, COUNT_TOKEN);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.empty(), pageable));
+        given(reactiveLogEventDAO.findSlice(pageable, LogEventProjection.ALL)).willReturn(Mono.just(loggingEventSlice));
+        given(reactiveTotalCountResolver.resolve(Optional.empty(), CountMode.DEFERRED)).willReturn(Mono.just(deferredCount));
+        given(conversionService.convert(new LogEventSlice(loggingEventSlice, deferredCount), LogEventPage.class)).willReturn(LOG_EVENT_PAGE);
+        given(keysetPaginator.createResult(loggingEventSlice, LOG_EVENT_PAGE, deferredCount)).willReturn(LOG_EVENT_QUERY_RESULT);
+
+        // when
+        Mono<LogEventQueryResult> result = reactiveLogProcessingService.getLogs(TLQL_STRING, null, CountMode.DEFERRED, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(LOG_EVENT_QUERY_RESULT)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetDeferredCount() {
+
+        // given
+        DeferredCount deferredCount = DeferredCount.getBuilder()
+                .withStatus(DeferredCount.Status.PENDING)
+                .build();
+        given(deferredCountRegistry.get(COUNT_TOKEN)).willReturn(Optional.of(deferredCount));
+
+        // when
+        Mono<DeferredCount> result = reactiveLogProcessingService.getDeferredCount(COUNT_TOKEN);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(deferredCount)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetDeferredCountCompleteEmptyForUnknownToken() {
+
+        // given
+        given(deferredCountRegistry.get(COUNT_TOKEN)).willReturn(Optional.empty());
+
+        // when
+        Mono<DeferredCount> result = reactiveLogProcessingService.getDeferredCount(COUNT_TOKEN);
+
+        // then
+        StepVerifier.create(result)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetFilteredLogsForTLQLStringWithCursor() {
+
+        // given
+        List<LoggingEvent> loggingEvents = List.of(LOGGING_EVENT);
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.of(predicate), pageable));
+        given(pageable.getSort()).willReturn(SORT);
+        given(pageable.getPageSize()).willReturn(10);
+        given(keysetPaginator.parseCursor(CURSOR, SORT)).willReturn(LOG_CURSOR);
+        given(keysetPaginator.createSeekPredicate(Optional.of(predicate), LOG_CURSOR)).willReturn(seekPredicate);
+        given(keysetPaginator.createSeekSort(LOG_CURSOR)).willReturn(SEEK_SORT);
+        given(reactiveLogEventDAO.findAll(seekPredicate, SEEK_SORT, 11, LogEventProjection.ALL)).willReturn(Mono.just(loggingEvents));
+        given(reactiveTotalCountResolver.resolve(Optional.of(predicate), CountMode.EXACT)).willReturn(Mono.just(TOTAL_COUNT));
+        given(keysetPaginator.createResult(LOG_CURSOR, loggingEvents, 10, TOTAL_COUNT)).willReturn(LOG_EVENT_QUERY_RESULT);
+
+        // when
+        Mono<LogEventQueryResult> result = reactiveLogProcessingService.getLogs(TLQL_STRING, CURSOR, CountMode.EXACT, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(LOG_EVENT_QUERY_RESULT)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetLogsSignalErrorForInvalidCursor() {
+
+        // given
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(new QueryPlan(Optional.empty(), pageable));
+        given(pageable.getSort()).willReturn(SORT);
+        given(keysetPaginator.parseCursor(CURSOR, SORT)).willThrow(new InvalidLogCursorException("Malformed cursor"));
+
+        // when
+        Mono<LogEventQueryResult> result = reactiveLogProcessingService.getLogs(TLQL_STRING, CURSOR, CountMode.EXACT, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(InvalidLogCursorException.class);
+        verifyNoInteractions(reactiveLogEventDAO);
+    }
+
+    @Test
+    public void shouldGetLogsRejectCollectionScanBeforeSubscribingToQuery() {
+
+        // given
+        QueryGuardProperties queryGuardProperties = new QueryGuardProperties();
+        queryGuardProperties.setRejectCollectionScans(true);
+        queryGuardProperties.setMaxCollectionScanDocuments(1_000);
+        reactiveLogProcessingService = createService(queryGuardProperties);
+        QueryPlan queryPlan = new QueryPlan(Optional.of(predicate), pageable);
+        PublisherProbe<Slice<LoggingEvent>> sliceQuery = PublisherProbe.of(Mono.just(loggingEventSlice));
+        PublisherProbe<TotalCount> countQuery = PublisherProbe.of(Mono.just(LOWER_BOUND_COUNT));
+        given(queryPlanCache.get(TLQL_STRING)).willReturn(queryPlan);
+        given(reactiveLogEventDAO.findSlice(predicate, pageable, LogEventProjection.ALL)).willReturn(sliceQuery.mono());
+        given(reactiveTotalCountResolver.resolve(Optional.of(predicate), CountMode.NONE)).willReturn(countQuery.mono());
+        given(queryScopeExtractor.extract(queryPlan)).willReturn(new QueryScope(Set.of(), Optional.empty(), Optional.empty()));
+        given(reactiveLogEventDAO.estimatedCount()).willReturn(Mono.just(5_000L));
+        given(pageable.getSort()).willReturn(SORT);
+        given(reactiveLogEventDAO.explainStages(predicate, SORT)).willReturn(Mono.just(Set.of("COLLSCAN")));
+
+        // when
+        Mono<LogEventQueryResult> result = reactiveLogProcessingService.getLogs(TLQL_STRING, null, CountMode.NONE, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(QueryRejectedException.class);
+        assertThat(sliceQuery.wasSubscribed(), is(false));
+        assertThat(countQuery.wasSubscribed(), is(false));
+        verifyNoInteractions(indexAdvisor);
+    }
+
+    @Test
+    public void shouldGetLogsSignalErrorForInvalidTLQLString() {
+
+        // given
+        given(queryPlanCache.get(TLQL_STRING)).willThrow(IllegalArgumentException.class);
+
+        // when
+        Mono<LogEventQueryResult> result = reactiveLogProcessingService.getLogs(TLQL_STRING, null, CountMode.EXACT, LogEventProjection.ALL);
+
+        // then
+        StepVerifier.create(result)
+                .verifyError(IllegalArgumentException.class);
+        verifyNoInteractions(reactiveLogEventDAO);
+    }
+
+    @Test
+    public void shouldStoreLogCallingStorageHandlersAroundSave() {
+
+        // given
+        given(ingestRateLimiter.tryAcquire(LOGGING_EVENT.getSource(), LOGGING_EVENT.getLevel())).willReturn(true);
+        givenNoDuplicates(List.of(LOGGING_EVENT));
+        given(reactiveLogEventDAO.save(LOGGING_EVENT)).willReturn(Mono.just(true));
+
+        // when
+        Mono<LogStoreStatus> result = reactiveLogProcessingService.storeLog(LOGGING_EVENT);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(LogStoreStatus.STORED)
+                .verifyComplete();
+        InOrder inOrder = inOrder(loggingEventWriter, reactiveLogEventDAO);
+        inOrder.verify(loggingEventWriter).beforeStore(List.of(LOGGING_EVENT));
+        inOrder.verify(reactiveLogEventDAO).save(LOGGING_EVENT);
+        inOrder.verify(loggingEventWriter).afterStore(List.of(LOGGING_EVENT), StoreResult.allStored());
+    }
+
+    @Test
+    public void shouldStoreLogNotCallStorageHandlersAfterEventRejectedAsDuplicateKey() {
+
+        // given
+        given(ingestRateLimiter.tryAcquire(LOGGING_EVENT.getSource(), LOGGING_EVENT.getLevel())).willReturn(true);
+        givenNoDuplicates(List.of(LOGGING_EVENT));
+        given(reactiveLogEventDAO.save(LOGGING_EVENT)).willReturn(Mono.just(false));
+
+        // when
+        Mono<LogStoreStatus> result = reactiveLogProcessingService.storeLog(LOGGING_EVENT);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(LogStoreStatus.STORED)
+                .verifyComplete();
+        verify(loggingEventWriter).beforeStore(List.of(LOGGING_EVENT));
+        verify(loggingEventWriter, never()).afterStore(any(), any());
+    }
+
+    @Test
+    public void shouldStoreLogsMappingFailuresToOriginalPositions() throws Exception {
+
+        // given
+        LoggingEvent event1 = LoggingEvent.getBuilder().withContent("event 1").build();
+        LoggingEvent event2 = LoggingEvent.getBuilder().withContent("event 2").build();
+        List<LoggingEvent> loggingEvents = List.of(event1, event2);
+        StoreResult storeResult = new StoreResult(List.of(new BatchItemFailure(1, "write failed")), Set.of());
+        IngestBatch<LoggingEvent> ingestBatch = new IngestBatch<>(loggingEvents, List.of(0, 2),
+                List.of(new BatchItemFailure(1, "invalid item")), 3);
+        given(batchPayloadReader.readLoggingEvents(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON)).willReturn(ingestBatch);
+        givenAllAdmitted(loggingEvents);
+        givenNoDuplicates(loggingEvents);
+        given(reactiveLogEventDAO.saveAll(loggingEvents)).willReturn(Mono.just(storeResult));
+
+        // when
+        Mono<BatchIngestionResult> result = reactiveLogProcessingService.storeLogs(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(BatchIngestionResult.getBuilder()
+                        .withReceived(3)
+                        .withStored(1)
+                        .withFailures(List.of(new BatchItemFailure(1, "invalid item"), new BatchItemFailure(2, "write failed")))
+                        .build())
+                .verifyComplete();
+        InOrder inOrder = inOrder(loggingEventWriter, reactiveLogEventDAO);
+        inOrder.verify(loggingEventWriter).beforeStore(loggingEvents);
+        inOrder.verify(reactiveLogEventDAO).saveAll(loggingEvents);
+        inOrder.verify(loggingEventWriter).afterStore(loggingEvents, storeResult);
+    }
+
+    @Test
+    public void shouldStoreLogsSkipWritingEmptyBatch() throws Exception {
+
+        // given
+        IngestBatch<LoggingEvent> ingestBatch = new IngestBatch<>(List.of(), List.of(), List.of(), 0);
+        given(batchPayloadReader.readLoggingEvents(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON)).willReturn(ingestBatch);
+        givenAllAdmitted(List.of());
+
+        // when
+        Mono<BatchIngestionResult> result = reactiveLogProcessingService.storeLogs(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(BatchIngestionResult.getBuilder()
+                        .withReceived(0)
+                        .withStored(0)
+                        .withFailures(List.of())
+                        .build())
+                .verifyComplete();
+        verifyNoInteractions(reactiveLogEventDAO, loggingEventWriter);
+    }
+
+    @Test
+    public void shouldStoreLogsDirectlyMappingFailuresToOriginalPositions() throws Exception {
+
+        // given
+        RawBsonDocument document1 = RawBsonDocument.parse("{\"content\": \"event 1\"}");
+        RawBsonDocument document2 = RawBsonDocument.parse("{\"content\": \"event 2\"}");
+        IngestBatch<RawBsonDocument> ingestBatch = new IngestBatch<>(List.of(document1, document2), List.of(1, 2),
+                List.of(new BatchItemFailure(0, "invalid item")), 3);
+        given(batchPayloadReader.read(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY, loggingEventBsonTranscoder)).willReturn(ingestBatch);
+        givenAllAdmitted(ingestBatch.items());
+        givenNoDuplicates(List.of(document1, document2));
+        given(reactiveLogEventDAO.saveAllDocuments(List.of(document1, document2)))
+                .willReturn(Mono.just(new StoreResult(List.of(new BatchItemFailure(0, "write failed")), Set.of())));
+
+        // when
+        Mono<BatchIngestionResult> result = reactiveLogProcessingService.storeLogsDirectly(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(BatchIngestionResult.getBuilder()
+                        .withReceived(3)
+                        .withStored(1)
+                        .withFailures(List.of(new BatchItemFailure(0, "invalid item"), new BatchItemFailure(1, "write failed")))
+                        .build())
+                .verifyComplete();
+        verify(storedDocumentRecorder).record(List.of(document2));
+    }
+
+    @Test
+    public void shouldStoreLogsDirectlyNotRecordDocumentsRejectedAsDuplicateKey() throws Exception {
+
+        // given
+        RawBsonDocument document1 = RawBsonDocument.parse("{\"eventId\": \"event-1\"}");
+        RawBsonDocument document2 = RawBsonDocument.parse("{\"eventId\": \"event-2\"}");
+        IngestBatch<RawBsonDocument> ingestBatch = new IngestBatch<>(List.of(document1, document2), List.of(0, 1), List.of(), 2);
+        given(batchPayloadReader.read(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY, loggingEventBsonTranscoder)).willReturn(ingestBatch);
+        givenAllAdmitted(ingestBatch.items());
+        givenNoDuplicates(List.of(document1, document2));
+        given(reactiveLogEventDAO.saveAllDocuments(List.of(document1, document2))).willReturn(Mono.just(new StoreResult(List.of(), Set.of(0))));
+
+        // when
+        Mono<BatchIngestionResult> result = reactiveLogProcessingService.storeLogsDirectly(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(BatchIngestionResult.getBuilder()
+                        .withReceived(2)
+                        .withStored(2)
+                        .withFailures(List.of())
+                        .build())
+                .verifyComplete();
+        verify(storedDocumentRecorder).record(List.of(document2));
+    }
+
+    @Test
+    public void shouldStoreLogSkipDuplicateEvent() {
+
+        // given
+        given(ingestRateLimiter.tryAcquire(LOGGING_EVENT.getSource(), LOGGING_EVENT.getLevel())).willReturn(true);
+        given(duplicateEventFilter.filter(eq(List.of(LOGGING_EVENT)), any())).willReturn(new FilteredBatch<>(List.of(), List.of()));
+
+        // when
+        Mono<LogStoreStatus> result = reactiveLogProcessingService.storeLog(LOGGING_EVENT);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(LogStoreStatus.STORED)
+                .verifyComplete();
+        verifyNoInteractions(reactiveLogEventDAO, loggingEventWriter);
+    }
+
+    @Test
+    public void shouldStoreLogsSkipDuplicateEvents() throws Exception {
+
+        // given
+        LoggingEvent event1 = LoggingEvent.getBuilder().withEventId("event-1").build();
+        LoggingEvent event2 = LoggingEvent.getBuilder().withEventId("event-2").build();
+        LoggingEvent event3 = LoggingEvent.getBuilder().withEventId("event-3").build();
+        List<LoggingEvent> loggingEvents = List.of(event1, event2, event3);
+        List<LoggingEvent> newLoggingEvents = List.of(event1, event3);
+        IngestBatch<LoggingEvent> ingestBatch = new IngestBatch<>(loggingEvents, List.of(0, 1, 2), List.of(), 3);
+        given(batchPayloadReader.readLoggingEvents(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON)).willReturn(ingestBatch);
+        givenAllAdmitted(loggingEvents);
+        given(duplicateEventFilter.filter(eq(loggingEvents), any())).willReturn(new FilteredBatch<>(newLoggingEvents, List.of(0, 2)));
+        given(reactiveLogEventDAO.saveAll(newLoggingEvents))
+                .willReturn(Mono.just(new StoreResult(List.of(new BatchItemFailure(1, "write failed")), Set.of())));
+
+        // when
+        Mono<BatchIngestionResult> result = reactiveLogProcessingService.storeLogs(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(BatchIngestionResult.getBuilder()
+                        .withReceived(3)
+                        .withStored(2)
+                        .withFailures(List.of(new BatchItemFailure(2, "write failed")))
+                        .build())
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldStoreLogDropEventRejectedByRateLimiter() {
+
+        // given
+        given(ingestRateLimiter.tryAcquire(LOGGING_EVENT.getSource(), LOGGING_EVENT.getLevel())).willReturn(false);
+
+        // when
+        Mono<LogStoreStatus> result = reactiveLogProcessingService.storeLog(LOGGING_EVENT);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(LogStoreStatus.DROPPED)
+                .verifyComplete();
+        verifyNoInteractions(reactiveLogEventDAO, loggingEventWriter, duplicateEventFilter);
+    }
+
+    @Test
+    public void shouldStoreLogsDirectlyCountDocumentsDroppedByRateLimiter() throws Exception {
+
+        // given
+        RawBsonDocument document1 = RawBsonDocument.parse("{\"content\": \"event 1\"}");
+        RawBsonDocument document2 = RawBsonDocument.parse("{\"content\": \"event 2\"}");
+        IngestBatch<RawBsonDocument> ingestBatch = new IngestBatch<>(List.of(document1, document2), List.of(0, 1), List.of(), 2);
+        given(batchPayloadReader.read(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY, loggingEventBsonTranscoder)).willReturn(ingestBatch);
+        given(ingestRateLimiter.admit(eq(List.of(document1, document2)), any(), any()))
+                .willReturn(new FilteredBatch<>(List.of(document2), List.of(1)));
+        givenNoDuplicates(List.of(document2));
+        given(reactiveLogEventDAO.saveAllDocuments(List.of(document2))).willReturn(Mono.just(StoreResult.allStored()));
+
+        // when
+        Mono<BatchIngestionResult> result = reactiveLogProcessingService.storeLogsDirectly(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY);
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(BatchIngestionResult.getBuilder()
+                        .withReceived(2)
+                        .withStored(1)
+                        .withDropped(1)
+                        .withFailures(List.of())
+                        .build())
+                .verifyComplete();
+        verify(storedDocumentRecorder).record(List.of(document2));
+    }
+
+    private <T> void givenAllAdmitted(List<T> items) {
+        given(ingestRateLimiter.admit(eq(items), any(), any()))
+                .willReturn(new FilteredBatch<>(items, IntStream.range(0, items.size()).boxed().collect(Collectors.toList())));
+    }
+
+    private <T> void givenNoDuplicates(List<T> items) {
+        given(duplicateEventFilter.filter(eq(items), any()))
+                .willReturn(new FilteredBatch<>(items, IntStream.range(0, items.size()).boxed().collect(Collectors.toList())));
+    }
+
+    private ReactiveLogProcessingServiceImpl createService(QueryGuardProperties queryGuardProperties) {
+
+        ReactiveQueryCostGuard reactiveQueryCostGuard = new ReactiveQueryCostGuard(reactiveLogEventDAO, queryScopeExtractor, queryGuardProperties);
+
+        return new ReactiveLogProcessingServiceImpl(reactiveLogEventDAO, conversionService, queryPlanCache,
+                batchPayloadReader, loggingEventBsonTranscoder, loggingEventWriter, storedDocumentRecorder, duplicateEventFilter, ingestRateLimiter,
+                keysetPaginator, reactiveTotalCountResolver, reactiveQueryCostGuard, deferredCountRegistry, indexAdvisor, Schedulers.immediate());
+    }
+}
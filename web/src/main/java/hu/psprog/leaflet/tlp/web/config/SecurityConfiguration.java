@@ -20,9 +20,20 @@ public class SecurityConfiguration {
 
     private static final String ENDPOINT_LOGS = "/logs";
     private static final String ENDPOINT_V2_LOGS = "/v2/logs";
+    private static final String ENDPOINT_V2_LOGS_BATCH = "/v2/logs/batch";
+    private static final String ENDPOINT_V2_LOGS_STREAM = "/v2/logs/stream";
+    private static final String ENDPOINT_V2_LOGS_EXPORT = "/v2/logs/export";
+    private static final String ENDPOINT_V2_LOGS_AGGREGATE = "/v2/logs/aggregate";
+    private static final String ENDPOINT_V2_LOGS_ROLLUPS = "/v2/logs/rollups";
+    private static final String ENDPOINT_V2_LOGS_ISSUES = "/v2/logs/issues";
+    private static final String ENDPOINT_V2_LOGS_HEAVY_HITTERS = "/v2/logs/heavy-hitters";
+    private static final String ENDPOINT_V2_LOGS_HISTOGRAM = "/v2/logs/histogram";
+    private static final String ENDPOINT_V2_LOGS_COUNT = "/v2/logs/count/*";
     private static final String ENDPOINT_ACTUATOR = "/actuator/**";
+    private static final String ENDPOINT_ACTUATOR_INDEX_ADVISOR = "/actuator/indexadvisor";
 
     private static final String SCOPE_READ_LOGS = "SCOPE_read:logs";
+    private static final String SCOPE_MANAGE_LOGS = "SCOPE_manage:logs";
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -31,11 +42,31 @@ public class SecurityConfiguration {
                 .authorizeHttpRequests(registry -> registry
                         .requestMatchers(HttpMethod.POST, ENDPOINT_LOGS)
                             .permitAll()
+                        .requestMatchers(HttpMethod.POST, ENDPOINT_V2_LOGS_BATCH)
+                            .permitAll()
+                        .requestMatchers(HttpMethod.POST, ENDPOINT_V2_LOGS_STREAM)
+                            .permitAll()
+                        .requestMatchers(ENDPOINT_ACTUATOR_INDEX_ADVISOR)
+                            .hasAuthority(SCOPE_MANAGE_LOGS)
                         .requestMatchers(HttpMethod.GET, ENDPOINT_ACTUATOR)
                             .permitAll()
                         .requestMatchers(HttpMethod.GET, ENDPOINT_LOGS)
                             .hasAuthority(SCOPE_READ_LOGS)
                         .requestMatchers(HttpMethod.POST, ENDPOINT_V2_LOGS)
+                            .hasAuthority(SCOPE_READ_LOGS)
+                        .requestMatchers(HttpMethod.POST, ENDPOINT_V2_LOGS_EXPORT)
+                            .hasAuthority(SCOPE_READ_LOGS)
+                        .requestMatchers(HttpMethod.POST, ENDPOINT_V2_LOGS_AGGREGATE)
+                            .hasAuthority(SCOPE_READ_LOGS)
+                        .requestMatchers(HttpMethod.GET, ENDPOINT_V2_LOGS_ROLLUPS)
+                            .hasAuthority(SCOPE_READ_LOGS)
+                        .requestMatchers(HttpMethod.GET, ENDPOINT_V2_LOGS_ISSUES)
+                            .hasAuthority(SCOPE_READ_LOGS)
+                        .requestMatchers(HttpMethod.GET, ENDPOINT_V2_LOGS_HEAVY_HITTERS)
+                            .hasAuthority(SCOPE_READ_LOGS)
+                        .requestMatchers(HttpMethod.POST, ENDPOINT_V2_LOGS_HISTOGRAM)
+                            .hasAuthority(SCOPE_READ_LOGS)
+                        .requestMatchers(HttpMethod.GET, ENDPOINT_V2_LOGS_COUNT)
                             .hasAuthority(SCOPE_READ_LOGS))
 
                 .csrf(AbstractHttpConfigurer::disable)
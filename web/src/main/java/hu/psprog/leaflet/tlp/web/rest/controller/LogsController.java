@@ -2,7 +2,26 @@ package hu.psprog.leaflet.tlp.web.rest.controller;
 
 import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
 import hu.psprog.leaflet.tlp.api.domain.LogRequest;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterQuery;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterResult;
+import hu.psprog.leaflet.tlp.core.domain.Issue;
+import hu.psprog.leaflet.tlp.core.domain.IssueQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregationResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventExport;
+import hu.psprog.leaflet.tlp.core.domain.LogEventHistogram;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupResult;
+import hu.psprog.leaflet.tlp.core.domain.LogStoreStatus;
 import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.exception.IngestBufferFullException;
+import hu.psprog.leaflet.tlp.core.exception.QueryRejectedException;
 import hu.psprog.leaflet.tlp.core.service.LogProcessingService;
 import hu.psprog.leaflet.tlp.web.exception.LogRetrievalFailureException;
 import hu.psprog.leaflet.tlp.web.exception.LoggingEventProcessingFailureException;
@@ -10,13 +29,26 @@ import hu.psprog.leaflet.tlp.web.exception.model.ErrorMessageResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Log processor controller.
@@ -28,9 +60,28 @@ public class LogsController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LogsController.class);
     private static final String UNEXPECTED_EXCEPTION_OCCURRED = "Unexpected exception occurred";
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final String CONTENT_ENCODING_GZIP = "gzip";
+    private static final String ROLLUP_REQUEST_DESCRIPTION = "rollups from=%s to=%s resolution=%s groupBy=%s source=%s level=%s";
+    private static final String ISSUE_REQUEST_DESCRIPTION = "issues from=%s to=%s source=%s limit=%s";
+    private static final String HEAVY_HITTER_REQUEST_DESCRIPTION = "heavy hitters dimension=%s window=%s limit=%s";
+
+    static final String HEADER_NEXT_CURSOR = "X-TLP-Next-Cursor";
+    static final String HEADER_PREVIOUS_CURSOR = "X-TLP-Previous-Cursor";
+    static final String HEADER_TOTAL_COUNT_TYPE = "X-TLP-Total-Count-Type";
+    static final String HEADER_COUNT_TOKEN = "X-TLP-Count-Token";
 
     static final String PATH_LOGS = "/logs";
     static final String PATH_V2_LOGS = "/v2/logs";
+    static final String PATH_V2_LOGS_BATCH = "/v2/logs/batch";
+    static final String PATH_V2_LOGS_STREAM = "/v2/logs/stream";
+    static final String PATH_V2_LOGS_EXPORT = "/v2/logs/export";
+    static final String PATH_V2_LOGS_AGGREGATE = "/v2/logs/aggregate";
+    static final String PATH_V2_LOGS_HISTOGRAM = "/v2/logs/histogram";
+    static final String PATH_V2_LOGS_ROLLUPS = "/v2/logs/rollups";
+    static final String PATH_V2_LOGS_ISSUES = "/v2/logs/issues";
+    static final String PATH_V2_LOGS_HEAVY_HITTERS = "/v2/logs/heavy-hitters";
+    static final String PATH_V2_LOGS_COUNT = "/v2/logs/count/{countToken}";
 
     private final LogProcessingService logProcessingService;
 
@@ -68,6 +119,8 @@ public class LogsController {
         try {
             return ResponseEntity
                     .ok(logProcessingService.getLogs(logRequest));
+        } catch (QueryRejectedException exc) {
+            throw exc;
         } catch (Exception exc) {
             throw new LogRetrievalFailureException(logRequest, exc);
         }
@@ -76,38 +129,330 @@ public class LogsController {
     /**
      * POST /v2/logs
      * Returns stored messages. Expects a valid TLQL query string.
+     * When the query is ordered by timestamp (default), the response contains the opaque cursors of the next and previous pages
+     * in the X-TLP-Next-Cursor and X-TLP-Previous-Cursor headers (if such pages exist). Passing a cursor as the cursor
+     * parameter (along with the same query) returns the page it points to, ignoring the offset of the query.
+     * Unlike offset based paging, retrieving a page by cursor costs the same regardless of its position.
+     *
+     * Counting the matching events can be controlled by the count parameter:
+     *  - exact:            counts every matching event (default)
+     *  - none:             skips counting, the returned entity count is only a lower bound
+     *  - estimated:        returns the collection size estimate for unfiltered queries, otherwise counts up to a configured cap
+     *  - deferred:         skips counting like none, but starts an exact count in the background, returning its token
+     *                      in the X-TLP-Count-Token header (to be used with GET /v2/logs/count/{countToken})
+     * The kind of the returned entity count (EXACT, ESTIMATED or AT_LEAST) is returned in the X-TLP-Total-Count-Type header.
+     *
+     * The returned fields of the log events can be restricted by the fields parameter, as a comma-separated list of
+     * source, timeStamp, level, loggerName, threadName, content, exception and context. Fields not requested are not
+     * fetched from the database, and are left empty in the response (the timestamp is always returned).
+     *
+     * When large field compression is enabled, message conditions only match within the uncompressed search shadow
+     * of compressed messages (their first tlp.storage.compression.search-shadow-length characters).
+     *
+     * Page limits over the configured maximum are lowered to the maximum. Queries rejected by the query cost guard
+     * (exceeding their execution time limit, or scanning the whole collection without a lower time bound) are answered
+     * with HTTP status 422, and a message describing the limit they have hit.
      *
      * @param logRequest TLQL query string
+     * @param cursor optional cursor of the requested page
+     * @param count optional count mode
+     * @param fields optional comma-separated list of fields to be returned
      * @return paged list of log events returned for given TLQL query with HTTP status 200
-     * @throws LogRetrievalFailureException when TLQL query cannot be processed
+     * @throws LogRetrievalFailureException when TLQL query, the cursor, the count mode or the field list cannot be processed
+     * @throws QueryRejectedException when the query is rejected by the query cost guard
      */
     @PostMapping(path = PATH_V2_LOGS)
-    public ResponseEntity<LogEventPage> getLogs(@RequestBody String logRequest) throws LogRetrievalFailureException {
+    public ResponseEntity<LogEventPage> getLogs(@RequestBody String logRequest, @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) String count,
+                                                @RequestParam(required = false) String fields) throws LogRetrievalFailureException {
 
         try {
+            LogEventQueryResult logEventQueryResult = logProcessingService.getLogs(logRequest, cursor, CountMode.parse(count),
+                    LogEventProjection.parse(fields));
             return ResponseEntity
-                    .ok(logProcessingService.getLogs(logRequest));
+                    .ok()
+                    .headers(createQueryResultHeaders(logEventQueryResult))
+                    .body(logEventQueryResult.page());
+        } catch (QueryRejectedException exc) {
+            throw exc;
+        } catch (Exception exc) {
+            throw new LogRetrievalFailureException(logRequest, exc);
+        }
+    }
+
+    /**
+     * POST /v2/logs/export
+     * Exports every log event matching the given TLQL query string as newline-delimited JSON (application/x-ndjson).
+     * The limit and offset of the query are ignored, but its ordering is kept. The response is streamed while
+     * the events are read from the database, so the export can be of any size (the maximum duration of the response
+     * is limited by the asynchronous request timeout though). Fields can be restricted the same way as for POST /v2/logs.
+     *
+     * @param logRequest TLQL query string
+     * @param fields optional comma-separated list of fields to be exported
+     * @param gzip whether the response should be gzip compressed (returned with Content-Encoding: gzip header), defaults to false
+     * @return streamed log events matching the given TLQL query with HTTP status 200
+     * @throws LogRetrievalFailureException when TLQL query or the field list cannot be processed
+     * @throws QueryRejectedException when the query is rejected by the query cost guard
+     */
+    @PostMapping(path = PATH_V2_LOGS_EXPORT, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportLogs(@RequestBody String logRequest, @RequestParam(required = false) String fields,
+                                                            @RequestParam(defaultValue = "false") boolean gzip)
+            throws LogRetrievalFailureException {
+
+        try {
+            LogEventExport logEventExport = logProcessingService.exportLogs(logRequest, LogEventProjection.parse(fields));
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity
+                    .ok()
+                    .contentType(MediaType.APPLICATION_NDJSON);
+
+            return gzip
+                    ? responseBuilder
+                        .header(HttpHeaders.CONTENT_ENCODING, CONTENT_ENCODING_GZIP)
+                        .body(outputStream -> writeCompressed(logEventExport, outputStream))
+                    : responseBuilder
+                        .body(logEventExport::writeTo);
+        } catch (QueryRejectedException exc) {
+            throw exc;
+        } catch (Exception exc) {
+            throw new LogRetrievalFailureException(logRequest, exc);
+        }
+    }
+
+    /**
+     * POST /v2/logs/aggregate
+     * Counts the log events matching the given TLQL query string, grouped by the requested dimensions, in a single database
+     * aggregation, so the events do not have to be retrieved to be counted. The limit, offset and ordering of the query are ignored.
+     *
+     * Dimensions are given by the groupBy parameter, as a comma-separated list of:
+     *  - level, source, logger:    the respective field of the log events
+     *  - context.{key}:            the value of the given key in the context map of the log events
+     *  - time:                     the time bucket of the log events, of the length given by the interval parameter
+     *                              (e.g. 15m, 1h or 1d, defaults to 1h), aligned to the epoch (midnight UTC for daily buckets)
+     * Every returned bucket contains the values of the dimensions (in the requested order, time buckets by their start timestamp)
+     * and the number of matching events. Buckets are ordered chronologically (if grouped by time), then by their count.
+     * The number of returned buckets is limited by configuration, a truncated result is flagged so.
+     *
+     * @param logRequest TLQL query string
+     * @param groupBy comma-separated list of the dimensions to group the events by
+     * @param interval optional length of the time buckets
+     * @return bucketed event counts as {@link LogEventAggregationResult} with HTTP status 200
+     * @throws LogRetrievalFailureException when TLQL query, the dimensions or the interval cannot be processed
+     * @throws QueryRejectedException when the query is rejected by the query cost guard
+     */
+    @PostMapping(path = PATH_V2_LOGS_AGGREGATE)
+    public ResponseEntity<LogEventAggregationResult> aggregateLogs(@RequestBody String logRequest, @RequestParam(required = false) String groupBy,
+                                                                   @RequestParam(required = false) String interval)
+            throws LogRetrievalFailureException {
+
+        try {
+            return ResponseEntity
+                    .ok(logProcessingService.aggregateLogs(logRequest, LogEventAggregation.parse(groupBy, interval)));
+        } catch (QueryRejectedException exc) {
+            throw exc;
         } catch (Exception exc) {
             throw new LogRetrievalFailureException(logRequest, exc);
         }
     }
 
+    /**
+     * POST /v2/logs/histogram
+     * Counts the log events matching the given TLQL query string over time, for drawing a volume-over-time chart of the query
+     * without retrieving its events. The limit, offset and ordering of the query are ignored.
+     *
+     * The time range is taken from the timestamp conditions of the query. Without a lower bound, it starts at the earliest
+     * matching event, without an upper bound, it ends at the current time. The length of the buckets is selected automatically
+     * (from 1 second to 30 days), keeping their number within the configured limit. Buckets are aligned to the epoch,
+     * and every bucket of the time range is returned, including the empty ones.
+     * Queries filtering only by source, level and time (with bounds aligned to the selected bucket length) are served from
+     * the rollup counters, which lag slightly behind ingestion. Such results are flagged as precomputed.
+     *
+     * @param logRequest TLQL query string
+     * @return event counts over time as {@link LogEventHistogram} with HTTP status 200
+     * @throws LogRetrievalFailureException when TLQL query cannot be processed
+     * @throws QueryRejectedException when the query is rejected by the query cost guard
+     */
+    @PostMapping(path = PATH_V2_LOGS_HISTOGRAM)
+    public ResponseEntity<LogEventHistogram> getHistogram(@RequestBody String logRequest) throws LogRetrievalFailureException {
+
+        try {
+            return ResponseEntity
+                    .ok(logProcessingService.getHistogram(logRequest));
+        } catch (QueryRejectedException exc) {
+            throw exc;
+        } catch (Exception exc) {
+            throw new LogRetrievalFailureException(logRequest, exc);
+        }
+    }
+
+    /**
+     * GET /v2/logs/rollups
+     * Answers count and rate questions from the per-minute, hourly and daily rollup counters maintained at ingestion,
+     * so the cost of the query does not depend on the number of stored log events.
+     *
+     * Counters are summed up per period of the resolution, optionally grouped by the dimensions given by the groupBy parameter,
+     * as a comma-separated list of level, source and logger. Counters can be filtered by comma-separated lists of sources and levels.
+     * If no resolution (minute, hour or day) is requested, the finest one is selected that keeps the number of periods within
+     * the configured limit, and still has counters for the whole time range. Rates are returned as events per second.
+     *
+     * @param from start of the time range as ISO-8601 instant
+     * @param to optional end of the time range as ISO-8601 instant (defaults to the current time)
+     * @param resolution optional resolution of the counters
+     * @param groupBy optional comma-separated list of the dimensions to group the counters by
+     * @param source optional comma-separated list of sources to count the events of
+     * @param level optional comma-separated list of levels to count the events of
+     * @return per-period counts and rates as {@link LogEventRollupResult} with HTTP status 200
+     * @throws LogRetrievalFailureException when the parameters cannot be processed, or rollups are disabled
+     */
+    @GetMapping(path = PATH_V2_LOGS_ROLLUPS)
+    public ResponseEntity<LogEventRollupResult> getRollups(@RequestParam(required = false) String from, @RequestParam(required = false) String to,
+                                                           @RequestParam(required = false) String resolution,
+                                                           @RequestParam(required = false) String groupBy,
+                                                           @RequestParam(required = false) String source,
+                                                           @RequestParam(required = false) String level)
+            throws LogRetrievalFailureException {
+
+        try {
+            return ResponseEntity
+                    .ok(logProcessingService.getRollups(LogEventRollupQuery.parse(from, to, resolution, groupBy, source, level)));
+        } catch (Exception exc) {
+            throw new LogRetrievalFailureException(String.format(ROLLUP_REQUEST_DESCRIPTION, from, to, resolution, groupBy, source, level), exc);
+        }
+    }
+
+    /**
+     * GET /v2/logs/issues
+     * Lists the issues seen within the given time window. Issues group the log events with the same exception, identified by
+     * the fingerprint of the exception's class name, normalized message and topmost stack trace frames, calculated at ingestion.
+     * Every issue holds its occurrence count, first and last seen timestamps and the affected sources, so the listing does not
+     * touch the log events themselves. An issue is listed if it has been first seen before the end, and last seen after
+     * the start of the window. Issues are ordered by their occurrence count (descending).
+     *
+     * @param from start of the time window as ISO-8601 instant
+     * @param to optional end of the time window as ISO-8601 instant
+     * @param source optional source the issues should have occurred in
+     * @param limit optional maximum number of issues to be returned (capped by configuration)
+     * @return list of matching {@link Issue} objects with HTTP status 200
+     * @throws LogRetrievalFailureException when the parameters cannot be processed, or issue tracking is disabled
+     */
+    @GetMapping(path = PATH_V2_LOGS_ISSUES)
+    public ResponseEntity<List<Issue>> getIssues(@RequestParam(required = false) String from, @RequestParam(required = false) String to,
+                                                 @RequestParam(required = false) String source, @RequestParam(required = false) Integer limit)
+            throws LogRetrievalFailureException {
+
+        try {
+            return ResponseEntity
+                    .ok(logProcessingService.getIssues(IssueQuery.parse(from, to, source, limit)));
+        } catch (Exception exc) {
+            throw new LogRetrievalFailureException(String.format(ISSUE_REQUEST_DESCRIPTION, from, to, source, limit), exc);
+        }
+    }
+
+    /**
+     * GET /v2/logs/heavy-hitters
+     * Returns the most frequent loggers, sources or message templates within the recent sliding time window.
+     * The counts are estimated by in-memory sketches maintained at ingestion, so the query does not touch the log events themselves.
+     * Estimated counts are upper bounds, the real count of a value is at least its count minus its error.
+     *
+     * @param dimension attribute to be queried (logger, source or message)
+     * @param window optional length of the time window ending now, as ISO-8601 duration (e.g. PT15M, capped by configuration)
+     * @param limit optional maximum number of values to be returned (capped by configuration)
+     * @return {@link HeavyHitterResult} with HTTP status 200
+     * @throws LogRetrievalFailureException when the parameters cannot be processed, or heavy hitter tracking is disabled
+     */
+    @GetMapping(path = PATH_V2_LOGS_HEAVY_HITTERS)
+    public ResponseEntity<HeavyHitterResult> getHeavyHitters(@RequestParam(required = false) String dimension,
+                                                             @RequestParam(required = false) String window,
+                                                             @RequestParam(required = false) Integer limit)
+            throws LogRetrievalFailureException {
+
+        try {
+            return ResponseEntity
+                    .ok(logProcessingService.getHeavyHitters(HeavyHitterQuery.parse(dimension, window, limit)));
+        } catch (Exception exc) {
+            throw new LogRetrievalFailureException(String.format(HEAVY_HITTER_REQUEST_DESCRIPTION, dimension, window, limit), exc);
+        }
+    }
+
+    /**
+     * GET /v2/logs/count/{countToken}
+     * Returns the status of an exact count started in the background by a query executed in deferred count mode.
+     *
+     * @param countToken count token returned in the X-TLP-Count-Token header of the query
+     * @return status of the count as {@link DeferredCount} with HTTP status 200, or HTTP status 404 if the token is unknown or already expired
+     */
+    @GetMapping(path = PATH_V2_LOGS_COUNT)
+    public ResponseEntity<DeferredCount> getDeferredCount(@PathVariable String countToken) {
+
+        return logProcessingService.getDeferredCount(countToken)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * POST /logs
      * Stores given {@link LoggingEvent}.
      *
      * @param loggingEvent {@link LoggingEvent} object to store
-     * @return empty response with HTTP status 201
+     * @return empty response with HTTP status 201, or HTTP status 202 if asynchronous ingestion is enabled,
+     *         or the event has been dropped by ingest rate limiting
      * @throws LoggingEventProcessingFailureException when received {@link LoggingEvent} cannot be processed
      */
     @PostMapping(path = PATH_LOGS)
     public ResponseEntity<Void> storeLog(@RequestBody LoggingEvent loggingEvent) throws LoggingEventProcessingFailureException {
 
         try {
-            logProcessingService.storeLog(loggingEvent);
+            LogStoreStatus logStoreStatus = logProcessingService.storeLog(loggingEvent);
             return ResponseEntity
-                    .status(HttpStatus.CREATED)
+                    .status(logStoreStatus == LogStoreStatus.STORED
+                            ? HttpStatus.CREATED
+                            : HttpStatus.ACCEPTED)
                     .build();
+        } catch (IngestBufferFullException exc) {
+            throw exc;
+        } catch (Exception exc) {
+            throw new LoggingEventProcessingFailureException(exc);
+        }
+    }
+
+    /**
+     * POST /v2/logs/batch
+     * Stores a batch of {@link LoggingEvent}s. Payload can either be a JSON array (application/json)
+     * or a newline-delimited JSON stream (application/x-ndjson) of log events.
+     * Items are stored via unordered bulk write, so failing items do not reject the whole batch.
+     *
+     * @param contentType content type of the payload
+     * @param payload batch payload
+     * @return {@link BatchIngestionResult} with HTTP status 201 if all items have been stored, or HTTP status 207 if any of them failed
+     * @throws LoggingEventProcessingFailureException when the received batch cannot be processed at all
+     */
+    @PostMapping(path = PATH_V2_LOGS_BATCH, consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchIngestionResult> storeLogs(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream payload)
+            throws LoggingEventProcessingFailureException {
+
+        try {
+            return createBatchIngestionResponse(logProcessingService.storeLogs(payload, mapPayloadFormat(contentType)));
+        } catch (Exception exc) {
+            throw new LoggingEventProcessingFailureException(exc);
+        }
+    }
+
+    /**
+     * POST /v2/logs/stream
+     * Stores a batch of log events, transcoding them directly into their stored document format while the payload is being read.
+     * Accepts the same payload formats as POST /v2/logs/batch, but it is cheaper to process, as log events are not materialized
+     * as {@link LoggingEvent} objects.
+     *
+     * @param contentType content type of the payload
+     * @param payload batch payload
+     * @return {@link BatchIngestionResult} with HTTP status 201 if all items have been stored, or HTTP status 207 if any of them failed
+     * @throws LoggingEventProcessingFailureException when the received batch cannot be processed at all
+     */
+    @PostMapping(path = PATH_V2_LOGS_STREAM, consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchIngestionResult> streamLogs(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream payload)
+            throws LoggingEventProcessingFailureException {
+
+        try {
+            return createBatchIngestionResponse(logProcessingService.storeLogsDirectly(payload, mapPayloadFormat(contentType)));
         } catch (Exception exc) {
             throw new LoggingEventProcessingFailureException(exc);
         }
@@ -145,6 +490,39 @@ public class LogsController {
                 .body(buildExceptionMessageForResponse(exception));
     }
 
+    /**
+     * Exception handler for {@link IngestBufferFullException}.
+     *
+     * @param exception exception object
+     * @return exception message with HTTP status 429
+     */
+    @ExceptionHandler(IngestBufferFullException.class)
+    ResponseEntity<ErrorMessageResponse> ingestBufferFullHandler(IngestBufferFullException exception) {
+
+        LOGGER.warn(exception.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(buildExceptionMessageForResponse(exception));
+    }
+
+    /**
+     * Exception handler for {@link QueryRejectedException}.
+     *
+     * @param exception exception object
+     * @return exception message (describing the limit the query has hit) with HTTP status 422
+     */
+    @ExceptionHandler(QueryRejectedException.class)
+    ResponseEntity<ErrorMessageResponse> queryRejectedHandler(QueryRejectedException exception) {
+
+        LOGGER.warn("Log query rejected: {}", exception.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(buildExceptionMessageForResponse(exception));
+    }
+
     /**
      * Default exception handler.
      *
@@ -161,6 +539,30 @@ public class LogsController {
                 .body(buildExceptionMessageForResponse());
     }
 
+    private static void writeCompressed(LogEventExport logEventExport, OutputStream outputStream) throws IOException {
+
+        // sync flush mode is needed to pass the flushed batches of the export through the compressor
+        GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, true);
+        logEventExport.writeTo(gzipOutputStream);
+        gzipOutputStream.finish();
+    }
+
+    private ResponseEntity<BatchIngestionResult> createBatchIngestionResponse(BatchIngestionResult batchIngestionResult) {
+
+        return ResponseEntity
+                .status(batchIngestionResult.failures().isEmpty()
+                        ? HttpStatus.CREATED
+                        : HttpStatus.MULTI_STATUS)
+                .body(batchIngestionResult);
+    }
+
+    private BatchPayloadFormat mapPayloadFormat(MediaType contentType) {
+
+        return MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? BatchPayloadFormat.NDJSON
+                : BatchPayloadFormat.JSON_ARRAY;
+    }
+
     private ErrorMessageResponse buildExceptionMessageForResponse() {
 
         return ErrorMessageResponse.getBuilder()
@@ -174,4 +576,21 @@ public class LogsController {
                 .withMessage(exception.getMessage())
                 .build();
     }
+
+    private HttpHeaders createQueryResultHeaders(LogEventQueryResult logEventQueryResult) {
+
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.set(HEADER_TOTAL_COUNT_TYPE, logEventQueryResult.totalCount().type().name());
+        if (Objects.nonNull(logEventQueryResult.totalCount().countToken())) {
+            httpHeaders.set(HEADER_COUNT_TOKEN, logEventQueryResult.totalCount().countToken());
+        }
+        if (Objects.nonNull(logEventQueryResult.nextCursor())) {
+            httpHeaders.set(HEADER_NEXT_CURSOR, logEventQueryResult.nextCursor());
+        }
+        if (Objects.nonNull(logEventQueryResult.previousCursor())) {
+            httpHeaders.set(HEADER_PREVIOUS_CURSOR, logEventQueryResult.previousCursor());
+        }
+
+        return httpHeaders;
+    }
 }
@@ -0,0 +1,202 @@
+package hu.psprog.leaflet.tlp.web.config;
+
+import hu.psprog.leaflet.tlp.core.service.LogProcessingService;
+import hu.psprog.leaflet.tlp.web.rest.controller.LogsController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for {@link SecurityConfiguration}.
+ *
+ * @author Peter Smith
+ */
+@WebMvcTest(useDefaultFilters = false)
+@Import({SecurityConfiguration.class, LogsController.class})
+public class SecurityConfigurationTest {
+
+    private static final String READ_LOGS_TOKEN = "read-logs-token";
+    private static final String MANAGE_LOGS_TOKEN = "manage-logs-token";
+    private static final String TLQL_LOG_REQUEST = "search with conditions";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LogProcessingService logProcessingService;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    public void setup() {
+        given(jwtDecoder.decode(READ_LOGS_TOKEN)).willReturn(createJwt(READ_LOGS_TOKEN, "read:logs"));
+        given(jwtDecoder.decode(MANAGE_LOGS_TOKEN)).willReturn(createJwt(MANAGE_LOGS_TOKEN, "manage:logs"));
+    }
+
+    @Test
+    public void shouldAllowAggregateWithReadLogsScope() throws Exception {
+
+        // when
+        mockMvc.perform(withToken(aggregateRequest(), READ_LOGS_TOKEN))
+
+                // then
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldRejectAggregateWithoutReadLogsScope() throws Exception {
+
+        // when
+        mockMvc.perform(withToken(aggregateRequest(), MANAGE_LOGS_TOKEN))
+
+                // then
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void shouldRejectAggregateWithoutToken() throws Exception {
+
+        // when
+        mockMvc.perform(aggregateRequest())
+
+                // then
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void shouldAllowRollupsWithReadLogsScope() throws Exception {
+
+        // when
+        mockMvc.perform(withToken(rollupsRequest(), READ_LOGS_TOKEN))
+
+                // then
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldRejectRollupsWithoutReadLogsScope() throws Exception {
+
+        // when
+        mockMvc.perform(withToken(rollupsRequest(), MANAGE_LOGS_TOKEN))
+
+                // then
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void shouldAllowIssuesWithReadLogsScope() throws Exception {
+
+        // when
+        mockMvc.perform(withToken(issuesRequest(), READ_LOGS_TOKEN))
+
+                // then
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldRejectIssuesWithoutReadLogsScope() throws Exception {
+
+        // when
+        mockMvc.perform(withToken(issuesRequest(), MANAGE_LOGS_TOKEN))
+
+                // then
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void shouldAllowHeavyHittersWithReadLogsScope() throws Exception {
+
+        // when
+        mockMvc.perform(withToken(heavyHittersRequest(), READ_LOGS_TOKEN))
+
+                // then
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldRejectHeavyHittersWithoutReadLogsScope() throws Exception {
+
+        // when
+        mockMvc.perform(withToken(heavyHittersRequest(), MANAGE_LOGS_TOKEN))
+
+                // then
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void shouldAllowHistogramWithReadLogsScope() throws Exception {
+
+        // when
+        mockMvc.perform(withToken(histogramRequest(), READ_LOGS_TOKEN))
+
+                // then
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldRejectHistogramWithoutReadLogsScope() throws Exception {
+
+        // when
+        mockMvc.perform(withToken(histogramRequest(), MANAGE_LOGS_TOKEN))
+
+                // then
+                .andExpect(status().isForbidden());
+    }
+
+    private MockHttpServletRequestBuilder aggregateRequest() {
+
+        return post("/v2/logs/aggregate")
+                .param("groupBy", "level")
+                .content(TLQL_LOG_REQUEST);
+    }
+
+    private MockHttpServletRequestBuilder rollupsRequest() {
+
+        return get("/v2/logs/rollups")
+                .param("from", "2026-10-18T00:00:00Z");
+    }
+
+    private MockHttpServletRequestBuilder issuesRequest() {
+
+        return get("/v2/logs/issues")
+                .param("from", "2026-10-18T00:00:00Z");
+    }
+
+    private MockHttpServletRequestBuilder heavyHittersRequest() {
+
+        return get("/v2/logs/heavy-hitters")
+                .param("dimension", "logger");
+    }
+
+    private MockHttpServletRequestBuilder histogramRequest() {
+
+        return post("/v2/logs/histogram")
+                .content(TLQL_LOG_REQUEST);
+    }
+
+    private MockHttpServletRequestBuilder withToken(MockHttpServletRequestBuilder request, String token) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    private Jwt createJwt(String token, String scope) {
+
+        return Jwt.withTokenValue(token)
+                .header("alg", "none")
+                .claim("scope", scope)
+                .build();
+    }
+}
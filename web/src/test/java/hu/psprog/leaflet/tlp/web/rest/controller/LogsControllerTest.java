@@ -2,7 +2,33 @@ package hu.psprog.leaflet.tlp.web.rest.controller;
 
 import hu.psprog.leaflet.tlp.api.domain.LogEventPage;
 import hu.psprog.leaflet.tlp.api.domain.LogRequest;
+import hu.psprog.leaflet.tlp.core.domain.BatchIngestionResult;
+import hu.psprog.leaflet.tlp.core.domain.BatchItemFailure;
+import hu.psprog.leaflet.tlp.core.domain.BatchPayloadFormat;
+import hu.psprog.leaflet.tlp.core.domain.CountMode;
+import hu.psprog.leaflet.tlp.core.domain.AggregationBucket;
+import hu.psprog.leaflet.tlp.core.domain.DeferredCount;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitter;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterDimension;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterQuery;
+import hu.psprog.leaflet.tlp.core.domain.HeavyHitterResult;
+import hu.psprog.leaflet.tlp.core.domain.HistogramBucket;
+import hu.psprog.leaflet.tlp.core.domain.Issue;
+import hu.psprog.leaflet.tlp.core.domain.IssueQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregation;
+import hu.psprog.leaflet.tlp.core.domain.LogEventAggregationResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventExport;
+import hu.psprog.leaflet.tlp.core.domain.LogEventHistogram;
+import hu.psprog.leaflet.tlp.core.domain.LogEventProjection;
+import hu.psprog.leaflet.tlp.core.domain.LogEventQueryResult;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupQuery;
+import hu.psprog.leaflet.tlp.core.domain.LogEventRollupResult;
+import hu.psprog.leaflet.tlp.core.domain.LogStoreStatus;
 import hu.psprog.leaflet.tlp.core.domain.LoggingEvent;
+import hu.psprog.leaflet.tlp.core.domain.RollupResolution;
+import hu.psprog.leaflet.tlp.core.domain.TotalCount;
+import hu.psprog.leaflet.tlp.core.exception.IngestBufferFullException;
+import hu.psprog.leaflet.tlp.core.exception.QueryRejectedException;
 import hu.psprog.leaflet.tlp.core.service.LogProcessingService;
 import hu.psprog.leaflet.tlp.web.exception.LogRetrievalFailureException;
 import hu.psprog.leaflet.tlp.web.exception.LoggingEventProcessingFailureException;
@@ -13,16 +39,33 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 /**
  * Unit tests for {@link LogsController}.
@@ -34,11 +77,51 @@ public class LogsControllerTest {
 
     private static final LogRequest LOG_REQUEST = new LogRequest();
     private static final String TLQL_LOG_REQUEST = "search with conditions";
+    private static final String QUERY_REJECTED_MESSAGE = "Query exceeded the execution time limit of 30000 ms";
+    private static final String CURSOR = "cursor";
+    private static final String NEXT_CURSOR = "next-cursor";
+    private static final String PREVIOUS_CURSOR = "previous-cursor";
+    private static final String COUNT_TOKEN = "count-token";
+    private static final DeferredCount DEFERRED_COUNT = DeferredCount.getBuilder()
+            .withStatus(DeferredCount.Status.COMPLETED)
+            .withCount(100L)
+            .build();
+    private static final LogEventAggregationResult LOG_EVENT_AGGREGATION_RESULT = LogEventAggregationResult.getBuilder()
+            .withDimensions(List.of("source", "level"))
+            .withBuckets(List.of(new AggregationBucket(List.of("lcfa", "ERROR"), 12L)))
+            .build();
+    private static final LogEventHistogram LOG_EVENT_HISTOGRAM = LogEventHistogram.getBuilder()
+            .withInterval(Duration.ofMinutes(5))
+            .withBuckets(List.of(new HistogramBucket(new Date(1_700_000_100_000L), 12L)))
+            .withTotal(12L)
+            .build();
+    private static final LogEventRollupResult LOG_EVENT_ROLLUP_RESULT = LogEventRollupResult.getBuilder()
+            .withResolution(RollupResolution.HOUR)
+            .withDimensions(List.of("level"))
+            .withCount(7L)
+            .build();
     private static final LogEventPage LOG_EVENT_PAGE = LogEventPage.getBuilder().build();
     private static final LoggingEvent LOGGING_EVENT = LoggingEvent.getBuilder().build();
     private static final String LOG_RETRIEVAL_FAILURE_MESSAGE = String.format("Failed to process log request [%s]", LOG_REQUEST);
     private static final String LOGGING_EVENT_PROCESSING_FAILURE_MESSAGE = "Log event cannot be processed";
     private static final String UNEXPECTED_EXCEPTION_MESSAGE = "Unexpected exception occurred";
+    private static final String INGEST_BUFFER_FULL_MESSAGE = "Log event buffer is full, try again later";
+    private static final String EXPORTED_LINES = "{\"content\":\"event 1\"}\n{\"content\":\"event 2\"}\n";
+    private static final LogEventExport LOG_EVENT_EXPORT = outputStream -> {
+        outputStream.write(EXPORTED_LINES.getBytes(StandardCharsets.UTF_8));
+        return 2L;
+    };
+    private static final InputStream BATCH_PAYLOAD = new ByteArrayInputStream(new byte[0]);
+    private static final BatchIngestionResult BATCH_INGESTION_RESULT_SUCCESS = BatchIngestionResult.getBuilder()
+            .withReceived(2)
+            .withStored(2)
+            .withFailures(Collections.emptyList())
+            .build();
+    private static final BatchIngestionResult BATCH_INGESTION_RESULT_PARTIAL = BatchIngestionResult.getBuilder()
+            .withReceived(2)
+            .withStored(1)
+            .withFailures(List.of(new BatchItemFailure(1, "invalid item")))
+            .build();
 
     @Mock
     private LogProcessingService logProcessingService;
@@ -65,15 +148,328 @@ public class LogsControllerTest {
     public void shouldGetLogsViaTLQLProcessor() throws LogRetrievalFailureException {
 
         // given
-        given(logProcessingService.getLogs(TLQL_LOG_REQUEST)).willReturn(LOG_EVENT_PAGE);
+        given(logProcessingService.getLogs(TLQL_LOG_REQUEST, null, CountMode.EXACT, LogEventProjection.ALL)).willReturn(LogEventQueryResult.getBuilder()
+                .withPage(LOG_EVENT_PAGE)
+                .withTotalCount(TotalCount.exact(100))
+                .build());
 
         // when
-        ResponseEntity<LogEventPage> result = logsController.getLogs(TLQL_LOG_REQUEST);
+        ResponseEntity<LogEventPage> result = logsController.getLogs(TLQL_LOG_REQUEST, null, null, null);
 
         // then
         assertThat(result, notNullValue());
         assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
         assertThat(result.getBody(), equalTo(LOG_EVENT_PAGE));
+        assertThat(result.getHeaders().containsKey(LogsController.HEADER_NEXT_CURSOR), is(false));
+        assertThat(result.getHeaders().containsKey(LogsController.HEADER_PREVIOUS_CURSOR), is(false));
+        assertThat(result.getHeaders().getFirst(LogsController.HEADER_TOTAL_COUNT_TYPE), equalTo("EXACT"));
+        assertThat(result.getHeaders().containsKey(LogsController.HEADER_COUNT_TOKEN), is(false));
+    }
+
+    @Test
+    public void shouldGetLogsViaTLQLProcessorWithDeferredCount() throws LogRetrievalFailureException {
+
+        // given
+        given(logProcessingService.getLogs(TLQL_LOG_REQUEST, null, CountMode.DEFERRED, LogEventProjection.ALL)).willReturn(LogEventQueryResult.getBuilder()
+                .withPage(LOG_EVENT_PAGE)
+                .withTotalCount(TotalCount.atLeast(0, COUNT_TOKEN))
+                .build());
+
+        // when
+        ResponseEntity<LogEventPage> result = logsController.getLogs(TLQL_LOG_REQUEST, null, "deferred", null);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(LOG_EVENT_PAGE));
+        assertThat(result.getHeaders().getFirst(LogsController.HEADER_TOTAL_COUNT_TYPE), equalTo("AT_LEAST"));
+        assertThat(result.getHeaders().getFirst(LogsController.HEADER_COUNT_TOKEN), equalTo(COUNT_TOKEN));
+    }
+
+    @Test
+    public void shouldGetLogsViaTLQLProcessorWithFieldProjection() throws LogRetrievalFailureException {
+
+        // given
+        given(logProcessingService.getLogs(TLQL_LOG_REQUEST, null, CountMode.EXACT, LogEventProjection.parse("level,content")))
+                .willReturn(LogEventQueryResult.getBuilder()
+                        .withPage(LOG_EVENT_PAGE)
+                        .withTotalCount(TotalCount.exact(100))
+                        .build());
+
+        // when
+        ResponseEntity<LogEventPage> result = logsController.getLogs(TLQL_LOG_REQUEST, null, null, "content, Level");
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(LOG_EVENT_PAGE));
+    }
+
+    @Test
+    public void shouldGetLogsThrowLogRetrievalExceptionForUnknownField() {
+
+        // when
+        Assertions.assertThrows(LogRetrievalFailureException.class, () -> logsController.getLogs(TLQL_LOG_REQUEST, null, null, "level,payload"));
+
+        // then
+        verifyNoInteractions(logProcessingService);
+    }
+
+    @Test
+    public void shouldExportLogs() throws LogRetrievalFailureException, IOException {
+
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        given(logProcessingService.exportLogs(TLQL_LOG_REQUEST, LogEventProjection.ALL)).willReturn(LOG_EVENT_EXPORT);
+
+        // when
+        ResponseEntity<StreamingResponseBody> result = logsController.exportLogs(TLQL_LOG_REQUEST, null, false);
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getHeaders().getContentType(), equalTo(MediaType.APPLICATION_NDJSON));
+        assertThat(result.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING), is(false));
+        result.getBody().writeTo(outputStream);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8), equalTo(EXPORTED_LINES));
+    }
+
+    @Test
+    public void shouldExportLogsWithGzipCompression() throws LogRetrievalFailureException, IOException {
+
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        given(logProcessingService.exportLogs(TLQL_LOG_REQUEST, LogEventProjection.parse("content"))).willReturn(LOG_EVENT_EXPORT);
+
+        // when
+        ResponseEntity<StreamingResponseBody> result = logsController.exportLogs(TLQL_LOG_REQUEST, "content", true);
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), equalTo("gzip"));
+        result.getBody().writeTo(outputStream);
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            assertThat(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8), equalTo(EXPORTED_LINES));
+        }
+    }
+
+    @Test
+    public void shouldExportLogsThrowLogRetrievalExceptionForInvalidQuery() {
+
+        // given
+        given(logProcessingService.exportLogs(TLQL_LOG_REQUEST, LogEventProjection.ALL)).willThrow(RuntimeException.class);
+
+        // when
+        Assertions.assertThrows(LogRetrievalFailureException.class, () -> logsController.exportLogs(TLQL_LOG_REQUEST, null, false));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldAggregateLogs() throws LogRetrievalFailureException {
+
+        // given
+        given(logProcessingService.aggregateLogs(TLQL_LOG_REQUEST, LogEventAggregation.parse("source,level", "15m")))
+                .willReturn(LOG_EVENT_AGGREGATION_RESULT);
+
+        // when
+        ResponseEntity<LogEventAggregationResult> result = logsController.aggregateLogs(TLQL_LOG_REQUEST, "source,level", "15m");
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(LOG_EVENT_AGGREGATION_RESULT));
+    }
+
+    @Test
+    public void shouldAggregateLogsThrowLogRetrievalExceptionForUnknownDimension() {
+
+        // when
+        Assertions.assertThrows(LogRetrievalFailureException.class, () -> logsController.aggregateLogs(TLQL_LOG_REQUEST, "level,payload", null));
+
+        // then
+        verifyNoInteractions(logProcessingService);
+    }
+
+    @Test
+    public void shouldAggregateLogsPassQueryRejectedException() {
+
+        // given
+        given(logProcessingService.aggregateLogs(TLQL_LOG_REQUEST, LogEventAggregation.parse("level", null)))
+                .willThrow(new QueryRejectedException(QUERY_REJECTED_MESSAGE));
+
+        // when
+        Assertions.assertThrows(QueryRejectedException.class, () -> logsController.aggregateLogs(TLQL_LOG_REQUEST, "level", null));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldGetHistogram() throws LogRetrievalFailureException {
+
+        // given
+        given(logProcessingService.getHistogram(TLQL_LOG_REQUEST)).willReturn(LOG_EVENT_HISTOGRAM);
+
+        // when
+        ResponseEntity<LogEventHistogram> result = logsController.getHistogram(TLQL_LOG_REQUEST);
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(LOG_EVENT_HISTOGRAM));
+    }
+
+    @Test
+    public void shouldGetHistogramThrowLogRetrievalExceptionForInvalidQuery() {
+
+        // given
+        given(logProcessingService.getHistogram(TLQL_LOG_REQUEST)).willThrow(new IllegalArgumentException("invalid query"));
+
+        // when
+        Assertions.assertThrows(LogRetrievalFailureException.class, () -> logsController.getHistogram(TLQL_LOG_REQUEST));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldGetHistogramPassQueryRejectedException() {
+
+        // given
+        given(logProcessingService.getHistogram(TLQL_LOG_REQUEST)).willThrow(new QueryRejectedException(QUERY_REJECTED_MESSAGE));
+
+        // when
+        Assertions.assertThrows(QueryRejectedException.class, () -> logsController.getHistogram(TLQL_LOG_REQUEST));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldGetRollups() throws LogRetrievalFailureException {
+
+        // given
+        given(logProcessingService.getRollups(LogEventRollupQuery.parse("2024-01-01T00:00:00Z", null, "hour", "level", "lcfa", null)))
+                .willReturn(LOG_EVENT_ROLLUP_RESULT);
+
+        // when
+        ResponseEntity<LogEventRollupResult> result = logsController.getRollups("2024-01-01T00:00:00Z", null, "hour", "level", "lcfa", null);
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(LOG_EVENT_ROLLUP_RESULT));
+    }
+
+    @Test
+    public void shouldGetRollupsThrowLogRetrievalExceptionForMissingStartOfTimeRange() {
+
+        // when
+        Assertions.assertThrows(LogRetrievalFailureException.class, () -> logsController.getRollups(null, null, null, null, null, null));
+
+        // then
+        verifyNoInteractions(logProcessingService);
+    }
+
+    @Test
+    public void shouldGetRollupsThrowLogRetrievalExceptionWhenRollupsAreDisabled() {
+
+        // given
+        given(logProcessingService.getRollups(LogEventRollupQuery.parse("2024-01-01T00:00:00Z", null, null, null, null, null)))
+                .willThrow(new IllegalStateException("Log event rollups are disabled"));
+
+        // when
+        Assertions.assertThrows(LogRetrievalFailureException.class,
+                () -> logsController.getRollups("2024-01-01T00:00:00Z", null, null, null, null, null));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldGetIssues() throws LogRetrievalFailureException {
+
+        // given
+        List<Issue> issues = List.of(Issue.getBuilder()
+                .withFingerprint("fingerprint-1")
+                .withCount(3L)
+                .build());
+        given(logProcessingService.getIssues(IssueQuery.parse("2024-01-01T00:00:00Z", null, "lcfa", 10))).willReturn(issues);
+
+        // when
+        ResponseEntity<List<Issue>> result = logsController.getIssues("2024-01-01T00:00:00Z", null, "lcfa", 10);
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(issues));
+    }
+
+    @Test
+    public void shouldGetIssuesThrowLogRetrievalExceptionForMissingStartOfTimeWindow() {
+
+        // when
+        Assertions.assertThrows(LogRetrievalFailureException.class, () -> logsController.getIssues(null, null, null, null));
+
+        // then
+        verifyNoInteractions(logProcessingService);
+    }
+
+    @Test
+    public void shouldGetHeavyHitters() throws LogRetrievalFailureException {
+
+        // given
+        HeavyHitterResult heavyHitterResult = HeavyHitterResult.getBuilder()
+                .withDimension(HeavyHitterDimension.SOURCE)
+                .withTotal(3L)
+                .withHeavyHitters(List.of(new HeavyHitter("lcfa", 3L, 0L)))
+                .build();
+        given(logProcessingService.getHeavyHitters(HeavyHitterQuery.parse("source", "PT15M", 10))).willReturn(heavyHitterResult);
+
+        // when
+        ResponseEntity<HeavyHitterResult> result = logsController.getHeavyHitters("source", "PT15M", 10);
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(heavyHitterResult));
+    }
+
+    @Test
+    public void shouldGetHeavyHittersThrowLogRetrievalExceptionForInvalidDimension() {
+
+        // when
+        Assertions.assertThrows(LogRetrievalFailureException.class, () -> logsController.getHeavyHitters("thread", null, null));
+
+        // then
+        verifyNoInteractions(logProcessingService);
+    }
+
+    @Test
+    public void shouldGetLogsThrowLogRetrievalExceptionForInvalidCountMode() {
+
+        // when
+        Assertions.assertThrows(LogRetrievalFailureException.class, () -> logsController.getLogs(TLQL_LOG_REQUEST, null, "unknown", null));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldGetLogsViaTLQLProcessorWithCursor() throws LogRetrievalFailureException {
+
+        // given
+        given(logProcessingService.getLogs(TLQL_LOG_REQUEST, CURSOR, CountMode.EXACT, LogEventProjection.ALL)).willReturn(LogEventQueryResult.getBuilder()
+                .withPage(LOG_EVENT_PAGE)
+                .withNextCursor(NEXT_CURSOR)
+                .withPreviousCursor(PREVIOUS_CURSOR)
+                .withTotalCount(TotalCount.exact(100))
+                .build());
+
+        // when
+        ResponseEntity<LogEventPage> result = logsController.getLogs(TLQL_LOG_REQUEST, CURSOR, null, null);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(LOG_EVENT_PAGE));
+        assertThat(result.getHeaders().getFirst(LogsController.HEADER_NEXT_CURSOR), equalTo(NEXT_CURSOR));
+        assertThat(result.getHeaders().getFirst(LogsController.HEADER_PREVIOUS_CURSOR), equalTo(PREVIOUS_CURSOR));
     }
 
     @Test
@@ -93,18 +489,64 @@ public class LogsControllerTest {
     public void shouldGetLogsThrowLogRetrievalExceptionForTLQLLogRequest() {
 
         // given
-        doThrow(RuntimeException.class).when(logProcessingService).getLogs(TLQL_LOG_REQUEST);
+        doThrow(RuntimeException.class).when(logProcessingService).getLogs(TLQL_LOG_REQUEST, CURSOR, CountMode.EXACT, LogEventProjection.ALL);
+
+        // when
+        Assertions.assertThrows(LogRetrievalFailureException.class, () -> logsController.getLogs(TLQL_LOG_REQUEST, CURSOR, null, null));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldGetLogsPassQueryRejectedException() {
+
+        // given
+        doThrow(new QueryRejectedException(QUERY_REJECTED_MESSAGE)).when(logProcessingService)
+                .getLogs(TLQL_LOG_REQUEST, null, CountMode.EXACT, LogEventProjection.ALL);
 
         // when
-        Assertions.assertThrows(LogRetrievalFailureException.class, () -> logsController.getLogs(TLQL_LOG_REQUEST));
+        Assertions.assertThrows(QueryRejectedException.class, () -> logsController.getLogs(TLQL_LOG_REQUEST, null, null, null));
 
         // then
         // exception expected
     }
 
+    @Test
+    public void shouldGetDeferredCount() {
+
+        // given
+        given(logProcessingService.getDeferredCount(COUNT_TOKEN)).willReturn(Optional.of(DEFERRED_COUNT));
+
+        // when
+        ResponseEntity<DeferredCount> result = logsController.getDeferredCount(COUNT_TOKEN);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(DEFERRED_COUNT));
+    }
+
+    @Test
+    public void shouldGetDeferredCountReturnNotFoundForUnknownToken() {
+
+        // given
+        given(logProcessingService.getDeferredCount(COUNT_TOKEN)).willReturn(Optional.empty());
+
+        // when
+        ResponseEntity<DeferredCount> result = logsController.getDeferredCount(COUNT_TOKEN);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+    }
+
     @Test
     public void shouldStoreLog() throws LoggingEventProcessingFailureException {
 
+        // given
+        given(logProcessingService.storeLog(LOGGING_EVENT)).willReturn(LogStoreStatus.STORED);
+
         // when
         ResponseEntity<Void> result = logsController.storeLog(LOGGING_EVENT);
 
@@ -115,6 +557,49 @@ public class LogsControllerTest {
         verify(logProcessingService).storeLog(LOGGING_EVENT);
     }
 
+    @Test
+    public void shouldStoreLogAcceptQueuedEvent() throws LoggingEventProcessingFailureException {
+
+        // given
+        given(logProcessingService.storeLog(LOGGING_EVENT)).willReturn(LogStoreStatus.QUEUED);
+
+        // when
+        ResponseEntity<Void> result = logsController.storeLog(LOGGING_EVENT);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.ACCEPTED));
+        assertThat(result.getBody(), nullValue());
+    }
+
+    @Test
+    public void shouldStoreLogAcceptDroppedEvent() throws LoggingEventProcessingFailureException {
+
+        // given
+        given(logProcessingService.storeLog(LOGGING_EVENT)).willReturn(LogStoreStatus.DROPPED);
+
+        // when
+        ResponseEntity<Void> result = logsController.storeLog(LOGGING_EVENT);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.ACCEPTED));
+        assertThat(result.getBody(), nullValue());
+    }
+
+    @Test
+    public void shouldStoreLogPassIngestBufferFullException() {
+
+        // given
+        doThrow(IngestBufferFullException.class).when(logProcessingService).storeLog(LOGGING_EVENT);
+
+        // when
+        Assertions.assertThrows(IngestBufferFullException.class, () -> logsController.storeLog(LOGGING_EVENT));
+
+        // then
+        // exception expected
+    }
+
     @Test
     public void shouldStoreLogThrowLoggingEventProcessingException() {
 
@@ -128,6 +613,92 @@ public class LogsControllerTest {
         // exception expected
     }
 
+    @Test
+    public void shouldStoreLogsFromJSONArray() throws Exception {
+
+        // given
+        given(logProcessingService.storeLogs(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY)).willReturn(BATCH_INGESTION_RESULT_SUCCESS);
+
+        // when
+        ResponseEntity<BatchIngestionResult> result = logsController.storeLogs(MediaType.APPLICATION_JSON, BATCH_PAYLOAD);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.CREATED));
+        assertThat(result.getBody(), equalTo(BATCH_INGESTION_RESULT_SUCCESS));
+    }
+
+    @Test
+    public void shouldStoreLogsFromNDJSONWithPartialFailure() throws Exception {
+
+        // given
+        given(logProcessingService.storeLogs(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON)).willReturn(BATCH_INGESTION_RESULT_PARTIAL);
+
+        // when
+        ResponseEntity<BatchIngestionResult> result = logsController.storeLogs(MediaType.APPLICATION_NDJSON, BATCH_PAYLOAD);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.MULTI_STATUS));
+        assertThat(result.getBody(), equalTo(BATCH_INGESTION_RESULT_PARTIAL));
+    }
+
+    @Test
+    public void shouldStreamLogs() throws Exception {
+
+        // given
+        given(logProcessingService.storeLogsDirectly(BATCH_PAYLOAD, BatchPayloadFormat.NDJSON)).willReturn(BATCH_INGESTION_RESULT_SUCCESS);
+
+        // when
+        ResponseEntity<BatchIngestionResult> result = logsController.streamLogs(MediaType.APPLICATION_NDJSON, BATCH_PAYLOAD);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.CREATED));
+        assertThat(result.getBody(), equalTo(BATCH_INGESTION_RESULT_SUCCESS));
+    }
+
+    @Test
+    public void shouldStreamLogsWithPartialFailure() throws Exception {
+
+        // given
+        given(logProcessingService.storeLogsDirectly(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY)).willReturn(BATCH_INGESTION_RESULT_PARTIAL);
+
+        // when
+        ResponseEntity<BatchIngestionResult> result = logsController.streamLogs(MediaType.APPLICATION_JSON, BATCH_PAYLOAD);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.MULTI_STATUS));
+        assertThat(result.getBody(), equalTo(BATCH_INGESTION_RESULT_PARTIAL));
+    }
+
+    @Test
+    public void shouldStreamLogsThrowLoggingEventProcessingException() throws Exception {
+
+        // given
+        given(logProcessingService.storeLogsDirectly(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY)).willThrow(IOException.class);
+
+        // when
+        Assertions.assertThrows(LoggingEventProcessingFailureException.class, () -> logsController.streamLogs(MediaType.APPLICATION_JSON, BATCH_PAYLOAD));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldStoreLogsThrowLoggingEventProcessingException() throws Exception {
+
+        // given
+        given(logProcessingService.storeLogs(BATCH_PAYLOAD, BatchPayloadFormat.JSON_ARRAY)).willThrow(IOException.class);
+
+        // when
+        Assertions.assertThrows(LoggingEventProcessingFailureException.class, () -> logsController.storeLogs(MediaType.APPLICATION_JSON, BATCH_PAYLOAD));
+
+        // then
+        // exception expected
+    }
+
     @Test
     public void shouldHandleRetrievalException() {
 
@@ -158,6 +729,37 @@ public class LogsControllerTest {
         assertThat(result.getBody().message(), equalTo(LOGGING_EVENT_PROCESSING_FAILURE_MESSAGE));
     }
 
+    @Test
+    public void shouldHandleIngestBufferFullException() {
+
+        // given
+        IngestBufferFullException exception = new IngestBufferFullException();
+
+        // when
+        ResponseEntity<ErrorMessageResponse> result = logsController.ingestBufferFullHandler(exception);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.TOO_MANY_REQUESTS));
+        assertThat(result.getHeaders().getFirst(HttpHeaders.RETRY_AFTER), equalTo("1"));
+        assertThat(result.getBody().message(), equalTo(INGEST_BUFFER_FULL_MESSAGE));
+    }
+
+    @Test
+    public void shouldHandleQueryRejectedException() {
+
+        // given
+        QueryRejectedException exception = new QueryRejectedException(QUERY_REJECTED_MESSAGE);
+
+        // when
+        ResponseEntity<ErrorMessageResponse> result = logsController.queryRejectedHandler(exception);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        assertThat(result.getBody().message(), equalTo(QUERY_REJECTED_MESSAGE));
+    }
+
     @Test
     public void shouldHandleAnyOtherExceptions() {
 